@@ -26,6 +26,7 @@ import org.apache.flink.api.common.state.ReducingStateDescriptor;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.state.ValueStateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.VoidSerializer;
 import org.apache.flink.api.common.typeutils.base.array.BytePrimitiveArraySerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.java.typeutils.runtime.DataInputViewStream;
@@ -38,19 +39,24 @@ import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.migration.MigrationNamespaceSerializerProxy;
 import org.apache.flink.migration.MigrationUtil;
 import org.apache.flink.migration.contrib.streaming.state.RocksDBStateBackend;
+import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions.CheckpointType;
 import org.apache.flink.runtime.io.async.AbstractAsyncIOCallable;
 import org.apache.flink.runtime.io.async.AsyncStoppableTaskWithCallback;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.DoneFuture;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
 import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.state.StateObject;
+import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.internal.InternalAggregatingState;
 import org.apache.flink.runtime.state.internal.InternalFoldingState;
@@ -59,10 +65,13 @@ import org.apache.flink.runtime.state.internal.InternalMapState;
 import org.apache.flink.runtime.state.internal.InternalReducingState;
 import org.apache.flink.runtime.state.internal.InternalValueState;
 import org.apache.flink.runtime.util.SerializableObject;
+import org.apache.flink.streaming.api.operators.InternalTimerQueue;
+import org.apache.flink.streaming.api.operators.InternalTimerQueueFactory;
 import org.apache.flink.util.FileUtils;
 import org.apache.flink.util.IOUtils;
 import org.apache.flink.util.InstantiationUtil;
 import org.apache.flink.util.Preconditions;
+import org.rocksdb.Checkpoint;
 import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.ColumnFamilyOptions;
@@ -72,20 +81,27 @@ import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.Snapshot;
+import org.rocksdb.WriteOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.UUID;
 import java.util.concurrent.RunnableFuture;
 
 /**
@@ -93,11 +109,17 @@ import java.util.concurrent.RunnableFuture;
  * streams provided by a {@link org.apache.flink.runtime.state.CheckpointStreamFactory} upon
  * checkpointing. This state backend can store very large state that exceeds memory and spills
  * to disk. Except for the snapshotting, this class should be accessed as if it is not threadsafe.
+ *
+ * <p>If enabled, the backend also stores the timers of the operator's timer services, each timer queue
+ * in its own column family, see {@link RocksDBTimerQueue}.
  */
-public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
+public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> implements InternalTimerQueueFactory<K> {
 
 	private static final Logger LOG = LoggerFactory.getLogger(RocksDBKeyedStateBackend.class);
 
+	/** The prefix of the names of the column families which hold timers, to separate them from the k/v states */
+	static final String TIMER_STATE_NAME_PREFIX = "_timer_state/";
+
 	/** The column family options from the options factory */
 	private final ColumnFamilyOptions columnOptions;
 
@@ -133,6 +155,30 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	/** Number of bytes required to prefix the key groups. */
 	private final int keyGroupPrefixBytes;
 
+	/** True if incremental checkpointing is enabled */
+	private final boolean enableIncrementalCheckpointing;
+
+	/** True if the timers of the operator's timer services are stored in RocksDB */
+	private final boolean enableTimersInRocksDB;
+
+	/** The write options of all timer queues, which do not write to the write-ahead-log */
+	private final WriteOptions timerWriteOptions;
+
+	/**
+	 * The identifier of the lineage of incremental checkpoints. Backends that are restored from an
+	 * incremental checkpoint continue the lineage and may reference the files of that checkpoint.
+	 */
+	private String backendUID;
+
+	/** The sst files materialized by the checkpoints of the current lineage, by checkpoint id */
+	private final SortedMap<Long, Map<String, StreamStateHandle>> materializedSstFiles;
+
+	/** The id of the last checkpoint that was completed, guarded by {@link #materializedSstFiles} */
+	private long lastCompletedCheckpointId;
+
+	/** The column family handle of the RocksDB default column family */
+	private ColumnFamilyHandle defaultColumnFamily;
+
 	public RocksDBKeyedStateBackend(
 			JobID jobId,
 			String operatorIdentifier,
@@ -146,9 +192,68 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			KeyGroupRange keyGroupRange
 	) throws IOException {
 
+		this(jobId,
+			operatorIdentifier,
+			userCodeClassLoader,
+			instanceBasePath,
+			dbOptions,
+			columnFamilyOptions,
+			kvStateRegistry,
+			keySerializer,
+			numberOfKeyGroups,
+			keyGroupRange,
+			false);
+	}
+
+	public RocksDBKeyedStateBackend(
+			JobID jobId,
+			String operatorIdentifier,
+			ClassLoader userCodeClassLoader,
+			File instanceBasePath,
+			DBOptions dbOptions,
+			ColumnFamilyOptions columnFamilyOptions,
+			TaskKvStateRegistry kvStateRegistry,
+			TypeSerializer<K> keySerializer,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange,
+			boolean enableIncrementalCheckpointing
+	) throws IOException {
+
+		this(jobId,
+			operatorIdentifier,
+			userCodeClassLoader,
+			instanceBasePath,
+			dbOptions,
+			columnFamilyOptions,
+			kvStateRegistry,
+			keySerializer,
+			numberOfKeyGroups,
+			keyGroupRange,
+			enableIncrementalCheckpointing,
+			false);
+	}
+
+	public RocksDBKeyedStateBackend(
+			JobID jobId,
+			String operatorIdentifier,
+			ClassLoader userCodeClassLoader,
+			File instanceBasePath,
+			DBOptions dbOptions,
+			ColumnFamilyOptions columnFamilyOptions,
+			TaskKvStateRegistry kvStateRegistry,
+			TypeSerializer<K> keySerializer,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange,
+			boolean enableIncrementalCheckpointing,
+			boolean enableTimersInRocksDB
+	) throws IOException {
+
 		super(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange);
 		this.columnOptions = Preconditions.checkNotNull(columnFamilyOptions);
 		this.dbOptions = Preconditions.checkNotNull(dbOptions);
+		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
+		this.enableTimersInRocksDB = enableTimersInRocksDB;
+		this.timerWriteOptions = new WriteOptions().setDisableWAL(true);
 
 		this.instanceBasePath = Preconditions.checkNotNull(instanceBasePath);
 		this.instanceRocksDBPath = new File(instanceBasePath, "db");
@@ -169,23 +274,59 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			throw new IOException("Error cleaning RocksDB data directory.", e);
 		}
 
-		List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(1);
+		db = openDB(
+				instanceRocksDBPath.getAbsolutePath(),
+				Collections.<ColumnFamilyDescriptor>emptyList(),
+				new ArrayList<ColumnFamilyHandle>());
+
+		keyGroupPrefixBytes = getNumberOfKeyGroups() > (Byte.MAX_VALUE + 1) ? 2 : 1;
+		kvStateInformation = new HashMap<>();
+
+		backendUID = UUID.randomUUID().toString();
+		materializedSstFiles = new TreeMap<>();
+		lastCompletedCheckpointId = -1L;
+	}
+
+	/**
+	 * Opens the RocksDB data base at the given path with the given column families in addition
+	 * to the default column family.
+	 *
+	 * @param path The path of the data base
+	 * @param stateColumnFamilyDescriptors The descriptors of the column families of the k/v states
+	 * @param stateColumnFamilyHandles List that receives the handles to the k/v state column families,
+	 *                                 in the order of the given descriptors
+	 * @return The opened data base
+	 */
+	private RocksDB openDB(
+			String path,
+			List<ColumnFamilyDescriptor> stateColumnFamilyDescriptors,
+			List<ColumnFamilyHandle> stateColumnFamilyHandles) throws IOException {
+
+		List<ColumnFamilyDescriptor> columnFamilyDescriptors =
+				new ArrayList<>(1 + stateColumnFamilyDescriptors.size());
 		// RocksDB seems to need this...
 		columnFamilyDescriptors.add(new ColumnFamilyDescriptor("default".getBytes()));
-		List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(1);
-		try {
+		columnFamilyDescriptors.addAll(stateColumnFamilyDescriptors);
+
+		List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(columnFamilyDescriptors.size());
 
-			db = RocksDB.open(
+		RocksDB dbRef;
+
+		try {
+			dbRef = RocksDB.open(
 					Preconditions.checkNotNull(dbOptions),
-					instanceRocksDBPath.getAbsolutePath(),
+					Preconditions.checkNotNull(path),
 					columnFamilyDescriptors,
 					columnFamilyHandles);
-
 		} catch (RocksDBException e) {
 			throw new IOException("Error while opening RocksDB instance.", e);
 		}
-		keyGroupPrefixBytes = getNumberOfKeyGroups() > (Byte.MAX_VALUE + 1) ? 2 : 1;
-		kvStateInformation = new HashMap<>();
+
+		// the default column family is always the first one
+		defaultColumnFamily = columnFamilyHandles.remove(0);
+		stateColumnFamilyHandles.addAll(columnFamilyHandles);
+
+		return dbRef;
 	}
 
 	/**
@@ -213,6 +354,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 				kvStateInformation.clear();
 
+				IOUtils.closeQuietly(defaultColumnFamily);
+				defaultColumnFamily = null;
+
 				try {
 					db.close();
 				} catch (Exception ex) {
@@ -225,6 +369,7 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 
 		IOUtils.closeQuietly(columnOptions);
 		IOUtils.closeQuietly(dbOptions);
+		IOUtils.closeQuietly(timerWriteOptions);
 
 		try {
 			FileUtils.deleteDirectory(instanceBasePath);
@@ -242,6 +387,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 * is also stopped when the backend is closed through {@link #dispose()}. For each backend, this method must always
 	 * be called by the same thread.
 	 *
+	 * <p>If incremental checkpointing is enabled, checkpoints only upload the files of the data base that were not
+	 * part of the last completed checkpoint. Savepoints are always taken as full snapshots.
+	 *
 	 * @param checkpointId  The Id of the checkpoint.
 	 * @param timestamp     The timestamp of the checkpoint.
 	 * @param streamFactory The factory that we can use for writing our state to streams.
@@ -256,6 +404,81 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			final CheckpointStreamFactory streamFactory,
 			CheckpointOptions checkpointOptions) throws Exception {
 
+		if (enableIncrementalCheckpointing && checkpointOptions.getCheckpointType() != CheckpointType.SAVEPOINT) {
+			return snapshotIncrementally(checkpointId, timestamp, streamFactory);
+		} else {
+			return snapshotFully(checkpointId, timestamp, streamFactory);
+		}
+	}
+
+	private RunnableFuture<KeyGroupsStateHandle> snapshotIncrementally(
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory) throws Exception {
+
+		long startTime = System.currentTimeMillis();
+
+		final RocksDBIncrementalSnapshotOperation snapshotOperation =
+				new RocksDBIncrementalSnapshotOperation(this, streamFactory, checkpointId, timestamp);
+
+		// hold the db lock while operation on the db to guard us against async db disposal
+		synchronized (asyncSnapshotLock) {
+
+			if (db != null) {
+
+				if (kvStateInformation.isEmpty()) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Asynchronous RocksDB snapshot performed on empty keyed state at " + timestamp +
+								" . Returning null.");
+					}
+
+					return new DoneFuture<>(null);
+				}
+
+				snapshotOperation.takeSnapshot();
+			} else {
+				throw new IOException("RocksDB closed.");
+			}
+		}
+
+		// the asynchronous part only works on the local copy of the data base files
+		AbstractAsyncIOCallable<KeyGroupsStateHandle, CloseableRegistry> ioCallable =
+				new AbstractAsyncIOCallable<KeyGroupsStateHandle, CloseableRegistry>() {
+
+					@Override
+					public CloseableRegistry openIOHandle() throws Exception {
+						return snapshotOperation.getCloseableRegistry();
+					}
+
+					@Override
+					public KeyGroupsStateHandle performOperation() throws Exception {
+						long startTime = System.currentTimeMillis();
+
+						KeyGroupsStateHandle stateHandle = snapshotOperation.materializeSnapshot();
+
+						LOG.info("Asynchronous incremental RocksDB snapshot ({}, asynchronous part) in thread {} took {} ms.",
+							streamFactory, Thread.currentThread(), (System.currentTimeMillis() - startTime));
+
+						return stateHandle;
+					}
+
+					@Override
+					public void done(boolean canceled) {
+						snapshotOperation.releaseResources(canceled);
+					}
+				};
+
+		LOG.info("Asynchronous incremental RocksDB snapshot (" + streamFactory + ", synchronous part) in thread " +
+				Thread.currentThread() + " took " + (System.currentTimeMillis() - startTime) + " ms.");
+
+		return AsyncStoppableTaskWithCallback.from(ioCallable);
+	}
+
+	private RunnableFuture<KeyGroupsStateHandle> snapshotFully(
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory) throws Exception {
+
 		long startTime = System.currentTimeMillis();
 
 		final RocksDBSnapshotOperation snapshotOperation = new RocksDBSnapshotOperation(this, streamFactory);
@@ -613,6 +836,288 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	/**
+	 * Encapsulates the process to perform an incremental snapshot of a RocksDBKeyedStateBackend.
+	 *
+	 * <p>The synchronous part creates a native RocksDB checkpoint in a local directory, which consists
+	 * of hard links to the immutable sst files plus copies of the few mutable files of the data base.
+	 * The asynchronous part then uploads all sst files that were not already materialized by the last
+	 * completed checkpoint, together with the mutable files and the meta data of the k/v states.
+	 */
+	static final class RocksDBIncrementalSnapshotOperation {
+
+		private static final String SST_FILE_SUFFIX = ".sst";
+
+		private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+		private final RocksDBKeyedStateBackend<?> stateBackend;
+
+		private final CheckpointStreamFactory checkpointStreamFactory;
+
+		private final long checkpointId;
+
+		private final long checkpointTimestamp;
+
+		/** The streams that are opened while materializing the snapshot */
+		private final CloseableRegistry closeableRegistry;
+
+		/** The lineage of the checkpoint at the time the snapshot was taken */
+		private String backendUID;
+
+		/** The sst files of the last completed checkpoint that can be referenced instead of uploaded */
+		private Map<String, StreamStateHandle> baseSstFiles;
+
+		/** The meta data of the k/v states at the time the snapshot was taken */
+		private List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos;
+
+		/** Local directory that holds the native RocksDB checkpoint */
+		private File localBackupDirectory;
+
+		// ------ results of the materialization, discarded if the snapshot is canceled ------
+
+		private final Map<String, StreamStateHandle> newSstFiles = new HashMap<>();
+
+		private final Map<String, StreamStateHandle> oldSstFiles = new HashMap<>();
+
+		private final Map<String, StreamStateHandle> privateFiles = new HashMap<>();
+
+		private StreamStateHandle metaStateHandle;
+
+		RocksDBIncrementalSnapshotOperation(
+				RocksDBKeyedStateBackend<?> stateBackend,
+				CheckpointStreamFactory checkpointStreamFactory,
+				long checkpointId,
+				long checkpointTimestamp) {
+
+			this.stateBackend = stateBackend;
+			this.checkpointStreamFactory = checkpointStreamFactory;
+			this.checkpointId = checkpointId;
+			this.checkpointTimestamp = checkpointTimestamp;
+			this.closeableRegistry = new CloseableRegistry();
+		}
+
+		CloseableRegistry getCloseableRegistry() {
+			return closeableRegistry;
+		}
+
+		/**
+		 * 1) Create a native checkpoint of the data base in a local directory. Must be called while
+		 * holding the lock that guards the data base against disposal.
+		 */
+		void takeSnapshot() throws Exception {
+			synchronized (stateBackend.materializedSstFiles) {
+				backendUID = stateBackend.backendUID;
+				baseSstFiles = stateBackend.materializedSstFiles.get(stateBackend.lastCompletedCheckpointId);
+			}
+
+			if (baseSstFiles == null) {
+				baseSstFiles = Collections.emptyMap();
+			}
+
+			stateMetaInfos = new ArrayList<>(stateBackend.kvStateInformation.size());
+			for (Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> column :
+					stateBackend.kvStateInformation.values()) {
+
+				RegisteredBackendStateMetaInfo<?, ?> metaInfo = column.f1;
+
+				stateMetaInfos.add(
+						new KeyedBackendSerializationProxy.StateMetaInfo<>(
+								metaInfo.getStateType(),
+								metaInfo.getName(),
+								metaInfo.getNamespaceSerializer(),
+								metaInfo.getStateSerializer()));
+			}
+
+			localBackupDirectory = new File(stateBackend.instanceBasePath, "chk-" + checkpointId);
+			if (localBackupDirectory.exists()) {
+				LOG.warn("Deleting already existing local backup directory {}.", localBackupDirectory);
+				FileUtils.deleteDirectory(localBackupDirectory);
+			}
+
+			// the native checkpoint flushes the memtables and hard-links all live sst files
+			Checkpoint checkpoint = Checkpoint.create(stateBackend.db);
+			try {
+				checkpoint.createCheckpoint(localBackupDirectory.getAbsolutePath());
+			} finally {
+				checkpoint.close();
+			}
+		}
+
+		/**
+		 * 2) Upload the files of the local checkpoint that are not yet materialized and write the
+		 * meta data. Returns the handle to the snapshot.
+		 */
+		KeyGroupsStateHandle materializeSnapshot() throws Exception {
+			File[] files = localBackupDirectory.listFiles();
+			if (files == null) {
+				throw new IOException("Could not list the files of the local backup directory " +
+						localBackupDirectory + '.');
+			}
+
+			for (File file : files) {
+				checkInterrupted();
+
+				String fileName = file.getName();
+
+				if (fileName.endsWith(SST_FILE_SUFFIX)) {
+					StreamStateHandle materializedFile = baseSstFiles.get(fileName);
+
+					if (materializedFile != null) {
+						oldSstFiles.put(fileName, materializedFile);
+					} else {
+						newSstFiles.put(fileName, materializeFile(file));
+					}
+				} else {
+					privateFiles.put(fileName, materializeFile(file));
+				}
+			}
+
+			metaStateHandle = materializeMetaData();
+
+			Map<String, StreamStateHandle> sstFiles = new HashMap<>(newSstFiles.size() + oldSstFiles.size());
+			sstFiles.putAll(newSstFiles);
+			sstFiles.putAll(oldSstFiles);
+
+			synchronized (stateBackend.materializedSstFiles) {
+				// only remember the files if no checkpoint of a newer lineage was restored meanwhile
+				if (backendUID.equals(stateBackend.backendUID)) {
+					stateBackend.materializedSstFiles.put(checkpointId, sstFiles);
+				}
+			}
+
+			return new IncrementalKeyGroupsStateHandle(
+					backendUID,
+					stateBackend.keyGroupRange,
+					checkpointId,
+					newSstFiles,
+					oldSstFiles,
+					privateFiles,
+					metaStateHandle);
+		}
+
+		/**
+		 * 3) Delete the local checkpoint and, if the snapshot was canceled, the materialized state.
+		 */
+		void releaseResources(boolean canceled) {
+
+			if (localBackupDirectory != null) {
+				try {
+					FileUtils.deleteDirectory(localBackupDirectory);
+				} catch (IOException e) {
+					LOG.warn("Could not properly delete the local backup directory {}.", localBackupDirectory, e);
+				}
+			}
+
+			if (canceled) {
+				List<StateObject> statesToDiscard = new ArrayList<>(
+						newSstFiles.size() + privateFiles.size() + 1);
+
+				statesToDiscard.add(metaStateHandle);
+				statesToDiscard.addAll(newSstFiles.values());
+				statesToDiscard.addAll(privateFiles.values());
+
+				try {
+					StateUtil.bestEffortDiscardAllStateObjects(statesToDiscard);
+				} catch (Exception e) {
+					LOG.warn("Exception occurred during snapshot state handle cleanup.", e);
+				}
+			}
+		}
+
+		private StreamStateHandle materializeFile(File file) throws Exception {
+			FileInputStream inputStream = null;
+			CheckpointStreamFactory.CheckpointStateOutputStream outputStream = null;
+
+			try {
+				inputStream = new FileInputStream(file);
+				closeableRegistry.registerClosable(inputStream);
+
+				outputStream = checkpointStreamFactory
+						.createCheckpointStateOutputStream(checkpointId, checkpointTimestamp);
+				closeableRegistry.registerClosable(outputStream);
+
+				final byte[] buffer = new byte[READ_BUFFER_SIZE];
+
+				while (true) {
+					int numBytes = inputStream.read(buffer);
+
+					if (numBytes == -1) {
+						break;
+					}
+
+					outputStream.write(buffer, 0, numBytes);
+				}
+
+				closeableRegistry.unregisterClosable(outputStream);
+				StreamStateHandle result = outputStream.closeAndGetHandle();
+				outputStream = null;
+
+				return result;
+			} finally {
+				if (inputStream != null) {
+					closeableRegistry.unregisterClosable(inputStream);
+					IOUtils.closeQuietly(inputStream);
+				}
+
+				if (outputStream != null) {
+					closeableRegistry.unregisterClosable(outputStream);
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+
+		private StreamStateHandle materializeMetaData() throws Exception {
+			CheckpointStreamFactory.CheckpointStateOutputStream outputStream = null;
+
+			try {
+				outputStream = checkpointStreamFactory
+						.createCheckpointStateOutputStream(checkpointId, checkpointTimestamp);
+				closeableRegistry.registerClosable(outputStream);
+
+				KeyedBackendSerializationProxy serializationProxy =
+						new KeyedBackendSerializationProxy(stateBackend.getKeySerializer(), stateMetaInfos);
+
+				serializationProxy.write(new DataOutputViewStreamWrapper(outputStream));
+
+				closeableRegistry.unregisterClosable(outputStream);
+				StreamStateHandle result = outputStream.closeAndGetHandle();
+				outputStream = null;
+
+				return result;
+			} finally {
+				if (outputStream != null) {
+					closeableRegistry.unregisterClosable(outputStream);
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+
+		private static void checkInterrupted() throws InterruptedException {
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException("RocksDB snapshot interrupted.");
+			}
+		}
+	}
+
+	/**
+	 * Remembers that the checkpoint with the given id was completed, so that the files it materialized
+	 * can be referenced by the following incremental checkpoints.
+	 */
+	@Override
+	public void notifyCheckpointComplete(long checkpointId) throws Exception {
+		if (!enableIncrementalCheckpointing) {
+			return;
+		}
+
+		synchronized (materializedSstFiles) {
+			if (checkpointId > lastCompletedCheckpointId) {
+				// the files of older checkpoints are never referenced again
+				materializedSstFiles.headMap(checkpointId).clear();
+				lastCompletedCheckpointId = checkpointId;
+			}
+		}
+	}
+
 	@Override
 	public void restore(Collection<KeyGroupsStateHandle> restoreState) throws Exception {
 		LOG.info("Initializing RocksDB keyed state backend from snapshot.");
@@ -625,6 +1130,9 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			if (MigrationUtil.isOldSavepointKeyedState(restoreState)) {
 				LOG.info("Converting RocksDB state from old savepoint.");
 				restoreOldSavepointKeyedState(restoreState);
+			} else if (containsIncrementalState(restoreState)) {
+				RocksDBIncrementalRestoreOperation restoreOperation = new RocksDBIncrementalRestoreOperation(this);
+				restoreOperation.doRestore(restoreState);
 			} else {
 				RocksDBRestoreOperation restoreOperation = new RocksDBRestoreOperation(this);
 				restoreOperation.doRestore(restoreState);
@@ -635,6 +1143,297 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
+	private static boolean containsIncrementalState(Collection<KeyGroupsStateHandle> restoreState) {
+		for (KeyGroupsStateHandle stateHandle : restoreState) {
+			if (stateHandle instanceof IncrementalKeyGroupsStateHandle) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Encapsulates the process of restoring a RocksDBKeyedStateBackend from incremental snapshots.
+	 *
+	 * <p>If the backend is restored from exactly one snapshot with the same key-group range, the files of
+	 * the snapshot are downloaded and taken over as the data base of this backend. The backend then continues
+	 * the lineage of the snapshot, i.e. the following incremental checkpoints reference its files. Otherwise
+	 * (e.g. when the parallelism changed) each snapshot is opened as a temporary data base and the key-groups
+	 * of this backend are copied from it.
+	 */
+	static final class RocksDBIncrementalRestoreOperation {
+
+		private final RocksDBKeyedStateBackend<?> stateBackend;
+
+		RocksDBIncrementalRestoreOperation(RocksDBKeyedStateBackend<?> stateBackend) {
+			this.stateBackend = Preconditions.checkNotNull(stateBackend);
+		}
+
+		void doRestore(Collection<KeyGroupsStateHandle> keyGroupsStateHandles) throws Exception {
+			List<IncrementalKeyGroupsStateHandle> restoreStateHandles = new ArrayList<>(keyGroupsStateHandles.size());
+
+			for (KeyGroupsStateHandle keyGroupsStateHandle : keyGroupsStateHandles) {
+				if (keyGroupsStateHandle != null) {
+					if (!(keyGroupsStateHandle instanceof IncrementalKeyGroupsStateHandle)) {
+						throw new IllegalStateException("Unexpected state handle type, expected " +
+								IncrementalKeyGroupsStateHandle.class + ", but found " + keyGroupsStateHandle.getClass() + '.');
+					}
+
+					restoreStateHandles.add((IncrementalKeyGroupsStateHandle) keyGroupsStateHandle);
+				}
+			}
+
+			if (restoreStateHandles.size() == 1 &&
+					restoreStateHandles.get(0).getKeyGroupRange().equals(stateBackend.keyGroupRange)) {
+
+				restoreInstance(restoreStateHandles.get(0));
+			} else {
+				for (IncrementalKeyGroupsStateHandle restoreStateHandle : restoreStateHandles) {
+					restoreKeyGroupsByCopying(restoreStateHandle);
+				}
+			}
+		}
+
+		/**
+		 * Takes over the files of the given snapshot as the data base of the backend.
+		 */
+		private void restoreInstance(IncrementalKeyGroupsStateHandle restoreStateHandle) throws Exception {
+			File instanceRocksDBPath = stateBackend.instanceRocksDBPath;
+
+			// read the meta data first, so that the backend keeps its data base if the state cannot be restored
+			List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos =
+					readMetaData(restoreStateHandle.getMetaStateHandle());
+
+			synchronized (stateBackend.asyncSnapshotLock) {
+				// close the empty data base that was opened when the backend was created
+				IOUtils.closeQuietly(stateBackend.defaultColumnFamily);
+				stateBackend.defaultColumnFamily = null;
+				stateBackend.db.close();
+				stateBackend.db = null;
+
+				FileUtils.deleteDirectory(instanceRocksDBPath);
+				if (!instanceRocksDBPath.mkdirs()) {
+					throw new IOException("Could not create RocksDB data directory " + instanceRocksDBPath + '.');
+				}
+
+				downloadFiles(restoreStateHandle, instanceRocksDBPath);
+
+				List<ColumnFamilyDescriptor> columnFamilyDescriptors = createColumnFamilyDescriptors(stateMetaInfos);
+				List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(columnFamilyDescriptors.size());
+
+				stateBackend.db = stateBackend.openDB(
+						instanceRocksDBPath.getAbsolutePath(),
+						columnFamilyDescriptors,
+						columnFamilyHandles);
+
+				for (int i = 0; i < stateMetaInfos.size(); ++i) {
+					RegisteredBackendStateMetaInfo<?, ?> stateMetaInfo =
+							new RegisteredBackendStateMetaInfo<>(stateMetaInfos.get(i));
+
+					stateBackend.kvStateInformation.put(
+							stateMetaInfo.getName(),
+							new Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>>(
+									columnFamilyHandles.get(i), stateMetaInfo));
+				}
+			}
+
+			// continue the lineage of the restored checkpoint
+			Map<String, StreamStateHandle> sstFiles = new HashMap<>();
+			sstFiles.putAll(restoreStateHandle.getNewSharedState());
+			sstFiles.putAll(restoreStateHandle.getOldSharedState());
+
+			synchronized (stateBackend.materializedSstFiles) {
+				stateBackend.backendUID = restoreStateHandle.getBackendIdentifier();
+				stateBackend.materializedSstFiles.clear();
+				stateBackend.materializedSstFiles.put(restoreStateHandle.getCheckpointId(), sstFiles);
+				stateBackend.lastCompletedCheckpointId = restoreStateHandle.getCheckpointId();
+			}
+		}
+
+		/**
+		 * Opens the given snapshot as a temporary data base and copies the key-groups of the backend.
+		 */
+		private void restoreKeyGroupsByCopying(IncrementalKeyGroupsStateHandle restoreStateHandle) throws Exception {
+			File restoreInstancePath = new File(stateBackend.instanceBasePath, "restore-" + UUID.randomUUID());
+
+			try {
+				if (!restoreInstancePath.mkdirs()) {
+					throw new IOException("Could not create RocksDB restore directory " + restoreInstancePath + '.');
+				}
+
+				downloadFiles(restoreStateHandle, restoreInstancePath);
+
+				List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos =
+						readMetaData(restoreStateHandle.getMetaStateHandle());
+
+				List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(1 + stateMetaInfos.size());
+				columnFamilyDescriptors.add(new ColumnFamilyDescriptor("default".getBytes()));
+				columnFamilyDescriptors.addAll(createColumnFamilyDescriptors(stateMetaInfos));
+
+				List<ColumnFamilyHandle> columnFamilyHandles = new ArrayList<>(columnFamilyDescriptors.size());
+
+				RocksDB restoreDb = RocksDB.open(
+						stateBackend.dbOptions,
+						restoreInstancePath.getAbsolutePath(),
+						columnFamilyDescriptors,
+						columnFamilyHandles);
+
+				try {
+					for (int i = 0; i < stateMetaInfos.size(); ++i) {
+						ColumnFamilyHandle targetColumnFamily = getOrCreateColumnFamily(stateMetaInfos.get(i));
+
+						// the first handle belongs to the default column family
+						copyKeyGroups(restoreDb, columnFamilyHandles.get(i + 1), targetColumnFamily);
+					}
+				} finally {
+					for (ColumnFamilyHandle columnFamilyHandle : columnFamilyHandles) {
+						IOUtils.closeQuietly(columnFamilyHandle);
+					}
+
+					restoreDb.close();
+				}
+			} finally {
+				FileUtils.deleteDirectoryQuietly(restoreInstancePath);
+			}
+		}
+
+		/**
+		 * Copies all k/v pairs of the backend's key-groups. Because all keys are prefixed with their
+		 * key-group, the key-groups of the backend form a contiguous range in the column family.
+		 */
+		private void copyKeyGroups(
+				RocksDB restoreDb,
+				ColumnFamilyHandle sourceColumnFamily,
+				ColumnFamilyHandle targetColumnFamily) throws Exception {
+
+			final int keyGroupPrefixBytes = stateBackend.keyGroupPrefixBytes;
+			final KeyGroupRange keyGroupRange = stateBackend.keyGroupRange;
+
+			byte[] startKeyGroupPrefix = new byte[keyGroupPrefixBytes];
+			for (int j = 0; j < keyGroupPrefixBytes; ++j) {
+				startKeyGroupPrefix[j] = (byte) (keyGroupRange.getStartKeyGroup() >>> ((keyGroupPrefixBytes - j - 1) * Byte.SIZE));
+			}
+
+			try (RocksIterator iterator = restoreDb.newIterator(sourceColumnFamily)) {
+				iterator.seek(startKeyGroupPrefix);
+
+				while (iterator.isValid()) {
+					byte[] key = iterator.key();
+
+					int keyGroup = 0;
+					for (int j = 0; j < keyGroupPrefixBytes; ++j) {
+						keyGroup = (keyGroup << Byte.SIZE) | (key[j] & 0xFF);
+					}
+
+					if (keyGroup > keyGroupRange.getEndKeyGroup()) {
+						break;
+					}
+
+					stateBackend.db.put(targetColumnFamily, key, iterator.value());
+					iterator.next();
+				}
+			}
+		}
+
+		private ColumnFamilyHandle getOrCreateColumnFamily(
+				KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy) throws RocksDBException {
+
+			Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> columnFamily =
+					stateBackend.kvStateInformation.get(metaInfoProxy.getStateName());
+
+			if (null == columnFamily) {
+				ColumnFamilyDescriptor columnFamilyDescriptor = new ColumnFamilyDescriptor(
+						metaInfoProxy.getStateName().getBytes(), stateBackend.columnOptions);
+
+				RegisteredBackendStateMetaInfo<?, ?> stateMetaInfo =
+						new RegisteredBackendStateMetaInfo<>(metaInfoProxy);
+
+				columnFamily = new Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>>(
+						stateBackend.db.createColumnFamily(columnFamilyDescriptor),
+						stateMetaInfo);
+
+				stateBackend.kvStateInformation.put(stateMetaInfo.getName(), columnFamily);
+			}
+
+			return columnFamily.f0;
+		}
+
+		private List<ColumnFamilyDescriptor> createColumnFamilyDescriptors(
+				List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> stateMetaInfos) {
+
+			List<ColumnFamilyDescriptor> columnFamilyDescriptors = new ArrayList<>(stateMetaInfos.size());
+
+			for (KeyedBackendSerializationProxy.StateMetaInfo<?, ?> stateMetaInfo : stateMetaInfos) {
+				columnFamilyDescriptors.add(new ColumnFamilyDescriptor(
+						stateMetaInfo.getStateName().getBytes(), stateBackend.columnOptions));
+			}
+
+			return columnFamilyDescriptors;
+		}
+
+		private List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> readMetaData(
+				StreamStateHandle metaStateHandle) throws Exception {
+
+			FSDataInputStream inputStream = null;
+
+			try {
+				inputStream = metaStateHandle.openInputStream();
+				stateBackend.cancelStreamRegistry.registerClosable(inputStream);
+
+				KeyedBackendSerializationProxy serializationProxy =
+						new KeyedBackendSerializationProxy(stateBackend.userCodeClassLoader);
+
+				serializationProxy.read(new DataInputViewStreamWrapper(inputStream));
+
+				for (KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy :
+						serializationProxy.getNamedStateSerializationProxies()) {
+					stateBackend.checkRestoredState(metaInfoProxy.getStateName());
+				}
+
+				return serializationProxy.getNamedStateSerializationProxies();
+			} finally {
+				if (inputStream != null) {
+					stateBackend.cancelStreamRegistry.unregisterClosable(inputStream);
+					IOUtils.closeQuietly(inputStream);
+				}
+			}
+		}
+
+		private void downloadFiles(IncrementalKeyGroupsStateHandle restoreStateHandle, File targetDirectory)
+				throws IOException {
+
+			downloadFiles(restoreStateHandle.getNewSharedState(), targetDirectory);
+			downloadFiles(restoreStateHandle.getOldSharedState(), targetDirectory);
+			downloadFiles(restoreStateHandle.getPrivateState(), targetDirectory);
+		}
+
+		private void downloadFiles(Map<String, StreamStateHandle> stateHandles, File targetDirectory)
+				throws IOException {
+
+			for (Map.Entry<String, StreamStateHandle> entry : stateHandles.entrySet()) {
+				FSDataInputStream inputStream = null;
+				FileOutputStream outputStream = null;
+
+				try {
+					inputStream = entry.getValue().openInputStream();
+					stateBackend.cancelStreamRegistry.registerClosable(inputStream);
+
+					outputStream = new FileOutputStream(new File(targetDirectory, entry.getKey()));
+
+					IOUtils.copyBytes(inputStream, outputStream, false);
+				} finally {
+					if (inputStream != null) {
+						stateBackend.cancelStreamRegistry.unregisterClosable(inputStream);
+						IOUtils.closeQuietly(inputStream);
+					}
+
+					IOUtils.closeQuietly(outputStream);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Encapsulates the process of restoring a RocksDBKeyedStateBackend from a snapshot.
 	 */
@@ -722,6 +1521,8 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			currentStateHandleKVStateColumnFamilies = new ArrayList<>(metaInfoProxyList.size());
 
 			for (KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy : metaInfoProxyList) {
+				rocksDBKeyedStateBackend.checkRestoredState(metaInfoProxy.getStateName());
+
 				Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> columnFamily =
 						rocksDBKeyedStateBackend.kvStateInformation.get(metaInfoProxy.getStateName());
 
@@ -800,19 +1601,24 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 * <p>This also checks whether the {@link StateDescriptor} for a state matches the one
 	 * that we checkpointed, i.e. is already in the map of column families.
 	 */
-	@SuppressWarnings("rawtypes, unchecked")
 	protected <N, S> ColumnFamilyHandle getColumnFamily(
 			StateDescriptor<?, S> descriptor, TypeSerializer<N> namespaceSerializer) throws IOException {
 
-		Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> stateInfo =
-				kvStateInformation.get(descriptor.getName());
-
 		RegisteredBackendStateMetaInfo<N, S> newMetaInfo = new RegisteredBackendStateMetaInfo<>(
 				descriptor.getType(),
 				descriptor.getName(),
 				namespaceSerializer,
 				descriptor.getSerializer());
 
+		return getColumnFamily(newMetaInfo);
+	}
+
+	@SuppressWarnings("rawtypes, unchecked")
+	private <N, S> ColumnFamilyHandle getColumnFamily(RegisteredBackendStateMetaInfo<N, S> newMetaInfo) throws IOException {
+
+		Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<?, ?>> stateInfo =
+				kvStateInformation.get(newMetaInfo.getName());
+
 		if (stateInfo != null) {
 			if (newMetaInfo.isCompatibleWith(stateInfo.f1)) {
 				stateInfo.f1 = newMetaInfo;
@@ -824,20 +1630,72 @@ public class RocksDBKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 
 		ColumnFamilyDescriptor columnDescriptor = new ColumnFamilyDescriptor(
-				descriptor.getName().getBytes(), columnOptions);
+				newMetaInfo.getName().getBytes(), columnOptions);
 
 		try {
 			ColumnFamilyHandle columnFamily = db.createColumnFamily(columnDescriptor);
 			Tuple2<ColumnFamilyHandle, RegisteredBackendStateMetaInfo<N, S>> tuple =
 					new Tuple2<>(columnFamily, newMetaInfo);
 			Map rawAccess = kvStateInformation;
-			rawAccess.put(descriptor.getName(), tuple);
+			rawAccess.put(newMetaInfo.getName(), tuple);
 			return columnFamily;
 		} catch (RocksDBException e) {
 			throw new IOException("Error creating ColumnFamilyHandle.", e);
 		}
 	}
 
+	/**
+	 * Creates a timer queue in its own column family, if timers are stored in RocksDB. The column family
+	 * is registered like the ones of the k/v states, so that the timers are part of all snapshots.
+	 */
+	@Override
+	public <N> InternalTimerQueue<K, N> createTimerQueue(String name, TypeSerializer<N> namespaceSerializer) {
+		if (!enableTimersInRocksDB) {
+			return null;
+		}
+
+		RegisteredBackendStateMetaInfo<N, Void> metaInfo = new RegisteredBackendStateMetaInfo<>(
+				StateDescriptor.Type.VALUE,
+				TIMER_STATE_NAME_PREFIX + name,
+				namespaceSerializer,
+				VoidSerializer.INSTANCE);
+
+		try {
+			return new RocksDBTimerQueue<>(
+					db,
+					getColumnFamily(metaInfo),
+					timerWriteOptions,
+					getKeySerializer(),
+					namespaceSerializer,
+					keyGroupPrefixBytes,
+					getNumberOfKeyGroups(),
+					getKeyGroupRange());
+		} catch (IOException e) {
+			throw new RuntimeException("Error while creating the timer queue " + name + " in RocksDB", e);
+		}
+	}
+
+	/**
+	 * Checks that the backend can restore the state with the given name from a snapshot. Timers that
+	 * were stored in RocksDB can only be restored if timers are stored in RocksDB. Otherwise the timer
+	 * services would restore their timers from the raw keyed state and the timers would be lost.
+	 *
+	 * @throws IOException Thrown, if the state cannot be restored.
+	 */
+	private void checkRestoredState(String stateName) throws IOException {
+		if (!enableTimersInRocksDB && stateName.startsWith(TIMER_STATE_NAME_PREFIX)) {
+			throw new IOException("Cannot restore the timers '" +
+					stateName.substring(TIMER_STATE_NAME_PREFIX.length()) + "' from a snapshot that " +
+					"stored timers in RocksDB, because timers in RocksDB are disabled. Set '" +
+					RocksDBStateBackendFactory.ROCKSDB_TIMERS_CONF_KEY + "' to true or call " +
+					"RocksDBStateBackend#setTimersInRocksDB(true) to restore the snapshot.");
+		}
+	}
+
+	public boolean isTimersInRocksDBEnabled() {
+		return enableTimersInRocksDB;
+	}
+
 	@Override
 	protected <N, T> InternalValueState<N, T> createValueState(
 			TypeSerializer<N> namespaceSerializer,
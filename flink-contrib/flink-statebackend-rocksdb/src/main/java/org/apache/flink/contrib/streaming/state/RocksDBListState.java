@@ -31,9 +31,11 @@ import org.rocksdb.WriteOptions;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.AbstractSequentialList;
 import java.util.Collection;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
 /**
  * {@link ListState} implementation that stores state in RocksDB.
@@ -42,6 +44,10 @@ import java.util.List;
  * {@link org.rocksdb.StringAppendOperator} on the column family that we use for our state since
  * we use the {@code merge()} call.
  *
+ * <p>The list returned by {@link #get()} is read-only and deserializes its elements lazily
+ * while it is iterated, so that a large list, such as the contents of a window that is
+ * evaluated with a {@code ProcessWindowFunction}, is not materialized on the heap at once.
+ *
  * @param <K> The type of the key.
  * @param <N> The type of the namespace.
  * @param <V> The type of the values in the list state.
@@ -89,17 +95,7 @@ public class RocksDBListState<K, N, V>
 				return null;
 			}
 
-			ByteArrayInputStream bais = new ByteArrayInputStream(valueBytes);
-			DataInputViewStreamWrapper in = new DataInputViewStreamWrapper(bais);
-
-			List<V> result = new ArrayList<>();
-			while (in.available() > 0) {
-				result.add(valueSerializer.deserialize(in));
-				if (in.available() > 0) {
-					in.readByte();
-				}
-			}
-			return result;
+			return new LazyDeserializingList<>(valueBytes, valueSerializer);
 		} catch (IOException|RocksDBException e) {
 			throw new RuntimeException("Error while retrieving data from RocksDB", e);
 		}
@@ -157,4 +153,156 @@ public class RocksDBListState<K, N, V>
 			throw new Exception("Error while merging state in RocksDB", e);
 		}
 	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A read-only view on the serialized contents of a list state. The elements are
+	 * deserialized one at a time while the list is iterated and are not retained by the list.
+	 * Every traversal deserializes the elements again.
+	 *
+	 * <p>The serialized elements are separated by a single delimiter byte that the
+	 * {@link org.rocksdb.StringAppendOperator} inserts when merging values.
+	 */
+	static final class LazyDeserializingList<V> extends AbstractSequentialList<V> {
+
+		private final byte[] bytes;
+
+		private final TypeSerializer<V> serializer;
+
+		/** The number of elements, or -1 if not yet counted. */
+		private int size = -1;
+
+		LazyDeserializingList(byte[] bytes, TypeSerializer<V> serializer) {
+			this.bytes = bytes;
+			this.serializer = serializer;
+		}
+
+		@Override
+		public int size() {
+			if (size < 0) {
+				ElementIterator it = new ElementIterator();
+				int count = 0;
+				while (it.hasNext()) {
+					it.next();
+					count++;
+				}
+				size = count;
+			}
+			return size;
+		}
+
+		@Override
+		public ListIterator<V> listIterator(int index) {
+			if (index < 0) {
+				throw new IndexOutOfBoundsException("Index: " + index);
+			}
+
+			ElementIterator it = new ElementIterator();
+			for (int i = 0; i < index; i++) {
+				if (!it.hasNext()) {
+					throw new IndexOutOfBoundsException("Index: " + index);
+				}
+				it.next();
+			}
+			return it;
+		}
+
+		private final class ElementIterator implements ListIterator<V> {
+
+			private ByteArrayInputStream bais;
+
+			private DataInputViewStreamWrapper in;
+
+			/** The index of the element that the next call to {@link #next()} returns. */
+			private int index;
+
+			ElementIterator() {
+				rewind();
+			}
+
+			@Override
+			public boolean hasNext() {
+				return bais.available() > 0;
+			}
+
+			@Override
+			public V next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				try {
+					V value = serializer.deserialize(in);
+					skipDelimiter();
+					index++;
+					return value;
+				} catch (IOException e) {
+					throw new RuntimeException("Error while deserializing data from RocksDB", e);
+				}
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				return index > 0;
+			}
+
+			@Override
+			public V previous() {
+				if (!hasPrevious()) {
+					throw new NoSuchElementException();
+				}
+
+				// the elements have no fixed length, so we have to scan again from the start
+				int target = index - 1;
+				rewind();
+				while (index < target) {
+					next();
+				}
+
+				bais.mark(0);
+				V value = next();
+				bais.reset();
+				index = target;
+				return value;
+			}
+
+			@Override
+			public int nextIndex() {
+				return index;
+			}
+
+			@Override
+			public int previousIndex() {
+				return index - 1;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("The list state contents are read-only.");
+			}
+
+			@Override
+			public void set(V v) {
+				throw new UnsupportedOperationException("The list state contents are read-only.");
+			}
+
+			@Override
+			public void add(V v) {
+				throw new UnsupportedOperationException("The list state contents are read-only.");
+			}
+
+			private void rewind() {
+				bais = new ByteArrayInputStream(bytes);
+				in = new DataInputViewStreamWrapper(bais);
+				index = 0;
+			}
+
+			private void skipDelimiter() {
+				if (bais.available() > 0) {
+					bais.skip(1);
+				}
+			}
+		}
+	}
 }
@@ -106,6 +106,12 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	/** The options factory to create the RocksDB options in the cluster */
 	private OptionsFactory optionsFactory;
 
+	/** True if incremental checkpointing is enabled */
+	private final boolean enableIncrementalCheckpointing;
+
+	/** True if the timers of the operators are stored in RocksDB instead of on the heap */
+	private boolean enableTimersInRocksDB;
+
 	/** Whether we already lazily initialized our local storage directories. */
 	private transient boolean isInitialized = false;
 
@@ -126,6 +132,23 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		this(new Path(checkpointDataUri).toUri());
 	}
 
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
+	 * file system and location defined by the given URI.
+	 *
+	 * <p>A state backend that stores checkpoints in HDFS or S3 must specify the file system
+	 * host and port in the URI, or have the Hadoop configuration that describes the file system
+	 * (host / high-availability group / possibly credentials) either referenced from the Flink
+	 * config, or included in the classpath.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data directory.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 * @throws IOException Thrown, if no file system can be found for the scheme in the URI.
+	 */
+	public RocksDBStateBackend(String checkpointDataUri, boolean enableIncrementalCheckpointing) throws IOException {
+		this(new Path(checkpointDataUri).toUri(), enableIncrementalCheckpointing);
+	}
+
 	/**
 	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
 	 * file system and location defined by the given URI.
@@ -142,6 +165,23 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		this(new FsStateBackend(checkpointDataUri));
 	}
 
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that stores its checkpoint data in the
+	 * file system and location defined by the given URI.
+	 *
+	 * <p>A state backend that stores checkpoints in HDFS or S3 must specify the file system
+	 * host and port in the URI, or have the Hadoop configuration that describes the file system
+	 * (host / high-availability group / possibly credentials) either referenced from the Flink
+	 * config, or included in the classpath.
+	 *
+	 * @param checkpointDataUri The URI describing the filesystem and path to the checkpoint data directory.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 * @throws IOException Thrown, if no file system can be found for the scheme in the URI.
+	 */
+	public RocksDBStateBackend(URI checkpointDataUri, boolean enableIncrementalCheckpointing) throws IOException {
+		this(new FsStateBackend(checkpointDataUri), enableIncrementalCheckpointing);
+	}
+
 	/**
 	 * Creates a new {@code RocksDBStateBackend} that uses the given state backend to store its
 	 * checkpoint data streams. Typically, one would supply a filesystem or database state backend
@@ -153,7 +193,24 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 	 * @param checkpointStreamBackend The backend to store the
 	 */
 	public RocksDBStateBackend(AbstractStateBackend checkpointStreamBackend) {
+		this(checkpointStreamBackend, false);
+	}
+
+	/**
+	 * Creates a new {@code RocksDBStateBackend} that uses the given state backend to store its
+	 * checkpoint data streams. Typically, one would supply a filesystem or database state backend
+	 * here where the snapshots from RocksDB would be stored.
+	 *
+	 * <p>With incremental checkpointing, a checkpoint only uploads the RocksDB files that were
+	 * created since the last completed checkpoint and references the files that were already
+	 * uploaded. Savepoints are always written as full snapshots.
+	 *
+	 * @param checkpointStreamBackend The backend to store the checkpoint data streams.
+	 * @param enableIncrementalCheckpointing True if incremental checkpointing is enabled.
+	 */
+	public RocksDBStateBackend(AbstractStateBackend checkpointStreamBackend, boolean enableIncrementalCheckpointing) {
 		this.checkpointStreamBackend = requireNonNull(checkpointStreamBackend);
+		this.enableIncrementalCheckpointing = enableIncrementalCheckpointing;
 	}
 
 	// ------------------------------------------------------------------------
@@ -259,7 +316,9 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 				kvStateRegistry,
 				keySerializer,
 				numberOfKeyGroups,
-				keyGroupRange);
+				keyGroupRange,
+				enableIncrementalCheckpointing,
+				enableTimersInRocksDB);
 	}
 
 	// ------------------------------------------------------------------------
@@ -335,6 +394,34 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 		}
 	}
 
+	/**
+	 * Gets whether incremental checkpointing is enabled for this state backend.
+	 */
+	public boolean isIncrementalCheckpointsEnabled() {
+		return enableIncrementalCheckpointing;
+	}
+
+	/**
+	 * Sets whether the timers of the operators' timer services are stored in RocksDB. By default,
+	 * timers are kept on the heap, which limits the number of timers to the available memory.
+	 *
+	 * <p>When stored in RocksDB, only the earliest timers of each key group are cached on the heap
+	 * and the timers become part of the (incremental) RocksDB snapshots. Timers of savepoints and
+	 * checkpoints taken with heap timers are moved into RocksDB on restore, but not vice versa.
+	 *
+	 * @param enableTimersInRocksDB True, if the timers should be stored in RocksDB.
+	 */
+	public void setTimersInRocksDB(boolean enableTimersInRocksDB) {
+		this.enableTimersInRocksDB = enableTimersInRocksDB;
+	}
+
+	/**
+	 * Gets whether the timers of the operators' timer services are stored in RocksDB.
+	 */
+	public boolean isTimersInRocksDBEnabled() {
+		return enableTimersInRocksDB;
+	}
+
 	// ------------------------------------------------------------------------
 	//  Parametrize with RocksDB Options
 	// ------------------------------------------------------------------------
@@ -432,6 +519,8 @@ public class RocksDBStateBackend extends AbstractStateBackend {
 			", configuredDbBasePaths=" + Arrays.toString(configuredDbBasePaths) +
 			", initializedDbBasePaths=" + Arrays.toString(initializedDbBasePaths) +
 			", checkpointStreamBackend=" + checkpointStreamBackend +
+			", enableIncrementalCheckpointing=" + enableIncrementalCheckpointing +
+			", enableTimersInRocksDB=" + enableTimersInRocksDB +
 			'}';
 	}
 
@@ -43,6 +43,10 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 	public static final String CHECKPOINT_DIRECTORY_URI_CONF_KEY = "state.backend.fs.checkpointdir";
 	/** The key under which the config stores the directory where RocksDB should be stored */
 	public static final String ROCKSDB_CHECKPOINT_DIRECTORY_URI_CONF_KEY = "state.backend.rocksdb.checkpointdir";
+	/** The key under which the config stores whether incremental checkpointing is enabled */
+	public static final String ROCKSDB_INCREMENTAL_CHECKPOINTS_CONF_KEY = "state.backend.rocksdb.checkpoint.incremental";
+	/** The key under which the config stores whether timers are stored in RocksDB */
+	public static final String ROCKSDB_TIMERS_CONF_KEY = "state.backend.rocksdb.timers";
 
 	@Override
 	public RocksDBStateBackend createFromConfig(Configuration config) 
@@ -50,6 +54,8 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 
 		final String checkpointDirURI = config.getString(CHECKPOINT_DIRECTORY_URI_CONF_KEY, null);
 		final String rocksdbLocalPath = config.getString(ROCKSDB_CHECKPOINT_DIRECTORY_URI_CONF_KEY, null);
+		final boolean incrementalCheckpoints = config.getBoolean(ROCKSDB_INCREMENTAL_CHECKPOINTS_CONF_KEY, false);
+		final boolean timersInRocksDB = config.getBoolean(ROCKSDB_TIMERS_CONF_KEY, false);
 
 		if (checkpointDirURI == null) {
 			throw new IllegalConfigurationException(
@@ -59,13 +65,15 @@ public class RocksDBStateBackendFactory implements StateBackendFactory<RocksDBSt
 
 		try {
 			Path path = new Path(checkpointDirURI);
-			RocksDBStateBackend backend = new RocksDBStateBackend(path.toUri());
+			RocksDBStateBackend backend = new RocksDBStateBackend(path.toUri(), incrementalCheckpoints);
 			if (rocksdbLocalPath != null) {
 				String[] directories = rocksdbLocalPath.split(",|" + File.pathSeparator);
 				backend.setDbStoragePaths(directories);
 			}
-			LOG.info("State backend is set to RocksDB (configured DB storage paths {}, checkpoints to filesystem {} ) ",
-					backend.getDbStoragePaths(), path);
+			backend.setTimersInRocksDB(timersInRocksDB);
+			LOG.info("State backend is set to RocksDB (configured DB storage paths {}, checkpoints to filesystem {}, " +
+					"incremental checkpoints {}, timers in RocksDB {}) ",
+					backend.getDbStoragePaths(), path, incrementalCheckpoints, timersInRocksDB);
 
 			return backend;
 		}
@@ -0,0 +1,479 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.ByteArrayInputStreamWithPos;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerQueue;
+import org.apache.flink.util.Preconditions;
+
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
+import org.rocksdb.WriteOptions;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * An {@link InternalTimerQueue} which stores its timers in a column family of the RocksDB instance of a
+ * {@link RocksDBKeyedStateBackend}. The timers are therefore part of the backend's (full or incremental)
+ * snapshots and do not occupy the JVM heap.
+ *
+ * <p>The RocksDB key of a timer is its key-group, followed by its timestamp and the serialized key and
+ * namespace. The timestamp is written with a flipped sign bit, so that the byte-wise order of RocksDB
+ * sorts the timers of each key-group by timestamp. The value of a timer is empty.
+ *
+ * <p>For each key-group, the queue keeps a small cache of the key-group's earliest timers on the heap.
+ * The cache of a key-group always holds a prefix of the key-group's timers in RocksDB, in the same order.
+ * It is loaded from RocksDB when the queue is created and whenever it runs empty while the key-group
+ * has more timers. The earliest timer of the queue is the earliest of the cached heads of all key-groups.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <K> Type of the keys to which timers are scoped.
+ * @param <N> Type of the namespace to which timers are scoped.
+ */
+class RocksDBTimerQueue<K, N> implements InternalTimerQueue<K, N> {
+
+	/** The maximum number of timers per key-group which are cached on the heap. */
+	static final int MAX_CACHED_TIMERS_PER_KEY_GROUP = 32;
+
+	/** Orders serialized timers like the default byte-wise comparator of RocksDB. */
+	private static final Comparator<byte[]> LEXICOGRAPHIC_BYTE_COMPARATOR = new Comparator<byte[]>() {
+		@Override
+		public int compare(byte[] a, byte[] b) {
+			final int minLength = Math.min(a.length, b.length);
+			for (int i = 0; i < minLength; i++) {
+				int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+				if (diff != 0) {
+					return diff;
+				}
+			}
+			return a.length - b.length;
+		}
+	};
+
+	/** Orders the key-groups by the timestamp of their earliest timer. Only applicable to non-empty caches. */
+	private static final Comparator<KeyGroupCache<?, ?>> HEAD_TIMESTAMP_COMPARATOR = new Comparator<KeyGroupCache<?, ?>>() {
+		@Override
+		public int compare(KeyGroupCache<?, ?> a, KeyGroupCache<?, ?> b) {
+			int cmp = Long.compare(a.headTimestamp(), b.headTimestamp());
+			return cmp != 0 ? cmp : Integer.compare(a.keyGroup, b.keyGroup);
+		}
+	};
+
+	private final RocksDB db;
+
+	private final ColumnFamilyHandle columnFamily;
+
+	/**
+	 * The timers are not written to the write-ahead-log, like all keyed state of the backend.
+	 * The options are shared by all timer queues of the backend, which closes them when it is disposed.
+	 */
+	private final WriteOptions writeOptions;
+
+	private final TypeSerializer<K> keySerializer;
+
+	private final TypeSerializer<N> namespaceSerializer;
+
+	private final int keyGroupPrefixBytes;
+
+	private final int totalKeyGroups;
+
+	private final KeyGroupRange localKeyGroupRange;
+
+	/** The caches of the local key-groups, indexed by the offset in the local key-group range. */
+	private final KeyGroupCache<K, N>[] caches;
+
+	/** The loaded key-groups with at least one timer, ordered by their earliest timer. */
+	private final TreeSet<KeyGroupCache<K, N>> keyGroupsByHead;
+
+	/** The key-groups whose caches must be loaded from RocksDB before the earliest timer is known. */
+	private final ArrayDeque<KeyGroupCache<K, N>> keyGroupsToLoad;
+
+	private final ByteArrayOutputStreamWithPos serializationStream;
+
+	private final DataOutputViewStreamWrapper serializationView;
+
+	@SuppressWarnings("unchecked")
+	RocksDBTimerQueue(
+			RocksDB db,
+			ColumnFamilyHandle columnFamily,
+			WriteOptions writeOptions,
+			TypeSerializer<K> keySerializer,
+			TypeSerializer<N> namespaceSerializer,
+			int keyGroupPrefixBytes,
+			int totalKeyGroups,
+			KeyGroupRange localKeyGroupRange) {
+
+		this.db = Preconditions.checkNotNull(db);
+		this.columnFamily = Preconditions.checkNotNull(columnFamily);
+		this.keySerializer = Preconditions.checkNotNull(keySerializer);
+		this.namespaceSerializer = Preconditions.checkNotNull(namespaceSerializer);
+		this.keyGroupPrefixBytes = keyGroupPrefixBytes;
+		this.totalKeyGroups = totalKeyGroups;
+		this.localKeyGroupRange = Preconditions.checkNotNull(localKeyGroupRange);
+
+		this.writeOptions = Preconditions.checkNotNull(writeOptions);
+
+		this.serializationStream = new ByteArrayOutputStreamWithPos(128);
+		this.serializationView = new DataOutputViewStreamWrapper(serializationStream);
+
+		this.keyGroupsByHead = new TreeSet<KeyGroupCache<K, N>>(HEAD_TIMESTAMP_COMPARATOR);
+		this.keyGroupsToLoad = new ArrayDeque<>();
+
+		// the column family may hold restored timers, all key-groups are loaded before the first access
+		this.caches = new KeyGroupCache[localKeyGroupRange.getNumberOfKeyGroups()];
+		for (int i = 0; i < caches.length; i++) {
+			caches[i] = new KeyGroupCache<>(localKeyGroupRange.getStartKeyGroup() + i);
+			keyGroupsToLoad.add(caches[i]);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Queue operations
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void add(InternalTimer<K, N> timer) {
+		final KeyGroupCache<K, N> cache = getCacheForTimer(timer);
+		final byte[] serializedTimer = serializeTimer(cache.keyGroup, timer);
+
+		if (cache.isLoaded && (cache.isComplete || cache.isBeforeLastCachedTimer(serializedTimer))) {
+			// the timer belongs into the cached prefix of the key-group
+			if (cache.timers.containsKey(serializedTimer)) {
+				return;
+			}
+
+			if (!cache.timers.isEmpty()) {
+				keyGroupsByHead.remove(cache);
+			}
+
+			cache.timers.put(serializedTimer, timer);
+			if (cache.timers.size() > MAX_CACHED_TIMERS_PER_KEY_GROUP) {
+				cache.timers.pollLastEntry();
+				cache.isComplete = false;
+			}
+
+			keyGroupsByHead.add(cache);
+		}
+
+		// writing an existing timer again is a no-op
+		put(serializedTimer);
+	}
+
+	@Override
+	public void remove(InternalTimer<K, N> timer) {
+		final KeyGroupCache<K, N> cache = getCacheForTimer(timer);
+		final byte[] serializedTimer = serializeTimer(cache.keyGroup, timer);
+
+		if (cache.isLoaded) {
+			if (cache.timers.containsKey(serializedTimer)) {
+				removeCachedTimer(cache, serializedTimer);
+			} else if (cache.isComplete) {
+				// the key-group does not contain the timer
+				return;
+			}
+		}
+
+		delete(serializedTimer);
+	}
+
+	@Override
+	public InternalTimer<K, N> peek() {
+		loadKeyGroups();
+
+		return keyGroupsByHead.isEmpty() ? null : keyGroupsByHead.first().head();
+	}
+
+	@Override
+	public InternalTimer<K, N> poll() {
+		loadKeyGroups();
+
+		if (keyGroupsByHead.isEmpty()) {
+			return null;
+		}
+
+		final KeyGroupCache<K, N> cache = keyGroupsByHead.first();
+		final Map.Entry<byte[], InternalTimer<K, N>> head = cache.timers.firstEntry();
+
+		removeCachedTimer(cache, head.getKey());
+		delete(head.getKey());
+
+		return head.getValue();
+	}
+
+	/**
+	 * Counts the timers by iterating over the keys of all timers in RocksDB, without deserializing them.
+	 */
+	@Override
+	public int size() {
+		int size = 0;
+		for (int keyGroup : localKeyGroupRange) {
+			final byte[] prefix = serializeKeyGroup(keyGroup);
+
+			try (RocksIterator iterator = db.newIterator(columnFamily)) {
+				iterator.seek(prefix);
+
+				while (iterator.isValid() && startsWith(iterator.key(), prefix)) {
+					size++;
+					iterator.next();
+				}
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns an iterator over a copy of all timers, which are read from RocksDB.
+	 */
+	@Override
+	public Iterator<InternalTimer<K, N>> iterator() {
+		List<InternalTimer<K, N>> timers = new ArrayList<>();
+		for (int keyGroup : localKeyGroupRange) {
+			timers.addAll(readTimersInKeyGroup(keyGroup));
+		}
+		return timers.iterator();
+	}
+
+	/**
+	 * Writes no timers, because the timers are part of the snapshot of the RocksDB instance.
+	 */
+	@Override
+	public void writeTimersInKeyGroup(
+			int keyGroupIdx,
+			TypeSerializer<InternalTimer<K, N>> timerSerializer,
+			DataOutputView out) throws IOException {
+
+		out.writeInt(0);
+	}
+
+	@Override
+	public Set<InternalTimer<K, N>> getTimersForKeyGroup(int keyGroupIdx) {
+		return new HashSet<>(readTimersInKeyGroup(keyGroupIdx));
+	}
+
+	// ------------------------------------------------------------------------
+	//  Caches
+	// ------------------------------------------------------------------------
+
+	private void removeCachedTimer(KeyGroupCache<K, N> cache, byte[] serializedTimer) {
+		keyGroupsByHead.remove(cache);
+
+		cache.timers.remove(serializedTimer);
+
+		if (!cache.timers.isEmpty()) {
+			keyGroupsByHead.add(cache);
+		} else if (!cache.isComplete) {
+			// the key-group has more timers in RocksDB
+			cache.isLoaded = false;
+			keyGroupsToLoad.add(cache);
+		}
+	}
+
+	/**
+	 * Loads the earliest timers of all key-groups whose caches are not loaded.
+	 */
+	private void loadKeyGroups() {
+		KeyGroupCache<K, N> cache;
+		while ((cache = keyGroupsToLoad.poll()) != null) {
+			if (cache.isLoaded) {
+				continue;
+			}
+
+			final byte[] prefix = serializeKeyGroup(cache.keyGroup);
+
+			try (RocksIterator iterator = db.newIterator(columnFamily)) {
+				iterator.seek(prefix);
+
+				while (iterator.isValid()
+						&& startsWith(iterator.key(), prefix)
+						&& cache.timers.size() < MAX_CACHED_TIMERS_PER_KEY_GROUP) {
+
+					final byte[] serializedTimer = iterator.key();
+					cache.timers.put(serializedTimer, deserializeTimer(serializedTimer));
+					iterator.next();
+				}
+
+				cache.isComplete = !iterator.isValid() || !startsWith(iterator.key(), prefix);
+			}
+
+			cache.isLoaded = true;
+
+			if (!cache.timers.isEmpty()) {
+				keyGroupsByHead.add(cache);
+			}
+		}
+	}
+
+	private List<InternalTimer<K, N>> readTimersInKeyGroup(int keyGroup) {
+		final List<InternalTimer<K, N>> timers = new ArrayList<>();
+		final byte[] prefix = serializeKeyGroup(keyGroup);
+
+		try (RocksIterator iterator = db.newIterator(columnFamily)) {
+			iterator.seek(prefix);
+
+			while (iterator.isValid() && startsWith(iterator.key(), prefix)) {
+				timers.add(deserializeTimer(iterator.key()));
+				iterator.next();
+			}
+		}
+
+		return timers;
+	}
+
+	private KeyGroupCache<K, N> getCacheForTimer(InternalTimer<K, N> timer) {
+		return caches[getLocalIndex(KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), totalKeyGroups))];
+	}
+
+	private int getLocalIndex(int keyGroup) {
+		final int localIdx = keyGroup - localKeyGroupRange.getStartKeyGroup();
+		if (localIdx < 0 || localIdx >= caches.length) {
+			throw new IllegalArgumentException("Key Group " + keyGroup + " does not belong to the local range.");
+		}
+		return localIdx;
+	}
+
+	// ------------------------------------------------------------------------
+	//  RocksDB access
+	// ------------------------------------------------------------------------
+
+	private void put(byte[] serializedTimer) {
+		try {
+			db.put(columnFamily, writeOptions, serializedTimer, new byte[0]);
+		} catch (RocksDBException e) {
+			throw new RuntimeException("Error while adding timer to RocksDB", e);
+		}
+	}
+
+	private void delete(byte[] serializedTimer) {
+		try {
+			db.remove(columnFamily, writeOptions, serializedTimer);
+		} catch (RocksDBException e) {
+			throw new RuntimeException("Error while removing timer from RocksDB", e);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Serialization
+	// ------------------------------------------------------------------------
+
+	private byte[] serializeKeyGroup(int keyGroup) {
+		final byte[] prefix = new byte[keyGroupPrefixBytes];
+		for (int i = 0; i < keyGroupPrefixBytes; i++) {
+			prefix[i] = (byte) (keyGroup >>> ((keyGroupPrefixBytes - i - 1) << 3));
+		}
+		return prefix;
+	}
+
+	private byte[] serializeTimer(int keyGroup, InternalTimer<K, N> timer) {
+		try {
+			serializationStream.reset();
+			for (int i = keyGroupPrefixBytes; --i >= 0;) {
+				serializationView.writeByte(keyGroup >>> (i << 3));
+			}
+			// flip the sign bit, so that negative timestamps are ordered before positive ones
+			serializationView.writeLong(timer.getTimestamp() ^ Long.MIN_VALUE);
+			keySerializer.serialize(timer.getKey(), serializationView);
+			namespaceSerializer.serialize(timer.getNamespace(), serializationView);
+			return serializationStream.toByteArray();
+		} catch (IOException e) {
+			throw new RuntimeException("Error while serializing timer", e);
+		}
+	}
+
+	private InternalTimer<K, N> deserializeTimer(byte[] serializedTimer) {
+		try {
+			final DataInputViewStreamWrapper in = new DataInputViewStreamWrapper(
+				new ByteArrayInputStreamWithPos(serializedTimer, keyGroupPrefixBytes, serializedTimer.length - keyGroupPrefixBytes));
+
+			final long timestamp = in.readLong() ^ Long.MIN_VALUE;
+			final K key = keySerializer.deserialize(in);
+			final N namespace = namespaceSerializer.deserialize(in);
+			return new InternalTimer<>(timestamp, key, namespace);
+		} catch (IOException e) {
+			throw new RuntimeException("Error while deserializing timer", e);
+		}
+	}
+
+	private static boolean startsWith(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (bytes[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The cached earliest timers of a key-group.
+	 */
+	private static final class KeyGroupCache<K, N> {
+
+		final int keyGroup;
+
+		/** A prefix of the timers of the key-group in RocksDB, by their serialized form. */
+		final TreeMap<byte[], InternalTimer<K, N>> timers = new TreeMap<>(LEXICOGRAPHIC_BYTE_COMPARATOR);
+
+		/** Whether the cache holds a prefix of the key-group's timers. */
+		boolean isLoaded;
+
+		/** Whether the cache holds all timers of the key-group. Only valid if the cache is loaded. */
+		boolean isComplete;
+
+		KeyGroupCache(int keyGroup) {
+			this.keyGroup = keyGroup;
+		}
+
+		InternalTimer<K, N> head() {
+			return timers.firstEntry().getValue();
+		}
+
+		long headTimestamp() {
+			return head().getTimestamp();
+		}
+
+		boolean isBeforeLastCachedTimer(byte[] serializedTimer) {
+			return !timers.isEmpty() && LEXICOGRAPHIC_BYTE_COMPARATOR.compare(serializedTimer, timers.lastKey()) < 0;
+		}
+	}
+}
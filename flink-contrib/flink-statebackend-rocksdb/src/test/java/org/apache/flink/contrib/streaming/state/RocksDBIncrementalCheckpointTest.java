@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.StateBackendTestBase;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.VoidNamespace;
+import org.apache.flink.runtime.state.VoidNamespaceSerializer;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the state backend tests against a {@link RocksDBStateBackend} with incremental
+ * checkpointing enabled.
+ */
+public class RocksDBIncrementalCheckpointTest extends StateBackendTestBase<RocksDBStateBackend> {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Override
+	protected RocksDBStateBackend getStateBackend() throws IOException {
+		String dbPath = tempFolder.newFolder().getAbsolutePath();
+		String checkpointPath = tempFolder.newFolder().toURI().toString();
+		RocksDBStateBackend backend = new RocksDBStateBackend(new FsStateBackend(checkpointPath), true);
+		backend.setDbStoragePath(dbPath);
+		return backend;
+	}
+
+	/**
+	 * Tests that an incremental checkpoint references the sst files of the last completed checkpoint
+	 * instead of uploading them again, and uploads only the files that were created since.
+	 */
+	@Test
+	public void testSstFilesAreReusedAcrossCheckpoints() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+
+		try {
+			ValueState<String> state = getValueState(backend);
+
+			updateKeys(backend, state, 0, 100);
+			IncrementalKeyGroupsStateHandle first = snapshot(backend, streamFactory, 1L);
+
+			assertFalse(first.getNewSharedState().isEmpty());
+			assertTrue(first.getOldSharedState().isEmpty());
+
+			backend.notifyCheckpointComplete(1L);
+
+			updateKeys(backend, state, 100, 200);
+			IncrementalKeyGroupsStateHandle second = snapshot(backend, streamFactory, 2L);
+
+			// the files of the first checkpoint are referenced with their materialized handles
+			assertEquals(first.getNewSharedState(), second.getOldSharedState());
+
+			// the flushed new data is uploaded
+			assertFalse(second.getNewSharedState().isEmpty());
+			assertTrue(Collections.disjoint(
+					first.getNewSharedState().keySet(), second.getNewSharedState().keySet()));
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	/**
+	 * Tests that incremental checkpoints only reference the files of the last completed checkpoint,
+	 * that completing a checkpoint prunes the files of older checkpoints, and that late completion
+	 * notifications of older checkpoints are ignored.
+	 */
+	@Test
+	public void testNotifyCheckpointCompletePrunesOlderCheckpoints() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+
+		try {
+			ValueState<String> state = getValueState(backend);
+
+			updateKeys(backend, state, 0, 100);
+			IncrementalKeyGroupsStateHandle first = snapshot(backend, streamFactory, 1L);
+			backend.notifyCheckpointComplete(1L);
+
+			// the second checkpoint is never completed
+			updateKeys(backend, state, 100, 200);
+			IncrementalKeyGroupsStateHandle second = snapshot(backend, streamFactory, 2L);
+
+			updateKeys(backend, state, 200, 300);
+			IncrementalKeyGroupsStateHandle third = snapshot(backend, streamFactory, 3L);
+
+			// the files of the uncompleted checkpoint are uploaded again
+			assertEquals(first.getNewSharedState(), third.getOldSharedState());
+			assertTrue(third.getNewSharedState().keySet().containsAll(second.getNewSharedState().keySet()));
+
+			backend.notifyCheckpointComplete(3L);
+			backend.notifyCheckpointComplete(2L);
+
+			// without modifications, the fourth checkpoint references all files of the third one
+			IncrementalKeyGroupsStateHandle fourth = snapshot(backend, streamFactory, 4L);
+
+			Map<String, StreamStateHandle> thirdSstFiles = new HashMap<>(third.getNewSharedState());
+			thirdSstFiles.putAll(third.getOldSharedState());
+
+			assertEquals(thirdSstFiles, fourth.getOldSharedState());
+			assertTrue(fourth.getNewSharedState().isEmpty());
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	/**
+	 * Tests that savepoints are full snapshots, even with incremental checkpointing enabled. This
+	 * keeps the handles of incremental checkpoints out of the savepoint format.
+	 */
+	@Test
+	public void testSavepointIsFullSnapshot() throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+
+		try {
+			updateKeys(backend, getValueState(backend), 0, 100);
+
+			KeyGroupsStateHandle savepoint = runSnapshot(backend.snapshot(
+					1L, 1L, streamFactory, CheckpointOptions.forSavepoint(tempFolder.newFolder().toURI().toString())));
+
+			assertFalse(savepoint instanceof IncrementalKeyGroupsStateHandle);
+		} finally {
+			backend.dispose();
+		}
+	}
+
+	private static ValueState<String> getValueState(AbstractKeyedStateBackend<Integer> backend) throws Exception {
+		ValueStateDescriptor<String> kvId = new ValueStateDescriptor<>("id", String.class);
+		kvId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		return backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, kvId);
+	}
+
+	private static void updateKeys(
+			AbstractKeyedStateBackend<Integer> backend,
+			ValueState<String> state,
+			int fromKey,
+			int toKey) throws Exception {
+
+		for (int key = fromKey; key < toKey; ++key) {
+			backend.setCurrentKey(key);
+			state.update("value-" + key);
+		}
+	}
+
+	private IncrementalKeyGroupsStateHandle snapshot(
+			AbstractKeyedStateBackend<Integer> backend,
+			CheckpointStreamFactory streamFactory,
+			long checkpointId) throws Exception {
+
+		KeyGroupsStateHandle stateHandle = runSnapshot(backend.snapshot(
+				checkpointId, checkpointId, streamFactory, CheckpointOptions.forFullCheckpoint()));
+
+		assertTrue(stateHandle instanceof IncrementalKeyGroupsStateHandle);
+		return (IncrementalKeyGroupsStateHandle) stateHandle;
+	}
+}
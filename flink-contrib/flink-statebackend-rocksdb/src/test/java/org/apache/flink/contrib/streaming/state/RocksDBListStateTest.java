@@ -22,7 +22,10 @@ import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.api.common.state.ListState;
 import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.KeyGroupRange;
@@ -35,13 +38,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.Set;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -205,6 +212,54 @@ public class RocksDBListStateTest {
 		}
 	}
 
+	@Test
+	public void testLazyDeserializingList() throws Exception {
+		// the same layout that the StringAppendOperator produces: elements separated by a comma
+		ByteArrayOutputStreamWithPos bytes = new ByteArrayOutputStreamWithPos();
+		DataOutputViewStreamWrapper out = new DataOutputViewStreamWrapper(bytes);
+		for (long i = 0; i < 100; i++) {
+			if (i > 0) {
+				out.writeByte(',');
+			}
+			LongSerializer.INSTANCE.serialize(i * 7, out);
+		}
+
+		List<Long> expected = new ArrayList<>();
+		for (long i = 0; i < 100; i++) {
+			expected.add(i * 7);
+		}
+
+		List<Long> list = new RocksDBListState.LazyDeserializingList<>(bytes.toByteArray(), LongSerializer.INSTANCE);
+
+		// the list can be traversed repeatedly
+		assertEquals(expected, list);
+		assertEquals(expected, list);
+		assertEquals(100, list.size());
+		assertEquals(Long.valueOf(35L), list.get(5));
+		assertEquals(Long.valueOf(693L), list.get(99));
+
+		ListIterator<Long> iterator = list.listIterator(50);
+		assertEquals(Long.valueOf(350L), iterator.next());
+		assertEquals(Long.valueOf(350L), iterator.previous());
+		assertEquals(Long.valueOf(343L), iterator.previous());
+		assertEquals(49, iterator.nextIndex());
+		assertEquals(Long.valueOf(343L), iterator.next());
+
+		try {
+			iterator.remove();
+			fail("The list should be read-only.");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+
+		try {
+			list.get(100);
+			fail("Accessing an element beyond the end of the list should fail.");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	//  utilities
 	// ------------------------------------------------------------------------
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.streaming.runtime.operators.windowing.PanedSlidingEventTimeWindowOperatorTest;
+
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Runs the tests of the {@link PanedSlidingEventTimeWindowOperatorTest} against the
+ * {@link RocksDBStateBackend}, with full and with incremental checkpoints.
+ */
+public class RocksDBPanedSlidingEventTimeWindowOperatorTest extends PanedSlidingEventTimeWindowOperatorTest {
+
+	@Parameterized.Parameters(name = "backend = {0}")
+	public static Collection<Object[]> stateBackends() {
+		return Arrays.asList(new Object[][] {{"rocksdb-full"}, {"rocksdb-incremental"}});
+	}
+
+	@Override
+	protected AbstractStateBackend createStateBackend(String backendType) throws Exception {
+		RocksDBStateBackend backend = new RocksDBStateBackend(
+			tempFolder.newFolder().toURI(), "rocksdb-incremental".equals(backendType));
+		backend.setDbStoragePath(tempFolder.newFolder().getAbsolutePath());
+		return backend;
+	}
+}
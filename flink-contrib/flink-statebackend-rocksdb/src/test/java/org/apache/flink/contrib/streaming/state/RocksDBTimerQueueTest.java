@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.contrib.streaming.state;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.query.TaskKvStateRegistry;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerQueue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.RunnableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the {@link RocksDBTimerQueue}.
+ */
+public class RocksDBTimerQueueTest {
+
+	private static final int TOTAL_KEY_GROUPS = 16;
+
+	@Rule
+	public final TemporaryFolder tmp = new TemporaryFolder();
+
+	@Test
+	public void testNoTimerQueueIfDisabled() throws Exception {
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(false);
+
+		try {
+			assertNull(keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE));
+		} finally {
+			keyedBackend.dispose();
+		}
+	}
+
+	@Test
+	public void testPollInTimestampOrder() throws Exception {
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(true);
+
+		try {
+			final InternalTimerQueue<Integer, String> queue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+
+			// more timers per key-group than are cached, including negative timestamps
+			final Random random = new Random(42L);
+			for (int i = 0; i < 2000; i++) {
+				queue.add(new InternalTimer<>(random.nextInt(100000) - 50000, random.nextInt(100), "window"));
+			}
+
+			long lastTimestamp = Long.MIN_VALUE;
+			InternalTimer<Integer, String> timer;
+			while ((timer = queue.poll()) != null) {
+				assertTrue(timer.getTimestamp() >= lastTimestamp);
+				lastTimestamp = timer.getTimestamp();
+			}
+
+			assertNull(queue.peek());
+			assertEquals(0, queue.size());
+		} finally {
+			keyedBackend.dispose();
+		}
+	}
+
+	/**
+	 * Applies random additions, removals and polls to the queue and to a set of expected timers,
+	 * with few keys, so that the caches of the key-groups are evicted and reloaded.
+	 */
+	@Test
+	public void testRandomOperations() throws Exception {
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(true);
+
+		try {
+			final InternalTimerQueue<Integer, String> queue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+			final Set<InternalTimer<Integer, String>> expected = new HashSet<>();
+			final Random random = new Random(17L);
+
+			for (int i = 0; i < 20000; i++) {
+				InternalTimer<Integer, String> timer =
+					new InternalTimer<>(random.nextInt(1000), random.nextInt(8), random.nextBoolean() ? "a" : "b");
+
+				switch (random.nextInt(4)) {
+					case 0:
+					case 1:
+						expected.add(timer);
+						queue.add(timer);
+						break;
+					case 2:
+						expected.remove(timer);
+						queue.remove(timer);
+						break;
+					default:
+						InternalTimer<Integer, String> head = queue.poll();
+						if (head == null) {
+							assertTrue(expected.isEmpty());
+						} else {
+							for (InternalTimer<Integer, String> other : expected) {
+								assertTrue(head.getTimestamp() <= other.getTimestamp());
+							}
+							assertTrue(expected.remove(head));
+						}
+				}
+			}
+
+			Set<InternalTimer<Integer, String>> actual = new HashSet<>();
+			for (InternalTimer<Integer, String> timer : queue) {
+				assertTrue(actual.add(timer));
+			}
+			assertEquals(expected, actual);
+			assertEquals(expected.size(), queue.size());
+		} finally {
+			keyedBackend.dispose();
+		}
+	}
+
+	@Test
+	public void testTimersPerKeyGroup() throws Exception {
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(true);
+
+		try {
+			final InternalTimerQueue<Integer, String> queue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+
+			final Set<InternalTimer<Integer, String>> expected = new HashSet<>();
+			for (int i = 0; i < 500; i++) {
+				InternalTimer<Integer, String> timer = new InternalTimer<>(i, i % 100, "window");
+				queue.add(timer);
+				if (KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), TOTAL_KEY_GROUPS) == 3) {
+					expected.add(timer);
+				}
+			}
+
+			assertEquals(expected, queue.getTimersForKeyGroup(3));
+		} finally {
+			keyedBackend.dispose();
+		}
+	}
+
+	/**
+	 * Tests that a new queue on the same column family picks up the existing timers, like after a restore.
+	 */
+	@Test
+	public void testLoadExistingTimers() throws Exception {
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(true);
+
+		try {
+			final InternalTimerQueue<Integer, String> queue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+			for (int i = 0; i < 1000; i++) {
+				queue.add(new InternalTimer<>(1000 - i, i, "window"));
+			}
+
+			final InternalTimerQueue<Integer, String> reloadedQueue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+			assertEquals(1000, reloadedQueue.size());
+
+			for (int i = 1; i <= 1000; i++) {
+				assertEquals(i, reloadedQueue.poll().getTimestamp());
+			}
+			assertNull(reloadedQueue.poll());
+		} finally {
+			keyedBackend.dispose();
+		}
+	}
+
+	/**
+	 * Tests that a snapshot with timers in RocksDB is only restored if timers are stored in RocksDB,
+	 * instead of silently dropping the timers.
+	 */
+	@Test
+	public void testRestoreTimersOnlyWithTimersInRocksDB() throws Exception {
+		testRestoreTimersOnlyWithTimersInRocksDB(false);
+		testRestoreTimersOnlyWithTimersInRocksDB(true);
+	}
+
+	private void testRestoreTimersOnlyWithTimersInRocksDB(boolean incremental) throws Exception {
+		final RocksDBStateBackend backend = createStateBackend(true, incremental);
+		final RocksDBKeyedStateBackend<Integer> keyedBackend = createKeyedBackend(backend);
+		final KeyGroupsStateHandle snapshot;
+
+		try {
+			final InternalTimerQueue<Integer, String> queue =
+				keyedBackend.createTimerQueue("timers", StringSerializer.INSTANCE);
+			for (int i = 0; i < 100; i++) {
+				queue.add(new InternalTimer<>(i, i, "window"));
+			}
+
+			RunnableFuture<KeyGroupsStateHandle> snapshotFuture = keyedBackend.snapshot(
+					1L, 1L, backend.createStreamFactory(new JobID(), "test-op"), CheckpointOptions.forFullCheckpoint());
+			snapshotFuture.run();
+			snapshot = snapshotFuture.get();
+		} finally {
+			keyedBackend.dispose();
+		}
+
+		// the backend disposes itself if the restore fails
+		final RocksDBKeyedStateBackend<Integer> heapTimersBackend = createKeyedBackend(createStateBackend(false, incremental));
+		try {
+			heapTimersBackend.restore(Collections.singletonList(snapshot));
+			heapTimersBackend.dispose();
+			fail("Restored timers from RocksDB although timers in RocksDB are disabled.");
+		} catch (IOException expected) {
+			assertTrue(expected.getMessage().contains(RocksDBStateBackendFactory.ROCKSDB_TIMERS_CONF_KEY));
+		}
+
+		final RocksDBKeyedStateBackend<Integer> restoredBackend = createKeyedBackend(createStateBackend(true, incremental));
+		try {
+			restoredBackend.restore(Collections.singletonList(snapshot));
+			assertEquals(100, restoredBackend.createTimerQueue("timers", StringSerializer.INSTANCE).size());
+		} finally {
+			restoredBackend.dispose();
+		}
+	}
+
+	private RocksDBKeyedStateBackend<Integer> createKeyedBackend(boolean timersInRocksDB) throws Exception {
+		return createKeyedBackend(createStateBackend(timersInRocksDB, false));
+	}
+
+	private RocksDBStateBackend createStateBackend(boolean timersInRocksDB, boolean incremental) throws Exception {
+		final RocksDBStateBackend backend = new RocksDBStateBackend(tmp.newFolder().toURI(), incremental);
+		backend.setDbStoragePath(tmp.newFolder().getAbsolutePath());
+		backend.setTimersInRocksDB(timersInRocksDB);
+		return backend;
+	}
+
+	private RocksDBKeyedStateBackend<Integer> createKeyedBackend(RocksDBStateBackend backend) throws Exception {
+		return (RocksDBKeyedStateBackend<Integer>) backend.createKeyedStateBackend(
+				new DummyEnvironment("TestTask", 1, 0),
+				new JobID(),
+				"test-op",
+				IntSerializer.INSTANCE,
+				TOTAL_KEY_GROUPS,
+				new KeyGroupRange(0, TOTAL_KEY_GROUPS - 1),
+				mock(TaskKvStateRegistry.class));
+	}
+}
@@ -143,6 +143,16 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 	 */
 	private long taskCancellationTimeoutMillis = -1;
 
+	/**
+	 * The codec to compress spilled data with, or null to use the cluster default.
+	 */
+	private String spillCompressionCodec;
+
+	/**
+	 * Whether sliding event-time windows keep one partial aggregate per pane instead of one per window.
+	 */
+	private boolean panedSlidingWindows = false;
+
 	// ------------------------------- User code values --------------------------------------------
 
 	private GlobalJobParameters globalJobParameters;
@@ -364,6 +374,30 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 		return this;
 	}
 
+	/**
+	 * Returns the codec with which the job compresses the data that it spills to disk, or null, if
+	 * the job uses the cluster default.
+	 */
+	@PublicEvolving
+	public String getSpillCompressionCodec() {
+		return spillCompressionCodec;
+	}
+
+	/**
+	 * Sets the codec with which the job compresses the data that sorters and hash tables spill to
+	 * disk, and the blocking results that are spilled to disk. The codec is either {@code "NONE"},
+	 * {@code "LZ4"}, or the class name of a block compression factory.
+	 *
+	 * <p>The cluster default is configured via {@link TaskManagerOptions#SPILL_COMPRESSION_CODEC}.
+	 *
+	 * @param codec The spill compression codec, or null, to use the cluster default.
+	 */
+	@PublicEvolving
+	public ExecutionConfig setSpillCompressionCodec(String codec) {
+		this.spillCompressionCodec = codec;
+		return this;
+	}
+
 	/**
 	 * Sets the restart strategy to be used for recovery.
 	 *
@@ -558,6 +592,43 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 	public boolean isObjectReuseEnabled() {
 		return objectReuse;
 	}
+
+	/**
+	 * Enables pane-based sliding event-time windows. Reduce and aggregate windows of the
+	 * {@code SlidingEventTimeWindows} with the default trigger and without evictor then keep
+	 * one partial aggregate per pane (the greatest common divisor of window size and slide),
+	 * and combine the panes of a window when it fires, instead of updating the aggregate of
+	 * every window that a record belongs to.
+	 *
+	 * <p>The state of the pane-based windows is not compatible with the state of the
+	 * regular windows, so this setting must not be changed when restoring from a savepoint.
+	 *
+	 * @return The ExecutionConfig object, to allow for function chaining.
+	 */
+	@PublicEvolving
+	public ExecutionConfig enablePanedSlidingWindows() {
+		panedSlidingWindows = true;
+		return this;
+	}
+
+	/**
+	 * Disables pane-based sliding event-time windows. @see #enablePanedSlidingWindows()
+	 *
+	 * @return The ExecutionConfig object, to allow for function chaining.
+	 */
+	@PublicEvolving
+	public ExecutionConfig disablePanedSlidingWindows() {
+		panedSlidingWindows = false;
+		return this;
+	}
+
+	/**
+	 * Returns whether pane-based sliding event-time windows are enabled. @see #enablePanedSlidingWindows()
+	 */
+	@PublicEvolving
+	public boolean isPanedSlidingWindowsEnabled() {
+		return panedSlidingWindows;
+	}
 	
 	/**
 	 * Sets the {@link CodeAnalysisMode} of the program. Specifies to which extent user-defined
@@ -815,7 +886,9 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 				defaultKryoSerializerClasses.equals(other.defaultKryoSerializerClasses) &&
 				registeredKryoTypes.equals(other.registeredKryoTypes) &&
 				registeredPojoTypes.equals(other.registeredPojoTypes) &&
-				taskCancellationIntervalMillis == other.taskCancellationIntervalMillis;
+				taskCancellationIntervalMillis == other.taskCancellationIntervalMillis &&
+				Objects.equals(spillCompressionCodec, other.spillCompressionCodec) &&
+				panedSlidingWindows == other.panedSlidingWindows;
 
 		} else {
 			return false;
@@ -841,7 +914,9 @@ public class ExecutionConfig implements Serializable, Archiveable<ArchivedExecut
 			defaultKryoSerializerClasses,
 			registeredKryoTypes,
 			registeredPojoTypes,
-			taskCancellationIntervalMillis);
+			taskCancellationIntervalMillis,
+			spillCompressionCodec,
+			panedSlidingWindows);
 	}
 
 	public boolean canEqual(Object obj) {
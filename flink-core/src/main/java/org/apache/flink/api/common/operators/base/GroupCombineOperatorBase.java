@@ -30,6 +30,7 @@ import org.apache.flink.api.common.functions.util.FunctionUtils;
 import org.apache.flink.api.common.operators.Ordering;
 import org.apache.flink.api.common.operators.SingleInputOperator;
 import org.apache.flink.api.common.operators.UnaryOperatorInformation;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.api.common.operators.util.ListKeyGroupedIterator;
 import org.apache.flink.api.common.operators.util.UserCodeObjectWrapper;
 import org.apache.flink.api.common.typeinfo.AtomicType;
@@ -57,6 +58,8 @@ public class GroupCombineOperatorBase<IN, OUT, FT extends GroupCombineFunction<I
 	/** The ordering for the order inside a reduce group. */
 	private Ordering groupOrder;
 
+	private CombineHint combineHint = CombineHint.OPTIMIZER_CHOOSES;
+
 	public GroupCombineOperatorBase(FT udf, UnaryOperatorInformation<IN, OUT> operatorInfo, int[] keyPositions, String name) {
 		super(new UserCodeObjectWrapper<FT>(udf), operatorInfo, keyPositions, name);
 	}
@@ -82,6 +85,23 @@ public class GroupCombineOperatorBase<IN, OUT, FT extends GroupCombineFunction<I
 		return this.groupOrder;
 	}
 
+	/**
+	 * Sets the strategy to use for grouping the elements. The hash-based strategy is only applicable
+	 * if no order of the elements within a group has been set.
+	 *
+	 * @param combineHint The hint for the combine strategy.
+	 */
+	public void setCombineHint(CombineHint combineHint) {
+		if (combineHint == null) {
+			throw new IllegalArgumentException("Combine Hint must not be null.");
+		}
+		this.combineHint = combineHint;
+	}
+
+	public CombineHint getCombineHint() {
+		return this.combineHint;
+	}
+
 	private TypeComparator<IN> getTypeComparator(TypeInformation<IN> typeInfo, int[] sortColumns, boolean[] sortOrderings, ExecutionConfig executionConfig) {
 		if (typeInfo instanceof CompositeType) {
 			return ((CompositeType<IN>) typeInfo).createComparator(sortColumns, sortOrderings, 0, executionConfig);
@@ -31,6 +31,7 @@ import org.apache.flink.api.common.functions.util.FunctionUtils;
 import org.apache.flink.api.common.operators.Ordering;
 import org.apache.flink.api.common.operators.SingleInputOperator;
 import org.apache.flink.api.common.operators.UnaryOperatorInformation;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.api.common.operators.util.ListKeyGroupedIterator;
 import org.apache.flink.api.common.operators.util.UserCodeClassWrapper;
 import org.apache.flink.api.common.operators.util.UserCodeObjectWrapper;
@@ -58,6 +59,8 @@ public class GroupReduceOperatorBase<IN, OUT, FT extends GroupReduceFunction<IN,
 	private Ordering groupOrder;
 
 	private boolean combinable;
+
+	private CombineHint combineHint = CombineHint.OPTIMIZER_CHOOSES;
 	
 	private Partitioner<?> customPartitioner;
 	
@@ -135,6 +138,23 @@ public class GroupReduceOperatorBase<IN, OUT, FT extends GroupReduceFunction<IN,
 		return this.combinable;
 	}
 
+	/**
+	 * Sets the strategy to use for the combine phase of a combinable group reduce operation.
+	 * The hash-based strategy is only applicable if no order of the elements within a group has been set.
+	 *
+	 * @param combineHint The hint for the combine strategy.
+	 */
+	public void setCombineHint(CombineHint combineHint) {
+		if (combineHint == null) {
+			throw new IllegalArgumentException("Combine Hint must not be null.");
+		}
+		this.combineHint = combineHint;
+	}
+
+	public CombineHint getCombineHint() {
+		return this.combineHint;
+	}
+
 	public void setCustomPartitioner(Partitioner<?> customPartitioner) {
 		if (customPartitioner != null) {
 			int[] keys = getKeyColumns(0);
@@ -57,8 +57,8 @@ public class ReduceOperatorBase<T, FT extends ReduceFunction<T>> extends SingleI
 
 	/**
 	 * An enumeration of hints, optionally usable to tell the system exactly how to execute the combiner phase
-	 * of a reduce.
-	 * (Note: The final reduce phase (after combining) is currently always executed by a sort-based strategy.)
+	 * of a reduce, and the grouping of a group combine or of the combiner phase of a group reduce.
+	 * (Note: The final reduce phase (after combining) is configured by the {@link ReduceHint}.)
 	 */
 	public enum CombineHint {
 
@@ -79,8 +79,35 @@ public class ReduceOperatorBase<T, FT extends ReduceFunction<T>> extends SingleI
 		HASH
 	}
 
+	/**
+	 * An enumeration of hints, optionally usable to tell the system how to execute the final reduce phase
+	 * (after combining) of a grouped reduce.
+	 */
+	public enum ReduceHint {
+
+		/**
+		 * Leave the choice how to do the final reduce to the optimizer. (This currently defaults to SORT.)
+		 */
+		OPTIMIZER_CHOOSES,
+
+		/**
+		 * Use a sort-based strategy.
+		 */
+		SORT,
+
+		/**
+		 * Use a hash-based strategy, which reduces the records in place in a hash table and spills
+		 * hash partitions only if the memory runs out. This should be faster if the number of different
+		 * keys is small compared to the number of input elements. The optimizer still chooses the sort-based
+		 * strategy if the input is already sorted or grouped.
+		 */
+		HASH
+	}
+
 	private CombineHint hint;
 
+	private ReduceHint reduceHint = ReduceHint.OPTIMIZER_CHOOSES;
+
 	private Partitioner<?> customPartitioner;
 	
 	
@@ -256,4 +283,15 @@ public class ReduceOperatorBase<T, FT extends ReduceFunction<T>> extends SingleI
 	public CombineHint getCombineHint() {
 		return hint;
 	}
+
+	public void setReduceHint(ReduceHint reduceHint) {
+		if (reduceHint == null) {
+			throw new IllegalArgumentException("Reduce Hint must not be null.");
+		}
+		this.reduceHint = reduceHint;
+	}
+
+	public ReduceHint getReduceHint() {
+		return reduceHint;
+	}
 }
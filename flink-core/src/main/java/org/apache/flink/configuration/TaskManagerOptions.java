@@ -39,6 +39,23 @@ public class TaskManagerOptions {
 			key("taskmanager.jvm-exit-on-oom")
 			.defaultValue(false);
 
+	/**
+	 * The number of reading and of writing threads that the I/O manager starts for each temporary
+	 * directory. Devices that serve many requests in parallel, like SSDs, profit from more threads.
+	 */
+	public static final ConfigOption<Integer> IO_THREADS_PER_DIRECTORY =
+			key("taskmanager.io.threads-per-directory")
+			.defaultValue(1);
+
+	/**
+	 * Whether finished, uncompressed spill files are read through memory mappings instead of being
+	 * copied into memory segments by the I/O threads. This applies to the merge passes of sorts and
+	 * to spilled blocking result partitions, and requires off-heap memory segments.
+	 */
+	public static final ConfigOption<Boolean> IO_MEMORY_MAPPED_READS =
+			key("taskmanager.io.memory-mapped-reads")
+			.defaultValue(false);
+
 	// ------------------------------------------------------------------------
 	//  Network Options
 	// ------------------------------------------------------------------------
@@ -53,6 +70,41 @@ public class TaskManagerOptions {
 			key("taskmanager.net.request-backoff.max")
 			.defaultValue(10000);
 
+	/**
+	 * Number of network buffers to use for each outgoing/incoming channel (subpartition/input channel).
+	 *
+	 * <p>Remote input channels reserve these buffers exclusively and announce them to the producer
+	 * as initial credit. Additional buffers are requested from the buffer pool of the input gate
+	 * according to the backlog of the producer.
+	 */
+	public static final ConfigOption<Integer> NETWORK_BUFFERS_PER_CHANNEL =
+			key("taskmanager.net.buffers-per-channel")
+			.defaultValue(2);
+
+	/**
+	 * Number of floating network buffers in the buffer pool of each input gate, which the remote
+	 * input channels of the gate request in addition to their exclusive buffers.
+	 */
+	public static final ConfigOption<Integer> NETWORK_FLOATING_BUFFERS_PER_GATE =
+			key("taskmanager.net.floating-buffers-per-gate")
+			.defaultValue(8);
+
+	/**
+	 * Whether streaming tasks flush their outputs before the buffer timeout expires, if the
+	 * consumers have consumed all previously sent buffers and are therefore idle.
+	 */
+	public static final ConfigOption<Boolean> NETWORK_ADAPTIVE_FLUSH =
+			key("taskmanager.net.adaptive-flush")
+			.defaultValue(false);
+
+	/**
+	 * The minimum number of subpartitions from which on blocking result partitions are written as
+	 * one sorted data file per partition instead of one spill file per subpartition.
+	 */
+	public static final ConfigOption<Integer> NETWORK_SORT_MERGE_SHUFFLE_MIN_PARALLELISM =
+			key("taskmanager.net.blocking-shuffle.sort-merge.min-parallelism")
+			.defaultValue(Integer.MAX_VALUE);
+
 	// ------------------------------------------------------------------------
 	//  Task Options
 	// ------------------------------------------------------------------------
@@ -86,6 +138,79 @@ public class TaskManagerOptions {
 			key("task.checkpoint.alignment.max-size")
 			.defaultValue(-1L);
 
+	/**
+	 * The number of bytes of managed memory that a checkpoint alignment uses to hold the data of
+	 * blocked channels. Only data that does not fit into this memory is spilled to disk.
+	 *
+	 * <p>A value of {@code 0} spills all data of blocked channels.
+	 */
+	public static final ConfigOption<Long> TASK_CHECKPOINT_ALIGNMENT_MEMORY =
+			key("task.checkpoint.alignment.memory-size")
+			.defaultValue(4L * 1024 * 1024);
+
+	/**
+	 * The number of bytes of in-flight data that an unaligned checkpoint copies to the heap.
+	 * The in-flight data beyond this size is spilled to disk until it is written to the
+	 * checkpoint streams.
+	 */
+	public static final ConfigOption<Long> TASK_CHECKPOINT_UNALIGNED_MEMORY =
+			key("task.checkpoint.unaligned.memory-size")
+			.defaultValue(4L * 1024 * 1024);
+
+	/**
+	 * Whether streaming tasks run in the mailbox execution model. In this model, the task thread
+	 * executes processing time timers, checkpoint triggers and checkpoint notifications as actions
+	 * between records, and processes records without acquiring the checkpoint lock for each record.
+	 */
+	public static final ConfigOption<Boolean> TASK_MAILBOX_EXECUTION =
+			key("task.mailbox-execution")
+			.defaultValue(false);
+
+	// ------------------------------------------------------------------------
+	//  Runtime Algorithm Options
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The codec with which sorters, hash tables and blocking result partitions compress the data
+	 * they spill to disk: {@code NONE}, {@code LZ4}, or the class name of a block compression
+	 * factory. Jobs may override the codec in their execution config.
+	 */
+	public static final ConfigOption<String> SPILL_COMPRESSION_CODEC =
+			key("taskmanager.runtime.spill-compression")
+			.defaultValue("NONE");
+
+	/**
+	 * The number of threads with which a sort-merger sorts each of its in-memory sort buffers.
+	 * With the default of {@code 1}, the buffers are sorted by the single sorting thread.
+	 */
+	public static final ConfigOption<Integer> SORT_PARALLELISM =
+			key("taskmanager.runtime.sort.parallelism")
+			.defaultValue(1);
+
+	/**
+	 * Whether sort-mergers borrow free managed memory beyond their quota before they start spilling.
+	 * Borrowed memory is given back when other operators need it for their quota.
+	 */
+	public static final ConfigOption<Boolean> SORT_BORROW_MEMORY =
+			key("taskmanager.runtime.sort.borrow-memory")
+			.defaultValue(false);
+
+	/**
+	 * Whether hash joins ship a bloom filter of their build side keys to the tasks that produce
+	 * their probe side, which then drop the records without join partner before shipping them.
+	 */
+	public static final ConfigOption<Boolean> HASH_JOIN_RUNTIME_FILTERS =
+			key("taskmanager.runtime.hashjoin-runtime-filters")
+			.defaultValue(false);
+
+	/**
+	 * The maximum size in bytes of the runtime filter of a hash join subtask. Filters of small build
+	 * sides are shrunk before they are shipped.
+	 */
+	public static final ConfigOption<Integer> HASH_JOIN_RUNTIME_FILTER_MAX_SIZE =
+			key("taskmanager.runtime.hashjoin-runtime-filters.max-size")
+			.defaultValue(128 * 1024);
+
 	// ------------------------------------------------------------------------
 
 	/** Not intended to be instantiated */
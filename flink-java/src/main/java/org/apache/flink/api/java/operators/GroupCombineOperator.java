@@ -20,6 +20,7 @@ package org.apache.flink.api.java.operators;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.Public;
+import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.api.common.functions.GroupCombineFunction;
 import org.apache.flink.api.common.operators.Keys;
 import org.apache.flink.api.common.operators.Operator;
@@ -28,6 +29,7 @@ import org.apache.flink.api.common.operators.Ordering;
 import org.apache.flink.api.common.operators.SingleInputSemanticProperties;
 import org.apache.flink.api.common.operators.UnaryOperatorInformation;
 import org.apache.flink.api.common.operators.base.GroupCombineOperatorBase;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.DataSet;
 import org.apache.flink.api.java.functions.SemanticPropUtil;
@@ -54,6 +56,8 @@ public class GroupCombineOperator<IN, OUT> extends SingleInputUdfOperator<IN, OU
 
 	private final String defaultName;
 
+	private CombineHint combineHint = CombineHint.OPTIMIZER_CHOOSES;
+
 	/**
 	 * Constructor for a non-grouped reduce (all reduce).
 	 *
@@ -88,6 +92,27 @@ public class GroupCombineOperator<IN, OUT> extends SingleInputUdfOperator<IN, OU
 		return function;
 	}
 
+	// --------------------------------------------------------------------------------------------
+	//  Properties
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Sets the strategy to use for grouping the elements of a grouped combine.
+	 * The hash-based strategy groups the elements in a hash table instead of sorting them. It is
+	 * not applicable if the groups are sorted, in which case the sort-based strategy is used.
+	 *
+	 * If this method is not called, then the default hint will be used.
+	 * ({@link org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint#OPTIMIZER_CHOOSES})
+	 *
+	 * @param strategy The hint to use.
+	 * @return The GroupCombineOperator object, for function call chaining.
+	 */
+	@PublicEvolving
+	public GroupCombineOperator<IN, OUT> setCombineHint(CombineHint strategy) {
+		this.combineHint = strategy;
+		return this;
+	}
+
 	@Override
 	@Internal
 	public SingleInputSemanticProperties getSemanticProperties() {
@@ -147,12 +172,14 @@ public class GroupCombineOperator<IN, OUT> extends SingleInputUdfOperator<IN, OU
 					translateSelectorFunctionSortedReducer(selectorKeys, sortKeys, groupOrder, function, getResultType(), name, input);
 
 				po.setParallelism(this.getParallelism());
+				po.setCombineHint(combineHint);
 				return po;
 			} else {
 				PlanUnwrappingGroupCombineOperator<IN, OUT, ?> po = translateSelectorFunctionReducer(
 						selectorKeys, function, getResultType(), name, input);
 
 				po.setParallelism(this.getParallelism());
+				po.setCombineHint(combineHint);
 				return po;
 			}
 		}
@@ -165,6 +192,7 @@ public class GroupCombineOperator<IN, OUT> extends SingleInputUdfOperator<IN, OU
 
 			po.setInput(input);
 			po.setParallelism(getParallelism());
+			po.setCombineHint(combineHint);
 
 			// set group order
 			if (grouper instanceof SortedGrouping) {
@@ -20,6 +20,7 @@ package org.apache.flink.api.java.operators;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.Public;
+import org.apache.flink.annotation.PublicEvolving;
 import org.apache.flink.api.common.functions.CombineFunction;
 import org.apache.flink.api.common.functions.GroupCombineFunction;
 import org.apache.flink.api.common.functions.GroupReduceFunction;
@@ -31,6 +32,7 @@ import org.apache.flink.api.common.operators.Ordering;
 import org.apache.flink.api.common.operators.SingleInputSemanticProperties;
 import org.apache.flink.api.common.operators.UnaryOperatorInformation;
 import org.apache.flink.api.common.operators.base.GroupReduceOperatorBase;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.functions.SemanticPropUtil;
 import org.apache.flink.api.common.operators.Keys.SelectorFunctionKeys;
@@ -67,6 +69,8 @@ public class GroupReduceOperator<IN, OUT> extends SingleInputUdfOperator<IN, OUT
 
 	private boolean combinable;
 
+	private CombineHint combineHint = CombineHint.OPTIMIZER_CHOOSES;
+
 	/**
 	 * Constructor for a non-grouped reduce (all reduce).
 	 * 
@@ -181,6 +185,23 @@ public class GroupReduceOperator<IN, OUT> extends SingleInputUdfOperator<IN, OUT
 		return this;
 	}
 
+	/**
+	 * Sets the strategy to use for the combine phase of a combinable grouped reduce.
+	 * The hash-based strategy groups the elements in a hash table instead of sorting them. It is
+	 * not applicable if the groups are sorted, in which case the sort-based strategy is used.
+	 *
+	 * If this method is not called, then the default hint will be used.
+	 * ({@link org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint#OPTIMIZER_CHOOSES})
+	 *
+	 * @param strategy The hint to use.
+	 * @return The GroupReduceOperator object, for function call chaining.
+	 */
+	@PublicEvolving
+	public GroupReduceOperator<IN, OUT> setCombineHint(CombineHint strategy) {
+		this.combineHint = strategy;
+		return this;
+	}
+
 	@Override
 	@Internal
 	public SingleInputSemanticProperties getSemanticProperties() {
@@ -250,6 +271,7 @@ public class GroupReduceOperator<IN, OUT> extends SingleInputUdfOperator<IN, OUT
 
 				po.setParallelism(this.getParallelism());
 				po.setCustomPartitioner(grouper.getCustomPartitioner());
+				po.setCombineHint(combineHint);
 				return po;
 			} else {
 				PlanUnwrappingReduceGroupOperator<IN, OUT, ?> po = translateSelectorFunctionReducer(
@@ -257,6 +279,7 @@ public class GroupReduceOperator<IN, OUT> extends SingleInputUdfOperator<IN, OUT
 
 				po.setParallelism(this.getParallelism());
 				po.setCustomPartitioner(grouper.getCustomPartitioner());
+				po.setCombineHint(combineHint);
 				return po;
 			}
 		}
@@ -271,6 +294,7 @@ public class GroupReduceOperator<IN, OUT> extends SingleInputUdfOperator<IN, OUT
 			po.setInput(input);
 			po.setParallelism(getParallelism());
 			po.setCustomPartitioner(grouper.getCustomPartitioner());
+			po.setCombineHint(combineHint);
 			
 			// set group order
 			if (grouper instanceof SortedGrouping) {
@@ -28,6 +28,7 @@ import org.apache.flink.api.common.operators.SingleInputSemanticProperties;
 import org.apache.flink.api.common.operators.UnaryOperatorInformation;
 import org.apache.flink.api.common.operators.base.ReduceOperatorBase;
 import org.apache.flink.api.common.operators.base.ReduceOperatorBase.CombineHint;
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.ReduceHint;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.api.java.functions.SemanticPropUtil;
 import org.apache.flink.api.common.operators.Keys.SelectorFunctionKeys;
@@ -54,6 +55,9 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 
 	// should be null in case of an all reduce
 	private CombineHint hint;
+
+	// should be null in case of an all reduce
+	private ReduceHint reduceHint;
 	
 	/**
 	 * 
@@ -69,6 +73,7 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 		this.grouper = null;
 		this.defaultName = defaultName;
 		this.hint = null;
+		this.reduceHint = null;
 	}
 	
 	
@@ -79,6 +84,7 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 		this.grouper = input;
 		this.defaultName = defaultName;
 		this.hint = CombineHint.OPTIMIZER_CHOOSES;
+		this.reduceHint = ReduceHint.OPTIMIZER_CHOOSES;
 
 		UdfOperatorUtils.analyzeSingleInputUdf(this, ReduceFunction.class, defaultName, function, grouper.keys);
 	}
@@ -135,7 +141,7 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 			SelectorFunctionKeys<IN, ?> selectorKeys = (SelectorFunctionKeys<IN, ?>) grouper.getKeys();
 
 			org.apache.flink.api.common.operators.SingleInputOperator<?, IN, ?> po =
-				translateSelectorFunctionReducer(selectorKeys, function, getInputType(), name, input, getParallelism(), hint);
+				translateSelectorFunctionReducer(selectorKeys, function, getInputType(), name, input, getParallelism(), hint, reduceHint);
 			((PlanUnwrappingReduceOperator<?, ?>) po.getInput()).setCustomPartitioner(grouper.getCustomPartitioner());
 
 			return po;
@@ -153,6 +159,7 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 			po.setInput(input);
 			po.setParallelism(getParallelism());
 			po.setCombineHint(hint);
+			po.setReduceHint(reduceHint);
 			
 			return po;
 		}
@@ -176,6 +183,21 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 		return this;
 	}
 
+	/**
+	 * Sets the strategy to use for the final reduce phase, after the combine phase.
+	 *
+	 * If this method is not called, then the default hint will be used.
+	 * ({@link org.apache.flink.api.common.operators.base.ReduceOperatorBase.ReduceHint#OPTIMIZER_CHOOSES})
+	 *
+	 * @param strategy The hint to use.
+	 * @return The ReduceOperator object, for function call chaining.
+	 */
+	@PublicEvolving
+	public ReduceOperator<IN> setReduceHint(ReduceHint strategy) {
+		this.reduceHint = strategy;
+		return this;
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	private static <T, K> org.apache.flink.api.common.operators.SingleInputOperator<?, T, ?> translateSelectorFunctionReducer(
@@ -185,7 +207,8 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 		String name,
 		Operator<T> input,
 		int parallelism,
-		CombineHint hint)
+		CombineHint hint,
+		ReduceHint reduceHint)
 	{
 		@SuppressWarnings("unchecked")
 		final SelectorFunctionKeys<T, K> keys = (SelectorFunctionKeys<T, K>) rawKeys;
@@ -197,6 +220,7 @@ public class ReduceOperator<IN> extends SingleInputUdfOperator<IN, IN, ReduceOpe
 		reducer.setInput(keyedInput);
 		reducer.setParallelism(parallelism);
 		reducer.setCombineHint(hint);
+		reducer.setReduceHint(reduceHint);
 
 		return KeyFunctions.appendKeyRemover(reducer, keys);
 	}
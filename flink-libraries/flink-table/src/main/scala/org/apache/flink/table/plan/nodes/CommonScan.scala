@@ -80,3 +80,15 @@ trait CommonScan {
   }
 
 }
+
+object CommonScan {
+
+  /**
+    * The fraction of the rows that a scan emits after its table source evaluated pushed-down
+    * predicates. The table source still reads all rows, so only the emitted rows are reduced.
+    * Any factor below 1 makes a scan with pushed-down predicates cheaper than the same scan
+    * followed by a calc that evaluates the predicates, so that the planner chooses the former.
+    * The value is the selectivity that Calcite guesses for a range comparison.
+    */
+  private[flink] val FILTERED_ROW_COUNT_FACTOR = 0.5
+}
@@ -25,8 +25,9 @@ import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.java.DataSet
 import org.apache.flink.table.api.{BatchTableEnvironment, TableEnvironment}
 import org.apache.flink.table.calcite.FlinkTypeFactory
+import org.apache.flink.table.plan.nodes.CommonScan
 import org.apache.flink.table.plan.schema.TableSourceTable
-import org.apache.flink.table.sources.BatchTableSource
+import org.apache.flink.table.sources.{BatchTableSource, FilterableTableSource}
 import org.apache.flink.types.Row
 
 /** Flink RelNode to read data from an external source defined by a [[BatchTableSource]]. */
@@ -46,7 +47,10 @@ class BatchTableSourceScan(
 
   override def computeSelfCost (planner: RelOptPlanner, metadata: RelMetadataQuery): RelOptCost = {
     val rowCnt = metadata.getRowCount(this)
-    planner.getCostFactory.makeCost(rowCnt, rowCnt, rowCnt * estimateRowSize(getRowType))
+    // a source with pushed-down filters reads all rows but emits fewer rows
+    val outputRowCnt =
+      if (explainPredicates.nonEmpty) rowCnt * CommonScan.FILTERED_ROW_COUNT_FACTOR else rowCnt
+    planner.getCostFactory.makeCost(outputRowCnt, rowCnt, rowCnt * estimateRowSize(getRowType))
   }
 
   override def copy(traitSet: RelTraitSet, inputs: java.util.List[RelNode]): RelNode = {
@@ -61,6 +65,12 @@ class BatchTableSourceScan(
   override def explainTerms(pw: RelWriter): RelWriter = {
     super.explainTerms(pw)
       .item("fields", TableEnvironment.getFieldNames(tableSource).mkString(", "))
+      .itemIf("filter", explainPredicates, explainPredicates.nonEmpty)
+  }
+
+  private def explainPredicates: String = tableSource match {
+    case source: FilterableTableSource[_] => source.explainPredicates
+    case _ => ""
   }
 
   override def translateToPlan(tableEnv: BatchTableEnvironment): DataSet[Row] = {
@@ -23,6 +23,8 @@ import org.apache.calcite.rel.`type`.RelDataType
 import org.apache.calcite.rel.core.AggregateCall
 import org.apache.calcite.rel.metadata.RelMetadataQuery
 import org.apache.calcite.rel.{RelNode, RelWriter, SingleRel}
+import org.apache.flink.api.common.functions.RichGroupReduceFunction
+import org.apache.flink.api.common.operators.base.ReduceOperatorBase.{CombineHint, ReduceHint}
 import org.apache.flink.api.java.DataSet
 import org.apache.flink.api.java.typeutils.RowTypeInfo
 import org.apache.flink.table.api.BatchTableEnvironment
@@ -94,13 +96,6 @@ class DataSetAggregate(
       grouping,
       inputType)
 
-    val groupReduceFunction = AggregateUtil.createAggregateGroupReduceFunction(
-      namedAggregates,
-      inputType,
-      rowRelDataType,
-      grouping,
-      inGroupingSet)
-
     val inputDS = getInput.asInstanceOf[DataSetRel].translateToPlan(tableEnv)
 
     val aggString = aggregationToString(inputType, grouping, getRowType, namedAggregates, Nil)
@@ -114,15 +109,48 @@ class DataSetAggregate(
       val aggOpName = s"groupBy: (${groupingToString(inputType, grouping)}), " +
         s"select: ($aggString)"
 
-      mappedInput.asInstanceOf[DataSet[Row]]
-        .groupBy(groupingKeys: _*)
-        .reduceGroup(groupReduceFunction)
-        .returns(rowTypeInfo)
-        .name(aggOpName)
+      if (AggregateUtil.doAllSupportPartialMerge(
+        namedAggregates.map(_.getKey),
+        inputType,
+        grouping.length)) {
+
+        // merge the accumulators pairwise, so that the optimizer can choose a hash-based reduce
+        val reduceFunction = AggregateUtil.createAggregateReduceFunction(
+          namedAggregates,
+          inputType,
+          grouping)
+
+        val resultMapFunction = AggregateUtil.createAggregateResultMapFunction(
+          namedAggregates,
+          inputType,
+          rowRelDataType,
+          grouping,
+          inGroupingSet)
+
+        mappedInput.asInstanceOf[DataSet[Row]]
+          .groupBy(groupingKeys: _*)
+          .reduce(reduceFunction)
+          .setCombineHint(CombineHint.HASH)
+          .setReduceHint(ReduceHint.HASH)
+          .name(aggOpName)
+          .map(resultMapFunction)
+          .returns(rowTypeInfo)
+          .name(s"result select: ($aggString)")
+      }
+      else {
+        val groupReduceFunction = createGroupReduceFunction()
+
+        mappedInput.asInstanceOf[DataSet[Row]]
+          .groupBy(groupingKeys: _*)
+          .reduceGroup(groupReduceFunction)
+          .returns(rowTypeInfo)
+          .name(aggOpName)
+      }
     }
     else {
       // global aggregation
       val aggOpName = s"select:($aggString)"
+      val groupReduceFunction = createGroupReduceFunction()
 
       mappedInput.asInstanceOf[DataSet[Row]]
         .reduceGroup(groupReduceFunction)
@@ -130,4 +158,13 @@ class DataSetAggregate(
         .name(aggOpName)
     }
   }
+
+  private def createGroupReduceFunction(): RichGroupReduceFunction[Row, Row] = {
+    AggregateUtil.createAggregateGroupReduceFunction(
+      namedAggregates,
+      inputType,
+      rowRelDataType,
+      grouping,
+      inGroupingSet)
+  }
 }
@@ -24,8 +24,9 @@ import org.apache.calcite.rel.{RelNode, RelWriter}
 import org.apache.flink.streaming.api.datastream.DataStream
 import org.apache.flink.table.api.{StreamTableEnvironment, TableEnvironment}
 import org.apache.flink.table.calcite.FlinkTypeFactory
+import org.apache.flink.table.plan.nodes.CommonScan
 import org.apache.flink.table.plan.schema.TableSourceTable
-import org.apache.flink.table.sources.StreamTableSource
+import org.apache.flink.table.sources.{FilterableTableSource, StreamTableSource}
 import org.apache.flink.types.Row
 
 /** Flink RelNode to read data from an external source defined by a [[StreamTableSource]]. */
@@ -45,7 +46,10 @@ class StreamTableSourceScan(
 
   override def computeSelfCost (planner: RelOptPlanner, metadata: RelMetadataQuery): RelOptCost = {
     val rowCnt = metadata.getRowCount(this)
-    planner.getCostFactory.makeCost(rowCnt, rowCnt, rowCnt * estimateRowSize(getRowType))
+    // a source with pushed-down filters reads all rows but emits fewer rows
+    val outputRowCnt =
+      if (explainPredicates.nonEmpty) rowCnt * CommonScan.FILTERED_ROW_COUNT_FACTOR else rowCnt
+    planner.getCostFactory.makeCost(outputRowCnt, rowCnt, rowCnt * estimateRowSize(getRowType))
   }
 
   override def copy(traitSet: RelTraitSet, inputs: java.util.List[RelNode]): RelNode = {
@@ -60,6 +64,12 @@ class StreamTableSourceScan(
   override def explainTerms(pw: RelWriter): RelWriter = {
     super.explainTerms(pw)
       .item("fields", TableEnvironment.getFieldNames(tableSource).mkString(", "))
+      .itemIf("filter", explainPredicates, explainPredicates.nonEmpty)
+  }
+
+  private def explainPredicates: String = tableSource match {
+    case source: FilterableTableSource[_] => source.explainPredicates
+    case _ => ""
   }
 
   override def translateToPlan(tableEnv: StreamTableEnvironment): DataStream[Row] = {
@@ -121,7 +121,9 @@ object FlinkRuleSets {
     DataSetCorrelateRule.INSTANCE,
     BatchTableSourceScanRule.INSTANCE,
     // project pushdown optimization
-    PushProjectIntoBatchTableSourceScanRule.INSTANCE
+    PushProjectIntoBatchTableSourceScanRule.INSTANCE,
+    // filter pushdown optimization
+    PushFilterIntoBatchTableSourceScanRule.INSTANCE
   )
 
   /**
@@ -174,7 +176,8 @@ object FlinkRuleSets {
       DataStreamValuesRule.INSTANCE,
       DataStreamCorrelateRule.INSTANCE,
       StreamTableSourceScanRule.INSTANCE,
-      PushProjectIntoStreamTableSourceScanRule.INSTANCE
+      PushProjectIntoStreamTableSourceScanRule.INSTANCE,
+      PushFilterIntoStreamTableSourceScanRule.INSTANCE
   )
 
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.plan.rules.common
+
+import java.util
+
+import org.apache.calcite.rex.{RexBuilder, RexProgram}
+import org.apache.flink.table.expressions.Expression
+import org.apache.flink.table.plan.rules.util.RexProgramPredicateExtractor._
+import org.apache.flink.table.sources.{FilterableTableSource, TableSource}
+
+import scala.collection.JavaConverters._
+
+/**
+  * Common functionality of the rules which push filters into a [[FilterableTableSource]].
+  */
+trait PushFilterIntoTableSourceScanRuleBase {
+
+  /**
+    * Pushes the predicates of the condition of a calc program into a [[FilterableTableSource]].
+    *
+    * @param calcProgram The program of the calc on top of the table source scan
+    * @param tableSource The table source of the scan
+    * @param rexBuilder  builder for Rex expressions
+    * @return The new table source and the calc program with the remaining predicates, or None if
+    *         the table source did not accept any predicate.
+    */
+  protected def pushFilterIntoTableSource(
+      calcProgram: RexProgram,
+      tableSource: FilterableTableSource[_],
+      rexBuilder: RexBuilder): Option[(TableSource[_], RexProgram)] = {
+
+    val (convertedPredicates, unconvertedPredicates) =
+      extractConjunctivePredicates(calcProgram, rexBuilder)
+
+    if (convertedPredicates.isEmpty) {
+      return None
+    }
+
+    val remainingPredicates = new util.ArrayList[Expression](convertedPredicates.map(_._1).asJava)
+    val newTableSource = tableSource.applyPredicate(remainingPredicates)
+
+    if (remainingPredicates.size() == convertedPredicates.size) {
+      // keep the original plan, the table source does not filter anything
+      return None
+    }
+
+    // the remaining predicates are identified by reference, because predicates may be equal
+    val remainingRexNodes = convertedPredicates
+      .filter(p => remainingPredicates.asScala.exists(_ eq p._1))
+      .map(_._2)
+
+    val newCalcProgram = rewriteRexProgramCondition(
+      calcProgram,
+      calcProgram.getInputRowType,
+      unconvertedPredicates ++ remainingRexNodes,
+      rexBuilder)
+
+    Some((newTableSource, newCalcProgram))
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.plan.rules.util
+
+import org.apache.calcite.plan.RelOptUtil
+import org.apache.calcite.rel.`type`.RelDataType
+import org.apache.calcite.rex._
+import org.apache.calcite.sql.SqlKind
+import org.apache.calcite.sql.`type`.SqlTypeName
+import org.apache.calcite.util.NlsString
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo
+import org.apache.flink.table.calcite.FlinkTypeFactory
+import org.apache.flink.table.expressions._
+
+import scala.collection.JavaConversions._
+
+object RexProgramPredicateExtractor {
+
+  /**
+    * Splits the condition of a RexProgram into conjunctive predicates and converts them into
+    * [[Expression]]s, as far as possible.
+    *
+    * @param rexProgram The RexProgram to analyze
+    * @param rexBuilder builder for Rex expressions
+    * @return The converted predicates, each with its original RexNode, and the predicates which
+    *         could not be converted
+    */
+  def extractConjunctivePredicates(
+      rexProgram: RexProgram,
+      rexBuilder: RexBuilder): (Seq[(Expression, RexNode)], Seq[RexNode]) = {
+
+    val condition = rexProgram.getCondition
+    if (condition == null) {
+      return (Seq(), Seq())
+    }
+
+    val cnf = RexUtil.toCnf(rexBuilder, rexProgram.expandLocalRef(condition))
+    val converter = new RexNodeToExpressionConverter(rexProgram.getInputRowType)
+
+    val conjunctions = RelOptUtil.conjunctions(cnf)
+    val converted = conjunctions.map(c => (converter.convert(c), c))
+
+    (converted.filter(_._1.isDefined).map(c => (c._1.get, c._2)),
+      converted.filter(_._1.isEmpty).map(_._2))
+  }
+
+  /**
+    * Generates a new RexProgram with the projections of the original program and the given
+    * condition.
+    *
+    * @param rexProgram   original RexProgram
+    * @param inputRowType input row type
+    * @param conditions   conjunctive conditions of the new program
+    * @param rexBuilder   builder for Rex expressions
+    *
+    * @return A RexProgram with the new condition.
+    */
+  def rewriteRexProgramCondition(
+      rexProgram: RexProgram,
+      inputRowType: RelDataType,
+      conditions: Seq[RexNode],
+      rexBuilder: RexBuilder): RexProgram = {
+
+    val programBuilder = new RexProgramBuilder(inputRowType, rexBuilder)
+    rexProgram.getNamedProjects.foreach { project =>
+      programBuilder.addProject(rexProgram.expandLocalRef(project.left), project.right)
+    }
+    if (conditions.nonEmpty) {
+      programBuilder.addCondition(RexUtil.composeConjunction(rexBuilder, conditions, false))
+    }
+    programBuilder.getProgram
+  }
+}
+
+/**
+  * A RexVisitor to convert a predicate into an [[Expression]]. Converts comparisons of fields and
+  * literals, null checks, and conjunctions and disjunctions of these. Returns None if the
+  * predicate contains any other expression.
+  *
+  * @param inputRowType The row type of the input whose fields are referenced
+  */
+class RexNodeToExpressionConverter(inputRowType: RelDataType)
+  extends RexVisitorImpl[Option[Expression]](false) {
+
+  def convert(rexNode: RexNode): Option[Expression] = {
+    // visitor methods which are not overridden return null
+    Option(rexNode.accept(this)).flatten
+  }
+
+  override def visitInputRef(inputRef: RexInputRef): Option[Expression] = {
+    val field = inputRowType.getFieldList.get(inputRef.getIndex)
+    Some(ResolvedFieldReference(field.getName, FlinkTypeFactory.toTypeInfo(field.getType)))
+  }
+
+  override def visitLocalRef(localRef: RexLocalRef): Option[Expression] = None
+
+  override def visitLiteral(literal: RexLiteral): Option[Expression] = {
+    val value = literal.getValue
+    if (value == null) {
+      return None
+    }
+
+    literal.getType.getSqlTypeName match {
+      case SqlTypeName.BOOLEAN =>
+        Some(Literal(value, BasicTypeInfo.BOOLEAN_TYPE_INFO))
+      case SqlTypeName.TINYINT =>
+        Some(Literal(decimal(value).byteValue(), BasicTypeInfo.BYTE_TYPE_INFO))
+      case SqlTypeName.SMALLINT =>
+        Some(Literal(decimal(value).shortValue(), BasicTypeInfo.SHORT_TYPE_INFO))
+      case SqlTypeName.INTEGER =>
+        Some(Literal(decimal(value).intValue(), BasicTypeInfo.INT_TYPE_INFO))
+      case SqlTypeName.BIGINT =>
+        Some(Literal(decimal(value).longValue(), BasicTypeInfo.LONG_TYPE_INFO))
+      case SqlTypeName.FLOAT =>
+        Some(Literal(decimal(value).floatValue(), BasicTypeInfo.FLOAT_TYPE_INFO))
+      case SqlTypeName.DOUBLE =>
+        Some(Literal(decimal(value).doubleValue(), BasicTypeInfo.DOUBLE_TYPE_INFO))
+      case SqlTypeName.DECIMAL =>
+        Some(Literal(decimal(value), BasicTypeInfo.BIG_DEC_TYPE_INFO))
+      case SqlTypeName.CHAR | SqlTypeName.VARCHAR =>
+        Some(Literal(value.asInstanceOf[NlsString].getValue, BasicTypeInfo.STRING_TYPE_INFO))
+      // temporal literals are not converted
+      case _ => None
+    }
+  }
+
+  override def visitCall(call: RexCall): Option[Expression] = {
+    val operands = call.getOperands.map(convert)
+    if (operands.exists(_.isEmpty)) {
+      return None
+    }
+    val children = operands.map(_.get)
+
+    call.getKind match {
+      case SqlKind.EQUALS => Some(EqualTo(children.head, children(1)))
+      case SqlKind.NOT_EQUALS => Some(NotEqualTo(children.head, children(1)))
+      case SqlKind.GREATER_THAN => Some(GreaterThan(children.head, children(1)))
+      case SqlKind.GREATER_THAN_OR_EQUAL => Some(GreaterThanOrEqual(children.head, children(1)))
+      case SqlKind.LESS_THAN => Some(LessThan(children.head, children(1)))
+      case SqlKind.LESS_THAN_OR_EQUAL => Some(LessThanOrEqual(children.head, children(1)))
+      case SqlKind.IS_NULL => Some(IsNull(children.head))
+      case SqlKind.IS_NOT_NULL => Some(IsNotNull(children.head))
+      case SqlKind.AND => Some(children.reduceLeft[Expression](And(_, _)))
+      case SqlKind.OR => Some(children.reduceLeft[Expression](Or(_, _)))
+      case _ => None
+    }
+  }
+
+  override def visitOver(over: RexOver): Option[Expression] = None
+
+  override def visitCorrelVariable(correlVariable: RexCorrelVariable): Option[Expression] = None
+
+  override def visitDynamicParam(dynamicParam: RexDynamicParam): Option[Expression] = None
+
+  override def visitRangeRef(rangeRef: RexRangeRef): Option[Expression] = None
+
+  override def visitFieldAccess(fieldAccess: RexFieldAccess): Option[Expression] = None
+
+  private def decimal(value: Comparable[_]): java.math.BigDecimal =
+    value.asInstanceOf[java.math.BigDecimal]
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.runtime.aggregate
+
+import java.util.{ArrayList => JArrayList}
+
+import org.apache.flink.api.common.functions.RichReduceFunction
+import org.apache.flink.configuration.Configuration
+import org.apache.flink.table.functions.{Accumulator, AggregateFunction}
+import org.apache.flink.types.Row
+import org.apache.flink.util.Preconditions
+
+/**
+  * It wraps the aggregate logic inside of
+  * [[org.apache.flink.api.java.operators.ReduceOperator]]. It merges the accumulators of two
+  * intermediate aggregate Rows with the same group keys into the first Row, so that the reduce
+  * can be executed in place, for example in a hash table.
+  *
+  * @param aggregates     The aggregate functions.
+  * @param groupKeysCount The number of group keys at the beginning of the intermediate Row.
+  */
+class AggregateReduceFunction(
+    private val aggregates: Array[AggregateFunction[_ <: Any]],
+    private val groupKeysCount: Int)
+  extends RichReduceFunction[Row] {
+
+  private var accumulatorList: Array[JArrayList[Accumulator]] = _
+
+  override def open(config: Configuration): Unit = {
+    Preconditions.checkNotNull(aggregates)
+    accumulatorList = Array.fill(aggregates.length) {
+      new JArrayList[Accumulator](2)
+    }
+
+    // init lists with two empty accumulators
+    for (i <- aggregates.indices) {
+      val accumulator = aggregates(i).createAccumulator()
+      accumulatorList(i).add(accumulator)
+      accumulatorList(i).add(accumulator)
+    }
+  }
+
+  /**
+    * Merges the accumulators of the second intermediate aggregate Row into the first one.
+    *
+    * @param value1 The first intermediate aggregate Row, which holds the result.
+    * @param value2 The second intermediate aggregate Row.
+    * @return The first intermediate aggregate Row, with the merged accumulators.
+    */
+  override def reduce(value1: Row, value2: Row): Row = {
+
+    for (i <- aggregates.indices) {
+      val index = groupKeysCount + i
+      accumulatorList(i).set(0, value1.getField(index).asInstanceOf[Accumulator])
+      accumulatorList(i).set(1, value2.getField(index).asInstanceOf[Accumulator])
+      value1.setField(index, aggregates(i).merge(accumulatorList(i)))
+    }
+
+    value1
+  }
+}
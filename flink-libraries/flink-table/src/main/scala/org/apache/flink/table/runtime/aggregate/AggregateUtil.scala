@@ -25,7 +25,7 @@ import org.apache.calcite.sql.{SqlAggFunction, SqlKind}
 import org.apache.calcite.sql.`type`.SqlTypeName._
 import org.apache.calcite.sql.`type`.SqlTypeName
 import org.apache.calcite.sql.fun._
-import org.apache.flink.api.common.functions.{GroupCombineFunction, InvalidTypesException, MapFunction, MapPartitionFunction, RichGroupReduceFunction, AggregateFunction => ApiAggregateFunction}
+import org.apache.flink.api.common.functions.{GroupCombineFunction, InvalidTypesException, MapFunction, MapPartitionFunction, ReduceFunction, RichGroupReduceFunction, AggregateFunction => ApiAggregateFunction}
 import org.apache.flink.api.common.typeinfo.{BasicTypeInfo, TypeHint, TypeInformation}
 import org.apache.flink.api.java.tuple.Tuple
 import org.apache.flink.api.java.typeutils.RowTypeInfo
@@ -400,6 +400,68 @@ object AggregateUtil {
     groupReduceFunction
   }
 
+  /**
+    * Create a [[org.apache.flink.api.common.functions.ReduceFunction]] to merge the intermediate
+    * aggregate Rows of a grouped aggregation pairwise. Requires that all aggregates support
+    * partial merges.
+    */
+  private[flink] def createAggregateReduceFunction(
+      namedAggregates: Seq[CalcitePair[AggregateCall, String]],
+      inputType: RelDataType,
+      groupings: Array[Int])
+    : ReduceFunction[Row] = {
+
+    val (_, aggregates) = transformToAggregateFunctions(
+      namedAggregates.map(_.getKey),
+      inputType,
+      groupings.length)
+
+    if (!doAllSupportPartialMerge(aggregates)) {
+      throw new TableException("All aggregates must support partial merges to be reduced pairwise.")
+    }
+
+    new AggregateReduceFunction(aggregates, groupings.length)
+  }
+
+  /**
+    * Create a [[org.apache.flink.api.common.functions.MapFunction]] that computes the final
+    * aggregate values from the intermediate aggregate Rows which are merged by the function of
+    * [[createAggregateReduceFunction()]].
+    */
+  private[flink] def createAggregateResultMapFunction(
+      namedAggregates: Seq[CalcitePair[AggregateCall, String]],
+      inputType: RelDataType,
+      outputType: RelDataType,
+      groupings: Array[Int],
+      inGroupingSet: Boolean)
+    : MapFunction[Row, Row] = {
+
+    val (_, aggregates) = transformToAggregateFunctions(
+      namedAggregates.map(_.getKey),
+      inputType,
+      groupings.length)
+
+    val (groupingOffsetMapping, aggOffsetMapping) =
+      getGroupingOffsetAndAggOffsetMapping(
+        namedAggregates,
+        inputType,
+        outputType,
+        groupings)
+
+    val groupingSetsMapping: Array[(Int, Int)] = if (inGroupingSet) {
+      getGroupingSetsIndicatorMapping(inputType, outputType)
+    } else {
+      Array()
+    }
+
+    new AggregateResultMapFunction(
+      aggregates,
+      groupingOffsetMapping,
+      aggOffsetMapping,
+      groupingSetsMapping,
+      outputType.getFieldCount)
+  }
+
   /**
     * Create an [[AllWindowFunction]] for non-partitioned window aggregates.
     */
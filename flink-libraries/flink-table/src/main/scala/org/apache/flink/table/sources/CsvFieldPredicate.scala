@@ -0,0 +1,231 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.sources
+
+import org.apache.flink.api.common.typeinfo.{BasicTypeInfo, TypeInformation}
+import org.apache.flink.table.expressions._
+
+/**
+  * A predicate on the fields of a CSV row, which is evaluated by the input format of a
+  * [[CsvTableSource]] before a [[org.apache.flink.types.Row]] is built.
+  *
+  * Predicates are evaluated with SQL semantics in a WHERE clause, i.e., comparisons with null
+  * fields are not true. Because negations are not supported, this is the same as evaluating them
+  * to false.
+  */
+private[flink] sealed abstract class CsvFieldPredicate extends Serializable {
+
+  /**
+    * Evaluates the predicate on the parsed field values.
+    */
+  def eval(fields: Array[AnyRef]): Boolean
+
+  /**
+    * Returns the indexes and types of the fields accessed by the predicate.
+    */
+  def fields: Seq[(Int, TypeInformation[_])]
+
+  /**
+    * Returns a copy of the predicate which accesses the fields at the mapped indexes.
+    */
+  def remap(mapping: Int => Int): CsvFieldPredicate
+}
+
+private[flink] object CsvFieldPredicate {
+
+  /**
+    * Converts an [[Expression]] into a [[CsvFieldPredicate]], if the expression only consists of
+    * comparisons of fields with literals, null checks, conjunctions and disjunctions.
+    *
+    * @param expression The predicate to convert
+    * @param resolveField Resolves a field name to its index and type, if the field exists
+    * @return The converted predicate, or None if the expression is not supported
+    */
+  def fromExpression(
+      expression: Expression,
+      resolveField: String => Option[(Int, TypeInformation[_])]): Option[CsvFieldPredicate] = {
+
+    expression match {
+      case And(left, right) =>
+        for (l <- fromExpression(left, resolveField); r <- fromExpression(right, resolveField))
+          yield AndPredicate(l, r)
+      case Or(left, right) =>
+        for (l <- fromExpression(left, resolveField); r <- fromExpression(right, resolveField))
+          yield OrPredicate(l, r)
+      case IsNull(ResolvedFieldReference(name, _)) =>
+        resolveField(name).map { case (index, fieldType) => IsNullPredicate(index, fieldType) }
+      case IsNotNull(ResolvedFieldReference(name, _)) =>
+        resolveField(name).map { case (index, fieldType) => IsNotNullPredicate(index, fieldType) }
+      case EqualTo(left, right) => comparison(left, right, "=", "=", resolveField)
+      case NotEqualTo(left, right) => comparison(left, right, "<>", "<>", resolveField)
+      case GreaterThan(left, right) => comparison(left, right, ">", "<", resolveField)
+      case GreaterThanOrEqual(left, right) => comparison(left, right, ">=", "<=", resolveField)
+      case LessThan(left, right) => comparison(left, right, "<", ">", resolveField)
+      case LessThanOrEqual(left, right) => comparison(left, right, "<=", ">=", resolveField)
+      case _ => None
+    }
+  }
+
+  private def comparison(
+      left: Expression,
+      right: Expression,
+      operator: String,
+      mirroredOperator: String,
+      resolveField: String => Option[(Int, TypeInformation[_])]): Option[CsvFieldPredicate] = {
+
+    (left, right) match {
+      case (ResolvedFieldReference(name, _), Literal(value, literalType)) =>
+        fieldComparison(name, operator, value, literalType, resolveField)
+      case (Literal(value, literalType), ResolvedFieldReference(name, _)) =>
+        fieldComparison(name, mirroredOperator, value, literalType, resolveField)
+      case _ => None
+    }
+  }
+
+  private def fieldComparison(
+      name: String,
+      operator: String,
+      value: Any,
+      literalType: TypeInformation[_],
+      resolveField: String => Option[(Int, TypeInformation[_])]): Option[CsvFieldPredicate] = {
+
+    for {
+      (index, fieldType) <- resolveField(name)
+      literal <- coerceLiteral(value, literalType, fieldType)
+    } yield ComparisonPredicate(index, fieldType, operator, literal)
+  }
+
+  /**
+    * Converts a literal to the type of the field it is compared to, such that the comparison can
+    * be done with the field value's compareTo method. Numeric literals are only converted if the
+    * conversion is exact.
+    */
+  private def coerceLiteral(
+      value: Any,
+      literalType: TypeInformation[_],
+      fieldType: TypeInformation[_]): Option[Comparable[AnyRef]] = {
+
+    if (literalType == fieldType) {
+      value match {
+        case c: Comparable[_] => Some(c.asInstanceOf[Comparable[AnyRef]])
+        case _ => None
+      }
+    } else if (literalType.isInstanceOf[BasicTypeInfo[_]] &&
+        classOf[Number].isAssignableFrom(literalType.getTypeClass)) {
+
+      val decimal = new java.math.BigDecimal(value.toString)
+      val converted: Option[AnyRef] = try {
+        fieldType match {
+          case BasicTypeInfo.BYTE_TYPE_INFO => Some(Byte.box(decimal.byteValueExact()))
+          case BasicTypeInfo.SHORT_TYPE_INFO => Some(Short.box(decimal.shortValueExact()))
+          case BasicTypeInfo.INT_TYPE_INFO => Some(Int.box(decimal.intValueExact()))
+          case BasicTypeInfo.LONG_TYPE_INFO => Some(Long.box(decimal.longValueExact()))
+          case BasicTypeInfo.FLOAT_TYPE_INFO
+              if new java.math.BigDecimal(decimal.floatValue().toString).compareTo(decimal) == 0 =>
+            Some(Float.box(decimal.floatValue()))
+          case BasicTypeInfo.DOUBLE_TYPE_INFO
+              if java.math.BigDecimal.valueOf(decimal.doubleValue()).compareTo(decimal) == 0 =>
+            Some(Double.box(decimal.doubleValue()))
+          case BasicTypeInfo.BIG_DEC_TYPE_INFO => Some(decimal)
+          case _ => None
+        }
+      } catch {
+        // the literal does not fit into the field's type
+        case _: ArithmeticException => None
+      }
+      converted.map(_.asInstanceOf[Comparable[AnyRef]])
+    } else {
+      None
+    }
+  }
+}
+
+private[flink] case class ComparisonPredicate(
+    field: Int,
+    fieldType: TypeInformation[_],
+    operator: String,
+    literal: Comparable[AnyRef])
+  extends CsvFieldPredicate {
+
+  override def eval(fields: Array[AnyRef]): Boolean = {
+    val value = fields(field)
+    if (value == null) {
+      false
+    } else {
+      val cmp = value.asInstanceOf[Comparable[AnyRef]].compareTo(literal)
+      operator match {
+        case "=" => cmp == 0
+        case "<>" => cmp != 0
+        case ">" => cmp > 0
+        case ">=" => cmp >= 0
+        case "<" => cmp < 0
+        case "<=" => cmp <= 0
+      }
+    }
+  }
+
+  override def fields: Seq[(Int, TypeInformation[_])] = Seq((field, fieldType))
+
+  override def remap(mapping: Int => Int): CsvFieldPredicate =
+    ComparisonPredicate(mapping(field), fieldType, operator, literal)
+}
+
+private[flink] case class IsNullPredicate(field: Int, fieldType: TypeInformation[_])
+  extends CsvFieldPredicate {
+
+  override def eval(fields: Array[AnyRef]): Boolean = fields(field) == null
+
+  override def fields: Seq[(Int, TypeInformation[_])] = Seq((field, fieldType))
+
+  override def remap(mapping: Int => Int): CsvFieldPredicate =
+    IsNullPredicate(mapping(field), fieldType)
+}
+
+private[flink] case class IsNotNullPredicate(field: Int, fieldType: TypeInformation[_])
+  extends CsvFieldPredicate {
+
+  override def eval(fields: Array[AnyRef]): Boolean = fields(field) != null
+
+  override def fields: Seq[(Int, TypeInformation[_])] = Seq((field, fieldType))
+
+  override def remap(mapping: Int => Int): CsvFieldPredicate =
+    IsNotNullPredicate(mapping(field), fieldType)
+}
+
+private[flink] case class AndPredicate(left: CsvFieldPredicate, right: CsvFieldPredicate)
+  extends CsvFieldPredicate {
+
+  override def eval(fields: Array[AnyRef]): Boolean = left.eval(fields) && right.eval(fields)
+
+  override def fields: Seq[(Int, TypeInformation[_])] = left.fields ++ right.fields
+
+  override def remap(mapping: Int => Int): CsvFieldPredicate =
+    AndPredicate(left.remap(mapping), right.remap(mapping))
+}
+
+private[flink] case class OrPredicate(left: CsvFieldPredicate, right: CsvFieldPredicate)
+  extends CsvFieldPredicate {
+
+  override def eval(fields: Array[AnyRef]): Boolean = left.eval(fields) || right.eval(fields)
+
+  override def fields: Seq[(Int, TypeInformation[_])] = left.fields ++ right.fields
+
+  override def remap(mapping: Int => Int): CsvFieldPredicate =
+    OrPredicate(left.remap(mapping), right.remap(mapping))
+}
@@ -18,6 +18,8 @@
 
 package org.apache.flink.table.sources
 
+import java.util.{List => JList}
+
 import org.apache.flink.api.common.typeinfo.TypeInformation
 import org.apache.flink.api.java.io.CsvInputFormat
 import org.apache.flink.api.java.{DataSet, ExecutionEnvironment}
@@ -28,6 +30,7 @@ import org.apache.flink.core.fs.Path
 import org.apache.flink.streaming.api.datastream.DataStream
 import org.apache.flink.streaming.api.environment.StreamExecutionEnvironment
 import org.apache.flink.table.api.TableException
+import org.apache.flink.table.expressions.Expression
 
 import scala.collection.mutable
 
@@ -35,6 +38,9 @@ import scala.collection.mutable
   * A [[BatchTableSource]] and [[StreamTableSource]] for simple CSV files with a
   * (logically) unlimited number of fields.
   *
+  * The source supports projection and filter push-down. Pushed-down predicates are evaluated on
+  * the parsed fields, before a [[Row]] is built for a record.
+  *
   * @param path The path to the CSV file.
   * @param fieldNames The names of the table fields.
   * @param fieldTypes The types of the table fields.
@@ -57,7 +63,8 @@ class CsvTableSource(
     private val lenient: Boolean = false)
   extends BatchTableSource[Row]
   with StreamTableSource[Row]
-  with ProjectableTableSource[Row] {
+  with ProjectableTableSource[Row]
+  with FilterableTableSource[Row] {
 
   /**
     * A [[BatchTableSource]] and [[StreamTableSource]] for simple CSV files with a
@@ -79,6 +86,14 @@ class CsvTableSource(
 
   private var selectedFields: Array[Int] = fieldTypes.indices.toArray
 
+  /** The pushed-down predicates, which access the fields by their index in the CSV file. */
+  private var predicates: Seq[CsvFieldPredicate] = Seq()
+
+  /** The pushed-down predicates as they are shown in plans. */
+  private var predicatesDescription: Seq[String] = Seq()
+
+  private var filterPushedDown: Boolean = false
+
   /**
     * Returns the data of the table as a [[DataSet]] of [[Row]].
     *
@@ -108,6 +123,49 @@ class CsvTableSource(
     val newFieldNames: Array[String] = fields.map(fieldNames(_))
     val newFieldTypes: Array[TypeInformation[_]] = fields.map(fieldTypes(_))
 
+    val source = copy(newFieldNames, newFieldTypes)
+    source.selectedFields = fields.map(selectedFields(_))
+    source
+  }
+
+  /**
+    * Returns a copy of [[TableSource]] which evaluates the supported predicates. Supported are
+    * comparisons of fields with literals, null checks, and conjunctions and disjunctions of these.
+    */
+  override def applyPredicate(predicates: JList[Expression]): TableSource[Row] = {
+    val source = copy(fieldNames, fieldTypes)
+    source.selectedFields = selectedFields
+
+    val iterator = predicates.iterator()
+    while (iterator.hasNext) {
+      val expression = iterator.next()
+      CsvFieldPredicate.fromExpression(expression, resolveField) match {
+        case Some(predicate) =>
+          source.predicates :+= predicate
+          source.predicatesDescription :+= expression.toString
+          iterator.remove()
+        case None =>
+      }
+    }
+
+    source.filterPushedDown = true
+    source
+  }
+
+  override def isFilterPushedDown: Boolean = filterPushedDown
+
+  override def explainPredicates: String = predicatesDescription.mkString(" && ")
+
+  /** Resolves a field name to the index of the field in the CSV file and its type. */
+  private def resolveField(name: String): Option[(Int, TypeInformation[_])] = {
+    val index = fieldNames.indexOf(name)
+    if (index < 0) None else Some((selectedFields(index), fieldTypes(index)))
+  }
+
+  private def copy(
+      newFieldNames: Array[String],
+      newFieldTypes: Array[TypeInformation[_]]): CsvTableSource = {
+
     val source = new CsvTableSource(path,
       newFieldNames,
       newFieldTypes,
@@ -117,17 +175,42 @@ class CsvTableSource(
       ignoreFirstLine,
       ignoreComments,
       lenient)
-    source.selectedFields = fields
+    source.predicates = predicates
+    source.predicatesDescription = predicatesDescription
+    source.filterPushedDown = filterPushedDown
     source
   }
 
   private def createCsvInput(): RowCsvInputFormat = {
-    val inputFormat = new RowCsvInputFormat(
-      new Path(path),
-      fieldTypes,
-      rowDelim,
-      fieldDelim,
-      selectedFields)
+    val inputFormat = if (predicates.isEmpty) {
+      new RowCsvInputFormat(
+        new Path(path),
+        fieldTypes,
+        rowDelim,
+        fieldDelim,
+        selectedFields)
+    } else {
+      // the fields which are only accessed by the predicates are parsed after the returned fields
+      val predicateFields = predicates
+        .flatMap(_.fields)
+        .filterNot(f => selectedFields.contains(f._1))
+        .groupBy(_._1).map(_._2.head).toSeq
+      val parsedFields = selectedFields ++ predicateFields.map(_._1)
+      val parsedTypes = fieldTypes ++ predicateFields.map(_._2)
+
+      val predicate = predicates
+        .map(p => p.remap(field => parsedFields.indexOf(field)))
+        .reduceLeft[CsvFieldPredicate](AndPredicate(_, _))
+
+      new FilteringRowCsvInputFormat(
+        new Path(path),
+        parsedTypes,
+        rowDelim,
+        fieldDelim,
+        parsedFields,
+        selectedFields.length,
+        predicate)
+    }
 
     inputFormat.setSkipFirstLineAsHeader(ignoreFirstLine)
     inputFormat.setLenient(lenient)
@@ -149,7 +232,9 @@ class CsvTableSource(
         quoteCharacter == that.quoteCharacter &&
         ignoreFirstLine == that.ignoreFirstLine &&
         ignoreComments == that.ignoreComments &&
-        lenient == that.lenient
+        lenient == that.lenient &&
+        predicates == that.predicates &&
+        filterPushedDown == that.filterPushedDown
     case _ => false
   }
 
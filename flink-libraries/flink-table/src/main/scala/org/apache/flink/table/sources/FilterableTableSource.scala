@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.sources
+
+import java.util.{List => JList}
+
+import org.apache.flink.table.expressions.Expression
+
+/**
+  * Adds support for filter push-down to a [[TableSource]].
+  * A [[TableSource]] extending this interface is able to filter records before returning them.
+  *
+  * @tparam T The return type of the [[FilterableTableSource]].
+  */
+trait FilterableTableSource[T] {
+
+  /**
+    * Creates a copy of the [[FilterableTableSource]] that filters its output with the given
+    * predicates.
+    *
+    * The predicates are a conjunction. The source must remove all predicates from the list which
+    * it evaluates completely. The remaining predicates are evaluated after the scan. Predicates
+    * may also be evaluated partially by the source, if they remain in the list.
+    *
+    * The predicates reference the fields of the source by
+    * [[org.apache.flink.table.expressions.ResolvedFieldReference]]s with the
+    * field names of the source.
+    *
+    * @param predicates A mutable list of conjunctive predicates.
+    * @return A copy of the [[FilterableTableSource]] that filters its output.
+    */
+  def applyPredicate(predicates: JList[Expression]): TableSource[T]
+
+  /**
+    * Returns whether predicates have been pushed into this [[FilterableTableSource]], even if it
+    * did not accept any of them. Predicates are only pushed once into a source.
+    */
+  def isFilterPushedDown: Boolean
+
+  /**
+    * Returns a description of the predicates that are evaluated by the source, which is shown in
+    * plans. Returns an empty string if the source does not evaluate any predicates.
+    */
+  def explainPredicates: String
+
+}
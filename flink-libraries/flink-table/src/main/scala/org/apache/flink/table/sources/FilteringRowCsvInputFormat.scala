@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.table.sources
+
+import org.apache.flink.api.common.typeinfo.TypeInformation
+import org.apache.flink.api.java.io.RowCsvInputFormat
+import org.apache.flink.api.java.typeutils.RowTypeInfo
+import org.apache.flink.core.fs.Path
+import org.apache.flink.types.Row
+
+/**
+  * A [[RowCsvInputFormat]] which evaluates a predicate on the parsed fields of each record and
+  * skips the record before a [[Row]] is filled, if the predicate is not true.
+  *
+  * The fields which are only accessed by the predicate are parsed after the returned fields and
+  * are not part of the returned rows.
+  *
+  * @param filePath The path of the CSV file.
+  * @param fieldTypes The types of the parsed fields, the returned fields first.
+  * @param lineDelimiter The line delimiter.
+  * @param fieldDelimiter The field delimiter.
+  * @param selectedFields The indexes of the parsed fields in the CSV file.
+  * @param numReturnedFields The number of returned fields.
+  * @param predicate The predicate, which accesses the parsed fields by their position.
+  */
+private[flink] class FilteringRowCsvInputFormat(
+    filePath: Path,
+    fieldTypes: Array[TypeInformation[_]],
+    lineDelimiter: String,
+    fieldDelimiter: String,
+    selectedFields: Array[Int],
+    numReturnedFields: Int,
+    predicate: CsvFieldPredicate)
+  extends RowCsvInputFormat(filePath, fieldTypes, lineDelimiter, fieldDelimiter, selectedFields) {
+
+  override protected def fillRecord(reuse: Row, parsedValues: Array[AnyRef]): Row = {
+    if (!predicate.eval(parsedValues)) {
+      // the CsvInputFormat continues with the next record
+      return null
+    }
+
+    val row = if (reuse == null) new Row(numReturnedFields) else reuse
+    var i = 0
+    while (i < numReturnedFields) {
+      row.setField(i, parsedValues(i))
+      i += 1
+    }
+    row
+  }
+
+  override def getProducedType: TypeInformation[Row] =
+    new RowTypeInfo(fieldTypes.take(numReturnedFields): _*)
+}
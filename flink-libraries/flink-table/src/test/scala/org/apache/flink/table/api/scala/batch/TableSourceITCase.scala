@@ -84,6 +84,27 @@ class TableSourceITCase(
     TestBaseUtils.compareResultAsText(results.asJava, expected)
   }
 
+  @Test
+  def testCsvTableSourceWithFilter(): Unit = {
+    val csvTable = CommonTestData.getCsvTableSource
+
+    val env = ExecutionEnvironment.getExecutionEnvironment
+    val tEnv = TableEnvironment.getTableEnvironment(env, config)
+
+    tEnv.registerTableSource("csvTable", csvTable)
+
+    // the filter on score is evaluated by the source, but score is not returned
+    val results = tEnv.sql(
+      "SELECT last, id FROM csvTable WHERE (score < 20 OR id = 2) AND MOD(id, 2) = 0").collect()
+
+    val expected = Seq(
+      "Taylor,2",
+      "Smith,4",
+      "Miller,6",
+      "Williams,8").mkString("\n")
+    TestBaseUtils.compareResultAsText(results.asJava, expected)
+  }
+
   @Test
   def testNestedBatchTableSourceSQL(): Unit = {
     val env = ExecutionEnvironment.getExecutionEnvironment
@@ -20,6 +20,8 @@ package org.apache.flink.table.api.scala.batch
 
 import org.apache.flink.table.api.Types
 import org.apache.flink.table.api.scala._
+import org.apache.flink.table.expressions.{EqualTo, Expression, GreaterThan, LessThan, Literal,
+  ResolvedFieldReference}
 import org.apache.flink.table.sources.CsvTableSource
 import org.apache.flink.table.utils.{CommonTestData, TableTestBase}
 import org.apache.flink.table.utils.TableTestUtil._
@@ -140,6 +142,105 @@ class TableSourceTest extends TableTestBase {
     util.verifyTable(result, expected)
   }
 
+  @Test
+  def testBatchFilterableSourceScanPlanTableApi(): Unit = {
+    val (csvTable, tableName) = tableSource
+    val util = batchTestUtil()
+    val tEnv = util.tEnv
+
+    tEnv.registerTableSource(tableName, csvTable)
+
+    val result = tEnv
+      .scan(tableName)
+      .select('id, 'last)
+      .where('id > 2 && 'id % 2 === 0)
+
+    val expected = unaryNode(
+      "DataSetCalc",
+      sourceBatchTableNode(tableName, Array("id", "last"), "'id > 2"),
+      term("select", "id", "last"),
+      term("where", "=(MOD(id, 2), 0)")
+    )
+
+    util.verifyTable(result, expected)
+  }
+
+  @Test
+  def testBatchFilterableSourceScanNoCalc(): Unit = {
+    val (csvTable, tableName) = tableSource
+    val util = batchTestUtil()
+    val tEnv = util.tEnv
+
+    tEnv.registerTableSource(tableName, csvTable)
+
+    val result = tEnv
+      .scan(tableName)
+      .where('id > 2 && 'last === "Smith")
+      .select('last)
+
+    val expected = sourceBatchTableNode(tableName, Array("last"), "'id > 2 && 'last === Smith")
+    util.verifyTable(result, expected)
+  }
+
+  @Test
+  def testStreamFilterableSourceScanPlanSQL(): Unit = {
+    val (csvTable, tableName) = tableSource
+    val util = streamTestUtil()
+
+    util.tEnv.registerTableSource(tableName, csvTable)
+
+    val sqlQuery = s"SELECT id, last FROM $tableName WHERE id > 2 AND MOD(id, 2) = 0"
+
+    val expected = unaryNode(
+      "DataStreamCalc",
+      sourceStreamTableNode(tableName, Array("id", "last"), "'id > 2"),
+      term("select", "id", "last"),
+      term("where", "=(MOD(id, 2), 0)")
+    )
+
+    util.verifySql(sqlQuery, expected)
+  }
+
+  @Test
+  def testStreamFilterableSourceScanNoCalc(): Unit = {
+    val (csvTable, tableName) = tableSource
+    val util = streamTestUtil()
+    val tEnv = util.tEnv
+
+    tEnv.registerTableSource(tableName, csvTable)
+
+    val result = tEnv
+      .scan(tableName)
+      .where('id > 2 && 'last === "Smith")
+      .select('last)
+
+    // the scan that evaluates all predicates is cheaper than the calc on top of the plain scan
+    val expected = sourceStreamTableNode(tableName, Array("last"), "'id > 2 && 'last === Smith")
+    util.verifyTable(result, expected)
+  }
+
+  @Test
+  def testCsvTableSourceApplyPredicate(): Unit = {
+    val csvTable = CommonTestData.getCsvTableSource
+    val predicates = new java.util.ArrayList[Expression]()
+    // supported
+    predicates.add(GreaterThan(ResolvedFieldReference("score", Types.DOUBLE), Literal(20)))
+    // not supported, no literal
+    predicates.add(EqualTo(
+      ResolvedFieldReference("first", Types.STRING),
+      ResolvedFieldReference("last", Types.STRING)))
+    // not supported, the literal does not fit into the field's type
+    predicates.add(LessThan(ResolvedFieldReference("id", Types.INT), Literal(2.5)))
+
+    val filteredTable = csvTable.applyPredicate(predicates).asInstanceOf[CsvTableSource]
+
+    Assert.assertEquals(2, predicates.size())
+    Assert.assertTrue(filteredTable.isFilterPushedDown)
+    Assert.assertEquals("'score > 20", filteredTable.explainPredicates)
+    Assert.assertFalse(csvTable.isFilterPushedDown)
+    Assert.assertNotEquals(csvTable, filteredTable)
+  }
+
   @Test
   def testCsvTableSourceBuilder(): Unit = {
     val source1 = CsvTableSource.builder()
@@ -203,7 +304,17 @@ class TableSourceTest extends TableTestBase {
     s"BatchTableSourceScan(table=[[$sourceName]], fields=[${fields.mkString(", ")}])"
   }
 
+  def sourceBatchTableNode(sourceName: String, fields: Array[String], filter: String): String = {
+    s"BatchTableSourceScan(table=[[$sourceName]], fields=[${fields.mkString(", ")}], " +
+      s"filter=[$filter])"
+  }
+
   def sourceStreamTableNode(sourceName: String, fields: Array[String] ): String = {
     s"StreamTableSourceScan(table=[[$sourceName]], fields=[${fields.mkString(", ")}])"
   }
+
+  def sourceStreamTableNode(sourceName: String, fields: Array[String], filter: String): String = {
+    s"StreamTableSourceScan(table=[[$sourceName]], fields=[${fields.mkString(", ")}], " +
+      s"filter=[$filter])"
+  }
 }
@@ -54,6 +54,8 @@ public abstract class CostEstimator {
 	
 	public abstract void addCachedHybridHashCosts(EstimateProvider buildSide, EstimateProvider probeSide, Costs costs, int costWeight);
 
+	public abstract void addHashReduceCosts(EstimateProvider input, Costs costs, int costWeight);
+
 	public abstract void addStreamedNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long bufferSize, Costs costs, int costWeight);
 
 	public abstract void addBlockNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long blockSize, Costs costs, int costWeight);
@@ -185,6 +187,7 @@ public abstract class CostEstimator {
 			// grouping or co-grouping over sorted streams for free
 			
 		case SORTED_GROUP_COMBINE:
+		case HASHED_GROUP_COMBINE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
 
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
@@ -212,6 +215,9 @@ public abstract class CostEstimator {
 		case FULL_OUTER_HYBRIDHASH_BUILD_SECOND:
 			addHybridHashCosts(secondInput, firstInput, driverCosts, costWeight);
 			break;
+		case HASHED_REDUCE:
+			addHashReduceCosts(firstInput, driverCosts, costWeight);
+			break;
 		case HYBRIDHASH_BUILD_FIRST_CACHED:
 			addCachedHybridHashCosts(firstInput, secondInput, driverCosts, costWeight);
 			break;
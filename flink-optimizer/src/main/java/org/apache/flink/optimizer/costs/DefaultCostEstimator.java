@@ -175,6 +175,28 @@ public class DefaultCostEstimator extends CostEstimator {
 		costs.multiplyWith(costWeight);
 	}
 	
+	/**
+	 * Calculates the costs for the hash-based reduce. In the worst case, all data is spilled once, like
+	 * in a sort, but hashing is cheaper than sorting.
+	 */
+	@Override
+	public void addHashReduceCosts(EstimateProvider input, Costs costs, int costWeight) {
+		final long s = input.getEstimatedOutputSize();
+
+		if (s > 0) {
+			costs.addDiskCost(2 * s);
+			costs.addCpuCost((long) (s * HASHING_CPU_FACTOR));
+		} else {
+			costs.setDiskCost(Costs.UNKNOWN);
+			costs.setCpuCost(Costs.UNKNOWN);
+		}
+		costs.addHeuristicDiskCost(2 * HEURISTIC_COST_BASE);
+		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
+
+		// cost weight applies to everything
+		costs.multiplyWith(costWeight);
+	}
+
 	/**
 	 * Calculates the costs for the cached variant of the hybrid hash join.
 	 * We are assuming by default that half of the cached hash table fit into memory.
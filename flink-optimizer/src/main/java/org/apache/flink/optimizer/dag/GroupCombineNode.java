@@ -28,6 +28,7 @@ import org.apache.flink.optimizer.DataStatistics;
 import org.apache.flink.optimizer.operators.AllGroupCombineProperties;
 import org.apache.flink.optimizer.operators.GroupCombineProperties;
 import org.apache.flink.optimizer.operators.OperatorDescriptorSingle;
+import org.apache.flink.runtime.operators.DriverStrategy;
 
 import java.util.Collections;
 import java.util.List;
@@ -63,9 +64,23 @@ public class GroupCombineNode extends SingleInputNode {
 			groupOrder = null;
 		}
 
+		DriverStrategy combinerStrategy;
+		switch (getOperator().getCombineHint()) {
+			case OPTIMIZER_CHOOSES:
+			case SORT:
+				combinerStrategy = DriverStrategy.SORTED_GROUP_COMBINE;
+				break;
+			case HASH:
+				// the hash table cannot sort the elements of a group
+				combinerStrategy = groupOrder == null ? DriverStrategy.HASHED_GROUP_COMBINE : DriverStrategy.SORTED_GROUP_COMBINE;
+				break;
+			default:
+				throw new RuntimeException("Unknown CombineHint");
+		}
+
 		OperatorDescriptorSingle props = (this.keys == null ?
 				new AllGroupCombineProperties() :
-				new GroupCombineProperties(this.keys, groupOrder));
+				new GroupCombineProperties(this.keys, groupOrder, combinerStrategy));
 
 		return Collections.singletonList(props);
 	}
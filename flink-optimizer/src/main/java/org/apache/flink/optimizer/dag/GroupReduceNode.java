@@ -36,6 +36,7 @@ import org.apache.flink.optimizer.operators.GroupReduceWithCombineProperties;
 import org.apache.flink.optimizer.operators.OperatorDescriptorSingle;
 import org.apache.flink.api.common.operators.util.FieldSet;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.operators.DriverStrategy;
 
 /**
  * The optimizer representation of a <i>GroupReduce</i> operation.
@@ -104,8 +105,22 @@ public class GroupReduceNode extends SingleInputNode {
 			}
 		}
 		
+		DriverStrategy combinerStrategy;
+		switch (getOperator().getCombineHint()) {
+			case OPTIMIZER_CHOOSES:
+			case SORT:
+				combinerStrategy = DriverStrategy.SORTED_GROUP_COMBINE;
+				break;
+			case HASH:
+				// the hash table cannot sort the elements of a group
+				combinerStrategy = groupOrder == null ? DriverStrategy.HASHED_GROUP_COMBINE : DriverStrategy.SORTED_GROUP_COMBINE;
+				break;
+			default:
+				throw new RuntimeException("Unknown CombineHint");
+		}
+
 		OperatorDescriptorSingle props = useCombiner ?
-			(this.keys == null ? new AllGroupWithPartialPreGroupProperties() : new GroupReduceWithCombineProperties(this.keys, groupOrder, customPartitioner)) :
+			(this.keys == null ? new AllGroupWithPartialPreGroupProperties() : new GroupReduceWithCombineProperties(this.keys, groupOrder, customPartitioner, combinerStrategy)) :
 			(this.keys == null ? new AllGroupReduceProperties() : new GroupReduceProperties(this.keys, groupOrder, customPartitioner));
 
 		return Collections.singletonList(props);
@@ -19,12 +19,14 @@
 
 package org.apache.flink.optimizer.dag;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import org.apache.flink.api.common.operators.base.ReduceOperatorBase;
 import org.apache.flink.optimizer.DataStatistics;
 import org.apache.flink.optimizer.operators.AllReduceProperties;
+import org.apache.flink.optimizer.operators.HashReduceProperties;
 import org.apache.flink.optimizer.operators.OperatorDescriptorSingle;
 import org.apache.flink.optimizer.operators.ReduceProperties;
 import org.apache.flink.runtime.operators.DriverStrategy;
@@ -47,10 +49,8 @@ public class ReduceNode extends SingleInputNode {
 			setParallelism(1);
 		}
 
-		OperatorDescriptorSingle props;
-
 		if (this.keys == null) {
-			props = new AllReduceProperties();
+			this.possibleProperties = Collections.<OperatorDescriptorSingle>singletonList(new AllReduceProperties());
 		} else {
 			DriverStrategy combinerStrategy;
 			switch(operator.getCombineHint()) {
@@ -66,10 +66,24 @@ public class ReduceNode extends SingleInputNode {
 				default:
 					throw new RuntimeException("Unknown CombineHint");
 			}
-			props = new ReduceProperties(this.keys, operator.getCustomPartitioner(), combinerStrategy);
+			OperatorDescriptorSingle sortProps =
+					new ReduceProperties(this.keys, operator.getCustomPartitioner(), combinerStrategy);
+
+			switch(operator.getReduceHint()) {
+				case OPTIMIZER_CHOOSES:
+				case SORT:
+					this.possibleProperties = Collections.singletonList(sortProps);
+					break;
+				case HASH:
+					// the sorted reduce remains an alternative, for inputs that are grouped already
+					OperatorDescriptorSingle hashProps =
+							new HashReduceProperties(this.keys, operator.getCustomPartitioner(), combinerStrategy);
+					this.possibleProperties = Arrays.asList(hashProps, sortProps);
+					break;
+				default:
+					throw new RuntimeException("Unknown ReduceHint");
+			}
 		}
-		
-		this.possibleProperties = Collections.singletonList(props);
 	}
 	
 	public ReduceNode(ReduceNode reducerToCopyForCombiner) {
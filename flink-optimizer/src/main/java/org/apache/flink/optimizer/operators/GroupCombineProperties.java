@@ -36,16 +36,30 @@ import java.util.List;
 
 /**
  * The properties file belonging to the GroupCombineNode. It translates the GroupCombine operation
- * to the driver strategy SORTED_GROUP_COMBINE and sets the relevant grouping and sorting keys.
+ * to the driver strategy SORTED_GROUP_COMBINE or HASHED_GROUP_COMBINE and sets the relevant grouping and sorting keys.
  * @see org.apache.flink.optimizer.dag.GroupCombineNode
  */
 public final class GroupCombineProperties extends OperatorDescriptorSingle {
 
 	private final Ordering ordering;        // ordering that we need to use if an additional ordering is requested 
 
+	private final DriverStrategy strategy;
+
 	public GroupCombineProperties(FieldSet groupKeys, Ordering additionalOrderKeys) {
+		this(groupKeys, additionalOrderKeys, DriverStrategy.SORTED_GROUP_COMBINE);
+	}
+
+	public GroupCombineProperties(FieldSet groupKeys, Ordering additionalOrderKeys, DriverStrategy strategy) {
 		super(groupKeys);
 
+		if (strategy != DriverStrategy.SORTED_GROUP_COMBINE && strategy != DriverStrategy.HASHED_GROUP_COMBINE) {
+			throw new IllegalArgumentException("Invalid strategy for a group combine: " + strategy);
+		}
+		if (strategy == DriverStrategy.HASHED_GROUP_COMBINE && additionalOrderKeys != null) {
+			throw new IllegalArgumentException("The hash-based group combine cannot sort the groups.");
+		}
+		this.strategy = strategy;
+
 		// if we have an additional ordering, construct the ordering to have primarily the grouping fields
 		
 		this.ordering = new Ordering();
@@ -66,7 +80,7 @@ public final class GroupCombineProperties extends OperatorDescriptorSingle {
 
 	@Override
 	public DriverStrategy getStrategy() {
-		return DriverStrategy.SORTED_GROUP_COMBINE;
+		return this.strategy;
 	}
 
 	@Override
@@ -78,7 +92,7 @@ public final class GroupCombineProperties extends OperatorDescriptorSingle {
 				node, 
 				"GroupCombine (" + node.getOperator().getName() + ")",
 				in, // reuse the combine strategy also used in the group reduce
-				DriverStrategy.SORTED_GROUP_COMBINE, this.keyList);
+				this.strategy, this.keyList);
 
 		// set sorting comparator key info
 		singleInputPlanNode.setDriverKeyInfo(this.ordering.getInvolvedIndexes(), this.ordering.getFieldSortDirections(), 0);
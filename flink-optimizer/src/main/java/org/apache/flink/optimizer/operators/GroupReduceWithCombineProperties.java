@@ -49,6 +49,8 @@ public final class GroupReduceWithCombineProperties extends OperatorDescriptorSi
 	private final Ordering ordering;		// ordering that we need to use if an additional ordering is requested 
 	
 	private final Partitioner<?> customPartitioner;
+
+	private final DriverStrategy combinerStrategy;
 	
 	
 	public GroupReduceWithCombineProperties(FieldSet groupKeys) {
@@ -64,7 +66,20 @@ public final class GroupReduceWithCombineProperties extends OperatorDescriptorSi
 	}
 	
 	public GroupReduceWithCombineProperties(FieldSet groupKeys, Ordering additionalOrderKeys, Partitioner<?> customPartitioner) {
+		this(groupKeys, additionalOrderKeys, customPartitioner, DriverStrategy.SORTED_GROUP_COMBINE);
+	}
+
+	public GroupReduceWithCombineProperties(FieldSet groupKeys, Ordering additionalOrderKeys,
+			Partitioner<?> customPartitioner, DriverStrategy combinerStrategy) {
 		super(groupKeys);
+
+		if (combinerStrategy != DriverStrategy.SORTED_GROUP_COMBINE && combinerStrategy != DriverStrategy.HASHED_GROUP_COMBINE) {
+			throw new IllegalArgumentException("Invalid combiner strategy for a group reduce: " + combinerStrategy);
+		}
+		if (combinerStrategy == DriverStrategy.HASHED_GROUP_COMBINE && additionalOrderKeys != null) {
+			throw new IllegalArgumentException("The hash-based combiner cannot sort the groups.");
+		}
+		this.combinerStrategy = combinerStrategy;
 		
 		// if we have an additional ordering, construct the ordering to have primarily the grouping fields
 		if (additionalOrderKeys != null) {
@@ -117,7 +132,7 @@ public final class GroupReduceWithCombineProperties extends OperatorDescriptorSi
 			combinerNode.setParallelism(in.getSource().getParallelism());
 
 			SingleInputPlanNode combiner = new SingleInputPlanNode(combinerNode, "Combine("+node.getOperator()
-					.getName()+")", toCombiner, DriverStrategy.SORTED_GROUP_COMBINE);
+					.getName()+")", toCombiner, this.combinerStrategy);
 			combiner.setCosts(new Costs(0, 0));
 			combiner.initProperties(toCombiner.getGlobalProperties(), toCombiner.getLocalProperties());
 			// set sorting comparator key info
@@ -259,7 +259,8 @@ public class PlanJSONDumpGenerator {
 		
 		String name = n.getOperatorName();
 		if (name.equals("Reduce") && (node instanceof SingleInputPlanNode) && 
-				((SingleInputPlanNode) node).getDriverStrategy() == DriverStrategy.SORTED_GROUP_COMBINE) {
+				(((SingleInputPlanNode) node).getDriverStrategy() == DriverStrategy.SORTED_GROUP_COMBINE ||
+					((SingleInputPlanNode) node).getDriverStrategy() == DriverStrategy.HASHED_GROUP_COMBINE)) {
 			name = "Combine";
 		}
 		
@@ -449,6 +450,10 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Combine/Reduce";
 				break;
 
+			case HASHED_REDUCE:
+				locString = "Hash Reduce";
+				break;
+
 			case SORTED_GROUP_REDUCE:
 				locString = "Sorted Group Reduce";
 				break;
@@ -457,6 +462,10 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Combine";
 				break;
 
+			case HASHED_GROUP_COMBINE:
+				locString = "Hash Combine";
+				break;
+
 			case HYBRIDHASH_BUILD_FIRST:
 				locString = "Hybrid Hash (build: " + child1name + ")";
 				break;
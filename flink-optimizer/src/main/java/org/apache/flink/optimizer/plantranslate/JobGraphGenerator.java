@@ -28,6 +28,7 @@ import org.apache.flink.api.common.aggregators.LongSumAggregator;
 import org.apache.flink.api.common.cache.DistributedCache;
 import org.apache.flink.api.common.cache.DistributedCache.DistributedCacheEntry;
 import org.apache.flink.api.common.distributions.DataDistribution;
+import org.apache.flink.api.common.operators.util.FieldList;
 import org.apache.flink.api.common.operators.util.UserCodeWrapper;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.configuration.GlobalConfiguration;
@@ -726,6 +727,11 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 			}
 			DistributionPattern pattern = connectJobVertices(
 				inConn, inputIndex, sourceVertex, sourceVertexConfig, targetVertex, targetVertexConfig, isBroadcast);
+
+			if (acceptsRuntimeFilter(input, inConn, inputIndex, isBroadcast)) {
+				sourceVertexConfig.setOutputRuntimeFilter(true, sourceVertexConfig.getNumOutputs() - 1);
+				targetVertexConfig.setProbeSideRuntimeFilter(true);
+			}
 			
 			// accounting on channels and senders
 			numChannelsTotal++;
@@ -756,6 +762,38 @@ public class JobGraphGenerator implements Visitor<PlanNode> {
 		return 1;
 	}
 	
+	/**
+	 * Checks whether the producer of the given channel can drop the records that the runtime filter
+	 * of a hash join rejects, which the join consumes as its probe side. The filter holds the hash
+	 * codes of the build side keys, so the producer must hash-partition the records on exactly the
+	 * join keys. Joins in iterations build a new table in every superstep, so they ship no filters.
+	 *
+	 * @param input The channel into the join.
+	 * @param inConn The channel from the producer, which differs from the input if it is a union.
+	 */
+	private boolean acceptsRuntimeFilter(Channel input, Channel inConn, int inputIndex, boolean isBroadcast) {
+		if (isBroadcast || this.currentIteration != null || inConn.getSource() instanceof IterationPlanNode ||
+				inConn.getShipStrategy() != ShipStrategyType.PARTITION_HASH) {
+			return false;
+		}
+
+		final PlanNode target = input.getTarget();
+		if (!(target instanceof DualInputPlanNode)) {
+			return false;
+		}
+
+		final DualInputPlanNode join = (DualInputPlanNode) target;
+		final FieldList probeSideKeys;
+		if (join.getDriverStrategy() == DriverStrategy.HYBRIDHASH_BUILD_FIRST && inputIndex == 1) {
+			probeSideKeys = join.getKeysForInput2();
+		} else if (join.getDriverStrategy() == DriverStrategy.HYBRIDHASH_BUILD_SECOND && inputIndex == 0) {
+			probeSideKeys = join.getKeysForInput1();
+		} else {
+			return false;
+		}
+		return probeSideKeys != null && probeSideKeys.equals(inConn.getShipStrategyKeys());
+	}
+
 	private int getNumberOfSendersPerReceiver(DistributionPattern pattern, int numSenders, int numReceivers) {
 		if (pattern == DistributionPattern.ALL_TO_ALL) {
 			return numSenders;
@@ -79,12 +79,18 @@ public class JsonMapper {
 			case SORTED_PARTIAL_REDUCE:
 				return "Sorted Combine/Reduce";
 
+			case HASHED_REDUCE:
+				return "Hash Reduce";
+
 			case SORTED_GROUP_REDUCE:
 				return "Sorted Group Reduce";
 
 			case SORTED_GROUP_COMBINE:
 				return "Sorted Combine";
 
+			case HASHED_GROUP_COMBINE:
+				return "Hash Combine";
+
 			case HYBRIDHASH_BUILD_FIRST:
 				return "Hybrid Hash (build: " + firstInputName + ")";
 				
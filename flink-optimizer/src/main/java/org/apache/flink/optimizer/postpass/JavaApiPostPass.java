@@ -238,12 +238,15 @@ public class JavaApiPostPass implements OptimizerPostPass {
 
 
 		if(javaOp instanceof GroupReduceOperatorBase &&
-				(source.getDriverStrategy() == DriverStrategy.SORTED_GROUP_COMBINE || source.getDriverStrategy() == DriverStrategy.ALL_GROUP_REDUCE_COMBINE)) {
+				(source.getDriverStrategy() == DriverStrategy.SORTED_GROUP_COMBINE ||
+					source.getDriverStrategy() == DriverStrategy.HASHED_GROUP_COMBINE ||
+					source.getDriverStrategy() == DriverStrategy.ALL_GROUP_REDUCE_COMBINE)) {
 			GroupReduceOperatorBase<?, ?, ?> groupNode = (GroupReduceOperatorBase<?, ?, ?>) javaOp;
 			type = groupNode.getInput().getOperatorInfo().getOutputType();
 		}
 		else if(javaOp instanceof PlanUnwrappingReduceGroupOperator &&
-				source.getDriverStrategy().equals(DriverStrategy.SORTED_GROUP_COMBINE)) {
+				(source.getDriverStrategy() == DriverStrategy.SORTED_GROUP_COMBINE ||
+					source.getDriverStrategy() == DriverStrategy.HASHED_GROUP_COMBINE)) {
 			PlanUnwrappingReduceGroupOperator<?, ?, ?> groupNode = (PlanUnwrappingReduceGroupOperator<?, ?, ?>) javaOp;
 			type = groupNode.getInput().getOperatorInfo().getOutputType();
 		}
@@ -44,11 +44,22 @@ public class CheckpointOptions implements Serializable {
 	@Nullable
 	private final String targetLocation;
 
+	/** Flag indicating whether the barriers of the checkpoint overtake the in-flight data. */
+	private final boolean unaligned;
+
 	private CheckpointOptions(
 			@Nonnull CheckpointType checkpointType,
 			@Nullable  String targetLocation) {
+		this(checkpointType, targetLocation, false);
+	}
+
+	private CheckpointOptions(
+			@Nonnull CheckpointType checkpointType,
+			@Nullable  String targetLocation,
+			boolean unaligned) {
 		this.checkpointType = checkNotNull(checkpointType);
 		this.targetLocation = targetLocation;
+		this.unaligned = unaligned;
 	}
 
 	/**
@@ -72,19 +83,36 @@ public class CheckpointOptions implements Serializable {
 		return targetLocation;
 	}
 
+	/**
+	 * Returns whether the checkpoint is unaligned. The barriers of unaligned checkpoints
+	 * overtake the buffers in the input and output queues, and the overtaken buffers are
+	 * persisted as part of the checkpoint instead.
+	 *
+	 * @return <code>true</code> if the checkpoint is unaligned.
+	 */
+	public boolean isUnaligned() {
+		return unaligned;
+	}
+
 	@Override
 	public String toString() {
-		return "CheckpointOptions(" + checkpointType + ")";
+		return "CheckpointOptions(" + checkpointType + (unaligned ? ", unaligned" : "") + ")";
 	}
 
 	// ------------------------------------------------------------------------
 
 	private static final CheckpointOptions FULL_CHECKPOINT = new CheckpointOptions(CheckpointType.FULL_CHECKPOINT, null);
 
+	private static final CheckpointOptions UNALIGNED_CHECKPOINT = new CheckpointOptions(CheckpointType.FULL_CHECKPOINT, null, true);
+
 	public static CheckpointOptions forFullCheckpoint() {
 		return FULL_CHECKPOINT;
 	}
 
+	public static CheckpointOptions forUnalignedCheckpoint() {
+		return UNALIGNED_CHECKPOINT;
+	}
+
 	public static CheckpointOptions forSavepoint(String targetDirectory) {
 		checkNotNull(targetDirectory, "targetDirectory");
 		return new CheckpointOptions(CheckpointType.SAVEPOINT, targetDirectory);
@@ -23,6 +23,7 @@ import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.checkpoint.CompletedCheckpointStats.DiscardCallback;
 import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.util.ExceptionUtils;
@@ -36,6 +37,7 @@ import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * A CompletedCheckpoint describes a checkpoint after all required tasks acknowledged it (with their state)
@@ -107,6 +109,10 @@ public class CompletedCheckpoint implements Serializable {
 	@Nullable
 	private transient volatile DiscardCallback discardCallback;
 
+	/** The registry that owns the shared state of this checkpoint, null if the state was never registered. */
+	@Nullable
+	private transient volatile SharedStateRegistry sharedStateRegistry;
+
 	// ------------------------------------------------------------------------
 
 	@VisibleForTesting
@@ -216,13 +222,27 @@ public class CompletedCheckpoint implements Serializable {
 			// collect exceptions and continue cleanup
 			Exception exception = null;
 
+			// release the shared state first, this hands the ownership of all shared
+			// state over to the registry which discards it once it is not referenced any more
+			final SharedStateRegistry sharedStateRegistry = this.sharedStateRegistry;
+			if (sharedStateRegistry != null) {
+				try {
+					for (TaskState taskState : taskStates.values()) {
+						taskState.unregisterSharedStates(sharedStateRegistry);
+					}
+				}
+				catch (Exception e) {
+					exception = e;
+				}
+			}
+
 			// drop the metadata, if we have some
 			if (externalizedMetadata != null) {
 				try {
 					externalizedMetadata.discardState();
 				}
 				catch (Exception e) {
-					exception = e;
+					exception = ExceptionUtils.firstOrSuppressed(e, exception);
 				}
 			}
 
@@ -267,6 +287,35 @@ public class CompletedCheckpoint implements Serializable {
 		return taskStates.get(jobVertexID);
 	}
 
+	/**
+	 * Registers the shared state of all task states of this checkpoint at the given registry.
+	 * Once registered, the shared state is released from the registry when this checkpoint
+	 * is discarded.
+	 *
+	 * @param sharedStateRegistry The registry where the shared states are registered
+	 */
+	public void registerSharedStates(SharedStateRegistry sharedStateRegistry) {
+		checkNotNull(sharedStateRegistry);
+		checkState(this.sharedStateRegistry == null, "The shared states of %s are already registered.", this);
+
+		for (TaskState taskState : taskStates.values()) {
+			taskState.registerSharedStates(sharedStateRegistry);
+		}
+
+		this.sharedStateRegistry = sharedStateRegistry;
+	}
+
+	/**
+	 * Sets the registry at which the shared state of this checkpoint has already been registered,
+	 * for example through another instance of this checkpoint which was retrieved from the same
+	 * persisted metadata.
+	 *
+	 * @param sharedStateRegistry The registry where the shared states are registered
+	 */
+	void setSharedStateRegistry(@Nullable SharedStateRegistry sharedStateRegistry) {
+		this.sharedStateRegistry = sharedStateRegistry;
+	}
+
 	public boolean isExternalized() {
 		return externalizedMetadata != null;
 	}
@@ -20,6 +20,7 @@ package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobmanager.HighAvailabilityMode;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +43,9 @@ public class StandaloneCompletedCheckpointStore implements CompletedCheckpointSt
 	/** The completed checkpoints. */
 	private final ArrayDeque<CompletedCheckpoint> checkpoints;
 
+	/** The registry for the state that is shared between the completed checkpoints. */
+	private final SharedStateRegistry sharedStateRegistry;
+
 	/**
 	 * Creates {@link StandaloneCompletedCheckpointStore}.
 	 *
@@ -53,6 +57,7 @@ public class StandaloneCompletedCheckpointStore implements CompletedCheckpointSt
 		checkArgument(maxNumberOfCheckpointsToRetain >= 1, "Must retain at least one checkpoint.");
 		this.maxNumberOfCheckpointsToRetain = maxNumberOfCheckpointsToRetain;
 		this.checkpoints = new ArrayDeque<>(maxNumberOfCheckpointsToRetain + 1);
+		this.sharedStateRegistry = new SharedStateRegistry();
 	}
 
 	@Override
@@ -62,6 +67,7 @@ public class StandaloneCompletedCheckpointStore implements CompletedCheckpointSt
 
 	@Override
 	public void addCheckpoint(CompletedCheckpoint checkpoint) throws Exception {
+		checkpoint.registerSharedStates(sharedStateRegistry);
 		checkpoints.add(checkpoint);
 		if (checkpoints.size() > maxNumberOfCheckpointsToRetain) {
 			checkpoints.remove().subsume();
@@ -18,8 +18,13 @@
 
 package org.apache.flink.runtime.checkpoint;
 
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
 import org.apache.flink.runtime.executiongraph.Execution;
+import org.apache.flink.runtime.executiongraph.ExecutionEdge;
 import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
+import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.executiongraph.IntermediateResult;
+import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.state.ChainedStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
@@ -140,6 +145,88 @@ public class StateAssignmentOperation {
 					" has parallelism " + newParallelism + " whereas the corresponding " +
 					"state object has a parallelism of " + oldParallelism);
 		}
+
+		if (taskState.hasChannelState() && (oldParallelism != newParallelism)) {
+			throw new IllegalStateException("Cannot restore the latest checkpoint because " +
+					"the operator " + executionJobVertex.getJobVertexId() + " has in-flight data " +
+					"from an unaligned checkpoint and its parallelism changed. The operator " +
+					executionJobVertex.getJobVertexId() + " has parallelism " + newParallelism +
+					" whereas the corresponding state object has a parallelism of " + oldParallelism);
+		}
+
+		if (taskState.hasChannelState()) {
+			checkChannelStateLayout(taskState, executionJobVertex);
+		}
+	}
+
+	/**
+	 * Checks that the input channels and result subpartitions of each subtask with channel state
+	 * are the same as when the in-flight data was persisted. They change if the parallelism of a
+	 * vertex changed that is connected to the given vertex, in which case the in-flight data
+	 * cannot be assigned to the channels anymore.
+	 */
+	private static void checkChannelStateLayout(TaskState taskState, ExecutionJobVertex executionJobVertex) {
+		final ExecutionVertex[] taskVertices = executionJobVertex.getTaskVertices();
+
+		for (int subtaskIndex = 0; subtaskIndex < taskVertices.length; subtaskIndex++) {
+			SubtaskState subtaskState = taskState.getState(subtaskIndex);
+			if (subtaskState == null || !subtaskState.hasChannelState()) {
+				continue;
+			}
+
+			ChannelStateLayout layout = subtaskState.getChannelStateLayout();
+			if (layout == null) {
+				throw new IllegalStateException("Cannot restore the latest checkpoint because the " +
+						"in-flight data of the operator " + executionJobVertex.getJobVertexId() +
+						" does not describe the channels it was persisted for.");
+			}
+
+			ExecutionVertex vertex = taskVertices[subtaskIndex];
+			List<IntermediateResult> inputs = executionJobVertex.getInputs();
+
+			if (layout.getNumberOfInputGates() != vertex.getNumberOfInputs()) {
+				throw new IllegalStateException("Cannot restore the latest checkpoint because " +
+						"the inputs of the operator " + executionJobVertex.getJobVertexId() +
+						" with in-flight data from an unaligned checkpoint changed.");
+			}
+
+			for (int gateIndex = 0; gateIndex < layout.getNumberOfInputGates(); gateIndex++) {
+				int numInputChannels = vertex.getInputEdges(gateIndex).length;
+
+				if (layout.getNumberOfInputChannels(gateIndex) != numInputChannels) {
+					throw new IllegalStateException("Cannot restore the latest checkpoint because " +
+							"the operator " + executionJobVertex.getJobVertexId() + " has in-flight " +
+							"data from an unaligned checkpoint and the parallelism of its input " +
+							inputs.get(gateIndex).getProducer().getJobVertexId() + " changed. The input " +
+							"now has " + numInputChannels + " channels whereas the in-flight data was " +
+							"persisted for " + layout.getNumberOfInputChannels(gateIndex) + " channels.");
+				}
+			}
+
+			List<IntermediateResultPartition> partitions = new ArrayList<>(vertex.getProducedPartitions().values());
+
+			if (layout.getNumberOfResultPartitions() != partitions.size()) {
+				throw new IllegalStateException("Cannot restore the latest checkpoint because " +
+						"the outputs of the operator " + executionJobVertex.getJobVertexId() +
+						" with in-flight data from an unaligned checkpoint changed.");
+			}
+
+			for (int partitionIndex = 0; partitionIndex < partitions.size(); partitionIndex++) {
+				List<List<ExecutionEdge>> consumers = partitions.get(partitionIndex).getConsumers();
+				boolean hasConsumers = !consumers.isEmpty() && !consumers.get(0).isEmpty();
+				int numSubpartitions = hasConsumers ? consumers.get(0).size() : 1;
+
+				if (layout.getNumberOfSubpartitions(partitionIndex) != numSubpartitions) {
+					throw new IllegalStateException("Cannot restore the latest checkpoint because " +
+							"the operator " + executionJobVertex.getJobVertexId() + " has in-flight " +
+							"data from an unaligned checkpoint and the parallelism of its consumer " +
+							(hasConsumers ? consumers.get(0).get(0).getTarget().getJobvertexId() + " " : "") +
+							"changed. The output " +
+							"now has " + numSubpartitions + " subpartitions whereas the in-flight data was " +
+							"persisted for " + layout.getNumberOfSubpartitions(partitionIndex) + " subpartitions.");
+				}
+			}
+		}
 	}
 
 	private static void assignTaskStatesToOperatorInstances(
@@ -215,12 +302,16 @@ public class StateAssignmentOperation {
 		}
 
 		for (int subTaskIdx = 0; subTaskIdx < newParallelism; ++subTaskIdx) {
-			// non-partitioned state
+			// non-partitioned state and in-flight data of unaligned checkpoints
 			ChainedStateHandle<StreamStateHandle> nonPartitionableState = null;
+			StreamStateHandle inputChannelState = null;
+			StreamStateHandle resultSubpartitionState = null;
 
 			if (oldParallelism == newParallelism) {
 				if (taskState.getState(subTaskIdx) != null) {
 					nonPartitionableState = taskState.getState(subTaskIdx).getLegacyOperatorState();
+					inputChannelState = taskState.getState(subTaskIdx).getInputChannelState();
+					resultSubpartitionState = taskState.getState(subTaskIdx).getResultSubpartitionState();
 				}
 			}
 
@@ -278,7 +369,9 @@ public class StateAssignmentOperation {
 					operatorStateFromBackend,
 					operatorStateFromStream,
 					newKeyedStatesBackend,
-					newKeyedStateStream);
+					newKeyedStateStream,
+					inputChannelState,
+					resultSubpartitionState);
 
 			currentExecutionAttempt.setInitialState(taskStateHandles);
 		}
@@ -18,13 +18,18 @@
 
 package org.apache.flink.runtime.checkpoint;
 
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
 import org.apache.flink.runtime.state.ChainedStateHandle;
+import org.apache.flink.runtime.state.CompositeStateHandle;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateObject;
 import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.runtime.state.StreamStateHandle;
 
+import javax.annotation.Nullable;
+
 import java.util.Arrays;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -33,7 +38,7 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * Container for the chained state of one parallel subtask of an operator/task. This is part of the
  * {@link TaskState}.
  */
-public class SubtaskState implements StateObject {
+public class SubtaskState implements CompositeStateHandle {
 
 	private static final long serialVersionUID = -2394696997971923995L;
 
@@ -63,6 +68,25 @@ public class SubtaskState implements StateObject {
 	 */
 	private final KeyGroupsStateHandle rawKeyedState;
 
+	/**
+	 * In-flight buffers of the input channels, persisted by an unaligned checkpoint.
+	 */
+	@Nullable
+	private final StreamStateHandle inputChannelState;
+
+	/**
+	 * In-flight buffers of the result subpartitions, persisted by an unaligned checkpoint.
+	 */
+	@Nullable
+	private final StreamStateHandle resultSubpartitionState;
+
+	/**
+	 * The layout of the input channels and result subpartitions for which the channel state
+	 * was persisted, null if there is no channel state.
+	 */
+	@Nullable
+	private final ChannelStateLayout channelStateLayout;
+
 	/**
 	 * The state size. This is also part of the deserialized state handle.
 	 * We store it here in order to not deserialize the state handle when
@@ -77,11 +101,27 @@ public class SubtaskState implements StateObject {
 			KeyGroupsStateHandle managedKeyedState,
 			KeyGroupsStateHandle rawKeyedState) {
 
+		this(legacyOperatorState, managedOperatorState, rawOperatorState, managedKeyedState, rawKeyedState, null, null, null);
+	}
+
+	public SubtaskState(
+			ChainedStateHandle<StreamStateHandle> legacyOperatorState,
+			ChainedStateHandle<OperatorStateHandle> managedOperatorState,
+			ChainedStateHandle<OperatorStateHandle> rawOperatorState,
+			KeyGroupsStateHandle managedKeyedState,
+			KeyGroupsStateHandle rawKeyedState,
+			@Nullable StreamStateHandle inputChannelState,
+			@Nullable StreamStateHandle resultSubpartitionState,
+			@Nullable ChannelStateLayout channelStateLayout) {
+
 		this.legacyOperatorState = checkNotNull(legacyOperatorState, "State");
 		this.managedOperatorState = managedOperatorState;
 		this.rawOperatorState = rawOperatorState;
 		this.managedKeyedState = managedKeyedState;
 		this.rawKeyedState = rawKeyedState;
+		this.inputChannelState = inputChannelState;
+		this.resultSubpartitionState = resultSubpartitionState;
+		this.channelStateLayout = channelStateLayout;
 
 		try {
 			long calculateStateSize = getSizeNullSafe(legacyOperatorState);
@@ -89,6 +129,8 @@ public class SubtaskState implements StateObject {
 			calculateStateSize += getSizeNullSafe(rawOperatorState);
 			calculateStateSize += getSizeNullSafe(managedKeyedState);
 			calculateStateSize += getSizeNullSafe(rawKeyedState);
+			calculateStateSize += getSizeNullSafe(inputChannelState);
+			calculateStateSize += getSizeNullSafe(resultSubpartitionState);
 			stateSize = calculateStateSize;
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to get state size.", e);
@@ -122,6 +164,28 @@ public class SubtaskState implements StateObject {
 		return rawKeyedState;
 	}
 
+	@Nullable
+	public StreamStateHandle getInputChannelState() {
+		return inputChannelState;
+	}
+
+	@Nullable
+	public StreamStateHandle getResultSubpartitionState() {
+		return resultSubpartitionState;
+	}
+
+	@Nullable
+	public ChannelStateLayout getChannelStateLayout() {
+		return channelStateLayout;
+	}
+
+	/**
+	 * Returns true if this state contains in-flight data of an unaligned checkpoint.
+	 */
+	public boolean hasChannelState() {
+		return inputChannelState != null || resultSubpartitionState != null;
+	}
+
 	@Override
 	public long getStateSize() {
 		return stateSize;
@@ -135,7 +199,33 @@ public class SubtaskState implements StateObject {
 						managedOperatorState,
 						rawOperatorState,
 						managedKeyedState,
-						rawKeyedState));
+						rawKeyedState,
+						inputChannelState,
+						resultSubpartitionState));
+	}
+
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+		registerSharedStatesNullSafe(managedKeyedState, stateRegistry);
+		registerSharedStatesNullSafe(rawKeyedState, stateRegistry);
+	}
+
+	@Override
+	public void unregisterSharedStates(SharedStateRegistry stateRegistry) {
+		unregisterSharedStatesNullSafe(managedKeyedState, stateRegistry);
+		unregisterSharedStatesNullSafe(rawKeyedState, stateRegistry);
+	}
+
+	private static void registerSharedStatesNullSafe(StateObject stateObject, SharedStateRegistry stateRegistry) {
+		if (stateObject instanceof CompositeStateHandle) {
+			((CompositeStateHandle) stateObject).registerSharedStates(stateRegistry);
+		}
+	}
+
+	private static void unregisterSharedStatesNullSafe(StateObject stateObject, SharedStateRegistry stateRegistry) {
+		if (stateObject instanceof CompositeStateHandle) {
+			((CompositeStateHandle) stateObject).unregisterSharedStates(stateRegistry);
+		}
 	}
 
 	// --------------------------------------------------------------------------------------------
@@ -175,9 +265,24 @@ public class SubtaskState implements StateObject {
 				: that.managedKeyedState != null) {
 			return false;
 		}
-		return rawKeyedState != null ?
-				rawKeyedState.equals(that.rawKeyedState)
-				: that.rawKeyedState == null;
+		if (rawKeyedState != null ?
+				!rawKeyedState.equals(that.rawKeyedState)
+				: that.rawKeyedState != null) {
+			return false;
+		}
+		if (inputChannelState != null ?
+				!inputChannelState.equals(that.inputChannelState)
+				: that.inputChannelState != null) {
+			return false;
+		}
+		if (resultSubpartitionState != null ?
+				!resultSubpartitionState.equals(that.resultSubpartitionState)
+				: that.resultSubpartitionState != null) {
+			return false;
+		}
+		return channelStateLayout != null ?
+				channelStateLayout.equals(that.channelStateLayout)
+				: that.channelStateLayout == null;
 
 	}
 
@@ -188,6 +293,9 @@ public class SubtaskState implements StateObject {
 		result = 31 * result + (rawOperatorState != null ? rawOperatorState.hashCode() : 0);
 		result = 31 * result + (managedKeyedState != null ? managedKeyedState.hashCode() : 0);
 		result = 31 * result + (rawKeyedState != null ? rawKeyedState.hashCode() : 0);
+		result = 31 * result + (inputChannelState != null ? inputChannelState.hashCode() : 0);
+		result = 31 * result + (resultSubpartitionState != null ? resultSubpartitionState.hashCode() : 0);
+		result = 31 * result + (channelStateLayout != null ? channelStateLayout.hashCode() : 0);
 		result = 31 * result + (int) (stateSize ^ (stateSize >>> 32));
 		return result;
 	}
@@ -200,6 +308,9 @@ public class SubtaskState implements StateObject {
 				", operatorStateFromStream=" + rawOperatorState +
 				", keyedStateFromBackend=" + managedKeyedState +
 				", keyedStateHandleFromStream=" + rawKeyedState +
+				", inputChannelState=" + inputChannelState +
+				", resultSubpartitionState=" + resultSubpartitionState +
+				", channelStateLayout=" + channelStateLayout +
 				", stateSize=" + stateSize +
 				'}';
 	}
@@ -19,7 +19,8 @@
 package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.runtime.jobgraph.JobVertexID;
-import org.apache.flink.runtime.state.StateObject;
+import org.apache.flink.runtime.state.CompositeStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.state.StateUtil;
 import org.apache.flink.util.Preconditions;
 
@@ -35,7 +36,7 @@ import java.util.Objects;
  *
  * This class basically groups all non-partitioned state and key-group state belonging to the same job vertex together.
  */
-public class TaskState implements StateObject {
+public class TaskState implements CompositeStateHandle {
 
 	private static final long serialVersionUID = -4845578005863201810L;
 
@@ -122,11 +123,38 @@ public class TaskState implements StateObject {
 		return false;
 	}
 
+	public boolean hasChannelState() {
+		for (SubtaskState sts : subtaskStates.values()) {
+			if (sts != null && sts.hasChannelState()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void discardState() throws Exception {
 		StateUtil.bestEffortDiscardAllStateObjects(subtaskStates.values());
 	}
 
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+		for (SubtaskState subtaskState : subtaskStates.values()) {
+			if (subtaskState != null) {
+				subtaskState.registerSharedStates(stateRegistry);
+			}
+		}
+	}
+
+	@Override
+	public void unregisterSharedStates(SharedStateRegistry stateRegistry) {
+		for (SubtaskState subtaskState : subtaskStates.values()) {
+			if (subtaskState != null) {
+				subtaskState.unregisterSharedStates(stateRegistry);
+			}
+		}
+	}
+
 
 	@Override
 	public long getStateSize() {
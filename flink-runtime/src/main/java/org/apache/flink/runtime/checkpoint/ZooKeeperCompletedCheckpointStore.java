@@ -27,6 +27,7 @@ import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.runtime.jobgraph.JobStatus;
 import org.apache.flink.runtime.jobmanager.HighAvailabilityMode;
 import org.apache.flink.runtime.state.RetrievableStateHandle;
+import org.apache.flink.runtime.state.SharedStateRegistry;
 import org.apache.flink.runtime.zookeeper.RetrievableStateStorageHelper;
 import org.apache.flink.runtime.zookeeper.ZooKeeperStateHandleStore;
 import org.slf4j.Logger;
@@ -81,6 +82,12 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 	/** Local completed checkpoints. */
 	private final ArrayDeque<Tuple2<RetrievableStateHandle<CompletedCheckpoint>, String>> checkpointStateHandles;
 
+	/**
+	 * The registry for the state that is shared between the completed checkpoints. A fresh
+	 * registry is created on every recovery, because recovery starts out with a single checkpoint.
+	 */
+	private volatile SharedStateRegistry sharedStateRegistry;
+
 	/**
 	 * Creates a {@link ZooKeeperCompletedCheckpointStore} instance.
 	 *
@@ -122,6 +129,8 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 		this.checkpointStateHandles = new ArrayDeque<>(maxNumberOfCheckpointsToRetain + 1);
 
+		this.sharedStateRegistry = new SharedStateRegistry();
+
 		LOG.info("Initialized in '{}'.", checkpointsPath);
 	}
 
@@ -146,6 +155,10 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 		// of ZooKeeper.
 		checkpointStateHandles.clear();
 
+		// The shared state references are rebuilt from the recovered checkpoint
+		final SharedStateRegistry recoveredSharedStateRegistry = new SharedStateRegistry();
+		sharedStateRegistry = recoveredSharedStateRegistry;
+
 		// Get all there is first
 		List<Tuple2<RetrievableStateHandle<CompletedCheckpoint>, String>> initialCheckpoints;
 		while (true) {
@@ -180,13 +193,17 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 				" from the state storage.", e);
 			}
 
+			// register the shared state of the latest checkpoint before discarding the
+			// older ones, so that the state which is still in use is not discarded
+			latestCheckpoint.registerSharedStates(recoveredSharedStateRegistry);
+
 			checkpointStateHandles.add(latest);
 
 			LOG.info("Initialized with {}. Removing all older checkpoints.", latestCheckpoint);
 
 			for (int i = 0; i < numberOfInitialCheckpoints - 1; i++) {
 				try {
-					removeSubsumed(initialCheckpoints.get(i));
+					removeSubsumed(initialCheckpoints.get(i), false);
 				}
 				catch (Exception e) {
 					LOG.error("Failed to discard checkpoint", e);
@@ -207,6 +224,8 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 		// First add the new one. If it fails, we don't want to loose existing data.
 		String path = checkpointIdToPath(checkpoint.getCheckpointID());
 
+		checkpoint.registerSharedStates(sharedStateRegistry);
+
 		final RetrievableStateHandle<CompletedCheckpoint> stateHandle =
 				checkpointsInZooKeeper.add(path, checkpoint);
 
@@ -214,7 +233,7 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 		// Everything worked, let's remove a previous checkpoint if necessary.
 		if (checkpointStateHandles.size() > maxNumberOfCheckpointsToRetain) {
-			removeSubsumed(checkpointStateHandles.removeFirst());
+			removeSubsumed(checkpointStateHandles.removeFirst(), true);
 		}
 
 		LOG.debug("Added {} to {}.", checkpoint, path);
@@ -275,11 +294,32 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 
 	// ------------------------------------------------------------------------
 
-	private void removeSubsumed(final Tuple2<RetrievableStateHandle<CompletedCheckpoint>, String> stateHandleAndPath) throws Exception {
+	/**
+	 * Removes a subsumed checkpoint.
+	 *
+	 * @param stateHandleAndPath The checkpoint to remove
+	 * @param sharedStatesRegistered Whether the shared states of the checkpoint are registered
+	 *                               at the current shared state registry
+	 */
+	private void removeSubsumed(
+			final Tuple2<RetrievableStateHandle<CompletedCheckpoint>, String> stateHandleAndPath,
+			final boolean sharedStatesRegistered) throws Exception {
+
+		final SharedStateRegistry registry = sharedStateRegistry;
+
 		Callable<Void> action = new Callable<Void>() {
 			@Override
 			public Void call() throws Exception {
-				stateHandleAndPath.f0.retrieveState().subsume();
+				CompletedCheckpoint checkpoint = stateHandleAndPath.f0.retrieveState();
+
+				// the retrieved instance is a copy of the registered checkpoint
+				if (sharedStatesRegistered) {
+					checkpoint.setSharedStateRegistry(registry);
+				} else {
+					checkpoint.registerSharedStates(registry);
+				}
+
+				checkpoint.subsume();
 				return null;
 			}
 		};
@@ -291,10 +331,13 @@ public class ZooKeeperCompletedCheckpointStore implements CompletedCheckpointSto
 			final Tuple2<RetrievableStateHandle<CompletedCheckpoint>, String> stateHandleAndPath,
 			final JobStatus jobStatus) throws Exception {
 
+		final SharedStateRegistry registry = sharedStateRegistry;
+
 		Callable<Void> action = new Callable<Void>() {
 			@Override
 			public Void call() throws Exception {
 				CompletedCheckpoint checkpoint = stateHandleAndPath.f0.retrieveState();
+				checkpoint.setSharedStateRegistry(registry);
 				checkpoint.discard(jobStatus);
 				return null;
 			}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The data of one in-flight buffer that is part of the channel state of an unaligned checkpoint.
+ *
+ * <p>For input channel state, the index is always <code>0</code> and the channel index is the
+ * index of the input channel across all input gates of the task. For result subpartition state,
+ * the index is the index of the result partition and the channel index the index of the
+ * subpartition.
+ */
+public class ChannelStateEntry {
+
+	private final int index;
+
+	private final int channelIndex;
+
+	private final byte[] data;
+
+	public ChannelStateEntry(int index, int channelIndex, byte[] data) {
+		checkArgument(index >= 0, "Negative index");
+		checkArgument(channelIndex >= 0, "Negative channel index");
+
+		this.index = index;
+		this.channelIndex = channelIndex;
+		this.data = checkNotNull(data);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getChannelIndex() {
+		return channelIndex;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	@Override
+	public String toString() {
+		return "ChannelStateEntry(" + index + ", " + channelIndex + ", " + data.length + " bytes)";
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The number of input channels per input gate and the number of subpartitions per result
+ * partition of a task at the time of an unaligned checkpoint. The channel state of the task is
+ * only valid for the same layout, which changes when the parallelism of a vertex that is
+ * connected to the task changes.
+ */
+public class ChannelStateLayout implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int[] numInputChannels;
+
+	private final int[] numSubpartitions;
+
+	public ChannelStateLayout(int[] numInputChannels, int[] numSubpartitions) {
+		this.numInputChannels = checkNotNull(numInputChannels);
+		this.numSubpartitions = checkNotNull(numSubpartitions);
+	}
+
+	/**
+	 * Returns the current layout of the inputs and outputs of the task with the given environment.
+	 */
+	public static ChannelStateLayout fromEnvironment(Environment environment) {
+		InputGate[] inputGates = environment.getAllInputGates();
+		int[] numInputChannels = new int[inputGates.length];
+		for (int i = 0; i < inputGates.length; i++) {
+			numInputChannels[i] = inputGates[i].getNumberOfInputChannels();
+		}
+
+		ResultPartitionWriter[] writers = environment.getAllWriters();
+		int[] numSubpartitions = new int[writers.length];
+		for (int i = 0; i < writers.length; i++) {
+			numSubpartitions[i] = writers[i].getNumberOfOutputChannels();
+		}
+
+		return new ChannelStateLayout(numInputChannels, numSubpartitions);
+	}
+
+	public int getNumberOfInputGates() {
+		return numInputChannels.length;
+	}
+
+	public int getNumberOfInputChannels(int gateIndex) {
+		return numInputChannels[gateIndex];
+	}
+
+	public int getNumberOfResultPartitions() {
+		return numSubpartitions.length;
+	}
+
+	public int getNumberOfSubpartitions(int partitionIndex) {
+		return numSubpartitions[partitionIndex];
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (o == null || getClass() != o.getClass()) {
+			return false;
+		}
+
+		ChannelStateLayout that = (ChannelStateLayout) o;
+		return Arrays.equals(numInputChannels, that.numInputChannels) &&
+				Arrays.equals(numSubpartitions, that.numSubpartitions);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(numInputChannels) + Arrays.hashCode(numSubpartitions);
+	}
+
+	@Override
+	public String toString() {
+		return "ChannelStateLayout(input channels " + Arrays.toString(numInputChannels) +
+				", subpartitions " + Arrays.toString(numSubpartitions) + ")";
+	}
+}
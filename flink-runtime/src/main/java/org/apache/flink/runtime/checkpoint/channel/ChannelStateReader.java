@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.core.fs.FSDataInputStream;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.runtime.state.StreamStateHandle;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the channel state that a {@link ChannelStateWriter} has written.
+ */
+public final class ChannelStateReader {
+
+	/**
+	 * Reads all entries of the given channel state in the order in which they were written.
+	 *
+	 * @param stateHandle The handle of the channel state, may be <code>null</code>.
+	 * @return The entries of the channel state, empty if the handle is <code>null</code>.
+	 */
+	public static List<ChannelStateEntry> read(StreamStateHandle stateHandle) throws IOException {
+		if (stateHandle == null) {
+			return Collections.emptyList();
+		}
+
+		try (FSDataInputStream in = stateHandle.openInputStream()) {
+			DataInputViewStreamWrapper inView = new DataInputViewStreamWrapper(in);
+
+			int numEntries = inView.readInt();
+			List<ChannelStateEntry> entries = new ArrayList<>(numEntries);
+
+			for (int i = 0; i < numEntries; i++) {
+				int index = inView.readInt();
+				int channelIndex = inView.readInt();
+				byte[] data = new byte[inView.readInt()];
+				inView.readFully(data);
+
+				entries.add(new ChannelStateEntry(index, channelIndex, data));
+			}
+
+			return entries;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/** Utility class, not meant to be instantiated. */
+	private ChannelStateReader() {}
+}
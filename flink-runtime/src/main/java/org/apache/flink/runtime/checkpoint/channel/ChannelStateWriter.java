@@ -0,0 +1,443 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.state.CheckpointStreamFactory;
+import org.apache.flink.runtime.state.CheckpointStreamFactory.CheckpointStateOutputStream;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.util.IOUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Collects the channel state of one unaligned checkpoint of a task and writes it to checkpoint
+ * streams. The channel state consists of the in-flight data that the checkpoint barriers
+ * overtook: the buffers that were queued in the result subpartitions when the task emitted
+ * its barriers, and the buffers that the task received on an input channel after it took its
+ * snapshot but before the barrier of that channel.
+ *
+ * <p>The output data is complete once the barriers have been added to the subpartitions. The
+ * input data is complete only once the barriers of all input channels have been received,
+ * which is after the operators took their snapshot. The asynchronous part of the checkpoint
+ * therefore waits in {@link #awaitInput()} until the input has been finished or aborted.
+ *
+ * <p>The buffers are copied when they are added, so that the network buffers can be recycled
+ * right away. At most a configured number of bytes is copied to the heap. Once that limit is
+ * reached, the remaining data is spilled to temporary files, from which it is copied to the
+ * checkpoint streams. Data is added by the task thread and written by the asynchronous
+ * checkpointing thread.
+ */
+public class ChannelStateWriter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ChannelStateWriter.class);
+
+	private final long checkpointId;
+
+	private final long checkpointTimestamp;
+
+	/** The maximum number of bytes of the input and output data that are kept on the heap */
+	private final long maxInMemoryBytes;
+
+	/** The directory for the data beyond the in-memory limit, null if the data is never spilled */
+	private final File spillDirectory;
+
+	/** Lock for the data and the completion flags. */
+	private final Object lock = new Object();
+
+	private final ChannelData inputData = new ChannelData("input");
+
+	private final ChannelData outputData = new ChannelData("output");
+
+	private long numInMemoryBytes;
+
+	private boolean inputFinished;
+
+	private Throwable abortCause;
+
+	/**
+	 * Creates a writer that keeps all data on the heap.
+	 */
+	public ChannelStateWriter(long checkpointId, long checkpointTimestamp) {
+		this(checkpointId, checkpointTimestamp, Long.MAX_VALUE, null);
+	}
+
+	/**
+	 * Creates a writer that keeps at most the given number of bytes on the heap and spills the
+	 * remaining data to the given directory.
+	 */
+	public ChannelStateWriter(long checkpointId, long checkpointTimestamp, long maxInMemoryBytes, File spillDirectory) {
+		checkArgument(maxInMemoryBytes >= 0, "Negative in-memory limit");
+		checkArgument(spillDirectory != null || maxInMemoryBytes == Long.MAX_VALUE,
+				"A spill directory is required for a bounded in-memory size");
+
+		this.checkpointId = checkpointId;
+		this.checkpointTimestamp = checkpointTimestamp;
+		this.maxInMemoryBytes = maxInMemoryBytes;
+		this.spillDirectory = spillDirectory;
+	}
+
+	public long getCheckpointId() {
+		return checkpointId;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Collecting the data
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a copy of the given buffer to the state of the input channel. The caller keeps
+	 * the ownership of the buffer.
+	 */
+	public void addInputData(int channelIndex, Buffer buffer) throws IOException {
+		if (buffer.getSize() == 0) {
+			return;
+		}
+
+		synchronized (lock) {
+			checkState(!inputFinished, "Input of checkpoint %s has already been finished.", checkpointId);
+
+			if (abortCause == null) {
+				inputData.add(0, channelIndex, buffer, null);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given bytes to the state of the input channel, for example the beginning of a
+	 * record that the channel's deserializer has already consumed.
+	 */
+	public void addInputData(int channelIndex, byte[] data) throws IOException {
+		if (data.length == 0) {
+			return;
+		}
+
+		synchronized (lock) {
+			checkState(!inputFinished, "Input of checkpoint %s has already been finished.", checkpointId);
+
+			if (abortCause == null) {
+				inputData.add(0, channelIndex, null, data);
+			}
+		}
+	}
+
+	/**
+	 * Adds a copy of the given buffer to the state of the result subpartition. The caller keeps
+	 * the ownership of the buffer.
+	 */
+	public void addOutputData(int partitionIndex, int subpartitionIndex, Buffer buffer) throws IOException {
+		if (buffer.getSize() == 0) {
+			return;
+		}
+
+		synchronized (lock) {
+			if (abortCause == null) {
+				outputData.add(partitionIndex, subpartitionIndex, buffer, null);
+			}
+		}
+	}
+
+	/**
+	 * Marks the input data as complete, after the barriers of all input channels arrived.
+	 */
+	public void finishInput() {
+		synchronized (lock) {
+			if (!inputFinished && abortCause == null) {
+				inputFinished = true;
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Aborts the collection of the data, for example because the checkpoint was canceled
+	 * before the barriers of all input channels arrived. Releases the collected data.
+	 */
+	public void abort(Throwable cause) {
+		synchronized (lock) {
+			if (abortCause == null) {
+				abortCause = cause;
+				inputData.release();
+				outputData.release();
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Waits until the input data is complete.
+	 *
+	 * @return <code>true</code> if the input is complete, <code>false</code> if the collection was aborted.
+	 */
+	public boolean awaitInput() throws InterruptedException {
+		synchronized (lock) {
+			while (!inputFinished && abortCause == null) {
+				lock.wait();
+			}
+			return abortCause == null;
+		}
+	}
+
+	public boolean isAborted() {
+		synchronized (lock) {
+			return abortCause != null;
+		}
+	}
+
+	public long getNumInputBytes() {
+		synchronized (lock) {
+			return inputData.numBytes;
+		}
+	}
+
+	public long getNumOutputBytes() {
+		synchronized (lock) {
+			return outputData.numBytes;
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of the input and output data that have been spilled to disk.
+	 */
+	public long getNumSpilledBytes() {
+		synchronized (lock) {
+			return inputData.numSpilledBytes + outputData.numSpilledBytes;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Writing the data
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes the input channel state. Must only be called after {@link #awaitInput()} returned
+	 * <code>true</code>.
+	 *
+	 * @return The handle to the written state, or <code>null</code> if there is no input data.
+	 */
+	public StreamStateHandle writeInputState(CheckpointStreamFactory streamFactory) throws Exception {
+		synchronized (lock) {
+			checkState(inputFinished && abortCause == null, "Input of checkpoint %s is not complete.", checkpointId);
+			inputData.finishSpilling();
+		}
+
+		return write(inputData, streamFactory);
+	}
+
+	/**
+	 * Writes the result subpartition state.
+	 *
+	 * @return The handle to the written state, or <code>null</code> if there is no output data.
+	 */
+	public StreamStateHandle writeOutputState(CheckpointStreamFactory streamFactory) throws Exception {
+		synchronized (lock) {
+			checkState(abortCause == null, "Checkpoint %s has been aborted.", checkpointId);
+			outputData.finishSpilling();
+		}
+
+		return write(outputData, streamFactory);
+	}
+
+	private StreamStateHandle write(ChannelData data, CheckpointStreamFactory streamFactory) throws Exception {
+		final List<ChannelStateEntry> entries;
+		final File spillFile;
+		final int numSpilledEntries;
+
+		synchronized (lock) {
+			entries = new ArrayList<>(data.entries);
+			spillFile = data.spillFile;
+			numSpilledEntries = data.numSpilledEntries;
+		}
+
+		if (entries.isEmpty() && numSpilledEntries == 0) {
+			return null;
+		}
+
+		CheckpointStateOutputStream out =
+				streamFactory.createCheckpointStateOutputStream(checkpointId, checkpointTimestamp);
+
+		try {
+			DataOutputView outView = new DataOutputViewStreamWrapper(out);
+
+			outView.writeInt(entries.size() + numSpilledEntries);
+			for (ChannelStateEntry entry : entries) {
+				outView.writeInt(entry.getIndex());
+				outView.writeInt(entry.getChannelIndex());
+				outView.writeInt(entry.getData().length);
+				outView.write(entry.getData());
+			}
+
+			// the spilled entries were added after the in-memory ones and have the same format
+			if (spillFile != null) {
+				try (InputStream in = new FileInputStream(spillFile)) {
+					IOUtils.copyBytes(in, out, false);
+				}
+			}
+
+			StreamStateHandle handle = out.closeAndGetHandle();
+			out = null;
+			return handle;
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				}
+				catch (IOException e) {
+					LOG.warn("Could not close the channel state stream of checkpoint {}.", checkpointId, e);
+				}
+			}
+
+			synchronized (lock) {
+				data.release();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (lock) {
+			return "ChannelStateWriter(checkpoint " + checkpointId + ", input " + inputData.numBytes +
+					" bytes, output " + outputData.numBytes + " bytes, spilled " +
+					(inputData.numSpilledBytes + outputData.numSpilledBytes) + " bytes" +
+					(inputFinished ? ", input finished" : "") +
+					(abortCause != null ? ", aborted" : "") + ")";
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The input or output data of the checkpoint. The entries are kept on the heap until the
+	 * in-memory limit of the writer is reached. All entries after that are appended to a spill
+	 * file, so that the order of the entries is the in-memory entries followed by the spilled
+	 * ones. All methods must be called under the lock of the writer.
+	 */
+	private final class ChannelData {
+
+		private final String name;
+
+		private final List<ChannelStateEntry> entries = new ArrayList<>();
+
+		private File spillFile;
+
+		private DataOutputStream spillOut;
+
+		private int numSpilledEntries;
+
+		private long numBytes;
+
+		private long numSpilledBytes;
+
+		ChannelData(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Adds the data of the given buffer, or the given bytes if the buffer is null.
+		 */
+		void add(int index, int channelIndex, Buffer buffer, byte[] bytes) throws IOException {
+			final int length = buffer != null ? buffer.getSize() : bytes.length;
+
+			if (spillOut != null || (spillDirectory != null && numInMemoryBytes + length > maxInMemoryBytes)) {
+				if (spillOut == null) {
+					spillFile = File.createTempFile("checkpoint-" + checkpointId + "-" + name + "-", ".channelstate", spillDirectory);
+					spillOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+
+					LOG.debug("Spilling the {} channel state of checkpoint {} to {}.", name, checkpointId, spillFile);
+				}
+
+				spillOut.writeInt(index);
+				spillOut.writeInt(channelIndex);
+				spillOut.writeInt(length);
+				if (buffer != null) {
+					buffer.getMemorySegment().get(spillOut, 0, length);
+				} else {
+					spillOut.write(bytes);
+				}
+
+				numSpilledEntries++;
+				numSpilledBytes += length;
+			}
+			else {
+				byte[] data = bytes;
+				if (buffer != null) {
+					data = new byte[length];
+					buffer.getMemorySegment().get(0, data, 0, length);
+				}
+
+				entries.add(new ChannelStateEntry(index, channelIndex, data));
+				numInMemoryBytes += length;
+			}
+
+			numBytes += length;
+		}
+
+		void finishSpilling() throws IOException {
+			if (spillOut != null) {
+				spillOut.close();
+				spillOut = null;
+			}
+		}
+
+		/**
+		 * Releases the in-memory entries and deletes the spill file.
+		 */
+		void release() {
+			for (ChannelStateEntry entry : entries) {
+				numInMemoryBytes -= entry.getData().length;
+			}
+			entries.clear();
+
+			if (spillOut != null) {
+				try {
+					spillOut.close();
+				}
+				catch (IOException e) {
+					LOG.debug("Could not close the spill file {} of checkpoint {}.", spillFile, checkpointId, e);
+				}
+				spillOut = null;
+			}
+
+			if (spillFile != null) {
+				if (!spillFile.delete() && spillFile.exists()) {
+					LOG.warn("Could not delete the spill file {} of checkpoint {}.", spillFile, checkpointId);
+				}
+				spillFile = null;
+			}
+			numSpilledEntries = 0;
+		}
+	}
+}
@@ -21,8 +21,10 @@ package org.apache.flink.runtime.checkpoint.savepoint;
 import org.apache.flink.core.fs.Path;
 import org.apache.flink.runtime.checkpoint.SubtaskState;
 import org.apache.flink.runtime.checkpoint.TaskState;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.state.ChainedStateHandle;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
@@ -55,6 +57,21 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 	private static final byte KEY_GROUPS_HANDLE = 3;
 	private static final byte PARTITIONABLE_OPERATOR_STATE_HANDLE = 4;
 
+	/**
+	 * Type of the keyed state handles of incremental checkpoints. Adding the type does not change the
+	 * layout of the other handles, so the version is not bumped: the type is only written to the meta
+	 * data of externalized incremental checkpoints, never to savepoints, because savepoints are always
+	 * full snapshots. Savepoints therefore stay readable by older readers, which reject the unknown type
+	 * of an incremental checkpoint that they could not restore anyway.
+	 */
+	private static final byte INCREMENTAL_KEY_GROUPS_HANDLE = 5;
+
+	/**
+	 * Value of the leading (formerly duration) field of a subtask state which announces that the
+	 * in-flight data of an unaligned checkpoint and its channel layout follow the keyed state. Older
+	 * versions wrote -1.
+	 */
+	private static final long SUBTASK_STATE_WITH_CHANNEL_STATE = -2L;
 
 	public static final SavepointV1Serializer INSTANCE = new SavepointV1Serializer();
 
@@ -126,7 +143,8 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 
 	private static void serializeSubtaskState(SubtaskState subtaskState, DataOutputStream dos) throws IOException {
 
-		dos.writeLong(-1);
+		final boolean hasChannelState = subtaskState.hasChannelState();
+		dos.writeLong(hasChannelState ? SUBTASK_STATE_WITH_CHANNEL_STATE : -1L);
 
 		ChainedStateHandle<StreamStateHandle> nonPartitionableState = subtaskState.getLegacyOperatorState();
 
@@ -160,11 +178,17 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 
 		KeyGroupsStateHandle keyedStateStream = subtaskState.getRawKeyedState();
 		serializeKeyGroupStateHandle(keyedStateStream, dos);
+
+		if (hasChannelState) {
+			serializeStreamStateHandle(subtaskState.getInputChannelState(), dos);
+			serializeStreamStateHandle(subtaskState.getResultSubpartitionState(), dos);
+			serializeChannelStateLayout(subtaskState.getChannelStateLayout(), dos);
+		}
 	}
 
 	private static SubtaskState deserializeSubtaskState(DataInputStream dis) throws IOException {
-		// Duration field has been removed from SubtaskState
-		long ignoredDuration = dis.readLong();
+		// Duration field has been removed from SubtaskState, it now flags the channel state
+		final boolean hasChannelState = dis.readLong() == SUBTASK_STATE_WITH_CHANNEL_STATE;
 
 		int len = dis.readInt();
 		List<StreamStateHandle> nonPartitionableState = new ArrayList<>(len);
@@ -192,6 +216,15 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 
 		KeyGroupsStateHandle keyedStateStream = deserializeKeyGroupStateHandle(dis);
 
+		StreamStateHandle inputChannelState = null;
+		StreamStateHandle resultSubpartitionState = null;
+		ChannelStateLayout channelStateLayout = null;
+		if (hasChannelState) {
+			inputChannelState = deserializeStreamStateHandle(dis);
+			resultSubpartitionState = deserializeStreamStateHandle(dis);
+			channelStateLayout = deserializeChannelStateLayout(dis);
+		}
+
 		ChainedStateHandle<StreamStateHandle> nonPartitionableStateChain =
 				new ChainedStateHandle<>(nonPartitionableState);
 
@@ -206,13 +239,56 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 				operatorStateBackendChain,
 				operatorStateStreamChain,
 				keyedStateBackend,
-				keyedStateStream);
+				keyedStateStream,
+				inputChannelState,
+				resultSubpartitionState,
+				channelStateLayout);
+	}
+
+	private static void serializeChannelStateLayout(
+			ChannelStateLayout layout, DataOutputStream dos) throws IOException {
+
+		if (layout == null) {
+			dos.writeInt(-1);
+			return;
+		}
+
+		dos.writeInt(layout.getNumberOfInputGates());
+		for (int i = 0; i < layout.getNumberOfInputGates(); i++) {
+			dos.writeInt(layout.getNumberOfInputChannels(i));
+		}
+
+		dos.writeInt(layout.getNumberOfResultPartitions());
+		for (int i = 0; i < layout.getNumberOfResultPartitions(); i++) {
+			dos.writeInt(layout.getNumberOfSubpartitions(i));
+		}
+	}
+
+	private static ChannelStateLayout deserializeChannelStateLayout(DataInputStream dis) throws IOException {
+		int numInputGates = dis.readInt();
+		if (numInputGates < 0) {
+			return null;
+		}
+
+		int[] numInputChannels = new int[numInputGates];
+		for (int i = 0; i < numInputGates; i++) {
+			numInputChannels[i] = dis.readInt();
+		}
+
+		int[] numSubpartitions = new int[dis.readInt()];
+		for (int i = 0; i < numSubpartitions.length; i++) {
+			numSubpartitions[i] = dis.readInt();
+		}
+
+		return new ChannelStateLayout(numInputChannels, numSubpartitions);
 	}
 
 	private static void serializeKeyGroupStateHandle(
 			KeyGroupsStateHandle stateHandle, DataOutputStream dos) throws IOException {
 
-		if (stateHandle != null) {
+		if (stateHandle instanceof IncrementalKeyGroupsStateHandle) {
+			serializeIncrementalKeyGroupsStateHandle((IncrementalKeyGroupsStateHandle) stateHandle, dos);
+		} else if (stateHandle != null) {
 			dos.writeByte(KEY_GROUPS_HANDLE);
 			dos.writeInt(stateHandle.getGroupRangeOffsets().getKeyGroupRange().getStartKeyGroup());
 			dos.writeInt(stateHandle.getNumberOfKeyGroups());
@@ -240,11 +316,73 @@ class SavepointV1Serializer implements SavepointSerializer<SavepointV1> {
 			KeyGroupRangeOffsets keyGroupRangeOffsets = new KeyGroupRangeOffsets(keyGroupRange, offsets);
 			StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
 			return new KeyGroupsStateHandle(keyGroupRangeOffsets, stateHandle);
+		} else if (INCREMENTAL_KEY_GROUPS_HANDLE == type) {
+			return deserializeIncrementalKeyGroupsStateHandle(dis);
 		} else {
 			throw new IllegalStateException("Reading invalid KeyGroupsStateHandle, type: " + type);
 		}
 	}
 
+	private static void serializeIncrementalKeyGroupsStateHandle(
+			IncrementalKeyGroupsStateHandle stateHandle, DataOutputStream dos) throws IOException {
+
+		dos.writeByte(INCREMENTAL_KEY_GROUPS_HANDLE);
+		dos.writeUTF(stateHandle.getBackendIdentifier());
+		dos.writeInt(stateHandle.getKeyGroupRange().getStartKeyGroup());
+		dos.writeInt(stateHandle.getNumberOfKeyGroups());
+		dos.writeLong(stateHandle.getCheckpointId());
+		serializeStreamStateHandleMap(stateHandle.getNewSharedState(), dos);
+		serializeStreamStateHandleMap(stateHandle.getOldSharedState(), dos);
+		serializeStreamStateHandleMap(stateHandle.getPrivateState(), dos);
+		serializeStreamStateHandle(stateHandle.getMetaStateHandle(), dos);
+	}
+
+	private static IncrementalKeyGroupsStateHandle deserializeIncrementalKeyGroupsStateHandle(
+			DataInputStream dis) throws IOException {
+
+		String backendIdentifier = dis.readUTF();
+		int startKeyGroup = dis.readInt();
+		int numKeyGroups = dis.readInt();
+		KeyGroupRange keyGroupRange = KeyGroupRange.of(startKeyGroup, startKeyGroup + numKeyGroups - 1);
+		long checkpointId = dis.readLong();
+		Map<String, StreamStateHandle> newSharedState = deserializeStreamStateHandleMap(dis);
+		Map<String, StreamStateHandle> oldSharedState = deserializeStreamStateHandleMap(dis);
+		Map<String, StreamStateHandle> privateState = deserializeStreamStateHandleMap(dis);
+		StreamStateHandle metaStateHandle = deserializeStreamStateHandle(dis);
+
+		return new IncrementalKeyGroupsStateHandle(
+				backendIdentifier,
+				keyGroupRange,
+				checkpointId,
+				newSharedState,
+				oldSharedState,
+				privateState,
+				metaStateHandle);
+	}
+
+	private static void serializeStreamStateHandleMap(
+			Map<String, StreamStateHandle> stateHandles, DataOutputStream dos) throws IOException {
+
+		dos.writeInt(stateHandles.size());
+		for (Map.Entry<String, StreamStateHandle> entry : stateHandles.entrySet()) {
+			dos.writeUTF(entry.getKey());
+			serializeStreamStateHandle(entry.getValue(), dos);
+		}
+	}
+
+	private static Map<String, StreamStateHandle> deserializeStreamStateHandleMap(
+			DataInputStream dis) throws IOException {
+
+		int size = dis.readInt();
+		Map<String, StreamStateHandle> stateHandles = new HashMap<>(size);
+		for (int i = 0; i < size; ++i) {
+			String key = dis.readUTF();
+			StreamStateHandle stateHandle = deserializeStreamStateHandle(dis);
+			stateHandles.put(key, stateHandle);
+		}
+		return stateHandles;
+	}
+
 	private static void serializeOperatorStateHandle(
 			OperatorStateHandle stateHandle, DataOutputStream dos) throws IOException {
 
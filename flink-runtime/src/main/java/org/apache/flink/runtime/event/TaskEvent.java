@@ -22,4 +22,16 @@ package org.apache.flink.runtime.event;
  * Subclasses of this event are recognized as custom events that are not part of the core
  * flink runtime.
  */
-public abstract class TaskEvent extends AbstractEvent {}
+public abstract class TaskEvent extends AbstractEvent {
+
+	/**
+	 * Returns whether the event may be dropped if its receiver does not exist (any more), for
+	 * example because the producing task has already finished. Such events only carry hints for
+	 * the receiver, and failing to deliver them must not fail the sender.
+	 *
+	 * @return True, if the event may be dropped, false otherwise.
+	 */
+	public boolean isOptional() {
+		return false;
+	}
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.util.InstantiationUtil;
+
+import java.util.Locale;
+
+/**
+ * Resolves the configured spill compression codec to a {@link BlockCompressionFactory}.
+ *
+ * <p>The codec is configured for the cluster via {@link TaskManagerOptions#SPILL_COMPRESSION_CODEC}
+ * and may be overridden per job via {@link ExecutionConfig#setSpillCompressionCodec(String)}.
+ */
+public final class BlockCompressionFactories {
+
+	/** The codec name to spill uncompressed. */
+	public static final String NONE = "NONE";
+
+	/** The codec name for the LZ4 block compression. */
+	public static final String LZ4 = "LZ4";
+
+	/**
+	 * Creates the compression factory for the given codec name.
+	 *
+	 * @param codec {@link #NONE}, {@link #LZ4}, or the class name of a {@link BlockCompressionFactory}.
+	 * @param classLoader The class loader to load the factory class with.
+	 * @return The compression factory, or null, if the data is not to be compressed.
+	 * @throws IllegalConfigurationException Thrown, if the codec could not be instantiated.
+	 */
+	public static BlockCompressionFactory create(String codec, ClassLoader classLoader) {
+		if (codec == null || codec.trim().isEmpty()) {
+			return null;
+		}
+
+		final String name = codec.trim();
+		switch (name.toUpperCase(Locale.ROOT)) {
+			case NONE:
+				return null;
+			case LZ4:
+				return new Lz4BlockCompressionFactory();
+			default:
+				try {
+					Class<? extends BlockCompressionFactory> clazz =
+						Class.forName(name, true, classLoader).asSubclass(BlockCompressionFactory.class);
+					return InstantiationUtil.instantiate(clazz);
+				}
+				catch (ClassNotFoundException | ClassCastException e) {
+					throw new IllegalConfigurationException("Unknown spill compression codec '" + name +
+						"'. Must be " + NONE + ", " + LZ4 + ", or the class name of a " +
+						BlockCompressionFactory.class.getSimpleName() + '.', e);
+				}
+				catch (RuntimeException e) {
+					throw new IllegalConfigurationException("Could not instantiate the spill compression codec '" +
+						name + "'.", e);
+				}
+		}
+	}
+
+	/**
+	 * Creates the compression factory for a job, falling back to the codec of the TaskManager
+	 * configuration if the job does not configure a codec.
+	 *
+	 * @param jobCodec The codec configured by the job, or null.
+	 * @param taskManagerConfig The configuration of the TaskManager.
+	 * @param classLoader The user code class loader.
+	 * @return The compression factory, or null, if the data is not to be compressed.
+	 */
+	public static BlockCompressionFactory fromConfig(String jobCodec, Configuration taskManagerConfig, ClassLoader classLoader) {
+		if (jobCodec != null) {
+			return create(jobCodec, classLoader);
+		}
+		else if (taskManagerConfig != null) {
+			return create(taskManagerConfig.getString(TaskManagerOptions.SPILL_COMPRESSION_CODEC), classLoader);
+		}
+		else {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the compression factory for the given task, from the execution config of its job and
+	 * the configuration of its TaskManager.
+	 *
+	 * @param task The task that spills, may be null.
+	 * @return The compression factory, or null, if the data is not to be compressed.
+	 */
+	public static BlockCompressionFactory forTask(AbstractInvokable task) {
+		final Environment env = task == null ? null : task.getEnvironment();
+		if (env == null) {
+			return null;
+		}
+
+		final ExecutionConfig executionConfig = env.getExecutionConfig();
+		final Configuration taskManagerConfig = env.getTaskManagerInfo() == null ?
+			null : env.getTaskManagerInfo().getConfiguration();
+
+		return fromConfig(
+			executionConfig == null ? null : executionConfig.getSpillCompressionCodec(),
+			taskManagerConfig,
+			env.getUserClassLoader());
+	}
+
+	// ------------------------------------------------------------------------
+
+	/** Not intended to be instantiated */
+	private BlockCompressionFactories() {}
+}
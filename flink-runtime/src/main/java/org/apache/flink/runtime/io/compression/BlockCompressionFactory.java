@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+/**
+ * A factory for the {@link BlockCompressor} and {@link BlockDecompressor} of a compression codec.
+ *
+ * <p>Spilled blocks are compressed and decompressed independently of each other, so that codecs
+ * do not need to keep any state across blocks. Compressors and decompressors are not required to
+ * be thread-safe; every file channel creates its own instances.
+ *
+ * <p>Implementations must have a public nullary constructor to be configurable by their class
+ * name (see {@link BlockCompressionFactories}).
+ */
+public interface BlockCompressionFactory {
+
+	/**
+	 * Creates a new compressor.
+	 */
+	BlockCompressor getCompressor();
+
+	/**
+	 * Creates a new decompressor.
+	 */
+	BlockDecompressor getDecompressor();
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+/**
+ * Compresses blocks of data. Instances are not thread-safe.
+ */
+public interface BlockCompressor {
+
+	/**
+	 * Returns the maximum size of the compressed data of a block with the given size. The target
+	 * array of {@link #compress(byte[], int, int, byte[], int)} must have at least this size.
+	 */
+	int getMaxCompressedSize(int srcSize);
+
+	/**
+	 * Compresses a block of data.
+	 *
+	 * @param src The array with the data to compress.
+	 * @param srcOff The offset of the data in the source array.
+	 * @param srcLen The length of the data.
+	 * @param dst The array to write the compressed data to.
+	 * @param dstOff The offset in the target array.
+	 * @return The length of the compressed data.
+	 */
+	int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff);
+}
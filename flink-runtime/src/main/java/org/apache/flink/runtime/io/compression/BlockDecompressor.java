@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import java.io.IOException;
+
+/**
+ * Decompresses blocks of data which have been compressed by the {@link BlockCompressor} of the
+ * same codec. Instances are not thread-safe.
+ */
+public interface BlockDecompressor {
+
+	/**
+	 * Decompresses a block of data.
+	 *
+	 * @param src The array with the compressed data.
+	 * @param srcOff The offset of the compressed data in the source array.
+	 * @param srcLen The length of the compressed data.
+	 * @param dst The array to write the decompressed data to.
+	 * @param dstOff The offset in the target array.
+	 * @param dstLen The maximum length of the decompressed data.
+	 * @return The length of the decompressed data.
+	 * @throws IOException Thrown, if the compressed data is corrupt or does not fit into the target.
+	 */
+	int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException;
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import java.util.Arrays;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A {@link BlockCompressor} which writes the LZ4 block format.
+ *
+ * <p>The compressor finds matches greedily through a hash table of 4-byte sequences, like the
+ * fast mode of the reference implementation. It skips ahead faster the longer it does not find a
+ * match, so that incompressible data passes through quickly.
+ */
+public class Lz4BlockCompressor implements BlockCompressor {
+
+	static final int MIN_MATCH = 4;
+
+	/** The last bytes of a block are always literals. */
+	static final int LAST_LITERALS = 5;
+
+	/** A match must start at least this many bytes before the end of the block. */
+	static final int MF_LIMIT = 12;
+
+	static final int MAX_DISTANCE = (1 << 16) - 1;
+
+	static final int RUN_MASK = 0x0F;
+
+	private static final int HASH_LOG = 12;
+
+	private static final int SKIP_STRENGTH = 6;
+
+	/** The positions of the last occurrences of 4-byte sequences, by their hash. */
+	private final int[] hashTable = new int[1 << HASH_LOG];
+
+	@Override
+	public int getMaxCompressedSize(int srcSize) {
+		return srcSize + srcSize / 255 + 16;
+	}
+
+	@Override
+	public int compress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff) {
+		checkArgument(srcOff >= 0 && srcLen >= 0 && srcOff + srcLen <= src.length, "Invalid source range.");
+		checkArgument(dstOff >= 0 && dst.length - dstOff >= getMaxCompressedSize(srcLen),
+			"Target array is too small for the compressed data.");
+
+		final int srcEnd = srcOff + srcLen;
+		int anchor = srcOff;
+		int dp = dstOff;
+
+		if (srcLen > MF_LIMIT) {
+			final int matchLimit = srcEnd - LAST_LITERALS;
+			final int mfLimit = srcEnd - MF_LIMIT;
+
+			Arrays.fill(hashTable, -1);
+
+			int sp = srcOff;
+			while (sp < mfLimit) {
+				final int sequence = readInt(src, sp);
+				final int hash = hash(sequence);
+				int ref = hashTable[hash];
+				hashTable[hash] = sp;
+
+				if (ref < srcOff || sp - ref > MAX_DISTANCE || readInt(src, ref) != sequence) {
+					sp += 1 + ((sp - anchor) >>> SKIP_STRENGTH);
+					continue;
+				}
+
+				// extend the match backwards into the pending literals
+				while (sp > anchor && ref > srcOff && src[sp - 1] == src[ref - 1]) {
+					sp--;
+					ref--;
+				}
+
+				int matchLength = MIN_MATCH;
+				while (sp + matchLength < matchLimit && src[sp + matchLength] == src[ref + matchLength]) {
+					matchLength++;
+				}
+
+				dp = writeSequence(src, anchor, sp - anchor, sp - ref, matchLength, dst, dp);
+
+				sp += matchLength;
+				anchor = sp;
+
+				// remember a position inside the match, which often starts the next match
+				if (sp - 2 < mfLimit) {
+					hashTable[hash(readInt(src, sp - 2))] = sp - 2;
+				}
+			}
+		}
+
+		dp = writeLastLiterals(src, anchor, srcEnd - anchor, dst, dp);
+
+		return dp - dstOff;
+	}
+
+	private static int writeSequence(
+			byte[] src, int literalOff, int literalLength, int offset, int matchLength, byte[] dst, int dp) {
+
+		final int tokenPos = dp++;
+		int token;
+
+		if (literalLength >= RUN_MASK) {
+			token = RUN_MASK << 4;
+			dp = writeLength(literalLength - RUN_MASK, dst, dp);
+		} else {
+			token = literalLength << 4;
+		}
+
+		System.arraycopy(src, literalOff, dst, dp, literalLength);
+		dp += literalLength;
+
+		dst[dp++] = (byte) offset;
+		dst[dp++] = (byte) (offset >>> 8);
+
+		final int remainingMatchLength = matchLength - MIN_MATCH;
+		if (remainingMatchLength >= RUN_MASK) {
+			token |= RUN_MASK;
+			dp = writeLength(remainingMatchLength - RUN_MASK, dst, dp);
+		} else {
+			token |= remainingMatchLength;
+		}
+
+		dst[tokenPos] = (byte) token;
+		return dp;
+	}
+
+	private static int writeLastLiterals(byte[] src, int literalOff, int literalLength, byte[] dst, int dp) {
+		if (literalLength >= RUN_MASK) {
+			dst[dp++] = (byte) (RUN_MASK << 4);
+			dp = writeLength(literalLength - RUN_MASK, dst, dp);
+		} else {
+			dst[dp++] = (byte) (literalLength << 4);
+		}
+
+		System.arraycopy(src, literalOff, dst, dp, literalLength);
+		return dp + literalLength;
+	}
+
+	private static int writeLength(int length, byte[] dst, int dp) {
+		while (length >= 255) {
+			dst[dp++] = (byte) 255;
+			length -= 255;
+		}
+		dst[dp++] = (byte) length;
+		return dp;
+	}
+
+	private static int readInt(byte[] src, int pos) {
+		return (src[pos] & 0xFF)
+			| (src[pos + 1] & 0xFF) << 8
+			| (src[pos + 2] & 0xFF) << 16
+			| (src[pos + 3] & 0xFF) << 24;
+	}
+
+	private static int hash(int sequence) {
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import java.io.IOException;
+
+import static org.apache.flink.runtime.io.compression.Lz4BlockCompressor.MIN_MATCH;
+import static org.apache.flink.runtime.io.compression.Lz4BlockCompressor.RUN_MASK;
+
+/**
+ * A {@link BlockDecompressor} for the LZ4 block format. The decompressor checks all lengths and
+ * offsets against the bounds of the source and target, so that corrupt data is detected instead
+ * of writing outside of the target range.
+ */
+public class Lz4BlockDecompressor implements BlockDecompressor {
+
+	@Override
+	public int decompress(byte[] src, int srcOff, int srcLen, byte[] dst, int dstOff, int dstLen) throws IOException {
+		if (srcOff < 0 || srcLen < 0 || srcOff + srcLen > src.length
+				|| dstOff < 0 || dstLen < 0 || dstOff + dstLen > dst.length) {
+			throw new IllegalArgumentException("Invalid source or target range.");
+		}
+
+		final int srcEnd = srcOff + srcLen;
+		final int dstEnd = dstOff + dstLen;
+		int sp = srcOff;
+		int dp = dstOff;
+
+		while (true) {
+			if (sp >= srcEnd) {
+				throw corrupt("unexpected end of block");
+			}
+
+			final int token = src[sp++] & 0xFF;
+
+			// literals
+			int literalLength = token >>> 4;
+			if (literalLength == RUN_MASK) {
+				int b;
+				do {
+					if (sp >= srcEnd) {
+						throw corrupt("unexpected end of block");
+					}
+					b = src[sp++] & 0xFF;
+					literalLength += b;
+				} while (b == 255 && literalLength > 0);
+			}
+
+			if (literalLength < 0 || literalLength > srcEnd - sp) {
+				throw corrupt("literals exceed the block");
+			}
+			if (literalLength > dstEnd - dp) {
+				throw corrupt("decompressed data exceeds the target size of " + dstLen + " bytes");
+			}
+
+			System.arraycopy(src, sp, dst, dp, literalLength);
+			sp += literalLength;
+			dp += literalLength;
+
+			// the last sequence has only literals
+			if (sp == srcEnd) {
+				return dp - dstOff;
+			}
+
+			// match
+			if (srcEnd - sp < 2) {
+				throw corrupt("unexpected end of block");
+			}
+			final int offset = (src[sp] & 0xFF) | (src[sp + 1] & 0xFF) << 8;
+			sp += 2;
+
+			int matchLength = token & RUN_MASK;
+			if (matchLength == RUN_MASK) {
+				int b;
+				do {
+					if (sp >= srcEnd) {
+						throw corrupt("unexpected end of block");
+					}
+					b = src[sp++] & 0xFF;
+					matchLength += b;
+				} while (b == 255 && matchLength > 0);
+			}
+			matchLength += MIN_MATCH;
+
+			final int ref = dp - offset;
+			if (offset == 0 || ref < dstOff) {
+				throw corrupt("invalid match offset " + offset);
+			}
+			if (matchLength < 0 || matchLength > dstEnd - dp) {
+				throw corrupt("decompressed data exceeds the target size of " + dstLen + " bytes");
+			}
+
+			if (offset >= matchLength) {
+				System.arraycopy(dst, ref, dst, dp, matchLength);
+			} else {
+				// overlapping match, which repeats the last offset bytes
+				for (int i = 0; i < matchLength; i++) {
+					dst[dp + i] = dst[ref + i];
+				}
+			}
+			dp += matchLength;
+		}
+	}
+
+	private static IOException corrupt(String reason) {
+		return new IOException("Corrupt LZ4 compressed block: " + reason + '.');
+	}
+}
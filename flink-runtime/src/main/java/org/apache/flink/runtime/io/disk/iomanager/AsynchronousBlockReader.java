@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 
 import java.io.IOException;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -43,6 +44,9 @@ import java.util.concurrent.TimeUnit;
 public class AsynchronousBlockReader extends AsynchronousFileIOChannel<MemorySegment, ReadRequest> implements BlockChannelReader<MemorySegment> {
 	
 	private final LinkedBlockingQueue<MemorySegment> returnSegments;
+
+	/** The codec to decompress the blocks, or null, if the blocks are written uncompressed. */
+	private final CompressedChannelCodec codec;
 	
 	/**
 	 * Creates a new block channel reader for the given channel.
@@ -56,9 +60,28 @@ public class AsynchronousBlockReader extends AsynchronousFileIOChannel<MemorySeg
 	protected AsynchronousBlockReader(FileIOChannel.ID channelID, RequestQueue<ReadRequest> requestQueue,
 			LinkedBlockingQueue<MemorySegment> returnSegments)
 	throws IOException
+	{
+		this(channelID, requestQueue, returnSegments, null);
+	}
+
+	/**
+	 * Creates a new block channel reader for the given channel, which decompresses the blocks.
+	 *
+	 * @param channelID The ID of the channel to read.
+	 * @param requestQueue The request queue of the asynchronous reader thread, to which the I/O requests
+	 *                     are added.
+	 * @param returnSegments The return queue, to which the full Memory Segments are added.
+	 * @param compressionFactory The factory for the decompressor of the blocks, or null, if the blocks
+	 *                           are not compressed.
+	 * @throws IOException Thrown, if the underlying file channel could not be opened.
+	 */
+	protected AsynchronousBlockReader(FileIOChannel.ID channelID, RequestQueue<ReadRequest> requestQueue,
+			LinkedBlockingQueue<MemorySegment> returnSegments, BlockCompressionFactory compressionFactory)
+	throws IOException
 	{
 		super(channelID, requestQueue, new QueuingCallback<MemorySegment>(returnSegments), false);
 		this.returnSegments = returnSegments;
+		this.codec = compressionFactory == null ? null : new CompressedChannelCodec(compressionFactory);
 	}	
 
 	/**
@@ -72,11 +95,14 @@ public class AsynchronousBlockReader extends AsynchronousFileIOChannel<MemorySeg
 	 */
 	@Override
 	public void readBlock(MemorySegment segment) throws IOException {
-		addRequest(new SegmentReadRequest(this, segment));
+		addRequest(new SegmentReadRequest(this, segment, codec));
 	}
 
 	@Override
 	public void seekToPosition(long position) throws IOException {
+		if (codec != null) {
+			throw new UnsupportedOperationException("Compressed channels can only be read sequentially.");
+		}
 		requestQueue.add(new SeekRequest(this, position));
 	}
 
@@ -23,6 +23,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 
 public class AsynchronousBlockWriter extends AsynchronousBlockWriterWithCallback implements BlockChannelWriter<MemorySegment> {
 	
@@ -41,7 +42,25 @@ public class AsynchronousBlockWriter extends AsynchronousBlockWriterWithCallback
 			LinkedBlockingQueue<MemorySegment> returnSegments)
 	throws IOException
 	{
-		super(channelID, requestQueue, new QueuingCallback<MemorySegment>(returnSegments));
+		this(channelID, requestQueue, returnSegments, null);
+	}
+
+	/**
+	 * Creates a new block channel writer for the given channel, which compresses the blocks.
+	 *
+	 * @param channelID The ID of the channel to write to.
+	 * @param requestQueue The request queue of the asynchronous writer thread, to which the I/O requests
+	 *                     are added.
+	 * @param returnSegments The return queue, to which the processed Memory Segments are added.
+	 * @param compressionFactory The factory for the compressor of the blocks, or null, to write the blocks
+	 *                           uncompressed.
+	 * @throws IOException Thrown, if the underlying file channel could not be opened exclusively.
+	 */
+	protected AsynchronousBlockWriter(FileIOChannel.ID channelID, RequestQueue<WriteRequest> requestQueue,
+			LinkedBlockingQueue<MemorySegment> returnSegments, BlockCompressionFactory compressionFactory)
+	throws IOException
+	{
+		super(channelID, requestQueue, new QueuingCallback<MemorySegment>(returnSegments), compressionFactory);
 		this.returnSegments = returnSegments;
 	}
 	
@@ -21,12 +21,16 @@ package org.apache.flink.runtime.io.disk.iomanager;
 import java.io.IOException;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 
 /**
  * An asynchronous implementation of the {@link BlockChannelWriterWithCallback} that queues I/O requests
  * and calls a callback once they have been handled.
  */
 public class AsynchronousBlockWriterWithCallback extends AsynchronousFileIOChannel<MemorySegment, WriteRequest> implements BlockChannelWriterWithCallback<MemorySegment> {
+
+	/** The codec to compress the blocks, or null, if the blocks are written uncompressed. */
+	private final CompressedChannelCodec codec;
 	
 	/**
 	 * Creates a new asynchronous block writer for the given channel.
@@ -38,8 +42,24 @@ public class AsynchronousBlockWriterWithCallback extends AsynchronousFileIOChann
 	 */
 	protected AsynchronousBlockWriterWithCallback(FileIOChannel.ID channelID, RequestQueue<WriteRequest> requestQueue,
 			RequestDoneCallback<MemorySegment> callback) throws IOException
+	{
+		this(channelID, requestQueue, callback, null);
+	}
+
+	/**
+	 * Creates a new asynchronous block writer for the given channel, which compresses the blocks.
+	 *
+	 * @param channelID The ID of the channel to write to.
+	 * @param requestQueue The request queue of the asynchronous writer thread, to which the I/O requests are added.
+	 * @param callback The callback to be invoked when requests are done.
+	 * @param compressionFactory The factory for the compressor of the blocks, or null, to write the blocks uncompressed.
+	 * @throws IOException Thrown, if the underlying file channel could not be opened exclusively.
+	 */
+	protected AsynchronousBlockWriterWithCallback(FileIOChannel.ID channelID, RequestQueue<WriteRequest> requestQueue,
+			RequestDoneCallback<MemorySegment> callback, BlockCompressionFactory compressionFactory) throws IOException
 	{
 		super(channelID, requestQueue, callback, true);
+		this.codec = compressionFactory == null ? null : new CompressedChannelCodec(compressionFactory);
 	}
 
 	/**
@@ -51,6 +71,6 @@ public class AsynchronousBlockWriterWithCallback extends AsynchronousFileIOChann
 	 */
 	@Override
 	public void writeBlock(MemorySegment segment) throws IOException {
-		addRequest(new SegmentWriteRequest(this, segment));
+		addRequest(new SegmentWriteRequest(this, segment, codec));
 	}
 }
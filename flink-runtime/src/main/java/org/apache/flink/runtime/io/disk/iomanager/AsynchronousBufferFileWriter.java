@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.disk.iomanager;
 
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.util.event.NotificationListener;
 
@@ -27,13 +28,22 @@ public class AsynchronousBufferFileWriter extends AsynchronousFileIOChannel<Buff
 
 	private static final RecyclingCallback CALLBACK = new RecyclingCallback();
 
+	/** The codec to compress the buffers, or null, if the buffers are written uncompressed. */
+	private final CompressedChannelCodec codec;
+
 	protected AsynchronousBufferFileWriter(ID channelID, RequestQueue<WriteRequest> requestQueue) throws IOException {
+		this(channelID, requestQueue, null);
+	}
+
+	protected AsynchronousBufferFileWriter(ID channelID, RequestQueue<WriteRequest> requestQueue,
+			BlockCompressionFactory compressionFactory) throws IOException {
 		super(channelID, requestQueue, CALLBACK, true);
+		this.codec = compressionFactory == null ? null : new CompressedChannelCodec(compressionFactory);
 	}
 
 	@Override
 	public void writeBlock(Buffer buffer) throws IOException {
-		addRequest(new BufferWriteRequest(this, buffer));
+		addRequest(new BufferWriteRequest(this, buffer, codec));
 	}
 
 	@Override
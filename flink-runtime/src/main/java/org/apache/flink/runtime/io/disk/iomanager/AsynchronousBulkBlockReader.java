@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 
 /**
  *
@@ -30,21 +31,33 @@ import org.apache.flink.core.memory.MemorySegment;
 public class AsynchronousBulkBlockReader extends AsynchronousFileIOChannel<MemorySegment, ReadRequest> implements BulkBlockChannelReader {
 	
 	private final ArrayList<MemorySegment> returnBuffers;
+
+	/** The codec to decompress the blocks, or null, if the blocks are written uncompressed. */
+	private final CompressedChannelCodec codec;
 	
 	
 	protected AsynchronousBulkBlockReader(FileIOChannel.ID channelID, RequestQueue<ReadRequest> requestQueue, 
 			List<MemorySegment> sourceSegments, int numBlocks)
 	throws IOException
 	{
-		this (channelID, requestQueue, sourceSegments, numBlocks, new ArrayList<MemorySegment>(numBlocks));
+		this (channelID, requestQueue, sourceSegments, numBlocks, null);
+	}
+
+	protected AsynchronousBulkBlockReader(FileIOChannel.ID channelID, RequestQueue<ReadRequest> requestQueue,
+			List<MemorySegment> sourceSegments, int numBlocks, BlockCompressionFactory compressionFactory)
+	throws IOException
+	{
+		this (channelID, requestQueue, sourceSegments, numBlocks, new ArrayList<MemorySegment>(numBlocks), compressionFactory);
 	}
 	
 	private AsynchronousBulkBlockReader(FileIOChannel.ID channelID, RequestQueue<ReadRequest> requestQueue, 
-			List<MemorySegment> sourceSegments, int numBlocks, ArrayList<MemorySegment> target)
+			List<MemorySegment> sourceSegments, int numBlocks, ArrayList<MemorySegment> target,
+			BlockCompressionFactory compressionFactory)
 	throws IOException
 	{
 		super(channelID, requestQueue, new CollectingCallback(target), false);
 		this.returnBuffers = target;
+		this.codec = compressionFactory == null ? null : new CompressedChannelCodec(compressionFactory);
 		
 		// sanity check
 		if (sourceSegments.size() < numBlocks) {
@@ -59,7 +72,7 @@ public class AsynchronousBulkBlockReader extends AsynchronousFileIOChannel<Memor
 	}
 	
 	private void readBlock(MemorySegment segment) throws IOException {
-		addRequest(new SegmentReadRequest(this, segment));
+		addRequest(new SegmentReadRequest(this, segment, codec));
 	}
 	
 	@Override
@@ -25,6 +25,7 @@ import org.apache.flink.runtime.util.event.NotificationListener;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -293,13 +294,22 @@ final class SegmentReadRequest implements ReadRequest {
 
 	private final MemorySegment segment;
 
+	/** The codec to decompress the block, or null, if the channel is not compressed. */
+	private final CompressedChannelCodec codec;
+
 	protected SegmentReadRequest(AsynchronousFileIOChannel<MemorySegment, ReadRequest> targetChannel, MemorySegment segment) {
+		this(targetChannel, segment, null);
+	}
+
+	protected SegmentReadRequest(AsynchronousFileIOChannel<MemorySegment, ReadRequest> targetChannel, MemorySegment segment,
+			CompressedChannelCodec codec) {
 		if (segment == null) {
 			throw new NullPointerException("Illegal read request with null memory segment.");
 		}
 		
 		this.channel = targetChannel;
 		this.segment = segment;
+		this.codec = codec;
 	}
 
 	@Override
@@ -307,8 +317,12 @@ final class SegmentReadRequest implements ReadRequest {
 		final FileChannel c = this.channel.fileChannel;
 		if (c.size() - c.position() > 0) {
 			try {
-				final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
-				this.channel.fileChannel.read(wrapper);
+				if (this.codec != null) {
+					this.codec.readBlock(c, this.segment);
+				} else {
+					final ByteBuffer wrapper = this.segment.wrap(0, this.segment.size());
+					this.channel.fileChannel.read(wrapper);
+				}
 			}
 			catch (NullPointerException npex) {
 				throw new IOException("Memory segment has been released.");
@@ -320,6 +334,49 @@ final class SegmentReadRequest implements ReadRequest {
 	public void requestDone(IOException ioex) {
 		this.channel.handleProcessedBuffer(this.segment, ioex);
 	}
+
+	/**
+	 * Checks whether the given request reads the next uncompressed block of the same channel, such
+	 * that both can be served by a single scattering read.
+	 */
+	boolean canBeBatchedWith(ReadRequest other) {
+		if (this.codec != null || !(other instanceof SegmentReadRequest)) {
+			return false;
+		}
+		final SegmentReadRequest next = (SegmentReadRequest) other;
+		return next.channel == this.channel && next.codec == null;
+	}
+
+	/**
+	 * Reads the blocks of the given requests, which all read uncompressed blocks of the same
+	 * channel in order, with a single scattering read.
+	 */
+	static void readBatch(List<SegmentReadRequest> batch) throws IOException {
+		final FileChannel c = batch.get(0).channel.fileChannel;
+		if (c.size() - c.position() > 0) {
+			final ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+			long remaining = 0;
+			try {
+				for (int i = 0; i < buffers.length; i++) {
+					final MemorySegment segment = batch.get(i).segment;
+					buffers[i] = segment.wrap(0, segment.size());
+					remaining += segment.size();
+				}
+			}
+			catch (NullPointerException npex) {
+				throw new IOException("Memory segment has been released.");
+			}
+
+			// the blocks behind the end of the file are not filled, as with single reads
+			while (remaining > 0) {
+				final long read = c.read(buffers);
+				if (read <= 0) {
+					break;
+				}
+				remaining -= read;
+			}
+		}
+	}
 }
 
 //--------------------------------------------------------------------------------------------
@@ -333,15 +390,28 @@ final class SegmentWriteRequest implements WriteRequest {
 
 	private final MemorySegment segment;
 
+	/** The codec to compress the block, or null, if the channel is not compressed. */
+	private final CompressedChannelCodec codec;
+
 	protected SegmentWriteRequest(AsynchronousFileIOChannel<MemorySegment, WriteRequest> targetChannel, MemorySegment segment) {
+		this(targetChannel, segment, null);
+	}
+
+	protected SegmentWriteRequest(AsynchronousFileIOChannel<MemorySegment, WriteRequest> targetChannel, MemorySegment segment,
+			CompressedChannelCodec codec) {
 		this.channel = targetChannel;
 		this.segment = segment;
+		this.codec = codec;
 	}
 
 	@Override
 	public void write() throws IOException {
 		try {
-			this.channel.fileChannel.write(this.segment.wrap(0, this.segment.size()));
+			if (this.codec != null) {
+				this.codec.writeBlock(this.channel.fileChannel, this.segment);
+			} else {
+				this.channel.fileChannel.write(this.segment.wrap(0, this.segment.size()));
+			}
 		}
 		catch (NullPointerException npex) {
 			throw new IOException("Memory segment has been released.");
@@ -352,6 +422,42 @@ final class SegmentWriteRequest implements WriteRequest {
 	public void requestDone(IOException ioex) {
 		this.channel.handleProcessedBuffer(this.segment, ioex);
 	}
+
+	/**
+	 * Checks whether the given request writes the next uncompressed block to the same channel, such
+	 * that both can be served by a single gathering write.
+	 */
+	boolean canBeBatchedWith(WriteRequest other) {
+		if (this.codec != null || !(other instanceof SegmentWriteRequest)) {
+			return false;
+		}
+		final SegmentWriteRequest next = (SegmentWriteRequest) other;
+		return next.channel == this.channel && next.codec == null;
+	}
+
+	/**
+	 * Writes the blocks of the given requests, which all write uncompressed blocks to the same
+	 * channel in order, with a single gathering write.
+	 */
+	static void writeBatch(List<SegmentWriteRequest> batch) throws IOException {
+		final ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+		long remaining = 0;
+		try {
+			for (int i = 0; i < buffers.length; i++) {
+				final MemorySegment segment = batch.get(i).segment;
+				buffers[i] = segment.wrap(0, segment.size());
+				remaining += segment.size();
+			}
+		}
+		catch (NullPointerException npex) {
+			throw new IOException("Memory segment has been released.");
+		}
+
+		final FileChannel c = batch.get(0).channel.fileChannel;
+		while (remaining > 0) {
+			remaining -= c.write(buffers);
+		}
+	}
 }
 
 final class BufferWriteRequest implements WriteRequest {
@@ -360,21 +466,34 @@ final class BufferWriteRequest implements WriteRequest {
 
 	private final Buffer buffer;
 
+	/** The codec to compress the buffer, or null, if the channel is not compressed. */
+	private final CompressedChannelCodec codec;
+
 	protected BufferWriteRequest(AsynchronousFileIOChannel<Buffer, WriteRequest> targetChannel, Buffer buffer) {
+		this(targetChannel, buffer, null);
+	}
+
+	protected BufferWriteRequest(AsynchronousFileIOChannel<Buffer, WriteRequest> targetChannel, Buffer buffer,
+			CompressedChannelCodec codec) {
 		this.channel = checkNotNull(targetChannel);
 		this.buffer = checkNotNull(buffer);
+		this.codec = codec;
 	}
 
 	@Override
 	public void write() throws IOException {
 		final ByteBuffer header = ByteBuffer.allocateDirect(8);
+		final ByteBuffer data = codec != null
+			? codec.compressBuffer(buffer.getMemorySegment(), buffer.getSize())
+			: buffer.getNioBuffer();
 
+		// the size is the size of the (compressed) data in the file
 		header.putInt(buffer.isBuffer() ? 1 : 0);
-		header.putInt(buffer.getSize());
+		header.putInt(data.remaining());
 		header.flip();
 
 		channel.fileChannel.write(header);
-		channel.fileChannel.write(buffer.getNioBuffer());
+		channel.fileChannel.write(data);
 	}
 
 	@Override
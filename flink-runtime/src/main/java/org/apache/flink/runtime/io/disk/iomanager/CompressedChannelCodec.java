@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressor;
+import org.apache.flink.runtime.io.compression.BlockDecompressor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Compresses the blocks of a file channel before they are written and decompresses them after they
+ * are read. Compressed blocks have different sizes, so a block channel with compression writes the
+ * length of each compressed block in front of it, and buffer files write the compressed length
+ * into the size field of their buffer header.
+ *
+ * <p>Blocks of a compressed channel can only be read sequentially, because the position of a block
+ * in the file is not known up front.
+ *
+ * <p>The codec is not thread-safe. All I/O requests of a channel are processed by the same I/O
+ * thread, which is the only user of the codec of the channel.
+ */
+final class CompressedChannelCodec {
+
+	private final BlockCompressor compressor;
+
+	private final BlockDecompressor decompressor;
+
+	private final ByteBuffer lengthHeader = ByteBuffer.allocate(4);
+
+	/** The uncompressed data, copied out of or into memory segments. */
+	private byte[] uncompressed = new byte[0];
+
+	/** The compressed data, with space for the length header of blocks in front. */
+	private byte[] compressed = new byte[0];
+
+	CompressedChannelCodec(BlockCompressionFactory compressionFactory) {
+		checkNotNull(compressionFactory);
+		this.compressor = compressionFactory.getCompressor();
+		this.decompressor = compressionFactory.getDecompressor();
+	}
+
+	// ------------------------------------------------------------------------
+	//  Blocks
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Writes the given segment compressed, preceded by the length of the compressed data.
+	 */
+	void writeBlock(FileChannel channel, MemorySegment segment) throws IOException {
+		final int compressedLength = compress(segment, segment.size(), 4);
+
+		compressed[0] = (byte) (compressedLength >>> 24);
+		compressed[1] = (byte) (compressedLength >>> 16);
+		compressed[2] = (byte) (compressedLength >>> 8);
+		compressed[3] = (byte) compressedLength;
+
+		writeFully(channel, ByteBuffer.wrap(compressed, 0, 4 + compressedLength));
+	}
+
+	/**
+	 * Reads the next compressed block into the given segment, which must have the size of the
+	 * segments the block was written from.
+	 */
+	void readBlock(FileChannel channel, MemorySegment segment) throws IOException {
+		lengthHeader.clear();
+		readFully(channel, lengthHeader);
+		lengthHeader.flip();
+
+		final int length = decompressBuffer(channel, lengthHeader.getInt(), segment);
+		if (length != segment.size()) {
+			throw new IOException("Compressed block has " + length + " bytes, but the target segment has "
+				+ segment.size() + " bytes.");
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Buffers
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Compresses the first bytes of the given segment and returns the compressed data. The returned
+	 * buffer is only valid until the next call to this codec.
+	 */
+	ByteBuffer compressBuffer(MemorySegment segment, int length) {
+		final int compressedLength = compress(segment, length, 0);
+		return ByteBuffer.wrap(compressed, 0, compressedLength);
+	}
+
+	/**
+	 * Reads compressed data of the given length from the channel and decompresses it into the given
+	 * segment.
+	 *
+	 * @return The decompressed length.
+	 */
+	int decompressBuffer(FileChannel channel, int compressedLength, MemorySegment segment) throws IOException {
+		if (compressedLength < 0) {
+			throw new IOException("Corrupt compressed block with negative length " + compressedLength + '.');
+		}
+		if (compressed.length < compressedLength) {
+			compressed = new byte[compressedLength];
+		}
+		if (uncompressed.length < segment.size()) {
+			uncompressed = new byte[segment.size()];
+		}
+
+		readFully(channel, ByteBuffer.wrap(compressed, 0, compressedLength));
+
+		final int length = decompressor.decompress(compressed, 0, compressedLength, uncompressed, 0, segment.size());
+		segment.put(0, uncompressed, 0, length);
+		return length;
+	}
+
+	// ------------------------------------------------------------------------
+
+	private int compress(MemorySegment segment, int length, int headerLength) {
+		if (uncompressed.length < length) {
+			uncompressed = new byte[length];
+		}
+		final int maxCompressedLength = headerLength + compressor.getMaxCompressedSize(length);
+		if (compressed.length < maxCompressedLength) {
+			compressed = new byte[maxCompressedLength];
+		}
+
+		segment.get(0, uncompressed, 0, length);
+		return compressor.compress(uncompressed, 0, length, compressed, headerLength);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer source) throws IOException {
+		while (source.hasRemaining()) {
+			channel.write(source);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer target) throws IOException {
+		while (target.hasRemaining()) {
+			if (channel.read(target) < 0) {
+				throw new EOFException("Unexpected end of compressed channel.");
+			}
+		}
+	}
+}
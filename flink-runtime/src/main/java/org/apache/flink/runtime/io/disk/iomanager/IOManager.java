@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.util.FileUtils;
 
@@ -64,6 +65,9 @@ public abstract class IOManager {
 	/** The number of the next path to use. */
 	private volatile int nextPath;
 
+	/** Whether finished files may be read through memory mappings. */
+	private final boolean memoryMappedReads;
+
 	// -------------------------------------------------------------------------
 	//               Constructors / Destructors
 	// -------------------------------------------------------------------------
@@ -74,12 +78,23 @@ public abstract class IOManager {
 	 * @param tempDirs The basic directories for files underlying anonymous channels.
 	 */
 	protected IOManager(String[] tempDirs) {
+		this(tempDirs, false);
+	}
+
+	/**
+	 * Constructs a new IOManager.
+	 *
+	 * @param tempDirs The basic directories for files underlying anonymous channels.
+	 * @param memoryMappedReads Whether finished files may be read through memory mappings.
+	 */
+	protected IOManager(String[] tempDirs, boolean memoryMappedReads) {
 		if (tempDirs == null || tempDirs.length == 0) {
 			throw new IllegalArgumentException("The temporary directories must not be null or empty.");
 		}
 
 		this.random = new Random();
 		this.nextPath = 0;
+		this.memoryMappedReads = memoryMappedReads;
 
 		this.paths = new File[tempDirs.length];
 		for (int i = 0; i < tempDirs.length; i++) {
@@ -199,6 +214,34 @@ public abstract class IOManager {
 	public abstract BlockChannelWriter<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID,
 				LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException;
 
+	/**
+	 * Creates a block channel writer that compresses the blocks with the given compression before
+	 * writing them to the given channel. A channel written this way can only be read sequentially,
+	 * by a reader created with the same compression.
+	 *
+	 * @param channelID The descriptor for the channel to write to.
+	 * @param compressionFactory The compression for the blocks, or null, to write them uncompressed.
+	 * @return A block channel writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 */
+	public BlockChannelWriter<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID,
+				BlockCompressionFactory compressionFactory) throws IOException {
+		return createBlockChannelWriter(channelID, new LinkedBlockingQueue<MemorySegment>(), compressionFactory);
+	}
+
+	/**
+	 * Creates a block channel writer that compresses the blocks with the given compression before
+	 * writing them to the given channel. The writer adds the written segment to the given queue.
+	 *
+	 * @param channelID The descriptor for the channel to write to.
+	 * @param returnQueue The queue to put the written buffers into.
+	 * @param compressionFactory The compression for the blocks, or null, to write them uncompressed.
+	 * @return A block channel writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 */
+	public abstract BlockChannelWriter<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID,
+				LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) throws IOException;
+
 	/**
 	 * Creates a block channel writer that writes to the given channel. The writer calls the given callback
 	 * after the I/O operation has been performed (successfully or unsuccessfully), to allow
@@ -236,8 +279,47 @@ public abstract class IOManager {
 	public abstract BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
 										LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException;
 
+	/**
+	 * Creates a block channel reader that reads and decompresses the blocks of a channel that was
+	 * written with the given compression. The reader does not support seeking.
+	 *
+	 * @param channelID The descriptor for the channel to read from.
+	 * @param compressionFactory The compression of the blocks, or null, if they are uncompressed.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 */
+	public BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
+										BlockCompressionFactory compressionFactory) throws IOException {
+		return createBlockChannelReader(channelID, new LinkedBlockingQueue<MemorySegment>(), compressionFactory);
+	}
+
+	/**
+	 * Creates a block channel reader that reads and decompresses the blocks of a channel that was
+	 * written with the given compression. The reader pushes the full segments to the given queue.
+	 *
+	 * @param channelID The descriptor for the channel to read from.
+	 * @param returnQueue The queue to put the full buffers into.
+	 * @param compressionFactory The compression of the blocks, or null, if they are uncompressed.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 */
+	public abstract BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
+										LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) throws IOException;
+
 	public abstract BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID) throws IOException;
 
+	/**
+	 * Creates a buffer file writer that compresses the buffers with the given compression. The
+	 * file must be read with a {@link SynchronousBufferFileReader} with the same compression.
+	 *
+	 * @param channelID The descriptor for the channel to write to.
+	 * @param compressionFactory The compression for the buffers, or null, to write them uncompressed.
+	 * @return A buffer file writer that writes to the given channel.
+	 * @throws IOException Thrown, if the channel for the writer could not be opened.
+	 */
+	public abstract BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID,
+			BlockCompressionFactory compressionFactory) throws IOException;
+
 	public abstract BufferFileReader createBufferFileReader(FileIOChannel.ID channelID, RequestDoneCallback<Buffer> callback) throws IOException;
 
 	public abstract BufferFileSegmentReader createBufferFileSegmentReader(FileIOChannel.ID channelID, RequestDoneCallback<FileSegment> callback) throws IOException;
@@ -260,6 +342,37 @@ public abstract class IOManager {
 	public abstract BulkBlockChannelReader createBulkBlockChannelReader(FileIOChannel.ID channelID,
 			List<MemorySegment> targetSegments, int numBlocks) throws IOException;
 
+	/**
+	 * Creates a block channel reader that reads and decompresses all blocks of a channel that was
+	 * written with the given compression directly in one bulk.
+	 *
+	 * @param channelID The descriptor for the channel to read from.
+	 * @param targetSegments The list to take the segments from into which to read the data.
+	 * @param numBlocks The number of blocks in the channel to read.
+	 * @param compressionFactory The compression of the blocks, or null, if they are uncompressed.
+	 * @return A block channel reader that reads from the given channel.
+	 * @throws IOException Thrown, if the channel for the reader could not be opened.
+	 */
+	public abstract BulkBlockChannelReader createBulkBlockChannelReader(FileIOChannel.ID channelID,
+			List<MemorySegment> targetSegments, int numBlocks, BlockCompressionFactory compressionFactory) throws IOException;
+
+	/**
+	 * Maps the finished file of the given channel into memory, such that it can be read without
+	 * copying its blocks into memory segments and without the I/O threads. Only uncompressed files
+	 * can be read this way.
+	 *
+	 * @param channelID The descriptor for the channel to map.
+	 * @param alignment The size of the blocks in the file, which must not cross two mapped regions.
+	 * @return The mapped file, or null, if memory mapped reads are disabled or the file cannot be
+	 *         mapped. The caller then reads the file through a channel reader.
+	 */
+	public MemoryMappedFile mapChannel(FileIOChannel.ID channelID, int alignment) {
+		return memoryMappedReads ? MemoryMappedFile.tryMap(channelID, alignment) : null;
+	}
+
+	public boolean isMemoryMappedReadsEnabled() {
+		return memoryMappedReads;
+	}
 
 	// ------------------------------------------------------------------------
 	//                          Utilities
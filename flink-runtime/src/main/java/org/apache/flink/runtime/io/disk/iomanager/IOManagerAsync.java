@@ -19,28 +19,47 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.util.EnvironmentInformation;
 
 import java.io.IOException;
 import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * A version of the {@link IOManager} that uses asynchronous I/O.
+ *
+ * <p>The I/O manager starts a configurable number of reader and writer threads per directory. Every
+ * channel reader and writer is assigned one of the threads of its directory when it is created, so
+ * that the requests of a channel are served in the order in which they were issued. Consecutive
+ * block requests of the same channel that wait in the queue of a thread are merged into a single
+ * vectored read or write.
  */
 public class IOManagerAsync extends IOManager implements UncaughtExceptionHandler {
-	
-	/** The writer threads used for asynchronous block oriented channel writing. */
+
+	/** The maximal number of consecutive block requests that are merged into one read or write. */
+	static final int MAX_BATCH_SIZE = 16;
+
+	/** The number of reader threads and of writer threads per directory. */
+	private final int numThreadsPerDirectory;
+
+	/** The writer threads used for asynchronous block oriented channel writing, grouped by directory. */
 	private final WriterThread[] writers;
 
-	/** The reader threads used for asynchronous block oriented channel reading. */
+	/** The reader threads used for asynchronous block oriented channel reading, grouped by directory. */
 	private final ReaderThread[] readers;
 
+	/** The counters to assign the threads of a directory round robin to new readers and writers. */
+	private final AtomicInteger[] nextThreads;
+
 	/** Flag to signify that the IOManager has been shut down already */
 	private final AtomicBoolean isShutdown = new AtomicBoolean();
 
@@ -74,10 +93,40 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	 * @param tempDirs The directories to write temporary files to.
 	 */
 	public IOManagerAsync(String[] tempDirs) {
-		super(tempDirs);
-		
-		// start a write worker thread for each directory
-		this.writers = new WriterThread[tempDirs.length];
+		this(tempDirs, 1);
+	}
+
+	/**
+	 * Constructs a new asynchronous I/O manger, writing file round robin across the given directories
+	 * and serving every directory with the given number of reader and writer threads.
+	 *
+	 * @param tempDirs The directories to write temporary files to.
+	 * @param numThreadsPerDirectory The number of reader threads and of writer threads per directory.
+	 */
+	public IOManagerAsync(String[] tempDirs, int numThreadsPerDirectory) {
+		this(tempDirs, numThreadsPerDirectory, false);
+	}
+
+	/**
+	 * Constructs a new asynchronous I/O manger, writing file round robin across the given directories
+	 * and serving every directory with the given number of reader and writer threads.
+	 *
+	 * @param tempDirs The directories to write temporary files to.
+	 * @param numThreadsPerDirectory The number of reader threads and of writer threads per directory.
+	 * @param memoryMappedReads Whether finished files may be read through memory mappings.
+	 */
+	public IOManagerAsync(String[] tempDirs, int numThreadsPerDirectory, boolean memoryMappedReads) {
+		super(tempDirs, memoryMappedReads);
+		checkArgument(numThreadsPerDirectory > 0, "The number of threads per directory must be positive.");
+
+		this.numThreadsPerDirectory = numThreadsPerDirectory;
+		this.nextThreads = new AtomicInteger[tempDirs.length];
+		for (int i = 0; i < this.nextThreads.length; i++) {
+			this.nextThreads[i] = new AtomicInteger();
+		}
+
+		// start the write worker threads for each directory
+		this.writers = new WriterThread[tempDirs.length * numThreadsPerDirectory];
 		for (int i = 0; i < this.writers.length; i++) {
 			final WriterThread t = new WriterThread();
 			this.writers[i] = t;
@@ -87,8 +136,8 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 			t.start();
 		}
 
-		// start a reader worker thread for each directory
-		this.readers = new ReaderThread[tempDirs.length];
+		// start the reader worker threads for each directory
+		this.readers = new ReaderThread[tempDirs.length * numThreadsPerDirectory];
 		for (int i = 0; i < this.readers.length; i++) {
 			final ReaderThread t = new ReaderThread();
 			this.readers[i] = t;
@@ -213,6 +262,94 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 		LOG.error("IO Thread '" + t.getName() + "' terminated due to an exception. Shutting down I/O Manager.", e);
 		shutdown();
 	}
+
+	// ------------------------------------------------------------------------
+	//                        Statistics
+	// ------------------------------------------------------------------------
+
+	public int getNumberOfThreadsPerDirectory() {
+		return numThreadsPerDirectory;
+	}
+
+	/**
+	 * Gets the number of read requests that wait to be served for the given directory.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public int getReadQueueDepth(int directory) {
+		int depth = 0;
+		for (int i = firstThread(directory); i < firstThread(directory + 1); i++) {
+			depth += readers[i].requestQueue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * Gets the number of write requests that wait to be served for the given directory.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public int getWriteQueueDepth(int directory) {
+		int depth = 0;
+		for (int i = firstThread(directory); i < firstThread(directory + 1); i++) {
+			depth += writers[i].requestQueue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * Gets the number of read requests that have been served for the given directory.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public long getNumReadRequests(int directory) {
+		long count = 0;
+		for (int i = firstThread(directory); i < firstThread(directory + 1); i++) {
+			count += readers[i].statistics.getNumRequests();
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the number of write requests that have been served for the given directory.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public long getNumWriteRequests(int directory) {
+		long count = 0;
+		for (int i = firstThread(directory); i < firstThread(directory + 1); i++) {
+			count += writers[i].statistics.getNumRequests();
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the recent average time in milliseconds that the read requests of the given directory
+	 * took to be served, not counting the time they waited in the queue.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public double getReadLatency(int directory) {
+		final RequestStatistics[] statistics = new RequestStatistics[numThreadsPerDirectory];
+		for (int i = 0; i < numThreadsPerDirectory; i++) {
+			statistics[i] = readers[firstThread(directory) + i].statistics;
+		}
+		return RequestStatistics.getAverageLatency(statistics);
+	}
+
+	/**
+	 * Gets the recent average time in milliseconds that the write requests of the given directory
+	 * took to be served, not counting the time they waited in the queue.
+	 *
+	 * @param directory The index of the directory in the array of spilling directories.
+	 */
+	public double getWriteLatency(int directory) {
+		final RequestStatistics[] statistics = new RequestStatistics[numThreadsPerDirectory];
+		for (int i = 0; i < numThreadsPerDirectory; i++) {
+			statistics[i] = writers[firstThread(directory) + i].statistics;
+		}
+		return RequestStatistics.getAverageLatency(statistics);
+	}
 	
 	// ------------------------------------------------------------------------
 	//                        Reader / Writer instantiations
@@ -221,15 +358,22 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	@Override
 	public BlockChannelWriter<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID,
 								LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException
+	{
+		return createBlockChannelWriter(channelID, returnQueue, null);
+	}
+
+	@Override
+	public BlockChannelWriter<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID,
+								LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) throws IOException
 	{
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
-		return new AsynchronousBlockWriter(channelID, this.writers[channelID.getThreadNum()].requestQueue, returnQueue);
+		return new AsynchronousBlockWriter(channelID, this.writers[nextThread(channelID)].requestQueue, returnQueue, compressionFactory);
 	}
 	
 	@Override
 	public BlockChannelWriterWithCallback<MemorySegment> createBlockChannelWriter(FileIOChannel.ID channelID, RequestDoneCallback<MemorySegment> callback) throws IOException {
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
-		return new AsynchronousBlockWriterWithCallback(channelID, this.writers[channelID.getThreadNum()].requestQueue, callback);
+		return new AsynchronousBlockWriterWithCallback(channelID, this.writers[nextThread(channelID)].requestQueue, callback);
 	}
 	
 	/**
@@ -245,30 +389,42 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	@Override
 	public BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
 										LinkedBlockingQueue<MemorySegment> returnQueue) throws IOException
+	{
+		return createBlockChannelReader(channelID, returnQueue, null);
+	}
+
+	@Override
+	public BlockChannelReader<MemorySegment> createBlockChannelReader(FileIOChannel.ID channelID,
+										LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) throws IOException
 	{
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
-		return new AsynchronousBlockReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, returnQueue);
+		return new AsynchronousBlockReader(channelID, this.readers[nextThread(channelID)].requestQueue, returnQueue, compressionFactory);
 	}
 
 	@Override
 	public BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID) throws IOException {
+		return createBufferFileWriter(channelID, null);
+	}
+
+	@Override
+	public BufferFileWriter createBufferFileWriter(FileIOChannel.ID channelID, BlockCompressionFactory compressionFactory) throws IOException {
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
 
-		return new AsynchronousBufferFileWriter(channelID, writers[channelID.getThreadNum()].requestQueue);
+		return new AsynchronousBufferFileWriter(channelID, writers[nextThread(channelID)].requestQueue, compressionFactory);
 	}
 
 	@Override
 	public BufferFileReader createBufferFileReader(FileIOChannel.ID channelID, RequestDoneCallback<Buffer> callback) throws IOException {
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
 
-		return new AsynchronousBufferFileReader(channelID, readers[channelID.getThreadNum()].requestQueue, callback);
+		return new AsynchronousBufferFileReader(channelID, readers[nextThread(channelID)].requestQueue, callback);
 	}
 
 	@Override
 	public BufferFileSegmentReader createBufferFileSegmentReader(FileIOChannel.ID channelID, RequestDoneCallback<FileSegment> callback) throws IOException {
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
 
-		return new AsynchronousBufferFileSegmentReader(channelID, readers[channelID.getThreadNum()].requestQueue, callback);
+		return new AsynchronousBufferFileSegmentReader(channelID, readers[nextThread(channelID)].requestQueue, callback);
 	}
 
 	/**
@@ -289,21 +445,51 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 	@Override
 	public BulkBlockChannelReader createBulkBlockChannelReader(FileIOChannel.ID channelID,
 			List<MemorySegment> targetSegments, int numBlocks) throws IOException
+	{
+		return createBulkBlockChannelReader(channelID, targetSegments, numBlocks, null);
+	}
+
+	@Override
+	public BulkBlockChannelReader createBulkBlockChannelReader(FileIOChannel.ID channelID,
+			List<MemorySegment> targetSegments, int numBlocks, BlockCompressionFactory compressionFactory) throws IOException
 	{
 		checkState(!isShutdown.get(), "I/O-Manger is shut down.");
-		return new AsynchronousBulkBlockReader(channelID, this.readers[channelID.getThreadNum()].requestQueue, targetSegments, numBlocks);
+		return new AsynchronousBulkBlockReader(channelID, this.readers[nextThread(channelID)].requestQueue, targetSegments, numBlocks, compressionFactory);
 	}
 	
+	/**
+	 * Gets the index of the thread that serves the next reader or writer of the given channel. The
+	 * threads of the channel's directory take turns.
+	 */
+	private int nextThread(FileIOChannel.ID channelID) {
+		final int directory = channelID.getThreadNum();
+		if (numThreadsPerDirectory == 1) {
+			return directory;
+		}
+		final int turn = nextThreads[directory].getAndIncrement() & Integer.MAX_VALUE;
+		return firstThread(directory) + turn % numThreadsPerDirectory;
+	}
+
+	private int firstThread(int directory) {
+		return directory * numThreadsPerDirectory;
+	}
+
 	// -------------------------------------------------------------------------
 	//                             For Testing
 	// -------------------------------------------------------------------------
 	
+	/**
+	 * Gets the request queue of the first reader thread of the channel's directory.
+	 */
 	RequestQueue<ReadRequest> getReadRequestQueue(FileIOChannel.ID channelID) {
-		return this.readers[channelID.getThreadNum()].requestQueue;
+		return this.readers[firstThread(channelID.getThreadNum())].requestQueue;
 	}
 	
+	/**
+	 * Gets the request queue of the first writer thread of the channel's directory.
+	 */
 	RequestQueue<WriteRequest> getWriteRequestQueue(FileIOChannel.ID channelID) {
-		return this.writers[channelID.getThreadNum()].requestQueue;
+		return this.writers[firstThread(channelID.getThreadNum())].requestQueue;
 	}
 
 	// -------------------------------------------------------------------------
@@ -317,6 +503,11 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 		
 		protected final RequestQueue<ReadRequest> requestQueue;
 
+		protected final RequestStatistics statistics = new RequestStatistics();
+
+		/** The block reads that are merged into one read. */
+		private final ArrayList<SegmentReadRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
 		private volatile boolean alive;
 
 		// ---------------------------------------------------------------------
@@ -388,12 +579,30 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 					}
 				}
 				
+				// take the following block reads of the same channel along
+				batch.clear();
+				if (request instanceof SegmentReadRequest) {
+					final SegmentReadRequest first = (SegmentReadRequest) request;
+					batch.add(first);
+
+					ReadRequest next;
+					while (batch.size() < MAX_BATCH_SIZE && first.canBeBatchedWith(next = requestQueue.peek())
+							&& requestQueue.remove(next)) {
+						batch.add((SegmentReadRequest) next);
+					}
+				}
+
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
+				final long start = System.nanoTime();
 
 				try {
 					// read buffer from the specified channel
-					request.read();
+					if (batch.size() > 1) {
+						SegmentReadRequest.readBatch(batch);
+					} else {
+						request.read();
+					}
 				}
 				catch (IOException e) {
 					ioex = e;
@@ -404,14 +613,27 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 				}
 
 				// invoke the processed buffer handler of the request issuing reader object
-				try {
-					request.requestDone(ioex);
-				}
-				catch (Throwable t) {
-					IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+				if (batch.size() > 1) {
+					statistics.addRequests(batch.size(), System.nanoTime() - start);
+					for (SegmentReadRequest batched : batch) {
+						requestDone(batched, ioex);
+					}
+					batch.clear();
+				} else {
+					statistics.addRequests(1, System.nanoTime() - start);
+					requestDone(request, ioex);
 				}
 			} // end while alive
 		}
+
+		private void requestDone(ReadRequest request, IOException ioex) {
+			try {
+				request.requestDone(ioex);
+			}
+			catch (Throwable t) {
+				IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+			}
+		}
 		
 	} // end reading thread
 	
@@ -422,6 +644,11 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 		
 		protected final RequestQueue<WriteRequest> requestQueue;
 
+		protected final RequestStatistics statistics = new RequestStatistics();
+
+		/** The block writes that are merged into one write. */
+		private final ArrayList<SegmentWriteRequest> batch = new ArrayList<>(MAX_BATCH_SIZE);
+
 		private volatile boolean alive;
 
 		// ---------------------------------------------------------------------
@@ -494,12 +721,30 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 					}
 				}
 				
+				// take the following block writes to the same channel along
+				batch.clear();
+				if (request instanceof SegmentWriteRequest) {
+					final SegmentWriteRequest first = (SegmentWriteRequest) request;
+					batch.add(first);
+
+					WriteRequest next;
+					while (batch.size() < MAX_BATCH_SIZE && first.canBeBatchedWith(next = requestQueue.peek())
+							&& requestQueue.remove(next)) {
+						batch.add((SegmentWriteRequest) next);
+					}
+				}
+
 				// remember any IO exception that occurs, so it can be reported to the writer
 				IOException ioex = null;
+				final long start = System.nanoTime();
 				
 				try {
 					// write buffer to the specified channel
-					request.write();
+					if (batch.size() > 1) {
+						SegmentWriteRequest.writeBatch(batch);
+					} else {
+						request.write();
+					}
 				}
 				catch (IOException e) {
 					ioex = e;
@@ -510,14 +755,71 @@ public class IOManagerAsync extends IOManager implements UncaughtExceptionHandle
 				}
 
 				// invoke the processed buffer handler of the request issuing writer object
-				try {
-					request.requestDone(ioex);
-				}
-				catch (Throwable t) {
-					IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+				if (batch.size() > 1) {
+					statistics.addRequests(batch.size(), System.nanoTime() - start);
+					for (SegmentWriteRequest batched : batch) {
+						requestDone(batched, ioex);
+					}
+					batch.clear();
+				} else {
+					statistics.addRequests(1, System.nanoTime() - start);
+					requestDone(request, ioex);
 				}
 			} // end while alive
 		}
+
+		private void requestDone(WriteRequest request, IOException ioex) {
+			try {
+				request.requestDone(ioex);
+			}
+			catch (Throwable t) {
+				IOManagerAsync.LOG.error("The handler of the request-complete-callback threw an exception" + (t.getMessage() == null ? "." : ": " + t.getMessage()), t);
+			}
+		}
 		
 	}; // end writer thread
+
+	/**
+	 * The number and the recent latency of the requests that an I/O thread has served. The statistics
+	 * are only updated by the thread itself.
+	 */
+	static final class RequestStatistics {
+
+		/** The weight of a new latency sample in the moving average. */
+		private static final double SAMPLE_WEIGHT = 0.1;
+
+		private volatile long numRequests;
+
+		private volatile double averageLatencyNanos;
+
+		/**
+		 * Records that the given number of requests have been served together in the given time.
+		 */
+		void addRequests(int count, long latencyNanos) {
+			averageLatencyNanos = numRequests == 0 ?
+				latencyNanos :
+				averageLatencyNanos + SAMPLE_WEIGHT * (latencyNanos - averageLatencyNanos);
+			numRequests += count;
+		}
+
+		long getNumRequests() {
+			return numRequests;
+		}
+
+		/**
+		 * Gets the average of the recent latencies of the given threads in milliseconds. Threads
+		 * that have not served any request yet are not counted.
+		 */
+		static double getAverageLatency(RequestStatistics[] statistics) {
+			double sum = 0.0;
+			int count = 0;
+			for (RequestStatistics s : statistics) {
+				if (s.numRequests > 0) {
+					sum += s.averageLatencyNanos;
+					count++;
+				}
+			}
+			return count == 0 ? 0.0 : sum / count / 1000000.0;
+		}
+	}
 }
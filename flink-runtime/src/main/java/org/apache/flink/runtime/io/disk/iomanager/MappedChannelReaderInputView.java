@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.memory.AbstractPagedInputView;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A {@link org.apache.flink.core.memory.DataInputView} that reads the blocks written by a
+ * {@link ChannelWriterOutputView} directly from a {@link MemoryMappedFile}. It is the counterpart of
+ * the {@link ChannelReaderInputView}, which reads the blocks into memory segments through a
+ * {@link BlockChannelReader}.
+ *
+ * <p>The view can only read uncompressed channels, in which every block has the full block size.
+ */
+public class MappedChannelReaderInputView extends AbstractPagedInputView {
+
+	private final MemoryMappedFile file;
+
+	private final int blockSize;
+
+	private final int numBlocks;
+
+	private int nextBlock;
+
+	private boolean inLastBlock;
+
+	/**
+	 * Creates a new view that reads the blocks of the given file.
+	 *
+	 * @param file The mapped file, which must have been mapped with the block size as alignment.
+	 * @param blockSize The size of the blocks, which is the size of the segments of the writer.
+	 * @param numBlocks The number of blocks in the file, or -1, to derive it from the file size.
+	 */
+	public MappedChannelReaderInputView(MemoryMappedFile file, int blockSize, int numBlocks) {
+		super(ChannelWriterOutputView.HEADER_LENGTH);
+
+		this.file = checkNotNull(file);
+		checkArgument(blockSize > ChannelWriterOutputView.HEADER_LENGTH, "The block size is too small.");
+		checkArgument(numBlocks > 0 || numBlocks == -1, "The number of blocks must be a positive number, or -1, if unknown.");
+
+		this.blockSize = blockSize;
+		this.numBlocks = numBlocks == -1 ? (int) (file.getSize() / blockSize) : numBlocks;
+	}
+
+	public MemoryMappedFile getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes the view and the underlying file, which unmaps the file. The segments handed out by the
+	 * view must not be accessed any more.
+	 */
+	public void close() throws IOException {
+		final MemorySegment current = getCurrentSegment();
+		if (current != null) {
+			file.releaseSegment(current);
+		}
+		clear();
+		file.close();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	protected MemorySegment nextSegment(MemorySegment current) throws IOException {
+		if (current != null) {
+			// accesses through stale references fail instead of reading the mapping, and the
+			// mapping can be unmapped once the file is closed
+			file.releaseSegment(current);
+		}
+		if (inLastBlock || nextBlock >= numBlocks) {
+			throw new EOFException();
+		}
+
+		final MemorySegment seg = file.getSegment((long) nextBlock * blockSize, blockSize);
+		nextBlock++;
+
+		// check the header
+		if (seg.getShort(0) != ChannelWriterOutputView.HEADER_MAGIC_NUMBER) {
+			throw new IOException("The current block does not belong to a ChannelWriterOutputView / " +
+					"MappedChannelReaderInputView: Wrong magic number.");
+		}
+		if ((seg.getShort(ChannelWriterOutputView.HEADER_FLAGS_OFFSET) & ChannelWriterOutputView.FLAG_LAST_BLOCK) != 0) {
+			inLastBlock = true;
+		}
+
+		return seg;
+	}
+
+	@Override
+	protected int getLimitForSegment(MemorySegment segment) {
+		return segment.getInt(ChannelWriterOutputView.HEAD_BLOCK_LENGTH_OFFSET);
+	}
+}
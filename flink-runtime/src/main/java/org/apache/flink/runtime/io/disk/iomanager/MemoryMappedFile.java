@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.core.memory.HybridMemorySegment;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * A finished file that is mapped into memory for reading. Ranges of the file are handed out as
+ * off-heap {@link HybridMemorySegment}s, which read the file contents directly from the page cache,
+ * without copying them into managed memory and without a round trip through the I/O threads.
+ *
+ * <p>A single mapping can cover at most 2 GB, so larger files are mapped in several regions. The
+ * size of the regions is a multiple of the alignment given when the file is mapped, such that blocks
+ * of that size never cross two regions.
+ *
+ * <p>The mappings are reference counted: the file holds one reference until it is closed, and every
+ * segment handed out by {@link #getSegment(long, int)} holds one until it is given back through
+ * {@link #releaseSegment(MemorySegment)}. The regions are unmapped once the last reference is gone.
+ * Unmapping earlier would let a segment that another thread still reads point to unmapped memory and
+ * crash the JVM. Segments that are never released keep the mappings alive until the garbage collector
+ * releases them.
+ */
+public final class MemoryMappedFile extends AbstractFileIOChannel {
+
+	/** The largest region that can be mapped at once. */
+	private static final long MAX_REGION_SIZE = Integer.MAX_VALUE;
+
+	private final long size;
+
+	private final long regionSize;
+
+	/** The lock that guards the reference count and the mapped regions. */
+	private final Object lock = new Object();
+
+	/** The mapped regions, or null, once they are unmapped. */
+	private MappedByteBuffer[] regions;
+
+	/** The number of references to the regions, held by the open file and the unreleased segments. */
+	private int referenceCount = 1;
+
+	private boolean closed;
+
+	private MemoryMappedFile(FileIOChannel.ID channelID, int alignment) throws IOException {
+		super(channelID, false);
+		checkArgument(alignment > 0, "The alignment must be positive.");
+
+		this.size = fileChannel.size();
+		this.regionSize = MAX_REGION_SIZE / alignment * alignment;
+
+		final MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+		try {
+			for (int i = 0; i < regions.length; i++) {
+				final long position = i * regionSize;
+				regions[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+			}
+		}
+		catch (IOException e) {
+			fileChannel.close();
+			throw e;
+		}
+		this.regions = regions;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Maps the file of the given channel into memory.
+	 *
+	 * @param channelID The channel of the finished file.
+	 * @param alignment The size of the regions is a multiple of this value.
+	 * @return The mapped file.
+	 * @throws IOException Thrown, if the file could not be opened or mapped.
+	 */
+	public static MemoryMappedFile map(FileIOChannel.ID channelID, int alignment) throws IOException {
+		return new MemoryMappedFile(channelID, alignment);
+	}
+
+	/**
+	 * Maps the file of the given channel into memory, if files can be mapped in this JVM.
+	 *
+	 * @param channelID The channel of the finished file.
+	 * @param alignment The size of the regions is a multiple of this value.
+	 * @return The mapped file, or null, if the file cannot be mapped, for example because the
+	 *         address space of the process is exhausted. The caller then reads the file through
+	 *         the I/O manager instead.
+	 */
+	public static MemoryMappedFile tryMap(FileIOChannel.ID channelID, int alignment) {
+		if (!isSupported()) {
+			return null;
+		}
+
+		try {
+			return new MemoryMappedFile(channelID, alignment);
+		}
+		catch (IOException e) {
+			// mapping fails with an IOException that wraps an OutOfMemoryError if the address space is exhausted
+			LOG.debug("Could not map file {} into memory. Reading it through the I/O manager instead.",
+				channelID.getPath(), e);
+			return null;
+		}
+	}
+
+	/**
+	 * Checks whether files can be mapped in this JVM. That requires a 64 bit address space, and that
+	 * the memory segments are {@link HybridMemorySegment}s, because mixing the types of memory
+	 * segments slows down all code that accesses them.
+	 */
+	public static boolean isSupported() {
+		return !"32".equals(System.getProperty("sun.arch.data.model")) &&
+			MemorySegmentFactory.getFactory() == HybridMemorySegment.FACTORY;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public long getSize() {
+		return size;
+	}
+
+	public int getNumberOfRegions() {
+		synchronized (lock) {
+			checkState(!closed, "The file has been closed.");
+			return regions.length;
+		}
+	}
+
+	/**
+	 * Gets a memory segment over the given range of the file. The range must not cross the border of
+	 * two regions. The segment keeps the mapping alive until it is released with
+	 * {@link #releaseSegment(MemorySegment)}.
+	 *
+	 * @param offset The offset of the range in the file.
+	 * @param length The length of the range.
+	 * @return An off-heap memory segment that reads the range of the file.
+	 */
+	public MemorySegment getSegment(long offset, int length) {
+		checkArgument(offset >= 0 && length >= 0 && offset + length <= size, "The range is not within the file.");
+
+		final int region = (int) (offset / regionSize);
+		final int offsetInRegion = (int) (offset - region * regionSize);
+		checkArgument(offsetInRegion + (long) length <= regionSize, "The range crosses the border of two regions.");
+
+		synchronized (lock) {
+			checkState(!closed, "The file has been closed.");
+
+			// the duplicate keeps the position and limit of the shared region untouched
+			final ByteBuffer slice = regions[region].duplicate();
+			slice.limit(offsetInRegion + length);
+			slice.position(offsetInRegion);
+
+			referenceCount++;
+			return HybridMemorySegment.FACTORY.wrapPooledOffHeapMemory(slice.slice(), this);
+		}
+	}
+
+	/**
+	 * Frees a segment that was handed out by this file and gives back its reference to the mapping.
+	 * Releasing a segment that is already freed has no effect.
+	 *
+	 * @param segment The segment to release.
+	 */
+	public void releaseSegment(MemorySegment segment) {
+		checkArgument(segment.getOwner() == this, "The segment was not handed out by this file.");
+
+		synchronized (lock) {
+			if (!segment.isFreed()) {
+				segment.free();
+				releaseReference();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of references to the mapping, which are held by the open file and the segments
+	 * that have not been released.
+	 */
+	public int getReferenceCount() {
+		synchronized (lock) {
+			return referenceCount;
+		}
+	}
+
+	@Override
+	public boolean isClosed() {
+		synchronized (lock) {
+			return closed;
+		}
+	}
+
+	/**
+	 * Closes the file. The regions are unmapped right away if all segments have been released, and
+	 * otherwise once the last segment is released.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				fileChannel.close();
+			}
+			finally {
+				releaseReference();
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private void releaseReference() {
+		assert Thread.holdsLock(lock);
+
+		if (--referenceCount == 0) {
+			for (MappedByteBuffer region : regions) {
+				unmap(region);
+			}
+			regions = null;
+		}
+	}
+
+	/**
+	 * Unmaps the given region right away through its cleaner. If the cleaner cannot be accessed in
+	 * this JVM, the garbage collector unmaps the region once it is unreachable.
+	 *
+	 * <p>The region must not be accessed any more after this call.
+	 */
+	public static void unmap(MappedByteBuffer region) {
+		try {
+			final Method cleanerMethod = region.getClass().getMethod("cleaner");
+			cleanerMethod.setAccessible(true);
+			final Object cleaner = cleanerMethod.invoke(region);
+			if (cleaner != null) {
+				final Method cleanMethod = cleaner.getClass().getMethod("clean");
+				cleanMethod.setAccessible(true);
+				cleanMethod.invoke(cleaner);
+			}
+		}
+		catch (Throwable t) {
+			LOG.debug("Could not unmap a region explicitly. The garbage collector releases it instead.", t);
+		}
+	}
+}
@@ -18,6 +18,7 @@
 
 package org.apache.flink.runtime.io.disk.iomanager;
 
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 
 import java.io.IOException;
@@ -35,10 +36,24 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 
 	private final ByteBuffer header = ByteBuffer.allocateDirect(8);
 
+	/** The codec to decompress the buffers, or null, if the buffers are written uncompressed. */
+	private final CompressedChannelCodec codec;
+
 	private boolean hasReachedEndOfFile;
 
 	public SynchronousBufferFileReader(ID channelID, boolean writeEnabled) throws IOException {
+		this(channelID, writeEnabled, null);
+	}
+
+	/**
+	 * Creates a reader for a buffer file, which has been written with the given compression.
+	 *
+	 * @param compressionFactory The factory for the decompressor of the buffers, or null, if the
+	 *                           buffers are not compressed.
+	 */
+	public SynchronousBufferFileReader(ID channelID, boolean writeEnabled, BlockCompressionFactory compressionFactory) throws IOException {
 		super(channelID, writeEnabled);
+		this.codec = compressionFactory == null ? null : new CompressedChannelCodec(compressionFactory);
 	}
 
 	@Override
@@ -54,13 +69,18 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 			final boolean isBuffer = header.getInt() == 1;
 			final int size = header.getInt();
 
-			if (size > buffer.getMemorySegment().size()) {
+			if (codec != null) {
+				// the size is the compressed size, the decompressor checks the size of the target
+				buffer.setSize(codec.decompressBuffer(fileChannel, size, buffer.getMemorySegment()));
+			}
+			else if (size > buffer.getMemorySegment().size()) {
 				throw new IllegalStateException("Buffer is too small for data: " + buffer.getMemorySegment().size() + " bytes available, but " + size + " needed. This is most likely due to an serialized event, which is larger than the buffer size.");
 			}
+			else {
+				buffer.setSize(size);
 
-			buffer.setSize(size);
-
-			fileChannel.read(buffer.getNioBuffer());
+				fileChannel.read(buffer.getNioBuffer());
+			}
 
 			if (!isBuffer) {
 				buffer.tagAsEvent();
@@ -75,6 +95,9 @@ public class SynchronousBufferFileReader extends SynchronousFileIOChannel implem
 
 	@Override
 	public void seekToPosition(long position) throws IOException {
+		if (codec != null) {
+			throw new UnsupportedOperationException("Compressed channels can only be read sequentially.");
+		}
 		fileChannel.position(position);
 	}
 
@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network;
 
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager.IOMode;
@@ -41,6 +42,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -73,6 +75,12 @@ public class NetworkEnvironment {
 
 	private final int partitionRequestMaxBackoff;
 
+	/** Number of exclusive network buffers of each remote input channel. */
+	private final int networkBuffersPerChannel;
+
+	/** Number of floating network buffers in the buffer pool of each input gate. */
+	private final int floatingNetworkBuffersPerGate;
+
 	private boolean isShutdown;
 
 	public NetworkEnvironment(
@@ -86,6 +94,25 @@ public class NetworkEnvironment {
 			int partitionRequestInitialBackoff,
 			int partitionRequestMaxBackoff) {
 
+		this(networkBufferPool, connectionManager, resultPartitionManager, taskEventDispatcher,
+				kvStateRegistry, kvStateServer, defaultIOMode, partitionRequestInitialBackoff,
+				partitionRequestMaxBackoff, TaskManagerOptions.NETWORK_BUFFERS_PER_CHANNEL.defaultValue(),
+				TaskManagerOptions.NETWORK_FLOATING_BUFFERS_PER_GATE.defaultValue());
+	}
+
+	public NetworkEnvironment(
+			NetworkBufferPool networkBufferPool,
+			ConnectionManager connectionManager,
+			ResultPartitionManager resultPartitionManager,
+			TaskEventDispatcher taskEventDispatcher,
+			KvStateRegistry kvStateRegistry,
+			KvStateServer kvStateServer,
+			IOMode defaultIOMode,
+			int partitionRequestInitialBackoff,
+			int partitionRequestMaxBackoff,
+			int networkBuffersPerChannel,
+			int floatingNetworkBuffersPerGate) {
+
 		this.networkBufferPool = checkNotNull(networkBufferPool);
 		this.connectionManager = checkNotNull(connectionManager);
 		this.resultPartitionManager = checkNotNull(resultPartitionManager);
@@ -99,6 +126,12 @@ public class NetworkEnvironment {
 		this.partitionRequestInitialBackoff = partitionRequestInitialBackoff;
 		this.partitionRequestMaxBackoff = partitionRequestMaxBackoff;
 
+		checkArgument(networkBuffersPerChannel > 0, "The number of buffers per channel must be positive.");
+		this.networkBuffersPerChannel = networkBuffersPerChannel;
+
+		checkArgument(floatingNetworkBuffersPerGate > 0, "The number of floating buffers per gate must be positive.");
+		this.floatingNetworkBuffersPerGate = floatingNetworkBuffersPerGate;
+
 		isShutdown = false;
 	}
 
@@ -134,6 +167,14 @@ public class NetworkEnvironment {
 		return partitionRequestMaxBackoff;
 	}
 
+	public int getNetworkBuffersPerChannel() {
+		return networkBuffersPerChannel;
+	}
+
+	public int getFloatingNetworkBuffersPerGate() {
+		return floatingNetworkBuffersPerGate;
+	}
+
 	public KvStateRegistry getKvStateRegistry() {
 		return kvStateRegistry;
 	}
@@ -194,17 +235,32 @@ public class NetworkEnvironment {
 			// Setup the buffer pool for each buffer reader
 			final SingleInputGate[] inputGates = task.getAllInputGates();
 
-			for (SingleInputGate gate : inputGates) {
+			for (int i = 0; i < inputGates.length; i++) {
+				final SingleInputGate gate = inputGates[i];
 				BufferPool bufferPool = null;
 
 				try {
-					bufferPool = networkBufferPool.createBufferPool(gate.getNumberOfInputChannels(), false);
+					// The buffer pool only provides the floating buffers, the remote channels
+					// get their exclusive buffers for credit-based flow control directly
+					bufferPool = networkBufferPool.createBufferPool(floatingNetworkBuffersPerGate, false);
 					gate.setBufferPool(bufferPool);
+
+					gate.assignExclusiveSegments(networkBufferPool, networkBuffersPerChannel);
 				} catch (Throwable t) {
 					if (bufferPool != null) {
 						bufferPool.lazyDestroy();
 					}
 
+					// Return the exclusive buffers of this gate and of the gates set up before,
+					// which would otherwise be held until the task is unregistered
+					for (int j = 0; j <= i; j++) {
+						try {
+							inputGates[j].releaseAllResources();
+						} catch (Throwable releaseError) {
+							t.addSuppressed(releaseError);
+						}
+					}
+
 					if (t instanceof IOException) {
 						throw (IOException) t;
 					} else {
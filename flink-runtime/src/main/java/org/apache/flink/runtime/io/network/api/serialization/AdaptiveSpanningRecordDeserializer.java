@@ -144,6 +144,22 @@ public class AdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> im
 		return this.nonSpanningWrapper.remaining() > 0 || this.spanningWrapper.getNumGatheredBytes() > 0;
 	}
 
+	@Override
+	public byte[] getUnconsumedBytes() throws IOException {
+		final byte[] partialRecord = this.spanningWrapper.getPartialRecordBytes();
+		final int nonSpanningRemaining = this.nonSpanningWrapper.remaining();
+
+		if (nonSpanningRemaining == 0) {
+			return partialRecord;
+		}
+
+		final byte[] unconsumed = new byte[partialRecord.length + nonSpanningRemaining];
+		System.arraycopy(partialRecord, 0, unconsumed, 0, partialRecord.length);
+		this.nonSpanningWrapper.segment.get(
+				this.nonSpanningWrapper.position, unconsumed, partialRecord.length, nonSpanningRemaining);
+		return unconsumed;
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	private static final class NonSpanningWrapper implements DataInputView {
@@ -503,6 +519,26 @@ public class AdaptiveSpanningRecordDeserializer<T extends IOReadableWritable> im
 			return this.recordLimit + (this.recordLength >= 0 ? 4 : lengthBuffer.position()) + this.serializationBuffer.length();
 		}
 
+		/**
+		 * Returns the bytes of the partially gathered record, starting with its length.
+		 */
+		private byte[] getPartialRecordBytes() {
+			if (this.recordLength < 0) {
+				// at most a part of the length has been gathered
+				final byte[] partialLength = new byte[this.lengthBuffer.position()];
+				for (int i = 0; i < partialLength.length; i++) {
+					partialLength[i] = this.lengthBuffer.get(i);
+				}
+				return partialLength;
+			}
+
+			final int numRecordBytes = this.serializationBuffer.length();
+			final byte[] partialRecord = new byte[4 + numRecordBytes];
+			ByteBuffer.wrap(partialRecord).order(ByteOrder.BIG_ENDIAN).putInt(0, this.recordLength);
+			System.arraycopy(this.serializationBuffer.getByteArray(), 0, partialRecord, 4, numRecordBytes);
+			return partialRecord;
+		}
+
 		public void clear() {
 			this.serializationBuffer.clear();
 			this.serializationBuffer.pruneBuffer();
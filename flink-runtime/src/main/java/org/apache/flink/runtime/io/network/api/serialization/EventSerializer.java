@@ -56,6 +56,8 @@ public class EventSerializer {
 
 	private static final int CANCEL_CHECKPOINT_MARKER_EVENT = 4;
 
+	private static final byte UNALIGNED_FLAG = 1;
+
 	// ------------------------------------------------------------------------
 
 	public static ByteBuffer toSerializedEvent(AbstractEvent event) throws IOException {
@@ -71,11 +73,15 @@ public class EventSerializer {
 
 			ByteBuffer buf;
 			if (checkpointType == CheckpointType.FULL_CHECKPOINT) {
-				buf = ByteBuffer.allocate(24);
+				// unaligned checkpoints carry a trailing flag byte
+				buf = ByteBuffer.allocate(checkpointOptions.isUnaligned() ? 25 : 24);
 				buf.putInt(0, CHECKPOINT_BARRIER_EVENT);
 				buf.putLong(4, barrier.getId());
 				buf.putLong(12, barrier.getTimestamp());
 				buf.putInt(20, checkpointType.ordinal());
+				if (checkpointOptions.isUnaligned()) {
+					buf.put(24, UNALIGNED_FLAG);
+				}
 			} else if (checkpointType == CheckpointType.SAVEPOINT) {
 				String targetLocation = checkpointOptions.getTargetLocation();
 				assert(targetLocation != null);
@@ -210,7 +216,11 @@ public class EventSerializer {
 				CheckpointType checkpointType = CheckpointType.values()[checkpointTypeOrdinal];
 
 				if (checkpointType == CheckpointType.FULL_CHECKPOINT) {
-					checkpointOptions = CheckpointOptions.forFullCheckpoint();
+					if (buffer.hasRemaining() && buffer.get() == UNALIGNED_FLAG) {
+						checkpointOptions = CheckpointOptions.forUnalignedCheckpoint();
+					} else {
+						checkpointOptions = CheckpointOptions.forFullCheckpoint();
+					}
 				} else if (checkpointType == CheckpointType.SAVEPOINT) {
 					int len = buffer.getInt();
 					byte[] bytes = new byte[len];
@@ -300,4 +310,25 @@ public class EventSerializer {
 		return !buffer.isBuffer() &&
 			isEvent(buffer.getNioBuffer(), eventClass, classLoader);
 	}
+
+	/**
+	 * Identifies whether the given buffer encodes a {@link CheckpointBarrier} of an unaligned
+	 * checkpoint, without deserializing the barrier.
+	 *
+	 * @param buffer the buffer to peak into
+	 * @return whether the <tt>buffer</tt> encodes the barrier of an unaligned checkpoint
+	 */
+	public static boolean isUnalignedCheckpointBarrier(final Buffer buffer) {
+		if (buffer.isBuffer()) {
+			return false;
+		}
+
+		final ByteBuffer serialized = buffer.getNioBuffer();
+		serialized.order(ByteOrder.BIG_ENDIAN);
+
+		return serialized.remaining() == 25 &&
+			serialized.getInt(0) == CHECKPOINT_BARRIER_EVENT &&
+			serialized.getInt(20) == CheckpointType.FULL_CHECKPOINT.ordinal() &&
+			serialized.get(24) == UNALIGNED_FLAG;
+	}
 }
@@ -64,4 +64,15 @@ public interface RecordDeserializer<T extends IOReadableWritable> {
 	void clear();
 	
 	boolean hasUnfinishedData();
+
+	/**
+	 * Returns the data that has been handed to this deserializer but not yet been turned into
+	 * a record, i.e. the beginning of a record that spans into buffers that have not been set
+	 * yet. Feeding the returned bytes into a fresh deserializer restores its state.
+	 *
+	 * <p>This must only be called after the current buffer has been fully consumed.
+	 *
+	 * @return The unconsumed bytes, or an empty array if there are none.
+	 */
+	byte[] getUnconsumedBytes() throws IOException;
 }
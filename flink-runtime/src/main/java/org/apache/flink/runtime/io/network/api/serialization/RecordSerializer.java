@@ -20,6 +20,7 @@
 package org.apache.flink.runtime.io.network.api.serialization;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
@@ -75,6 +76,22 @@ public interface RecordSerializer<T extends IOReadableWritable> {
 	 */
 	SerializationResult addRecord(T record) throws IOException;
 
+	/**
+	 * Starts copying a record, which has already been serialized, to the target
+	 * buffer (if available). This allows to serialize a record only once when it
+	 * is sent to several channels.
+	 *
+	 * <p>The serializer only reads the given bytes and does not modify the position
+	 * of the given buffer. The bytes must not be modified until the record has been
+	 * completely copied to target buffers.</p>
+	 *
+	 * @param serializedRecord the bytes of the serialized record, without length header
+	 * @return how much information was written to the target buffer and
+	 *         whether this buffer is full
+	 * @throws IOException
+	 */
+	SerializationResult addSerializedRecord(ByteBuffer serializedRecord) throws IOException;
+
 	/**
 	 * Sets a (next) target buffer to use and continues writing remaining data
 	 * to it until it is full.
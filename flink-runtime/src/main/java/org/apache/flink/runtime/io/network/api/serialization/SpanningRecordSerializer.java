@@ -104,6 +104,37 @@ public class SpanningRecordSerializer<T extends IOReadableWritable> implements R
 		return getSerializationResult();
 	}
 
+	/**
+	 * Starts copying an already serialized record to the target buffer (if available). The
+	 * bytes of the record are not copied to the intermediate data serialization buffer, but
+	 * are directly copied from the given buffer to the target buffers.
+	 *
+	 * @param serializedRecord the bytes of the serialized record, without length header
+	 * @return how much information was written to the target buffer and
+	 *         whether this buffer is full
+	 * @throws IOException
+	 */
+	@Override
+	public SerializationResult addSerializedRecord(ByteBuffer serializedRecord) throws IOException {
+		if (CHECKED) {
+			if (this.dataBuffer.hasRemaining()) {
+				throw new IllegalStateException("Pending serialization of previous record.");
+			}
+		}
+
+		this.lengthBuffer.clear();
+		this.lengthBuffer.putInt(0, serializedRecord.remaining());
+
+		// the duplicate has its own position, so that the bytes can be shared by several serializers
+		this.dataBuffer = serializedRecord.duplicate();
+
+		// Copy from intermediate buffers to current target memory segment
+		copyToTargetBufferFrom(this.lengthBuffer);
+		copyToTargetBufferFrom(this.dataBuffer);
+
+		return getSerializationResult();
+	}
+
 	@Override
 	public SerializationResult setNextBuffer(Buffer buffer) throws IOException {
 		this.targetBuffer = buffer;
@@ -167,6 +167,22 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 		return this.nonSpanningWrapper.remaining() > 0 || this.spanningWrapper.getNumGatheredBytes() > 0;
 	}
 
+	@Override
+	public byte[] getUnconsumedBytes() throws IOException {
+		final byte[] partialRecord = this.spanningWrapper.getPartialRecordBytes();
+		final int nonSpanningRemaining = this.nonSpanningWrapper.remaining();
+
+		if (nonSpanningRemaining == 0) {
+			return partialRecord;
+		}
+
+		final byte[] unconsumed = new byte[partialRecord.length + nonSpanningRemaining];
+		System.arraycopy(partialRecord, 0, unconsumed, 0, partialRecord.length);
+		this.nonSpanningWrapper.segment.get(
+				this.nonSpanningWrapper.position, unconsumed, partialRecord.length, nonSpanningRemaining);
+		return unconsumed;
+	}
+
 
 	// -----------------------------------------------------------------------------------------------------------------
 	
@@ -578,6 +594,40 @@ public class SpillingAdaptiveSpanningRecordDeserializer<T extends IOReadableWrit
 			return this.accumulatedRecordBytes + (this.recordLength >= 0 ? 4 : lengthBuffer.position());
 		}
 
+		/**
+		 * Returns the bytes of the partially gathered record, starting with its length.
+		 */
+		private byte[] getPartialRecordBytes() throws IOException {
+			if (this.recordLength < 0) {
+				// at most a part of the length has been gathered
+				final byte[] partialLength = new byte[this.lengthBuffer.position()];
+				for (int i = 0; i < partialLength.length; i++) {
+					partialLength[i] = this.lengthBuffer.get(i);
+				}
+				return partialLength;
+			}
+
+			final byte[] partialRecord = new byte[4 + this.accumulatedRecordBytes];
+			ByteBuffer.wrap(partialRecord).order(ByteOrder.BIG_ENDIAN).putInt(0, this.recordLength);
+
+			if (this.spillingChannel == null) {
+				System.arraycopy(this.buffer, 0, partialRecord, 4, this.accumulatedRecordBytes);
+			}
+			else {
+				// positional reads do not change the position at which the channel is spilled to
+				ByteBuffer target = ByteBuffer.wrap(partialRecord, 4, this.accumulatedRecordBytes);
+				long position = 0;
+				while (target.hasRemaining()) {
+					int read = this.spillingChannel.read(target, position);
+					if (read < 0) {
+						throw new EOFException("Spilled part of the record is incomplete.");
+					}
+					position += read;
+				}
+			}
+			return partialRecord;
+		}
+
 		public void clear() {
 			this.buffer = initialBuffer;
 			this.serializationReadBuffer.releaseArrays();
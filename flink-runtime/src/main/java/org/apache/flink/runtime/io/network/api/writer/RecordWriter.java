@@ -21,16 +21,22 @@ package org.apache.flink.runtime.io.network.api.writer;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.serialization.RecordSerializer;
 import org.apache.flink.runtime.io.network.api.serialization.SpanningRecordSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
 import org.apache.flink.util.XORShiftRandom;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.apache.flink.runtime.io.network.api.serialization.RecordSerializer.SerializationResult;
 
@@ -44,6 +50,11 @@ import static org.apache.flink.runtime.io.network.api.serialization.RecordSerial
  * all records have been written with {@link #emit(IOReadableWritable)}. This
  * ensures that all produced records are written to the output stream (incl.
  * partially filled ones).
+ * <p>
+ * The serializer of each channel is guarded by a lock of the channel. Threads other than the
+ * one emitting records (for example the one flushing the output periodically) must never block
+ * on that lock, because the emitting thread holds it while it waits for a buffer under
+ * backpressure. They use {@link #tryFlush()}, which skips the channels that are in use.
  *
  * @param <T> the type of the record that can be emitted with this record writer
  */
@@ -58,6 +69,18 @@ public class RecordWriter<T extends IOReadableWritable> {
 	/** {@link RecordSerializer} per outgoing channel */
 	private final RecordSerializer<T>[] serializers;
 
+	/** The lock per outgoing channel that guards its serializer */
+	private final ReentrantLock[] channelLocks;
+
+	/** Per outgoing channel, 1 if data was written to the channel since its last flush, 0 otherwise */
+	private final AtomicIntegerArray unflushedChannels;
+
+	/**
+	 * Intermediate buffer for records that are sent to several channels, so that these
+	 * records are serialized only once. Only accessed by the thread emitting records.
+	 */
+	private final DataOutputSerializer multiTargetSerializationBuffer = new DataOutputSerializer(128);
+
 	private final Random RNG = new XORShiftRandom();
 
 	private Counter numBytesOut = new SimpleCounter();
@@ -79,24 +102,50 @@ public class RecordWriter<T extends IOReadableWritable> {
 		 * serializer.
 		 */
 		this.serializers = new SpanningRecordSerializer[numChannels];
+		this.channelLocks = new ReentrantLock[numChannels];
 		for (int i = 0; i < numChannels; i++) {
 			serializers[i] = new SpanningRecordSerializer<T>();
+			channelLocks[i] = new ReentrantLock();
 		}
+
+		this.unflushedChannels = new AtomicIntegerArray(numChannels);
 	}
 
 	public void emit(T record) throws IOException, InterruptedException {
-		for (int targetChannel : channelSelector.selectChannels(record, numChannels)) {
-			sendToTarget(record, targetChannel);
+		int[] targetChannels = channelSelector.selectChannels(record, numChannels);
+
+		if (targetChannels.length == 1) {
+			sendToTarget(record, targetChannels[0]);
+		} else if (targetChannels.length > 1) {
+			ByteBuffer serializedRecord = serializeRecord(record);
+			try {
+				for (int targetChannel : targetChannels) {
+					sendToTarget(serializedRecord, targetChannel);
+				}
+			} finally {
+				multiTargetSerializationBuffer.pruneBuffer();
+			}
 		}
 	}
 
 	/**
 	 * This is used to broadcast Streaming Watermarks in-band with records. This ignores
-	 * the {@link ChannelSelector}.
+	 * the {@link ChannelSelector}. The record is serialized only once and the serialized
+	 * bytes are copied to the buffers of all channels.
 	 */
 	public void broadcastEmit(T record) throws IOException, InterruptedException {
-		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
-			sendToTarget(record, targetChannel);
+		if (numChannels == 1) {
+			sendToTarget(record, 0);
+			return;
+		}
+
+		ByteBuffer serializedRecord = serializeRecord(record);
+		try {
+			for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+				sendToTarget(serializedRecord, targetChannel);
+			}
+		} finally {
+			multiTargetSerializationBuffer.pruneBuffer();
 		}
 	}
 
@@ -110,28 +159,74 @@ public class RecordWriter<T extends IOReadableWritable> {
 	private void sendToTarget(T record, int targetChannel) throws IOException, InterruptedException {
 		RecordSerializer<T> serializer = serializers[targetChannel];
 
-		synchronized (serializer) {
-			SerializationResult result = serializer.addRecord(record);
+		channelLocks[targetChannel].lock();
+		try {
+			writeToTarget(serializer.addRecord(record), targetChannel, serializer);
+		} finally {
+			channelLocks[targetChannel].unlock();
+		}
+		markUnflushed(targetChannel);
+	}
 
-			while (result.isFullBuffer()) {
-				Buffer buffer = serializer.getCurrentBuffer();
+	private void sendToTarget(ByteBuffer serializedRecord, int targetChannel) throws IOException, InterruptedException {
+		RecordSerializer<T> serializer = serializers[targetChannel];
 
-				if (buffer != null) {
-					numBytesOut.inc(buffer.getSize());
-					writeAndClearBuffer(buffer, targetChannel, serializer);
-
-					// If this was a full record, we are done. Not breaking
-					// out of the loop at this point will lead to another
-					// buffer request before breaking out (that would not be
-					// a problem per se, but it can lead to stalls in the
-					// pipeline).
-					if (result.isFullRecord()) {
-						break;
-					}
-				} else {
-					buffer = targetPartition.getBufferProvider().requestBufferBlocking();
-					result = serializer.setNextBuffer(buffer);
+		channelLocks[targetChannel].lock();
+		try {
+			writeToTarget(serializer.addSerializedRecord(serializedRecord), targetChannel, serializer);
+		} finally {
+			channelLocks[targetChannel].unlock();
+		}
+		markUnflushed(targetChannel);
+	}
+
+	private void markUnflushed(int targetChannel) {
+		// avoid the volatile write, if the flag is already set
+		if (unflushedChannels.get(targetChannel) == 0) {
+			unflushedChannels.set(targetChannel, 1);
+		}
+	}
+
+	/**
+	 * Serializes a record, which is sent to several channels, to the shared serialization
+	 * buffer. The returned bytes are valid until the next record is serialized.
+	 */
+	private ByteBuffer serializeRecord(T record) throws IOException {
+		multiTargetSerializationBuffer.clear();
+		record.write(multiTargetSerializationBuffer);
+
+		return multiTargetSerializationBuffer.wrapAsByteBuffer();
+	}
+
+	/**
+	 * Writes all full buffers of the serializer to the {@link ResultPartitionWriter} and
+	 * requests new buffers until the current record has been completely copied.
+	 *
+	 * Needs to hold the lock of the channel!
+	 */
+	private void writeToTarget(
+			SerializationResult result,
+			int targetChannel,
+			RecordSerializer<T> serializer) throws IOException, InterruptedException {
+
+		while (result.isFullBuffer()) {
+			Buffer buffer = serializer.getCurrentBuffer();
+
+			if (buffer != null) {
+				numBytesOut.inc(buffer.getSize());
+				writeAndClearBuffer(buffer, targetChannel, serializer);
+
+				// If this was a full record, we are done. Not breaking
+				// out of the loop at this point will lead to another
+				// buffer request before breaking out (that would not be
+				// a problem per se, but it can lead to stalls in the
+				// pipeline).
+				if (result.isFullRecord()) {
+					break;
 				}
+			} else {
+				buffer = targetPartition.getBufferProvider().requestBufferBlocking();
+				result = serializer.setNextBuffer(buffer);
 			}
 		}
 	}
@@ -142,7 +237,8 @@ public class RecordWriter<T extends IOReadableWritable> {
 			for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
 				RecordSerializer<T> serializer = serializers[targetChannel];
 
-				synchronized (serializer) {
+				channelLocks[targetChannel].lock();
+				try {
 					Buffer buffer = serializer.getCurrentBuffer();
 					if (buffer != null) {
 						numBytesOut.inc(buffer.getSize());
@@ -155,6 +251,8 @@ public class RecordWriter<T extends IOReadableWritable> {
 					// retain the buffer so that it can be recycled by each channel of targetPartition
 					eventBuffer.retain();
 					targetPartition.writeBuffer(eventBuffer, targetChannel);
+				} finally {
+					channelLocks[targetChannel].unlock();
 				}
 			}
 		} finally {
@@ -164,39 +262,152 @@ public class RecordWriter<T extends IOReadableWritable> {
 		}
 	}
 
-	public void flush() throws IOException {
-		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
-			RecordSerializer<T> serializer = serializers[targetChannel];
+	/**
+	 * Broadcasts an event that overtakes the data buffers queued in the channels, as done for
+	 * the barriers of unaligned checkpoints. The data of the overtaken buffers is added to the
+	 * given channel state writer, which persists it as part of the checkpoint.
+	 *
+	 * @param event The event to broadcast.
+	 * @param partitionIndex The index of the written result partition within the task.
+	 * @param channelStateWriter The writer that receives the data of the overtaken buffers.
+	 */
+	public void broadcastOvertakingEvent(
+			AbstractEvent event,
+			int partitionIndex,
+			ChannelStateWriter channelStateWriter) throws IOException, InterruptedException {
 
-			synchronized (serializer) {
+		final Buffer eventBuffer = EventSerializer.toBuffer(event);
+		try {
+			for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+				RecordSerializer<T> serializer = serializers[targetChannel];
+
+				channelLocks[targetChannel].lock();
 				try {
+					// the partially filled buffer is overtaken like all other queued buffers
 					Buffer buffer = serializer.getCurrentBuffer();
-
 					if (buffer != null) {
 						numBytesOut.inc(buffer.getSize());
-						targetPartition.writeBuffer(buffer, targetChannel);
+						writeAndClearBuffer(buffer, targetChannel, serializer);
+					} else if (serializer.hasData()) {
+						// sanity check
+						throw new IllegalStateException("No buffer, but serializer has buffered data.");
+					}
+
+					// retain the buffer so that it can be recycled by each channel of targetPartition
+					eventBuffer.retain();
+					List<Buffer> overtaken = targetPartition.writeOvertakingEvent(eventBuffer, targetChannel);
+
+					if (overtaken != null) {
+						for (Buffer overtakenBuffer : overtaken) {
+							try {
+								channelStateWriter.addOutputData(partitionIndex, targetChannel, overtakenBuffer);
+							} finally {
+								overtakenBuffer.recycle();
+							}
+						}
 					}
 				} finally {
-					serializer.clear();
+					channelLocks[targetChannel].unlock();
 				}
 			}
+		} finally {
+			// we do not need to further retain the eventBuffer
+			// (it will be recycled after the last channel stops using it)
+			eventBuffer.recycle();
 		}
 	}
 
-	public void clearBuffers() {
-		for (RecordSerializer<?> serializer : serializers) {
-			synchronized (serializer) {
-				try {
-					Buffer buffer = serializer.getCurrentBuffer();
+	public void flush() throws IOException {
+		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+			channelLocks[targetChannel].lock();
+			try {
+				flushChannel(targetChannel);
+			} finally {
+				channelLocks[targetChannel].unlock();
+			}
+		}
+	}
 
-					if (buffer != null) {
-						buffer.recycle();
-					}
+	/**
+	 * Flushes the channels that data was written to since their last flush, without blocking.
+	 * Channels whose serializer is currently in use, for example because the emitting thread
+	 * waits for a buffer, are skipped and remain marked as unflushed.
+	 *
+	 * @return True, if all channels with unflushed data were flushed, false if some were skipped.
+	 */
+	public boolean tryFlush() throws IOException {
+		boolean flushedAll = true;
+
+		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+			if (unflushedChannels.get(targetChannel) == 0) {
+				continue;
+			}
+
+			if (channelLocks[targetChannel].tryLock()) {
+				try {
+					flushChannel(targetChannel);
+				} finally {
+					channelLocks[targetChannel].unlock();
 				}
-				finally {
-					serializer.clear();
+			} else {
+				flushedAll = false;
+			}
+		}
+
+		return flushedAll;
+	}
+
+	/**
+	 * Checks whether data was written to any channel since the channel's last flush.
+	 */
+	public boolean hasUnflushedData() {
+		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+			if (unflushedChannels.get(targetChannel) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the partially filled buffer of the channel to the {@link ResultPartitionWriter}.
+	 *
+	 * Needs to hold the lock of the channel!
+	 */
+	private void flushChannel(int targetChannel) throws IOException {
+		RecordSerializer<T> serializer = serializers[targetChannel];
+
+		// cleared before the write, so that data written afterwards is flushed the next time
+		unflushedChannels.set(targetChannel, 0);
+
+		try {
+			Buffer buffer = serializer.getCurrentBuffer();
+
+			if (buffer != null) {
+				numBytesOut.inc(buffer.getSize());
+				targetPartition.writeBuffer(buffer, targetChannel);
+			}
+		} finally {
+			serializer.clear();
+		}
+	}
+
+	public void clearBuffers() {
+		for (int targetChannel = 0; targetChannel < numChannels; targetChannel++) {
+			RecordSerializer<T> serializer = serializers[targetChannel];
+
+			channelLocks[targetChannel].lock();
+			try {
+				Buffer buffer = serializer.getCurrentBuffer();
+
+				if (buffer != null) {
+					buffer.recycle();
 				}
 			}
+			finally {
+				serializer.clear();
+				channelLocks[targetChannel].unlock();
+			}
 		}
 	}
 
@@ -212,7 +423,7 @@ public class RecordWriter<T extends IOReadableWritable> {
 	 * Writes the buffer to the {@link ResultPartitionWriter} and removes the
 	 * buffer from the serializer state.
 	 *
-	 * Needs to be synchronized on the serializer!
+	 * Needs to hold the lock of the channel!
 	 */
 	private void writeAndClearBuffer(
 			Buffer buffer,
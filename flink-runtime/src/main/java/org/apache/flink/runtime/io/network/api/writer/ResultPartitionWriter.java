@@ -27,6 +27,7 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.util.event.EventListener;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A buffer-oriented runtime result writer.
@@ -64,6 +65,14 @@ public class ResultPartitionWriter implements EventListener<TaskEvent> {
 		return partition.getNumTargetKeyGroups();
 	}
 
+	/**
+	 * Returns the number of buffers, which have been written to the channels but not yet been
+	 * consumed. This is read without synchronization and therefore only an estimate.
+	 */
+	public int getNumberOfQueuedBuffers() {
+		return partition.getNumberOfQueuedBuffers();
+	}
+
 	// ------------------------------------------------------------------------
 	// Data processing
 	// ------------------------------------------------------------------------
@@ -72,6 +81,18 @@ public class ResultPartitionWriter implements EventListener<TaskEvent> {
 		partition.add(buffer, targetChannel);
 	}
 
+	/**
+	 * Writes the given event buffer to the target channel, overtaking the data buffers that
+	 * are queued in the channel.
+	 *
+	 * @return The overtaken data buffers, which the caller must recycle, or <code>null</code>
+	 * if the channel did not accept the event.
+	 * @see ResultPartition#addOvertakingEvent(Buffer, int)
+	 */
+	public List<Buffer> writeOvertakingEvent(Buffer eventBuffer, int targetChannel) throws IOException {
+		return partition.addOvertakingEvent(eventBuffer, targetChannel);
+	}
+
 	/**
 	 * Writes the given buffer to all available target channels.
 	 *
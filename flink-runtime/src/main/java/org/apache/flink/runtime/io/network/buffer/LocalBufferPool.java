@@ -24,6 +24,7 @@ import org.apache.flink.runtime.util.event.EventListener;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
@@ -42,6 +43,14 @@ import static org.apache.flink.util.Preconditions.checkState;
  * <p> The size of this pool can be dynamically changed at runtime ({@link #setNumBuffers(int)}. It
  * will then lazily return the required number of buffers to the {@link NetworkBufferPool} to
  * match its new size.
+ *
+ * <p> Buffers are requested and recycled by the task thread, the network I/O threads, and the
+ * output flusher concurrently. The common case, i.e. taking an available segment or returning a
+ * segment while nobody waits for one, does not acquire a lock. All other operations, which
+ * request segments from the network buffer pool, notify listeners or blocked requesters, return
+ * excess segments, or destroy the pool, are executed while holding the {@link #lock}. Each lock-free
+ * operation re-checks the volatile state after modifying the queue of available segments and falls
+ * back to the locked path, if the state changed concurrently.
  */
 class LocalBufferPool implements BufferPool {
 
@@ -50,22 +59,33 @@ class LocalBufferPool implements BufferPool {
 	// The minimum number of required segments for this pool
 	private final int numberOfRequiredMemorySegments;
 
+	// The lock for all operations apart from the lock-free request and recycle fast paths
+	private final Object lock = new Object();
+
 	// The currently available memory segments. These are segments, which have been requested from
 	// the network buffer pool and are currently not handed out as Buffer instances.
-	private final Queue<MemorySegment> availableMemorySegments = new ArrayDeque<MemorySegment>();
+	private final Queue<MemorySegment> availableMemorySegments = new ConcurrentLinkedQueue<MemorySegment>();
 
 	// Buffer availability listeners, which need to be notified when a Buffer becomes available.
 	// Listeners can only be registered at a time/state where no Buffer instance was available.
+	// Guarded by the lock.
 	private final Queue<EventListener<Buffer>> registeredListeners = new ArrayDeque<EventListener<Buffer>>();
 
+	// The number of registered listeners, which is read without holding the lock
+	private volatile int numberOfRegisteredListeners;
+
+	// The number of requesters, which are blocked in a request for a buffer
+	private volatile int numberOfWaitingRequesters;
+
 	// The current size of this pool
-	private int currentPoolSize;
+	private volatile int currentPoolSize;
 
 	// Number of all memory segments, which have been requested from the network buffer pool and are
 	// somehow referenced through this pool (e.g. wrapped in Buffer instances or as available segments).
-	private int numberOfRequestedMemorySegments;
+	// Only modified while holding the lock.
+	private volatile int numberOfRequestedMemorySegments;
 
-	private boolean isDestroyed;
+	private volatile boolean isDestroyed;
 
 	private BufferPoolOwner owner;
 
@@ -81,9 +101,7 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public boolean isDestroyed() {
-		synchronized (availableMemorySegments) {
-			return isDestroyed;
-		}
+		return isDestroyed;
 	}
 
 	@Override
@@ -98,16 +116,12 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public int getNumberOfAvailableMemorySegments() {
-		synchronized (availableMemorySegments) {
-			return availableMemorySegments.size();
-		}
+		return availableMemorySegments.size();
 	}
 
 	@Override
 	public int getNumBuffers() {
-		synchronized (availableMemorySegments) {
-			return currentPoolSize;
-		}
+		return currentPoolSize;
 	}
 
 	@Override
@@ -117,7 +131,7 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public void setBufferPoolOwner(BufferPoolOwner owner) {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			checkState(this.owner == null, "Buffer pool owner has already been set.");
 			this.owner = checkNotNull(owner);
 		}
@@ -139,12 +153,28 @@ class LocalBufferPool implements BufferPool {
 	}
 
 	private Buffer requestBuffer(boolean isBlocking) throws InterruptedException, IOException {
-		synchronized (availableMemorySegments) {
+		// Fast path: take an available segment without locking, unless excess
+		// segments have to be returned to the network buffer pool first
+		if (numberOfRequestedMemorySegments <= currentPoolSize) {
+			final MemorySegment segment = availableMemorySegments.poll();
+
+			if (segment != null) {
+				return new Buffer(segment, this);
+			}
+		}
+
+		synchronized (lock) {
 			returnExcessMemorySegments();
 
 			boolean askToRecycle = owner != null;
 
-			while (availableMemorySegments.isEmpty()) {
+			while (true) {
+				final MemorySegment availableSegment = availableMemorySegments.poll();
+
+				if (availableSegment != null) {
+					return new Buffer(availableSegment, this);
+				}
+
 				if (isDestroyed) {
 					throw new IllegalStateException("Buffer pool is destroyed.");
 				}
@@ -154,9 +184,7 @@ class LocalBufferPool implements BufferPool {
 
 					if (segment != null) {
 						numberOfRequestedMemorySegments++;
-						availableMemorySegments.add(segment);
-
-						continue;
+						return new Buffer(segment, this);
 					}
 				}
 
@@ -165,29 +193,55 @@ class LocalBufferPool implements BufferPool {
 				}
 
 				if (isBlocking) {
-					availableMemorySegments.wait(2000);
+					// Announce the waiter before checking the available segments again, so that a
+					// concurrent lock-free recycle either sees the waiter or is seen by the check.
+					numberOfWaitingRequesters++;
+					try {
+						if (availableMemorySegments.isEmpty()) {
+							lock.wait(2000);
+						}
+					}
+					finally {
+						numberOfWaitingRequesters--;
+					}
 				}
 				else {
 					return null;
 				}
 			}
-
-			return new Buffer(availableMemorySegments.poll(), this);
 		}
 	}
 
 	@Override
 	public void recycle(MemorySegment segment) {
-		synchronized (availableMemorySegments) {
+		// Fast path: return the segment to the available segments without locking
+		if (numberOfRegisteredListeners == 0 && !isDestroyed && numberOfRequestedMemorySegments <= currentPoolSize) {
+			availableMemorySegments.add(segment);
+
+			// Listeners, waiters, destruction or a smaller pool size may have appeared concurrently,
+			// before the segment has been added. These are handled by the locked path.
+			if (numberOfRegisteredListeners > 0 || numberOfWaitingRequesters > 0 || isDestroyed
+					|| numberOfRequestedMemorySegments > currentPoolSize) {
+
+				synchronized (lock) {
+					redistributeAvailableMemorySegments();
+					lock.notifyAll();
+				}
+			}
+
+			return;
+		}
+
+		synchronized (lock) {
 			if (isDestroyed || numberOfRequestedMemorySegments > currentPoolSize) {
 				returnMemorySegment(segment);
 			}
 			else {
-				EventListener<Buffer> listener = registeredListeners.poll();
+				EventListener<Buffer> listener = pollListener();
 
 				if (listener == null) {
 					availableMemorySegments.add(segment);
-					availableMemorySegments.notify();
+					lock.notifyAll();
 				}
 				else {
 					try {
@@ -195,7 +249,7 @@ class LocalBufferPool implements BufferPool {
 					}
 					catch (Throwable ignored) {
 						availableMemorySegments.add(segment);
-						availableMemorySegments.notify();
+						lock.notifyAll();
 					}
 				}
 			}
@@ -207,19 +261,23 @@ class LocalBufferPool implements BufferPool {
 	 */
 	@Override
 	public void lazyDestroy() {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			if (!isDestroyed) {
+				// Set the flag before returning the available segments, so that concurrently
+				// recycled segments are either returned here or by the recycling thread.
+				isDestroyed = true;
+
 				MemorySegment segment;
 				while ((segment = availableMemorySegments.poll()) != null) {
 					returnMemorySegment(segment);
 				}
 
 				EventListener<Buffer> listener;
-				while ((listener = registeredListeners.poll()) != null) {
+				while ((listener = pollListener()) != null) {
 					listener.onEvent(null);
 				}
 
-				isDestroyed = true;
+				lock.notifyAll();
 			}
 		}
 
@@ -228,19 +286,30 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public boolean addListener(EventListener<Buffer> listener) {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			if (!availableMemorySegments.isEmpty() || isDestroyed) {
 				return false;
 			}
 
 			registeredListeners.add(listener);
+			numberOfRegisteredListeners++;
+
+			// A segment may have been recycled lock-free before the listener became visible.
+			// In this case, the listener is not registered and the caller can request it.
+			if (!availableMemorySegments.isEmpty()) {
+				registeredListeners.remove(listener);
+				numberOfRegisteredListeners--;
+
+				return false;
+			}
+
 			return true;
 		}
 	}
 
 	@Override
 	public void setNumBuffers(int numBuffers) throws IOException {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			checkArgument(numBuffers >= numberOfRequiredMemorySegments, "Buffer pool needs at least " + numberOfRequiredMemorySegments + " buffers, but tried to set to " + numBuffers + ".");
 
 			currentPoolSize = numBuffers;
@@ -257,13 +326,57 @@ class LocalBufferPool implements BufferPool {
 
 	@Override
 	public String toString() {
-		synchronized (availableMemorySegments) {
+		synchronized (lock) {
 			return String.format("[size: %d, required: %d, requested: %d, available: %d, listeners: %d, destroyed: %s]", currentPoolSize, numberOfRequiredMemorySegments, numberOfRequestedMemorySegments, availableMemorySegments.size(), registeredListeners.size(), isDestroyed);
 		}
 	}
 
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Polls the next registered listener. Needs to be called while holding the lock.
+	 */
+	private EventListener<Buffer> pollListener() {
+		EventListener<Buffer> listener = registeredListeners.poll();
+		if (listener != null) {
+			numberOfRegisteredListeners--;
+		}
+		return listener;
+	}
+
+	/**
+	 * Hands segments, which have been recycled lock-free, to registered listeners or returns
+	 * them to the network buffer pool, if the pool has been destroyed or shrunk concurrently.
+	 * Needs to be called while holding the lock.
+	 */
+	private void redistributeAvailableMemorySegments() {
+		if (isDestroyed) {
+			MemorySegment segment;
+			while ((segment = availableMemorySegments.poll()) != null) {
+				returnMemorySegment(segment);
+			}
+			return;
+		}
+
+		returnExcessMemorySegments();
+
+		while (numberOfRegisteredListeners > 0) {
+			final MemorySegment segment = availableMemorySegments.poll();
+			if (segment == null) {
+				return;
+			}
+
+			final EventListener<Buffer> listener = pollListener();
+			try {
+				listener.onEvent(new Buffer(segment, this));
+			}
+			catch (Throwable ignored) {
+				availableMemorySegments.add(segment);
+				return;
+			}
+		}
+	}
+
 	private void returnMemorySegment(MemorySegment segment) {
 		numberOfRequestedMemorySegments--;
 		networkBufferPool.recycle(segment);
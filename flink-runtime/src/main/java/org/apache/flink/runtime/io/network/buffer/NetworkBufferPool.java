@@ -22,16 +22,20 @@ import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.util.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Queue;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
@@ -50,7 +54,7 @@ public class NetworkBufferPool implements BufferPoolFactory {
 
 	private final int memorySegmentSize;
 
-	private final Queue<MemorySegment> availableMemorySegments;
+	private final ArrayBlockingQueue<MemorySegment> availableMemorySegments;
 
 	private volatile boolean isDestroyed;
 
@@ -132,6 +136,69 @@ public class NetworkBufferPool implements BufferPoolFactory {
 		availableMemorySegments.add(segment);
 	}
 
+	/**
+	 * Requests the given number of memory segments, which are exclusively owned by the caller
+	 * (e.g. a remote input channel) until they are returned via {@link #recycleMemorySegments(List)}.
+	 * The segments count as required buffers, like the required buffers of the buffer pools.
+	 *
+	 * <p>The call blocks until the buffer pools have returned enough excess segments.
+	 */
+	public List<MemorySegment> requestMemorySegments(int numRequiredBuffers) throws IOException {
+		checkArgument(numRequiredBuffers > 0, "The number of required buffers should be larger than 0.");
+
+		synchronized (factoryLock) {
+			if (isDestroyed) {
+				throw new IllegalStateException("Network buffer pool has already been destroyed.");
+			}
+
+			checkNumberOfRequiredBuffers(numRequiredBuffers);
+
+			this.numTotalRequiredBuffers += numRequiredBuffers;
+
+			redistributeBuffers();
+		}
+
+		final List<MemorySegment> segments = new ArrayList<>(numRequiredBuffers);
+		try {
+			while (segments.size() < numRequiredBuffers) {
+				if (isDestroyed) {
+					throw new IllegalStateException("Buffer pool is destroyed.");
+				}
+
+				final MemorySegment segment = availableMemorySegments.poll(2, TimeUnit.SECONDS);
+				if (segment != null) {
+					segments.add(segment);
+				}
+			}
+		} catch (Throwable t) {
+			recycleMemorySegments(segments, numRequiredBuffers);
+			ExceptionUtils.rethrowIOException(t);
+		}
+
+		return segments;
+	}
+
+	/**
+	 * Returns memory segments, which have been requested via {@link #requestMemorySegments(int)}.
+	 */
+	public void recycleMemorySegments(List<MemorySegment> segments) {
+		recycleMemorySegments(segments, segments.size());
+	}
+
+	private void recycleMemorySegments(List<MemorySegment> segments, int numRequiredBuffers) {
+		synchronized (factoryLock) {
+			numTotalRequiredBuffers -= numRequiredBuffers;
+
+			availableMemorySegments.addAll(segments);
+
+			try {
+				redistributeBuffers();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
 	public void destroy() {
 		synchronized (factoryLock) {
 			isDestroyed = true;
@@ -192,16 +259,7 @@ public class NetworkBufferPool implements BufferPoolFactory {
 
 			// Ensure that the number of required buffers can be satisfied.
 			// With dynamic memory management this should become obsolete.
-			if (numTotalRequiredBuffers + numRequiredBuffers > totalNumberOfMemorySegments) {
-				throw new IOException(String.format("Insufficient number of network buffers: " +
-								"required %d, but only %d available. The total number of network " +
-								"buffers is currently set to %d. You can increase this " +
-								"number by setting the configuration key '%s'.",
-						numRequiredBuffers,
-						totalNumberOfMemorySegments - numTotalRequiredBuffers,
-						totalNumberOfMemorySegments,
-						ConfigConstants.TASK_MANAGER_NETWORK_NUM_BUFFERS_KEY));
-			}
+			checkNumberOfRequiredBuffers(numRequiredBuffers);
 
 			this.numTotalRequiredBuffers += numRequiredBuffers;
 
@@ -264,6 +322,20 @@ public class NetworkBufferPool implements BufferPoolFactory {
 		}
 	}
 
+	// Must be called from synchronized block
+	private void checkNumberOfRequiredBuffers(int numRequiredBuffers) throws IOException {
+		if (numTotalRequiredBuffers + numRequiredBuffers > totalNumberOfMemorySegments) {
+			throw new IOException(String.format("Insufficient number of network buffers: " +
+							"required %d, but only %d available. The total number of network " +
+							"buffers is currently set to %d. You can increase this " +
+							"number by setting the configuration key '%s'.",
+					numRequiredBuffers,
+					totalNumberOfMemorySegments - numTotalRequiredBuffers,
+					totalNumberOfMemorySegments,
+					ConfigConstants.TASK_MANAGER_NETWORK_NUM_BUFFERS_KEY));
+		}
+	}
+
 	// Must be called from synchronized block
 	private void redistributeBuffers() throws IOException {
 		int numManagedBufferPools = managedBufferPools.size();
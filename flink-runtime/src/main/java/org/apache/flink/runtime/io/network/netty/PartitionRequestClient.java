@@ -104,7 +104,7 @@ public class PartitionRequestClient {
 		partitionRequestHandler.addInputChannel(inputChannel);
 
 		final PartitionRequest request = new PartitionRequest(
-				partitionId, subpartitionIndex, inputChannel.getInputChannelId());
+				partitionId, subpartitionIndex, inputChannel.getInputChannelId(), inputChannel.getInitialCredit());
 
 		final ChannelFutureListener listener = new ChannelFutureListener() {
 			@Override
@@ -165,6 +165,14 @@ public class PartitionRequestClient {
 						});
 	}
 
+	/**
+	 * Announces the unannounced credit of the given input channel to the producer. The credit
+	 * is collected and sent asynchronously by the network I/O thread.
+	 */
+	public void notifyCreditAvailable(RemoteInputChannel inputChannel) {
+		partitionRequestHandler.notifyCreditAvailable(inputChannel);
+	}
+
 	public void close(RemoteInputChannel inputChannel) throws IOException {
 
 		partitionRequestHandler.removeInputChannel(inputChannel);
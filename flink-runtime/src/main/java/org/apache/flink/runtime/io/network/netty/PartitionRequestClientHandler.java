@@ -19,12 +19,13 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import com.google.common.collect.Maps;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
-import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.netty.exception.LocalTransportException;
 import org.apache.flink.runtime.io.network.netty.exception.RemoteTransportException;
@@ -32,18 +33,24 @@ import org.apache.flink.runtime.io.network.netty.exception.TransportException;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
-import org.apache.flink.runtime.util.event.EventListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.SocketAddress;
-import java.util.ArrayDeque;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Channel handler to read buffer and error responses of the producers and to announce
+ * the credit of the remote input channels.
+ *
+ * <p>Received buffers are copied to buffers, which the receiving {@link RemoteInputChannel}
+ * has reserved and announced to the producer as credit before. Therefore, a buffer is always
+ * available and the handler never needs to stop reading the shared TCP connection when a
+ * single receiver is back pressured.
+ */
 class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PartitionRequestClientHandler.class);
@@ -52,11 +59,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 
 	private final AtomicReference<Throwable> channelError = new AtomicReference<Throwable>();
 
-	private final BufferListenerTask bufferListener = new BufferListenerTask();
-
-	private final Queue<Object> stagedMessages = new ArrayDeque<Object>();
-
-	private final StagedMessagesHandlerTask stagedMessagesHandler = new StagedMessagesHandlerTask();
+	private final ChannelFutureListener creditWriteListener = new CreditWriteListener();
 
 	/**
 	 * Set of cancelled partition requests. A request is cancelled iff an input channel is cleared
@@ -82,6 +85,24 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		inputChannels.remove(listener.getInputChannelId());
 	}
 
+	/**
+	 * Notifies the handler that the given input channel has credit to announce. The credit is
+	 * announced asynchronously by the network I/O thread. This is called by the thread which
+	 * makes buffers available to the input channel.
+	 */
+	void notifyCreditAvailable(final RemoteInputChannel inputChannel) {
+		final ChannelHandlerContext ctx = this.ctx;
+
+		if (ctx != null) {
+			ctx.executor().execute(new Runnable() {
+				@Override
+				public void run() {
+					ctx.pipeline().fireUserEventTriggered(inputChannel);
+				}
+			});
+		}
+	}
+
 	void cancelRequestFor(InputChannelID inputChannelId) {
 		if (inputChannelId == null || ctx == null) {
 			return;
@@ -156,18 +177,25 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
 		try {
-			if (!bufferListener.hasStagedBufferOrEvent() && stagedMessages.isEmpty()) {
-				decodeMsg(msg, false);
-			}
-			else {
-				stagedMessages.add(msg);
-			}
+			decodeMsg(msg);
 		}
 		catch (Throwable t) {
 			notifyAllChannelsOfErrorAndClose(t);
 		}
 	}
 
+	/**
+	 * Triggered by {@link #notifyCreditAvailable(RemoteInputChannel)} in the network I/O thread.
+	 */
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (msg instanceof RemoteInputChannel) {
+			writeAndFlushCredit((RemoteInputChannel) msg);
+		} else {
+			ctx.fireUserEventTriggered(msg);
+		}
+	}
+
 	private void notifyAllChannelsOfErrorAndClose(Throwable cause) {
 		if (channelError.compareAndSet(null, cause)) {
 			try {
@@ -213,7 +241,7 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		super.channelReadComplete(ctx);
 	}
 
-	private boolean decodeMsg(Object msg, boolean isStagedBuffer) throws Throwable {
+	private void decodeMsg(Object msg) throws Throwable {
 		final Class<?> msgClazz = msg.getClass();
 
 		// ---- Buffer --------------------------------------------------------
@@ -226,10 +254,10 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 
 				cancelRequestFor(bufferOrEvent.receiverId);
 
-				return true;
+				return;
 			}
 
-			return decodeBufferOrEvent(inputChannel, bufferOrEvent, isStagedBuffer);
+			decodeBufferOrEvent(inputChannel, bufferOrEvent);
 		}
 		// ---- Error ---------------------------------------------------------
 		else if (msgClazz == NettyMessage.ErrorResponse.class) {
@@ -260,13 +288,9 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 		else {
 			throw new IllegalStateException("Received unknown message from producer: " + msg.getClass());
 		}
-
-		return true;
 	}
 
-	private boolean decodeBufferOrEvent(RemoteInputChannel inputChannel, NettyMessage.BufferResponse bufferOrEvent, boolean isStagedBuffer) throws Throwable {
-		boolean releaseNettyBuffer = true;
-
+	private void decodeBufferOrEvent(RemoteInputChannel inputChannel, NettyMessage.BufferResponse bufferOrEvent) throws Throwable {
 		try {
 			if (bufferOrEvent.isBuffer()) {
 				// ---- Buffer ------------------------------------------------
@@ -275,36 +299,28 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 				// IndexOutOfBoundsException.
 				if (bufferOrEvent.getSize() == 0) {
 					inputChannel.onEmptyBuffer(bufferOrEvent.sequenceNumber);
-					return true;
+					inputChannel.onSenderBacklog(bufferOrEvent.backlog);
+					return;
 				}
 
-				BufferProvider bufferProvider = inputChannel.getBufferProvider();
+				// The sender only sends buffers for which the receiver announced credit,
+				// so the input channel has a buffer reserved for this one.
+				Buffer buffer = inputChannel.requestBuffer();
+
+				if (buffer != null) {
+					buffer.setSize(bufferOrEvent.getSize());
+					bufferOrEvent.getNettyBuffer().readBytes(buffer.getNioBuffer());
 
-				if (bufferProvider == null) {
+					inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
+					inputChannel.onSenderBacklog(bufferOrEvent.backlog);
+				}
+				else if (inputChannel.isReleased()) {
 					// receiver has been cancelled/failed
 					cancelRequestFor(bufferOrEvent.receiverId);
-					return isStagedBuffer;
 				}
-
-				while (true) {
-					Buffer buffer = bufferProvider.requestBuffer();
-
-					if (buffer != null) {
-						buffer.setSize(bufferOrEvent.getSize());
-						bufferOrEvent.getNettyBuffer().readBytes(buffer.getNioBuffer());
-
-						inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
-
-						return true;
-					}
-					else if (bufferListener.waitForBuffer(bufferProvider, bufferOrEvent)) {
-						releaseNettyBuffer = false;
-
-						return false;
-					}
-					else if (bufferProvider.isDestroyed()) {
-						return isStagedBuffer;
-					}
+				else {
+					inputChannel.onError(new IllegalStateException("Received a buffer for " +
+							inputChannel + " without available credit."));
 				}
 			}
 			else {
@@ -317,184 +333,44 @@ class PartitionRequestClientHandler extends ChannelInboundHandlerAdapter {
 				Buffer buffer = new Buffer(memSeg, FreeingBufferRecycler.INSTANCE, false);
 
 				inputChannel.onBuffer(buffer, bufferOrEvent.sequenceNumber);
-
-				return true;
+				inputChannel.onSenderBacklog(bufferOrEvent.backlog);
 			}
 		}
 		finally {
-			if (releaseNettyBuffer) {
-				bufferOrEvent.releaseBuffer();
-			}
-		}
-	}
-
-	private class AsyncErrorNotificationTask implements Runnable {
-
-		private final Throwable error;
-
-		public AsyncErrorNotificationTask(Throwable error) {
-			this.error = error;
-		}
-
-		@Override
-		public void run() {
-			notifyAllChannelsOfErrorAndClose(error);
+			bufferOrEvent.releaseBuffer();
 		}
 	}
 
 	/**
-	 * A buffer availability listener, which subscribes/unsubscribes the NIO
-	 * read event.
-	 * <p>
-	 * If no buffer is available, the channel read event will be unsubscribed
-	 * until one becomes available again.
-	 * <p>
-	 * After a buffer becomes available again, the buffer is handed over by
-	 * the thread calling {@link #onEvent(Buffer)} to the network I/O
-	 * thread, which then continues the processing of the staged buffer.
+	 * Announces the unannounced credit of the given input channel to the producer.
 	 */
-	private class BufferListenerTask implements EventListener<Buffer>, Runnable {
-
-		private final AtomicReference<Buffer> availableBuffer = new AtomicReference<Buffer>();
-
-		private NettyMessage.BufferResponse stagedBufferResponse;
-
-		private boolean waitForBuffer(BufferProvider bufferProvider, NettyMessage.BufferResponse bufferResponse) {
-
-			stagedBufferResponse = bufferResponse;
-
-			if (bufferProvider.addListener(this)) {
-				if (ctx.channel().config().isAutoRead()) {
-					ctx.channel().config().setAutoRead(false);
-				}
-
-				return true;
-			}
-			else {
-				stagedBufferResponse = null;
-
-				return false;
-			}
-		}
-
-		private boolean hasStagedBufferOrEvent() {
-			return stagedBufferResponse != null;
-		}
-
-		// Called by the recycling thread (not network I/O thread)
-		@Override
-		public void onEvent(Buffer buffer) {
-			boolean success = false;
-
-			try {
-				if (buffer != null) {
-					if (availableBuffer.compareAndSet(null, buffer)) {
-						ctx.channel().eventLoop().execute(this);
-
-						success = true;
-					}
-					else {
-						throw new IllegalStateException("Received a buffer notification, " +
-								" but the previous one has not been handled yet.");
-					}
-				}
-				else {
-					// The buffer pool has been destroyed
-					stagedBufferResponse = null;
-
-					if (stagedMessages.isEmpty()) {
-						ctx.channel().config().setAutoRead(true);
-						ctx.channel().read();
-					}
-					else {
-						ctx.channel().eventLoop().execute(stagedMessagesHandler);
-					}
-				}
-			}
-			catch (Throwable t) {
-				ctx.channel().eventLoop().execute(new AsyncErrorNotificationTask(t));
-			}
-			finally {
-				if (!success) {
-					if (buffer != null) {
-						buffer.recycle();
-					}
-				}
-			}
+	private void writeAndFlushCredit(RemoteInputChannel inputChannel) {
+		if (inputChannel.isReleased() || channelError.get() != null) {
+			return;
 		}
 
-		/**
-		 * Continues the decoding of a staged buffer after a buffer has become available again.
-		 * <p>
-		 * This task is executed by the network I/O thread.
-		 */
-		@Override
-		public void run() {
-			boolean success = false;
-
-			Buffer buffer = null;
-
-			try {
-				if ((buffer = availableBuffer.getAndSet(null)) == null) {
-					throw new IllegalStateException("Running buffer availability task w/o a buffer.");
-				}
-
-				buffer.setSize(stagedBufferResponse.getSize());
-
-				stagedBufferResponse.getNettyBuffer().readBytes(buffer.getNioBuffer());
-				stagedBufferResponse.releaseBuffer();
-
-				RemoteInputChannel inputChannel = inputChannels.get(stagedBufferResponse.receiverId);
-
-				if (inputChannel != null) {
-					inputChannel.onBuffer(buffer, stagedBufferResponse.sequenceNumber);
-
-					success = true;
-				}
-				else {
-					cancelRequestFor(stagedBufferResponse.receiverId);
-				}
-
-				stagedBufferResponse = null;
-
-				if (stagedMessages.isEmpty()) {
-					ctx.channel().config().setAutoRead(true);
-					ctx.channel().read();
-				}
-				else {
-					ctx.channel().eventLoop().execute(stagedMessagesHandler);
-				}
-			}
-			catch (Throwable t) {
-				notifyAllChannelsOfErrorAndClose(t);
-			}
-			finally {
-				if (!success) {
-					if (buffer != null) {
-						buffer.recycle();
-					}
-				}
-			}
+		int credit = inputChannel.getAndResetUnannouncedCredit();
+		if (credit > 0) {
+			ctx.writeAndFlush(new NettyMessage.AddCredit(credit, inputChannel.getInputChannelId()))
+					.addListener(creditWriteListener);
 		}
 	}
 
-	public class StagedMessagesHandlerTask implements Runnable {
+	/**
+	 * Fails all input channels of the connection if a credit announcement could not be
+	 * written, because the producer would otherwise wait for the lost credit forever.
+	 */
+	private class CreditWriteListener implements ChannelFutureListener {
 
 		@Override
-		public void run() {
-			try {
-				Object msg;
-				while ((msg = stagedMessages.poll()) != null) {
-					if (!decodeMsg(msg, true)) {
-						return;
-					}
-				}
-
-				ctx.channel().config().setAutoRead(true);
-				ctx.channel().read();
-			}
-			catch (Throwable t) {
-				notifyAllChannelsOfErrorAndClose(t);
+		public void operationComplete(ChannelFuture future) throws Exception {
+			if (!future.isSuccess()) {
+				final Throwable cause = future.cause() != null ?
+						future.cause() : new IllegalStateException("Sending credit cancelled.");
+
+				notifyAllChannelsOfErrorAndClose(new LocalTransportException(
+						"Sending the credit announcement failed.",
+						future.channel().localAddress(), cause));
 			}
 		}
 	}
@@ -36,14 +36,24 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 
 import static org.apache.flink.runtime.io.network.netty.NettyMessage.BufferResponse;
 
 /**
- * A nonEmptyReader of partition queues, which listens for channel writability changed
+ * A queue of partition readers, which listens for channel writability changed
  * events before writing and flushing {@link Buffer} instances.
+ *
+ * <p>Readers are only queued for writing if they have data and the receiver has
+ * announced credit for them (see {@link SequenceNumberingViewReader}). A reader
+ * without credit is dropped from the queue and re-enqueued when the receiver
+ * announces new credit via {@link #addCredit(InputChannelID, int)}. This way, a
+ * slow receiver only stalls its own logical channel instead of the whole TCP
+ * connection.
  */
 class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
@@ -51,7 +61,11 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 
 	private final ChannelFutureListener writeListener = new WriteAndFlushNextMessageIfPossibleListener();
 
-	private final Queue<SequenceNumberingViewReader> nonEmptyReader = new ArrayDeque<>();
+	/** The readers which are (likely) available for transferring data. */
+	private final Queue<SequenceNumberingViewReader> availableReaders = new ArrayDeque<>();
+
+	/** All the readers created for the consumers' partition requests. */
+	private final Map<InputChannelID, SequenceNumberingViewReader> allReaders = new HashMap<>();
 
 	private final Set<InputChannelID> released = Sets.newHashSet();
 
@@ -86,6 +100,34 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		});
 	}
 
+	/**
+	 * Registers a reader, so that the credit announced by its receiver can be assigned
+	 * to it. This is called by the network I/O thread after the reader has been created.
+	 */
+	void notifyReaderCreated(SequenceNumberingViewReader reader) {
+		allReaders.put(reader.getReceiverId(), reader);
+	}
+
+	/**
+	 * Adds credit announced by a receiver to the respective reader and enqueues the reader
+	 * if it became available. This is called by the network I/O thread.
+	 */
+	void addCredit(InputChannelID receiverId, int credit) throws IOException {
+		if (fatalError) {
+			return;
+		}
+
+		SequenceNumberingViewReader reader = allReaders.get(receiverId);
+		if (reader != null) {
+			reader.addCredit(credit);
+
+			if (reader.isAvailable()) {
+				enqueueAvailableReader(reader);
+			}
+		}
+		// else: the reader was already released or the request failed
+	}
+
 	public void cancel(InputChannelID receiverId) {
 		ctx.pipeline().fireUserEventTriggered(receiverId);
 	}
@@ -102,14 +144,9 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		// hand over of reader queues and cancelled producers.
 
 		if (msg.getClass() == SequenceNumberingViewReader.class) {
-			// Queue a non-empty reader for consumption. If the queue
-			// is empty, we try trigger the actual write. Otherwise this
-			// will be handled by the writeAndFlushIfPossible calls.
-			boolean triggerWrite = nonEmptyReader.isEmpty();
-			nonEmptyReader.add((SequenceNumberingViewReader) msg);
-			if (triggerWrite) {
-				writeAndFlushNextMessageIfPossible(ctx.channel());
-			}
+			// Queue a non-empty reader for consumption. Whether the
+			// receiver has credit for it is checked when writing.
+			enqueueAvailableReader((SequenceNumberingViewReader) msg);
 		} else if (msg.getClass() == InputChannelID.class) {
 			// Release partition view that get a cancel request.
 			InputChannelID toCancel = (InputChannelID) msg;
@@ -118,21 +155,43 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 			}
 
 			// Cancel the request for the input channel
-			int size = nonEmptyReader.size();
-			for (int i = 0; i < size; i++) {
-				SequenceNumberingViewReader reader = nonEmptyReader.poll();
-				if (reader.getReceiverId().equals(toCancel)) {
-					reader.releaseAllResources();
-					markAsReleased(reader.getReceiverId());
-				} else {
-					nonEmptyReader.add(reader);
+			SequenceNumberingViewReader toRelease = allReaders.get(toCancel);
+			if (toRelease != null) {
+				int size = availableReaders.size();
+				for (int i = 0; i < size; i++) {
+					SequenceNumberingViewReader reader = availableReaders.poll();
+					if (reader != toRelease) {
+						availableReaders.add(reader);
+					}
 				}
+
+				toRelease.releaseAllResources();
+				markAsReleased(toCancel);
 			}
 		} else {
 			ctx.fireUserEventTriggered(msg);
 		}
 	}
 
+	/**
+	 * Queues a reader for writing, unless it is already queued. If the queue was empty,
+	 * we try trigger the actual write. Otherwise this will be handled by the
+	 * writeAndFlushNextMessageIfPossible calls.
+	 */
+	private void enqueueAvailableReader(SequenceNumberingViewReader reader) throws IOException {
+		if (reader.isRegisteredAsAvailable()) {
+			return;
+		}
+
+		boolean triggerWrite = availableReaders.isEmpty();
+		availableReaders.add(reader);
+		reader.setRegisteredAsAvailable(true);
+
+		if (triggerWrite) {
+			writeAndFlushNextMessageIfPossible(ctx.channel());
+		}
+	}
+
 	@Override
 	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
 		writeAndFlushNextMessageIfPossible(ctx.channel());
@@ -151,7 +210,7 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 		try {
 			if (channel.isWritable()) {
 				while (true) {
-					SequenceNumberingViewReader reader = nonEmptyReader.poll();
+					SequenceNumberingViewReader reader = availableReaders.poll();
 
 					// No queue with available data. We allow this here, because
 					// of the write callbacks that are executed after each write.
@@ -159,6 +218,16 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 						return;
 					}
 
+					reader.setRegisteredAsAvailable(false);
+
+					// Either the receiver has no buffer left for this reader, or the
+					// data was already written after the reader got new credit. The
+					// reader is enqueued again on the next credit or data notification.
+					// Released readers are polled anyways to forward failures.
+					if (!reader.isAvailable() && !reader.isReleased()) {
+						continue;
+					}
+
 					next = reader.getNextBuffer();
 
 					if (next == null) {
@@ -181,17 +250,20 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 							return;
 						}
 					} else {
-						// this channel was now removed from the non-empty reader queue
-						// we re-add it in case it has more data, because in that case no
-						// "non-empty" notification will come for that reader from the queue.
-						if (next.moreAvailable()) {
-							nonEmptyReader.add(reader);
+						// this channel was now removed from the available reader queue
+						// we re-add it in case it has more data and credit, because in that
+						// case no "non-empty" notification will come for that reader from
+						// the queue. Without credit, it is re-added on the next credit.
+						if (next.moreAvailable() && reader.isAvailable()) {
+							availableReaders.add(reader);
+							reader.setRegisteredAsAvailable(true);
 						}
 
 						BufferResponse msg = new BufferResponse(
 							next.buffer(),
 							reader.getSequenceNumber(),
-							reader.getReceiverId());
+							reader.getReceiverId(),
+							reader.getBuffersInBacklog());
 
 						if (isEndOfPartitionEvent(next.buffer())) {
 							reader.notifySubpartitionConsumed();
@@ -246,8 +318,10 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 	}
 
 	private void releaseAllResources() throws IOException {
-		SequenceNumberingViewReader reader;
-		while ((reader = nonEmptyReader.poll()) != null) {
+		availableReaders.clear();
+
+		// copy the readers, because releasing them marks them as released
+		for (SequenceNumberingViewReader reader : new ArrayList<>(allReaders.values())) {
 			reader.releaseAllResources();
 			markAsReleased(reader.getReceiverId());
 		}
@@ -258,9 +332,10 @@ class PartitionRequestQueue extends ChannelInboundHandlerAdapter {
 	 */
 	private void markAsReleased(InputChannelID receiverId) {
 		released.add(receiverId);
+		allReaders.remove(receiverId);
 	}
 
-	// This listener is called after an element of the current nonEmptyReader has been
+	// This listener is called after an element of the current availableReaders has been
 	// flushed. If successful, the listener triggers further processing of the
 	// queues.
 	private class WriteAndFlushNextMessageIfPossibleListener implements ChannelFutureListener {
@@ -31,12 +31,20 @@ import org.apache.flink.runtime.io.network.partition.consumer.LocalInputChannel;
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
+
 /**
  * Simple wrapper for the partition readerQueue iterator, which increments a
  * sequence number for each returned buffer and remembers the receiver ID.
  *
  * <p>It also keeps track of available buffers and notifies the outbound
  * handler about non-emptiness, similar to the {@link LocalInputChannel}.
+ *
+ * <p>The reader further keeps track of the credit announced by the receiver. Each
+ * credit corresponds to one buffer that the receiver has reserved for this
+ * subpartition. Only non-empty data buffers consume credit, because events and
+ * empty buffers are not copied to network buffers at the receiver. The credit is
+ * only accessed by the network I/O thread.
  */
 class SequenceNumberingViewReader implements BufferAvailabilityListener {
 
@@ -52,8 +60,17 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 
 	private int sequenceNumber = -1;
 
-	SequenceNumberingViewReader(InputChannelID receiverId, PartitionRequestQueue requestQueue) {
+	/** The number of buffers the receiver has available for this subpartition. */
+	private int numCreditsAvailable;
+
+	/** Flag indicating whether this reader is currently queued as available at the {@link PartitionRequestQueue}. */
+	private boolean isRegisteredAsAvailable;
+
+	SequenceNumberingViewReader(InputChannelID receiverId, int initialCredit, PartitionRequestQueue requestQueue) {
+		checkArgument(initialCredit >= 0, "Initial credit must not be negative.");
+
 		this.receiverId = receiverId;
+		this.numCreditsAvailable = initialCredit;
 		this.requestQueue = requestQueue;
 	}
 
@@ -88,12 +105,50 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 		return sequenceNumber;
 	}
 
+	/**
+	 * Adds credit announced by the receiver.
+	 */
+	void addCredit(int credit) {
+		numCreditsAvailable += credit;
+	}
+
+	int getNumCreditsAvailable() {
+		return numCreditsAvailable;
+	}
+
+	/**
+	 * Returns whether the reader has data to send and the receiver has credit to accept it.
+	 */
+	boolean isAvailable() {
+		return numCreditsAvailable > 0 && numBuffersAvailable.get() > 0;
+	}
+
+	/**
+	 * Returns the number of buffers queued at the subpartition, which is announced to the
+	 * receiver as backlog with each buffer, so that it can reserve further buffers.
+	 */
+	int getBuffersInBacklog() {
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, numBuffersAvailable.get()));
+	}
+
+	boolean isRegisteredAsAvailable() {
+		return isRegisteredAsAvailable;
+	}
+
+	void setRegisteredAsAvailable(boolean isRegisteredAsAvailable) {
+		this.isRegisteredAsAvailable = isRegisteredAsAvailable;
+	}
+
 	public BufferAndAvailability getNextBuffer() throws IOException, InterruptedException {
 		Buffer next = subpartitionView.getNextBuffer();
 		if (next != null) {
 			long remaining = numBuffersAvailable.decrementAndGet();
 			sequenceNumber++;
 
+			if (next.isBuffer() && next.getSize() > 0) {
+				numCreditsAvailable--;
+			}
+
 			if (remaining >= 0) {
 				return new BufferAndAvailability(next, remaining > 0);
 			} else {
@@ -134,6 +189,7 @@ class SequenceNumberingViewReader implements BufferAvailabilityListener {
 			"requestLock=" + requestLock +
 			", receiverId=" + receiverId +
 			", numBuffersAvailable=" + numBuffersAvailable.get() +
+			", numCreditsAvailable=" + numCreditsAvailable +
 			", sequenceNumber=" + sequenceNumber +
 			'}';
 	}
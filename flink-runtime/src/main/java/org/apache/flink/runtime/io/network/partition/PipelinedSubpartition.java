@@ -28,7 +28,11 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -85,6 +89,45 @@ class PipelinedSubpartition extends ResultSubpartition {
 		return true;
 	}
 
+	@Override
+	public List<Buffer> addOvertakingEvent(Buffer eventBuffer) throws IOException {
+		checkNotNull(eventBuffer);
+		checkArgument(!eventBuffer.isBuffer(), "Only events can overtake buffers.");
+
+		final List<Buffer> overtaken = new ArrayList<>();
+
+		// view reference accessible outside the lock, but assigned inside the locked scope
+		final PipelinedSubpartitionView reader;
+
+		synchronized (buffers) {
+			if (isFinished || isReleased) {
+				return null;
+			}
+
+			// take the data buffers behind the last event off the queue...
+			while (!buffers.isEmpty() && buffers.peekLast().isBuffer()) {
+				overtaken.add(buffers.pollLast());
+			}
+			Collections.reverse(overtaken);
+
+			// ...and put them back behind the event
+			buffers.add(eventBuffer);
+			for (Buffer buffer : overtaken) {
+				buffers.add(buffer.retain());
+			}
+
+			reader = readView;
+			updateStatistics(eventBuffer);
+		}
+
+		// Notify the listener outside of the synchronized block
+		if (reader != null) {
+			reader.notifyBuffersAvailable(1);
+		}
+
+		return overtaken;
+	}
+
 	@Override
 	public void finish() throws IOException {
 		final Buffer buffer = EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE);
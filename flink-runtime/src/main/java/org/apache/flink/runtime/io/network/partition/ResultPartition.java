@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
@@ -34,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -139,6 +141,33 @@ public class ResultPartition implements BufferPoolOwner {
 		IOManager ioManager,
 		boolean sendScheduleOrUpdateConsumersMessage) {
 
+		this(owningTaskName, taskActions, jobId, partitionId, partitionType, numberOfSubpartitions,
+			numTargetKeyGroups, partitionManager, partitionConsumableNotifier, ioManager,
+			sendScheduleOrUpdateConsumersMessage, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a result partition.
+	 *
+	 * @param sortMergeMinParallelism The minimum number of subpartitions from which on a BLOCKING
+	 *                                partition is written to a single sorted data file (see
+	 *                                {@link SortMergePartitionFile}) instead of one spill file per
+	 *                                subpartition.
+	 */
+	public ResultPartition(
+		String owningTaskName,
+		TaskActions taskActions, // actions on the owning task
+		JobID jobId,
+		ResultPartitionID partitionId,
+		ResultPartitionType partitionType,
+		int numberOfSubpartitions,
+		int numTargetKeyGroups,
+		ResultPartitionManager partitionManager,
+		ResultPartitionConsumableNotifier partitionConsumableNotifier,
+		IOManager ioManager,
+		boolean sendScheduleOrUpdateConsumersMessage,
+		int sortMergeMinParallelism) {
+
 		this.owningTaskName = checkNotNull(owningTaskName);
 		this.taskActions = checkNotNull(taskActions);
 		this.jobId = checkNotNull(jobId);
@@ -153,8 +182,17 @@ public class ResultPartition implements BufferPoolOwner {
 		// Create the subpartitions.
 		switch (partitionType) {
 			case BLOCKING:
-				for (int i = 0; i < subpartitions.length; i++) {
-					subpartitions[i] = new SpillableSubpartition(i, this, ioManager);
+				if (numberOfSubpartitions >= sortMergeMinParallelism) {
+					final SortMergePartitionFile partitionFile =
+						new SortMergePartitionFile(this, numberOfSubpartitions, ioManager.createChannel());
+
+					for (int i = 0; i < subpartitions.length; i++) {
+						subpartitions[i] = new SortMergeSubpartition(i, this, partitionFile);
+					}
+				} else {
+					for (int i = 0; i < subpartitions.length; i++) {
+						subpartitions[i] = new SpillableSubpartition(i, this, ioManager);
+					}
 				}
 
 				break;
@@ -176,6 +214,20 @@ public class ResultPartition implements BufferPoolOwner {
 		LOG.debug("{}: Initialized {}", owningTaskName, this);
 	}
 
+	/**
+	 * Sets the compression with which the subpartitions of a blocking partition spill their
+	 * buffers. Must be called before any buffer is added to the partition.
+	 *
+	 * @param compressionFactory The spill compression, or null, to spill uncompressed.
+	 */
+	public void setSpillCompression(BlockCompressionFactory compressionFactory) {
+		for (ResultSubpartition subpartition : subpartitions) {
+			if (subpartition instanceof SpillableSubpartition) {
+				((SpillableSubpartition) subpartition).setSpillCompression(compressionFactory);
+			}
+		}
+	}
+
 	/**
 	 * Registers a buffer pool with this result partition.
 	 * <p>
@@ -271,6 +323,42 @@ public class ResultPartition implements BufferPoolOwner {
 		}
 	}
 
+	/**
+	 * Adds an event to the subpartition with the given index that overtakes the data buffers
+	 * queued in the subpartition.
+	 *
+	 * @return The overtaken data buffers, retained, which the caller must recycle, or
+	 * <code>null</code> if the subpartition did not accept the event.
+	 * @see ResultSubpartition#addOvertakingEvent(Buffer)
+	 */
+	public List<Buffer> addOvertakingEvent(Buffer eventBuffer, int subpartitionIndex) throws IOException {
+		List<Buffer> overtaken = null;
+
+		try {
+			checkInProduceState();
+
+			final ResultSubpartition subpartition = subpartitions[subpartitionIndex];
+
+			synchronized (subpartition) {
+				overtaken = subpartition.addOvertakingEvent(eventBuffer);
+
+				// Update statistics
+				totalNumberOfBuffers++;
+				totalNumberOfBytes += eventBuffer.getSize();
+			}
+		}
+		finally {
+			if (overtaken != null) {
+				notifyPipelinedConsumers();
+			}
+			else {
+				eventBuffer.recycle();
+			}
+		}
+
+		return overtaken;
+	}
+
 	/**
 	 * Finishes the result partition.
 	 *
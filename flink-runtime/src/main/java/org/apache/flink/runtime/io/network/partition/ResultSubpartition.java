@@ -22,6 +22,8 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * A single subpartition of a {@link ResultPartition} instance.
@@ -73,6 +75,23 @@ public abstract class ResultSubpartition {
 
 	abstract public boolean add(Buffer buffer) throws IOException;
 
+	/**
+	 * Adds the given event so that it overtakes the data buffers that are queued in this
+	 * subpartition and have not been consumed yet. The event never overtakes other events.
+	 *
+	 * <p>The overtaken buffers are still consumed after the event. They are returned
+	 * retained, so that the caller can persist their data, and must be recycled by the caller.
+	 *
+	 * <p>Subpartitions that are not consumed while they are produced add the event like any
+	 * other buffer.
+	 *
+	 * @return The overtaken data buffers, in the order in which they are queued, or <code>null</code>
+	 * if the event could not be added.
+	 */
+	public List<Buffer> addOvertakingEvent(Buffer eventBuffer) throws IOException {
+		return add(eventBuffer) ? Collections.<Buffer>emptyList() : null;
+	}
+
 	abstract public void finish() throws IOException;
 
 	abstract public void release() throws IOException;
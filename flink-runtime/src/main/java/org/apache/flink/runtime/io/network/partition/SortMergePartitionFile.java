@@ -0,0 +1,454 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * The data file and the index file of a blocking result partition, which are shared by all
+ * {@link SortMergeSubpartition}s of the partition.
+ *
+ * <p>Buffers added to the subpartitions are kept in memory, grouped by subpartition, until the
+ * buffer pool of the partition asks for memory back or the partition is finished. At that point,
+ * all buffers in memory are appended to the data file as one <i>region</i>, in which the buffers
+ * are sorted by subpartition index. Each subpartition therefore occupies one contiguous range of
+ * every region, and the file is written sequentially. The buffers are written in the format of
+ * the {@link BufferFileWriter}, i.e. each buffer is preceded by a header with the buffer/event
+ * flag and the size of the buffer.
+ *
+ * <p>When the last subpartition is finished, the index file is written. For every region and
+ * subpartition, it holds the offset of the subpartition's range in the data file and the number
+ * of buffers in the range. Readers of a subpartition (see {@link SortMergeSubpartitionView})
+ * look up their ranges in the index file and read them with positional reads from the data file,
+ * whose channel is shared by all readers.
+ *
+ * <p>The files are deleted when all subpartitions have been released.
+ */
+class SortMergePartitionFile {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SortMergePartitionFile.class);
+
+	/** The length of the header in front of each buffer in the data file. */
+	static final int BUFFER_HEADER_LENGTH = 8;
+
+	/** The length of an index entry: the offset (long) and number of buffers (int) of a range. */
+	static final int INDEX_ENTRY_LENGTH = 12;
+
+	/** The partition the file belongs to. */
+	private final ResultPartition parent;
+
+	private final File dataFile;
+
+	private final File indexFile;
+
+	/** The buffers in memory, per subpartition. Guarded by the lock of this file. */
+	private final ArrayDeque<Buffer>[] buffers;
+
+	/** The offsets of the subpartitions' ranges of all written regions. */
+	private final List<long[]> regionOffsets = new ArrayList<>();
+
+	/** The number of buffers in the subpartitions' ranges of all written regions. */
+	private final List<int[]> regionBufferCounts = new ArrayList<>();
+
+	/** Reusable header for buffers written to the data file. */
+	private final ByteBuffer writeHeader = ByteBuffer.allocateDirect(BUFFER_HEADER_LENGTH);
+
+	/** The channel to append regions to the data file. Null before the first spill and after finishing. */
+	private FileChannel writeChannel;
+
+	/** The channel to read the data file, which is opened after finishing. */
+	private FileChannel readChannel;
+
+	/** The current size of the data file. */
+	private long dataFileSize;
+
+	private int numberOfBuffersInMemory;
+
+	private int numberOfRegions;
+
+	private int numberOfFinishedSubpartitions;
+
+	private int numberOfReleasedSubpartitions;
+
+	private boolean isFinished;
+
+	private boolean isReleased;
+
+	@SuppressWarnings("unchecked")
+	SortMergePartitionFile(ResultPartition parent, int numberOfSubpartitions, FileIOChannel.ID channelId) {
+		checkArgument(numberOfSubpartitions > 0);
+
+		this.parent = checkNotNull(parent);
+		this.dataFile = new File(channelId.getPath() + ".data");
+		this.indexFile = new File(channelId.getPath() + ".index");
+
+		this.buffers = new ArrayDeque[numberOfSubpartitions];
+		for (int i = 0; i < numberOfSubpartitions; i++) {
+			buffers[i] = new ArrayDeque<>();
+		}
+	}
+
+	int getNumberOfSubpartitions() {
+		return buffers.length;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Writing
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a buffer to the subpartition with the given index.
+	 *
+	 * @return <code>false</code> if the file has already been finished or a subpartition has
+	 * already been released.
+	 */
+	boolean add(Buffer buffer, int subpartitionIndex) {
+		synchronized (buffers) {
+			if (isFinished || numberOfReleasedSubpartitions > 0) {
+				return false;
+			}
+
+			buffers[subpartitionIndex].add(buffer);
+			numberOfBuffersInMemory++;
+
+			return true;
+		}
+	}
+
+	/**
+	 * Marks the subpartition with the given index as finished. When the last subpartition is
+	 * finished, the remaining buffers in memory are written and the index file is created.
+	 */
+	void finishSubpartition(int subpartitionIndex) throws IOException {
+		final List<Buffer> written = new ArrayList<>();
+
+		try {
+			synchronized (buffers) {
+				checkState(!isFinished, "Partition file has already been finished.");
+
+				if (numberOfReleasedSubpartitions > 0 || ++numberOfFinishedSubpartitions < buffers.length) {
+					return;
+				}
+
+				writeRegion(written);
+
+				writeIndexFile();
+
+				writeChannel.close();
+				writeChannel = null;
+
+				readChannel = new RandomAccessFile(dataFile, "r").getChannel();
+				isFinished = true;
+
+				LOG.debug("Finished partition file of {} with {} bytes in {} regions.",
+					parent.getPartitionId(), dataFileSize, numberOfRegions);
+			}
+		} finally {
+			recycle(written);
+		}
+	}
+
+	/**
+	 * Writes all buffers in memory as a new region to the data file.
+	 *
+	 * @return The number of written buffers.
+	 */
+	int spill() throws IOException {
+		final List<Buffer> written = new ArrayList<>();
+
+		try {
+			synchronized (buffers) {
+				if (isFinished || isReleased || numberOfBuffersInMemory == 0) {
+					return 0;
+				}
+
+				writeRegion(written);
+
+				LOG.debug("Spilled region {} with {} buffers of {}.",
+					numberOfRegions - 1, written.size(), parent.getPartitionId());
+			}
+		} finally {
+			// recycle outside of the lock, because the buffer pool may call
+			// back into this file while holding its own lock
+			recycle(written);
+		}
+
+		return written.size();
+	}
+
+	/**
+	 * Appends the buffers in memory as one region to the data file. Must be called while holding
+	 * the lock. The buffers are moved to the given list, and must be recycled by the caller after
+	 * releasing the lock, even if writing fails.
+	 */
+	private void writeRegion(List<Buffer> written) throws IOException {
+		final long[] offsets = new long[buffers.length];
+		final int[] bufferCounts = new int[buffers.length];
+
+		if (writeChannel == null) {
+			writeChannel = new RandomAccessFile(dataFile, "rw").getChannel();
+		}
+
+		for (int i = 0; i < buffers.length; i++) {
+			offsets[i] = dataFileSize;
+			bufferCounts[i] = buffers[i].size();
+
+			Buffer buffer;
+			while ((buffer = buffers[i].poll()) != null) {
+				numberOfBuffersInMemory--;
+				written.add(buffer);
+				writeBuffer(buffer);
+			}
+		}
+
+		regionOffsets.add(offsets);
+		regionBufferCounts.add(bufferCounts);
+		numberOfRegions++;
+	}
+
+	private void writeBuffer(Buffer buffer) throws IOException {
+		writeHeader.clear();
+		writeHeader.putInt(buffer.isBuffer() ? 1 : 0);
+		writeHeader.putInt(buffer.getSize());
+		writeHeader.flip();
+
+		final ByteBuffer data = buffer.getNioBuffer();
+		final ByteBuffer[] sources = new ByteBuffer[] { writeHeader, data };
+
+		while (writeHeader.hasRemaining() || data.hasRemaining()) {
+			writeChannel.write(sources);
+		}
+
+		dataFileSize += BUFFER_HEADER_LENGTH + buffer.getSize();
+	}
+
+	private void writeIndexFile() throws IOException {
+		final int numberOfSubpartitions = buffers.length;
+		final ByteBuffer index = ByteBuffer.allocate(regionOffsets.size() * numberOfSubpartitions * INDEX_ENTRY_LENGTH);
+
+		for (int region = 0; region < regionOffsets.size(); region++) {
+			for (int i = 0; i < numberOfSubpartitions; i++) {
+				index.putLong(regionOffsets.get(region)[i]);
+				index.putInt(regionBufferCounts.get(region)[i]);
+			}
+		}
+		index.flip();
+
+		try (FileChannel indexChannel = new RandomAccessFile(indexFile, "rw").getChannel()) {
+			while (index.hasRemaining()) {
+				indexChannel.write(index);
+			}
+		}
+
+		// the ranges are looked up in the index file from now on
+		regionOffsets.clear();
+		regionBufferCounts.clear();
+	}
+
+	int getNumberOfQueuedBuffers() {
+		synchronized (buffers) {
+			return numberOfBuffersInMemory;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Reading
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Reads the ranges of the subpartition with the given index from the index file.
+	 *
+	 * @return The offsets and buffer counts of the non-empty ranges, in the order of the regions.
+	 */
+	List<Range> readRanges(int subpartitionIndex) throws IOException {
+		synchronized (buffers) {
+			checkState(isFinished, "Partition file has not been finished yet.");
+			checkState(!isReleased, "Partition file has already been released.");
+		}
+
+		final List<Range> ranges = new ArrayList<>();
+		final ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_LENGTH);
+
+		try (FileChannel indexChannel = new RandomAccessFile(indexFile, "r").getChannel()) {
+			final long regionLength = (long) buffers.length * INDEX_ENTRY_LENGTH;
+
+			for (int region = 0; region < numberOfRegions; region++) {
+				entry.clear();
+				readFully(indexChannel, entry, region * regionLength + (long) subpartitionIndex * INDEX_ENTRY_LENGTH);
+				entry.flip();
+
+				final long offset = entry.getLong();
+				final int numberOfBuffers = entry.getInt();
+				if (numberOfBuffers > 0) {
+					ranges.add(new Range(offset, numberOfBuffers));
+				}
+			}
+		}
+
+		return ranges;
+	}
+
+	/**
+	 * Reads the buffer at the given offset of the data file into the given buffer.
+	 *
+	 * @return The offset of the next buffer in the data file.
+	 */
+	long readBuffer(long offset, Buffer buffer, ByteBuffer header) throws IOException {
+		final FileChannel channel;
+		synchronized (buffers) {
+			checkState(!isReleased, "Partition file has already been released.");
+			channel = readChannel;
+		}
+
+		header.clear();
+		readFully(channel, header, offset);
+		header.flip();
+
+		final boolean isBuffer = header.getInt() == 1;
+		final int size = header.getInt();
+
+		if (size > buffer.getMemorySegment().size()) {
+			throw new IllegalStateException("Buffer is too small for data: " + buffer.getMemorySegment().size() +
+				" bytes available, but " + size + " needed. This is most likely due to an serialized event, " +
+				"which is larger than the buffer size.");
+		}
+
+		buffer.setSize(size);
+		readFully(channel, buffer.getNioBuffer(), offset + BUFFER_HEADER_LENGTH);
+
+		if (!isBuffer) {
+			buffer.tagAsEvent();
+		}
+
+		return offset + BUFFER_HEADER_LENGTH + size;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer target, long position) throws IOException {
+		while (target.hasRemaining()) {
+			final int read = channel.read(target, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of partition file.");
+			}
+			position += read;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//  Release
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Releases the subpartition with the given index. The buffers in memory are recycled with the
+	 * first released subpartition, and the files are deleted with the last one.
+	 */
+	void releaseSubpartition(int subpartitionIndex) throws IOException {
+		final List<Buffer> toRecycle = new ArrayList<>();
+
+		synchronized (buffers) {
+			if (isReleased) {
+				return;
+			}
+
+			// buffers in memory can only remain here if the partition has not been finished
+			for (ArrayDeque<Buffer> queue : buffers) {
+				toRecycle.addAll(queue);
+				queue.clear();
+			}
+			numberOfBuffersInMemory = 0;
+
+			if (++numberOfReleasedSubpartitions == buffers.length) {
+				isReleased = true;
+
+				try {
+					if (writeChannel != null) {
+						writeChannel.close();
+						writeChannel = null;
+					}
+					if (readChannel != null) {
+						readChannel.close();
+						readChannel = null;
+					}
+				} finally {
+					if (dataFile.exists() && !dataFile.delete()) {
+						LOG.warn("Failed to delete partition data file {}.", dataFile);
+					}
+					if (indexFile.exists() && !indexFile.delete()) {
+						LOG.warn("Failed to delete partition index file {}.", indexFile);
+					}
+				}
+			}
+		}
+
+		recycle(toRecycle);
+	}
+
+	boolean isReleased() {
+		synchronized (buffers) {
+			return isReleased;
+		}
+	}
+
+	File getDataFile() {
+		return dataFile;
+	}
+
+	File getIndexFile() {
+		return indexFile;
+	}
+
+	private static void recycle(List<Buffer> toRecycle) {
+		for (Buffer buffer : toRecycle) {
+			buffer.recycle();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A contiguous range of buffers of a subpartition in the data file.
+	 */
+	static final class Range {
+
+		final long offset;
+
+		final int numberOfBuffers;
+
+		Range(long offset, int numberOfBuffers) {
+			this.offset = offset;
+			this.numberOfBuffers = numberOfBuffers;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * A subpartition of a {@link ResultPartitionType#BLOCKING} result partition, which writes its
+ * buffers to the {@link SortMergePartitionFile} shared by all subpartitions of the partition.
+ *
+ * <p>In contrast to the {@link SpillableSubpartition}, which spills each subpartition to its own
+ * file, the partition produces a single data file and index file, no matter how many consumers it
+ * has. The subpartition can only be consumed after all subpartitions of the partition have been
+ * finished and the file has been completely written. It is read by a
+ * {@link SortMergeSubpartitionView}.
+ */
+class SortMergeSubpartition extends ResultSubpartition {
+
+	/** The file of the partition, which is shared by all its subpartitions. */
+	private final SortMergePartitionFile partitionFile;
+
+	/** Flag indicating whether the subpartition has been finished. */
+	private boolean isFinished;
+
+	/** Flag indicating whether the subpartition has been released. */
+	private volatile boolean isReleased;
+
+	/** The read view to consume this subpartition. */
+	private ResultSubpartitionView readView;
+
+	SortMergeSubpartition(int index, ResultPartition parent, SortMergePartitionFile partitionFile) {
+		super(index, parent);
+
+		this.partitionFile = checkNotNull(partitionFile);
+	}
+
+	@Override
+	public boolean add(Buffer buffer) throws IOException {
+		checkNotNull(buffer);
+
+		synchronized (this) {
+			if (isFinished || isReleased || !partitionFile.add(buffer, index)) {
+				return false;
+			}
+
+			updateStatistics(buffer);
+
+			return true;
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		synchronized (this) {
+			if (isFinished || isReleased) {
+				return;
+			}
+
+			final Buffer endOfPartition = EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE);
+			if (!add(endOfPartition)) {
+				endOfPartition.recycle();
+				return;
+			}
+
+			isFinished = true;
+		}
+
+		partitionFile.finishSubpartition(index);
+	}
+
+	@Override
+	public void release() throws IOException {
+		final ResultSubpartitionView view;
+
+		synchronized (this) {
+			if (isReleased) {
+				return;
+			}
+
+			view = readView;
+			isReleased = true;
+		}
+
+		if (view != null) {
+			view.releaseAllResources();
+		}
+
+		partitionFile.releaseSubpartition(index);
+	}
+
+	@Override
+	public ResultSubpartitionView createReadView(BufferProvider bufferProvider, BufferAvailabilityListener availabilityListener) throws IOException {
+		synchronized (this) {
+			if (!isFinished) {
+				throw new IllegalStateException("Subpartition has not been finished yet, " +
+					"but blocking subpartitions can only be consumed after they have " +
+					"been finished.");
+			}
+
+			if (readView != null) {
+				throw new IllegalStateException("Subpartition is being or already has been " +
+					"consumed, but we currently allow subpartitions to only be consumed once.");
+			}
+
+			readView = new SortMergeSubpartitionView(
+				this,
+				partitionFile,
+				bufferProvider.getMemorySegmentSize(),
+				availabilityListener);
+
+			return readView;
+		}
+	}
+
+	/**
+	 * Spills the buffers of all subpartitions of the partition, which are kept in memory by the
+	 * shared partition file.
+	 */
+	@Override
+	int releaseMemory() throws IOException {
+		return partitionFile.spill();
+	}
+
+	@Override
+	public boolean isReleased() {
+		return isReleased;
+	}
+
+	@Override
+	public int getNumberOfQueuedBuffers() {
+		// the buffers in memory are accounted for by the partition file
+		return index == 0 ? partitionFile.getNumberOfQueuedBuffers() : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortMergeSubpartition [%d number of buffers (%d bytes), " +
+				"finished? %s, read view? %s]",
+			getTotalNumberOfBuffers(), getTotalNumberOfBytes(), isFinished, readView != null);
+	}
+}
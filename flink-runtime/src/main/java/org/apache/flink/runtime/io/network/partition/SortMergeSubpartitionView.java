@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.partition.SpilledSubpartitionView.SpillReadBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * Reader for a {@link SortMergeSubpartition}.
+ *
+ * <p>The view reads the ranges of its subpartition in the shared data file of the partition one
+ * after the other, i.e. it reads sequentially within each range. Since the view is only created
+ * after the file has been completely written, the availability listener is notified about all
+ * buffers on construction.
+ *
+ * <p>Reads of the data file are done synchronously.
+ */
+class SortMergeSubpartitionView implements ResultSubpartitionView {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SortMergeSubpartitionView.class);
+
+	/** The subpartition this view belongs to. */
+	private final ResultSubpartition parent;
+
+	/** The file of the partition, which is shared with the views of the other subpartitions. */
+	private final SortMergePartitionFile partitionFile;
+
+	/** The ranges of the subpartition in the data file. */
+	private final List<SortMergePartitionFile.Range> ranges;
+
+	/** The buffer pool to read data into. */
+	private final SpillReadBufferPool bufferPool;
+
+	/** Reusable header to read buffers. */
+	private final ByteBuffer header = ByteBuffer.allocateDirect(SortMergePartitionFile.BUFFER_HEADER_LENGTH);
+
+	/** The total number of buffers of the subpartition. */
+	private final long numberOfBuffers;
+
+	/** Flag indicating whether all resources have been released. */
+	private final AtomicBoolean isReleased = new AtomicBoolean();
+
+	/** The index of the range which is currently read. */
+	private int currentRange;
+
+	/** The offset of the next buffer in the data file. */
+	private long nextOffset;
+
+	/** The number of buffers left in the current range. */
+	private int buffersLeftInRange;
+
+	SortMergeSubpartitionView(
+		ResultSubpartition parent,
+		SortMergePartitionFile partitionFile,
+		int memorySegmentSize,
+		BufferAvailabilityListener availabilityListener) throws IOException {
+
+		this.parent = checkNotNull(parent);
+		this.partitionFile = checkNotNull(partitionFile);
+		this.ranges = partitionFile.readRanges(parent.index);
+		this.bufferPool = new SpillReadBufferPool(2, memorySegmentSize);
+
+		long buffers = 0;
+		for (SortMergePartitionFile.Range range : ranges) {
+			buffers += range.numberOfBuffers;
+		}
+		this.numberOfBuffers = buffers;
+
+		if (!ranges.isEmpty()) {
+			nextOffset = ranges.get(0).offset;
+			buffersLeftInRange = ranges.get(0).numberOfBuffers;
+		}
+
+		checkNotNull(availabilityListener).notifyBuffersAvailable(numberOfBuffers);
+		LOG.debug("Notified about {} available buffers in {} ranges.", numberOfBuffers, ranges.size());
+	}
+
+	@Override
+	public Buffer getNextBuffer() throws IOException, InterruptedException {
+		if (isReleased.get()) {
+			return null;
+		}
+
+		if (buffersLeftInRange == 0) {
+			if (currentRange + 1 >= ranges.size()) {
+				return null;
+			}
+
+			final SortMergePartitionFile.Range range = ranges.get(++currentRange);
+			nextOffset = range.offset;
+			buffersLeftInRange = range.numberOfBuffers;
+		}
+
+		// Like in the SpilledSubpartitionView, we expect that multiple calls to
+		// this method don't happen before recycling buffers returned earlier.
+		final Buffer buffer = bufferPool.requestBufferBlocking();
+		if (buffer == null) {
+			// released concurrently
+			return null;
+		}
+
+		try {
+			nextOffset = partitionFile.readBuffer(nextOffset, buffer, header);
+		} catch (Throwable t) {
+			buffer.recycle();
+			throw t;
+		}
+
+		buffersLeftInRange--;
+
+		return buffer;
+	}
+
+	@Override
+	public void notifyBuffersAvailable(long buffers) throws IOException {
+		// We notify the availability listener about all buffers on
+		// construction of this view, because the file is complete.
+	}
+
+	@Override
+	public void notifySubpartitionConsumed() throws IOException {
+		parent.onConsumedSubpartition();
+	}
+
+	@Override
+	public void releaseAllResources() throws IOException {
+		if (isReleased.compareAndSet(false, true)) {
+			// the files are deleted when all subpartitions have been released
+			bufferPool.destroy();
+		}
+	}
+
+	@Override
+	public boolean isReleased() {
+		return parent.isReleased() || isReleased.get();
+	}
+
+	@Override
+	public Throwable getFailureCause() {
+		return parent.getFailureCause();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SortMergeSubpartitionView(index: %d, buffers: %d, ranges: %d) of ResultPartition %s",
+			parent.index,
+			numberOfBuffers,
+			ranges.size(),
+			parent.parent.getPartitionId());
+	}
+}
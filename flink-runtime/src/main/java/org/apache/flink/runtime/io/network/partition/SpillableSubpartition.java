@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.util.ArrayDeque;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * A spillable sub partition starts out in-memory and spills to disk if asked
@@ -64,6 +66,9 @@ class SpillableSubpartition extends ResultSubpartition {
 	/** The I/O manager used for spilling buffers to disk. */
 	private final IOManager ioManager;
 
+	/** The compression of the spilled buffers, or null, if they are spilled uncompressed. */
+	private BlockCompressionFactory spillCompression;
+
 	/** The writer used for spilling. As long as this is null, we are in-memory. */
 	private BufferFileWriter spillWriter;
 
@@ -82,6 +87,17 @@ class SpillableSubpartition extends ResultSubpartition {
 		this.ioManager = checkNotNull(ioManager);
 	}
 
+	void setSpillCompression(BlockCompressionFactory spillCompression) {
+		synchronized (buffers) {
+			checkState(spillWriter == null && readView == null, "Subpartition has already been spilled or consumed.");
+			this.spillCompression = spillCompression;
+		}
+	}
+
+	BlockCompressionFactory getSpillCompression() {
+		return spillCompression;
+	}
+
 	@Override
 	public boolean add(Buffer buffer) throws IOException {
 		checkNotNull(buffer);
@@ -180,7 +196,9 @@ class SpillableSubpartition extends ResultSubpartition {
 					bufferProvider.getMemorySegmentSize(),
 					spillWriter,
 					getTotalNumberOfBuffers(),
-					availabilityListener);
+					availabilityListener,
+					spillCompression,
+					ioManager);
 			} else {
 				readView = new SpillableSubpartitionView(
 					this,
@@ -206,7 +224,7 @@ class SpillableSubpartition extends ResultSubpartition {
 				return spillableView.releaseMemory();
 			} else if (spillWriter == null) {
 				// No view and in-memory => spill to disk
-				spillWriter = ioManager.createBufferFileWriter(ioManager.createChannel());
+				spillWriter = ioManager.createBufferFileWriter(ioManager.createChannel(), spillCompression);
 
 				int numberOfBuffers = buffers.size();
 				long spilledBytes = 0;
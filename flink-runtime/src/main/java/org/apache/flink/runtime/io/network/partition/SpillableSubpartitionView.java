@@ -100,7 +100,8 @@ class SpillableSubpartitionView implements ResultSubpartitionView {
 				// it be recycled.
 
 				// Create the spill writer and write all buffers to disk
-				BufferFileWriter spillWriter = ioManager.createBufferFileWriter(ioManager.createChannel());
+				BufferFileWriter spillWriter = ioManager.createBufferFileWriter(
+					ioManager.createChannel(), parent.getSpillCompression());
 
 				long spilledBytes = 0;
 
@@ -120,7 +121,9 @@ class SpillableSubpartitionView implements ResultSubpartitionView {
 					memorySegmentSize,
 					spillWriter,
 					numBuffers,
-					listener);
+					listener,
+					parent.getSpillCompression(),
+					ioManager);
 
 				LOG.debug("Spilling {} bytes for sub partition {} of {}.",
 					spilledBytes,
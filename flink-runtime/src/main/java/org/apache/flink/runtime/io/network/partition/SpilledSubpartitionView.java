@@ -20,8 +20,11 @@ package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileReader;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.MemoryMappedFile;
 import org.apache.flink.runtime.io.disk.iomanager.SynchronousBufferFileReader;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
@@ -44,7 +47,9 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * only when the spilling is done. Spilling is done async and if it is still
  * in progress, we wait with the notification until the spilling is done.
  *
- * <p>Reads of the spilled file are done in synchronously.
+ * <p>Reads of the spilled file are done in synchronously. If the I/O manager reads finished files
+ * through memory mappings and the file is not compressed, the buffers wrap the mapped file instead
+ * of being read into the buffers of the pool.
  */
 class SpilledSubpartitionView implements ResultSubpartitionView, NotificationListener {
 
@@ -62,6 +67,30 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 	/** The buffer pool to read data into. */
 	private final SpillReadBufferPool bufferPool;
 
+	/** The I/O manager to map the spilled file, or null, if the file is only read by the reader. */
+	private final IOManager ioManager;
+
+	/** Whether the spilled file is compressed, which rules out reading it through a mapping. */
+	private final boolean isCompressed;
+
+	/** Whether it has been checked if the spilled file can be mapped. */
+	private boolean isMappingChecked;
+
+	/** The lock that keeps the mapping from being released while the next buffer is read from it. */
+	private final Object mappingLock = new Object();
+
+	/** The mapped spilled file, or null, if the file is read by the reader. */
+	private MemoryMappedFile mappedFile;
+
+	/** Gives the segments of the recycled mapped buffers back to the mapped file. */
+	private BufferRecycler mappedBufferRecycler;
+
+	/** A segment over the whole mapped file to read the buffer headers. */
+	private MemorySegment mappedHeaders;
+
+	/** The position of the next buffer in the mapped file. */
+	private long mappedReadPosition;
+
 	/** Buffer availability listener. */
 	private final BufferAvailabilityListener availabilityListener;
 
@@ -81,10 +110,35 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 		long numberOfSpilledBuffers,
 		BufferAvailabilityListener availabilityListener) throws IOException {
 
+		this(parent, memorySegmentSize, spillWriter, numberOfSpilledBuffers, availabilityListener, null);
+	}
+
+	SpilledSubpartitionView(
+		ResultSubpartition parent,
+		int memorySegmentSize,
+		BufferFileWriter spillWriter,
+		long numberOfSpilledBuffers,
+		BufferAvailabilityListener availabilityListener,
+		BlockCompressionFactory spillCompression) throws IOException {
+
+		this(parent, memorySegmentSize, spillWriter, numberOfSpilledBuffers, availabilityListener, spillCompression, null);
+	}
+
+	SpilledSubpartitionView(
+		ResultSubpartition parent,
+		int memorySegmentSize,
+		BufferFileWriter spillWriter,
+		long numberOfSpilledBuffers,
+		BufferAvailabilityListener availabilityListener,
+		BlockCompressionFactory spillCompression,
+		IOManager ioManager) throws IOException {
+
 		this.parent = checkNotNull(parent);
 		this.bufferPool = new SpillReadBufferPool(2, memorySegmentSize);
 		this.spillWriter = checkNotNull(spillWriter);
-		this.fileReader = new SynchronousBufferFileReader(spillWriter.getChannelID(), false);
+		this.fileReader = new SynchronousBufferFileReader(spillWriter.getChannelID(), false, spillCompression);
+		this.ioManager = ioManager;
+		this.isCompressed = spillCompression != null;
 		checkArgument(numberOfSpilledBuffers >= 0);
 		this.numberOfSpilledBuffers = numberOfSpilledBuffers;
 		this.availabilityListener = checkNotNull(availabilityListener);
@@ -115,7 +169,22 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 
 	@Override
 	public Buffer getNextBuffer() throws IOException, InterruptedException {
-		if (fileReader.hasReachedEndOfFile() || isSpillInProgress) {
+		if (isSpillInProgress) {
+			return null;
+		}
+
+		// the file can be mapped only after the spilling is done
+		synchronized (mappingLock) {
+			if (!isMappingChecked) {
+				isMappingChecked = true;
+				mapSpilledFile();
+			}
+			if (mappedFile != null) {
+				return getNextMappedBuffer();
+			}
+		}
+
+		if (fileReader.hasReachedEndOfFile()) {
 			return null;
 		}
 
@@ -127,6 +196,53 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 		return buffer;
 	}
 
+	private void mapSpilledFile() throws IOException {
+		assert Thread.holdsLock(mappingLock);
+
+		if (ioManager == null || isCompressed || isReleased.get()) {
+			return;
+		}
+
+		final MemoryMappedFile file = ioManager.mapChannel(spillWriter.getChannelID(), 1);
+		if (file != null) {
+			// buffers may not cross the border of two regions, so larger files are read by the reader
+			if (file.getSize() > 0 && file.getNumberOfRegions() == 1) {
+				mappedFile = file;
+				mappedBufferRecycler = new MappedFileRecycler(file);
+				mappedHeaders = file.getSegment(0, (int) file.getSize());
+				LOG.debug("Reading spilled file {} through a memory mapping.", file.getChannelID().getPath());
+			} else {
+				file.close();
+			}
+		}
+	}
+
+	/**
+	 * Gets the next buffer as a segment of the mapped file. The buffers are not copied and are
+	 * given back to the mapped file when they are recycled.
+	 */
+	private Buffer getNextMappedBuffer() {
+		assert Thread.holdsLock(mappingLock);
+
+		if (isReleased.get() || mappedReadPosition >= mappedFile.getSize()) {
+			return null;
+		}
+
+		// the header is written by the buffer file writer in big endian byte order
+		final int headerPosition = (int) mappedReadPosition;
+		final boolean isBuffer = mappedHeaders.getIntBigEndian(headerPosition) == 1;
+		final int size = mappedHeaders.getIntBigEndian(headerPosition + 4);
+
+		final Buffer buffer = new Buffer(
+			mappedFile.getSegment(mappedReadPosition + 8, size), mappedBufferRecycler);
+		if (!isBuffer) {
+			buffer.tagAsEvent();
+		}
+
+		mappedReadPosition += 8 + size;
+		return buffer;
+	}
+
 	@Override
 	public void notifyBuffersAvailable(long buffers) throws IOException {
 		// We do the availability listener notification either directly on
@@ -151,6 +267,14 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 
 			fileReader.close();
 			bufferPool.destroy();
+
+			// the mapping is unmapped once the buffers that are still in use are recycled
+			synchronized (mappingLock) {
+				if (mappedFile != null) {
+					mappedFile.releaseSegment(mappedHeaders);
+					mappedFile.close();
+				}
+			}
 		}
 	}
 
@@ -172,13 +296,30 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 			parent.parent.getPartitionId());
 	}
 
+	/**
+	 * A recycler for the buffers that are read from a mapped file.
+	 */
+	private static class MappedFileRecycler implements BufferRecycler {
+
+		private final MemoryMappedFile file;
+
+		MappedFileRecycler(MemoryMappedFile file) {
+			this.file = file;
+		}
+
+		@Override
+		public void recycle(MemorySegment memorySegment) {
+			file.releaseSegment(memorySegment);
+		}
+	}
+
 	/**
 	 * A buffer pool to provide buffer to read the file into.
 	 *
 	 * <p>This pool ensures that a consuming input gate makes progress in all cases, even when all
 	 * buffers of the input gate buffer pool have been requested by remote input channels.
 	 */
-	private static class SpillReadBufferPool implements BufferRecycler {
+	static class SpillReadBufferPool implements BufferRecycler {
 
 		private final Queue<Buffer> buffers;
 
@@ -206,7 +347,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 			}
 		}
 
-		private Buffer requestBufferBlocking() throws InterruptedException {
+		Buffer requestBufferBlocking() throws InterruptedException {
 			synchronized (buffers) {
 				while (true) {
 					if (isDestroyed) {
@@ -224,7 +365,7 @@ class SpilledSubpartitionView implements ResultSubpartitionView, NotificationLis
 			}
 		}
 
-		private void destroy() {
+		void destroy() {
 			synchronized (buffers) {
 				isDestroyed = true;
 				buffers.notifyAll();
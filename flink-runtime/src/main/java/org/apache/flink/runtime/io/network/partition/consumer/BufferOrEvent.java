@@ -41,6 +41,12 @@ public class BufferOrEvent {
 	 */
 	private final boolean moreAvailable;
 
+	/**
+	 * The number of data buffers of the same channel that follow this event although they
+	 * were sent before it. Only barriers of unaligned checkpoints overtake buffers.
+	 */
+	private final int numOvertakenBuffers;
+
 	private int channelIndex;
 
 	BufferOrEvent(Buffer buffer, int channelIndex, boolean moreAvailable) {
@@ -48,13 +54,20 @@ public class BufferOrEvent {
 		this.event = null;
 		this.channelIndex = channelIndex;
 		this.moreAvailable = moreAvailable;
+		this.numOvertakenBuffers = 0;
 	}
 
 	BufferOrEvent(AbstractEvent event, int channelIndex, boolean moreAvailable) {
+		this(event, channelIndex, moreAvailable, 0);
+	}
+
+	BufferOrEvent(AbstractEvent event, int channelIndex, boolean moreAvailable, int numOvertakenBuffers) {
+		checkArgument(numOvertakenBuffers >= 0);
 		this.buffer = null;
 		this.event = checkNotNull(event);
 		this.channelIndex = channelIndex;
 		this.moreAvailable = moreAvailable;
+		this.numOvertakenBuffers = numOvertakenBuffers;
 	}
 
 	public BufferOrEvent(Buffer buffer, int channelIndex) {
@@ -65,6 +78,10 @@ public class BufferOrEvent {
 		this(event, channelIndex, true);
 	}
 
+	public BufferOrEvent(AbstractEvent event, int channelIndex, int numOvertakenBuffers) {
+		this(event, channelIndex, true, numOvertakenBuffers);
+	}
+
 	public boolean isBuffer() {
 		return buffer != null;
 	}
@@ -81,6 +98,14 @@ public class BufferOrEvent {
 		return event;
 	}
 
+	/**
+	 * Returns the number of data buffers of the same channel that this event overtook. These
+	 * buffers are returned after the event, although they precede it in the channel's stream.
+	 */
+	public int getNumOvertakenBuffers() {
+		return numOvertakenBuffers;
+	}
+
 	public int getChannelIndex() {
 		return channelIndex;
 	}
@@ -239,15 +239,23 @@ public abstract class InputChannel {
 
 	/**
 	 * A combination of a {@link Buffer} and a flag indicating availability of further buffers.
+	 * For the barrier of an unaligned checkpoint, it also carries the number of data buffers
+	 * that the barrier overtook in the channel.
 	 */
 	public static final class BufferAndAvailability {
 
 		private final Buffer buffer;
 		private final boolean moreAvailable;
+		private final int numOvertakenBuffers;
 
 		public BufferAndAvailability(Buffer buffer, boolean moreAvailable) {
+			this(buffer, moreAvailable, 0);
+		}
+
+		public BufferAndAvailability(Buffer buffer, boolean moreAvailable, int numOvertakenBuffers) {
 			this.buffer = checkNotNull(buffer);
 			this.moreAvailable = moreAvailable;
+			this.numOvertakenBuffers = numOvertakenBuffers;
 		}
 
 		public Buffer buffer() {
@@ -257,5 +265,9 @@ public abstract class InputChannel {
 		public boolean moreAvailable() {
 			return moreAvailable;
 		}
+
+		public int numOvertakenBuffers() {
+			return numOvertakenBuffers;
+		}
 	}
 }
@@ -74,6 +74,14 @@ public interface InputGate {
 
 	BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException;
 
+	/**
+	 * Returns the next buffer or event, if one is available, without blocking.
+	 *
+	 * @return The next buffer or event, or {@code null}, if none is currently available or the
+	 *         input gate is finished, see {@link #isFinished()}.
+	 */
+	BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException;
+
 	void sendTaskEvent(TaskEvent event) throws IOException;
 
 	void registerListener(InputGateListener listener);
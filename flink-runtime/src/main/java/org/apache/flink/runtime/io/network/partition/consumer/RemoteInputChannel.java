@@ -18,28 +18,44 @@
 
 package org.apache.flink.runtime.io.network.partition.consumer;
 
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
+import org.apache.flink.runtime.util.event.EventListener;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.apache.flink.util.Preconditions.checkArgument;
 import static org.apache.flink.util.Preconditions.checkNotNull;
 import static org.apache.flink.util.Preconditions.checkState;
 
 /**
  * An input channel, which requests a remote partition queue.
+ *
+ * <p>The channel uses credit-based flow control: it receives data only into buffers, which it
+ * has announced to the producer as credit before. Each channel owns a fixed number of exclusive
+ * buffers, which are announced as initial credit with the partition request and announced again
+ * whenever they are recycled. In addition, the channel requests floating buffers from the buffer
+ * pool of its input gate when the producer reports a backlog that exceeds the exclusive buffers.
+ * This way, a back pressured channel does not block other channels sharing the same connection.
  */
-public class RemoteInputChannel extends InputChannel {
+public class RemoteInputChannel extends InputChannel implements BufferRecycler, EventListener<Buffer> {
 
 	/** ID to distinguish this channel from other channels sharing the same TCP connection. */
 	private final InputChannelID id = new InputChannelID();
@@ -54,7 +70,16 @@ public class RemoteInputChannel extends InputChannel {
 	 * The received buffers. Received buffers are enqueued by the network I/O thread and the queue
 	 * is consumed by the receiving task thread.
 	 */
-	private final Queue<Buffer> receivedBuffers = new ArrayDeque<>();
+	private final ArrayDeque<Buffer> receivedBuffers = new ArrayDeque<>();
+
+	/**
+	 * The barrier of an unaligned checkpoint that overtook received buffers and has not been
+	 * consumed yet. Guarded by the receivedBuffers lock.
+	 */
+	private Buffer overtakingBarrier;
+
+	/** The number of data buffers that the overtaking barrier overtook. */
+	private int numBuffersOvertakenByBarrier;
 
 	/**
 	 * Flag indicating whether this channel has been released. Either called by the receiving task
@@ -71,6 +96,24 @@ public class RemoteInputChannel extends InputChannel {
 	 */
 	private int expectedSequenceNumber = 0;
 
+	/** The number of available buffers that have not been announced to the producer yet. */
+	private final AtomicInteger unannouncedCredit = new AtomicInteger(0);
+
+	/**
+	 * The available buffers to receive data into, i.e. the buffers that have been (or will be)
+	 * announced to the producer as credit. The queue also serves as lock for the credit state.
+	 */
+	private final AvailableBufferQueue bufferQueue = new AvailableBufferQueue();
+
+	/** The number of exclusive buffers of this channel, which is the initial credit of the partition request. */
+	private int initialCredit;
+
+	/** The number of buffers required to receive the backlog of the producer. Guarded by the buffer queue. */
+	private int numRequiredBuffers;
+
+	/** Whether this channel is registered for a floating buffer at the buffer pool. Guarded by the buffer queue. */
+	private boolean isWaitingForFloatingBuffers;
+
 	public RemoteInputChannel(
 		SingleInputGate inputGate,
 		int channelIndex,
@@ -98,6 +141,27 @@ public class RemoteInputChannel extends InputChannel {
 		this.connectionManager = checkNotNull(connectionManager);
 	}
 
+	/**
+	 * Assigns the exclusive buffers of this channel. The segments are requested from the network
+	 * buffer pool by the input gate and returned to it when this channel is released.
+	 */
+	void assignExclusiveSegments(List<MemorySegment> segments) {
+		checkNotNull(segments);
+		checkArgument(!segments.isEmpty(), "The number of exclusive buffers per channel should be larger than 0.");
+
+		synchronized (bufferQueue) {
+			checkState(initialCredit == 0, "Bug in input channel setup logic: exclusive buffers have " +
+					"already been set for this input channel.");
+
+			for (MemorySegment segment : segments) {
+				bufferQueue.addExclusiveBuffer(new Buffer(segment, this), segments.size());
+			}
+
+			initialCredit = segments.size();
+			numRequiredBuffers = segments.size();
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Consume
 	// ------------------------------------------------------------------------
@@ -139,14 +203,21 @@ public class RemoteInputChannel extends InputChannel {
 
 		final Buffer next;
 		final int remaining;
+		int numOvertakenBuffers = 0;
 
 		synchronized (receivedBuffers) {
 			next = receivedBuffers.poll();
 			remaining = receivedBuffers.size();
+
+			if (next != null && next == overtakingBarrier) {
+				numOvertakenBuffers = numBuffersOvertakenByBarrier;
+				overtakingBarrier = null;
+				numBuffersOvertakenByBarrier = 0;
+			}
 		}
 
 		numBytesIn.inc(next.getSize());
-		return new BufferAndAvailability(next, remaining > 0);
+		return new BufferAndAvailability(next, remaining > 0, numOvertakenBuffers);
 	}
 
 	// ------------------------------------------------------------------------
@@ -168,7 +239,7 @@ public class RemoteInputChannel extends InputChannel {
 	// ------------------------------------------------------------------------
 
 	@Override
-	boolean isReleased() {
+	public boolean isReleased() {
 		return isReleased.get();
 	}
 
@@ -178,11 +249,13 @@ public class RemoteInputChannel extends InputChannel {
 	}
 
 	/**
-	 * Releases all received buffers and closes the partition request client.
+	 * Releases all received and available buffers and closes the partition request client.
 	 */
 	@Override
 	void releaseAllResources() throws IOException {
 		if (isReleased.compareAndSet(false, true)) {
+			// Exclusive buffers, which are recycled from now on, are directly
+			// returned to the network buffer pool.
 			synchronized (receivedBuffers) {
 				Buffer buffer;
 				while ((buffer = receivedBuffers.poll()) != null) {
@@ -190,6 +263,23 @@ public class RemoteInputChannel extends InputChannel {
 				}
 			}
 
+			final List<MemorySegment> exclusiveSegments = new ArrayList<>();
+			final List<Buffer> floatingBuffers = new ArrayList<>();
+
+			synchronized (bufferQueue) {
+				bufferQueue.releaseAll(exclusiveSegments, floatingBuffers);
+			}
+
+			// Recycle the floating buffers outside of the lock, because the buffer pool
+			// may hand them to the buffer listeners of other channels.
+			for (Buffer buffer : floatingBuffers) {
+				buffer.recycle();
+			}
+
+			if (!exclusiveSegments.isEmpty()) {
+				inputGate.returnExclusiveSegments(exclusiveSegments);
+			}
+
 			// The released flag has to be set before closing the connection to ensure that
 			// buffers received concurrently with closing are properly recycled.
 			if (partitionRequestClient != null) {
@@ -223,12 +313,221 @@ public class RemoteInputChannel extends InputChannel {
 		return id;
 	}
 
-	public BufferProvider getBufferProvider() throws IOException {
-		if (isReleased.get()) {
-			return null;
+	/**
+	 * Returns the number of exclusive buffers, which are announced to the producer as initial
+	 * credit with the partition request.
+	 */
+	public int getInitialCredit() {
+		synchronized (bufferQueue) {
+			return initialCredit;
+		}
+	}
+
+	/**
+	 * Returns the credit that has not been announced to the producer yet and resets it.
+	 */
+	public int getAndResetUnannouncedCredit() {
+		return unannouncedCredit.getAndSet(0);
+	}
+
+	/**
+	 * Takes an available buffer to copy received data into. Because the producer only sends
+	 * buffers for announced credit, a buffer is available unless the channel has been released.
+	 *
+	 * @return An available buffer or <code>null</code> if the channel has been released.
+	 */
+	public Buffer requestBuffer() {
+		synchronized (bufferQueue) {
+			return bufferQueue.takeBuffer();
+		}
+	}
+
+	/**
+	 * Requests floating buffers from the buffer pool of the input gate, so that the channel has
+	 * enough buffers available to receive the backlog of the producer. The new buffers are
+	 * announced to the producer as credit. If the buffer pool has no buffers available, the
+	 * channel registers itself as listener for the next recycled buffer.
+	 *
+	 * <p>This is called by the network I/O thread for each received buffer or event.
+	 *
+	 * @param backlog The number of buffers queued at the producer for this channel.
+	 */
+	public void onSenderBacklog(int backlog) throws IOException {
+		synchronized (bufferQueue) {
+			if (isReleased.get()) {
+				return;
+			}
+
+			numRequiredBuffers = backlog + initialCredit;
+
+			// The listener requests further buffers once it got notified
+			if (isWaitingForFloatingBuffers) {
+				return;
+			}
+		}
+
+		final BufferProvider bufferProvider = inputGate.getBufferProvider();
+		if (bufferProvider == null) {
+			return;
+		}
+
+		int numRequestedBuffers = 0;
+
+		// The buffer pool is not accessed while holding the lock of the buffer queue, because
+		// the buffer pool notifies its listeners while holding its own lock.
+		while (true) {
+			synchronized (bufferQueue) {
+				if (isReleased.get() || bufferQueue.getAvailableBufferSize() >= numRequiredBuffers) {
+					break;
+				}
+			}
+
+			final Buffer buffer = bufferProvider.requestBuffer();
+
+			if (buffer != null) {
+				boolean added = false;
+
+				synchronized (bufferQueue) {
+					if (!isReleased.get()) {
+						bufferQueue.addFloatingBuffer(buffer);
+						added = true;
+					}
+				}
+
+				if (added) {
+					numRequestedBuffers++;
+				} else {
+					buffer.recycle();
+					break;
+				}
+			} else {
+				synchronized (bufferQueue) {
+					isWaitingForFloatingBuffers = true;
+				}
+
+				if (bufferProvider.addListener(this)) {
+					break;
+				}
+
+				synchronized (bufferQueue) {
+					isWaitingForFloatingBuffers = false;
+				}
+
+				if (bufferProvider.isDestroyed()) {
+					break;
+				}
+				// else: a buffer has been recycled in the meantime, retry
+			}
+		}
+
+		if (numRequestedBuffers > 0 && unannouncedCredit.getAndAdd(numRequestedBuffers) == 0) {
+			notifyCreditAvailable();
+		}
+	}
+
+	/**
+	 * Recycles an exclusive buffer of this channel. The buffer becomes available again and is
+	 * announced as credit, unless the channel has more buffers available than required. In that
+	 * case, a floating buffer is returned to the buffer pool instead.
+	 */
+	@Override
+	public void recycle(MemorySegment segment) {
+		final boolean isChannelReleased;
+		Buffer excessFloatingBuffer = null;
+
+		synchronized (bufferQueue) {
+			isChannelReleased = isReleased.get();
+
+			if (!isChannelReleased) {
+				excessFloatingBuffer = bufferQueue.addExclusiveBuffer(new Buffer(segment, this), numRequiredBuffers);
+			}
+		}
+
+		if (isChannelReleased) {
+			// The channel has been released before or concurrently
+			inputGate.returnExclusiveSegments(Collections.singletonList(segment));
+		} else if (excessFloatingBuffer != null) {
+			excessFloatingBuffer.recycle();
+		} else if (unannouncedCredit.getAndAdd(1) == 0) {
+			notifyCreditAvailable();
+		}
+	}
+
+	/**
+	 * Notification of the buffer pool about a floating buffer, for which this channel registered
+	 * in {@link #onSenderBacklog(int)}. This is called by the thread recycling the buffer.
+	 */
+	@Override
+	public void onEvent(Buffer buffer) {
+		boolean recycleBuffer = false;
+		boolean needMoreBuffers = false;
+
+		synchronized (bufferQueue) {
+			isWaitingForFloatingBuffers = false;
+
+			if (buffer == null) {
+				// The buffer pool has been destroyed
+				return;
+			}
+
+			if (isReleased.get() || bufferQueue.getAvailableBufferSize() >= numRequiredBuffers) {
+				recycleBuffer = true;
+			} else {
+				bufferQueue.addFloatingBuffer(buffer);
+				needMoreBuffers = bufferQueue.getAvailableBufferSize() < numRequiredBuffers;
+				isWaitingForFloatingBuffers = needMoreBuffers;
+			}
+		}
+
+		if (recycleBuffer) {
+			buffer.recycle();
+			return;
+		}
+
+		// The buffer is owned by this channel now, so errors must not be
+		// thrown back to the buffer pool.
+		try {
+			if (unannouncedCredit.getAndAdd(1) == 0) {
+				notifyCreditAvailable();
+			}
+
+			if (needMoreBuffers && !inputGate.getBufferProvider().addListener(this)) {
+				// Buffers are available again, the next backlog will request them
+				synchronized (bufferQueue) {
+					isWaitingForFloatingBuffers = false;
+				}
+			}
+		} catch (Throwable t) {
+			setError(t);
+		}
+	}
+
+	private void notifyCreditAvailable() {
+		final PartitionRequestClient client = partitionRequestClient;
+
+		// Before the partition request, all available buffers are part of the initial credit
+		if (client != null) {
+			client.notifyCreditAvailable(this);
+		}
+	}
+
+	@VisibleForTesting
+	int getNumberOfAvailableBuffers() {
+		synchronized (bufferQueue) {
+			return bufferQueue.getAvailableBufferSize();
+		}
+	}
+
+	@VisibleForTesting
+	int getNumberOfRequiredBuffers() {
+		synchronized (bufferQueue) {
+			return numRequiredBuffers;
 		}
+	}
 
-		return inputGate.getBufferProvider();
+	@VisibleForTesting
+	int getUnannouncedCredit() {
+		return unannouncedCredit.get();
 	}
 
 	public void onBuffer(Buffer buffer, int sequenceNumber) {
@@ -240,7 +539,11 @@ public class RemoteInputChannel extends InputChannel {
 					if (expectedSequenceNumber == sequenceNumber) {
 						int available = receivedBuffers.size();
 
-						receivedBuffers.add(buffer);
+						if (overtakingBarrier == null && EventSerializer.isUnalignedCheckpointBarrier(buffer)) {
+							addOvertakingBarrier(buffer);
+						} else {
+							receivedBuffers.add(buffer);
+						}
 						expectedSequenceNumber++;
 
 						if (available == 0) {
@@ -260,6 +563,29 @@ public class RemoteInputChannel extends InputChannel {
 		}
 	}
 
+	/**
+	 * Queues the barrier of an unaligned checkpoint in front of the received data buffers that
+	 * follow the last received event, so that the task sees the barrier before these buffers.
+	 * The consumer of the barrier learns how many buffers it overtook, because their data
+	 * precedes the barrier in the stream and belongs to the channel state of the checkpoint.
+	 */
+	private void addOvertakingBarrier(Buffer barrier) {
+		assert Thread.holdsLock(receivedBuffers);
+
+		List<Buffer> overtaken = new ArrayList<>();
+		while (!receivedBuffers.isEmpty() && receivedBuffers.peekLast().isBuffer()) {
+			overtaken.add(receivedBuffers.pollLast());
+		}
+
+		receivedBuffers.add(barrier);
+		for (int i = overtaken.size() - 1; i >= 0; i--) {
+			receivedBuffers.add(overtaken.get(i));
+		}
+
+		overtakingBarrier = barrier;
+		numBuffersOvertakenByBarrier = overtaken.size();
+	}
+
 	public void onEmptyBuffer(int sequenceNumber) {
 		synchronized (receivedBuffers) {
 			if (!isReleased.get()) {
@@ -280,6 +606,66 @@ public class RemoteInputChannel extends InputChannel {
 		setError(cause);
 	}
 
+	/**
+	 * The available buffers of a channel. Floating buffers are handed out first, so that they
+	 * return to the buffer pool of the input gate as soon as possible.
+	 */
+	private static class AvailableBufferQueue {
+
+		/** The available floating buffers from the buffer pool of the input gate. */
+		private final ArrayDeque<Buffer> floatingBuffers = new ArrayDeque<>();
+
+		/** The available exclusive buffers of the channel. */
+		private final ArrayDeque<Buffer> exclusiveBuffers = new ArrayDeque<>();
+
+		/**
+		 * Adds an exclusive buffer to the queue. If more buffers than required are available
+		 * afterwards, a floating buffer is removed from the queue and returned, so that the
+		 * caller can recycle it.
+		 *
+		 * @return An excess floating buffer to recycle or <code>null</code>.
+		 */
+		Buffer addExclusiveBuffer(Buffer buffer, int numRequiredBuffers) {
+			exclusiveBuffers.add(buffer);
+
+			if (getAvailableBufferSize() > numRequiredBuffers) {
+				return floatingBuffers.poll();
+			}
+
+			return null;
+		}
+
+		void addFloatingBuffer(Buffer buffer) {
+			floatingBuffers.add(buffer);
+		}
+
+		Buffer takeBuffer() {
+			if (floatingBuffers.size() > 0) {
+				return floatingBuffers.poll();
+			} else {
+				return exclusiveBuffers.poll();
+			}
+		}
+
+		/**
+		 * Removes all buffers from the queue. The segments of the exclusive buffers and the
+		 * floating buffers are added to the given lists.
+		 */
+		void releaseAll(List<MemorySegment> exclusiveSegments, List<Buffer> floatingBuffersToRecycle) {
+			Buffer buffer;
+			while ((buffer = floatingBuffers.poll()) != null) {
+				floatingBuffersToRecycle.add(buffer);
+			}
+			while ((buffer = exclusiveBuffers.poll()) != null) {
+				exclusiveSegments.add(buffer.getMemorySegment());
+			}
+		}
+
+		int getAvailableBufferSize() {
+			return floatingBuffers.size() + exclusiveBuffers.size();
+		}
+	}
+
 	private static class BufferReorderingException extends IOException {
 
 		private static final long serialVersionUID = -888282210356266816L;
@@ -21,6 +21,7 @@ package org.apache.flink.runtime.io.network.partition.consumer;
 import com.google.common.collect.Maps;
 import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.deployment.InputChannelDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.InputGateDeploymentDescriptor;
 import org.apache.flink.runtime.deployment.ResultPartitionLocation;
@@ -33,6 +34,7 @@ import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferPool;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannel.BufferAndAvailability;
 import org.apache.flink.runtime.jobgraph.DistributionPattern;
@@ -144,6 +146,12 @@ public class SingleInputGate implements InputGate {
 	 */
 	private BufferPool bufferPool;
 
+	/** Global network buffer pool to request and recycle exclusive buffers of remote channels. */
+	private volatile NetworkBufferPool networkBufferPool;
+
+	/** The number of exclusive buffers of each remote channel. */
+	private int networkBuffersPerChannel;
+
 	private boolean hasReceivedAllEndOfPartitionEvents;
 
 	/** Flag indicating whether partitions have been requested. */
@@ -243,19 +251,54 @@ public class SingleInputGate implements InputGate {
 	// Setup/Life-cycle
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Sets the buffer pool of the gate, which provides the floating buffers of the remote input
+	 * channels in addition to their exclusive buffers.
+	 */
 	public void setBufferPool(BufferPool bufferPool) {
-		// Sanity checks
-		checkArgument(numberOfInputChannels == bufferPool.getNumberOfRequiredMemorySegments(),
-				"Bug in input gate setup logic: buffer pool has not enough guaranteed buffers " +
-						"for this input gate. Input gates require at least as many buffers as " +
-						"there are input channels.");
-
 		checkState(this.bufferPool == null, "Bug in input gate setup logic: buffer pool has" +
 				"already been set for this input gate.");
 
 		this.bufferPool = checkNotNull(bufferPool);
 	}
 
+	/**
+	 * Assigns exclusive buffers to all remote input channels directly for credit-based mode.
+	 * Remote channels, which are created later from unknown channels, get their exclusive
+	 * buffers when they are updated.
+	 *
+	 * @param networkBufferPool The global pool to request and recycle exclusive buffers
+	 * @param networkBuffersPerChannel The number of exclusive buffers for each channel
+	 */
+	public void assignExclusiveSegments(NetworkBufferPool networkBufferPool, int networkBuffersPerChannel) throws IOException {
+		checkArgument(networkBuffersPerChannel > 0, "The number of exclusive buffers per channel should be larger than 0.");
+
+		synchronized (requestLock) {
+			checkState(this.networkBufferPool == null, "Bug in input gate setup logic: global buffer pool has" +
+					"already been set for this input gate.");
+
+			this.networkBufferPool = checkNotNull(networkBufferPool);
+			this.networkBuffersPerChannel = networkBuffersPerChannel;
+
+			for (InputChannel inputChannel : inputChannels.values()) {
+				if (inputChannel instanceof RemoteInputChannel) {
+					((RemoteInputChannel) inputChannel).assignExclusiveSegments(
+							networkBufferPool.requestMemorySegments(networkBuffersPerChannel));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the exclusive buffers of a released remote input channel to the global pool.
+	 */
+	void returnExclusiveSegments(List<MemorySegment> segments) {
+		checkState(networkBufferPool != null, "Bug in input gate setup logic: exclusive buffers were " +
+				"assigned without global buffer pool.");
+
+		networkBufferPool.recycleMemorySegments(segments);
+	}
+
 	public void setInputChannel(IntermediateResultPartitionID partitionId, InputChannel inputChannel) {
 		synchronized (requestLock) {
 			if (inputChannels.put(checkNotNull(partitionId), checkNotNull(inputChannel)) == null
@@ -290,6 +333,11 @@ public class SingleInputGate implements InputGate {
 				}
 				else if (partitionLocation.isRemote()) {
 					newChannel = unknownChannel.toRemoteInputChannel(partitionLocation.getConnectionId());
+
+					if (networkBufferPool != null) {
+						((RemoteInputChannel) newChannel).assignExclusiveSegments(
+								networkBufferPool.requestMemorySegments(networkBuffersPerChannel));
+					}
 				}
 				else {
 					throw new IllegalStateException("Tried to update unknown channel with unknown channel.");
@@ -430,6 +478,15 @@ public class SingleInputGate implements InputGate {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 		if (hasReceivedAllEndOfPartitionEvents) {
 			return null;
 		}
@@ -449,6 +506,10 @@ public class SingleInputGate implements InputGate {
 					throw new IllegalStateException("Released");
 				}
 
+				if (!blocking) {
+					return null;
+				}
+
 				inputChannelsWithData.wait();
 			}
 
@@ -490,7 +551,7 @@ public class SingleInputGate implements InputGate {
 				currentChannel.releaseAllResources();
 			}
 
-			return new BufferOrEvent(event, currentChannel.getChannelIndex(), moreAvailable);
+			return new BufferOrEvent(event, currentChannel.getChannelIndex(), moreAvailable, result.numOvertakenBuffers());
 		}
 	}
 
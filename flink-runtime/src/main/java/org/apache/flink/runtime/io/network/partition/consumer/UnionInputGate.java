@@ -139,6 +139,15 @@ public class UnionInputGate implements InputGate, InputGateListener {
 
 	@Override
 	public BufferOrEvent getNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() throws IOException, InterruptedException {
+		return getNextBufferOrEvent(false);
+	}
+
+	private BufferOrEvent getNextBufferOrEvent(boolean blocking) throws IOException, InterruptedException {
 		if (inputGatesWithRemainingData.isEmpty()) {
 			return null;
 		}
@@ -149,12 +158,17 @@ public class UnionInputGate implements InputGate, InputGateListener {
 		final InputGate inputGate;
 		synchronized (inputGatesWithData) {
 			while (inputGatesWithData.size() == 0) {
+				if (!blocking) {
+					return null;
+				}
+
 				inputGatesWithData.wait();
 			}
 
 			inputGate = inputGatesWithData.remove();
 		}
 
+		// the gate notified us about available data, so this does not block
 		final BufferOrEvent bufferOrEvent = inputGate.getNextBufferOrEvent();
 
 		if (bufferOrEvent.moreAvailable()) {
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.memory;
+
+/**
+ * A consumer that borrows memory pages from the {@link MemoryManager} beyond its quota, and gives
+ * them back when the memory manager needs them for the quota of another consumer.
+ *
+ * @see MemoryManager#borrowPages(Object, int, ElasticMemoryConsumer)
+ */
+public interface ElasticMemoryConsumer {
+
+	/**
+	 * Asks the consumer to give back borrowed pages by releasing them to the memory manager. The
+	 * consumer may release the pages from within this call, or later from its own threads, for
+	 * example after it spilled the data it holds in these pages.
+	 *
+	 * <p>The method is called while the memory manager holds its lock, so it must not block.
+	 *
+	 * @param numPages The number of pages that the memory manager needs back.
+	 */
+	void revokeBorrowedPages(int numPages);
+}
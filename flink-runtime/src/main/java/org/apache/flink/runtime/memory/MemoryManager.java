@@ -52,6 +52,10 @@ import org.slf4j.LoggerFactory;
  * On-demand allocation means that the memory manager only keeps track how many memory segments are
  * currently allocated (bookkeeping only). Releasing a memory segment will not add it back to the pool,
  * but make it re-claimable by the garbage collector.
+ * <p>
+ * Besides the pages of their quota, consumers may borrow pages that are currently free (see
+ * {@link #borrowPages(Object, int, ElasticMemoryConsumer)}). When an allocation finds too few free pages,
+ * the memory manager asks the borrowers to give their pages back and waits for them for a limited time.
  */
 public class MemoryManager {
 
@@ -62,6 +66,9 @@ public class MemoryManager {
 	/** The minimal memory page size. Currently set to 4 KiBytes. */
 	public static final int MIN_PAGE_SIZE = 4 * 1024;
 
+	/** The default time that an allocation waits for borrowed pages to be given back. Currently 30 seconds. */
+	public static final long DEFAULT_REVOCATION_TIMEOUT = 30000L;
+
 	// ------------------------------------------------------------------------
 
 	/** The lock used on the shared structures. */
@@ -73,6 +80,12 @@ public class MemoryManager {
 	/** Memory segments allocated per memory owner */
 	private final HashMap<Object, Set<MemorySegment>> allocatedSegments;
 
+	/** Memory segments borrowed beyond the quotas, per consumer that borrowed them */
+	private final HashMap<ElasticMemoryConsumer, Set<MemorySegment>> borrowedSegments;
+
+	/** The consumer that borrowed a memory segment, for all borrowed segments */
+	private final HashMap<MemorySegment, ElasticMemoryConsumer> borrowers;
+
 	/** The type of memory governed by this memory manager */
 	private final MemoryType memoryType;
 	
@@ -97,6 +110,12 @@ public class MemoryManager {
 	/** The number of memory pages that have not been allocated and are available for lazy allocation */
 	private int numNonAllocatedPages;
 
+	/** The number of allocations that wait for borrowed pages to be given back */
+	private int numWaitingAllocations;
+
+	/** The time in milliseconds that an allocation waits for borrowed pages to be given back */
+	private long revocationTimeout = DEFAULT_REVOCATION_TIMEOUT;
+
 	/** flag whether the close() has already been invoked */
 	private boolean isShutDown;
 
@@ -156,6 +175,8 @@ public class MemoryManager {
 		}
 
 		this.allocatedSegments = new HashMap<Object, Set<MemorySegment>>();
+		this.borrowedSegments = new HashMap<ElasticMemoryConsumer, Set<MemorySegment>>();
+		this.borrowers = new HashMap<MemorySegment, ElasticMemoryConsumer>();
 		this.isPreAllocated = preAllocateMemory;
 
 		this.numNonAllocatedPages = preAllocateMemory ? 0 : this.totalNumPages;
@@ -204,6 +225,10 @@ public class MemoryManager {
 				}
 				
 				memoryPool.clear();
+
+				borrowedSegments.clear();
+				borrowers.clear();
+				lock.notifyAll();
 			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
@@ -285,35 +310,206 @@ public class MemoryManager {
 
 			// in the case of pre-allocated memory, the 'numNonAllocatedPages' is zero, in the
 			// lazy case, the 'freeSegments.size()' is zero.
-			if (numPages > (memoryPool.getNumberOfAvailableMemorySegments() + numNonAllocatedPages)) {
+			int numAvailablePages = getNumberOfAvailablePages();
+			if (numPages > numAvailablePages && !borrowers.isEmpty()) {
+				numAvailablePages = revokeBorrowedPages(numPages);
+			}
+			if (numPages > numAvailablePages) {
 				throw new MemoryAllocationException("Could not allocate " + numPages + " pages. Only " +
-						(memoryPool.getNumberOfAvailableMemorySegments() + numNonAllocatedPages)
-						+ " pages are remaining.");
+						numAvailablePages + " pages are remaining" +
+						(borrowers.isEmpty() ? "." : ", and " + borrowers.size() + " pages were not given back by their borrowers."));
+			}
+
+			allocateSegments(owner, target, numPages);
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+
+	/**
+	 * Allocates a set of memory segments from this memory manager, if enough pages are free right away.
+	 * Unlike {@link #allocatePages(Object, int)}, this method neither asks the borrowers to give pages
+	 * back nor waits for them, so it may be called by threads that must not block.
+	 *
+	 * @param owner The owner to associate with the memory segment, for the fallback release.
+	 * @param numPages The number of pages to allocate.
+	 * @return A list with the memory segments, or an empty list, if fewer pages are free.
+	 */
+	public List<MemorySegment> tryAllocatePages(Object owner, int numPages) {
+		// sanity check
+		if (owner == null) {
+			throw new IllegalArgumentException("The memory owner must not be null.");
+		}
+
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (lock)
+		{
+			if (isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
 			}
 
-			Set<MemorySegment> segmentsForOwner = allocatedSegments.get(owner);
-			if (segmentsForOwner == null) {
-				segmentsForOwner = new HashSet<MemorySegment>(numPages);
-				allocatedSegments.put(owner, segmentsForOwner);
+			// the free pages belong to the allocations that wait for borrowed pages
+			if (numPages > getNumberOfAvailablePages() || numWaitingAllocations > 0) {
+				return new ArrayList<MemorySegment>(0);
 			}
 
-			if (isPreAllocated) {
-				for (int i = numPages; i > 0; i--) {
-					MemorySegment segment = memoryPool.requestSegmentFromPool(owner);
-					target.add(segment);
-					segmentsForOwner.add(segment);
+			final ArrayList<MemorySegment> segs = new ArrayList<MemorySegment>(numPages);
+			allocateSegments(owner, segs, numPages);
+			return segs;
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+
+	/**
+	 * Borrows up to the given number of memory pages beyond the quota of the owner. Pages are only lent
+	 * while they are free and no allocation waits for borrowed pages to be given back, so the returned
+	 * list may contain fewer pages than requested, or none.
+	 * <p>
+	 * The borrowed pages are released like all other pages. When an allocation needs them, the memory
+	 * manager asks the consumer to give them back.
+	 *
+	 * @param owner The owner to associate with the memory segments, for the fallback release.
+	 * @param numPages The maximal number of pages to borrow.
+	 * @param consumer The consumer that gives the pages back when asked to.
+	 * @return A list with the borrowed memory segments.
+	 */
+	public List<MemorySegment> borrowPages(Object owner, int numPages, ElasticMemoryConsumer consumer) {
+		// sanity check
+		if (owner == null) {
+			throw new IllegalArgumentException("The memory owner must not be null.");
+		}
+		if (consumer == null) {
+			throw new IllegalArgumentException("The elastic memory consumer must not be null.");
+		}
+
+		// -------------------- BEGIN CRITICAL SECTION -------------------
+		synchronized (lock)
+		{
+			if (isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+
+			final int numBorrowedPages = numWaitingAllocations > 0 ? 0 :
+					Math.min(numPages, getNumberOfAvailablePages());
+			if (numBorrowedPages <= 0) {
+				return new ArrayList<MemorySegment>(0);
+			}
+
+			final ArrayList<MemorySegment> segs = new ArrayList<MemorySegment>(numBorrowedPages);
+			allocateSegments(owner, segs, numBorrowedPages);
+
+			Set<MemorySegment> segmentsForConsumer = borrowedSegments.get(consumer);
+			if (segmentsForConsumer == null) {
+				segmentsForConsumer = new HashSet<MemorySegment>(numBorrowedPages);
+				borrowedSegments.put(consumer, segmentsForConsumer);
+			}
+			for (MemorySegment segment : segs) {
+				segmentsForConsumer.add(segment);
+				borrowers.put(segment, consumer);
+			}
+			return segs;
+		}
+		// -------------------- END CRITICAL SECTION -------------------
+	}
+
+	/**
+	 * Asks the borrowers to give back the pages that the current allocation lacks, and waits until
+	 * enough pages are free, all borrowed pages are back, or the revocation timeout has passed.
+	 * Must be called while holding the lock.
+	 *
+	 * @return The number of available pages.
+	 */
+	private int revokeBorrowedPages(int numPages) {
+		numWaitingAllocations++;
+		try {
+			int numMissingPages = numPages - getNumberOfAvailablePages();
+
+			// the consumers may release their pages synchronously, which modifies the map
+			for (ElasticMemoryConsumer consumer : new ArrayList<ElasticMemoryConsumer>(borrowedSegments.keySet())) {
+				final Set<MemorySegment> segmentsForConsumer = borrowedSegments.get(consumer);
+				if (numMissingPages <= 0) {
+					break;
+				}
+				if (segmentsForConsumer == null) {
+					continue;
+				}
+
+				final int numRevokedPages = Math.min(numMissingPages, segmentsForConsumer.size());
+				numMissingPages -= numRevokedPages;
+				try {
+					consumer.revokeBorrowedPages(numRevokedPages);
+				}
+				catch (Throwable t) {
+					LOG.error("Error while revoking borrowed memory pages.", t);
 				}
 			}
-			else {
-				for (int i = numPages; i > 0; i--) {
-					MemorySegment segment = memoryPool.allocateNewSegment(owner);
-					target.add(segment);
-					segmentsForOwner.add(segment);
+
+			final long deadline = System.currentTimeMillis() + revocationTimeout;
+			long timeLeft = revocationTimeout;
+			while (!isShutDown && timeLeft > 0 && !borrowers.isEmpty() && getNumberOfAvailablePages() < numPages) {
+				try {
+					lock.wait(timeLeft);
 				}
-				numNonAllocatedPages -= numPages;
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+				timeLeft = deadline - System.currentTimeMillis();
+			}
+
+			if (isShutDown) {
+				throw new IllegalStateException("Memory manager has been shut down.");
+			}
+			return getNumberOfAvailablePages();
+		}
+		finally {
+			numWaitingAllocations--;
+		}
+	}
+
+	/**
+	 * Allocates the given number of pages for the owner. Must be called while holding the lock, after
+	 * checking that enough pages are available.
+	 */
+	private void allocateSegments(Object owner, List<MemorySegment> target, int numPages) {
+		Set<MemorySegment> segmentsForOwner = allocatedSegments.get(owner);
+		if (segmentsForOwner == null) {
+			segmentsForOwner = new HashSet<MemorySegment>(numPages);
+			allocatedSegments.put(owner, segmentsForOwner);
+		}
+
+		if (isPreAllocated) {
+			for (int i = numPages; i > 0; i--) {
+				MemorySegment segment = memoryPool.requestSegmentFromPool(owner);
+				target.add(segment);
+				segmentsForOwner.add(segment);
+			}
+		}
+		else {
+			for (int i = numPages; i > 0; i--) {
+				MemorySegment segment = memoryPool.allocateNewSegment(owner);
+				target.add(segment);
+				segmentsForOwner.add(segment);
+			}
+			numNonAllocatedPages -= numPages;
+		}
+	}
+
+	/**
+	 * Removes the book-keeping of a borrowed segment that is released. Must be called while holding the lock.
+	 */
+	private void returnBorrowedSegment(MemorySegment segment) {
+		final ElasticMemoryConsumer consumer = borrowers.remove(segment);
+		if (consumer != null) {
+			final Set<MemorySegment> segmentsForConsumer = borrowedSegments.get(consumer);
+			segmentsForConsumer.remove(segment);
+			if (segmentsForConsumer.isEmpty()) {
+				borrowedSegments.remove(consumer);
 			}
 		}
-		// -------------------- END CRITICAL SECTION -------------------
+	}
+
+	private int getNumberOfAvailablePages() {
+		return memoryPool.getNumberOfAvailableMemorySegments() + numNonAllocatedPages;
 	}
 
 	/**
@@ -356,6 +552,10 @@ public class MemoryManager {
 					}
 				}
 
+				if (!borrowers.isEmpty()) {
+					returnBorrowedSegment(segment);
+				}
+
 				if (isPreAllocated) {
 					// release the memory in any case
 					memoryPool.returnSegmentToPool(segment);
@@ -368,6 +568,10 @@ public class MemoryManager {
 			catch (Throwable t) {
 				throw new RuntimeException("Error removing book-keeping reference to allocated memory segment.", t);
 			}
+
+			if (numWaitingAllocations > 0) {
+				lock.notifyAll();
+			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
@@ -430,6 +634,10 @@ public class MemoryManager {
 								}
 							}
 
+							if (!borrowers.isEmpty()) {
+								returnBorrowedSegment(seg);
+							}
+
 							if (isPreAllocated) {
 								memoryPool.returnSegmentToPool(seg);
 							}
@@ -454,6 +662,10 @@ public class MemoryManager {
 					// call releases the memory. fall through the loop and try again
 				}
 			} while (!successfullyReleased);
+
+			if (numWaitingAllocations > 0) {
+				lock.notifyAll();
+			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
@@ -483,6 +695,12 @@ public class MemoryManager {
 				return;
 			}
 
+			if (!borrowers.isEmpty()) {
+				for (MemorySegment seg : segments) {
+					returnBorrowedSegment(seg);
+				}
+			}
+
 			// free each segment
 			if (isPreAllocated) {
 				for (MemorySegment seg : segments) {
@@ -497,6 +715,10 @@ public class MemoryManager {
 			}
 
 			segments.clear();
+
+			if (numWaitingAllocations > 0) {
+				lock.notifyAll();
+			}
 		}
 		// -------------------- END CRITICAL SECTION -------------------
 	}
@@ -550,6 +772,32 @@ public class MemoryManager {
 		return totalNumPages;
 	}
 
+	/**
+	 * Gets the number of memory pages that are currently borrowed beyond the quotas of their owners.
+	 *
+	 * @return The number of borrowed memory pages.
+	 */
+	public int getNumBorrowedPages() {
+		synchronized (lock) {
+			return borrowers.size();
+		}
+	}
+
+	/**
+	 * Sets the time that an allocation waits for borrowed pages to be given back, before it fails
+	 * because too few pages are available.
+	 *
+	 * @param revocationTimeout The timeout in milliseconds.
+	 */
+	public void setRevocationTimeout(long revocationTimeout) {
+		if (revocationTimeout < 0) {
+			throw new IllegalArgumentException("The revocation timeout must not be negative.");
+		}
+		synchronized (lock) {
+			this.revocationTimeout = revocationTimeout;
+		}
+	}
+
 	/**
 	 * Computes to how many pages the given number of bytes corresponds. If the given number of bytes is not an
 	 * exact multiple of a page size, the result is rounded down, such that a portion of the memory (smaller
@@ -20,6 +20,8 @@ package org.apache.flink.runtime.metrics.util;
 import org.apache.commons.lang3.text.WordUtils;
 import org.apache.flink.metrics.Gauge;
 import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,6 +66,66 @@ public class MetricUtils {
 		});
 	}
 
+	/**
+	 * Registers the queue depths, request counts and latencies of the reads and writes of every
+	 * spilling directory of the given I/O manager, if it is an {@link IOManagerAsync}.
+	 */
+	public static void instantiateIOMetrics(
+		MetricGroup metrics,
+		IOManager ioManager) {
+		if (!(ioManager instanceof IOManagerAsync)) {
+			return;
+		}
+		final IOManagerAsync ioManagerAsync = (IOManagerAsync) ioManager;
+
+		MetricGroup io = metrics
+			.addGroup(METRIC_GROUP_STATUS_NAME)
+			.addGroup("IO");
+
+		final int numDirectories = ioManager.getSpillingDirectories().length;
+		for (int i = 0; i < numDirectories; i++) {
+			final int directory = i;
+			MetricGroup directoryGroup = io.addGroup(String.valueOf(directory));
+
+			directoryGroup.gauge("ReadQueueDepth", new Gauge<Integer>() {
+				@Override
+				public Integer getValue() {
+					return ioManagerAsync.getReadQueueDepth(directory);
+				}
+			});
+			directoryGroup.gauge("WriteQueueDepth", new Gauge<Integer>() {
+				@Override
+				public Integer getValue() {
+					return ioManagerAsync.getWriteQueueDepth(directory);
+				}
+			});
+			directoryGroup.gauge("NumReadRequests", new Gauge<Long>() {
+				@Override
+				public Long getValue() {
+					return ioManagerAsync.getNumReadRequests(directory);
+				}
+			});
+			directoryGroup.gauge("NumWriteRequests", new Gauge<Long>() {
+				@Override
+				public Long getValue() {
+					return ioManagerAsync.getNumWriteRequests(directory);
+				}
+			});
+			directoryGroup.gauge("ReadLatency", new Gauge<Double>() {
+				@Override
+				public Double getValue() {
+					return ioManagerAsync.getReadLatency(directory);
+				}
+			});
+			directoryGroup.gauge("WriteLatency", new Gauge<Double>() {
+				@Override
+				public Double getValue() {
+					return ioManagerAsync.getWriteLatency(directory);
+				}
+			});
+		}
+	}
+
 	public static void instantiateStatusMetrics(
 		MetricGroup metrics) {
 		MetricGroup status = metrics
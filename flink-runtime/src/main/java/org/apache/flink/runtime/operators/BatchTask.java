@@ -32,13 +32,14 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.broadcast.BroadcastVariableMaterialization;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.reader.MutableReader;
 import org.apache.flink.runtime.io.network.api.reader.MutableRecordReader;
-import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
 import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.io.network.partition.consumer.UnionInputGate;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
@@ -56,6 +57,7 @@ import org.apache.flink.runtime.operators.util.CloseableInputProvider;
 import org.apache.flink.runtime.operators.util.DistributedRuntimeUDFContext;
 import org.apache.flink.runtime.operators.util.LocalStrategy;
 import org.apache.flink.runtime.operators.util.ReaderIterator;
+import org.apache.flink.runtime.operators.util.RuntimeFilterEvent;
 import org.apache.flink.runtime.operators.util.TaskConfig;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
@@ -115,6 +117,11 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 	 */
 	protected MutableReader<?>[] inputReaders;
 
+	/**
+	 * The input gates that the readers read from, one per input.
+	 */
+	protected InputGate[] inputGates;
+
 	/**
 	 * The input readers for the configured broadcast variables for this task.
 	 */
@@ -650,6 +657,7 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 	protected void initInputReaders() throws Exception {
 		final int numInputs = getNumTaskInputs();
 		final MutableReader<?>[] inputReaders = new MutableReader<?>[numInputs];
+		final InputGate[] inputGates = new InputGate[numInputs];
 
 		int currentReaderOffset = 0;
 
@@ -660,25 +668,25 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 
 			if (groupSize == 1) {
 				// non-union case
-				inputReaders[i] = new MutableRecordReader<IOReadableWritable>(
-						getEnvironment().getInputGate(currentReaderOffset),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+				inputGates[i] = getEnvironment().getInputGate(currentReaderOffset);
 			} else if (groupSize > 1){
 				// union case
 				InputGate[] readers = new InputGate[groupSize];
 				for (int j = 0; j < groupSize; ++j) {
 					readers[j] = getEnvironment().getInputGate(currentReaderOffset + j);
 				}
-				inputReaders[i] = new MutableRecordReader<IOReadableWritable>(
-						new UnionInputGate(readers),
-						getEnvironment().getTaskManagerInfo().getTmpDirectories());
+				inputGates[i] = new UnionInputGate(readers);
 			} else {
 				throw new Exception("Illegal input group size in task configuration: " + groupSize);
 			}
+			inputReaders[i] = new MutableRecordReader<IOReadableWritable>(
+					inputGates[i],
+					getEnvironment().getTaskManagerInfo().getTmpDirectories());
 
 			currentReaderOffset += groupSize;
 		}
 		this.inputReaders = inputReaders;
+		this.inputGates = inputGates;
 
 		// final sanity check
 		if (currentReaderOffset != this.config.getNumInputs()) {
@@ -1071,6 +1079,15 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 		return metrics;
 	}
 
+	@Override
+	public void sendTaskEvent(int inputNum, TaskEvent event) throws IOException, InterruptedException {
+		final InputGate gate = this.inputGates[inputNum];
+
+		// the channels can only send events to their producers once they requested their partitions
+		gate.requestPartitions();
+		gate.sendTaskEvent(event);
+	}
+
 	@Override
 	public <X> MutableObjectIterator<X> getInput(int index) {
 		if (index < 0 || index > this.driver.getNumberOfInputs()) {
@@ -1224,7 +1241,7 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 			final int indexInSubtaskGroup = task.getIndexInSubtaskGroup();
 			final TypeComparatorFactory<T> compFactory = config.getOutputComparator(i, cl);
 
-			final ChannelSelector<SerializationDelegate<T>> oe;
+			final OutputEmitter<T> oe;
 			if (compFactory == null) {
 				oe = new OutputEmitter<T>(strategy, indexInSubtaskGroup);
 			}
@@ -1236,8 +1253,14 @@ public class BatchTask<S extends Function, OT> extends AbstractInvokable impleme
 				oe = new OutputEmitter<T>(strategy, indexInSubtaskGroup, comparator, partitioner, dataDist);
 			}
 
+			final ResultPartitionWriter partitionWriter = task.getEnvironment().getWriter(outputOffset + i);
+			if (config.getOutputRuntimeFilter(i)) {
+				// the consumers ship the runtime filters of their hash joins back to the emitter
+				partitionWriter.subscribeToEvent(oe, RuntimeFilterEvent.class);
+			}
+
 			final RecordWriter<SerializationDelegate<T>> recordWriter =
-					new RecordWriter<SerializationDelegate<T>>(task.getEnvironment().getWriter(outputOffset + i), oe);
+					new RecordWriter<SerializationDelegate<T>>(partitionWriter, oe);
 
 			recordWriter.setMetricGroup(task.getEnvironment().getMetricGroup().getIOMetricGroup());
 
@@ -63,11 +63,15 @@ public enum DriverStrategy {
 
 	// hashed partial reduce is a combiner for the Reduce
 	HASHED_PARTIAL_REDUCE(ReduceCombineDriver.class, ChainedReduceCombineDriver.class, MATERIALIZING, 1),
+	// grouping the inputs in a hash table, reducing in place, and apply the Reduce Function
+	HASHED_REDUCE(HashReduceDriver.class, null, FULL_DAM, 1),
 	
 	// grouping the inputs and apply the GroupReduce function
 	SORTED_GROUP_REDUCE(GroupReduceDriver.class, null, PIPELINED, 1),
 	// partially grouping inputs (best effort resulting possibly in duplicates --> combiner)
 	SORTED_GROUP_COMBINE(GroupReduceCombineDriver.class, SynchronousChainedCombineDriver.class, MATERIALIZING, 2),
+	// partially grouping inputs in a hash table (best effort resulting possibly in duplicates --> combiner)
+	HASHED_GROUP_COMBINE(GroupReduceCombineDriver.class, SynchronousChainedCombineDriver.class, MATERIALIZING, 2),
 
 	// group combine on all inputs within a partition (without grouping)
 	ALL_GROUP_COMBINE(AllGroupCombineDriver.class, null, PIPELINED, 0),
@@ -25,10 +25,12 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.hash.GroupingHashTable;
 import org.apache.flink.runtime.operators.sort.FixedLengthRecordSorter;
 import org.apache.flink.runtime.operators.sort.InMemorySorter;
+import org.apache.flink.runtime.operators.sort.IndexedSorter;
 import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
-import org.apache.flink.runtime.operators.sort.QuickSort;
+import org.apache.flink.runtime.operators.sort.RadixSort;
 import org.apache.flink.runtime.util.NonReusingKeyGroupedIterator;
 import org.apache.flink.runtime.util.ReusingKeyGroupedIterator;
 import org.apache.flink.util.Collector;
@@ -37,6 +39,7 @@ import org.apache.flink.util.MutableObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
@@ -50,6 +53,10 @@ import java.util.List;
  * to have the same input and output type to be able to reduce the elements after the combine from 
  * {@code IN} to {@code OUT}.
  *
+ * <p>With the strategy SORTED_GROUP_COMBINE, the elements are buffered in a sorter and grouped by sorting
+ * them. With the strategy HASHED_GROUP_COMBINE, they are grouped in a {@link GroupingHashTable}, which avoids
+ * the sort but cannot provide an order within the groups.</p>
+ *
  * <p>The GroupReduceCombineDriver uses a combining iterator over its input. The output of the iterator is emitted.</p>
  * 
  * @param <IN> The data type consumed by the combiner.
@@ -66,13 +73,15 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 
 	private InMemorySorter<IN> sorter;
 
+	private GroupingHashTable<IN> table;
+
 	private GroupCombineFunction<IN, OUT> combiner;
 
 	private TypeSerializer<IN> serializer;
 	
 	private TypeComparator<IN> groupingComparator;
 
-	private QuickSort sortAlgo = new QuickSort();
+	private IndexedSorter sortAlgo = new RadixSort();
 
 	private Collector<OUT> output;
 
@@ -112,11 +121,9 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 	@Override
 	public void prepare() throws Exception {
 		final DriverStrategy driverStrategy = this.taskContext.getTaskConfig().getDriverStrategy();
-		if (driverStrategy != DriverStrategy.SORTED_GROUP_COMBINE){
+		if (driverStrategy != DriverStrategy.SORTED_GROUP_COMBINE && driverStrategy != DriverStrategy.HASHED_GROUP_COMBINE) {
 			throw new Exception("Invalid strategy " + driverStrategy + " for group reduce combiner.");
 		}
-		
-		
 
 		final TypeSerializerFactory<IN> serializerFactory = this.taskContext.getInputSerializer(0);
 		this.serializer = serializerFactory.getSerializer();
@@ -131,8 +138,11 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 		final int numMemoryPages = memManager.computeNumberOfPages(this.taskContext.getTaskConfig().getRelativeMemoryDriver());
 		this.memory = memManager.allocatePages(this.taskContext.getContainingTask(), numMemoryPages);
 
+		if (driverStrategy == DriverStrategy.HASHED_GROUP_COMBINE) {
+			this.table = new GroupingHashTable<IN>(this.serializer, this.groupingComparator.duplicate(), memory);
+		}
 		// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
-		if (sortingComparator.supportsSerializationWithKeyNormalization() &&
+		else if (sortingComparator.supportsSerializationWithKeyNormalization() &&
 				this.serializer.getLength() > 0 && this.serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
 		{
 			this.sorter = new FixedLengthRecordSorter<IN>(this.serializer, sortingComparator.duplicate(), memory);
@@ -161,34 +171,69 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 			IN value = serializer.createInstance();
 	
 			while (running && (value = in.next(value)) != null) {
-				// try writing to the sorter first
-				if (this.sorter.write(value)) {
+				// try writing to the sorter or table first
+				if (writeToBuffer(value)) {
 					continue;
 				}
 	
 				// do the actual sorting, combining, and data writing
-				sortAndCombineAndRetryWrite(value);
+				combineAndRetryWrite(value);
 			}
 		}
 		else {
 			IN value;
 			while (running && (value = in.next()) != null) {
-				// try writing to the sorter first
-				if (this.sorter.write(value)) {
+				// try writing to the sorter or table first
+				if (writeToBuffer(value)) {
 					continue;
 				}
 
 				// do the actual sorting, combining, and data writing
-				sortAndCombineAndRetryWrite(value);
+				combineAndRetryWrite(value);
 			}
 		}
 
 		// sort, combine, and send the final batch
 		if (running) {
+			combine();
+		}
+	}
+
+	private boolean writeToBuffer(IN value) throws IOException {
+		return this.table != null ? this.table.write(value) : this.sorter.write(value);
+	}
+
+	private void combine() throws Exception {
+		if (this.table != null) {
+			hashAndCombine();
+		} else {
 			sortAndCombine();
 		}
 	}
 
+	private void resetBuffer() {
+		if (this.table != null) {
+			this.table.reset();
+		} else {
+			this.sorter.reset();
+		}
+	}
+
+	private void hashAndCombine() throws Exception {
+		if (table.isEmpty()) {
+			return;
+		}
+
+		final GroupCombineFunction<IN, OUT> combiner = this.combiner;
+		final Collector<OUT> output = this.output;
+
+		// iterate over the groups in the table
+		final GroupingHashTable<IN>.KeyGroupIterator keyIter = this.table.getKeyGroupIterator(objectReuseEnabled);
+		while (this.running && keyIter.nextKey()) {
+			combiner.combine(keyIter.getValues(), output);
+		}
+	}
+
 	private void sortAndCombine() throws Exception {
 		if (sorter.isEmpty()) {
 			return;
@@ -215,12 +260,12 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 		}
 	}
 	
-	private void sortAndCombineAndRetryWrite(IN value) throws Exception {
-		sortAndCombine();
-		this.sorter.reset();
+	private void combineAndRetryWrite(IN value) throws Exception {
+		combine();
+		resetBuffer();
 
 		// write the value again
-		if (!this.sorter.write(value)) {
+		if (!writeToBuffer(value)) {
 
 			++oversizedRecordCount;
 			LOG.debug("Cannot write record to fresh sort buffer, record is too large. " +
@@ -229,7 +274,7 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 			// simply forward the record. We need to pass it through the combine function to convert it
 			Iterable<IN> input = Collections.singleton(value);
 			this.combiner.combine(input, this.output);
-			this.sorter.reset();
+			resetBuffer();
 		}
 	}
 
@@ -238,6 +283,9 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 		if (this.sorter != null) {
 			this.sorter.dispose();
 		}
+		if (this.table != null) {
+			this.table.dispose();
+		}
 
 		this.taskContext.getMemoryManager().release(this.memory);
 	}
@@ -254,6 +302,14 @@ public class GroupReduceCombineDriver<IN, OUT> implements Driver<GroupCombineFun
 				// may happen during concurrent modification
 			}
 		}
+		if (this.table != null) {
+			try {
+				this.table.dispose();
+			}
+			catch (Exception e) {
+				// may happen during concurrent modification
+			}
+		}
 
 		this.taskContext.getMemoryManager().release(this.memory);
 	}
@@ -0,0 +1,481 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.typeutils.SameTypePairComparator;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactories;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.disk.ChannelReaderInputViewIterator;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelWriterOutputView;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.hash.InPlaceMutableHashTable;
+import org.apache.flink.runtime.operators.util.TaskConfig;
+import org.apache.flink.runtime.operators.util.metrics.CountingCollector;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reduce driver that groups and reduces its input in an {@link InPlaceMutableHashTable} instead of
+ * sorting it. Every record is reduced in place with the table entry of its key.
+ *
+ * <p>When the table runs out of memory, its entries are spilled into hash partitions on disk and the
+ * table starts over empty. After the input is consumed, the spilled partitions are read back and
+ * reduced one after the other. A partition whose keys still do not fit into the table is spilled
+ * again into the partitions of the next recursion level, using a different hash function.
+ *
+ * <p>The memory of the driver is split into the read buffers for spilled partitions, one write
+ * buffer per spill partition, and the pages of the hash table.
+ *
+ * @param <T> The data type consumed and produced by the reducer.
+ */
+public class HashReduceDriver<T> implements Driver<ReduceFunction<T>, T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(HashReduceDriver.class);
+
+	/** The number of memory pages used to read back a spilled partition. */
+	private static final int NUM_READ_BUFFERS = 2;
+
+	/** The minimal number of partitions the table is spilled into. */
+	private static final int MIN_NUM_PARTITIONS = 2;
+
+	/** The maximal number of partitions the table is spilled into. */
+	private static final int MAX_NUM_PARTITIONS = 32;
+
+	/** The minimal number of memory pages for the hash table. */
+	private static final int MIN_NUM_TABLE_PAGES = 3;
+
+	/** The minimal number of memory pages the driver needs to work. */
+	private static final int MIN_NUM_MEMORY_PAGES = NUM_READ_BUFFERS + MIN_NUM_PARTITIONS + MIN_NUM_TABLE_PAGES;
+
+	/** The maximal number of times that the records of a key are spilled. */
+	private static final int MAX_RECURSION_DEPTH = 5;
+
+	/** Mixed into the key hash per recursion level, to partition independently of the shuffle and of the levels before. */
+	private static final int LEVEL_HASH_SEED = 0x9e3779b9;
+
+
+	private TaskContext<ReduceFunction<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private TypeComparator<T> comparator;
+
+	private TypeComparator<T> keyComparator;
+
+	private ReduceFunction<T> reducer;
+
+	private Collector<T> output;
+
+	private IOManager ioManager;
+
+	private BlockCompressionFactory spillCompression;
+
+	private List<MemorySegment> memory;
+
+	private List<MemorySegment> readMemory;
+
+	private List<MemorySegment> writeMemory;
+
+	private int numPartitions;
+
+	private InPlaceMutableHashTable<T> table;
+
+	private InPlaceMutableHashTable<T>.HashTableProber<T> prober;
+
+	private T reuse;
+
+	private T spillReuse;
+
+	private FileIOChannel.Enumerator channelEnumerator;
+
+	private BlockChannelWriter<MemorySegment>[] partitionWriters;
+
+	private ChannelWriterOutputView[] partitionOutputs;
+
+	private long[] partitionRecordCounts;
+
+	private final ArrayDeque<SpilledPartition> pendingPartitions = new ArrayDeque<>();
+
+	private BlockChannelReader<MemorySegment> partitionReader;
+
+	private volatile boolean running;
+
+	private boolean objectReuseEnabled = false;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(TaskContext<ReduceFunction<T>, T> context) {
+		taskContext = context;
+		running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<ReduceFunction<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<ReduceFunction<T>> clazz = (Class<ReduceFunction<T>>) (Class<?>) ReduceFunction.class;
+		return clazz;
+	}
+
+	@Override
+	public int getNumberOfDriverComparators() {
+		return 1;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.HASHED_REDUCE) {
+			throw new Exception("Unrecognized driver strategy for hash reduce driver: " + config.getDriverStrategy().name());
+		}
+
+		final Counter numRecordsOut = taskContext.getMetricGroup().getIOMetricGroup().getNumRecordsOutCounter();
+
+		serializer = taskContext.<T>getInputSerializer(0).getSerializer();
+		comparator = taskContext.getDriverComparator(0);
+		keyComparator = comparator.duplicate();
+		reducer = taskContext.getStub();
+		output = new CountingCollector<>(taskContext.getOutputCollector(), numRecordsOut);
+		ioManager = taskContext.getIOManager();
+		spillCompression = BlockCompressionFactories.forTask(taskContext.getContainingTask());
+
+		final MemoryManager memManager = taskContext.getMemoryManager();
+		final int numMemoryPages = memManager.computeNumberOfPages(config.getRelativeMemoryDriver());
+		if (numMemoryPages < MIN_NUM_MEMORY_PAGES) {
+			throw new IllegalArgumentException("Too few memory pages provided. The hash reduce driver needs at least " +
+				MIN_NUM_MEMORY_PAGES + " memory pages.");
+		}
+		memory = memManager.allocatePages(taskContext.getContainingTask(), numMemoryPages);
+
+		// a write buffer for every partition, but at most an eighth of the memory
+		numPartitions = Math.max(MIN_NUM_PARTITIONS,
+			Math.min(MAX_NUM_PARTITIONS, (numMemoryPages - NUM_READ_BUFFERS) / 8));
+
+		readMemory = new ArrayList<>(memory.subList(0, NUM_READ_BUFFERS));
+		writeMemory = new ArrayList<>(memory.subList(NUM_READ_BUFFERS, NUM_READ_BUFFERS + numPartitions));
+
+		table = new InPlaceMutableHashTable<>(serializer, comparator,
+			memory.subList(NUM_READ_BUFFERS + numPartitions, numMemoryPages));
+		prober = table.getProber(comparator, new SameTypePairComparator<>(comparator));
+		reuse = serializer.createInstance();
+		spillReuse = serializer.createInstance();
+
+		ExecutionConfig executionConfig = taskContext.getExecutionConfig();
+		objectReuseEnabled = executionConfig.isObjectReuseEnabled();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("HashReduceDriver object reuse: " + (objectReuseEnabled ? "ENABLED" : "DISABLED") + ".");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		final Counter numRecordsIn = taskContext.getMetricGroup().getIOMetricGroup().getNumRecordsInCounter();
+
+		table.open();
+
+		reduceInput(taskContext.<T>getInput(0), numRecordsIn, 0);
+
+		// reduce the spilled partitions, depth first
+		while (running && !pendingPartitions.isEmpty()) {
+			final SpilledPartition partition = pendingPartitions.pop();
+
+			partitionReader = ioManager.createBlockChannelReader(partition.channel, spillCompression);
+			final ChannelReaderInputView inView = new ChannelReaderInputView(
+				partitionReader, new ArrayList<>(readMemory), partition.blockCount, false);
+
+			reduceInput(new ChannelReaderInputViewIterator<>(inView, null, serializer), null, partition.level);
+
+			if (!inView.isClosed()) {
+				inView.close();
+			}
+			partitionReader.deleteChannel();
+			partitionReader = null;
+		}
+
+		table.close();
+	}
+
+	/**
+	 * Reduces the given input in the empty, opened table and emits the result. If the table runs out
+	 * of memory, the records are spilled into the partitions of the next level instead.
+	 */
+	private void reduceInput(MutableObjectIterator<T> input, Counter numRecordsIn, int level) throws Exception {
+		if (objectReuseEnabled) {
+			T value = serializer.createInstance();
+			while (running && (value = input.next(value)) != null) {
+				if (numRecordsIn != null) {
+					numRecordsIn.inc();
+				}
+				reduceRecord(value, level);
+			}
+		} else {
+			T value;
+			while (running && (value = input.next()) != null) {
+				if (numRecordsIn != null) {
+					numRecordsIn.inc();
+				}
+				reduceRecord(value, level);
+			}
+		}
+
+		if (partitionOutputs != null) {
+			// the table ran out of memory, so it only holds a part of the records of its keys
+			spillTable(null, level);
+			closePartitions(level);
+		} else {
+			emitTable();
+		}
+	}
+
+	private void reduceRecord(T record, int level) throws Exception {
+		final T match = prober.getMatchFor(record, reuse);
+		if (match == null) {
+			try {
+				prober.insertAfterNoMatch(record);
+			} catch (EOFException ex) {
+				// the table has run out of memory
+				spillTable(null, level);
+				table.insert(record);
+			}
+		} else {
+			final T res = reducer.reduce(match, record);
+
+			// we have given reuse to the reducer UDF, so create new one if object reuse is disabled
+			if (!objectReuseEnabled) {
+				reuse = serializer.createInstance();
+			}
+
+			try {
+				prober.updateMatch(res);
+			} catch (EOFException ex) {
+				// the table has run out of memory, and still holds the old entry of the key, which
+				// must be replaced by the reduced record, because the input record may have been modified
+				spillTable(res, level);
+			}
+		}
+	}
+
+	private void emitTable() throws Exception {
+		final InPlaceMutableHashTable<T>.EntryIterator entries = table.getEntryIterator();
+
+		if (objectReuseEnabled) {
+			T record = serializer.createInstance();
+			while (running && (record = entries.next(record)) != null) {
+				output.collect(record);
+			}
+		} else {
+			T record;
+			while (running && (record = entries.next()) != null) {
+				output.collect(record);
+			}
+		}
+
+		table.close();
+		table.open();
+	}
+
+	/**
+	 * Writes all entries of the table into the partitions of the next level and empties the table.
+	 *
+	 * @param replacement A record that replaces the table entry with the same key, or null.
+	 */
+	private void spillTable(T replacement, int level) throws Exception {
+		if (partitionOutputs == null) {
+			openPartitions(level);
+		}
+
+		if (replacement != null) {
+			keyComparator.setReference(replacement);
+		}
+
+		final InPlaceMutableHashTable<T>.EntryIterator entries = table.getEntryIterator();
+		T record = spillReuse;
+		while ((record = entries.next(record)) != null) {
+			if (replacement != null && keyComparator.equalToReference(record)) {
+				spillRecord(replacement, level);
+				replacement = null;
+			} else {
+				spillRecord(record, level);
+			}
+		}
+		if (replacement != null) {
+			spillRecord(replacement, level);
+		}
+
+		table.close();
+		table.open();
+	}
+
+	private void spillRecord(T record, int level) throws Exception {
+		final int hash = MathUtils.murmurHash(keyComparator.hash(record) ^ (LEVEL_HASH_SEED * (level + 1)));
+		final int partition = hash % numPartitions;
+
+		serializer.serialize(record, partitionOutputs[partition]);
+		partitionRecordCounts[partition]++;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void openPartitions(int level) throws Exception {
+		if (level >= MAX_RECURSION_DEPTH) {
+			throw new RuntimeException("Hash reduce exceeded maximum number of recursions, without reducing "
+				+ "partitions enough to be memory resident. Probably cause: Too many different keys with the same hash code.");
+		}
+		if (channelEnumerator == null) {
+			channelEnumerator = ioManager.createChannelEnumerator();
+		}
+
+		partitionWriters = new BlockChannelWriter[numPartitions];
+		partitionOutputs = new ChannelWriterOutputView[numPartitions];
+		partitionRecordCounts = new long[numPartitions];
+
+		final int pageSize = taskContext.getMemoryManager().getPageSize();
+		for (int i = 0; i < numPartitions; i++) {
+			partitionWriters[i] = ioManager.createBlockChannelWriter(channelEnumerator.next(), spillCompression);
+			partitionOutputs[i] = new ChannelWriterOutputView(
+				partitionWriters[i], Collections.singletonList(writeMemory.get(i)), pageSize);
+		}
+	}
+
+	private void closePartitions(int level) throws Exception {
+		for (int i = 0; i < numPartitions; i++) {
+			partitionOutputs[i].close();
+
+			if (partitionRecordCounts[i] > 0) {
+				pendingPartitions.push(new SpilledPartition(
+					partitionWriters[i].getChannelID(), partitionOutputs[i].getBlockCount(), level + 1));
+			} else {
+				partitionWriters[i].deleteChannel();
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			long numRecords = 0;
+			for (long count : partitionRecordCounts) {
+				numRecords += count;
+			}
+			LOG.debug("Hash reduce spilled " + numRecords + " records into " + numPartitions +
+				" partitions at level " + level + ".");
+		}
+
+		partitionWriters = null;
+		partitionOutputs = null;
+		partitionRecordCounts = null;
+	}
+
+	@Override
+	public void cleanup() {
+		try {
+			if (table != null) {
+				table.close();
+			}
+		} catch (Exception e) {
+			// may happen during concurrent modification
+		}
+
+		final BlockChannelWriter<MemorySegment>[] writers = partitionWriters;
+		if (writers != null) {
+			for (BlockChannelWriter<MemorySegment> writer : writers) {
+				if (writer != null) {
+					try {
+						writer.closeAndDelete();
+					} catch (Throwable t) {
+						LOG.error("Could not delete spilled hash reduce partition.", t);
+					}
+				}
+			}
+		}
+
+		final BlockChannelReader<MemorySegment> reader = partitionReader;
+		if (reader != null) {
+			try {
+				reader.closeAndDelete();
+			} catch (Throwable t) {
+				LOG.error("Could not delete spilled hash reduce partition.", t);
+			}
+		}
+
+		SpilledPartition partition;
+		while ((partition = pendingPartitions.poll()) != null) {
+			try {
+				ioManager.deleteChannel(partition.channel);
+			} catch (Throwable t) {
+				LOG.error("Could not delete spilled hash reduce partition.", t);
+			}
+		}
+
+		if (memory != null) {
+			taskContext.getMemoryManager().release(memory);
+		}
+	}
+
+	@Override
+	public void cancel() {
+		running = false;
+
+		cleanup();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * A partition of records that has been spilled to disk and is yet to be reduced.
+	 */
+	private static final class SpilledPartition {
+
+		final FileIOChannel.ID channel;
+
+		final int blockCount;
+
+		/** The recursion level at which the records of the partition are reduced. */
+		final int level;
+
+		SpilledPartition(FileIOChannel.ID channel, int blockCount, int level) {
+			this.channel = channel;
+			this.blockCount = blockCount;
+			this.level = level;
+		}
+	}
+}
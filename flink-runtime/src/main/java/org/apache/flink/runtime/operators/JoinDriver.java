@@ -24,9 +24,12 @@ import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypePairComparatorFactory;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.ConfigConstants;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.hash.HashJoinIteratorBase;
 import org.apache.flink.runtime.operators.hash.NonReusingBuildFirstHashJoinIterator;
 import org.apache.flink.runtime.operators.hash.NonReusingBuildSecondHashJoinIterator;
 import org.apache.flink.runtime.operators.hash.ReusingBuildFirstHashJoinIterator;
@@ -34,6 +37,8 @@ import org.apache.flink.runtime.operators.hash.ReusingBuildSecondHashJoinIterato
 import org.apache.flink.runtime.operators.sort.NonReusingMergeInnerJoinIterator;
 import org.apache.flink.runtime.operators.sort.ReusingMergeInnerJoinIterator;
 import org.apache.flink.runtime.operators.util.JoinTaskIterator;
+import org.apache.flink.runtime.operators.util.RuntimeFilter;
+import org.apache.flink.runtime.operators.util.RuntimeFilterEvent;
 import org.apache.flink.runtime.operators.util.TaskConfig;
 import org.apache.flink.runtime.operators.util.metrics.CountingCollector;
 import org.apache.flink.runtime.operators.util.metrics.CountingMutableObjectIterator;
@@ -43,15 +48,23 @@ import org.apache.flink.util.MutableObjectIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+
 /**
  * The join driver implements the logic of a join operator at runtime. It instantiates either
  * hash or sort-merge based strategies to find joining pairs of records.
+ *
+ * <p>Hash joins may ship a {@link RuntimeFilter} of their build side keys to the tasks that produce
+ * their probe side, if the optimizer has determined that these tasks can apply it.
  * 
  * @see org.apache.flink.api.common.functions.FlatJoinFunction
  */
 public class JoinDriver<IT1, IT2, OT> implements Driver<FlatJoinFunction<IT1, IT2, OT>, OT> {
 	
 	protected static final Logger LOG = LoggerFactory.getLogger(JoinDriver.class);
+
+	/** The highest estimated false positive probability of a runtime filter that is worth shipping. */
+	private static final double RUNTIME_FILTER_MAX_FALSE_POSITIVE_PROBABILITY = 0.1;
 	
 	protected TaskContext<FlatJoinFunction<IT1, IT2, OT>, OT> taskContext;
 	
@@ -203,6 +216,11 @@ public class JoinDriver<IT1, IT2, OT> implements Driver<FlatJoinFunction<IT1, IT
 			}
 		}
 		
+		final RuntimeFilter runtimeFilter = createRuntimeFilter(config, ls);
+		if (runtimeFilter != null) {
+			((HashJoinIteratorBase) this.joinIterator).setRuntimeFilter(runtimeFilter);
+		}
+
 		// open the iterator - this triggers the sorting or hash-table building
 		// and blocks until the iterator is ready
 		this.joinIterator.open();
@@ -210,6 +228,51 @@ public class JoinDriver<IT1, IT2, OT> implements Driver<FlatJoinFunction<IT1, IT
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(this.taskContext.formatLogString("join task iterator ready."));
 		}
+
+		if (runtimeFilter != null && this.running) {
+			sendRuntimeFilter(runtimeFilter, ls == DriverStrategy.HYBRIDHASH_BUILD_FIRST ? 1 : 0);
+		}
+	}
+
+	private RuntimeFilter createRuntimeFilter(TaskConfig config, DriverStrategy ls) {
+		if (!config.getProbeSideRuntimeFilter() ||
+				(ls != DriverStrategy.HYBRIDHASH_BUILD_FIRST && ls != DriverStrategy.HYBRIDHASH_BUILD_SECOND)) {
+			return null;
+		}
+
+		final Configuration taskManagerConfig = this.taskContext.getTaskManagerInfo().getConfiguration();
+		if (!taskManagerConfig.getBoolean(TaskManagerOptions.HASH_JOIN_RUNTIME_FILTERS)) {
+			return null;
+		}
+
+		final int maxSize = taskManagerConfig.getInteger(TaskManagerOptions.HASH_JOIN_RUNTIME_FILTER_MAX_SIZE);
+		return new RuntimeFilter(Integer.highestOneBit(Math.max(maxSize, 8)));
+	}
+
+	/**
+	 * Ships the filter of the build side keys to the producers of the probe side. The filter only
+	 * saves work, the join is correct without it, so failures to ship it are not propagated.
+	 */
+	private void sendRuntimeFilter(RuntimeFilter runtimeFilter, int probeSideInput) throws InterruptedException {
+		if (!runtimeFilter.compact(RUNTIME_FILTER_MAX_FALSE_POSITIVE_PROBABILITY)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(this.taskContext.formatLogString("Not shipping " + runtimeFilter +
+					", because the build side has too many keys for the filter to be selective."));
+			}
+			return;
+		}
+
+		final int channel = this.taskContext.getContainingTask().getIndexInSubtaskGroup();
+		try {
+			this.taskContext.sendTaskEvent(probeSideInput, new RuntimeFilterEvent(channel, runtimeFilter));
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(this.taskContext.formatLogString("Shipped " + runtimeFilter + " to the probe side."));
+			}
+		}
+		catch (IOException | IllegalStateException e) {
+			LOG.debug(this.taskContext.formatLogString("Could not ship " + runtimeFilter + " to the probe side."), e);
+		}
 	}
 
 	@Override
@@ -22,6 +22,7 @@ package org.apache.flink.runtime.operators;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryManager;
@@ -31,6 +32,8 @@ import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.MutableObjectIterator;
 
+import java.io.IOException;
+
 
 /**
  * The task context gives a driver (e.g., {@link MapDriver}, or {@link JoinDriver}) access to
@@ -70,4 +73,12 @@ public interface TaskContext<S, OT> {
 	String formatLogString(String message);
 	
 	OperatorMetricGroup getMetricGroup();
+
+	/**
+	 * Sends the given event to the tasks that produce the given input.
+	 *
+	 * @param inputNum The input whose producers receive the event.
+	 * @param event The event to send.
+	 */
+	void sendTaskEvent(int inputNum, TaskEvent event) throws IOException, InterruptedException;
 }
@@ -33,10 +33,13 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.operators.BatchTask;
+import org.apache.flink.runtime.operators.DriverStrategy;
+import org.apache.flink.runtime.operators.hash.GroupingHashTable;
 import org.apache.flink.runtime.operators.sort.FixedLengthRecordSorter;
 import org.apache.flink.runtime.operators.sort.InMemorySorter;
+import org.apache.flink.runtime.operators.sort.IndexedSorter;
 import org.apache.flink.runtime.operators.sort.NormalizedKeySorter;
-import org.apache.flink.runtime.operators.sort.QuickSort;
+import org.apache.flink.runtime.operators.sort.RadixSort;
 import org.apache.flink.runtime.util.NonReusingKeyGroupedIterator;
 import org.apache.flink.runtime.util.ReusingKeyGroupedIterator;
 import org.apache.flink.util.Collector;
@@ -46,7 +49,7 @@ import org.slf4j.LoggerFactory;
 /**
  * The chained variant of the combine driver which is also implemented in GroupReduceCombineDriver. In contrast to the
  * GroupReduceCombineDriver, this driver's purpose is only to combine the values received in the chain. It is used by
- * the GroupReduce and the CombineGroup transformation.
+ * the GroupReduce and the CombineGroup transformation, with the sort-based and the hash-based combine strategy.
  *
  * @see org.apache.flink.runtime.operators.GroupReduceCombineDriver
  * @param <IN> The data type consumed by the combiner.
@@ -65,6 +68,8 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 
 	private InMemorySorter<IN> sorter;
 
+	private GroupingHashTable<IN> table;
+
 	private GroupCombineFunction<IN, OUT> combiner;
 
 	private TypeSerializer<IN> serializer;
@@ -73,7 +78,7 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 
 	private AbstractInvokable parent;
 
-	private final QuickSort sortAlgo = new QuickSort();
+	private final IndexedSorter sortAlgo = new RadixSort();
 
 	private List<MemorySegment> memory;
 	
@@ -114,8 +119,11 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 		final int numMemoryPages = memManager.computeNumberOfPages(this.config.getRelativeMemoryDriver());
 		this.memory = memManager.allocatePages(this.parent, numMemoryPages);
 
+		if (this.config.getDriverStrategy() == DriverStrategy.HASHED_GROUP_COMBINE) {
+			this.table = new GroupingHashTable<IN>(this.serializer, this.groupingComparator.duplicate(), this.memory);
+		}
 		// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
-		if (sortingComparator.supportsSerializationWithKeyNormalization() &&
+		else if (sortingComparator.supportsSerializationWithKeyNormalization() &&
 			this.serializer.getLength() > 0 && this.serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
 		{
 			this.sorter = new FixedLengthRecordSorter<IN>(this.serializer, sortingComparator.duplicate(), this.memory);
@@ -130,7 +138,7 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 
 	@Override
 	public void closeTask() throws Exception {
-		this.sorter.dispose();
+		disposeBuffer();
 		this.parent.getEnvironment().getMemoryManager().release(this.memory);
 
 		if (this.running) {
@@ -142,7 +150,7 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 	public void cancelTask() {
 		this.running = false;
 		try {
-			this.sorter.dispose();
+			disposeBuffer();
 		}
 		catch (Exception e) {
 			// may happen during concurrent modification when canceling
@@ -164,9 +172,9 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 	@Override
 	public void collect(IN record) {
 		this.numRecordsIn.inc();
-		// try writing to the sorter first
+		// try writing to the sorter or table first
 		try {
-			if (this.sorter.write(record)) {
+			if (writeToBuffer(record)) {
 				return;
 			}
 		} catch (IOException e) {
@@ -175,14 +183,14 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 
 		// do the actual sorting
 		try {
-			sortAndCombine();
+			combine();
 		} catch (Exception e) {
 			throw new ExceptionInChainedStubException(this.taskName, e);
 		}
-		this.sorter.reset();
+		resetBuffer();
 
 		try {
-			if (!this.sorter.write(record)) {
+			if (!writeToBuffer(record)) {
 				throw new IOException("Cannot write record to fresh sort buffer. Record too large.");
 			}
 		} catch (IOException e) {
@@ -195,7 +203,7 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 	@Override
 	public void close() {
 		try {
-			sortAndCombine();
+			combine();
 		} catch (Exception e) {
 			throw new ExceptionInChainedStubException(this.taskName, e);
 		}
@@ -203,6 +211,50 @@ public class SynchronousChainedCombineDriver<IN, OUT> extends ChainedDriver<IN,
 		this.outputCollector.close();
 	}
 
+	private boolean writeToBuffer(IN record) throws IOException {
+		return this.table != null ? this.table.write(record) : this.sorter.write(record);
+	}
+
+	private void resetBuffer() {
+		if (this.table != null) {
+			this.table.reset();
+		} else {
+			this.sorter.reset();
+		}
+	}
+
+	private void disposeBuffer() {
+		if (this.table != null) {
+			this.table.dispose();
+		} else {
+			this.sorter.dispose();
+		}
+	}
+
+	private void combine() throws Exception {
+		if (this.table != null) {
+			hashAndCombine();
+		} else {
+			sortAndCombine();
+		}
+	}
+
+	private void hashAndCombine() throws Exception {
+		if (!this.table.isEmpty()) {
+			// run the combiner on the groups of the table
+			final GroupingHashTable<IN>.KeyGroupIterator keyIter = this.table.getKeyGroupIterator(this.objectReuseEnabled);
+
+			// cache references on the stack
+			final GroupCombineFunction<IN, OUT> stub = this.combiner;
+			final Collector<OUT> output = this.outputCollector;
+
+			// run stub implementation
+			while (this.running && keyIter.nextKey()) {
+				stub.combine(keyIter.getValues(), output);
+			}
+		}
+	}
+
 	private void sortAndCombine() throws Exception {
 		final InMemorySorter<IN> sorter = this.sorter;
 
@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.hash;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.disk.RandomAccessInputView;
+import org.apache.flink.runtime.io.disk.SimpleCollectingOutputView;
+import org.apache.flink.runtime.memory.ListMemorySegmentSource;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.TraversableOnceException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash table that groups records by their key in a fixed amount of memory, without sorting them.
+ * It is used by the hash-based group combine, which needs all values of a key, and not only a
+ * single aggregate per key like the {@link InPlaceMutableHashTable}.
+ *
+ * <p>The serialized records are appended to a record area and are never moved. For every record,
+ * the table keeps an entry of fixed length in an index area: the pointer to the record, its hash
+ * code, the next key in the same bucket, and the next value of the same key. The buckets hold the
+ * entry of the first value of the first key in their chain. Later values of a key are linked in
+ * after its first value, so the values of a key are not returned in the order they were written.
+ *
+ * <p>The table does not spill. If the memory is full, {@link #write(Object)} returns false, and the
+ * caller is expected to consume the groups and {@link #reset()} the table.
+ *
+ * @param <T> The type of the records in the table.
+ */
+public class GroupingHashTable<T> {
+
+	/** The minimal number of memory segments: a bucket segment, an index segment and a record segment. */
+	public static final int MIN_NUM_MEMORY_SEGMENTS = 3;
+
+	/** The share of the memory that is used for buckets is one over this value. */
+	private static final int MEMORY_SHARE_OF_BUCKETS = 16;
+
+	private static final int BUCKET_SIZE = 4;
+
+	private static final int ENTRY_SIZE = 20;
+
+	private static final int RECORD_POINTER_OFFSET = 0;
+
+	private static final int HASH_CODE_OFFSET = 8;
+
+	private static final int NEXT_KEY_OFFSET = 12;
+
+	private static final int NEXT_VALUE_OFFSET = 16;
+
+	private static final int NO_ENTRY = -1;
+
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> comparator;
+
+	private final int segmentSize;
+
+	private final ArrayList<MemorySegment> freeMemory;
+
+	private final MemorySegment[] bucketSegments;
+
+	private final int numBuckets;
+
+	private final int bucketsPerSegmentBits;
+
+	private final int bucketsPerSegmentMask;
+
+	private final int entriesPerSegment;
+
+	private final ArrayList<MemorySegment> indexSegments;
+
+	private final ArrayList<MemorySegment> recordSegments;
+
+	private final SimpleCollectingOutputView recordCollector;
+
+	private final RandomAccessInputView recordBuffer;
+
+	/** The record into which the values of a bucket are deserialized to compare their keys. */
+	private T probeRecord;
+
+	private int numEntries;
+
+	private int numKeys;
+
+	/**
+	 * Creates a new table on top of the given memory.
+	 *
+	 * @param serializer The serializer for the records.
+	 * @param comparator The comparator for the keys of the records. The table sets its references.
+	 * @param memory The memory of the table, which the table does not release.
+	 */
+	public GroupingHashTable(TypeSerializer<T> serializer, TypeComparator<T> comparator, List<MemorySegment> memory) {
+		if (memory.size() < MIN_NUM_MEMORY_SEGMENTS) {
+			throw new IllegalArgumentException("The grouping hash table requires at least " +
+				MIN_NUM_MEMORY_SEGMENTS + " memory segments.");
+		}
+
+		this.serializer = serializer;
+		this.comparator = comparator;
+		this.segmentSize = memory.get(0).size();
+		this.freeMemory = new ArrayList<>(memory);
+
+		// a power of two of buckets, so that the bucket of a hash code is found by masking
+		final int numBucketSegments = MathUtils.roundDownToPowerOf2(
+			Math.max(1, memory.size() / MEMORY_SHARE_OF_BUCKETS));
+		final int bucketsPerSegment = segmentSize / BUCKET_SIZE;
+
+		this.bucketSegments = new MemorySegment[numBucketSegments];
+		for (int i = 0; i < numBucketSegments; i++) {
+			bucketSegments[i] = freeMemory.remove(freeMemory.size() - 1);
+		}
+		this.numBuckets = numBucketSegments * bucketsPerSegment;
+		this.bucketsPerSegmentBits = MathUtils.log2strict(bucketsPerSegment);
+		this.bucketsPerSegmentMask = bucketsPerSegment - 1;
+		this.entriesPerSegment = segmentSize / ENTRY_SIZE;
+
+		this.indexSegments = new ArrayList<>(16);
+		this.recordSegments = new ArrayList<>(16);
+		this.recordCollector = new SimpleCollectingOutputView(
+			recordSegments, new ListMemorySegmentSource(freeMemory), segmentSize);
+		this.recordBuffer = new RandomAccessInputView(recordSegments, segmentSize);
+
+		this.probeRecord = serializer.createInstance();
+
+		clearBuckets();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Resets the table to the empty state. All records are discarded.
+	 */
+	public void reset() {
+		numEntries = 0;
+		numKeys = 0;
+
+		freeMemory.addAll(indexSegments);
+		freeMemory.addAll(recordSegments);
+		indexSegments.clear();
+		recordSegments.clear();
+		recordCollector.reset();
+
+		clearBuckets();
+	}
+
+	/**
+	 * Discards the references to the memory of the table. The table cannot be used afterwards.
+	 */
+	public void dispose() {
+		freeMemory.clear();
+		indexSegments.clear();
+		recordSegments.clear();
+	}
+
+	public boolean isEmpty() {
+		return numEntries == 0;
+	}
+
+	/**
+	 * Gets the number of records in the table.
+	 */
+	public int size() {
+		return numEntries;
+	}
+
+	/**
+	 * Gets the number of distinct keys in the table.
+	 */
+	public int getNumKeys() {
+		return numKeys;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds a record to the group of its key.
+	 *
+	 * @param record The record to add.
+	 * @return True, if the record was added, false if the memory of the table is full.
+	 * @throws IOException Thrown, if the record could not be serialized or a record of the table
+	 *                     could not be deserialized.
+	 */
+	public boolean write(T record) throws IOException {
+		// get the segment for the entry first, because the records take the remaining memory
+		final int entry = numEntries;
+		if (entry / entriesPerSegment == indexSegments.size()) {
+			if (freeMemory.isEmpty()) {
+				return false;
+			}
+			indexSegments.add(freeMemory.remove(freeMemory.size() - 1));
+		}
+
+		final int hashCode = MathUtils.jenkinsHash(comparator.hash(record));
+		final int bucket = hashCode & (numBuckets - 1);
+		final MemorySegment bucketSegment = bucketSegments[bucket >>> bucketsPerSegmentBits];
+		final int bucketOffset = (bucket & bucketsPerSegmentMask) * BUCKET_SIZE;
+
+		final int firstValue = findKey(record, hashCode, bucketSegment.getInt(bucketOffset));
+
+		final long recordPointer = recordCollector.getCurrentOffset();
+		try {
+			serializer.serialize(record, recordCollector);
+		} catch (EOFException e) {
+			// the partially written record is not referenced and discarded with the next reset
+			return false;
+		}
+
+		final MemorySegment segment = indexSegments.get(entry / entriesPerSegment);
+		final int offset = (entry % entriesPerSegment) * ENTRY_SIZE;
+		segment.putLong(offset + RECORD_POINTER_OFFSET, recordPointer);
+		segment.putInt(offset + HASH_CODE_OFFSET, hashCode);
+
+		if (firstValue == NO_ENTRY) {
+			// a new key, which becomes the first in the chain of its bucket
+			segment.putInt(offset + NEXT_KEY_OFFSET, bucketSegment.getInt(bucketOffset));
+			segment.putInt(offset + NEXT_VALUE_OFFSET, NO_ENTRY);
+			bucketSegment.putInt(bucketOffset, entry);
+			numKeys++;
+		} else {
+			// link the value in after the first value of its key
+			final MemorySegment firstSegment = indexSegments.get(firstValue / entriesPerSegment);
+			final int firstOffset = (firstValue % entriesPerSegment) * ENTRY_SIZE;
+			segment.putInt(offset + NEXT_KEY_OFFSET, NO_ENTRY);
+			segment.putInt(offset + NEXT_VALUE_OFFSET, firstSegment.getInt(firstOffset + NEXT_VALUE_OFFSET));
+			firstSegment.putInt(firstOffset + NEXT_VALUE_OFFSET, entry);
+		}
+
+		numEntries++;
+		return true;
+	}
+
+	/**
+	 * Gets an iterator over the groups of the table. The table must not be modified while the
+	 * iterator is used.
+	 *
+	 * @param objectReuseEnabled Whether the values are deserialized into a single reused object.
+	 */
+	public KeyGroupIterator getKeyGroupIterator(boolean objectReuseEnabled) {
+		return new KeyGroupIterator(objectReuseEnabled);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Finds the first value of the key of the given record in the chain of keys starting at the given entry.
+	 */
+	private int findKey(T record, int hashCode, int firstInBucket) throws IOException {
+		boolean referenceSet = false;
+
+		int entry = firstInBucket;
+		while (entry != NO_ENTRY) {
+			final MemorySegment segment = indexSegments.get(entry / entriesPerSegment);
+			final int offset = (entry % entriesPerSegment) * ENTRY_SIZE;
+
+			if (segment.getInt(offset + HASH_CODE_OFFSET) == hashCode) {
+				if (!referenceSet) {
+					comparator.setReference(record);
+					referenceSet = true;
+				}
+
+				recordBuffer.setReadPosition(segment.getLong(offset + RECORD_POINTER_OFFSET));
+				probeRecord = serializer.deserialize(probeRecord, recordBuffer);
+				if (comparator.equalToReference(probeRecord)) {
+					return entry;
+				}
+			}
+
+			entry = segment.getInt(offset + NEXT_KEY_OFFSET);
+		}
+		return NO_ENTRY;
+	}
+
+	private void clearBuckets() {
+		for (MemorySegment segment : bucketSegments) {
+			for (int offset = 0; offset < segmentSize; offset += 8) {
+				// sets two buckets to NO_ENTRY
+				segment.putLong(offset, -1L);
+			}
+		}
+	}
+
+	private int getInt(int entry, int fieldOffset) {
+		return indexSegments.get(entry / entriesPerSegment).getInt((entry % entriesPerSegment) * ENTRY_SIZE + fieldOffset);
+	}
+
+	private long getRecordPointer(int entry) {
+		return indexSegments.get(entry / entriesPerSegment).getLong((entry % entriesPerSegment) * ENTRY_SIZE + RECORD_POINTER_OFFSET);
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterates over the keys of the table, bucket by bucket, and gives access to the values of the
+	 * current key.
+	 */
+	public final class KeyGroupIterator {
+
+		private final boolean objectReuseEnabled;
+
+		private T reuse;
+
+		private int bucket = -1;
+
+		private int currentKey = NO_ENTRY;
+
+		private KeyGroupIterator(boolean objectReuseEnabled) {
+			this.objectReuseEnabled = objectReuseEnabled;
+			this.reuse = objectReuseEnabled ? serializer.createInstance() : null;
+		}
+
+		/**
+		 * Moves the iterator to the next key.
+		 *
+		 * @return True, if there is another key, false otherwise.
+		 */
+		public boolean nextKey() {
+			int next = currentKey == NO_ENTRY ? NO_ENTRY : getInt(currentKey, NEXT_KEY_OFFSET);
+
+			while (next == NO_ENTRY && ++bucket < numBuckets) {
+				next = bucketSegments[bucket >>> bucketsPerSegmentBits]
+					.getInt((bucket & bucketsPerSegmentMask) * BUCKET_SIZE);
+			}
+
+			currentKey = next;
+			return next != NO_ENTRY;
+		}
+
+		/**
+		 * Gets the values of the current key. The values can be traversed only once.
+		 */
+		public Iterable<T> getValues() {
+			if (currentKey == NO_ENTRY) {
+				throw new IllegalStateException("The iterator is not positioned on a key.");
+			}
+			return new ValuesIterator(currentKey);
+		}
+
+		private final class ValuesIterator implements Iterator<T>, Iterable<T> {
+
+			private int nextEntry;
+
+			private boolean iteratorAvailable = true;
+
+			private ValuesIterator(int firstEntry) {
+				this.nextEntry = firstEntry;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return nextEntry != NO_ENTRY;
+			}
+
+			@Override
+			public T next() {
+				if (nextEntry == NO_ENTRY) {
+					throw new NoSuchElementException();
+				}
+
+				try {
+					recordBuffer.setReadPosition(getRecordPointer(nextEntry));
+					final T value;
+					if (objectReuseEnabled) {
+						value = reuse = serializer.deserialize(reuse, recordBuffer);
+					} else {
+						value = serializer.deserialize(recordBuffer);
+					}
+
+					nextEntry = getInt(nextEntry, NEXT_VALUE_OFFSET);
+					return value;
+				} catch (IOException e) {
+					throw new RuntimeException("An error occurred while reading the next record: " + e.getMessage(), e);
+				}
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+
+			@Override
+			public Iterator<T> iterator() {
+				if (iteratorAvailable) {
+					iteratorAvailable = false;
+					return this;
+				} else {
+					throw new TraversableOnceException();
+				}
+			}
+		}
+	}
+}
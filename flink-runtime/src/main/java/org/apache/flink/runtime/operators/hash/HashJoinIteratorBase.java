@@ -25,13 +25,21 @@ import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryAllocationException;
 import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.util.RuntimeFilter;
 
 import java.util.List;
 
 /**
  * Common methods for all Hash Join Iterators.
  */
-public class HashJoinIteratorBase {
+public abstract class HashJoinIteratorBase {
+
+	/**
+	 * Sets a filter that collects the key hashes of the build side, while the iterator is opened.
+	 *
+	 * @param runtimeFilter The filter, or null, to collect no key hashes.
+	 */
+	public abstract void setRuntimeFilter(RuntimeFilter runtimeFilter);
 	
 	public <BT, PT> MutableHashTable<BT, PT> getHashJoin(
 			TypeSerializer<BT> buildSideSerializer,
@@ -30,6 +30,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentSource;
 import org.apache.flink.core.memory.SeekableDataInputView;
 import org.apache.flink.core.memory.SeekableDataOutputView;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.RandomAccessOutputView;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
@@ -286,11 +287,12 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 	 * @param target The list to which memory segments from overflow buckets are added.
 	 * @param ioAccess The I/O manager to be used to create a writer to disk.
 	 * @param targetChannel The id of the target channel for this partition.
+	 * @param compression The compression of the spilled partition, or null, to spill uncompressed.
 	 * @return The number of buffers that were freed by spilling this partition.
 	 * @throws IOException Thrown, if the writing failed.
 	 */
 	public int spillPartition(List<MemorySegment> target, IOManager ioAccess, FileIOChannel.ID targetChannel,
-			LinkedBlockingQueue<MemorySegment> bufferReturnQueue)
+			LinkedBlockingQueue<MemorySegment> bufferReturnQueue, BlockCompressionFactory compression)
 	throws IOException
 	{
 		// sanity checks
@@ -314,12 +316,12 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 		// create the channel block writer and spill the current buffers
 		// that keep the build side buffers current block, as it is most likely not full, yet
 		// we return the number of blocks that become available
-		this.buildSideChannel = ioAccess.createBlockChannelWriter(targetChannel, bufferReturnQueue);
+		this.buildSideChannel = ioAccess.createBlockChannelWriter(targetChannel, bufferReturnQueue, compression);
 		return this.buildSideWriteBuffer.spill(this.buildSideChannel);
 	}
 	
 	public void finalizeBuildPhase(IOManager ioAccess, FileIOChannel.Enumerator probeChannelEnumerator,
-			LinkedBlockingQueue<MemorySegment> bufferReturnQueue)
+			LinkedBlockingQueue<MemorySegment> bufferReturnQueue, BlockCompressionFactory compression)
 	throws IOException
 	{
 		this.finalBufferLimit = this.buildSideWriteBuffer.getCurrentPositionInSegment();
@@ -331,7 +333,7 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 			this.buildSideChannel.close();
 			
 			// create the channel for the probe side and claim one buffer for it
-			this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue);
+			this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue, compression);
 			// creating the ChannelWriterOutputView without memory will cause it to draw one segment from the
 			// write behind queue, which is the spare segment we had above.
 			this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize);
@@ -453,12 +455,12 @@ public class HashPartition<BT, PT> extends AbstractPagedInputView implements See
 	// --------------------------------------------------------------------------------------------------
 	
 	public void prepareProbePhase(IOManager ioAccess, FileIOChannel.Enumerator probeChannelEnumerator,
-			LinkedBlockingQueue<MemorySegment> bufferReturnQueue) throws IOException {
+			LinkedBlockingQueue<MemorySegment> bufferReturnQueue, BlockCompressionFactory compression) throws IOException {
 		if (isInMemory()) {
 			return;
 		}
 		// ATTENTION: The following lines are duplicated code from finalizeBuildPhase
-		this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue);
+		this.probeSideChannel = ioAccess.createBlockChannelWriter(probeChannelEnumerator.next(), bufferReturnQueue, compression);
 		this.probeSideBuffer = new ChannelWriterOutputView(this.probeSideChannel, this.memorySegmentSize);
 	}
 
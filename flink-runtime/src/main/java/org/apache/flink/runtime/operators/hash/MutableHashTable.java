@@ -34,6 +34,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentSource;
 import org.apache.flink.core.memory.SeekableDataOutputView;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.ChannelReaderInputViewIterator;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
 import org.apache.flink.runtime.io.disk.iomanager.BulkBlockChannelReader;
@@ -42,6 +43,7 @@ import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
 import org.apache.flink.runtime.io.disk.iomanager.HeaderlessChannelReaderInputView;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.operators.util.BloomFilter;
+import org.apache.flink.runtime.operators.util.RuntimeFilter;
 import org.apache.flink.util.MathUtils;
 import org.apache.flink.util.MutableObjectIterator;
 
@@ -266,6 +268,12 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	
 	/** Flag to enable/disable bloom filters for spilled partitions */
 	private final boolean useBloomFilters;
+
+	/** The compression of the spilled partitions, or null, if they are spilled uncompressed. */
+	protected BlockCompressionFactory spillCompression;
+
+	/** The filter that collects the key hashes of the build side, or null. */
+	private RuntimeFilter runtimeFilter;
 	
 	// ------------------------------------------------------------------------
 	
@@ -445,6 +453,26 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	//                              Life-Cycle
 	// ------------------------------------------------------------------------
 	
+	/**
+	 * Sets the compression with which the hash join spills partitions to disk. Must be called before
+	 * the hash join is opened.
+	 *
+	 * @param spillCompression The spill compression, or null, to spill uncompressed.
+	 */
+	public void setSpillCompression(BlockCompressionFactory spillCompression) {
+		this.spillCompression = spillCompression;
+	}
+
+	/**
+	 * Sets a filter to which the hash join adds the key hashes of all build side records, while it
+	 * builds the initial table. Must be called before the hash join is opened.
+	 *
+	 * @param runtimeFilter The filter, or null, to collect no key hashes.
+	 */
+	public void setRuntimeFilter(RuntimeFilter runtimeFilter) {
+		this.runtimeFilter = runtimeFilter;
+	}
+
 	/**
 	 * Opens the hash join. This method reads the build-side input and constructs the initial
 	 * hash table, gradually spilling partitions that do not fit into memory.
@@ -611,7 +639,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 				throw new IllegalStateException("Attempting to begin reading spilled partition without any memory available");
 			}
 
-			this.currentSpilledBuildSide = this.ioManager.createBlockChannelReader(p.getBuildSideChannel().getChannelID());
+			this.currentSpilledBuildSide = this.ioManager.createBlockChannelReader(p.getBuildSideChannel().getChannelID(), this.spillCompression);
 			final ChannelReaderInputView inView = new HeaderlessChannelReaderInputView(currentSpilledBuildSide, memory,
 				p.getBuildSideBlockCount(), p.getLastSegmentLimit(), false);
 			final ChannelReaderInputViewIterator<BT> inIter = new ChannelReaderInputViewIterator<BT>(inView,
@@ -632,7 +660,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 
 		// set the probe side - gather memory segments for reading
 		LinkedBlockingQueue<MemorySegment> returnQueue = new LinkedBlockingQueue<MemorySegment>();
-		this.currentSpilledProbeSide = this.ioManager.createBlockChannelReader(p.getProbeSideChannel().getChannelID(), returnQueue);
+		this.currentSpilledProbeSide = this.ioManager.createBlockChannelReader(p.getProbeSideChannel().getChannelID(), returnQueue, this.spillCompression);
 
 		List<MemorySegment> memory = new ArrayList<MemorySegment>();
 		MemorySegment seg1 = getNextBuffer();
@@ -796,12 +824,16 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		initTable(numBuckets, (byte) partitionFanOut);
 		
 		final TypeComparator<BT> buildTypeComparator = this.buildSideComparator;
+		final RuntimeFilter runtimeFilter = this.runtimeFilter;
 		BT record = this.buildSideSerializer.createInstance();
 
 		// go over the complete input and insert every element into the hash table
 		while (this.running && ((record = input.next(record)) != null)) {
-			final int hashCode = hash(buildTypeComparator.hash(record), 0);
-			insertIntoTable(record, hashCode);
+			final int keyHash = buildTypeComparator.hash(record);
+			if (runtimeFilter != null) {
+				runtimeFilter.add(keyHash);
+			}
+			insertIntoTable(record, hash(keyHash, 0));
 		}
 		
 		if (!this.running) {
@@ -811,7 +843,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		// finalize the partitions
 		for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
 			HashPartition<BT, PT> p = this.partitionsBeingBuilt.get(i);
-			p.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers);
+			p.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers, this.spillCompression);
 		}
 	}
 
@@ -869,7 +901,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			
 			// first read the partition in
 			final BulkBlockChannelReader reader = this.ioManager.createBulkBlockChannelReader(p.getBuildSideChannel().getChannelID(), 
-				this.availableMemory, p.getBuildSideBlockCount());
+				this.availableMemory, p.getBuildSideBlockCount(), this.spillCompression);
 			// call waits until all is read
 			if (keepBuildSidePartitions && p.recursionLevel == 0) {
 				reader.close(); // keep the partitions
@@ -926,7 +958,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			segments.add(getNextBuffer());
 			segments.add(getNextBuffer());
 			
-			final BlockChannelReader<MemorySegment> inReader = this.ioManager.createBlockChannelReader(p.getBuildSideChannel().getChannelID());
+			final BlockChannelReader<MemorySegment> inReader = this.ioManager.createBlockChannelReader(p.getBuildSideChannel().getChannelID(), this.spillCompression);
 			final ChannelReaderInputView inView = new HeaderlessChannelReaderInputView(inReader, segments,
 						p.getBuildSideBlockCount(), p.getLastSegmentLimit(), false);
 			final ChannelReaderInputViewIterator<BT> inIter = new ChannelReaderInputViewIterator<BT>(inView, 
@@ -947,7 +979,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 			// finalize the partitions
 			for (int i = 0; i < this.partitionsBeingBuilt.size(); i++) {
 				HashPartition<BT, PT> part = this.partitionsBeingBuilt.get(i);
-				part.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers);
+				part.finalizeBuildPhase(this.ioManager, this.currentEnumerator, this.writeBehindBuffers, this.spillCompression);
 			}
 		}
 	}
@@ -1229,7 +1261,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
-										this.currentEnumerator.next(), this.writeBehindBuffers);
+										this.currentEnumerator.next(), this.writeBehindBuffers, this.spillCompression);
 		this.writeBehindBuffersAvailable += numBuffersFreed;
 		// grab as many buffers as are available directly
 		MemorySegment currBuff;
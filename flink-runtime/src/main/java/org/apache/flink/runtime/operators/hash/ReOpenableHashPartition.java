@@ -26,6 +26,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentSource;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
 import org.apache.flink.runtime.io.disk.iomanager.BulkBlockChannelReader;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
@@ -98,11 +99,12 @@ public class ReOpenableHashPartition<BT, PT> extends HashPartition<BT, PT> {
 	 * 
 	 * @return Number of memorySegments in the writeBehindBuffers!
 	 */
-	int spillInMemoryPartition(FileIOChannel.ID targetChannel, IOManager ioManager, LinkedBlockingQueue<MemorySegment> writeBehindBuffers) throws IOException {
+	int spillInMemoryPartition(FileIOChannel.ID targetChannel, IOManager ioManager, LinkedBlockingQueue<MemorySegment> writeBehindBuffers,
+			BlockCompressionFactory compression) throws IOException {
 		this.initialPartitionBuffersCount = partitionBuffers.length; // for ReOpenableHashMap
 		this.initialBuildSideChannel = targetChannel;
 		
-		initialBuildSideWriter = ioManager.createBlockChannelWriter(targetChannel, writeBehindBuffers);
+		initialBuildSideWriter = ioManager.createBlockChannelWriter(targetChannel, writeBehindBuffers, compression);
 		
 		final int numSegments = this.partitionBuffers.length;
 		for (int i = 0; i < numSegments; i++) {
@@ -119,11 +121,13 @@ public class ReOpenableHashPartition<BT, PT> extends HashPartition<BT, PT> {
 	 * This method is called every time a multi-match hash map is opened again for a new probe input.
 	 * @param ioManager 
 	 * @param availableMemory 
+	 * @param compression The compression of the spilled partition, or null, if it is uncompressed.
 	 * @throws IOException 
 	 */
-	void restorePartitionBuffers(IOManager ioManager, List<MemorySegment> availableMemory) throws IOException {
+	void restorePartitionBuffers(IOManager ioManager, List<MemorySegment> availableMemory,
+			BlockCompressionFactory compression) throws IOException {
 		final BulkBlockChannelReader reader = ioManager.createBulkBlockChannelReader(this.initialBuildSideChannel, 
-			availableMemory, this.initialPartitionBuffersCount);
+			availableMemory, this.initialPartitionBuffersCount, compression);
 		reader.close();
 		final List<MemorySegment> partitionBuffersFromDisk = reader.getFullSegments();
 		this.partitionBuffers = (MemorySegment[]) partitionBuffersFromDisk.toArray(new MemorySegment[partitionBuffersFromDisk.size()]);
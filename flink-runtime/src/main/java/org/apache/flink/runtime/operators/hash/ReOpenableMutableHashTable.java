@@ -88,7 +88,7 @@ public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT>
 				ReOpenableHashPartition<BT, PT> part = (ReOpenableHashPartition<BT, PT>) this.partitionsBeingBuilt.get(i);
 				if (part.isInMemory()) {
 					ensureNumBuffersReturned(part.initialPartitionBuffersCount);
-					part.restorePartitionBuffers(ioManager, availableMemory);
+					part.restorePartitionBuffers(ioManager, availableMemory, spillCompression);
 					// now, index the partition through a hash table
 					final HashPartition<BT, PT>.PartitionIterator pIter = part.getPartitionIterator(this.buildSideComparator);
 					BT record = this.buildSideSerializer.createInstance();
@@ -109,7 +109,7 @@ public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT>
 						this.writeBehindBuffers.add(getNextBuffer());
 						this.writeBehindBuffersAvailable++;
 					}
-					part.prepareProbePhase(ioManager,currentEnumerator,writeBehindBuffers);
+					part.prepareProbePhase(ioManager, currentEnumerator, writeBehindBuffers, spillCompression);
 				}
 			}
 			// spilled partitions are automatically added as pending partitions after in-memory has been handled
@@ -117,7 +117,7 @@ public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT>
 			// the build input completely fits into memory, hence everything is still in memory.
 			for (int partIdx = 0; partIdx < partitionsBeingBuilt.size(); partIdx++) {
 				final HashPartition<BT, PT> p = partitionsBeingBuilt.get(partIdx);
-				p.prepareProbePhase(ioManager,currentEnumerator,writeBehindBuffers);
+				p.prepareProbePhase(ioManager, currentEnumerator, writeBehindBuffers, spillCompression);
 			}
 		}
 	}
@@ -141,7 +141,7 @@ public class ReOpenableMutableHashTable<BT, PT> extends MutableHashTable<BT, PT>
 		for (int partIdx = 0; partIdx < initialPartitions.size(); partIdx++) {
 			final ReOpenableHashPartition<BT, PT> p = (ReOpenableHashPartition<BT, PT>) initialPartitions.get(partIdx);
 			if (p.isInMemory()) { // write memory resident partitions to disk
-				this.writeBehindBuffersAvailable += p.spillInMemoryPartition(spilledInMemoryPartitions.next(), ioManager, writeBehindBuffers);
+				this.writeBehindBuffersAvailable += p.spillInMemoryPartition(spilledInMemoryPartitions.next(), ioManager, writeBehindBuffers, spillCompression);
 			}
 		}
 	}
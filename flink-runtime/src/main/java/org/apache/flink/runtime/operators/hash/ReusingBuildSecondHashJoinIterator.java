@@ -27,11 +27,13 @@ import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypePairComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactories;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryAllocationException;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.operators.util.JoinTaskIterator;
+import org.apache.flink.runtime.operators.util.RuntimeFilter;
 import org.apache.flink.util.Collector;
 import org.apache.flink.util.MutableObjectIterator;
 
@@ -96,10 +98,16 @@ public class ReusingBuildSecondHashJoinIterator<V1, V2, O> extends HashJoinItera
 
 		this.hashJoin = getHashJoin(serializer2, comparator2, serializer1, comparator1, pairComparator,
 			memManager, ioManager, ownerTask, memoryFraction, useBitmapFilters);
+		this.hashJoin.setSpillCompression(BlockCompressionFactories.forTask(ownerTask));
 	}
 	
 	// --------------------------------------------------------------------------------------------
 	
+	@Override
+	public void setRuntimeFilter(RuntimeFilter runtimeFilter) {
+		this.hashJoin.setRuntimeFilter(runtimeFilter);
+	}
+
 	@Override
 	public void open() throws IOException, MemoryAllocationException, InterruptedException {
 		this.hashJoin.open(this.secondInput, this.firstInput, buildSideOuterJoin);
@@ -21,19 +21,32 @@ package org.apache.flink.runtime.operators.shipping;
 import org.apache.flink.api.common.distributions.DataDistribution;
 import org.apache.flink.api.common.functions.Partitioner;
 import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
+import org.apache.flink.runtime.operators.util.RuntimeFilter;
+import org.apache.flink.runtime.operators.util.RuntimeFilterEvent;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
+import org.apache.flink.runtime.util.event.EventListener;
 import org.apache.flink.util.MathUtils;
 
+import java.util.Arrays;
+
 /**
  * The output emitter decides to which of the possibly multiple output channels a record is sent.
  * It implement routing based on hash-partitioning, broadcasting, round-robin, custom partition
  * functions, etc.
  *
+ * <p>When hash-partitioning, the emitter drops the records that the {@link RuntimeFilter} of their
+ * target channel rejects. The filters are sent by hash joins that consume the partitioned data as
+ * their probe side, as soon as they have built their hash tables.
+ *
  * @param <T> The type of the element handled by the emitter.
  */
 
-public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T>> {
+public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T>>, EventListener<TaskEvent> {
+
+	/** the channels for records that are not sent at all */
+	private static final int[] NO_CHANNELS = new int[0];
 	
 	/** the shipping strategy used by this output emitter */
 	private final ShipStrategyType strategy; 
@@ -59,6 +72,12 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 	
 	private Object[] extractedKeys;
 
+	/** the runtime filters per channel, replaced as a whole when a filter arrives */
+	private volatile RuntimeFilter[] runtimeFilters;
+
+	/** the number of records dropped by the runtime filters */
+	private long numFilteredRecords;
+
 	// ------------------------------------------------------------------------
 	// Constructors
 	// ------------------------------------------------------------------------
@@ -126,6 +145,39 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 		}
 	}
 
+	// ------------------------------------------------------------------------
+	// Runtime Filters
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Receives the {@link RuntimeFilterEvent}s of the consumers. The events arrive in the network
+	 * threads, concurrently to the selection of the channels.
+	 */
+	@Override
+	public void onEvent(TaskEvent event) {
+		if (event instanceof RuntimeFilterEvent && strategy == ShipStrategyType.PARTITION_HASH) {
+			final RuntimeFilterEvent filterEvent = (RuntimeFilterEvent) event;
+
+			synchronized (this) {
+				final RuntimeFilter[] filters = this.runtimeFilters;
+				final RuntimeFilter[] updated = filters == null ?
+					new RuntimeFilter[filterEvent.getChannel() + 1] :
+					Arrays.copyOf(filters, Math.max(filters.length, filterEvent.getChannel() + 1));
+
+				updated[filterEvent.getChannel()] = filterEvent.getFilter();
+				this.runtimeFilters = updated;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of records that were dropped, because the runtime filter of their target
+	 * channel rejected them.
+	 */
+	public long getNumFilteredRecords() {
+		return numFilteredRecords;
+	}
+
 	// ------------------------------------------------------------------------
 	// Channel Selection
 	// ------------------------------------------------------------------------
@@ -187,8 +239,16 @@ public class OutputEmitter<T> implements ChannelSelector<SerializationDelegate<T
 
 	private int[] hashPartitionDefault(T record, int numberOfChannels) {
 		int hash = this.comparator.hash(record);
+		int channel = MathUtils.murmurHash(hash) % numberOfChannels;
+
+		final RuntimeFilter[] filters = this.runtimeFilters;
+		if (filters != null && channel < filters.length && filters[channel] != null &&
+				!filters[channel].mightContain(hash)) {
+			this.numFilteredRecords++;
+			return NO_CHANNELS;
+		}
 
-		this.channels[0] = MathUtils.murmurHash(hash) % numberOfChannels;
+		this.channels[0] = channel;
 
 		return this.channels;
 	}
@@ -293,6 +293,10 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 				if (element == endMarker()) {
 					break;
 				}
+				// a revocation of borrowed memory may send a spilling marker after the spilling started
+				if (element == spillingMarker()) {
+					continue;
+				}
 				
 				// open next channel
 				FileIOChannel.ID channel = enumerator.next();
@@ -303,7 +307,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 				}
 
 				// create writer
-				final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(channel);
+				final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(channel, this.spillCompression);
 				registerOpenChannelToBeRemovedAtShudown(writer);
 				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, this.writeMemory,
 																			this.memManager.getPageSize());
@@ -360,8 +364,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 				channelIDs.add(new ChannelWithBlockCount(channel, output.getBlockCount()));
 
 				// pass empty sort-buffer to reading thread
-				element.buffer.reset();
-				this.queues.empty.add(element);
+				recycleSpilledBuffer(element);
 			}
 
 			// done with the spilling
@@ -459,7 +462,7 @@ public class CombiningUnilateralSortMerger<E> extends UnilateralSortMerger<E> {
 			// create a new channel writer
 			final FileIOChannel.ID mergedChannelID = this.ioManager.createChannel();
 			registerChannelToBeRemovedAtShudown(mergedChannelID);
-			final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(mergedChannelID);
+			final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(mergedChannelID, this.spillCompression);
 			registerOpenChannelToBeRemovedAtShudown(writer);
 			final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeBuffers, 
 																			this.memManager.getPageSize());
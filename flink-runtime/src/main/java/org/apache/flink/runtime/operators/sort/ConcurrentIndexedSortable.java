@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+/**
+ * An {@link IndexedSortable} that can be sorted by several threads at the same time, as long as
+ * every thread works on its own range of indexes. Each thread compares and swaps the entries through
+ * its own accessor, because {@link #compare(int, int)} and {@link #swap(int, int)} of the sortable
+ * itself may use shared temporary state.
+ */
+public interface ConcurrentIndexedSortable extends IndexedSortable {
+
+	/**
+	 * Creates an accessor to the entries of this sortable, which is to be used by a single thread.
+	 * The accessor is only valid as long as no entries are added to the sortable.
+	 *
+	 * @return An accessor to compare and swap the entries of this sortable.
+	 */
+	IndexedSortable createAccessor();
+}
@@ -35,7 +35,7 @@ import org.apache.flink.util.MutableObjectIterator;
 /**
  * 
  */
-public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
+public final class FixedLengthRecordSorter<T> implements InMemorySorter<T>, ConcurrentIndexedSortable, NormalizedKeySortable {
 	
 	private static final int MIN_REQUIRED_BUFFERS = 3;
 
@@ -269,6 +269,10 @@ public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
 
 	@Override
 	public void swap(int i, int j) {
+		swap(i, j, this.swapBuffer);
+	}
+
+	private void swap(int i, int j, byte[] swapBuffer) {
 		final int bufferNumI = i / this.recordsPerSegment;
 		final int segmentOffsetI = (i % this.recordsPerSegment) * this.recordSize;
 		
@@ -278,7 +282,65 @@ public final class FixedLengthRecordSorter<T> implements InMemorySorter<T> {
 		final MemorySegment segI = this.sortBuffer.get(bufferNumI);
 		final MemorySegment segJ = this.sortBuffer.get(bufferNumJ);
 		
-		segI.swapBytes(this.swapBuffer, segJ, segmentOffsetI, segmentOffsetJ, this.recordSize);
+		segI.swapBytes(swapBuffer, segJ, segmentOffsetI, segmentOffsetJ, this.recordSize);
+	}
+
+	@Override
+	public int getNormalizedKeyLength() {
+		return this.numKeyBytes;
+	}
+
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		// the records are compared by their normalized keys only
+		return true;
+	}
+
+	@Override
+	public int getNormalizedKeyByte(int i, int keyByte) {
+		final int bufferNum = i / this.recordsPerSegment;
+		final int segmentOffset = (i % this.recordsPerSegment) * this.recordSize;
+
+		final int b = this.sortBuffer.get(bufferNum).get(segmentOffset + keyByte) & 0xff;
+		return this.useNormKeyUninverted ? b : 255 - b;
+	}
+
+	@Override
+	public IndexedSortable createAccessor() {
+		// only the swap buffer is shared, the records are compared by their normalized keys
+		final byte[] swapBuffer = new byte[this.recordSize];
+
+		return new NormalizedKeySortable() {
+			@Override
+			public int compare(int i, int j) {
+				return FixedLengthRecordSorter.this.compare(i, j);
+			}
+
+			@Override
+			public void swap(int i, int j) {
+				FixedLengthRecordSorter.this.swap(i, j, swapBuffer);
+			}
+
+			@Override
+			public int size() {
+				return FixedLengthRecordSorter.this.size();
+			}
+
+			@Override
+			public int getNormalizedKeyLength() {
+				return FixedLengthRecordSorter.this.getNormalizedKeyLength();
+			}
+
+			@Override
+			public boolean isNormalizedKeyFullyDetermining() {
+				return true;
+			}
+
+			@Override
+			public int getNormalizedKeyByte(int i, int keyByte) {
+				return FixedLengthRecordSorter.this.getNormalizedKeyByte(i, keyByte);
+			}
+		};
 	}
 
 	@Override
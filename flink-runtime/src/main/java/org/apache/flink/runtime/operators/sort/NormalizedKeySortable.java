@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+/**
+ * An {@link IndexedSortable} whose entries carry normalized keys, which can be sorted byte by byte
+ * by the {@link RadixSort}.
+ */
+public interface NormalizedKeySortable extends IndexedSortable {
+
+	/**
+	 * Gets the number of bytes of the normalized key of every entry.
+	 *
+	 * @return The length of the normalized keys, or 0, if the entries have no normalized keys.
+	 */
+	int getNormalizedKeyLength();
+
+	/**
+	 * Checks whether the normalized keys fully determine the order of the entries. If not, entries
+	 * with equal normalized keys must be ordered via {@link #compare(int, int)}.
+	 *
+	 * @return True, if the normalized keys fully determine the order, false otherwise.
+	 */
+	boolean isNormalizedKeyFullyDetermining();
+
+	/**
+	 * Gets a byte of the normalized key of an entry, as an unsigned value in the sort order of the
+	 * entries. That means, for a descending order, the inverted byte of the normalized key.
+	 *
+	 * @param i The index of the entry.
+	 * @param keyByte The position of the byte in the normalized key.
+	 * @return The byte, between 0 and 255.
+	 */
+	int getNormalizedKeyByte(int i, int keyByte);
+}
@@ -37,7 +37,7 @@ import org.slf4j.LoggerFactory;
 /**
  * 
  */
-public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
+public final class NormalizedKeySorter<T> implements InMemorySorter<T>, ConcurrentIndexedSortable, NormalizedKeySortable {
 	
 	private static final Logger LOG = LoggerFactory.getLogger(NormalizedKeySorter.class);
 	
@@ -320,17 +320,6 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 		return this.serializer.deserialize(this.recordBuffer);
 	}
 	
-	private int compareRecords(long pointer1, long pointer2) {
-		this.recordBuffer.setReadPosition(pointer1);
-		this.recordBufferForComparison.setReadPosition(pointer2);
-		
-		try {
-			return this.comparator.compareSerialized(this.recordBuffer, this.recordBufferForComparison);
-		} catch (IOException ioex) {
-			throw new RuntimeException("Error comparing two records.", ioex);
-		}
-	}
-	
 	private boolean memoryAvailable() {
 		return !this.freeMemory.isEmpty();
 	}
@@ -345,6 +334,11 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 
 	@Override
 	public int compare(int i, int j) {
+		return compare(i, j, this.comparator, this.recordBuffer, this.recordBufferForComparison);
+	}
+
+	private int compare(int i, int j, TypeComparator<T> comparator,
+			RandomAccessInputView recordBuffer, RandomAccessInputView recordBufferForComparison) {
 		final int bufferNumI = i / this.indexEntriesPerSegment;
 		final int segmentOffsetI = (i % this.indexEntriesPerSegment) * this.indexEntrySize;
 		
@@ -363,11 +357,22 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 		final long pointerI = segI.getLong(segmentOffsetI) & POINTER_MASK;
 		final long pointerJ = segJ.getLong(segmentOffsetJ) & POINTER_MASK;
 		
-		return compareRecords(pointerI, pointerJ);
+		recordBuffer.setReadPosition(pointerI);
+		recordBufferForComparison.setReadPosition(pointerJ);
+		
+		try {
+			return comparator.compareSerialized(recordBuffer, recordBufferForComparison);
+		} catch (IOException ioex) {
+			throw new RuntimeException("Error comparing two records.", ioex);
+		}
 	}
 
 	@Override
 	public void swap(int i, int j) {
+		swap(i, j, this.swapBuffer);
+	}
+
+	private void swap(int i, int j, byte[] swapBuffer) {
 		final int bufferNumI = i / this.indexEntriesPerSegment;
 		final int segmentOffsetI = (i % this.indexEntriesPerSegment) * this.indexEntrySize;
 		
@@ -377,7 +382,31 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 		final MemorySegment segI = this.sortIndex.get(bufferNumI);
 		final MemorySegment segJ = this.sortIndex.get(bufferNumJ);
 		
-		segI.swapBytes(this.swapBuffer, segJ, segmentOffsetI, segmentOffsetJ, this.indexEntrySize);
+		segI.swapBytes(swapBuffer, segJ, segmentOffsetI, segmentOffsetJ, this.indexEntrySize);
+	}
+
+	@Override
+	public int getNormalizedKeyLength() {
+		return this.numKeyBytes;
+	}
+
+	@Override
+	public boolean isNormalizedKeyFullyDetermining() {
+		return this.normalizedKeyFullyDetermines;
+	}
+
+	@Override
+	public int getNormalizedKeyByte(int i, int keyByte) {
+		final int bufferNum = i / this.indexEntriesPerSegment;
+		final int segmentOffset = (i % this.indexEntriesPerSegment) * this.indexEntrySize;
+		
+		final int b = this.sortIndex.get(bufferNum).get(segmentOffset + OFFSET_LEN + keyByte) & 0xff;
+		return this.useNormKeyUninverted ? b : 255 - b;
+	}
+
+	@Override
+	public IndexedSortable createAccessor() {
+		return new SortAccessor();
 	}
 
 	@Override
@@ -549,4 +578,53 @@ public final class NormalizedKeySorter<T> implements InMemorySorter<T> {
 			offset = 0;
 		}
 	}
+
+	// -------------------------------------------------------------------------
+
+	/**
+	 * Compares and swaps the index entries of the sorter with its own temporary buffers and its own
+	 * comparator, so that several threads can sort disjoint ranges of the sort index concurrently.
+	 */
+	private final class SortAccessor implements NormalizedKeySortable {
+
+		private final byte[] swapBuffer = new byte[indexEntrySize];
+
+		private final TypeComparator<T> comparator = NormalizedKeySorter.this.comparator.duplicate();
+
+		private final RandomAccessInputView recordBuffer =
+			new RandomAccessInputView(recordBufferSegments, segmentSize);
+
+		private final RandomAccessInputView recordBufferForComparison =
+			new RandomAccessInputView(recordBufferSegments, segmentSize);
+
+		@Override
+		public int compare(int i, int j) {
+			return NormalizedKeySorter.this.compare(i, j, this.comparator, this.recordBuffer, this.recordBufferForComparison);
+		}
+
+		@Override
+		public void swap(int i, int j) {
+			NormalizedKeySorter.this.swap(i, j, this.swapBuffer);
+		}
+
+		@Override
+		public int size() {
+			return numRecords;
+		}
+
+		@Override
+		public int getNormalizedKeyLength() {
+			return numKeyBytes;
+		}
+
+		@Override
+		public boolean isNormalizedKeyFullyDetermining() {
+			return normalizedKeyFullyDetermines;
+		}
+
+		@Override
+		public int getNormalizedKeyByte(int i, int keyByte) {
+			return NormalizedKeySorter.this.getNormalizedKeyByte(i, keyByte);
+		}
+	}
 }
@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A quick sort that sorts large ranges of a {@link ConcurrentIndexedSortable} with several threads.
+ *
+ * <p>A range is split by partitioning it around a pivot, the same way as in {@link QuickSort}. The
+ * smaller of the two parts is handed to the threads of a fork-join pool, and the larger part is split
+ * further, until the parts are small enough to be sorted sequentially, by default with the {@link QuickSort}.
+ * Because the partitions are disjoint and in order, the sorted parts form the sorted range without a merge.
+ *
+ * <p>Sortables that are not {@link ConcurrentIndexedSortable}, and ranges that are too small to be
+ * worth splitting, are sorted by the calling thread alone.
+ */
+public final class ParallelQuickSort implements IndexedSorter {
+
+	/** The default minimal number of entries in a range that is sorted by another thread. */
+	public static final int DEFAULT_MIN_PARALLEL_RANGE = 1 << 16;
+
+	private final IndexedSorter sequentialSorter;
+
+	private final ForkJoinPool pool;
+
+	private final int minParallelRange;
+
+	/**
+	 * Creates a new sorter that sorts with the threads of the given pool.
+	 *
+	 * @param pool The pool to sort with. The pool is not shut down by the sorter.
+	 */
+	public ParallelQuickSort(ForkJoinPool pool) {
+		this(pool, DEFAULT_MIN_PARALLEL_RANGE);
+	}
+
+	/**
+	 * Creates a new sorter that sorts with the threads of the given pool.
+	 *
+	 * @param pool The pool to sort with. The pool is not shut down by the sorter.
+	 * @param minParallelRange The minimal number of entries in a range that is sorted by another thread,
+	 *                         at least 16.
+	 */
+	public ParallelQuickSort(ForkJoinPool pool, int minParallelRange) {
+		this(pool, minParallelRange, new QuickSort());
+	}
+
+	/**
+	 * Creates a new sorter that sorts with the threads of the given pool.
+	 *
+	 * @param pool The pool to sort with. The pool is not shut down by the sorter.
+	 * @param minParallelRange The minimal number of entries in a range that is sorted by another thread,
+	 *                         at least 16.
+	 * @param sequentialSorter The sorter for the parts that are not split any further. It is called by
+	 *                         several threads at the same time.
+	 */
+	public ParallelQuickSort(ForkJoinPool pool, int minParallelRange, IndexedSorter sequentialSorter) {
+		Preconditions.checkArgument(minParallelRange >= 16, "The minimal parallel range must be at least 16.");
+		this.pool = Preconditions.checkNotNull(pool);
+		this.minParallelRange = minParallelRange;
+		this.sequentialSorter = Preconditions.checkNotNull(sequentialSorter);
+	}
+
+	@Override
+	public void sort(IndexedSortable s, int p, int r) {
+		if (r - p < 2 * minParallelRange || !(s instanceof ConcurrentIndexedSortable)) {
+			sequentialSorter.sort(s, p, r);
+		} else {
+			pool.invoke(new SortTask((ConcurrentIndexedSortable) s, p, r, QuickSort.getMaxDepth(r - p)));
+		}
+	}
+
+	@Override
+	public void sort(IndexedSortable s) {
+		sort(s, 0, s.size());
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Sorts a range of the sortable, forking tasks for the parts of the range that are large enough.
+	 */
+	private final class SortTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ConcurrentIndexedSortable sortable;
+
+		private final int from;
+
+		private final int to;
+
+		private final int depth;
+
+		SortTask(ConcurrentIndexedSortable sortable, int from, int to, int depth) {
+			this.sortable = sortable;
+			this.from = from;
+			this.to = to;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			final IndexedSortable s = sortable.createAccessor();
+			final List<ForkJoinTask<Void>> forked = new ArrayList<>();
+
+			int p = from;
+			int r = to;
+			int d = depth;
+
+			// the sequential sort falls back to a heap sort for degenerated ranges
+			while (r - p >= minParallelRange && --d >= 0) {
+				final long bounds = partition(s, p, r);
+				final int i = (int) (bounds >>> 32);
+				final int j = (int) bounds;
+
+				// hand the smaller part to another thread, continue splitting the larger one
+				if (i - p < r - j) {
+					if (i - p > 1) {
+						forked.add(new SortTask(sortable, p, i, d).fork());
+					}
+					p = j;
+				} else {
+					if (r - j > 1) {
+						forked.add(new SortTask(sortable, j, r, d).fork());
+					}
+					r = i;
+				}
+			}
+
+			if (r - p > 1) {
+				sequentialSorter.sort(s, p, r);
+			}
+
+			for (ForkJoinTask<Void> task : forked) {
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Partitions the range around a pivot, with the same three-way partitioning as {@link QuickSort}.
+	 * Afterwards, the entries in {@code [p, i)} are smaller than the pivot, the entries in {@code [i, j)}
+	 * are equal to the pivot, and the entries in {@code [j, r)} are larger than the pivot.
+	 *
+	 * @return The bounds {@code i} and {@code j}, in the upper and lower half of a long.
+	 */
+	private static long partition(IndexedSortable s, int p, int r) {
+		// select, move pivot into first position
+		fix(s, (p + r) >>> 1, p);
+		fix(s, (p + r) >>> 1, r - 1);
+		fix(s, p, r - 1);
+
+		int i = p;
+		int j = r;
+		int ll = p;
+		int rr = r;
+		int cr;
+		while (true) {
+			while (++i < j) {
+				if ((cr = s.compare(i, p)) > 0) {
+					break;
+				}
+				if (0 == cr && ++ll != i) {
+					s.swap(ll, i);
+				}
+			}
+			while (--j > i) {
+				if ((cr = s.compare(p, j)) > 0) {
+					break;
+				}
+				if (0 == cr && --rr != j) {
+					s.swap(rr, j);
+				}
+			}
+			if (i < j) {
+				s.swap(i, j);
+			} else {
+				break;
+			}
+		}
+		j = i;
+		// swap pivot- and all eq values- into position
+		while (ll >= p) {
+			s.swap(ll--, --i);
+		}
+		while (rr < r) {
+			s.swap(rr++, j++);
+		}
+
+		return ((long) i << 32) | (j & 0xffffffffL);
+	}
+
+	private static void fix(IndexedSortable s, int p, int r) {
+		if (s.compare(p, r) > 0) {
+			s.swap(p, r);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import java.util.Arrays;
+
+/**
+ * A most-significant-digit radix sort over the normalized keys of a {@link NormalizedKeySortable}.
+ *
+ * <p>For every byte of the normalized key, a range is distributed in place into 256 buckets by the
+ * value of the byte (an American flag sort), moving the entries with {@link IndexedSortable#swap(int, int)}.
+ * Each bucket is then sorted by the next byte. Buckets that are small are sorted with the
+ * {@link QuickSort} instead, since the counting does not pay off for them.
+ *
+ * <p>The radix sort is only applicable if the normalized keys fully determine the order of the entries.
+ * All other sortables are sorted with the {@link QuickSort}.
+ *
+ * <p>The sort keeps no state between calls, so one instance may be used by several threads at the same time.
+ */
+public final class RadixSort implements IndexedSorter {
+
+	/** The number of values of a key byte. */
+	private static final int NUM_BUCKETS = 256;
+
+	/** Ranges with fewer entries are sorted with the quick sort. */
+	private static final int MIN_RADIX_SORT_RANGE = 64;
+
+	private final QuickSort fallbackSorter = new QuickSort();
+
+	/**
+	 * Checks whether the given sortable is sorted by the radix sort, or by the quick sort.
+	 *
+	 * @param s The sortable to check.
+	 * @return True, if the entries have normalized keys that fully determine their order.
+	 */
+	public static boolean isRadixSortable(IndexedSortable s) {
+		if (s instanceof NormalizedKeySortable) {
+			final NormalizedKeySortable ns = (NormalizedKeySortable) s;
+			return ns.getNormalizedKeyLength() > 0 && ns.isNormalizedKeyFullyDetermining();
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public void sort(IndexedSortable s, int p, int r) {
+		if (r - p >= MIN_RADIX_SORT_RANGE && isRadixSortable(s)) {
+			final NormalizedKeySortable ns = (NormalizedKeySortable) s;
+			final int keyLength = ns.getNormalizedKeyLength();
+
+			// the bucket bounds of every key byte, kept while the buckets are sorted by the next bytes
+			sortInternal(ns, p, r, 0, keyLength, new int[keyLength][NUM_BUCKETS + 1], new int[NUM_BUCKETS]);
+		} else {
+			fallbackSorter.sort(s, p, r);
+		}
+	}
+
+	@Override
+	public void sort(IndexedSortable s) {
+		sort(s, 0, s.size());
+	}
+
+	private void sortInternal(NormalizedKeySortable s, int p, int r, int keyByte, int keyLength,
+			int[][] bucketBounds, int[] next) {
+
+		// skip the key bytes that are equal for all entries of the range
+		int[] bounds;
+		while (true) {
+			if (keyByte == keyLength) {
+				// all entries have the same key
+				return;
+			}
+
+			bounds = bucketBounds[keyByte];
+			if (countBuckets(s, p, r, keyByte, bounds, next)) {
+				break;
+			}
+			keyByte++;
+		}
+
+		// move the entries into their buckets
+		System.arraycopy(bounds, 0, next, 0, NUM_BUCKETS);
+		for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+			final int end = bounds[bucket + 1];
+			int i = next[bucket];
+			while (i < end) {
+				final int target = s.getNormalizedKeyByte(i, keyByte);
+				if (target == bucket) {
+					i++;
+				} else {
+					s.swap(i, next[target]++);
+				}
+			}
+		}
+
+		// sort the buckets by the remaining key bytes
+		for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+			final int from = bounds[bucket];
+			final int to = bounds[bucket + 1];
+
+			if (to - from >= MIN_RADIX_SORT_RANGE) {
+				sortInternal(s, from, to, keyByte + 1, keyLength, bucketBounds, next);
+			} else if (to - from > 1) {
+				fallbackSorter.sort(s, from, to);
+			}
+		}
+	}
+
+	/**
+	 * Computes the start index of every bucket of the given key byte, and the end of the range at
+	 * index {@code NUM_BUCKETS}.
+	 *
+	 * @return True, if the entries fall into more than one bucket, false otherwise.
+	 */
+	private static boolean countBuckets(NormalizedKeySortable s, int p, int r, int keyByte, int[] bounds, int[] counts) {
+		Arrays.fill(counts, 0);
+		for (int i = p; i < r; i++) {
+			counts[s.getNormalizedKeyByte(i, keyByte)]++;
+		}
+
+		int start = p;
+		for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+			if (counts[bucket] == r - p) {
+				return false;
+			}
+			bounds[bucket] = start;
+			start += counts[bucket];
+		}
+		bounds[NUM_BUCKETS] = r;
+		return true;
+	}
+}
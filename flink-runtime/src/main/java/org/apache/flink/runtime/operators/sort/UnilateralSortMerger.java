@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import org.slf4j.Logger;
@@ -36,16 +37,25 @@ import org.slf4j.LoggerFactory;
 import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.execution.Environment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactories;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.ChannelReaderInputViewIterator;
+import org.apache.flink.runtime.io.disk.InputViewIterator;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
 import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
 import org.apache.flink.runtime.io.disk.iomanager.ChannelWriterOutputView;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.MappedChannelReaderInputView;
+import org.apache.flink.runtime.io.disk.iomanager.MemoryMappedFile;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel.ID;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.memory.ElasticMemoryConsumer;
 import org.apache.flink.runtime.memory.MemoryAllocationException;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.util.EmptyMutableObjectIterator;
@@ -56,6 +66,12 @@ import org.apache.flink.util.MutableObjectIterator;
  * the logic is factored into three threads (read, sort, spill) which communicate through a set of blocking queues,
  * forming a closed loop.  Memory is allocated using the {@link MemoryManager} interface. Thus the component will
  * not exceed the provided memory limits.
+ * <p>
+ * If configured, the sorter borrows free pages from the memory manager when its sort buffers fill up to the
+ * spilling threshold, and only starts spilling when no more pages can be borrowed. When the memory manager
+ * revokes the borrowed pages, the sorter gives the empty borrowed buffers back right away, starts spilling,
+ * and gives the other borrowed buffers back as soon as they are spilled. Borrowed pages that hold the data
+ * of an in-memory merge are only given back when the sorter is closed.
  */
 public class UnilateralSortMerger<E> implements Sorter<E> {
 	
@@ -104,6 +120,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	
 	/** The memory manager through which memory is allocated and released. */
 	protected final MemoryManager memoryManager;
+
+	/** The sort buffers borrowed beyond the memory quota of the sorter, null if the sorter borrows no memory. */
+	protected final BorrowedSortBuffers<E> borrowedSortBuffers;
 	
 	// ------------------------------------------------------------------------
 	//                            Miscellaneous Fields
@@ -341,23 +360,22 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				sortSegments.add(segments.next());
 			}
 			
-			final TypeComparator<E> comp = comparator.duplicate();
-			final InMemorySorter<E> buffer;
-			
-			// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
-			if (comp.supportsSerializationWithKeyNormalization() &&
-					serializer.getLength() > 0 && serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
-			{
-				buffer = new FixedLengthRecordSorter<E>(serializerFactory.getSerializer(), comp, sortSegments);
-			} else {
-				buffer = new NormalizedKeySorter<E>(serializerFactory.getSerializer(), comp, sortSegments);
-			}
+			final InMemorySorter<E> buffer = createSortBuffer(serializerFactory, comparator, sortSegments);
 
 			// add to empty queue
 			CircularElement<E> element = new CircularElement<E>(i, buffer, sortSegments);
 			circularQueues.empty.add(element);
 		}
 
+		// the sorter can only give borrowed memory back if it can spill
+		if (!noSpillingMemory && isMemoryBorrowingEnabled(parentTask)) {
+			this.borrowedSortBuffers = new BorrowedSortBuffers<E>(memoryManager, parentTask, circularQueues,
+					serializerFactory, comparator, numSegmentsPerSortBuffer, sortMemPages, numSortBuffers);
+		}
+		else {
+			this.borrowedSortBuffers = null;
+		}
+
 		// exception handling
 		ExceptionHandler<IOException> exceptionHandler = new ExceptionHandler<IOException>() {
 			public void handleException(IOException exception) {
@@ -376,6 +394,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		// start the thread that reads the input channels
 		this.readThread = getReadingThread(exceptionHandler, input, circularQueues, largeRecordHandler,
 				parentTask, serializer, ((long) (startSpillingFraction * sortMemory)));
+		if (this.borrowedSortBuffers != null && this.readThread instanceof ReadingThread) {
+			((ReadingThread<E>) this.readThread).setBorrowedSortBuffers(this.borrowedSortBuffers);
+		}
 
 		// start the thread that sorts the buffers
 		this.sortThread = getSortingThread(exceptionHandler, circularQueues, parentTask);
@@ -512,6 +533,13 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				this.sortReadMemory.clear();
 			}
 			catch (Throwable t) {}
+
+			try {
+				if (this.borrowedSortBuffers != null) {
+					this.borrowedSortBuffers.releaseAll();
+				}
+			}
+			catch (Throwable t) {}
 			
 			// we have to loop this, because it may fail with a concurrent modification exception
 			while (!this.openChannels.isEmpty()) {
@@ -586,12 +614,65 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				serializer.createInstance(),parentTask, startSpillingBytes);
 	}
 
+	/**
+	 * Creates a sort buffer on the given memory. Records of a small fixed length are sorted in place,
+	 * all others out of place.
+	 */
+	protected static <E> InMemorySorter<E> createSortBuffer(TypeSerializerFactory<E> serializerFactory,
+			TypeComparator<E> comparator, List<MemorySegment> memory)
+	{
+		final TypeSerializer<E> serializer = serializerFactory.getSerializer();
+		final TypeComparator<E> comp = comparator.duplicate();
+
+		// instantiate a fix-length in-place sorter, if possible, otherwise the out-of-place sorter
+		if (comp.supportsSerializationWithKeyNormalization() &&
+				serializer.getLength() > 0 && serializer.getLength() <= THRESHOLD_FOR_IN_PLACE_SORTING)
+		{
+			return new FixedLengthRecordSorter<E>(serializer, comp, memory);
+		} else {
+			return new NormalizedKeySorter<E>(serializer, comp, memory);
+		}
+	}
+
 	protected ThreadBase<E> getSortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 			AbstractInvokable parentTask)
 	{
 		return new SortingThread<E>(exceptionHandler, queues, parentTask);
 	}
 
+	/**
+	 * Gets the number of threads with which each sort buffer is sorted, as configured for the
+	 * TaskManager of the given task.
+	 * 
+	 * @param parentTask The task that uses the sorter, may be null.
+	 * @return The sort parallelism, or 1 if the task has no TaskManager configuration.
+	 */
+	protected static int getSortParallelism(AbstractInvokable parentTask) {
+		final Environment env = parentTask == null ? null : parentTask.getEnvironment();
+		if (env == null || env.getTaskManagerInfo() == null) {
+			return 1;
+		}
+
+		final Configuration config = env.getTaskManagerInfo().getConfiguration();
+		return Math.max(1, config.getInteger(TaskManagerOptions.SORT_PARALLELISM));
+	}
+
+	/**
+	 * Checks whether sorters borrow memory beyond their quota, as configured for the TaskManager of the
+	 * given task.
+	 *
+	 * @param parentTask The task that uses the sorter, may be null.
+	 * @return True, if the sorter borrows memory, false if it only uses its quota.
+	 */
+	protected static boolean isMemoryBorrowingEnabled(AbstractInvokable parentTask) {
+		final Environment env = parentTask == null ? null : parentTask.getEnvironment();
+		if (env == null || env.getTaskManagerInfo() == null) {
+			return false;
+		}
+
+		return env.getTaskManagerInfo().getConfiguration().getBoolean(TaskManagerOptions.SORT_BORROW_MEMORY);
+	}
+
 
 	protected ThreadBase<E> getSpillingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 			AbstractInvokable parentTask, MemoryManager memoryManager, IOManager ioManager, 
@@ -699,17 +780,153 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		final int id;
 		final InMemorySorter<E> buffer;
 		final List<MemorySegment> memory;
+		final boolean borrowed;
 
 		public CircularElement() {
 			this.id = -1;
 			this.buffer = null;
 			this.memory = null;
+			this.borrowed = false;
 		}
 
 		public CircularElement(int id, InMemorySorter<E> buffer, List<MemorySegment> memory) {
+			this(id, buffer, memory, false);
+		}
+
+		public CircularElement(int id, InMemorySorter<E> buffer, List<MemorySegment> memory, boolean borrowed) {
 			this.id = id;
 			this.buffer = buffer;
 			this.memory = memory;
+			this.borrowed = borrowed;
+		}
+	}
+
+	/**
+	 * The sort buffers that a sorter builds from memory pages borrowed beyond its quota, at most as many
+	 * pages as its own sort memory. Once the memory manager revokes the pages, the sorter borrows no more
+	 * buffers, releases the empty borrowed ones, and starts spilling to empty the others.
+	 */
+	protected static final class BorrowedSortBuffers<E> implements ElasticMemoryConsumer {
+
+		private final MemoryManager memoryManager;
+
+		private final AbstractInvokable owner;
+
+		private final CircularQueues<E> queues;
+
+		private final TypeSerializerFactory<E> serializerFactory;
+
+		private final TypeComparator<E> comparator;
+
+		private final int numSegmentsPerBuffer;
+
+		private final int maxNumBorrowedSegments;
+
+		/** All borrowed pages that have not been released yet, guarded by the list itself. */
+		private final List<MemorySegment> borrowedMemory;
+
+		private int nextId;
+
+		private volatile boolean revoked;
+
+		public BorrowedSortBuffers(MemoryManager memoryManager, AbstractInvokable owner, CircularQueues<E> queues,
+				TypeSerializerFactory<E> serializerFactory, TypeComparator<E> comparator,
+				int numSegmentsPerBuffer, int maxNumBorrowedSegments, int firstId)
+		{
+			this.memoryManager = memoryManager;
+			this.owner = owner;
+			this.queues = queues;
+			this.serializerFactory = serializerFactory;
+			this.comparator = comparator;
+			this.numSegmentsPerBuffer = numSegmentsPerBuffer;
+			this.maxNumBorrowedSegments = maxNumBorrowedSegments;
+			this.borrowedMemory = new ArrayList<MemorySegment>();
+			this.nextId = firstId;
+		}
+
+		/**
+		 * Borrows the memory for another sort buffer.
+		 *
+		 * @return The borrowed sort buffer, or null, if too few pages could be borrowed.
+		 */
+		public CircularElement<E> borrowBuffer() {
+			final int numSegments = Math.min(this.numSegmentsPerBuffer, this.maxNumBorrowedSegments - getNumBorrowedSegments());
+			if (this.revoked || numSegments < MIN_NUM_SORT_MEM_SEGMENTS) {
+				return null;
+			}
+
+			final List<MemorySegment> memory = this.memoryManager.borrowPages(this.owner, numSegments, this);
+			if (memory.size() < MIN_NUM_SORT_MEM_SEGMENTS) {
+				this.memoryManager.release(memory);
+				return null;
+			}
+
+			synchronized (this.borrowedMemory) {
+				this.borrowedMemory.addAll(memory);
+			}
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Borrowed " + memory.size() + " pages for sort buffer " + this.nextId + ".");
+			}
+			return new CircularElement<E>(this.nextId++, createSortBuffer(this.serializerFactory, this.comparator, memory),
+					memory, true);
+		}
+
+		/**
+		 * Disposes an empty borrowed sort buffer and gives its memory back.
+		 */
+		public void release(CircularElement<E> element) {
+			element.buffer.dispose();
+			synchronized (this.borrowedMemory) {
+				this.borrowedMemory.removeAll(element.memory);
+			}
+			this.memoryManager.release(element.memory);
+		}
+
+		/**
+		 * Gives all borrowed memory back, regardless of whether it still holds data.
+		 */
+		public void releaseAll() {
+			final List<MemorySegment> memory;
+			synchronized (this.borrowedMemory) {
+				memory = new ArrayList<MemorySegment>(this.borrowedMemory);
+				this.borrowedMemory.clear();
+			}
+			this.memoryManager.release(memory);
+		}
+
+		public int getNumBorrowedSegments() {
+			synchronized (this.borrowedMemory) {
+				return this.borrowedMemory.size();
+			}
+		}
+
+		public boolean isRevoked() {
+			return this.revoked;
+		}
+
+		@Override
+		public void revokeBorrowedPages(int numPages) {
+			if (this.revoked) {
+				return;
+			}
+			this.revoked = true;
+
+			// the empty buffers go back right away, unless the reading thread took them already
+			for (CircularElement<E> element : new ArrayList<CircularElement<E>>(this.queues.empty)) {
+				if (element.borrowed && this.queues.empty.remove(element)) {
+					release(element);
+				}
+			}
+
+			// the buffers that hold data are released by the spilling thread once they are spilled, so
+			// the spilling starts now, rather than when the reading thread fills the next buffer. If the
+			// spilling started before, the spilling thread ignores the marker.
+			if (getNumBorrowedSegments() > 0) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Borrowed sort buffers revoked, spilling to give back " + getNumBorrowedSegments() + " pages.");
+				}
+				this.queues.sort.add(UnilateralSortMerger.<E>spillingMarker());
+			}
 		}
 	}
 
@@ -871,6 +1088,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		/** The object into which the thread reads the data from the input. */
 		private final E readTarget;
 
+		/** The sort buffers borrowed beyond the memory quota, null if the thread borrows no memory. */
+		private BorrowedSortBuffers<E> borrowedBuffers;
+
 		/**
 		 * Creates a new reading thread.
 		 * 
@@ -893,6 +1113,41 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			this.largeRecords = largeRecordsHandler;
 		}
 
+		/**
+		 * Makes the thread borrow sort buffers when the buffers fill up to the spilling threshold.
+		 * Must be called before the thread is started.
+		 *
+		 * @param borrowedBuffers The sort buffers to borrow.
+		 */
+		public void setBorrowedSortBuffers(BorrowedSortBuffers<E> borrowedBuffers) {
+			this.borrowedBuffers = borrowedBuffers;
+		}
+
+		/**
+		 * Called when the sort buffers filled up to the spilling threshold. Borrows further sort buffers,
+		 * if possible, and sends the spilling marker otherwise.
+		 *
+		 * @param bytesUntilSpilling The bytes until spilling, zero or negative.
+		 * @return The bytes until spilling, extended by the borrowed buffers, or zero, if spilling starts.
+		 */
+		private long reachedSpillingThreshold(long bytesUntilSpilling) {
+			if (this.borrowedBuffers != null) {
+				CircularElement<E> borrowed;
+				while (bytesUntilSpilling <= 0 && (borrowed = this.borrowedBuffers.borrowBuffer()) != null) {
+					bytesUntilSpilling += borrowed.buffer.getCapacity();
+					this.queues.empty.add(borrowed);
+				}
+				if (bytesUntilSpilling > 0) {
+					return bytesUntilSpilling;
+				}
+			}
+
+			// send the spilling marker
+			final CircularElement<E> SPILLING_MARKER = spillingMarker();
+			this.queues.sort.add(SPILLING_MARKER);
+			return 0;
+		}
+
 		/**
 		 * The entry point for the thread. Gets a buffer for all threads and then loops as long as there is input
 		 * available.
@@ -929,6 +1184,22 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 					}
 				}
 				
+				// give borrowed memory back, once it is revoked
+				if (this.borrowedBuffers != null && this.borrowedBuffers.isRevoked()) {
+					if (element.borrowed) {
+						this.borrowedBuffers.release(element);
+						element = null;
+						continue;
+					}
+					if (bytesUntilSpilling > 0 && this.borrowedBuffers.getNumBorrowedSegments() > 0) {
+						// the borrowed buffers deferred the spilling, which must start now to empty them. The
+						// revocation usually sent the spilling marker already, a second one is ignored.
+						bytesUntilSpilling = 0;
+						final CircularElement<E> SPILLING_MARKER = spillingMarker();
+						this.queues.sort.add(SPILLING_MARKER);
+					}
+				}
+
 				// get the new buffer and check it
 				final InMemorySorter<E> buffer = element.buffer;
 				if (!buffer.isEmpty()) {
@@ -982,11 +1253,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 						// successfully added record
 						
 						if (bytesUntilSpilling - buffer.getOccupancy() <= 0) {
-							bytesUntilSpilling = 0;
-							
-							// send the spilling marker
-							final CircularElement<E> SPILLING_MARKER = spillingMarker();
-							this.queues.sort.add(SPILLING_MARKER);
+							// the remainder of this buffer is filled without the check, so the
+							// threshold is moved by the whole buffer
+							bytesUntilSpilling = reachedSpillingThreshold(bytesUntilSpilling - buffer.getCapacity());
 							
 							// we drop out of this loop and continue with the loop that
 							// does not have the check
@@ -1000,10 +1269,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 						if (bytesUntilSpilling > 0) {
 							bytesUntilSpilling -= buffer.getCapacity();
 							if (bytesUntilSpilling <= 0) {
-								bytesUntilSpilling = 0;
-								// send the spilling marker
-								final CircularElement<E> SPILLING_MARKER = spillingMarker();
-								this.queues.sort.add(SPILLING_MARKER);
+								bytesUntilSpilling = reachedSpillingThreshold(bytesUntilSpilling);
 							}
 						}
 						
@@ -1021,10 +1287,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 					// the input is exhausted.
 					bytesUntilSpilling -= buffer.getCapacity();
 					if (bytesUntilSpilling <= 0) {
-						bytesUntilSpilling = 0;
-						// send the spilling marker
-						final CircularElement<E> SPILLING_MARKER = spillingMarker();
-						this.queues.sort.add(SPILLING_MARKER);
+						bytesUntilSpilling = reachedSpillingThreshold(bytesUntilSpilling);
 					}
 				}
 				
@@ -1080,14 +1343,17 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	}
 
 	/**
-	 * The thread that sorts filled buffers.
+	 * The thread that sorts filled buffers. If a sort parallelism larger than one is configured, the
+	 * thread sorts each buffer with the help of a pool of threads.
 	 */
 	protected static class SortingThread<E> extends ThreadBase<E> {
 		
 		private final IndexedSorter sorter;
 
+		private final ForkJoinPool sortPool;		// the threads that help sorting a buffer, may be null
+
 		/**
-		 * Creates a new sorting thread.
+		 * Creates a new sorting thread, with the sort parallelism configured for the TaskManager of the given task.
 		 * 
 		 * @param exceptionHandler The exception handler to call for all exceptions.
 		 * @param queues The queues used to pass buffers between the threads.
@@ -1095,16 +1361,47 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		 */
 		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
 				AbstractInvokable parentTask) {
+			this(exceptionHandler, queues, parentTask, getSortParallelism(parentTask));
+		}
+
+		/**
+		 * Creates a new sorting thread.
+		 * 
+		 * @param exceptionHandler The exception handler to call for all exceptions.
+		 * @param queues The queues used to pass buffers between the threads.
+		 * @param parentTask The task that started this thread. If non-null, it is used to register this thread.
+		 * @param sortParallelism The number of threads with which each buffer is sorted.
+		 */
+		public SortingThread(ExceptionHandler<IOException> exceptionHandler, CircularQueues<E> queues,
+				AbstractInvokable parentTask, int sortParallelism) {
 			super(exceptionHandler, "SortMerger sorting thread", queues, parentTask);
 
 			// members
-			this.sorter = new QuickSort();
+			// buffers whose normalized keys determine the order are radix sorted, all others quick sorted
+			if (sortParallelism > 1) {
+				this.sortPool = new ForkJoinPool(sortParallelism);
+				this.sorter = new ParallelQuickSort(this.sortPool, ParallelQuickSort.DEFAULT_MIN_PARALLEL_RANGE, new RadixSort());
+			} else {
+				this.sortPool = null;
+				this.sorter = new RadixSort();
+			}
 		}
 
 		/**
 		 * Entry point of the thread.
 		 */
 		public void go() throws IOException {
+			try {
+				sortBuffers();
+			}
+			finally {
+				if (this.sortPool != null) {
+					this.sortPool.shutdownNow();
+				}
+			}
+		}
+
+		private void sortBuffers() {
 			boolean alive = true;
 
 			// loop as long as the thread is marked alive
@@ -1177,6 +1474,8 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 		protected final int maxFanIn;
 		
 		protected final int numWriteBuffersToCluster;
+
+		protected final BlockCompressionFactory spillCompression;	// compression of the spilled runs, may be null
 		
 		/**
 		 * Creates the spilling thread.
@@ -1206,6 +1505,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			this.writeMemory = writeMemory;
 			this.maxFanIn = maxNumFileHandles;
 			this.numWriteBuffersToCluster = writeMemory.size() >= 4 ? writeMemory.size() / 2 : 1;
+			this.spillCompression = BlockCompressionFactories.forTask(parentTask);
 		}
 
 		/**
@@ -1325,13 +1625,17 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				if (element == EOF_MARKER) {
 					break;
 				}
+				// a revocation of borrowed memory may send a spilling marker after the spilling started
+				if (element == SPILLING_MARKER) {
+					continue;
+				}
 				
 				// open next channel
 				FileIOChannel.ID channel = enumerator.next();
 				registerChannelToBeRemovedAtShudown(channel);
 
 				// create writer
-				final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(channel);
+				final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(channel, this.spillCompression);
 				registerOpenChannelToBeRemovedAtShudown(writer);
 				final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, this.writeMemory,
 																			this.memManager.getPageSize());
@@ -1355,8 +1659,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				}
 
 				// pass empty sort-buffer to reading thread
-				element.buffer.reset();
-				this.queues.empty.add(element);
+				recycleSpilledBuffer(element);
 			}
 
 			// done with the spilling
@@ -1450,6 +1753,21 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 		}
 		
+		/**
+		 * Passes a spilled sort buffer back to the reading thread, or gives its memory back, if it is
+		 * borrowed memory that has been revoked.
+		 *
+		 * @param element The spilled sort buffer.
+		 */
+		protected final void recycleSpilledBuffer(CircularElement<E> element) {
+			element.buffer.reset();
+			if (element.borrowed && borrowedSortBuffers.isRevoked()) {
+				borrowedSortBuffers.release(element);
+			} else {
+				this.queues.empty.add(element);
+			}
+		}
+
 		/**
 		 * Releases the memory that is registered for in-memory sorted run generation.
 		 */
@@ -1457,6 +1775,11 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			while (!this.queues.empty.isEmpty()) {
 				try {
 					CircularElement<E> element = this.queues.empty.take();
+					if (element.borrowed) {
+						// borrowed memory is never used for merging
+						borrowedSortBuffers.release(element);
+						continue;
+					}
 					element.buffer.dispose();
 					if (releaseMemory) {
 						this.memManager.release(element.memory);
@@ -1507,9 +1830,23 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			for (int i = 0; i < channelIDs.size(); i++) {
 				final ChannelWithBlockCount channel = channelIDs.get(i);
 				final List<MemorySegment> segsForChannel = inputSegments.get(i);
+
+				// read an uncompressed run directly from a memory mapping, if enabled. the read buffers stay unused.
+				final MemoryMappedFile mappedFile = this.spillCompression == null ?
+					this.ioManager.mapChannel(channel.getChannel(), this.memManager.getPageSize()) : null;
+				if (mappedFile != null) {
+					readerList.add(mappedFile);
+					registerOpenChannelToBeRemovedAtShudown(mappedFile);
+					unregisterChannelToBeRemovedAtShudown(channel.getChannel());
+
+					final MappedChannelReaderInputView inView = new MappedChannelReaderInputView(
+						mappedFile, this.memManager.getPageSize(), channel.getBlockCount());
+					iterators.add(new InputViewIterator<E>(inView, this.serializer));
+					continue;
+				}
 				
 				// create a reader. if there are multiple segments for the reader, issue multiple together per I/O request
-				final BlockChannelReader<MemorySegment> reader = this.ioManager.createBlockChannelReader(channel.getChannel());
+				final BlockChannelReader<MemorySegment> reader = this.ioManager.createBlockChannelReader(channel.getChannel(), this.spillCompression);
 					
 				readerList.add(reader);
 				registerOpenChannelToBeRemovedAtShudown(reader);
@@ -1601,7 +1938,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			// create a new channel writer
 			final FileIOChannel.ID mergedChannelID = this.ioManager.createChannel();
 			registerChannelToBeRemovedAtShudown(mergedChannelID);
-			final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(mergedChannelID);
+			final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(mergedChannelID, this.spillCompression);
 			registerOpenChannelToBeRemovedAtShudown(writer);
 			final ChannelWriterOutputView output = new ChannelWriterOutputView(writer, writeBuffers, 
 																			this.memManager.getPageSize());
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.util;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.util.MathUtils;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A bloom filter over the key hash codes of the build side of a hash join. The filter is shipped
+ * to the tasks that produce the probe side, which drop all records whose key cannot have a join
+ * partner before they send them over the network.
+ *
+ * <p>The filter works on the hash codes that the {@link org.apache.flink.api.common.typeutils.TypeComparator}
+ * of the keys computes, because these are the only key properties that the hash join and the
+ * partitioning of the probe side share. Like the {@link BloomFilter}, it derives the bit positions
+ * from two halves of the (mixed) hash code. Because the number of bits is a power of two, a filter can
+ * be folded in half, which lets the filter of a small build side shrink before it is shipped.
+ *
+ * <p>The filter is not thread safe. Once it has been shipped, it is only read.
+ */
+public final class RuntimeFilter {
+
+	/** The number of bits per expected entry, for which the number of hash functions is chosen. */
+	private static final int BITS_PER_ENTRY = 8;
+
+	/** The smallest size of a filter in bytes. */
+	private static final int MIN_SIZE = 8;
+
+	private long[] bits;
+
+	private int mask;
+
+	private final int numHashFunctions;
+
+	private long numAddedHashes;
+
+	/**
+	 * Creates a new, empty filter.
+	 *
+	 * @param numBytes The size of the filter. Must be a power of two and at least 8 bytes.
+	 */
+	public RuntimeFilter(int numBytes) {
+		this(numBytes, optimalNumOfHashFunctions());
+	}
+
+	private RuntimeFilter(int numBytes, int numHashFunctions) {
+		checkArgument(numBytes >= MIN_SIZE && MathUtils.isPowerOf2(numBytes),
+			"The size of the filter must be a power of two and at least " + MIN_SIZE + " bytes.");
+		checkArgument(numHashFunctions > 0, "The number of hash functions must be positive.");
+
+		this.bits = new long[numBytes >>> 3];
+		this.mask = (numBytes << 3) - 1;
+		this.numHashFunctions = numHashFunctions;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds the hash code of a key to the filter.
+	 *
+	 * @param keyHash The hash code of the key, as computed by the key's type comparator.
+	 */
+	public void add(int keyHash) {
+		final int hash1 = MathUtils.jenkinsHash(keyHash);
+		final int hash2 = hash1 >>> 16;
+
+		for (int i = 1; i <= numHashFunctions; i++) {
+			final int pos = (hash1 + i * hash2) & mask;
+			bits[pos >>> 6] |= 1L << pos;
+		}
+		numAddedHashes++;
+	}
+
+	/**
+	 * Checks whether a key with the given hash code may have been added to the filter.
+	 *
+	 * @param keyHash The hash code of the key, as computed by the key's type comparator.
+	 * @return False, if no key with this hash code has been added, true if one may have been added.
+	 */
+	public boolean mightContain(int keyHash) {
+		final int hash1 = MathUtils.jenkinsHash(keyHash);
+		final int hash2 = hash1 >>> 16;
+
+		for (int i = 1; i <= numHashFunctions; i++) {
+			final int pos = (hash1 + i * hash2) & mask;
+			if ((bits[pos >>> 6] & (1L << pos)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of hash codes added to the filter, including duplicates.
+	 */
+	public long getNumAddedHashes() {
+		return numAddedHashes;
+	}
+
+	public int getSizeInBytes() {
+		return bits.length << 3;
+	}
+
+	/**
+	 * Estimates the probability that the filter accepts a key that has not been added. The estimate
+	 * is pessimistic, because it counts duplicate keys as distinct.
+	 */
+	public double estimateFalsePositiveProbability() {
+		return estimateFalsePositiveProbability(numAddedHashes, getSizeInBytes() << 3);
+	}
+
+	/**
+	 * Folds the filter in half as often as the estimated false positive probability stays below the
+	 * given probability. Folding keeps all added keys, so the filter still has no false negatives.
+	 *
+	 * @param maxFalsePositiveProbability The highest acceptable false positive probability.
+	 * @return True, if the compacted filter stays below the given false positive probability, false
+	 *         if even the full size filter exceeds it.
+	 */
+	public boolean compact(double maxFalsePositiveProbability) {
+		if (estimateFalsePositiveProbability() > maxFalsePositiveProbability) {
+			return false;
+		}
+
+		while (bits.length > MIN_SIZE >>> 3 &&
+				estimateFalsePositiveProbability(numAddedHashes, getSizeInBytes() << 2) <= maxFalsePositiveProbability) {
+
+			// bit 'pos' of the full filter maps to bit 'pos & (numBits / 2 - 1)' of the folded filter
+			final long[] folded = new long[bits.length >>> 1];
+			for (int i = 0; i < folded.length; i++) {
+				folded[i] = bits[i] | bits[i + folded.length];
+			}
+			bits = folded;
+			mask >>>= 1;
+		}
+		return true;
+	}
+
+	private double estimateFalsePositiveProbability(long numEntries, long numBits) {
+		final double p = Math.exp(-(double) numHashFunctions * numEntries / numBits);
+		return Math.pow(1 - p, numHashFunctions);
+	}
+
+	private static int optimalNumOfHashFunctions() {
+		return Math.max(1, (int) Math.round(BITS_PER_ENTRY * Math.log(2)));
+	}
+
+	// ------------------------------------------------------------------------
+	//  Serialization
+	// ------------------------------------------------------------------------
+
+	public void write(DataOutputView out) throws IOException {
+		out.writeInt(numHashFunctions);
+		out.writeLong(numAddedHashes);
+		out.writeInt(bits.length);
+		for (long word : bits) {
+			out.writeLong(word);
+		}
+	}
+
+	public static RuntimeFilter read(DataInputView in) throws IOException {
+		final int numHashFunctions = in.readInt();
+		final long numAddedHashes = in.readLong();
+		final int numWords = in.readInt();
+
+		final RuntimeFilter filter = new RuntimeFilter(numWords << 3, numHashFunctions);
+		for (int i = 0; i < numWords; i++) {
+			filter.bits[i] = in.readLong();
+		}
+		filter.numAddedHashes = numAddedHashes;
+		return filter;
+	}
+
+	@Override
+	public String toString() {
+		return "RuntimeFilter (" + getSizeInBytes() + " bytes, " + numHashFunctions + " hash functions, " +
+			numAddedHashes + " hashes)";
+	}
+}
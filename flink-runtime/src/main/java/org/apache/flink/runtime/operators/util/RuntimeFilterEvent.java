@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.util;
+
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.event.TaskEvent;
+
+import java.io.IOException;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The event with which a hash join ships the {@link RuntimeFilter} of its build side to the tasks
+ * that produce its probe side. The event names the channel through which the join receives its
+ * probe side, which is the index of the join's subtask, so that the producers apply the filter only
+ * to the records they partition to this subtask.
+ *
+ * <p>The event is optional: producers that have already finished do not need it any more.
+ */
+public class RuntimeFilterEvent extends TaskEvent {
+
+	private int channel;
+
+	private RuntimeFilter filter;
+
+	/**
+	 * Default constructor for the deserialization.
+	 */
+	public RuntimeFilterEvent() {}
+
+	public RuntimeFilterEvent(int channel, RuntimeFilter filter) {
+		checkArgument(channel >= 0, "The channel must not be negative.");
+		this.channel = channel;
+		this.filter = checkNotNull(filter);
+	}
+
+	public int getChannel() {
+		return channel;
+	}
+
+	public RuntimeFilter getFilter() {
+		return filter;
+	}
+
+	@Override
+	public boolean isOptional() {
+		return true;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutputView out) throws IOException {
+		out.writeInt(channel);
+		filter.write(out);
+	}
+
+	@Override
+	public void read(DataInputView in) throws IOException {
+		channel = in.readInt();
+		filter = RuntimeFilter.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return "RuntimeFilterEvent (channel " + channel + ", " + filter + ")";
+	}
+}
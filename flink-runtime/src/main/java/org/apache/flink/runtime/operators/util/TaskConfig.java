@@ -79,6 +79,8 @@ public class TaskConfig implements Serializable {
 	
 	private static final String DRIVER_MUTABLE_OBJECT_MODE = "diver.mutableobjects";
 
+	private static final String DRIVER_PROBE_SIDE_RUNTIME_FILTER = "driver.runtime-filter";
+
 	// -------------------------------------- Inputs ----------------------------------------------
 
 	private static final String NUM_INPUTS = "in.num";
@@ -142,6 +144,8 @@ public class TaskConfig implements Serializable {
 	private static final String OUTPUT_DATA_DISTRIBUTION_PREFIX = "out.distribution.";
 	
 	private static final String OUTPUT_PARTITIONER = "out.partitioner.";
+
+	private static final String OUTPUT_RUNTIME_FILTER_PREFIX = "out.runtime-filter.";
 	
 	// ------------------------------------- Chaining ---------------------------------------------
 	
@@ -356,6 +360,18 @@ public class TaskConfig implements Serializable {
 	public boolean getMutableObjectMode() {
 		return this.config.getBoolean(DRIVER_MUTABLE_OBJECT_MODE, false);
 	}
+
+	/**
+	 * Sets whether the producers of the probe side of the driver apply the runtime filters that a
+	 * hash join ships to them.
+	 */
+	public void setProbeSideRuntimeFilter(boolean accepted) {
+		this.config.setBoolean(DRIVER_PROBE_SIDE_RUNTIME_FILTER, accepted);
+	}
+
+	public boolean getProbeSideRuntimeFilter() {
+		return this.config.getBoolean(DRIVER_PROBE_SIDE_RUNTIME_FILTER, false);
+	}
 	
 	public void setDriverComparator(TypeComparatorFactory<?> factory, int inputNum) {
 		setTypeComparatorFactory(factory, DRIVER_COMPARATOR_FACTORY_PREFIX + inputNum,
@@ -630,6 +646,18 @@ public class TaskConfig implements Serializable {
 			throw new RuntimeException("Could not deserialize custom partitioner.", t);
 		}
 	}
+
+	/**
+	 * Sets whether the given output drops the records that the runtime filters of its consumers
+	 * reject.
+	 */
+	public void setOutputRuntimeFilter(boolean accepted, int outputNum) {
+		this.config.setBoolean(OUTPUT_RUNTIME_FILTER_PREFIX + outputNum, accepted);
+	}
+
+	public boolean getOutputRuntimeFilter(int outputNum) {
+		return this.config.getBoolean(OUTPUT_RUNTIME_FILTER_PREFIX + outputNum, false);
+	}
 	
 	// --------------------------------------------------------------------------------------------
 	//                       Parameters to configure the memory and I/O behavior
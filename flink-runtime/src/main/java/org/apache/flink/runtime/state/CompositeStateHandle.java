@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+/**
+ * Base of all snapshots that may be composed of state which is private to the snapshot and state
+ * which is shared with other snapshots.
+ *
+ * <p>The shared state is not owned by the snapshot alone. Once a snapshot becomes part of a completed
+ * checkpoint, its shared state is registered at the {@link SharedStateRegistry} of the checkpoint
+ * store, which takes care of discarding it when no retained checkpoint references it any more.
+ * {@link #discardState()} of a registered composite state only discards the private state.
+ */
+public interface CompositeStateHandle extends StateObject {
+
+	/**
+	 * Registers the shared state of this snapshot at the given registry. After this call, the
+	 * registry owns the shared state.
+	 *
+	 * @param stateRegistry The registry where the shared states are registered
+	 */
+	void registerSharedStates(SharedStateRegistry stateRegistry);
+
+	/**
+	 * Releases the references of this snapshot to its shared state in the given registry. Shared
+	 * states that are no longer referenced by any snapshot are discarded by the registry.
+	 *
+	 * @param stateRegistry The registry where the shared states were registered
+	 */
+	void unregisterSharedStates(SharedStateRegistry stateRegistry);
+}
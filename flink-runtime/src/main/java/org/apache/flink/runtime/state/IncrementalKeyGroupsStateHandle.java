@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.ExceptionUtils;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Map;
+
+/**
+ * A handle to the keyed state of an incremental checkpoint. Instead of a single stream that contains
+ * all key-groups, the state consists of a set of files that together form a consistent image of the
+ * state backend's local data base:
+ *
+ * <ul>
+ *     <li>The meta data stream with the registered states, which is the delegate of this handle.</li>
+ *     <li>Immutable data files that were uploaded for this checkpoint (<i>new shared state</i>).</li>
+ *     <li>Immutable data files that were uploaded by a previous checkpoint of the same backend and
+ *     that are only referenced by this checkpoint (<i>old shared state</i>).</li>
+ *     <li>Other mutable files that are private to this checkpoint.</li>
+ * </ul>
+ *
+ * <p>The shared files are registered at the {@link SharedStateRegistry} when the checkpoint completes
+ * and are discarded once no retained checkpoint references them any more. As long as the handle is
+ * not registered (e.g. the checkpoint is aborted before it completes), {@link #discardState()} also
+ * discards the files that were newly uploaded for this checkpoint.
+ *
+ * <p>The key-group offsets of this handle carry no meaning, all key-groups of the range are
+ * contained in the referenced data files.
+ */
+public class IncrementalKeyGroupsStateHandle extends KeyGroupsStateHandle implements CompositeStateHandle {
+
+	private static final long serialVersionUID = -8328808513197388231L;
+
+	/** Identifier of the backend lineage that uploaded the shared files */
+	private final String backendIdentifier;
+
+	/** The id of the checkpoint that this handle belongs to */
+	private final long checkpointId;
+
+	/** Shared files that were uploaded for this checkpoint, by local file name */
+	private final Map<String, StreamStateHandle> newSharedState;
+
+	/** Shared files that were uploaded by a previous checkpoint, by local file name */
+	private final Map<String, StreamStateHandle> oldSharedState;
+
+	/** Files that are private to this checkpoint, by local file name */
+	private final Map<String, StreamStateHandle> privateState;
+
+	/** Whether the shared state is owned by a {@link SharedStateRegistry} */
+	private transient boolean sharedStateRegistered;
+
+	public IncrementalKeyGroupsStateHandle(
+			String backendIdentifier,
+			KeyGroupRange keyGroupRange,
+			long checkpointId,
+			Map<String, StreamStateHandle> newSharedState,
+			Map<String, StreamStateHandle> oldSharedState,
+			Map<String, StreamStateHandle> privateState,
+			StreamStateHandle metaStateHandle) {
+
+		super(new KeyGroupRangeOffsets(keyGroupRange), metaStateHandle);
+
+		this.backendIdentifier = Preconditions.checkNotNull(backendIdentifier);
+		this.checkpointId = checkpointId;
+		this.newSharedState = Preconditions.checkNotNull(newSharedState);
+		this.oldSharedState = Preconditions.checkNotNull(oldSharedState);
+		this.privateState = Preconditions.checkNotNull(privateState);
+	}
+
+	public String getBackendIdentifier() {
+		return backendIdentifier;
+	}
+
+	public long getCheckpointId() {
+		return checkpointId;
+	}
+
+	public KeyGroupRange getKeyGroupRange() {
+		return getGroupRangeOffsets().getKeyGroupRange();
+	}
+
+	public Map<String, StreamStateHandle> getNewSharedState() {
+		return newSharedState;
+	}
+
+	public Map<String, StreamStateHandle> getOldSharedState() {
+		return oldSharedState;
+	}
+
+	public Map<String, StreamStateHandle> getPrivateState() {
+		return privateState;
+	}
+
+	public StreamStateHandle getMetaStateHandle() {
+		return getDelegateStateHandle();
+	}
+
+	@Override
+	public IncrementalKeyGroupsStateHandle getKeyGroupIntersection(KeyGroupRange keyGroupRange) {
+		return new IncrementalKeyGroupsStateHandle(
+				backendIdentifier,
+				getKeyGroupRange().getIntersection(keyGroupRange),
+				checkpointId,
+				newSharedState,
+				oldSharedState,
+				privateState,
+				getMetaStateHandle());
+	}
+
+	@Override
+	public void registerSharedStates(SharedStateRegistry stateRegistry) {
+		Preconditions.checkNotNull(stateRegistry);
+
+		for (StreamStateHandle sharedState : newSharedState.values()) {
+			stateRegistry.register(sharedState);
+		}
+
+		for (StreamStateHandle sharedState : oldSharedState.values()) {
+			stateRegistry.register(sharedState);
+		}
+
+		sharedStateRegistered = true;
+	}
+
+	@Override
+	public void unregisterSharedStates(SharedStateRegistry stateRegistry) {
+		Preconditions.checkNotNull(stateRegistry);
+
+		// from now on, the registry decides about the lifecycle of the shared state
+		sharedStateRegistered = true;
+
+		for (StreamStateHandle sharedState : newSharedState.values()) {
+			stateRegistry.unregister(sharedState);
+		}
+
+		for (StreamStateHandle sharedState : oldSharedState.values()) {
+			stateRegistry.unregister(sharedState);
+		}
+	}
+
+	@Override
+	public void discardState() throws Exception {
+		Exception exception = null;
+
+		try {
+			getMetaStateHandle().discardState();
+		} catch (Exception e) {
+			exception = e;
+		}
+
+		try {
+			StateUtil.bestEffortDiscardAllStateObjects(privateState.values());
+		} catch (Exception e) {
+			exception = ExceptionUtils.firstOrSuppressed(e, exception);
+		}
+
+		// the files that were uploaded for this checkpoint are not referenced by anybody else
+		// unless the checkpoint completed and the registry took over their ownership
+		if (!sharedStateRegistered) {
+			try {
+				StateUtil.bestEffortDiscardAllStateObjects(newSharedState.values());
+			} catch (Exception e) {
+				exception = ExceptionUtils.firstOrSuppressed(e, exception);
+			}
+		}
+
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	/**
+	 * Returns the size of the state that was written for this checkpoint, i.e. the meta data,
+	 * the private files and the newly uploaded shared files. The size of the shared files that
+	 * are only referenced from previous checkpoints is not included.
+	 */
+	@Override
+	public long getStateSize() {
+		long size = getMetaStateHandle().getStateSize();
+
+		for (StreamStateHandle state : privateState.values()) {
+			size += state.getStateSize();
+		}
+
+		for (StreamStateHandle state : newSharedState.values()) {
+			size += state.getStateSize();
+		}
+
+		return size;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+
+		if (!(o instanceof IncrementalKeyGroupsStateHandle) || !super.equals(o)) {
+			return false;
+		}
+
+		IncrementalKeyGroupsStateHandle that = (IncrementalKeyGroupsStateHandle) o;
+
+		return checkpointId == that.checkpointId &&
+				backendIdentifier.equals(that.backendIdentifier) &&
+				newSharedState.equals(that.newSharedState) &&
+				oldSharedState.equals(that.oldSharedState) &&
+				privateState.equals(that.privateState);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = super.hashCode();
+		result = 31 * result + backendIdentifier.hashCode();
+		result = 31 * result + (int) (checkpointId ^ (checkpointId >>> 32));
+		result = 31 * result + newSharedState.hashCode();
+		result = 31 * result + oldSharedState.hashCode();
+		result = 31 * result + privateState.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "IncrementalKeyGroupsStateHandle{" +
+				"backendIdentifier='" + backendIdentifier + '\'' +
+				", keyGroupRange=" + getKeyGroupRange() +
+				", checkpointId=" + checkpointId +
+				", newSharedState=" + newSharedState +
+				", oldSharedState=" + oldSharedState +
+				", privateState=" + privateState +
+				", metaState=" + getMetaStateHandle() +
+				'}';
+	}
+}
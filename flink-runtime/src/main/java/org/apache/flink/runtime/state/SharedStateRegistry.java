@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.util.Preconditions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@code SharedStateRegistry} keeps track of the state handles that are referenced by more than
+ * one completed checkpoint, for example the SST files of an incremental RocksDB checkpoint that
+ * were already uploaded for a previous checkpoint and are reused by the following ones.
+ *
+ * <p>Each registered state handle has a reference count. The count is increased whenever a retained
+ * checkpoint references the handle and decreased when such a checkpoint is subsumed or discarded.
+ * A handle is discarded once its reference count drops to zero, i.e. when no retained checkpoint
+ * uses it any more.
+ *
+ * <p>State handles are identified by their {@link Object#equals(Object) equality}, which for the
+ * stream state handles is the identity of the underlying file or byte blob.
+ *
+ * <p>All methods of this class are thread-safe.
+ */
+public class SharedStateRegistry {
+
+	private static final Logger LOG = LoggerFactory.getLogger(SharedStateRegistry.class);
+
+	/** All registered shared states together with their reference counts */
+	private final Map<StreamStateHandle, Integer> registeredStates;
+
+	public SharedStateRegistry() {
+		this.registeredStates = new HashMap<>();
+	}
+
+	/**
+	 * Registers a reference to the given shared state handle.
+	 *
+	 * @param state The shared state handle to register
+	 * @return The reference count of the handle after the registration
+	 */
+	public int register(StreamStateHandle state) {
+		Preconditions.checkNotNull(state);
+
+		synchronized (registeredStates) {
+			Integer referenceCount = registeredStates.get(state);
+			int newReferenceCount = referenceCount == null ? 1 : referenceCount + 1;
+			registeredStates.put(state, newReferenceCount);
+
+			return newReferenceCount;
+		}
+	}
+
+	/**
+	 * Releases one reference to the given shared state handle. If this was the last reference,
+	 * the state handle is removed from the registry and its state is discarded.
+	 *
+	 * @param state The shared state handle to unregister
+	 * @return The reference count of the handle after the unregistration
+	 */
+	public int unregister(StreamStateHandle state) {
+		Preconditions.checkNotNull(state);
+
+		final int newReferenceCount;
+
+		synchronized (registeredStates) {
+			Integer referenceCount = registeredStates.get(state);
+
+			if (referenceCount == null) {
+				LOG.warn("Cannot unregister the shared state {} because it was never registered.", state);
+				return 0;
+			}
+
+			newReferenceCount = referenceCount - 1;
+
+			if (newReferenceCount > 0) {
+				registeredStates.put(state, newReferenceCount);
+			} else {
+				registeredStates.remove(state);
+			}
+		}
+
+		// discard outside of the lock, this may involve I/O
+		if (newReferenceCount == 0) {
+			try {
+				state.discardState();
+			} catch (Exception e) {
+				LOG.warn("Could not properly discard the unreferenced shared state {}.", state, e);
+			}
+		}
+
+		return newReferenceCount;
+	}
+
+	/**
+	 * Returns the current reference count of the given shared state handle, or zero if the handle
+	 * is not registered.
+	 */
+	public int getReferenceCount(StreamStateHandle state) {
+		synchronized (registeredStates) {
+			Integer referenceCount = registeredStates.get(state);
+			return referenceCount == null ? 0 : referenceCount;
+		}
+	}
+
+	/**
+	 * Returns the number of distinct shared state handles in this registry.
+	 */
+	public int getNumberOfRegisteredStates() {
+		synchronized (registeredStates) {
+			return registeredStates.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (registeredStates) {
+			return "SharedStateRegistry{" +
+					"registeredStates=" + registeredStates +
+					'}';
+		}
+	}
+}
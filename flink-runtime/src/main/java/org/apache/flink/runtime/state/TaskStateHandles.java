@@ -20,6 +20,8 @@ package org.apache.flink.runtime.state;
 
 import org.apache.flink.runtime.checkpoint.SubtaskState;
 
+import javax.annotation.Nullable;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -51,6 +53,14 @@ public class TaskStateHandles implements Serializable {
 	/** Outer list represents the operator chain, each collection holds handles for raw/streamed state of a single operator */
 	private final List<Collection<OperatorStateHandle>> rawOperatorState;
 
+	/** In-flight buffers of the input channels, persisted by an unaligned checkpoint */
+	@Nullable
+	private final StreamStateHandle inputChannelState;
+
+	/** In-flight buffers of the result subpartitions, persisted by an unaligned checkpoint */
+	@Nullable
+	private final StreamStateHandle resultSubpartitionState;
+
 	public TaskStateHandles() {
 		this(null, null, null, null, null);
 	}
@@ -60,7 +70,9 @@ public class TaskStateHandles implements Serializable {
 				transform(checkpointStateHandles.getManagedOperatorState()),
 				transform(checkpointStateHandles.getRawOperatorState()),
 				transform(checkpointStateHandles.getManagedKeyedState()),
-				transform(checkpointStateHandles.getRawKeyedState()));
+				transform(checkpointStateHandles.getRawKeyedState()),
+				checkpointStateHandles.getInputChannelState(),
+				checkpointStateHandles.getResultSubpartitionState());
 	}
 
 	public TaskStateHandles(
@@ -70,11 +82,25 @@ public class TaskStateHandles implements Serializable {
 			Collection<KeyGroupsStateHandle> managedKeyedState,
 			Collection<KeyGroupsStateHandle> rawKeyedState) {
 
+		this(legacyOperatorState, managedOperatorState, rawOperatorState, managedKeyedState, rawKeyedState, null, null);
+	}
+
+	public TaskStateHandles(
+			ChainedStateHandle<StreamStateHandle> legacyOperatorState,
+			List<Collection<OperatorStateHandle>> managedOperatorState,
+			List<Collection<OperatorStateHandle>> rawOperatorState,
+			Collection<KeyGroupsStateHandle> managedKeyedState,
+			Collection<KeyGroupsStateHandle> rawKeyedState,
+			@Nullable StreamStateHandle inputChannelState,
+			@Nullable StreamStateHandle resultSubpartitionState) {
+
 		this.legacyOperatorState = legacyOperatorState;
 		this.managedKeyedState = managedKeyedState;
 		this.rawKeyedState = rawKeyedState;
 		this.managedOperatorState = managedOperatorState;
 		this.rawOperatorState = rawOperatorState;
+		this.inputChannelState = inputChannelState;
+		this.resultSubpartitionState = resultSubpartitionState;
 	}
 
 	@Deprecated
@@ -98,6 +124,16 @@ public class TaskStateHandles implements Serializable {
 		return managedOperatorState;
 	}
 
+	@Nullable
+	public StreamStateHandle getInputChannelState() {
+		return inputChannelState;
+	}
+
+	@Nullable
+	public StreamStateHandle getResultSubpartitionState() {
+		return resultSubpartitionState;
+	}
+
 	private static List<Collection<OperatorStateHandle>> transform(ChainedStateHandle<OperatorStateHandle> in) {
 		if (null == in) {
 			return Collections.emptyList();
@@ -146,9 +182,19 @@ public class TaskStateHandles implements Serializable {
 				: that.rawOperatorState != null) {
 			return false;
 		}
-		return managedOperatorState != null ?
-				managedOperatorState.equals(that.managedOperatorState)
-				: that.managedOperatorState == null;
+		if (managedOperatorState != null ?
+				!managedOperatorState.equals(that.managedOperatorState)
+				: that.managedOperatorState != null) {
+			return false;
+		}
+		if (inputChannelState != null ?
+				!inputChannelState.equals(that.inputChannelState)
+				: that.inputChannelState != null) {
+			return false;
+		}
+		return resultSubpartitionState != null ?
+				resultSubpartitionState.equals(that.resultSubpartitionState)
+				: that.resultSubpartitionState == null;
 	}
 
 	@Override
@@ -158,6 +204,8 @@ public class TaskStateHandles implements Serializable {
 		result = 31 * result + (rawKeyedState != null ? rawKeyedState.hashCode() : 0);
 		result = 31 * result + (managedOperatorState != null ? managedOperatorState.hashCode() : 0);
 		result = 31 * result + (rawOperatorState != null ? rawOperatorState.hashCode() : 0);
+		result = 31 * result + (inputChannelState != null ? inputChannelState.hashCode() : 0);
+		result = 31 * result + (resultSubpartitionState != null ? resultSubpartitionState.hashCode() : 0);
 		return result;
 	}
 }
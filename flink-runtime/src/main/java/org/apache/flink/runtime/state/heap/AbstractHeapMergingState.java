@@ -26,7 +26,6 @@ import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.internal.InternalMergingState;
 
 import java.util.Collection;
-import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -44,6 +43,9 @@ public abstract class AbstractHeapMergingState<K, N, IN, OUT, SV, S extends Stat
 		extends AbstractHeapState<K, N, SV, S, SD>
 		implements InternalMergingState<N, IN, OUT> {
 
+	/** The transformation that merges the state of the source namespaces into the target namespace */
+	private final MergeTransformation mergeTransformation;
+
 	/**
 	 * Creates a new key/value state for the given hash map of key/value pairs.
 	 *
@@ -60,6 +62,7 @@ public abstract class AbstractHeapMergingState<K, N, IN, OUT, SV, S extends Stat
 			TypeSerializer<N> namespaceSerializer) {
 
 		super(backend, stateDesc, stateTable, keySerializer, namespaceSerializer);
+		this.mergeTransformation = new MergeTransformation();
 	}
 
 	@Override
@@ -71,53 +74,41 @@ public abstract class AbstractHeapMergingState<K, N, IN, OUT, SV, S extends Stat
 		final K key = backend.getCurrentKey();
 		checkState(key != null, "No key set.");
 
-		final Map<N, Map<K, SV>> namespaceMap = stateTable.get(backend.getCurrentKeyGroupIndex());
-
-		if (namespaceMap != null) {
-			SV merged = null;
-
-			// merge the sources
-			for (N source : sources) {
-				Map<K, SV> keysForNamespace = namespaceMap.get(source);
-				if (keysForNamespace != null) {
-					// get and remove the next source per namespace/key
-					SV sourceState = keysForNamespace.remove(key);
-
-					// if the namespace map became empty, remove 
-					if (keysForNamespace.isEmpty()) {
-						namespaceMap.remove(source);
-					}
-
-					if (merged != null && sourceState != null) {
-						merged = mergeState(merged, sourceState);
-					}
-					else if (merged == null) {
-						merged = sourceState;
-					}
-				}
-			}
+		SV merged = null;
+
+		// merge the sources
+		for (N source : sources) {
 
-			// merge into the target, if needed
-			if (merged != null) {
-				Map<K, SV> keysForTarget = namespaceMap.get(target);
-				if (keysForTarget == null) {
-					keysForTarget = createNewMap();
-					namespaceMap.put(target, keysForTarget);
-				}
-				SV targetState = keysForTarget.get(key);
-
-				if (targetState != null) {
-					targetState = mergeState(targetState, merged);
-				}
-				else {
-					targetState = merged;
-				}
-				keysForTarget.put(key, targetState);
+			// get and remove the next source per namespace/key
+			SV sourceState = stateTable.removeAndGetOld(source);
+
+			if (merged != null && sourceState != null) {
+				merged = mergeState(merged, sourceState);
+			}
+			else if (merged == null) {
+				merged = sourceState;
 			}
 		}
 
-		// else no entries for that key at all, nothing to do skip
+		// merge into the target, if needed
+		if (merged != null) {
+			stateTable.transform(target, merged, mergeTransformation);
+		}
 	}
 
 	protected abstract SV mergeState(SV a, SV b) throws Exception;
+
+	// ------------------------------------------------------------------------
+
+	final class MergeTransformation implements StateTransformationFunction<SV, SV> {
+
+		@Override
+		public SV apply(SV targetState, SV merged) throws Exception {
+			if (targetState != null) {
+				return mergeState(targetState, merged);
+			} else {
+				return merged;
+			}
+		}
+	}
 }
@@ -0,0 +1,645 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.util.MathUtils;
+import org.apache.flink.util.Preconditions;
+
+import java.util.TreeSet;
+
+/**
+ * Implementation of Flink's in-memory state tables with copy-on-write support. This map does not support null values
+ * for key or namespace.
+ *
+ * <p>The table is a flat hash table with open addressing (linear probing) that is keyed by the composite of
+ * (key, namespace). All mappings are held in parallel arrays: a primitive {@code int} array holds the (spread) hash
+ * codes of the keys, and keys, namespaces, and states are each held in one object array. Compared to nested hash maps,
+ * this avoids all per-mapping objects (map entries, and inner maps per namespace) and probing mostly touches the
+ * primitive hash array. Removals use backward shift deletion, so the table never contains tombstones.
+ *
+ * <p>The stored hash of a key is the same hash from which the key-group of the key is computed. The table can
+ * therefore be partitioned by key-group for snapshots without calling {@link Object#hashCode()} on the keys again.
+ *
+ * <p>Taking a snapshot creates a copy of the hash, key, namespace, and state arrays and increments the version of the
+ * table, which is the only work on the synchronous part of a checkpoint. Afterwards, every state object that is older
+ * than the most recent running snapshot is considered to be shared with a snapshot: before it is handed out for
+ * modification, the table replaces it by a deep copy. Copy-on-write tries to minimize the amount of copying by keeping
+ * a version for each state object, however, we must often proactively copy state objects when we hand them to the
+ * user. The state versions are only tracked while there are unreleased snapshots.
+ *
+ * <p>IMPORTANT: the contracts for this class rely on the user not holding any references to objects returned by this
+ * map beyond the life cycle of per-element operations. Or phrased differently, all get-update-put operations on a
+ * mapping should be within one call of processElement. Otherwise, the user must take care of taking deep copies, e.g.
+ * for caching purposes.
+ *
+ * <p>All methods of this class, except for releasing snapshots, must be called from the thread that owns the table.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of value.
+ */
+public class CopyOnWriteStateTable<K, N, S> extends StateTable<K, N, S> {
+
+	/**
+	 * Min capacity (other than zero) for a {@link CopyOnWriteStateTable}. Must be a power of two
+	 * greater than 1 (and less than 1 << 30).
+	 */
+	private static final int MINIMUM_CAPACITY = 4;
+
+	/**
+	 * Max capacity for a {@link CopyOnWriteStateTable}. Must be a power of two >= MINIMUM_CAPACITY.
+	 */
+	private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+	/**
+	 * Default capacity for a {@link CopyOnWriteStateTable}. Must be a power of two,
+	 * greater than {@code MINIMUM_CAPACITY} and less than {@code MAXIMUM_CAPACITY}.
+	 */
+	public static final int DEFAULT_CAPACITY = 128;
+
+	/**
+	 * Marks an empty slot in {@link #hashes}.
+	 */
+	private static final int EMPTY_SLOT = 0;
+
+	/**
+	 * This bit is set in the stored hashes of all occupied slots, to distinguish them from {@link #EMPTY_SLOT}.
+	 */
+	private static final int OCCUPIED_BIT = Integer.MIN_VALUE;
+
+	/**
+	 * Multiplier (golden ratio) to spread the hash codes of namespaces.
+	 */
+	private static final int NAMESPACE_HASH_MULTIPLIER = 0x9E3779B9;
+
+	/**
+	 * The hashes of the keys in the slots with the {@link #OCCUPIED_BIT} set, {@link #EMPTY_SLOT} for free slots.
+	 * The length of this array (and all other slot arrays) is always a power of two.
+	 */
+	private int[] hashes;
+
+	/**
+	 * The keys in the slots.
+	 */
+	private K[] keys;
+
+	/**
+	 * The namespaces in the slots.
+	 */
+	private N[] namespaces;
+
+	/**
+	 * The states in the slots.
+	 */
+	private S[] states;
+
+	/**
+	 * The versions of the state objects in the slots. Used for copy-on-write mechanics. This array is only allocated
+	 * while there are unreleased snapshots, a missing array means that all states have version 0.
+	 */
+	private int[] stateVersions;
+
+	/**
+	 * The number of mappings in this table.
+	 */
+	private int size;
+
+	/**
+	 * The table is rehashed when its size exceeds this threshold. The value of this field is generally .75 * capacity.
+	 */
+	private int threshold;
+
+	/**
+	 * The current version of this map. Used for copy-on-write mechanics.
+	 */
+	private int stateTableVersion;
+
+	/**
+	 * The highest version of this map that is still required by any unreleased snapshot. States with a lower version
+	 * may be shared with that snapshot and must be copied before they are handed out for modification. Zero if there
+	 * are no unreleased snapshots.
+	 *
+	 * <p>This field is only raised by the owning thread. A release of a snapshot from another thread may lower it, and
+	 * if the owning thread does not yet see the lower value, it only copies more than necessary.
+	 */
+	private int highestRequiredSnapshotVersion;
+
+	/**
+	 * Maintains an ordered set of version ids that are still in use by unreleased snapshots.
+	 */
+	private final TreeSet<Integer> snapshotVersions;
+
+	/**
+	 * Whether the state objects are immutable and never need to be copied.
+	 */
+	private final boolean immutableStates;
+
+	/**
+	 * Constructs a new {@code StateTable} with default capacity of {@code DEFAULT_CAPACITY}.
+	 *
+	 * @param keyContext the key context.
+	 * @param metaInfo   the meta information, including the type serializer for state copy-on-write.
+	 */
+	CopyOnWriteStateTable(InternalKeyContext<K> keyContext, RegisteredBackendStateMetaInfo<N, S> metaInfo) {
+		this(keyContext, metaInfo, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructs a new {@code StateTable} instance with the specified capacity.
+	 *
+	 * @param keyContext the key context.
+	 * @param metaInfo   the meta information, including the type serializer for state copy-on-write.
+	 * @param capacity   the initial capacity of this hash map.
+	 * @throws IllegalArgumentException when the capacity is less than zero.
+	 */
+	@VisibleForTesting
+	CopyOnWriteStateTable(
+			InternalKeyContext<K> keyContext,
+			RegisteredBackendStateMetaInfo<N, S> metaInfo,
+			int capacity) {
+
+		super(keyContext, metaInfo);
+
+		Preconditions.checkArgument(capacity >= 0, "Capacity must not be negative");
+
+		this.stateTableVersion = 0;
+		this.highestRequiredSnapshotVersion = 0;
+		this.snapshotVersions = new TreeSet<>();
+		this.immutableStates = metaInfo.getStateSerializer().isImmutableType();
+
+		if (capacity < MINIMUM_CAPACITY) {
+			capacity = MINIMUM_CAPACITY;
+		} else if (capacity > MAXIMUM_CAPACITY) {
+			capacity = MAXIMUM_CAPACITY;
+		} else {
+			capacity = MathUtils.roundUpToPowerOfTwo(capacity);
+		}
+
+		makeTable(capacity);
+	}
+
+	// Public API from StateTable ---------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the total number of entries in this {@link CopyOnWriteStateTable}.
+	 *
+	 * @return the number of entries in this {@link CopyOnWriteStateTable}.
+	 */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public S get(N namespace) {
+		final int slot = findSlot(keyContext.getCurrentKey(), namespace);
+
+		if (slot < 0) {
+			return null;
+		}
+
+		// copy-on-write check for state, the state is handed out for modification
+		if (!immutableStates && isSharedWithSnapshot(slot)) {
+			states[slot] = copyState(states[slot]);
+			updateStateVersion(slot);
+		}
+
+		return states[slot];
+	}
+
+	@Override
+	public boolean containsKey(N namespace) {
+		return containsKey(keyContext.getCurrentKey(), namespace);
+	}
+
+	@Override
+	public void put(N namespace, S state) {
+		put(keyContext.getCurrentKey(), namespace, state);
+	}
+
+	@Override
+	public S putAndGetOld(N namespace, S state) {
+		final int slot = putSlot(keyContext.getCurrentKey(), namespace);
+
+		// copy-on-write check for state
+		final S oldState = isSharedWithSnapshot(slot) ? copyState(states[slot]) : states[slot];
+
+		states[slot] = state;
+		updateStateVersion(slot);
+
+		return oldState;
+	}
+
+	@Override
+	public void remove(N namespace) {
+		final int slot = findSlot(keyContext.getCurrentKey(), namespace);
+
+		if (slot >= 0) {
+			removeSlot(slot);
+		}
+	}
+
+	@Override
+	public S removeAndGetOld(N namespace) {
+		final int slot = findSlot(keyContext.getCurrentKey(), namespace);
+
+		if (slot < 0) {
+			return null;
+		}
+
+		// copy-on-write check for state
+		final S oldState = isSharedWithSnapshot(slot) ? copyState(states[slot]) : states[slot];
+
+		removeSlot(slot);
+
+		return oldState;
+	}
+
+	@Override
+	public <T> void transform(N namespace, T value, StateTransformationFunction<S, T> transformation) throws Exception {
+		final int slot = putSlot(keyContext.getCurrentKey(), namespace);
+
+		// copy-on-write check for state
+		final S previousState = isSharedWithSnapshot(slot) ? copyState(states[slot]) : states[slot];
+
+		states[slot] = transformation.apply(previousState, value);
+		updateStateVersion(slot);
+	}
+
+	@Override
+	public S get(K key, N namespace) {
+		final int slot = findSlot(key, namespace);
+		return slot >= 0 ? states[slot] : null;
+	}
+
+	@Override
+	public int sizeOfNamespace(Object namespace) {
+		int count = 0;
+		for (int i = 0; i < hashes.length; ++i) {
+			if (hashes[i] != EMPTY_SLOT && namespaces[i].equals(namespace)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	// Private implementation details of the API methods ---------------------------------------------------------------
+
+	/**
+	 * Returns whether this table contains the specified key/namespace composite key.
+	 */
+	boolean containsKey(K key, N namespace) {
+		return findSlot(key, namespace) >= 0;
+	}
+
+	/**
+	 * Maps the specified key/namespace composite key to the specified value.
+	 */
+	void put(K key, N namespace, S value) {
+		final int slot = putSlot(key, namespace);
+
+		states[slot] = value;
+		updateStateVersion(slot);
+	}
+
+	@Override
+	void put(K key, int keyGroup, N namespace, S state) {
+		// the key-group is derived from the stored hash of the key when the table is snapshotted
+		put(key, namespace, state);
+	}
+
+	/**
+	 * Returns the slot of the given composite key, or a negative value if the table contains no such mapping.
+	 */
+	private int findSlot(K key, N namespace) {
+		checkKeyNamespacePreconditions(key, namespace);
+
+		final int hash = keyHash(key);
+		final int[] hashes = this.hashes;
+		final int mask = hashes.length - 1;
+
+		int slot = homeSlot(hash, namespace.hashCode(), mask);
+		int slotHash;
+
+		while ((slotHash = hashes[slot]) != EMPTY_SLOT) {
+			if (slotHash == hash && key.equals(keys[slot]) && namespace.equals(namespaces[slot])) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Helper method that is the basis for operations that add mappings. Returns the slot for the given composite key,
+	 * occupying a new slot (with a null state) if the table contains no such mapping.
+	 */
+	private int putSlot(K key, N namespace) {
+		checkKeyNamespacePreconditions(key, namespace);
+
+		final int hash = keyHash(key);
+		final int namespaceHash = namespace.hashCode();
+
+		int mask = hashes.length - 1;
+		int slot = homeSlot(hash, namespaceHash, mask);
+		int slotHash;
+
+		while ((slotHash = hashes[slot]) != EMPTY_SLOT) {
+			if (slotHash == hash && key.equals(keys[slot]) && namespace.equals(namespaces[slot])) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if (size >= threshold) {
+			doubleCapacity();
+			mask = hashes.length - 1;
+			slot = homeSlot(hash, namespaceHash, mask);
+			while (hashes[slot] != EMPTY_SLOT) {
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		hashes[slot] = hash;
+		keys[slot] = key;
+		namespaces[slot] = namespace;
+		states[slot] = null;
+		updateStateVersion(slot);
+		++size;
+
+		return slot;
+	}
+
+	/**
+	 * Removes the mapping in the given slot. Following mappings of the same cluster are shifted back into the free slot
+	 * if their probe sequence passes the free slot, so that no tombstones are required.
+	 */
+	private void removeSlot(int slot) {
+		final int mask = hashes.length - 1;
+
+		int free = slot;
+		int current = (free + 1) & mask;
+		int currentHash;
+
+		while ((currentHash = hashes[current]) != EMPTY_SLOT) {
+			final int home = homeSlot(currentHash, namespaces[current].hashCode(), mask);
+
+			// the mapping can be moved if the free slot lies between its home slot and its current slot
+			if (((current - home) & mask) >= ((current - free) & mask)) {
+				hashes[free] = currentHash;
+				keys[free] = keys[current];
+				namespaces[free] = namespaces[current];
+				states[free] = states[current];
+				if (stateVersions != null) {
+					stateVersions[free] = stateVersions[current];
+				}
+				free = current;
+			}
+
+			current = (current + 1) & mask;
+		}
+
+		hashes[free] = EMPTY_SLOT;
+		keys[free] = null;
+		namespaces[free] = null;
+		states[free] = null;
+		--size;
+	}
+
+	/**
+	 * Copies all mappings of this table into the given table. The state objects are not copied.
+	 */
+	void copyMappingsTo(StateTable<K, N, S> target) {
+		final int numberOfKeyGroups = keyContext.getNumberOfKeyGroups();
+		for (int i = 0; i < hashes.length; ++i) {
+			if (hashes[i] != EMPTY_SLOT) {
+				target.put(keys[i], keyGroupForHash(hashes[i], numberOfKeyGroups), namespaces[i], states[i]);
+			}
+		}
+	}
+
+	private void checkKeyNamespacePreconditions(K key, N namespace) {
+		Preconditions.checkNotNull(key, "No key set. This method should not be called outside of a keyed context.");
+		Preconditions.checkNotNull(namespace, "Provided namespace is null.");
+	}
+
+	// Private utility functions for StateTable management -------------------------------------------------------------
+
+	/**
+	 * Allocate slot arrays of the given capacity and set the threshold accordingly. The state versions are not
+	 * allocated here.
+	 *
+	 * @param newCapacity must be a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	private void makeTable(int newCapacity) {
+
+		if (newCapacity < MAXIMUM_CAPACITY) {
+			threshold = (newCapacity >> 1) + (newCapacity >> 2); // 3/4 capacity
+		} else {
+			threshold = MAXIMUM_CAPACITY - 1;
+		}
+
+		hashes = new int[newCapacity];
+		keys = (K[]) new Object[newCapacity];
+		namespaces = (N[]) new Object[newCapacity];
+		states = (S[]) new Object[newCapacity];
+	}
+
+	/**
+	 * Doubles the capacity of the hash table and re-inserts all mappings into the new slot arrays. Snapshots hold their
+	 * own copies of the slot arrays, so this does not require any copy-on-write.
+	 */
+	private void doubleCapacity() {
+
+		final int oldCapacity = hashes.length;
+
+		if (oldCapacity == MAXIMUM_CAPACITY) {
+			return;
+		}
+
+		final int[] oldHashes = hashes;
+		final K[] oldKeys = keys;
+		final N[] oldNamespaces = namespaces;
+		final S[] oldStates = states;
+		final int[] oldStateVersions = stateVersions;
+
+		makeTable(oldCapacity * 2);
+		stateVersions = oldStateVersions != null ? new int[oldCapacity * 2] : null;
+
+		final int mask = hashes.length - 1;
+
+		for (int i = 0; i < oldCapacity; ++i) {
+			final int hash = oldHashes[i];
+			if (hash != EMPTY_SLOT) {
+				int slot = homeSlot(hash, oldNamespaces[i].hashCode(), mask);
+				while (hashes[slot] != EMPTY_SLOT) {
+					slot = (slot + 1) & mask;
+				}
+
+				hashes[slot] = hash;
+				keys[slot] = oldKeys[i];
+				namespaces[slot] = oldNamespaces[i];
+				states[slot] = oldStates[i];
+				if (oldStateVersions != null) {
+					stateVersions[slot] = oldStateVersions[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the state in the given slot may be referenced by an unreleased snapshot.
+	 */
+	private boolean isSharedWithSnapshot(int slot) {
+		final int requiredVersion = highestRequiredSnapshotVersion;
+		return requiredVersion != 0 && (stateVersions == null || stateVersions[slot] < requiredVersion);
+	}
+
+	/**
+	 * Marks the state in the given slot as not shared with any snapshot. The state versions are only kept while
+	 * there are unreleased snapshots, afterwards no state is shared and the versions are dropped.
+	 */
+	private void updateStateVersion(int slot) {
+		if (highestRequiredSnapshotVersion == 0) {
+			stateVersions = null;
+		} else {
+			if (stateVersions == null) {
+				// all states that exist at this point have version 0
+				stateVersions = new int[hashes.length];
+			}
+			stateVersions[slot] = stateTableVersion;
+		}
+	}
+
+	/**
+	 * Creates a deep copy of the given state object, unless the state type is immutable.
+	 */
+	private S copyState(S state) {
+		return (state == null || immutableStates) ? state : getStateSerializer().copy(state);
+	}
+
+	/**
+	 * Computes the hash that is stored for a key. This is the hash from which the key-group of the key is computed,
+	 * see {@link KeyGroupRangeAssignment#assignToKeyGroup(Object, int)}, with the {@link #OCCUPIED_BIT} set.
+	 */
+	private static int keyHash(Object key) {
+		return MathUtils.murmurHash(key.hashCode()) | OCCUPIED_BIT;
+	}
+
+	/**
+	 * Returns the key-group of a key from its stored hash.
+	 */
+	static int keyGroupForHash(int hash, int numberOfKeyGroups) {
+		return (hash & ~OCCUPIED_BIT) % numberOfKeyGroups;
+	}
+
+	/**
+	 * Computes the home slot of a mapping from the stored hash of its key and the hash code of its namespace.
+	 */
+	private static int homeSlot(int hash, int namespaceHash, int mask) {
+		return (hash ^ (namespaceHash * NAMESPACE_HASH_MULTIPLIER)) & mask;
+	}
+
+	// Snapshotting ----------------------------------------------------------------------------------------------------
+
+	int getStateTableVersion() {
+		return stateTableVersion;
+	}
+
+	/**
+	 * Increments the version of this table and registers the new version as required by a snapshot. All states that
+	 * exist at this point are then considered as shared with the snapshot. This method must be called by the same
+	 * Thread that does modifications to the {@link CopyOnWriteStateTable}.
+	 *
+	 * @return the version of the snapshot, to be used for releasing the snapshot.
+	 */
+	int registerSnapshotVersion() {
+
+		// we guard against concurrent modifications of highestRequiredSnapshotVersion between snapshot and release.
+		// Only stale reads of the result of #releaseSnapshot calls are ok.
+		synchronized (snapshotVersions) {
+
+			// increase the table version for copy-on-write and register the snapshot
+			++stateTableVersion;
+			highestRequiredSnapshotVersion = stateTableVersion;
+			snapshotVersions.add(highestRequiredSnapshotVersion);
+		}
+
+		return stateTableVersion;
+	}
+
+	// Slot arrays for snapshots, which must copy them because they are modified in place -------------------------------
+
+	int[] getHashes() {
+		return hashes;
+	}
+
+	K[] getKeys() {
+		return keys;
+	}
+
+	N[] getNamespaces() {
+		return namespaces;
+	}
+
+	S[] getStates() {
+		return states;
+	}
+
+	/**
+	 * Creates a snapshot of this {@link CopyOnWriteStateTable}, to be written in checkpointing. The snapshot integrity
+	 * is protected through copy-on-write from the {@link CopyOnWriteStateTable}. Users should call
+	 * {@link #releaseSnapshot(CopyOnWriteStateTableSnapshot)} after using the returned object.
+	 *
+	 * @return a snapshot from this {@link CopyOnWriteStateTable}, for checkpointing.
+	 */
+	@Override
+	CopyOnWriteStateTableSnapshot<K, N, S> createSnapshot() {
+		return new CopyOnWriteStateTableSnapshot<>(this);
+	}
+
+	/**
+	 * Releases a snapshot for this {@link CopyOnWriteStateTable}. This method should be called once a snapshot is no more
+	 * needed, so that the {@link CopyOnWriteStateTable} can stop considering this snapshot for copy-on-write, thus
+	 * avoiding unnecessary object creation.
+	 *
+	 * @param snapshotToRelease the snapshot to release, which was previously created by this state table.
+	 */
+	void releaseSnapshot(CopyOnWriteStateTableSnapshot<K, N, S> snapshotToRelease) {
+
+		Preconditions.checkArgument(snapshotToRelease.isOwner(this),
+				"Cannot release snapshot which is owned by a different state table.");
+
+		releaseSnapshot(snapshotToRelease.getSnapshotVersion());
+	}
+
+	@VisibleForTesting
+	void releaseSnapshot(int snapshotVersion) {
+		// we guard against concurrent modifications of highestRequiredSnapshotVersion between snapshot and release.
+		// Only stale reads of the result of #releaseSnapshot calls are ok.
+		synchronized (snapshotVersions) {
+			Preconditions.checkState(snapshotVersions.remove(snapshotVersion), "Attempt to release unknown snapshot version");
+			highestRequiredSnapshotVersion = snapshotVersions.isEmpty() ? 0 : snapshotVersions.last();
+		}
+	}
+}
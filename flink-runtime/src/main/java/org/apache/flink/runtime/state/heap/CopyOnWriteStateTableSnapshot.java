@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class represents the snapshot of a {@link CopyOnWriteStateTable} and has a role in operator state checkpointing.
+ * Besides holding copies of the {@link CopyOnWriteStateTable}s slot arrays at the time of the snapshot, this class is
+ * also responsible for preparing and writing the state in the process of checkpointing.
+ *
+ * <p>IMPORTANT: Please notice that snapshot integrity of entries in this class rely on proper copy-on-write semantics
+ * through the {@link CopyOnWriteStateTable} that created the snapshot object, but all objects in this snapshot must be
+ * considered as READ-ONLY! The reason is that the objects held by this class may or may not be deep copies of original
+ * objects that may still used in the {@link CopyOnWriteStateTable}. This depends for each entry on whether or not it
+ * was subject to copy-on-write operations by the {@link CopyOnWriteStateTable}. Phrased differently: the
+ * {@link CopyOnWriteStateTable} provides copy-on-write isolation for this snapshot, but this snapshot does not isolate
+ * modifications from the {@link CopyOnWriteStateTable}!
+ *
+ * @param <K> type of key
+ * @param <N> type of namespace
+ * @param <S> type of state
+ */
+class CopyOnWriteStateTableSnapshot<K, N, S> implements StateTableSnapshot {
+
+	/**
+	 * The {@link CopyOnWriteStateTable} from which this snapshot was created.
+	 */
+	private final CopyOnWriteStateTable<K, N, S> owningStateTable;
+
+	/**
+	 * Version of the {@link CopyOnWriteStateTable} when this snapshot was created. This can be used to release the
+	 * snapshot.
+	 */
+	private final int snapshotVersion;
+
+	/**
+	 * The number of entries in the {@link CopyOnWriteStateTable} at the time of creating this snapshot.
+	 */
+	private final int stateTableSize;
+
+	/**
+	 * Copy of the key hashes of the {@link CopyOnWriteStateTable} at the time of creating this snapshot. The
+	 * key-groups of the mappings are computed from these hashes.
+	 */
+	private int[] snapshotHashes;
+
+	/**
+	 * Copy of the keys of the {@link CopyOnWriteStateTable} at the time of creating this snapshot. A null key marks
+	 * an empty slot.
+	 */
+	private K[] snapshotKeys;
+
+	/**
+	 * Copy of the namespaces of the {@link CopyOnWriteStateTable} at the time of creating this snapshot.
+	 */
+	private N[] snapshotNamespaces;
+
+	/**
+	 * Copy of the states of the {@link CopyOnWriteStateTable} at the time of creating this snapshot.
+	 */
+	private S[] snapshotStates;
+
+	/**
+	 * A local duplicate of the table's key serializer. The original serializer is still used by the owning thread.
+	 */
+	private final TypeSerializer<K> localKeySerializer;
+
+	/**
+	 * A local duplicate of the table's namespace serializer.
+	 */
+	private final TypeSerializer<N> localNamespaceSerializer;
+
+	/**
+	 * A local duplicate of the table's state serializer.
+	 */
+	private final TypeSerializer<S> localStateSerializer;
+
+	/**
+	 * The key-group range of the backend that owns the table.
+	 */
+	private final KeyGroupRange keyGroupRange;
+
+	/**
+	 * The total number of key-groups in the job, needed to compute the key-group of a key from its hash.
+	 */
+	private final int totalKeyGroups;
+
+	/**
+	 * The slots of the snapshot, partitioned by key-group. Computed lazily by the first write.
+	 */
+	private int[] partitionedSlots;
+
+	/**
+	 * Offsets into {@link #partitionedSlots}. The slots of the i-th key-group of the range are found between
+	 * {@code keyGroupOffsets[i]} (inclusive) and {@code keyGroupOffsets[i + 1]} (exclusive).
+	 */
+	private int[] keyGroupOffsets;
+
+	/**
+	 * Whether this snapshot was already released.
+	 */
+	private boolean released;
+
+	/**
+	 * Creates a new {@link CopyOnWriteStateTableSnapshot}. This is the synchronous part of the snapshot.
+	 *
+	 * @param owningStateTable the {@link CopyOnWriteStateTable} for which this object represents a snapshot.
+	 */
+	CopyOnWriteStateTableSnapshot(CopyOnWriteStateTable<K, N, S> owningStateTable) {
+
+		this.owningStateTable = Preconditions.checkNotNull(owningStateTable);
+		this.snapshotVersion = owningStateTable.registerSnapshotVersion();
+		this.stateTableSize = owningStateTable.size();
+
+		final int[] hashes = owningStateTable.getHashes();
+		final K[] keys = owningStateTable.getKeys();
+		final N[] namespaces = owningStateTable.getNamespaces();
+		final S[] states = owningStateTable.getStates();
+
+		this.snapshotHashes = Arrays.copyOf(hashes, hashes.length);
+		this.snapshotKeys = Arrays.copyOf(keys, keys.length);
+		this.snapshotNamespaces = Arrays.copyOf(namespaces, namespaces.length);
+		this.snapshotStates = Arrays.copyOf(states, states.length);
+
+		this.localKeySerializer = owningStateTable.keyContext.getKeySerializer().duplicate();
+		this.localNamespaceSerializer = owningStateTable.getNamespaceSerializer().duplicate();
+		this.localStateSerializer = owningStateTable.getStateSerializer().duplicate();
+
+		this.keyGroupRange = owningStateTable.keyContext.getKeyGroupRange();
+		this.totalKeyGroups = owningStateTable.keyContext.getNumberOfKeyGroups();
+	}
+
+	/**
+	 * Returns the internal version of the {@link CopyOnWriteStateTable} when this snapshot was created. This value must
+	 * be used to tell the {@link CopyOnWriteStateTable} when to release this snapshot.
+	 */
+	int getSnapshotVersion() {
+		return snapshotVersion;
+	}
+
+	/**
+	 * Partitions the slots of the snapshot by key-group. The algorithm first computes the key-group of each mapping from
+	 * the stored hash of its key and builds a histogram for the distribution of the key-groups. Then, the histogram is accumulated to obtain the boundaries of each key-group in an array.
+	 * Last, we use the accumulated counts as write position pointers for the key-group's bins when sorting the slot
+	 * indexes by key-group. This operation is lazily performed before the first writing of a key-group.
+	 */
+	private void partitionSlotsByKeyGroup() {
+
+		final int baseKeyGroup = keyGroupRange.getStartKeyGroup();
+		final int numKeyGroups = keyGroupRange.getNumberOfKeyGroups();
+		final int[] histogram = new int[numKeyGroups + 1];
+
+		// compute the key-groups and build their histogram, the hash array is reused for the key-groups
+		final int[] keyGroups = snapshotHashes;
+		int count = 0;
+		for (int slot = 0; slot < keyGroups.length; ++slot) {
+			if (snapshotKeys[slot] != null) {
+				keyGroups[slot] = CopyOnWriteStateTable.keyGroupForHash(keyGroups[slot], totalKeyGroups) - baseKeyGroup;
+				++histogram[keyGroups[slot] + 1];
+				++count;
+			}
+		}
+
+		Preconditions.checkState(count == stateTableSize,
+				"Inconsistent snapshot, expected %s entries but found %s.", stateTableSize, count);
+
+		// accumulate the histogram to obtain the start offset of each key-group
+		for (int i = 1; i < histogram.length; ++i) {
+			histogram[i] += histogram[i - 1];
+		}
+
+		this.keyGroupOffsets = histogram.clone();
+
+		// sort the occupied slots, using the histogram as write position of each key-group
+		final int[] partitioned = new int[stateTableSize];
+
+		for (int slot = 0; slot < keyGroups.length; ++slot) {
+			if (snapshotKeys[slot] != null) {
+				partitioned[histogram[keyGroups[slot]]++] = slot;
+			}
+		}
+
+		this.partitionedSlots = partitioned;
+
+		// the hashes and key-groups are no longer needed
+		this.snapshotHashes = null;
+	}
+
+	@Override
+	public void writeMappingsInKeyGroup(DataOutputView dov, int keyGroupId) throws IOException {
+
+		if (null == partitionedSlots) {
+			partitionSlotsByKeyGroup();
+		}
+
+		final int keyGroupIndex = keyGroupId - keyGroupRange.getStartKeyGroup();
+		final int startOffset = keyGroupOffsets[keyGroupIndex];
+		final int endOffset = keyGroupOffsets[keyGroupIndex + 1];
+
+		if (startOffset == endOffset) {
+			dov.writeByte(0);
+			return;
+		}
+
+		dov.writeByte(1);
+
+		// group the slots of the key-group by namespace, as expected by the checkpoint format
+		final Map<N, List<Integer>> slotsByNamespace = new HashMap<>();
+
+		for (int i = startOffset; i < endOffset; ++i) {
+			final int slot = partitionedSlots[i];
+
+			List<Integer> slots = slotsByNamespace.get(snapshotNamespaces[slot]);
+			if (slots == null) {
+				slots = new ArrayList<>();
+				slotsByNamespace.put(snapshotNamespaces[slot], slots);
+			}
+			slots.add(slot);
+		}
+
+		// number of namespaces
+		dov.writeInt(slotsByNamespace.size());
+		for (Map.Entry<N, List<Integer>> namespace : slotsByNamespace.entrySet()) {
+			localNamespaceSerializer.serialize(namespace.getKey(), dov);
+
+			final List<Integer> slots = namespace.getValue();
+
+			// number of entries
+			dov.writeInt(slots.size());
+			for (int slot : slots) {
+				localKeySerializer.serialize(snapshotKeys[slot], dov);
+				localStateSerializer.serialize(snapshotStates[slot], dov);
+			}
+		}
+	}
+
+	/**
+	 * Cheap way to check if a snapshot was created by the given {@link CopyOnWriteStateTable}.
+	 */
+	boolean isOwner(CopyOnWriteStateTable<K, N, S> stateTable) {
+		return stateTable == owningStateTable;
+	}
+
+	/**
+	 * Releases this snapshot, so that the {@link CopyOnWriteStateTable} no longer has to copy states that are only
+	 * shared with this snapshot.
+	 */
+	@Override
+	public void release() {
+		if (!released) {
+			released = true;
+			owningStateTable.releaseSnapshot(this);
+		}
+
+		snapshotHashes = null;
+		snapshotKeys = null;
+		snapshotNamespaces = null;
+		snapshotStates = null;
+		partitionedSlots = null;
+	}
+}
@@ -27,7 +27,6 @@ import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.internal.InternalAggregatingState;
 
 import java.io.IOException;
-import java.util.Map;
 
 import static org.apache.flink.util.Preconditions.checkState;
 
@@ -76,63 +75,38 @@ public class HeapAggregatingState<K, N, IN, ACC, OUT>
 
 	@Override
 	public OUT get() {
-		final K key = backend.getCurrentKey();
-
 		checkState(currentNamespace != null, "No namespace set.");
-		checkState(key != null, "No key set.");
-
-		Map<N, Map<K, ACC>> namespaceMap =
-				stateTable.get(backend.getCurrentKeyGroupIndex());
-
-		if (namespaceMap == null) {
-			return null;
-		}
+		checkState(backend.getCurrentKey() != null, "No key set.");
 
-		Map<K, ACC> keyedMap = namespaceMap.get(currentNamespace);
+		ACC accumulator = stateTable.get(currentNamespace);
 
-		if (keyedMap == null) {
+		if (accumulator == null) {
 			return null;
 		}
 
-		ACC accumulator = keyedMap.get(key);
 		return aggFunction.getResult(accumulator);
 	}
 
 	@Override
 	public void add(IN value) throws IOException {
-		final K key = backend.getCurrentKey();
-
 		checkState(currentNamespace != null, "No namespace set.");
-		checkState(key != null, "No key set.");
+		checkState(backend.getCurrentKey() != null, "No key set.");
 
 		if (value == null) {
 			clear();
 			return;
 		}
 
-		Map<N, Map<K, ACC>> namespaceMap =
-				stateTable.get(backend.getCurrentKeyGroupIndex());
-
-		if (namespaceMap == null) {
-			namespaceMap = createNewMap();
-			stateTable.set(backend.getCurrentKeyGroupIndex(), namespaceMap);
-		}
-
-		Map<K, ACC> keyedMap = namespaceMap.get(currentNamespace);
-
-		if (keyedMap == null) {
-			keyedMap = createNewMap();
-			namespaceMap.put(currentNamespace, keyedMap);
-		}
+		// the accumulator is updated in place, the state table hands out a copy if it is
+		// still referenced by a running snapshot
+		ACC accumulator = stateTable.get(currentNamespace);
 
 		// if this is the first value for the key, create a new accumulator
-		ACC accumulator = keyedMap.get(key);
 		if (accumulator == null) {
 			accumulator = aggFunction.createAccumulator();
-			keyedMap.put(key, accumulator);
+			stateTable.put(currentNamespace, accumulator);
 		}
 
-		// 
 		aggFunction.add(value, accumulator);
 	}
 
@@ -27,7 +27,6 @@ import org.apache.flink.runtime.state.internal.InternalFoldingState;
 import org.apache.flink.util.Preconditions;
 
 import java.io.IOException;
-import java.util.Map;
 
 /**
  * Heap-backed partitioned {@link FoldingState} that is
@@ -45,6 +44,9 @@ public class HeapFoldingState<K, N, T, ACC>
 	/** The function used to fold the state */
 	private final FoldFunction<T, ACC> foldFunction;
 
+	/** The transformation that folds a value into the state */
+	private final FoldTransformation foldTransformation;
+
 	/**
 	 * Creates a new key/value state for the given hash map of key/value pairs.
 	 *
@@ -61,6 +63,7 @@ public class HeapFoldingState<K, N, T, ACC>
 			TypeSerializer<N> namespaceSerializer) {
 		super(backend, stateDesc, stateTable, keySerializer, namespaceSerializer);
 		this.foldFunction = stateDesc.getFoldFunction();
+		this.foldTransformation = new FoldTransformation();
 	}
 
 	// ------------------------------------------------------------------------
@@ -72,20 +75,7 @@ public class HeapFoldingState<K, N, T, ACC>
 		Preconditions.checkState(currentNamespace != null, "No namespace set.");
 		Preconditions.checkState(backend.getCurrentKey() != null, "No key set.");
 
-		Map<N, Map<K, ACC>> namespaceMap =
-				stateTable.get(backend.getCurrentKeyGroupIndex());
-
-		if (namespaceMap == null) {
-			return null;
-		}
-
-		Map<K, ACC> keyedMap = namespaceMap.get(currentNamespace);
-
-		if (keyedMap == null) {
-			return null;
-		}
-
-		return keyedMap.get(backend.<K>getCurrentKey());
+		return stateTable.get(currentNamespace);
 	}
 
 	@Override
@@ -98,33 +88,20 @@ public class HeapFoldingState<K, N, T, ACC>
 			return;
 		}
 
-		Map<N, Map<K, ACC>> namespaceMap =
-				stateTable.get(backend.getCurrentKeyGroupIndex());
-
-		if (namespaceMap == null) {
-			namespaceMap = createNewMap();
-			stateTable.set(backend.getCurrentKeyGroupIndex(), namespaceMap);
-		}
-
-		Map<K, ACC> keyedMap = namespaceMap.get(currentNamespace);
-
-		if (keyedMap == null) {
-			keyedMap = createNewMap();
-			namespaceMap.put(currentNamespace, keyedMap);
+		try {
+			stateTable.transform(currentNamespace, value, foldTransformation);
+		} catch (Exception e) {
+			throw new RuntimeException("Could not add value to folding state.", e);
 		}
+	}
 
-		ACC currentValue = keyedMap.get(backend.<K>getCurrentKey());
+	// ------------------------------------------------------------------------
 
-		try {
+	private final class FoldTransformation implements StateTransformationFunction<ACC, T> {
 
-			if (currentValue == null) {
-				keyedMap.put(backend.<K>getCurrentKey(),
-						foldFunction.fold(stateDesc.getDefaultValue(), value));
-			} else {
-				keyedMap.put(backend.<K>getCurrentKey(), foldFunction.fold(currentValue, value));
-			}
-		} catch (Exception e) {
-			throw new RuntimeException("Could not add value to folding state.", e);
+		@Override
+		public ACC apply(ACC previousState, T value) throws Exception {
+			return foldFunction.fold(previousState != null ? previousState : stateDesc.getDefaultValue(), value);
 		}
 	}
 }
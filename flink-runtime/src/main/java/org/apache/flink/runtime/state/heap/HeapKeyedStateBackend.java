@@ -34,20 +34,23 @@ import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.fs.FileSystem;
 import org.apache.flink.core.memory.DataInputView;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
-import org.apache.flink.core.memory.DataOutputView;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
 import org.apache.flink.migration.MigrationUtil;
 import org.apache.flink.migration.runtime.state.KvStateSnapshot;
 import org.apache.flink.migration.runtime.state.filesystem.AbstractFsStateSnapshot;
 import org.apache.flink.migration.runtime.state.memory.AbstractMemStateSnapshot;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.io.async.AbstractAsyncIOCallable;
+import org.apache.flink.runtime.io.async.AsyncStoppableTaskWithCallback;
 import org.apache.flink.runtime.query.TaskKvStateRegistry;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
 import org.apache.flink.runtime.state.ArrayListSerializer;
 import org.apache.flink.runtime.state.CheckpointStreamFactory;
 import org.apache.flink.runtime.state.DoneFuture;
 import org.apache.flink.runtime.state.HashMapSerializer;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
 import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.KeyedBackendSerializationProxy;
@@ -89,12 +92,18 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 * Map of state tables that stores all state of key/value states. We store it centrally so
 	 * that we can easily checkpoint/restore it.
 	 *
-	 * <p>The actual parameters of StateTable are {@code StateTable<NamespaceT, Map<KeyT, StateT>>}
+	 * <p>The actual parameters of StateTable are {@code StateTable<KeyT, NamespaceT, StateT>}
 	 * but we can't put them here because different key/value states with different types and
 	 * namespace types share this central list of tables.
 	 */
 	private final Map<String, StateTable<K, ?, ?>> stateTables = new HashMap<>();
 
+	/**
+	 * Determines whether or not we run snapshots asynchronously. This impacts the choice of the underlying
+	 * {@link StateTable} implementation for queryable state.
+	 */
+	private final boolean asynchronousSnapshots;
+
 	public HeapKeyedStateBackend(
 			TaskKvStateRegistry kvStateRegistry,
 			TypeSerializer<K> keySerializer,
@@ -102,9 +111,22 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			int numberOfKeyGroups,
 			KeyGroupRange keyGroupRange) {
 
+		this(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange, false);
+	}
+
+	public HeapKeyedStateBackend(
+			TaskKvStateRegistry kvStateRegistry,
+			TypeSerializer<K> keySerializer,
+			ClassLoader userCodeClassLoader,
+			int numberOfKeyGroups,
+			KeyGroupRange keyGroupRange,
+			boolean asynchronousSnapshots) {
+
 		super(kvStateRegistry, keySerializer, userCodeClassLoader, numberOfKeyGroups, keyGroupRange);
+		this.asynchronousSnapshots = asynchronousSnapshots;
 
-		LOG.info("Initializing heap keyed state backend with stream factory.");
+		LOG.info("Initializing heap keyed state backend with stream factory ({} snapshots).",
+				asynchronousSnapshots ? "asynchronous" : "synchronous");
 	}
 
 	// ------------------------------------------------------------------------
@@ -114,25 +136,24 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	private <N, V> StateTable<K, N, V> tryRegisterStateTable(
 			TypeSerializer<N> namespaceSerializer, StateDescriptor<?, V> stateDesc) {
 
-		return tryRegisterStateTable(
-				stateDesc.getName(), stateDesc.getType(),
-				namespaceSerializer, stateDesc.getSerializer());
+		return tryRegisterStateTable(namespaceSerializer, stateDesc, stateDesc.getSerializer());
 	}
 
 	private <N, V> StateTable<K, N, V> tryRegisterStateTable(
-			String stateName,
-			StateDescriptor.Type stateType,
-			TypeSerializer<N> namespaceSerializer, 
+			TypeSerializer<N> namespaceSerializer,
+			StateDescriptor<?, ?> stateDesc,
 			TypeSerializer<V> valueSerializer) {
 
+		final String stateName = stateDesc.getName();
+
 		final RegisteredBackendStateMetaInfo<N, V> newMetaInfo =
-				new RegisteredBackendStateMetaInfo<>(stateType, stateName, namespaceSerializer, valueSerializer);
+				new RegisteredBackendStateMetaInfo<>(stateDesc.getType(), stateName, namespaceSerializer, valueSerializer);
 
 		@SuppressWarnings("unchecked")
 		StateTable<K, N, V> stateTable = (StateTable<K, N, V>) stateTables.get(stateName);
 
 		if (stateTable == null) {
-			stateTable = new StateTable<>(newMetaInfo, keyGroupRange);
+			stateTable = newStateTable(newMetaInfo, stateDesc.isQueryable());
 			stateTables.put(stateName, stateTable);
 		} else {
 			if (!newMetaInfo.isCompatibleWith(stateTable.getMetaInfo())) {
@@ -140,10 +161,35 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 						stateTable.getMetaInfo() + " trying access with " + newMetaInfo);
 			}
 			stateTable.setMetaInfo(newMetaInfo);
+
+			// tables of restored state are created before we know whether the state is queryable
+			if (stateDesc.isQueryable() && stateTable instanceof CopyOnWriteStateTable) {
+				StateTable<K, N, V> queryableStateTable = newStateTable(newMetaInfo, true);
+				((CopyOnWriteStateTable<K, N, V>) stateTable).copyMappingsTo(queryableStateTable);
+				stateTable = queryableStateTable;
+				stateTables.put(stateName, stateTable);
+			}
 		}
+
 		return stateTable;
 	}
 
+	/**
+	 * Creates the table for a state. All state is held in the flat {@link CopyOnWriteStateTable}, except for
+	 * queryable state: queryable state is read concurrently to the task thread, which is only supported by the
+	 * {@link NestedMapsStateTable} with concurrent maps. Asynchronous snapshots of these tables serialize the
+	 * mappings in the synchronous part of the snapshot.
+	 */
+	private <N, V> StateTable<K, N, V> newStateTable(RegisteredBackendStateMetaInfo<N, V> newMetaInfo, boolean queryable) {
+		if (queryable) {
+			NestedMapsStateTable<K, N, V> stateTable = new NestedMapsStateTable<>(this, newMetaInfo);
+			stateTable.useConcurrentMaps();
+			return stateTable;
+		} else {
+			return new CopyOnWriteStateTable<>(this, newMetaInfo);
+		}
+	}
+
 	@Override
 	public <N, V> InternalValueState<N, V> createValueState(
 			TypeSerializer<N> namespaceSerializer,
@@ -163,9 +209,8 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		// using a more specialized implementation opens up runtime optimizations
 
 		StateTable<K, N, ArrayList<T>> stateTable = tryRegisterStateTable(
-				stateDesc.getName(),
-				stateDesc.getType(),
 				namespaceSerializer,
+				stateDesc,
 				new ArrayListSerializer<T>(stateDesc.getElementSerializer()));
 
 		return new HeapListState<>(this, stateDesc, stateTable, keySerializer, namespaceSerializer);
@@ -203,9 +248,8 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 			MapStateDescriptor<UK, UV> stateDesc) throws Exception {
 		
 		StateTable<K, N, HashMap<UK, UV>> stateTable = tryRegisterStateTable(
-				stateDesc.getName(),
-				stateDesc.getType(),
 				namespaceSerializer,
+				stateDesc,
 				new HashMapSerializer<>(stateDesc.getKeySerializer(), stateDesc.getValueSerializer()));
 		
 		return new HeapMapState<>(this, stateDesc, stateTable, keySerializer, namespaceSerializer);
@@ -214,63 +258,138 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	@Override
 	@SuppressWarnings("unchecked")
 	public RunnableFuture<KeyGroupsStateHandle> snapshot(
-			long checkpointId,
-			long timestamp,
-			CheckpointStreamFactory streamFactory,
+			final long checkpointId,
+			final long timestamp,
+			final CheckpointStreamFactory streamFactory,
 			CheckpointOptions checkpointOptions) throws Exception {
 
 		if (stateTables.isEmpty()) {
 			return new DoneFuture<>(null);
 		}
 
-		try (CheckpointStreamFactory.CheckpointStateOutputStream stream = streamFactory.
-				createCheckpointStateOutputStream(checkpointId, timestamp)) {
+		long syncStartTime = System.currentTimeMillis();
 
-			DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(stream);
+		Preconditions.checkState(stateTables.size() <= Short.MAX_VALUE,
+				"Too many KV-States: " + stateTables.size() +
+						". Currently at most " + Short.MAX_VALUE + " states are supported");
 
-			Preconditions.checkState(stateTables.size() <= Short.MAX_VALUE,
-					"Too many KV-States: " + stateTables.size() +
-							". Currently at most " + Short.MAX_VALUE + " states are supported");
+		final List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> metaInfoProxyList = new ArrayList<>(stateTables.size());
 
-			List<KeyedBackendSerializationProxy.StateMetaInfo<?, ?>> metaInfoProxyList = new ArrayList<>(stateTables.size());
+		// the snapshots of the tables, the position in the list is the id of the state in the checkpoint
+		final List<StateTableSnapshot> stateTableSnapshots = new ArrayList<>(stateTables.size());
 
-			Map<String, Integer> kVStateToId = new HashMap<>(stateTables.size());
+		for (Map.Entry<String, StateTable<K, ?, ?>> kvState : stateTables.entrySet()) {
 
-			for (Map.Entry<String, StateTable<K, ?, ?>> kvState : stateTables.entrySet()) {
+			RegisteredBackendStateMetaInfo<?, ?> metaInfo = kvState.getValue().getMetaInfo();
+			KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy = new KeyedBackendSerializationProxy.StateMetaInfo(
+					metaInfo.getStateType(),
+					metaInfo.getName(),
+					metaInfo.getNamespaceSerializer(),
+					metaInfo.getStateSerializer());
 
-				RegisteredBackendStateMetaInfo<?, ?> metaInfo = kvState.getValue().getMetaInfo();
-				KeyedBackendSerializationProxy.StateMetaInfo<?, ?> metaInfoProxy = new KeyedBackendSerializationProxy.StateMetaInfo(
-						metaInfo.getStateType(),
-						metaInfo.getName(),
-						metaInfo.getNamespaceSerializer(),
-						metaInfo.getStateSerializer());
+			metaInfoProxyList.add(metaInfoProxy);
 
-				metaInfoProxyList.add(metaInfoProxy);
-				kVStateToId.put(kvState.getKey(), kVStateToId.size());
+			final StateTable<K, ?, ?> stateTable = kvState.getValue();
+			if (asynchronousSnapshots && stateTable instanceof NestedMapsStateTable) {
+				// the nested maps are modified in place, so their mappings are copied right away
+				try {
+					stateTableSnapshots.add(((NestedMapsStateTable<K, ?, ?>) stateTable).createSerializedSnapshot());
+				} catch (Exception e) {
+					releaseSnapshots(stateTableSnapshots);
+					throw e;
+				}
+			} else {
+				stateTableSnapshots.add(stateTable.createSnapshot());
 			}
+		}
 
-			KeyedBackendSerializationProxy serializationProxy =
-					new KeyedBackendSerializationProxy(keySerializer, metaInfoProxyList);
+		final KeyedBackendSerializationProxy serializationProxy =
+				new KeyedBackendSerializationProxy(keySerializer, metaInfoProxyList);
 
-			serializationProxy.write(outView);
+		if (!asynchronousSnapshots) {
+			try (CheckpointStreamFactory.CheckpointStateOutputStream stream = streamFactory.
+					createCheckpointStateOutputStream(checkpointId, timestamp)) {
 
-			int offsetCounter = 0;
-			long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+				return new DoneFuture<>(writeSnapshot(stream, serializationProxy, stateTableSnapshots));
+			} finally {
+				releaseSnapshots(stateTableSnapshots);
+			}
+		}
 
-			for (int keyGroupIndex = keyGroupRange.getStartKeyGroup(); keyGroupIndex <= keyGroupRange.getEndKeyGroup(); keyGroupIndex++) {
-				keyGroupRangeOffsets[offsetCounter++] = stream.getPos();
-				outView.writeInt(keyGroupIndex);
-				for (Map.Entry<String, StateTable<K, ?, ?>> kvState : stateTables.entrySet()) {
-					outView.writeShort(kVStateToId.get(kvState.getKey()));
-					writeStateTableForKeyGroup(outView, kvState.getValue(), keyGroupIndex);
-				}
+		// implementation of the async IO operation, based on FutureTask
+		AbstractAsyncIOCallable<KeyGroupsStateHandle, CheckpointStreamFactory.CheckpointStateOutputStream> ioCallable =
+				new AbstractAsyncIOCallable<KeyGroupsStateHandle, CheckpointStreamFactory.CheckpointStateOutputStream>() {
+
+					@Override
+					public CheckpointStreamFactory.CheckpointStateOutputStream openIOHandle() throws Exception {
+						CheckpointStreamFactory.CheckpointStateOutputStream stream =
+								streamFactory.createCheckpointStateOutputStream(checkpointId, timestamp);
+						cancelStreamRegistry.registerClosable(stream);
+						return stream;
+					}
+
+					@Override
+					public KeyGroupsStateHandle performOperation() throws Exception {
+						long asyncStartTime = System.currentTimeMillis();
+
+						CheckpointStreamFactory.CheckpointStateOutputStream stream = getIoHandle();
+
+						try {
+							return writeSnapshot(stream, serializationProxy, stateTableSnapshots);
+						} finally {
+							cancelStreamRegistry.unregisterClosable(stream);
+
+							LOG.info("Heap backend snapshot ({}, asynchronous part) in thread {} took {} ms.",
+									streamFactory, Thread.currentThread(), (System.currentTimeMillis() - asyncStartTime));
+						}
+					}
+
+					@Override
+					public void done(boolean canceled) {
+						releaseSnapshots(stateTableSnapshots);
+					}
+				};
+
+		LOG.info("Heap backend snapshot (" + streamFactory + ", synchronous part) in thread " +
+				Thread.currentThread() + " took " + (System.currentTimeMillis() - syncStartTime) + " ms.");
+
+		return AsyncStoppableTaskWithCallback.from(ioCallable);
+	}
+
+	/**
+	 * Writes the given state table snapshots, key-group by key-group, to the given stream and returns
+	 * the handle to the written state.
+	 */
+	private KeyGroupsStateHandle writeSnapshot(
+			CheckpointStreamFactory.CheckpointStateOutputStream stream,
+			KeyedBackendSerializationProxy serializationProxy,
+			List<StateTableSnapshot> stateTableSnapshots) throws IOException {
+
+		DataOutputViewStreamWrapper outView = new DataOutputViewStreamWrapper(stream);
+
+		serializationProxy.write(outView);
+
+		int offsetCounter = 0;
+		long[] keyGroupRangeOffsets = new long[keyGroupRange.getNumberOfKeyGroups()];
+
+		for (int keyGroupIndex = keyGroupRange.getStartKeyGroup(); keyGroupIndex <= keyGroupRange.getEndKeyGroup(); keyGroupIndex++) {
+			keyGroupRangeOffsets[offsetCounter++] = stream.getPos();
+			outView.writeInt(keyGroupIndex);
+			for (int kvStateId = 0; kvStateId < stateTableSnapshots.size(); kvStateId++) {
+				outView.writeShort(kvStateId);
+				stateTableSnapshots.get(kvStateId).writeMappingsInKeyGroup(outView, keyGroupIndex);
 			}
+		}
 
-			StreamStateHandle streamStateHandle = stream.closeAndGetHandle();
+		StreamStateHandle streamStateHandle = stream.closeAndGetHandle();
 
-			KeyGroupRangeOffsets offsets = new KeyGroupRangeOffsets(keyGroupRange, keyGroupRangeOffsets);
-			final KeyGroupsStateHandle keyGroupsStateHandle = new KeyGroupsStateHandle(offsets, streamStateHandle);
-			return new DoneFuture<>(keyGroupsStateHandle);
+		KeyGroupRangeOffsets offsets = new KeyGroupRangeOffsets(keyGroupRange, keyGroupRangeOffsets);
+		return new KeyGroupsStateHandle(offsets, streamStateHandle);
+	}
+
+	private static void releaseSnapshots(List<StateTableSnapshot> stateTableSnapshots) {
+		for (StateTableSnapshot stateTableSnapshot : stateTableSnapshots) {
+			stateTableSnapshot.release();
 		}
 	}
 
@@ -290,37 +409,6 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		}
 	}
 
-	private <N, S> void writeStateTableForKeyGroup(
-			DataOutputView outView,
-			StateTable<K, N, S> stateTable,
-			int keyGroupIndex) throws IOException {
-
-		TypeSerializer<N> namespaceSerializer = stateTable.getNamespaceSerializer();
-		TypeSerializer<S> stateSerializer = stateTable.getStateSerializer();
-
-		Map<N, Map<K, S>> namespaceMap = stateTable.get(keyGroupIndex);
-		if (namespaceMap == null) {
-			outView.writeByte(0);
-		} else {
-			outView.writeByte(1);
-
-			// number of namespaces
-			outView.writeInt(namespaceMap.size());
-			for (Map.Entry<N, Map<K, S>> namespace : namespaceMap.entrySet()) {
-				namespaceSerializer.serialize(namespace.getKey(), outView);
-
-				Map<K, S> entryMap = namespace.getValue();
-
-				// number of entries
-				outView.writeInt(entryMap.size());
-				for (Map.Entry<K, S> entry : entryMap.entrySet()) {
-					keySerializer.serialize(entry.getKey(), outView);
-					stateSerializer.serialize(entry.getValue(), outView);
-				}
-			}
-		}
-	}
-
 	@SuppressWarnings({"unchecked"})
 	private void restorePartitionedState(Collection<KeyGroupsStateHandle> state) throws Exception {
 
@@ -333,6 +421,11 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 				continue;
 			}
 
+			if (keyGroupsHandle instanceof IncrementalKeyGroupsStateHandle) {
+				throw new IllegalStateException("The heap keyed state backend cannot restore state from " +
+						"an incremental checkpoint of another state backend: " + keyGroupsHandle);
+			}
+
 			FSDataInputStream fsDataInputStream = keyGroupsHandle.openInputStream();
 			cancelStreamRegistry.registerClosable(fsDataInputStream);
 
@@ -357,7 +450,7 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 						RegisteredBackendStateMetaInfo<?, ?> registeredBackendStateMetaInfo =
 								new RegisteredBackendStateMetaInfo<>(metaInfoSerializationProxy);
 
-						stateTable = new StateTable<>(registeredBackendStateMetaInfo, keyGroupRange);
+						stateTable = newStateTable(registeredBackendStateMetaInfo, false);
 						stateTables.put(metaInfoSerializationProxy.getStateName(), stateTable);
 						kvStatesById.put(numRegisteredKvStates, metaInfoSerializationProxy.getStateName());
 						++numRegisteredKvStates;
@@ -401,20 +494,15 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 		TypeSerializer<N> namespaceSerializer = stateTable.getNamespaceSerializer();
 		TypeSerializer<S> stateSerializer = stateTable.getStateSerializer();
 
-		Map<N, Map<K, S>> namespaceMap = new HashMap<>();
-		stateTable.set(keyGroupIndex, namespaceMap);
-
 		int numNamespaces = inView.readInt();
 		for (int k = 0; k < numNamespaces; k++) {
 			N namespace = namespaceSerializer.deserialize(inView);
-			Map<K, S> entryMap = new HashMap<>();
-			namespaceMap.put(namespace, entryMap);
 
 			int numEntries = inView.readInt();
 			for (int l = 0; l < numEntries; l++) {
 				K key = keySerializer.deserialize(inView);
 				S state = stateSerializer.deserialize(inView);
-				entryMap.put(key, state);
+				stateTable.put(key, keyGroupIndex, namespace, state);
 			}
 		}
 	}
@@ -483,8 +571,16 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 							namespaceSerializer,
 							stateSerializer);
 
-			StateTable<K, ?, ?> stateTable = new StateTable<>(registeredBackendStateMetaInfo, keyGroupRange);
-			stateTable.getState()[0] = rawResultMap;
+			StateTable<K, Object, Object> stateTable =
+					(StateTable<K, Object, Object>) newStateTable(registeredBackendStateMetaInfo, false);
+
+			Map<Object, Map<K, Object>> namespaceMap = (Map<Object, Map<K, Object>>) rawResultMap;
+			for (Map.Entry<Object, Map<K, Object>> namespace : namespaceMap.entrySet()) {
+				for (Map.Entry<K, Object> entry : namespace.getValue().entrySet()) {
+					int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(entry.getKey(), numberOfKeyGroups);
+					stateTable.put(entry.getKey(), keyGroup, namespace.getKey(), entry.getValue());
+				}
+			}
 
 			// add named state to the backend
 			stateTables.put(registeredBackendStateMetaInfo.getName(), stateTable);
@@ -561,19 +657,10 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 * Returns the total number of state entries across all keys/namespaces.
 	 */
 	@VisibleForTesting
-	@SuppressWarnings("unchecked")
 	public int numStateEntries() {
 		int sum = 0;
 		for (StateTable<K, ?, ?> stateTable : stateTables.values()) {
-			for (Map namespaceMap : stateTable.getState()) {
-				if (namespaceMap == null) {
-					continue;
-				}
-				Map<?, Map> typedMap = (Map<?, Map>) namespaceMap;
-				for (Map entriesMap : typedMap.values()) {
-					sum += entriesMap.size();
-				}
-			}
+			sum += stateTable.size();
 		}
 		return sum;
 	}
@@ -582,22 +669,18 @@ public class HeapKeyedStateBackend<K> extends AbstractKeyedStateBackend<K> {
 	 * Returns the total number of state entries across all keys for the given namespace.
 	 */
 	@VisibleForTesting
-	@SuppressWarnings("unchecked")
-	public <N> int numStateEntries(N namespace) {
+	public int numStateEntries(Object namespace) {
 		int sum = 0;
 		for (StateTable<K, ?, ?> stateTable : stateTables.values()) {
-			for (Map namespaceMap : stateTable.getState()) {
-				if (namespaceMap == null) {
-					continue;
-				}
-				Map<?, Map> typedMap = (Map<?, Map>) namespaceMap;
-				Map singleNamespace = typedMap.get(namespace);
-				if (singleNamespace != null) {
-					sum += singleNamespace.size();
-				}
-			}
+			sum += stateTable.sizeOfNamespace(namespace);
 		}
 		return sum;
 	}
 
+	/**
+	 * Returns whether this backend takes its snapshots asynchronously.
+	 */
+	public boolean supportsAsynchronousSnapshots() {
+		return asynchronousSnapshots;
+	}
 }
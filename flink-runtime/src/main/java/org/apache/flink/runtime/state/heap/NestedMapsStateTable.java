@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+import org.apache.flink.util.Preconditions;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This implementation of {@link StateTable} uses nested {@link HashMap} objects. It is also maintaining a partitioning
+ * by key-group.
+ *
+ * <p>In contrast to {@link CopyOnWriteStateTable}, this implementation does not support asynchronous snapshots.
+ * However, it might have a better memory footprint for some use-cases, e.g. it is naturally de-duplicating namespace
+ * objects. If the state is queryable, the maps are {@link ConcurrentHashMap concurrent maps}, so that queries may
+ * access them concurrently to the task thread.
+ *
+ * @param <K> type of key.
+ * @param <N> type of namespace.
+ * @param <S> type of state.
+ */
+public class NestedMapsStateTable<K, N, S> extends StateTable<K, N, S> {
+
+	/**
+	 * Map for holding the actual state objects. The outer array represents the key-groups. The nested maps provide
+	 * an outer scope by namespace and an inner scope by key.
+	 */
+	private final Map<N, Map<K, S>>[] state;
+
+	/** The offset to the contiguous key groups */
+	private final int keyGroupOffset;
+
+	/** Whether newly created maps must support concurrent access, i.e. if the state is queryable */
+	private boolean concurrentMaps;
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new {@link NestedMapsStateTable} for the given key context and meta info.
+	 *
+	 * @param keyContext the key context.
+	 * @param metaInfo the meta information for this state table.
+	 */
+	public NestedMapsStateTable(InternalKeyContext<K> keyContext, RegisteredBackendStateMetaInfo<N, S> metaInfo) {
+		super(keyContext, metaInfo);
+
+		KeyGroupRange keyGroupRange = keyContext.getKeyGroupRange();
+		this.keyGroupOffset = keyGroupRange.getStartKeyGroup();
+
+		@SuppressWarnings("unchecked")
+		Map<N, Map<K, S>>[] state = (Map<N, Map<K, S>>[]) new Map[keyGroupRange.getNumberOfKeyGroups()];
+		this.state = state;
+	}
+
+	// ------------------------------------------------------------------------
+	//  access to maps
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the internal data structure.
+	 */
+	@VisibleForTesting
+	public Map<N, Map<K, S>>[] getState() {
+		return state;
+	}
+
+	@VisibleForTesting
+	public Map<N, Map<K, S>> getMapForKeyGroup(int keyGroupIndex) {
+		final int pos = indexToOffset(keyGroupIndex);
+		if (pos >= 0 && pos < state.length) {
+			return state[pos];
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the given map for the given key-group.
+	 */
+	void setMapForKeyGroup(int keyGroupId, Map<N, Map<K, S>> map) {
+		try {
+			state[indexToOffset(keyGroupId)] = map;
+		} catch (ArrayIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Key group index out of range of key group range [" +
+					keyGroupOffset + ", " + (keyGroupOffset + state.length) + ").");
+		}
+	}
+
+	/**
+	 * Translates a key-group id to the internal array offset.
+	 */
+	private int indexToOffset(int index) {
+		return index - keyGroupOffset;
+	}
+
+	/**
+	 * Makes all maps that are created from now on support concurrent access.
+	 */
+	void useConcurrentMaps() {
+		this.concurrentMaps = true;
+	}
+
+	/**
+	 * Creates a new map for use in this table. If the state is queryable, this creates a concurrent
+	 * hash map instead of a regular one.
+	 */
+	private <MK, MV> Map<MK, MV> createNewMap() {
+		if (concurrentMaps) {
+			return new ConcurrentHashMap<>();
+		} else {
+			return new HashMap<>();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public int size() {
+		int count = 0;
+		for (Map<N, Map<K, S>> namespaceMap : state) {
+			if (null != namespaceMap) {
+				for (Map<K, S> keyMap : namespaceMap.values()) {
+					if (null != keyMap) {
+						count += keyMap.size();
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	@Override
+	public S get(N namespace) {
+		return get(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace);
+	}
+
+	@Override
+	public boolean containsKey(N namespace) {
+		return containsKey(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace);
+	}
+
+	@Override
+	public void put(N namespace, S state) {
+		put(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace, state);
+	}
+
+	@Override
+	public S putAndGetOld(N namespace, S state) {
+		return putAndGetOld(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace, state);
+	}
+
+	@Override
+	public void remove(N namespace) {
+		remove(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace);
+	}
+
+	@Override
+	public S removeAndGetOld(N namespace) {
+		return removeAndGetOld(keyContext.getCurrentKey(), keyContext.getCurrentKeyGroupIndex(), namespace);
+	}
+
+	@Override
+	public S get(K key, N namespace) {
+		int keyGroup = KeyGroupRangeAssignment.assignToKeyGroup(key, keyContext.getNumberOfKeyGroups());
+		return get(key, keyGroup, namespace);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private boolean containsKey(K key, int keyGroupIndex, N namespace) {
+
+		checkKeyNamespacePreconditions(key, namespace);
+
+		Map<N, Map<K, S>> namespaceMap = getMapForKeyGroup(keyGroupIndex);
+
+		if (namespaceMap == null) {
+			return false;
+		}
+
+		Map<K, S> keyedMap = namespaceMap.get(namespace);
+
+		return keyedMap != null && keyedMap.containsKey(key);
+	}
+
+	S get(K key, int keyGroupIndex, N namespace) {
+
+		checkKeyNamespacePreconditions(key, namespace);
+
+		Map<N, Map<K, S>> namespaceMap = getMapForKeyGroup(keyGroupIndex);
+
+		if (namespaceMap == null) {
+			return null;
+		}
+
+		Map<K, S> keyedMap = namespaceMap.get(namespace);
+
+		if (keyedMap == null) {
+			return null;
+		}
+
+		return keyedMap.get(key);
+	}
+
+	@Override
+	void put(K key, int keyGroupIndex, N namespace, S value) {
+		putAndGetOld(key, keyGroupIndex, namespace, value);
+	}
+
+	private S putAndGetOld(K key, int keyGroupIndex, N namespace, S value) {
+
+		checkKeyNamespacePreconditions(key, namespace);
+
+		Map<N, Map<K, S>> namespaceMap = getMapForKeyGroup(keyGroupIndex);
+
+		if (namespaceMap == null) {
+			namespaceMap = createNewMap();
+			setMapForKeyGroup(keyGroupIndex, namespaceMap);
+		}
+
+		Map<K, S> keyedMap = namespaceMap.get(namespace);
+
+		if (keyedMap == null) {
+			keyedMap = createNewMap();
+			namespaceMap.put(namespace, keyedMap);
+		}
+
+		return keyedMap.put(key, value);
+	}
+
+	private void remove(K key, int keyGroupIndex, N namespace) {
+		removeAndGetOld(key, keyGroupIndex, namespace);
+	}
+
+	private S removeAndGetOld(K key, int keyGroupIndex, N namespace) {
+
+		checkKeyNamespacePreconditions(key, namespace);
+
+		Map<N, Map<K, S>> namespaceMap = getMapForKeyGroup(keyGroupIndex);
+
+		if (namespaceMap == null) {
+			return null;
+		}
+
+		Map<K, S> keyedMap = namespaceMap.get(namespace);
+
+		if (keyedMap == null) {
+			return null;
+		}
+
+		S removed = keyedMap.remove(key);
+
+		if (keyedMap.isEmpty()) {
+			namespaceMap.remove(namespace);
+		}
+
+		return removed;
+	}
+
+	private void checkKeyNamespacePreconditions(K key, N namespace) {
+		Preconditions.checkNotNull(key, "No key set. This method should not be called outside of a keyed context.");
+		Preconditions.checkNotNull(namespace, "Provided namespace is null.");
+	}
+
+	@Override
+	public int sizeOfNamespace(Object namespace) {
+		int count = 0;
+		for (Map<N, Map<K, S>> namespaceMap : state) {
+			if (null != namespaceMap) {
+				Map<K, S> keyMap = namespaceMap.get(namespace);
+				count += keyMap != null ? keyMap.size() : 0;
+			}
+		}
+
+		return count;
+	}
+
+	@Override
+	public <T> void transform(N namespace, T value, StateTransformationFunction<S, T> transformation) throws Exception {
+		final K key = keyContext.getCurrentKey();
+		checkKeyNamespacePreconditions(key, namespace);
+
+		final int keyGroupIndex = keyContext.getCurrentKeyGroupIndex();
+
+		Map<N, Map<K, S>> namespaceMap = getMapForKeyGroup(keyGroupIndex);
+
+		if (namespaceMap == null) {
+			namespaceMap = createNewMap();
+			setMapForKeyGroup(keyGroupIndex, namespaceMap);
+		}
+
+		Map<K, S> keyedMap = namespaceMap.get(namespace);
+
+		if (keyedMap == null) {
+			keyedMap = createNewMap();
+			namespaceMap.put(namespace, keyedMap);
+		}
+
+		keyedMap.put(key, transformation.apply(keyedMap.get(key), value));
+	}
+
+	// snapshots ---------------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a snapshot of this {@link NestedMapsStateTable}. The snapshot writes the live maps of the table, so it
+	 * must be written synchronously, before the table is modified again. See {@link #createSerializedSnapshot()}
+	 * for a snapshot that can be written asynchronously.
+	 */
+	@Override
+	NestedMapsStateTableSnapshot<K, N, S> createSnapshot() {
+		return new NestedMapsStateTableSnapshot<>(this);
+	}
+
+	/**
+	 * Creates a snapshot of this {@link NestedMapsStateTable} that holds the serialized mappings of all key-groups.
+	 * The serialized mappings are independent of later modifications of the table, so the snapshot can be written
+	 * asynchronously.
+	 */
+	SerializedStateTableSnapshot createSerializedSnapshot() throws IOException {
+		final NestedMapsStateTableSnapshot<K, N, S> liveSnapshot = createSnapshot();
+		final byte[][] serializedKeyGroups = new byte[state.length][];
+		final DataOutputSerializer out = new DataOutputSerializer(64);
+
+		for (int keyGroupId : keyContext.getKeyGroupRange()) {
+			out.clear();
+			liveSnapshot.writeMappingsInKeyGroup(out, keyGroupId);
+			serializedKeyGroups[indexToOffset(keyGroupId)] = out.getCopyOfBuffer();
+		}
+
+		return new SerializedStateTableSnapshot(keyGroupOffset, serializedKeyGroups);
+	}
+
+	/**
+	 * This class encapsulates the snapshot logic for a {@link NestedMapsStateTable}. It writes the nested maps
+	 * of a key-group exactly as they are found at the time of writing.
+	 *
+	 * @param <K> type of key.
+	 * @param <N> type of namespace.
+	 * @param <S> type of state.
+	 */
+	static class NestedMapsStateTableSnapshot<K, N, S> implements StateTableSnapshot {
+
+		private final NestedMapsStateTable<K, N, S> owningTable;
+
+		NestedMapsStateTableSnapshot(NestedMapsStateTable<K, N, S> owningTable) {
+			this.owningTable = Preconditions.checkNotNull(owningTable);
+		}
+
+		@Override
+		public void writeMappingsInKeyGroup(DataOutputView dov, int keyGroupId) throws IOException {
+			final Map<N, Map<K, S>> namespaceMap = owningTable.getMapForKeyGroup(keyGroupId);
+
+			if (namespaceMap == null) {
+				dov.writeByte(0);
+				return;
+			}
+
+			dov.writeByte(1);
+
+			final TypeSerializer<K> keySerializer = owningTable.keyContext.getKeySerializer();
+			final TypeSerializer<N> namespaceSerializer = owningTable.getNamespaceSerializer();
+			final TypeSerializer<S> stateSerializer = owningTable.getStateSerializer();
+
+			// number of namespaces
+			dov.writeInt(namespaceMap.size());
+			for (Map.Entry<N, Map<K, S>> namespace : namespaceMap.entrySet()) {
+				namespaceSerializer.serialize(namespace.getKey(), dov);
+
+				Map<K, S> entryMap = namespace.getValue();
+
+				// number of entries
+				dov.writeInt(entryMap.size());
+				for (Map.Entry<K, S> entry : entryMap.entrySet()) {
+					keySerializer.serialize(entry.getKey(), dov);
+					stateSerializer.serialize(entry.getValue(), dov);
+				}
+			}
+		}
+
+		@Override
+		public void release() {
+			// nothing to release, the snapshot holds no resources
+		}
+	}
+
+	/**
+	 * A snapshot that holds the serialized mappings of each key-group, as written by a
+	 * {@link NestedMapsStateTableSnapshot} at the time the snapshot was created.
+	 */
+	static class SerializedStateTableSnapshot implements StateTableSnapshot {
+
+		/** The offset to the contiguous key groups */
+		private final int keyGroupOffset;
+
+		/** The serialized mappings, by key-group offset */
+		private final byte[][] serializedKeyGroups;
+
+		SerializedStateTableSnapshot(int keyGroupOffset, byte[][] serializedKeyGroups) {
+			this.keyGroupOffset = keyGroupOffset;
+			this.serializedKeyGroups = Preconditions.checkNotNull(serializedKeyGroups);
+		}
+
+		@Override
+		public void writeMappingsInKeyGroup(DataOutputView dov, int keyGroupId) throws IOException {
+			dov.write(serializedKeyGroups[keyGroupId - keyGroupOffset]);
+		}
+
+		@Override
+		public void release() {
+			// nothing to release, the snapshot holds no resources
+		}
+	}
+}
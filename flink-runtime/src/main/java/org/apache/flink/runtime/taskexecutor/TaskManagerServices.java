@@ -36,6 +36,7 @@ import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
 import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.metrics.MetricRegistry;
 import org.apache.flink.runtime.metrics.groups.TaskManagerMetricGroup;
+import org.apache.flink.runtime.metrics.util.MetricUtils;
 import org.apache.flink.runtime.query.KvStateRegistry;
 import org.apache.flink.runtime.query.netty.DisabledKvStateRequestStats;
 import org.apache.flink.runtime.query.netty.KvStateServer;
@@ -181,7 +182,10 @@ public class TaskManagerServices {
 		final MemoryManager memoryManager = createMemoryManager(taskManagerServicesConfiguration);
 
 		// start the I/O manager, it will create some temp directories.
-		final IOManager ioManager = new IOManagerAsync(taskManagerServicesConfiguration.getTmpDirPaths());
+		final IOManager ioManager = new IOManagerAsync(
+			taskManagerServicesConfiguration.getTmpDirPaths(),
+			taskManagerServicesConfiguration.getIoThreadsPerDirectory(),
+			taskManagerServicesConfiguration.isMemoryMappedReads());
 
 		final MetricRegistry metricRegistry = new MetricRegistry(
 				taskManagerServicesConfiguration.getMetricRegistryConfiguration());
@@ -193,6 +197,7 @@ public class TaskManagerServices {
 
 		// Initialize the TM metrics
 		TaskExecutorMetricsInitializer.instantiateStatusMetrics(taskManagerMetricGroup, network);
+		MetricUtils.instantiateIOMetrics(taskManagerMetricGroup, ioManager);
 
 		final BroadcastVariableManager broadcastVariableManager = new BroadcastVariableManager();
 
@@ -370,7 +375,9 @@ public class TaskManagerServices {
 			kvStateServer,
 			networkEnvironmentConfiguration.ioMode(),
 			networkEnvironmentConfiguration.partitionRequestInitialBackoff(),
-			networkEnvironmentConfiguration.partitionRequestMaxBackoff());
+			networkEnvironmentConfiguration.partitionRequestMaxBackoff(),
+			networkEnvironmentConfiguration.networkBuffersPerChannel(),
+			networkEnvironmentConfiguration.floatingNetworkBuffersPerGate());
 	}
 
 	/**
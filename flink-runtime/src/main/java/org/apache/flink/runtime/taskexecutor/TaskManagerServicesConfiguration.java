@@ -22,6 +22,7 @@ import org.apache.flink.configuration.ConfigConstants;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.QueryableStateOptions;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.memory.HeapMemorySegment;
 import org.apache.flink.core.memory.HybridMemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
@@ -51,6 +52,10 @@ public class TaskManagerServicesConfiguration {
 
 	private final String[] tmpDirPaths;
 
+	private final int ioThreadsPerDirectory;
+
+	private final boolean memoryMappedReads;
+
 	private final int numberOfSlots;
 
 	private final NetworkEnvironmentConfiguration networkConfig;
@@ -70,6 +75,8 @@ public class TaskManagerServicesConfiguration {
 	public TaskManagerServicesConfiguration(
 			InetAddress taskManagerAddress,
 			String[] tmpDirPaths,
+			int ioThreadsPerDirectory,
+			boolean memoryMappedReads,
 			NetworkEnvironmentConfiguration networkConfig,
 			QueryableStateConfiguration queryableStateConfig,
 			int numberOfSlots,
@@ -81,6 +88,9 @@ public class TaskManagerServicesConfiguration {
 
 		this.taskManagerAddress = checkNotNull(taskManagerAddress);
 		this.tmpDirPaths = checkNotNull(tmpDirPaths);
+		checkArgument(ioThreadsPerDirectory > 0, "The number of I/O threads per directory must be positive.");
+		this.ioThreadsPerDirectory = ioThreadsPerDirectory;
+		this.memoryMappedReads = memoryMappedReads;
 		this.networkConfig = checkNotNull(networkConfig);
 		this.queryableStateConfig = checkNotNull(queryableStateConfig);
 		this.numberOfSlots = checkNotNull(numberOfSlots);
@@ -109,6 +119,14 @@ public class TaskManagerServicesConfiguration {
 		return tmpDirPaths;
 	}
 
+	public int getIoThreadsPerDirectory() {
+		return ioThreadsPerDirectory;
+	}
+
+	public boolean isMemoryMappedReads() {
+		return memoryMappedReads;
+	}
+
 	public NetworkEnvironmentConfiguration getNetworkConfig() {
 		return networkConfig;
 	}
@@ -170,6 +188,13 @@ public class TaskManagerServicesConfiguration {
 			ConfigConstants.TASK_MANAGER_TMP_DIR_KEY,
 			ConfigConstants.DEFAULT_TASK_MANAGER_TMP_PATH).split(",|" + File.pathSeparator);
 
+		final int ioThreadsPerDirectory = configuration.getInteger(TaskManagerOptions.IO_THREADS_PER_DIRECTORY);
+		checkConfigParameter(ioThreadsPerDirectory > 0, ioThreadsPerDirectory,
+			TaskManagerOptions.IO_THREADS_PER_DIRECTORY.key(),
+			"The I/O manager needs at least one reading and one writing thread per directory.");
+
+		final boolean memoryMappedReads = configuration.getBoolean(TaskManagerOptions.IO_MEMORY_MAPPED_READS);
+
 		final NetworkEnvironmentConfiguration networkConfig = parseNetworkEnvironmentConfiguration(
 			configuration,
 			localCommunication,
@@ -206,6 +231,8 @@ public class TaskManagerServicesConfiguration {
 		return new TaskManagerServicesConfiguration(
 			remoteAddress,
 			tmpDirs,
+			ioThreadsPerDirectory,
+			memoryMappedReads,
 			networkConfig,
 			queryableStateConfig,
 			slots,
@@ -311,6 +338,20 @@ public class TaskManagerServicesConfiguration {
 			ioMode = IOManager.IOMode.SYNC;
 		}
 
+		// Exclusive buffers of each remote input channel for credit-based flow control
+		final int buffersPerChannel = configuration.getInteger(TaskManagerOptions.NETWORK_BUFFERS_PER_CHANNEL);
+
+		checkConfigParameter(buffersPerChannel > 0, buffersPerChannel,
+			TaskManagerOptions.NETWORK_BUFFERS_PER_CHANNEL.key(),
+			"Number of buffers per channel must be at least one.");
+
+		// Floating buffers of each input gate, shared by its remote input channels
+		final int floatingBuffersPerGate = configuration.getInteger(TaskManagerOptions.NETWORK_FLOATING_BUFFERS_PER_GATE);
+
+		checkConfigParameter(floatingBuffersPerGate > 0, floatingBuffersPerGate,
+			TaskManagerOptions.NETWORK_FLOATING_BUFFERS_PER_GATE.key(),
+			"Number of floating buffers per gate must be at least one.");
+
 		return new NetworkEnvironmentConfiguration(
 			numNetworkBuffers,
 			pageSize,
@@ -318,6 +359,8 @@ public class TaskManagerServicesConfiguration {
 			ioMode,
 			500,
 			3000,
+			buffersPerChannel,
+			floatingBuffersPerGate,
 			nettyConfig);
 	}
 
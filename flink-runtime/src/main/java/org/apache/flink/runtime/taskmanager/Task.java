@@ -46,6 +46,8 @@ import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
 import org.apache.flink.runtime.executiongraph.JobInformation;
 import org.apache.flink.runtime.executiongraph.TaskInformation;
 import org.apache.flink.runtime.filecache.FileCache;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactories;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.NetworkEnvironment;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
@@ -341,6 +343,8 @@ public class Task implements Runnable, TaskActions {
 		this.producedPartitions = new ResultPartition[resultPartitionDeploymentDescriptors.size()];
 		this.writers = new ResultPartitionWriter[resultPartitionDeploymentDescriptors.size()];
 
+		final int sortMergeMinParallelism = tmConfig.getInteger(TaskManagerOptions.NETWORK_SORT_MERGE_SHUFFLE_MIN_PARALLELISM);
+
 		int counter = 0;
 
 		for (ResultPartitionDeploymentDescriptor desc: resultPartitionDeploymentDescriptors) {
@@ -357,7 +361,8 @@ public class Task implements Runnable, TaskActions {
 				networkEnvironment.getResultPartitionManager(),
 				resultPartitionConsumableNotifier,
 				ioManager,
-				desc.sendScheduleOrUpdateConsumersMessage());
+				desc.sendScheduleOrUpdateConsumersMessage(),
+				sortMergeMinParallelism);
 
 			writers[counter] = new ResultPartitionWriter(producedPartitions[counter]);
 
@@ -573,6 +578,14 @@ public class Task implements Runnable, TaskActions {
 				taskCancellationTimeout = executionConfig.getTaskCancellationTimeout();
 			}
 
+			// the result partitions spill with the job's compression, or the TaskManager's default
+			final BlockCompressionFactory spillCompression = BlockCompressionFactories.fromConfig(
+				executionConfig.getSpillCompressionCodec(), taskManagerConfig.getConfiguration(), userCodeClassLoader);
+
+			for (ResultPartition partition : producedPartitions) {
+				partition.setSpillCompression(spillCompression);
+			}
+
 			// now load the task's invokable code
 			invokable = loadAndInstantiateInvokable(userCodeClassLoader, nameOfInvokableClass);
 
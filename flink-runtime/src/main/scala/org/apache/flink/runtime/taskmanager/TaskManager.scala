@@ -979,6 +979,7 @@ class TaskManager(
     
     MetricUtils.instantiateStatusMetrics(taskManagerMetricGroup)
     MetricUtils.instantiateNetworkMetrics(taskManagerMetricGroup, network)
+    MetricUtils.instantiateIOMetrics(taskManagerMetricGroup, ioManager)
     
     // watch job manager to detect when it dies
     context.watch(jobManager)
@@ -19,12 +19,17 @@
 package org.apache.flink.runtime.checkpoint;
 
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
 import org.apache.flink.runtime.concurrent.Executors;
 import org.apache.flink.runtime.execution.ExecutionState;
 import org.apache.flink.runtime.executiongraph.Execution;
 import org.apache.flink.runtime.executiongraph.ExecutionAttemptID;
+import org.apache.flink.runtime.executiongraph.ExecutionEdge;
 import org.apache.flink.runtime.executiongraph.ExecutionJobVertex;
 import org.apache.flink.runtime.executiongraph.ExecutionVertex;
+import org.apache.flink.runtime.executiongraph.IntermediateResult;
+import org.apache.flink.runtime.executiongraph.IntermediateResultPartition;
+import org.apache.flink.runtime.jobgraph.IntermediateResultPartitionID;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
 import org.apache.flink.runtime.jobgraph.tasks.ExternalizedCheckpointSettings;
 import org.apache.flink.runtime.messages.checkpoint.AcknowledgeCheckpoint;
@@ -34,12 +39,15 @@ import org.apache.flink.runtime.state.KeyGroupsStateHandle;
 import org.apache.flink.runtime.state.OperatorStateHandle;
 import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.TaskStateHandles;
+import org.apache.flink.runtime.state.memory.ByteStreamStateHandle;
 import org.apache.flink.runtime.util.SerializableObject;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -47,6 +55,7 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -285,6 +294,107 @@ public class CheckpointStateRestoreTest {
 		}
 	}
 
+	/**
+	 * Tests that the in-flight data of an unaligned checkpoint is only restored if the
+	 * parallelism of the vertices connected to the task did not change.
+	 */
+	@Test
+	public void testChannelStateRequiresUnchangedConnectedVertices() throws Exception {
+		final ChannelStateLayout layout = new ChannelStateLayout(new int[] {2}, new int[] {3});
+
+		// same number of producers and consumers
+		Execution execution = mockExecution();
+		assignChannelState(layout, execution, 2, 3);
+		verify(execution, times(1)).setInitialState(Mockito.any(TaskStateHandles.class));
+
+		// the parallelism of the producer changed
+		try {
+			assignChannelState(layout, mockExecution(), 4, 3);
+			fail("Did not throw the expected Exception.");
+		} catch (IllegalStateException expected) {
+			assertTrue(expected.getMessage().contains("input"));
+		}
+
+		// the parallelism of the consumer changed
+		try {
+			assignChannelState(layout, mockExecution(), 2, 1);
+			fail("Did not throw the expected Exception.");
+		} catch (IllegalStateException expected) {
+			assertTrue(expected.getMessage().contains("consumer"));
+		}
+
+		// the channels of the in-flight data are unknown
+		try {
+			assignChannelState(null, mockExecution(), 2, 3);
+			fail("Did not throw the expected Exception.");
+		} catch (IllegalStateException ignored) {
+		}
+	}
+
+	/**
+	 * Assigns a checkpoint with in-flight data of the given layout to a task with one input gate
+	 * and one result partition, whose producer and consumer have the given parallelism.
+	 */
+	private void assignChannelState(
+			ChannelStateLayout layout,
+			Execution execution,
+			int producerParallelism,
+			int consumerParallelism) throws Exception {
+
+		final JobVertexID producerId = new JobVertexID();
+		final JobVertexID vertexId = new JobVertexID();
+		final JobVertexID consumerId = new JobVertexID();
+
+		ExecutionVertex vertex = mockExecutionVertex(execution, vertexId, 0, 1);
+
+		ExecutionEdge[] inputEdges = new ExecutionEdge[producerParallelism];
+		for (int i = 0; i < producerParallelism; i++) {
+			inputEdges[i] = mock(ExecutionEdge.class);
+		}
+		when(vertex.getNumberOfInputs()).thenReturn(1);
+		when(vertex.getInputEdges(0)).thenReturn(inputEdges);
+
+		ExecutionVertex consumer = mock(ExecutionVertex.class);
+		when(consumer.getJobvertexId()).thenReturn(consumerId);
+
+		List<ExecutionEdge> consumerEdges = new ArrayList<>(consumerParallelism);
+		for (int i = 0; i < consumerParallelism; i++) {
+			ExecutionEdge edge = mock(ExecutionEdge.class);
+			when(edge.getTarget()).thenReturn(consumer);
+			consumerEdges.add(edge);
+		}
+
+		IntermediateResultPartition partition = mock(IntermediateResultPartition.class);
+		when(partition.getConsumers()).thenReturn(Collections.singletonList(consumerEdges));
+		when(vertex.getProducedPartitions()).thenReturn(
+				Collections.singletonMap(new IntermediateResultPartitionID(), partition));
+
+		ExecutionJobVertex producer = mock(ExecutionJobVertex.class);
+		when(producer.getJobVertexId()).thenReturn(producerId);
+		IntermediateResult input = mock(IntermediateResult.class);
+		when(input.getProducer()).thenReturn(producer);
+
+		ExecutionJobVertex jobVertex = mockExecutionJobVertex(vertexId, new ExecutionVertex[] { vertex });
+		when(jobVertex.getInputs()).thenReturn(Collections.singletonList(input));
+
+		TaskState taskState = new TaskState(vertexId, 1, 1, 1);
+		taskState.putState(0, new SubtaskState(
+				new ChainedStateHandle<>(Collections.<StreamStateHandle>singletonList(null)),
+				null,
+				null,
+				null,
+				null,
+				new ByteStreamStateHandle("input", new byte[] {1, 2, 3}),
+				new ByteStreamStateHandle("output", new byte[] {4, 5, 6}),
+				layout));
+
+		new StateAssignmentOperation(
+				LoggerFactory.getLogger(CheckpointStateRestoreTest.class),
+				Collections.singletonMap(vertexId, jobVertex),
+				Collections.singletonMap(vertexId, taskState),
+				false).assignStates();
+	}
+
 	// ------------------------------------------------------------------------
 
 	private Execution mockExecution() {
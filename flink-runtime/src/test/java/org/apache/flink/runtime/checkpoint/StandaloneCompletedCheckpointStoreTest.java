@@ -18,11 +18,25 @@
 
 package org.apache.flink.runtime.checkpoint;
 
+import org.apache.flink.api.common.JobID;
 import org.apache.flink.runtime.jobgraph.JobStatus;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.messages.CheckpointMessagesTest;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Tests for basic {@link CompletedCheckpointStore} contract.
@@ -70,4 +84,72 @@ public class StandaloneCompletedCheckpointStoreTest extends CompletedCheckpointS
 		assertEquals(0, store.getNumberOfRetainedCheckpoints());
 		assertTrue(checkpoint.isDiscarded());
 	}
+
+	/**
+	 * Tests that the store registers the shared state of the added checkpoints and that a shared
+	 * file is only discarded once no retained checkpoint references it any more.
+	 */
+	@Test
+	public void testSharedStateIsDiscardedOnceNoRetainedCheckpointReferencesIt() throws Exception {
+		CompletedCheckpointStore store = createCompletedCheckpoints(1);
+
+		StreamStateHandle firstFile = mock(StreamStateHandle.class);
+		StreamStateHandle secondFile = mock(StreamStateHandle.class);
+		StreamStateHandle thirdFile = mock(StreamStateHandle.class);
+
+		store.addCheckpoint(createIncrementalCheckpoint(1,
+				Collections.singletonMap("1.sst", firstFile),
+				Collections.<String, StreamStateHandle>emptyMap()));
+
+		// the second checkpoint references the file of the first one
+		store.addCheckpoint(createIncrementalCheckpoint(2,
+				Collections.singletonMap("2.sst", secondFile),
+				Collections.singletonMap("1.sst", firstFile)));
+
+		verify(firstFile, never()).discardState();
+
+		// the third checkpoint no longer references the file of the first one
+		store.addCheckpoint(createIncrementalCheckpoint(3,
+				Collections.singletonMap("3.sst", thirdFile),
+				Collections.singletonMap("2.sst", secondFile)));
+
+		verify(firstFile, times(1)).discardState();
+		verify(secondFile, never()).discardState();
+
+		store.shutdown(JobStatus.FINISHED);
+
+		verify(secondFile, times(1)).discardState();
+		verify(thirdFile, times(1)).discardState();
+	}
+
+	private static TestCompletedCheckpoint createIncrementalCheckpoint(
+			long checkpointId,
+			Map<String, StreamStateHandle> newSharedState,
+			Map<String, StreamStateHandle> oldSharedState) throws IOException {
+
+		IncrementalKeyGroupsStateHandle keyedState = new IncrementalKeyGroupsStateHandle(
+				"test-backend",
+				KeyGroupRange.of(0, 9),
+				checkpointId,
+				newSharedState,
+				oldSharedState,
+				Collections.<String, StreamStateHandle>emptyMap(),
+				mock(StreamStateHandle.class));
+
+		JobVertexID jobVertexId = new JobVertexID();
+		TaskState taskState = new TaskState(jobVertexId, 1, 1, 1);
+		taskState.putState(0, new SubtaskState(
+				CheckpointCoordinatorTest.generateChainedStateHandle(new CheckpointMessagesTest.MyHandle()),
+				null,
+				null,
+				keyedState,
+				null));
+
+		return new TestCompletedCheckpoint(
+				new JobID(),
+				checkpointId,
+				0,
+				Collections.singletonMap(jobVertexId, taskState),
+				CheckpointProperties.forStandardCheckpoint());
+	}
 }
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.checkpoint.channel;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link ChannelStateWriter} and the {@link ChannelStateReader}.
+ */
+public class ChannelStateWriterTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final MemCheckpointStreamFactory streamFactory = new MemCheckpointStreamFactory(1024 * 1024);
+
+	/**
+	 * Verifies that the reader returns the input and output data in the order in which it was
+	 * added to the writer.
+	 */
+	@Test
+	public void testWriteAndReadInMemory() throws Exception {
+		ChannelStateWriter writer = new ChannelStateWriter(1L, 42L);
+
+		writer.addOutputData(0, 1, createBuffer(1, 10));
+		writer.addOutputData(1, 0, createBuffer(2, 20));
+		writer.addInputData(3, createBuffer(3, 30));
+		writer.addInputData(0, new byte[] {4, 4, 4});
+		writer.addInputData(3, createBuffer(5, 50));
+
+		// empty data is not recorded
+		writer.addInputData(2, new byte[0]);
+
+		writer.finishInput();
+		assertTrue(writer.awaitInput());
+
+		assertEquals(83, writer.getNumInputBytes());
+		assertEquals(30, writer.getNumOutputBytes());
+		assertEquals(0, writer.getNumSpilledBytes());
+
+		List<ChannelStateEntry> input = ChannelStateReader.read(writer.writeInputState(streamFactory));
+		List<ChannelStateEntry> output = ChannelStateReader.read(writer.writeOutputState(streamFactory));
+
+		assertEquals(3, input.size());
+		assertEntry(input.get(0), 0, 3, createData(3, 30));
+		assertEntry(input.get(1), 0, 0, new byte[] {4, 4, 4});
+		assertEntry(input.get(2), 0, 3, createData(5, 50));
+
+		assertEquals(2, output.size());
+		assertEntry(output.get(0), 0, 1, createData(1, 10));
+		assertEntry(output.get(1), 1, 0, createData(2, 20));
+	}
+
+	/**
+	 * Verifies that the data beyond the in-memory limit is spilled to disk and read back in
+	 * the order in which it was added, and that the spill files are deleted afterwards.
+	 */
+	@Test
+	public void testWriteAndReadWithSpilling() throws Exception {
+		File spillDirectory = temporaryFolder.newFolder();
+		ChannelStateWriter writer = new ChannelStateWriter(1L, 42L, 64, spillDirectory);
+
+		for (int i = 0; i < 10; i++) {
+			writer.addInputData(i % 3, createBuffer(i, 30));
+			writer.addOutputData(0, i % 2, createBuffer(100 + i, 20));
+		}
+		writer.addInputData(1, new byte[] {7, 7});
+
+		// only the first input and the first output buffer fit into memory
+		assertEquals(9 * 30 + 2 + 9 * 20, writer.getNumSpilledBytes());
+		assertEquals(2, spillDirectory.list().length);
+
+		writer.finishInput();
+		assertTrue(writer.awaitInput());
+
+		List<ChannelStateEntry> input = ChannelStateReader.read(writer.writeInputState(streamFactory));
+		List<ChannelStateEntry> output = ChannelStateReader.read(writer.writeOutputState(streamFactory));
+
+		assertEquals(11, input.size());
+		for (int i = 0; i < 10; i++) {
+			assertEntry(input.get(i), 0, i % 3, createData(i, 30));
+		}
+		assertEntry(input.get(10), 0, 1, new byte[] {7, 7});
+
+		assertEquals(10, output.size());
+		for (int i = 0; i < 10; i++) {
+			assertEntry(output.get(i), 0, i % 2, createData(100 + i, 20));
+		}
+
+		assertEquals(0, spillDirectory.list().length);
+	}
+
+	/**
+	 * Verifies that aborting the writer releases the waiting checkpoint and deletes the spill files.
+	 */
+	@Test
+	public void testAbortDeletesSpilledData() throws Exception {
+		File spillDirectory = temporaryFolder.newFolder();
+		ChannelStateWriter writer = new ChannelStateWriter(1L, 42L, 0, spillDirectory);
+
+		writer.addInputData(0, createBuffer(1, 30));
+		writer.addOutputData(0, 0, createBuffer(2, 30));
+		assertEquals(2, spillDirectory.list().length);
+
+		writer.abort(new Exception("test"));
+
+		assertTrue(writer.isAborted());
+		assertFalse(writer.awaitInput());
+		assertEquals(0, spillDirectory.list().length);
+
+		// data of an aborted checkpoint is dropped
+		writer.addOutputData(0, 0, createBuffer(3, 30));
+		assertEquals(0, spillDirectory.list().length);
+	}
+
+	/**
+	 * Verifies that no state is written without data.
+	 */
+	@Test
+	public void testWriteWithoutData() throws Exception {
+		ChannelStateWriter writer = new ChannelStateWriter(1L, 42L);
+		writer.finishInput();
+
+		StreamStateHandle input = writer.writeInputState(streamFactory);
+		StreamStateHandle output = writer.writeOutputState(streamFactory);
+
+		assertNull(input);
+		assertNull(output);
+		assertTrue(ChannelStateReader.read(input).isEmpty());
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static void assertEntry(ChannelStateEntry entry, int index, int channelIndex, byte[] data) {
+		assertEquals(index, entry.getIndex());
+		assertEquals(channelIndex, entry.getChannelIndex());
+		assertArrayEquals(data, entry.getData());
+	}
+
+	private static Buffer createBuffer(int value, int size) {
+		return new Buffer(MemorySegmentFactory.wrap(createData(value, size)), FreeingBufferRecycler.INSTANCE);
+	}
+
+	private static byte[] createData(int value, int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) (value + i);
+		}
+		return data;
+	}
+}
@@ -21,12 +21,30 @@ package org.apache.flink.runtime.checkpoint.savepoint;
 import org.apache.flink.core.memory.ByteArrayOutputStreamWithPos;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.checkpoint.SubtaskState;
+import org.apache.flink.runtime.checkpoint.TaskState;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
+import org.apache.flink.runtime.jobgraph.JobVertexID;
+import org.apache.flink.runtime.state.ChainedStateHandle;
+import org.apache.flink.runtime.state.IncrementalKeyGroupsStateHandle;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeOffsets;
+import org.apache.flink.runtime.state.KeyGroupsStateHandle;
+import org.apache.flink.runtime.state.OperatorStateHandle;
+import org.apache.flink.runtime.state.StreamStateHandle;
+import org.apache.flink.runtime.util.TestByteStreamStateHandleDeepCompare;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class SavepointV1SerializerTest {
 
@@ -56,4 +74,119 @@ public class SavepointV1SerializerTest {
 			assertEquals(expected, actual);
 		}
 	}
+
+	/**
+	 * Tests the serialization of subtask states with the in-flight data of an unaligned
+	 * checkpoint next to subtask states without it.
+	 */
+	@Test
+	public void testSerializeDeserializeWithChannelState() throws Exception {
+		TaskState taskState = new TaskState(new JobVertexID(), 4, 128, 1);
+
+		// input and output channel state
+		taskState.putState(0, createSubtaskState(
+				new TestByteStreamStateHandleDeepCompare("input-0", new byte[] {1, 2, 3}),
+				new TestByteStreamStateHandleDeepCompare("output-0", new byte[] {4, 5}),
+				new ChannelStateLayout(new int[] {2, 3}, new int[] {4})));
+
+		// only output channel state and a task without inputs
+		taskState.putState(1, createSubtaskState(
+				null,
+				new TestByteStreamStateHandleDeepCompare("output-1", new byte[] {6}),
+				new ChannelStateLayout(new int[0], new int[] {4, 1})));
+
+		// channel state without a layout
+		taskState.putState(2, createSubtaskState(
+				new TestByteStreamStateHandleDeepCompare("input-2", new byte[] {7}),
+				null,
+				null));
+
+		// no channel state
+		taskState.putState(3, createSubtaskState(null, null, null));
+
+		SavepointV1 expected = new SavepointV1(42L, Collections.singletonList(taskState));
+
+		ByteArrayOutputStreamWithPos baos = new ByteArrayOutputStreamWithPos();
+		SavepointV1Serializer.INSTANCE.serialize(expected, new DataOutputViewStreamWrapper(baos));
+
+		Savepoint actual = SavepointV1Serializer.INSTANCE.deserialize(
+				new DataInputViewStreamWrapper(new ByteArrayInputStream(baos.toByteArray())),
+				Thread.currentThread().getContextClassLoader());
+
+		assertEquals(expected, actual);
+
+		TaskState actualTaskState = actual.getTaskStates().iterator().next();
+		assertTrue(actualTaskState.hasChannelState());
+		assertEquals(new ChannelStateLayout(new int[] {2, 3}, new int[] {4}),
+				actualTaskState.getState(0).getChannelStateLayout());
+		assertNull(actualTaskState.getState(1).getInputChannelState());
+		assertNull(actualTaskState.getState(2).getChannelStateLayout());
+		assertFalse(actualTaskState.getState(3).hasChannelState());
+	}
+
+	/**
+	 * Tests the serialization of the keyed state handles of incremental checkpoints, which are
+	 * written to the meta data of externalized checkpoints.
+	 */
+	@Test
+	public void testSerializeDeserializeWithIncrementalKeyGroupsStateHandle() throws Exception {
+		Map<String, StreamStateHandle> newSharedState = new HashMap<>();
+		newSharedState.put("3.sst", new TestByteStreamStateHandleDeepCompare("new-3", new byte[] {3}));
+		newSharedState.put("4.sst", new TestByteStreamStateHandleDeepCompare("new-4", new byte[] {4, 4}));
+
+		IncrementalKeyGroupsStateHandle keyedState = new IncrementalKeyGroupsStateHandle(
+				"backend-uid",
+				KeyGroupRange.of(16, 31),
+				17L,
+				newSharedState,
+				Collections.<String, StreamStateHandle>singletonMap(
+						"1.sst", new TestByteStreamStateHandleDeepCompare("old-1", new byte[] {1})),
+				Collections.<String, StreamStateHandle>singletonMap(
+						"MANIFEST-000001", new TestByteStreamStateHandleDeepCompare("manifest", new byte[] {5, 6})),
+				new TestByteStreamStateHandleDeepCompare("meta", new byte[] {7, 8, 9}));
+
+		TaskState taskState = new TaskState(new JobVertexID(), 1, 128, 1);
+		taskState.putState(0, new SubtaskState(
+				new ChainedStateHandle<>(Collections.<StreamStateHandle>singletonList(
+						new TestByteStreamStateHandleDeepCompare("a", "Hi".getBytes()))),
+				new ChainedStateHandle<>(Collections.<OperatorStateHandle>emptyList()),
+				new ChainedStateHandle<>(Collections.<OperatorStateHandle>emptyList()),
+				keyedState,
+				null));
+
+		SavepointV1 expected = new SavepointV1(17L, Collections.singletonList(taskState));
+
+		ByteArrayOutputStreamWithPos baos = new ByteArrayOutputStreamWithPos();
+		SavepointV1Serializer.INSTANCE.serialize(expected, new DataOutputViewStreamWrapper(baos));
+
+		Savepoint actual = SavepointV1Serializer.INSTANCE.deserialize(
+				new DataInputViewStreamWrapper(new ByteArrayInputStream(baos.toByteArray())),
+				Thread.currentThread().getContextClassLoader());
+
+		assertEquals(expected, actual);
+
+		KeyGroupsStateHandle actualKeyedState =
+				actual.getTaskStates().iterator().next().getState(0).getManagedKeyedState();
+		assertTrue(actualKeyedState instanceof IncrementalKeyGroupsStateHandle);
+		assertEquals(keyedState, actualKeyedState);
+	}
+
+	private static SubtaskState createSubtaskState(
+			StreamStateHandle inputChannelState,
+			StreamStateHandle resultSubpartitionState,
+			ChannelStateLayout channelStateLayout) {
+
+		return new SubtaskState(
+				new ChainedStateHandle<>(Collections.<StreamStateHandle>singletonList(
+						new TestByteStreamStateHandleDeepCompare("a", "Hi".getBytes()))),
+				new ChainedStateHandle<>(Collections.<OperatorStateHandle>emptyList()),
+				new ChainedStateHandle<>(Collections.<OperatorStateHandle>emptyList()),
+				new KeyGroupsStateHandle(
+						new KeyGroupRangeOffsets(1, 1, new long[]{42}),
+						new TestByteStreamStateHandleDeepCompare("c", "Hello".getBytes())),
+				null,
+				inputChannelState,
+				resultSubpartitionState,
+				channelStateLayout);
+	}
 }
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.IllegalConfigurationException;
+import org.apache.flink.configuration.TaskManagerOptions;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link BlockCompressionFactories}.
+ */
+public class BlockCompressionFactoriesTest {
+
+	private final ClassLoader classLoader = getClass().getClassLoader();
+
+	@Test
+	public void testCodecNames() {
+		assertNull(BlockCompressionFactories.create(null, classLoader));
+		assertNull(BlockCompressionFactories.create("none", classLoader));
+		assertTrue(BlockCompressionFactories.create("LZ4", classLoader) instanceof Lz4BlockCompressionFactory);
+		assertTrue(BlockCompressionFactories.create(" lz4 ", classLoader) instanceof Lz4BlockCompressionFactory);
+		assertTrue(BlockCompressionFactories.create(Lz4BlockCompressionFactory.class.getName(), classLoader)
+			instanceof Lz4BlockCompressionFactory);
+	}
+
+	@Test
+	public void testUnknownCodec() {
+		try {
+			BlockCompressionFactories.create("org.apache.flink.NoSuchCodec", classLoader);
+			fail("Expected an exception for an unknown codec.");
+		}
+		catch (IllegalConfigurationException expected) {
+			// expected
+		}
+
+		try {
+			BlockCompressionFactories.create(String.class.getName(), classLoader);
+			fail("Expected an exception for a class that is no compression factory.");
+		}
+		catch (IllegalConfigurationException expected) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testJobCodecOverridesTaskManagerCodec() {
+		final Configuration config = new Configuration();
+		assertNull(BlockCompressionFactories.fromConfig(null, config, classLoader));
+
+		config.setString(TaskManagerOptions.SPILL_COMPRESSION_CODEC, BlockCompressionFactories.LZ4);
+		assertTrue(BlockCompressionFactories.fromConfig(null, config, classLoader) instanceof Lz4BlockCompressionFactory);
+		assertNull(BlockCompressionFactories.fromConfig(BlockCompressionFactories.NONE, config, classLoader));
+
+		assertNull(BlockCompressionFactories.forTask(null));
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.compression;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link Lz4BlockCompressor} and {@link Lz4BlockDecompressor}.
+ */
+public class Lz4BlockCompressionTest {
+
+	private final BlockCompressor compressor = new Lz4BlockCompressionFactory().getCompressor();
+
+	private final BlockDecompressor decompressor = new Lz4BlockCompressionFactory().getDecompressor();
+
+	@Test
+	public void testEmptyBlock() throws IOException {
+		assertArrayEquals(new byte[0], roundTrip(new byte[0]));
+	}
+
+	@Test
+	public void testCompressibleData() throws IOException {
+		final byte[] zeros = new byte[32 * 1024];
+		final byte[] compressed = new byte[compressor.getMaxCompressedSize(zeros.length)];
+		final int compressedLength = compressor.compress(zeros, 0, zeros.length, compressed, 0);
+
+		assertTrue("Compressed length " + compressedLength, compressedLength < zeros.length / 100);
+		assertArrayEquals(zeros, roundTrip(zeros));
+
+		// repeating records with small differences, like spilled sort runs
+		final byte[] records = new byte[32 * 1024];
+		for (int i = 0; i < records.length; i++) {
+			records[i] = (byte) (i % 64 == 0 ? i / 64 : i % 7);
+		}
+		assertArrayEquals(records, roundTrip(records));
+	}
+
+	@Test
+	public void testIncompressibleData() throws IOException {
+		final byte[] data = new byte[32 * 1024];
+		new Random(42L).nextBytes(data);
+
+		final byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+		final int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+		assertTrue(compressedLength <= compressor.getMaxCompressedSize(data.length));
+		assertArrayEquals(data, roundTrip(data));
+	}
+
+	@Test
+	public void testRandomBlocks() throws IOException {
+		final Random random = new Random(17L);
+
+		for (int i = 0; i < 1000; i++) {
+			final byte[] data = new byte[random.nextInt(4096)];
+
+			// mix runs, repetitions at varying distances, and random bytes
+			int pos = 0;
+			while (pos < data.length) {
+				final int len = Math.min(data.length - pos, 1 + random.nextInt(64));
+				switch (random.nextInt(3)) {
+					case 0:
+						Arrays.fill(data, pos, pos + len, (byte) random.nextInt(4));
+						break;
+					case 1:
+						if (pos > 0) {
+							final int from = random.nextInt(pos);
+							for (int k = 0; k < len; k++) {
+								data[pos + k] = data[from + k];
+							}
+							break;
+						}
+						// fall through
+					default:
+						for (int k = 0; k < len; k++) {
+							data[pos + k] = (byte) random.nextInt();
+						}
+				}
+				pos += len;
+			}
+
+			assertArrayEquals(data, roundTrip(data));
+		}
+	}
+
+	@Test
+	public void testOffsets() throws IOException {
+		final byte[] data = new byte[1000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 10);
+		}
+
+		final byte[] compressed = new byte[17 + compressor.getMaxCompressedSize(900)];
+		final int compressedLength = compressor.compress(data, 50, 900, compressed, 17);
+
+		final byte[] decompressed = new byte[1000];
+		assertEquals(900, decompressor.decompress(compressed, 17, compressedLength, decompressed, 100, 900));
+		assertArrayEquals(Arrays.copyOfRange(data, 50, 950), Arrays.copyOfRange(decompressed, 100, 1000));
+	}
+
+	@Test
+	public void testTargetTooSmall() {
+		final byte[] data = new byte[1024];
+		final byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+		final int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+		try {
+			decompressor.decompress(compressed, 0, compressedLength, new byte[1023], 0, 1023);
+			fail("Expected an exception for a too small target.");
+		}
+		catch (IOException expected) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCorruptData() {
+		final Random random = new Random(7L);
+		final byte[] data = new byte[4096];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i % 13);
+		}
+
+		final byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+		final int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+		// corrupt data must never lead to exceptions other than IOExceptions
+		for (int i = 0; i < 1000; i++) {
+			final byte[] corrupt = Arrays.copyOf(compressed, compressedLength);
+			corrupt[random.nextInt(compressedLength)] = (byte) random.nextInt();
+
+			try {
+				decompressor.decompress(corrupt, 0, corrupt.length, new byte[data.length], 0, data.length);
+			}
+			catch (IOException ignored) {
+				// expected for most corruptions
+			}
+		}
+
+		try {
+			decompressor.decompress(compressed, 0, compressedLength - 1, new byte[data.length], 0, data.length);
+			fail("Expected an exception for truncated data.");
+		}
+		catch (IOException expected) {
+			// expected
+		}
+	}
+
+	private byte[] roundTrip(byte[] data) throws IOException {
+		final byte[] compressed = new byte[compressor.getMaxCompressedSize(data.length)];
+		final int compressedLength = compressor.compress(data, 0, data.length, compressed, 0);
+
+		final byte[] decompressed = new byte[data.length];
+		final int length = decompressor.decompress(compressed, 0, compressedLength, decompressed, 0, decompressed.length);
+		assertEquals(data.length, length);
+
+		return decompressed;
+	}
+}
@@ -25,6 +25,8 @@ import java.util.List;
 import org.apache.flink.core.memory.MemoryType;
 import org.junit.Assert;
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
 import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
@@ -142,6 +144,46 @@ public class ChannelViewsTest
 		reader.deleteChannel();
 	}
 	
+	@Test
+	public void testWriteReadSmallRecordsCompressed() throws Exception
+	{
+		final TestData.TupleGenerator generator = new TestData.TupleGenerator(SEED, KEY_MAX, VALUE_SHORT_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+		final FileIOChannel.ID channel = this.ioManager.createChannel();
+		final TypeSerializer<Tuple2<Integer, String>> serializer = TestData.getIntStringTupleSerializer();
+		final BlockCompressionFactory compression = new Lz4BlockCompressionFactory();
+		
+		// create the writer output view
+		List<MemorySegment> memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelWriter<MemorySegment> writer = this.ioManager.createBlockChannelWriter(channel, compression);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, memory, MEMORY_PAGE_SIZE);
+		// write a number of pairs
+		final Tuple2<Integer, String> rec = new Tuple2<>();
+		for (int i = 0; i < NUM_PAIRS_SHORT; i++) {
+			generator.next(rec);
+			serializer.serialize(rec, outView);
+		}
+		this.memoryManager.release(outView.close());
+		
+		// create the reader input view
+		memory = this.memoryManager.allocatePages(this.parentTask, NUM_MEMORY_SEGMENTS);
+		final BlockChannelReader<MemorySegment> reader = this.ioManager.createBlockChannelReader(channel, compression);
+		final ChannelReaderInputView inView = new ChannelReaderInputView(reader, memory, outView.getBlockCount(), true);
+		generator.reset();
+		
+		// read and re-generate all records and compare them
+		final Tuple2<Integer, String> readRec = new Tuple2<>();
+		for (int i = 0; i < NUM_PAIRS_SHORT; i++) {
+			generator.next(rec);
+			serializer.deserialize(readRec, inView);
+			
+			Assert.assertTrue("The re-generated and the read record do not match.", 
+				rec.f0.equals(readRec.f0) && rec.f1.equals(readRec.f1));
+		}
+		
+		this.memoryManager.release(inView.close());
+		reader.deleteChannel();
+	}
+	
 	@Test
 	public void testWriteAndReadLongRecords() throws Exception
 	{
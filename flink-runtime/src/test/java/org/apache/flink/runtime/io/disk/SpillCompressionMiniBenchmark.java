@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
+import org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelReader;
+import org.apache.flink.runtime.io.disk.iomanager.BlockChannelWriter;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelReaderInputView;
+import org.apache.flink.runtime.io.disk.iomanager.ChannelWriterOutputView;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.operators.testutils.TestData;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.KeyMode;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.ValueMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares spilling records through a {@link ChannelWriterOutputView} and reading them back through
+ * a {@link ChannelReaderInputView} without compression and with LZ4 compression. Reports the
+ * throughput of the uncompressed blocks and the number of bytes written to disk, for
+ * records with random keys and values of random length (as spilled by sorters and hash tables),
+ * and for records with sorted keys and constant values (as in highly redundant data).
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method. The results
+ * depend heavily on the disk: the slower the disk, the more the compression pays off.
+ */
+public class SpillCompressionMiniBenchmark {
+
+	private static final int NUM_RECORDS = 5000000;
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int NUM_SEGMENTS = 8;
+
+	private static final int NUM_ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		final int numRecords = args.length > 0 ? Integer.parseInt(args[0]) : NUM_RECORDS;
+
+		final IOManager ioManager = new IOManagerAsync();
+		try {
+			for (int round = 0; round < NUM_ROUNDS; ++round) {
+				System.out.println("Round " + round + " with " + numRecords + " records:");
+
+				for (ValueMode valueMode : new ValueMode[] {ValueMode.RANDOM_LENGTH, ValueMode.CONSTANT}) {
+					final KeyMode keyMode = valueMode == ValueMode.CONSTANT ? KeyMode.SORTED : KeyMode.RANDOM;
+
+					run(ioManager, "  " + valueMode + " values, uncompressed", null, keyMode, valueMode, numRecords);
+					run(ioManager, "  " + valueMode + " values, LZ4         ", new Lz4BlockCompressionFactory(),
+						keyMode, valueMode, numRecords);
+				}
+			}
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+
+	private static void run(
+			IOManager ioManager,
+			String name,
+			BlockCompressionFactory compression,
+			KeyMode keyMode,
+			ValueMode valueMode,
+			int numRecords) throws Exception {
+
+		final TestData.TupleGenerator generator =
+			new TestData.TupleGenerator(42L, Integer.MAX_VALUE, 100, keyMode, valueMode, "constant value of a record");
+		final TypeSerializer<Tuple2<Integer, String>> serializer = TestData.getIntStringTupleSerializer();
+		final Tuple2<Integer, String> record = new Tuple2<>();
+
+		final FileIOChannel.ID channel = ioManager.createChannel();
+
+		// spill
+		final long writeStart = System.nanoTime();
+
+		final BlockChannelWriter<MemorySegment> writer = ioManager.createBlockChannelWriter(channel, compression);
+		final ChannelWriterOutputView outView = new ChannelWriterOutputView(writer, allocateSegments(), SEGMENT_SIZE);
+		for (int i = 0; i < numRecords; i++) {
+			generator.next(record);
+			serializer.serialize(record, outView);
+		}
+		outView.close();
+
+		final long writeNanos = System.nanoTime() - writeStart;
+		// the blocks have the size of the segments before compression
+		final long rawBytes = (long) outView.getBlockCount() * SEGMENT_SIZE;
+		final long fileBytes = channel.getPathFile().length();
+
+		// read back
+		final long readStart = System.nanoTime();
+
+		final BlockChannelReader<MemorySegment> reader = ioManager.createBlockChannelReader(channel, compression);
+		final ChannelReaderInputView inView =
+			new ChannelReaderInputView(reader, allocateSegments(), outView.getBlockCount(), true);
+		for (int i = 0; i < numRecords; i++) {
+			serializer.deserialize(record, inView);
+		}
+		inView.close();
+
+		final long readNanos = System.nanoTime() - readStart;
+
+		reader.deleteChannel();
+
+		System.out.println(String.format(
+			"%s: write %8.2f MB/s, read %8.2f MB/s, %,14d bytes on disk (%5.1f%% of %,d bytes)",
+			name,
+			rawBytes / (writeNanos / 1000.0),
+			rawBytes / (readNanos / 1000.0),
+			fileBytes,
+			100.0 * fileBytes / rawBytes,
+			rawBytes));
+	}
+
+	private static List<MemorySegment> allocateSegments() {
+		final List<MemorySegment> segments = new ArrayList<>(NUM_SEGMENTS);
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+		}
+		return segments;
+	}
+}
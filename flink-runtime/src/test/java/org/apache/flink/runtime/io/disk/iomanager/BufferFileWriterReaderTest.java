@@ -20,6 +20,7 @@ package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.Lz4BlockCompressionFactory;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
 import org.apache.flink.runtime.testutils.DiscardingRecycler;
@@ -176,6 +177,62 @@ public class BufferFileWriterReaderTest {
 		}
 	}
 
+	@Test
+	public void testWriteReadCompressed() throws IOException {
+		final FileIOChannel.ID channel = ioManager.createChannel();
+		final BufferFileWriter compressedWriter = ioManager.createBufferFileWriter(channel, new Lz4BlockCompressionFactory());
+		final BufferFileReader compressedReader = new SynchronousBufferFileReader(channel, false, new Lz4BlockCompressionFactory());
+
+		try {
+			int numBuffers = 1024;
+			int currentNumber = 0;
+
+			final int minBufferSize = BUFFER_SIZE / 4;
+
+			// Write buffers filled with ascending numbers, and an event in between...
+			for (int i = 0; i < numBuffers; i++) {
+				final Buffer buffer = createBuffer();
+
+				int size = getNextMultipleOf(getRandomNumberInRange(minBufferSize, BUFFER_SIZE), 4);
+
+				buffer.setSize(size);
+
+				currentNumber = fillBufferWithAscendingNumbers(buffer, currentNumber);
+
+				if (i == numBuffers / 2) {
+					buffer.tagAsEvent();
+				}
+
+				compressedWriter.writeBlock(buffer);
+			}
+
+			// Make sure that the writes are finished
+			compressedWriter.close();
+
+			// Ascending numbers are compressible
+			assertTrue(channel.getPathFile().length() < (long) numBuffers * minBufferSize);
+
+			// Read buffers back in and verify that the content is the same
+			currentNumber = 0;
+
+			for (int i = 0; i < numBuffers; i++) {
+				assertFalse(compressedReader.hasReachedEndOfFile());
+
+				final Buffer buffer = createBuffer();
+				compressedReader.readInto(buffer);
+
+				assertEquals(i != numBuffers / 2, buffer.isBuffer());
+				currentNumber = verifyBufferFilledWithAscendingNumbers(buffer, currentNumber);
+			}
+
+			assertTrue(compressedReader.hasReachedEndOfFile());
+		}
+		finally {
+			compressedReader.close();
+			compressedWriter.deleteChannel();
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	private int getRandomNumberInRange(int min, int max) {
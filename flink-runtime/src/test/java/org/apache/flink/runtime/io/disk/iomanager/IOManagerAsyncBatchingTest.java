@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the merging of block requests and for the multiple I/O threads per directory of the
+ * {@link IOManagerAsync}.
+ */
+public class IOManagerAsyncBatchingTest {
+
+	private static final int SEGMENT_SIZE = 8 * 1024;
+
+	@Test
+	public void testMergedWritesAndReads() throws Exception {
+		final int numBlocks = 3 * IOManagerAsync.MAX_BATCH_SIZE + 5;
+		final IOManagerAsync ioManager = new IOManagerAsync();
+		try {
+			final FileIOChannel.ID channel = ioManager.createChannel();
+			final BlockChannelWriter<MemorySegment> writer = ioManager.createBlockChannelWriter(channel);
+
+			// block the writer thread, such that all writes wait in its queue and are merged
+			final CountDownLatch writesIssued = new CountDownLatch(1);
+			ioManager.getWriteRequestQueue(channel).add(new BlockingWriteRequest(writesIssued));
+
+			for (int i = 0; i < numBlocks; i++) {
+				writer.writeBlock(createSegment(i));
+			}
+			assertTrue(ioManager.getWriteQueueDepth(0) >= numBlocks);
+			writesIssued.countDown();
+			writer.close();
+
+			assertEquals(0, ioManager.getWriteQueueDepth(0));
+			assertEquals(numBlocks + 1, ioManager.getNumWriteRequests(0));
+			assertTrue(ioManager.getWriteLatency(0) >= 0.0);
+
+			// block the reader thread in the same way
+			final BlockChannelReader<MemorySegment> reader = ioManager.createBlockChannelReader(channel);
+			final CountDownLatch readsIssued = new CountDownLatch(1);
+			ioManager.getReadRequestQueue(channel).add(new BlockingReadRequest(readsIssued));
+
+			for (int i = 0; i < numBlocks; i++) {
+				reader.readBlock(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+			}
+			readsIssued.countDown();
+
+			for (int i = 0; i < numBlocks; i++) {
+				verifySegment(reader.getNextReturnedBlock(), i);
+			}
+			reader.closeAndDelete();
+
+			assertEquals(numBlocks + 1, ioManager.getNumReadRequests(0));
+		}
+		finally {
+			ioManager.shutdown();
+		}
+		assertTrue(ioManager.isProperlyShutDown());
+	}
+
+	@Test
+	public void testReadBehindEndOfFile() throws Exception {
+		final IOManagerAsync ioManager = new IOManagerAsync();
+		try {
+			final FileIOChannel.ID channel = ioManager.createChannel();
+			final BlockChannelWriter<MemorySegment> writer = ioManager.createBlockChannelWriter(channel);
+			writer.writeBlock(createSegment(1));
+			writer.writeBlock(createSegment(2));
+			writer.close();
+
+			final BlockChannelReader<MemorySegment> reader = ioManager.createBlockChannelReader(channel);
+			final CountDownLatch readsIssued = new CountDownLatch(1);
+			ioManager.getReadRequestQueue(channel).add(new BlockingReadRequest(readsIssued));
+
+			// the merged read asks for more blocks than the file has
+			final List<MemorySegment> segments = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE);
+				segment.putInt(0, -1);
+				segments.add(segment);
+				reader.readBlock(segment);
+			}
+			readsIssued.countDown();
+
+			verifySegment(reader.getNextReturnedBlock(), 1);
+			verifySegment(reader.getNextReturnedBlock(), 2);
+			assertEquals(-1, reader.getNextReturnedBlock().getInt(0));
+			assertEquals(-1, reader.getNextReturnedBlock().getInt(0));
+			reader.closeAndDelete();
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+
+	@Test
+	public void testMultipleThreadsPerDirectory() throws Exception {
+		final int numThreads = 3;
+		final int numChannels = 7;
+		final int numBlocks = 100;
+
+		final String tmpDir = System.getProperty("java.io.tmpdir");
+		final IOManagerAsync ioManager = new IOManagerAsync(new String[] {tmpDir, tmpDir}, numThreads);
+		try {
+			assertEquals(numThreads, ioManager.getNumberOfThreadsPerDirectory());
+
+			final FileIOChannel.ID[] channels = new FileIOChannel.ID[numChannels];
+			final List<BlockChannelWriter<MemorySegment>> writers = new ArrayList<>();
+			for (int c = 0; c < numChannels; c++) {
+				channels[c] = ioManager.createChannel();
+				writers.add(ioManager.createBlockChannelWriter(channels[c]));
+			}
+
+			// interleave the writes of all channels
+			for (int i = 0; i < numBlocks; i++) {
+				for (int c = 0; c < numChannels; c++) {
+					writers.get(c).writeBlock(createSegment(c * numBlocks + i));
+				}
+			}
+			for (BlockChannelWriter<MemorySegment> writer : writers) {
+				writer.close();
+			}
+
+			final List<BlockChannelReader<MemorySegment>> readers = new ArrayList<>();
+			for (int c = 0; c < numChannels; c++) {
+				final BlockChannelReader<MemorySegment> reader = ioManager.createBlockChannelReader(channels[c]);
+				for (int i = 0; i < 4; i++) {
+					reader.readBlock(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+				}
+				readers.add(reader);
+			}
+
+			for (int i = 0; i < numBlocks; i++) {
+				for (int c = 0; c < numChannels; c++) {
+					final MemorySegment segment = readers.get(c).getNextReturnedBlock();
+					verifySegment(segment, c * numBlocks + i);
+					if (i + 4 < numBlocks) {
+						readers.get(c).readBlock(segment);
+					}
+				}
+			}
+			for (BlockChannelReader<MemorySegment> reader : readers) {
+				reader.closeAndDelete();
+			}
+
+			final long numRequests = numChannels * numBlocks;
+			assertEquals(numRequests, ioManager.getNumWriteRequests(0) + ioManager.getNumWriteRequests(1));
+			assertEquals(numRequests, ioManager.getNumReadRequests(0) + ioManager.getNumReadRequests(1));
+			assertEquals(0, ioManager.getReadQueueDepth(0) + ioManager.getReadQueueDepth(1));
+		}
+		finally {
+			ioManager.shutdown();
+		}
+		assertTrue(ioManager.isProperlyShutDown());
+	}
+
+	@Test
+	public void testOnlyUncompressedBlocksOfSameChannelAreMerged() throws Exception {
+		final IOManagerAsync ioManager = new IOManagerAsync();
+		try {
+			final AsynchronousBlockWriter first = new AsynchronousBlockWriter(
+				ioManager.createChannel(), new RequestQueue<WriteRequest>(), new LinkedBlockingQueue<MemorySegment>(), null);
+			final AsynchronousBlockWriter second = new AsynchronousBlockWriter(
+				ioManager.createChannel(), new RequestQueue<WriteRequest>(), new LinkedBlockingQueue<MemorySegment>(), null);
+			final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE);
+
+			final SegmentWriteRequest request = new SegmentWriteRequest(first, segment);
+			assertTrue(request.canBeBatchedWith(new SegmentWriteRequest(first, segment)));
+			assertFalse(request.canBeBatchedWith(new SegmentWriteRequest(second, segment)));
+			assertFalse(request.canBeBatchedWith(null));
+			assertFalse(request.canBeBatchedWith(new BlockingWriteRequest(new CountDownLatch(0))));
+
+			first.closeAndDelete();
+			second.closeAndDelete();
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static MemorySegment createSegment(int value) {
+		final MemorySegment segment = MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE);
+		for (int pos = 0; pos < segment.size(); pos += 4) {
+			segment.putInt(pos, value);
+		}
+		return segment;
+	}
+
+	private static void verifySegment(MemorySegment segment, int value) {
+		for (int pos = 0; pos < segment.size(); pos += 4) {
+			if (segment.getInt(pos) != value) {
+				fail("Read memory segment contains invalid data.");
+			}
+		}
+	}
+
+	/**
+	 * A request that blocks its I/O thread until the latch is released.
+	 */
+	private static final class BlockingWriteRequest implements WriteRequest {
+
+		private final CountDownLatch latch;
+
+		BlockingWriteRequest(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void write() throws IOException {
+			awaitUninterruptibly(latch);
+		}
+
+		@Override
+		public void requestDone(IOException ioex) {}
+	}
+
+	/**
+	 * A request that blocks its I/O thread until the latch is released.
+	 */
+	private static final class BlockingReadRequest implements ReadRequest {
+
+		private final CountDownLatch latch;
+
+		BlockingReadRequest(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void read() throws IOException {
+			awaitUninterruptibly(latch);
+		}
+
+		@Override
+		public void requestDone(IOException ioex) {}
+	}
+
+	private static void awaitUninterruptibly(CountDownLatch latch) throws IOException {
+		try {
+			latch.await();
+		}
+		catch (InterruptedException e) {
+			throw new IOException("Interrupted while blocking the I/O thread.");
+		}
+	}
+}
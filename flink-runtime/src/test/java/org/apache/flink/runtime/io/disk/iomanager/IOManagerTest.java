@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.disk.iomanager;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel.ID;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.junit.Rule;
@@ -101,6 +102,11 @@ public class IOManagerTest {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public BlockChannelWriter<MemorySegment> createBlockChannelWriter(ID channelID, LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) {
+			throw new UnsupportedOperationException();
+		}
+
 		@Override
 		public BlockChannelWriterWithCallback<MemorySegment> createBlockChannelWriter(ID channelID, RequestDoneCallback<MemorySegment> callback) {
 			throw new UnsupportedOperationException();
@@ -111,11 +117,21 @@ public class IOManagerTest {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public BlockChannelReader<MemorySegment> createBlockChannelReader(ID channelID, LinkedBlockingQueue<MemorySegment> returnQueue, BlockCompressionFactory compressionFactory) {
+			throw new UnsupportedOperationException();
+		}
+
 		@Override
 		public BufferFileWriter createBufferFileWriter(ID channelID) throws IOException {
 			throw new UnsupportedOperationException();
 		}
 
+		@Override
+		public BufferFileWriter createBufferFileWriter(ID channelID, BlockCompressionFactory compressionFactory) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
 		@Override
 		public BufferFileReader createBufferFileReader(ID channelID, RequestDoneCallback<Buffer> callback) throws IOException {
 			throw new UnsupportedOperationException();
@@ -130,5 +146,10 @@ public class IOManagerTest {
 		public BulkBlockChannelReader createBulkBlockChannelReader(ID channelID, List<MemorySegment> targetSegments, int numBlocks) {
 			throw new UnsupportedOperationException();
 		}
+
+		@Override
+		public BulkBlockChannelReader createBulkBlockChannelReader(ID channelID, List<MemorySegment> targetSegments, int numBlocks, BlockCompressionFactory compressionFactory) {
+			throw new UnsupportedOperationException();
+		}
 	}
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.disk.iomanager;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link MappedChannelReaderInputView} and the {@link MemoryMappedFile}.
+ */
+public class MappedChannelReaderInputViewTest {
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int NUM_SEGMENTS = 4;
+
+	private IOManager ioManager;
+
+	private FileIOChannel.ID channel;
+
+	@Before
+	public void setUp() {
+		ioManager = new IOManagerAsync();
+		channel = ioManager.createChannel();
+	}
+
+	@After
+	public void tearDown() {
+		if (channel != null) {
+			channel.getPathFile().delete();
+		}
+		ioManager.shutdown();
+	}
+
+	@Test
+	public void testReadWrittenRecords() throws Exception {
+		final int numRecords = 100000;
+		final int numBlocks = writeRecords(numRecords, 42L);
+		assertTrue("The records must span several blocks.", numBlocks > 1);
+
+		final MappedChannelReaderInputView view = new MappedChannelReaderInputView(
+			MemoryMappedFile.map(channel, SEGMENT_SIZE), SEGMENT_SIZE, numBlocks);
+		assertEquals(1, view.getFile().getNumberOfRegions());
+
+		final Random rnd = new Random(42L);
+		for (int i = 0; i < numRecords; i++) {
+			assertEquals(rnd.nextLong(), view.readLong());
+			assertEquals(i, view.readInt());
+		}
+
+		try {
+			view.readByte();
+			fail("The view should be exhausted.");
+		} catch (EOFException e) {
+			// expected
+		}
+
+		// the view gave back all segments, only the open file references the mapping
+		assertEquals(1, view.getFile().getReferenceCount());
+
+		view.close();
+		assertTrue(view.getFile().isClosed());
+		assertEquals(0, view.getFile().getReferenceCount());
+	}
+
+	@Test
+	public void testDeriveNumberOfBlocksFromFileSize() throws Exception {
+		final int numRecords = 10000;
+		final int numBlocks = writeRecords(numRecords, 17L);
+
+		final MemoryMappedFile file = MemoryMappedFile.map(channel, SEGMENT_SIZE);
+		assertEquals((long) numBlocks * SEGMENT_SIZE, file.getSize());
+
+		final MappedChannelReaderInputView view = new MappedChannelReaderInputView(file, SEGMENT_SIZE, -1);
+		final Random rnd = new Random(17L);
+		for (int i = 0; i < numRecords; i++) {
+			assertEquals(rnd.nextLong(), view.readLong());
+			assertEquals(i, view.readInt());
+		}
+		view.close();
+	}
+
+	@Test
+	public void testSegmentRanges() throws Exception {
+		writeRecords(10000, 1L);
+
+		final MemoryMappedFile file = MemoryMappedFile.map(channel, SEGMENT_SIZE);
+		try {
+			final MemorySegment segment = file.getSegment(SEGMENT_SIZE, SEGMENT_SIZE);
+			assertTrue(segment.isOffHeap());
+			assertEquals(SEGMENT_SIZE, segment.size());
+			assertEquals(ChannelWriterOutputView.HEADER_MAGIC_NUMBER, segment.getShort(0));
+
+			try {
+				file.getSegment(file.getSize() - 1, 2);
+				fail("The range exceeds the file.");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+
+			try {
+				file.getSegment(-1, 1);
+				fail("The range starts before the file.");
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		} finally {
+			file.close();
+		}
+
+		try {
+			file.getSegment(0, 1);
+			fail("The file has been closed.");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testUnmapOnceAllSegmentsAreReleased() throws Exception {
+		writeRecords(10000, 3L);
+
+		final MemoryMappedFile file = MemoryMappedFile.map(channel, SEGMENT_SIZE);
+		final MemorySegment first = file.getSegment(0, SEGMENT_SIZE);
+		final MemorySegment second = file.getSegment(SEGMENT_SIZE, SEGMENT_SIZE);
+		assertEquals(3, file.getReferenceCount());
+
+		file.releaseSegment(first);
+		assertTrue(first.isFreed());
+		assertEquals(2, file.getReferenceCount());
+
+		// releasing a segment twice does not give back another reference
+		file.releaseSegment(first);
+		assertEquals(2, file.getReferenceCount());
+
+		// the segment that is still in use keeps the mapping alive after the file is closed
+		file.close();
+		assertTrue(file.isClosed());
+		assertEquals(1, file.getReferenceCount());
+		assertEquals(ChannelWriterOutputView.HEADER_MAGIC_NUMBER, second.getShort(0));
+
+		file.releaseSegment(second);
+		assertEquals(0, file.getReferenceCount());
+
+		try {
+			file.releaseSegment(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+			fail("The segment was not handed out by the file.");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private int writeRecords(int numRecords, long seed) throws Exception {
+		final List<MemorySegment> memory = new ArrayList<>(NUM_SEGMENTS);
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			memory.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+		}
+
+		final ChannelWriterOutputView out = new ChannelWriterOutputView(
+			ioManager.createBlockChannelWriter(channel), memory, SEGMENT_SIZE);
+
+		final Random rnd = new Random(seed);
+		for (int i = 0; i < numRecords; i++) {
+			out.writeLong(rnd.nextLong());
+			out.writeInt(i);
+		}
+
+		out.close();
+		return out.getBlockCount();
+	}
+}
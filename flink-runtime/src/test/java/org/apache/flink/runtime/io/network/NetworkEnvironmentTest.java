@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network;
+
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
+import org.apache.flink.runtime.io.network.partition.ResultPartition;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
+import org.apache.flink.runtime.io.network.partition.ResultPartitionManager;
+import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
+import org.apache.flink.runtime.io.network.partition.consumer.SingleInputGate;
+import org.apache.flink.runtime.jobgraph.IntermediateDataSetID;
+import org.apache.flink.runtime.operators.testutils.UnregisteredTaskMetricsGroup;
+import org.apache.flink.runtime.query.KvStateRegistry;
+import org.apache.flink.runtime.taskmanager.Task;
+import org.apache.flink.runtime.taskmanager.TaskActions;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for the setup of the network resources of tasks in the {@link NetworkEnvironment}.
+ */
+public class NetworkEnvironmentTest {
+
+	private static final int BUFFERS_PER_CHANNEL = 2;
+
+	private static final int FLOATING_BUFFERS_PER_GATE = 1;
+
+	/**
+	 * Tests that the buffer pool of an input gate holds only the floating buffers, while the
+	 * remote channels get their exclusive buffers from the network buffer pool.
+	 */
+	@Test
+	public void testInputGateBufferPoolHoldsFloatingBuffers() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(20, 128, MemoryType.HEAP);
+		final NetworkEnvironment network = createNetworkEnvironment(networkBufferPool);
+
+		final SingleInputGate gate = createRemoteInputGate(4);
+		network.registerTask(createTask(gate));
+
+		assertEquals(FLOATING_BUFFERS_PER_GATE, gate.getBufferPool().getNumberOfRequiredMemorySegments());
+		assertEquals(20 - 4 * BUFFERS_PER_CHANNEL, networkBufferPool.getNumberOfAvailableMemorySegments());
+
+		gate.releaseAllResources();
+		assertEquals(20, networkBufferPool.getNumberOfAvailableMemorySegments());
+
+		networkBufferPool.destroy();
+	}
+
+	/**
+	 * Tests that the exclusive buffers which were assigned before the registration of a task
+	 * failed are returned to the network buffer pool right away.
+	 */
+	@Test
+	public void testExclusiveBuffersAreRecycledWhenRegistrationFails() throws Exception {
+		// enough buffers for the first gate, but not for the second one
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(12, 128, MemoryType.HEAP);
+		final NetworkEnvironment network = createNetworkEnvironment(networkBufferPool);
+
+		final SingleInputGate first = createRemoteInputGate(2);
+		final SingleInputGate second = createRemoteInputGate(4);
+
+		try {
+			network.registerTask(createTask(first, second));
+			fail("The registration should fail due to insufficient network buffers.");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertEquals(12, networkBufferPool.getNumberOfAvailableMemorySegments());
+
+		// all buffers can be requested again
+		networkBufferPool.recycleMemorySegments(networkBufferPool.requestMemorySegments(12));
+
+		networkBufferPool.destroy();
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static NetworkEnvironment createNetworkEnvironment(NetworkBufferPool networkBufferPool) {
+		return new NetworkEnvironment(
+			networkBufferPool,
+			new LocalConnectionManager(),
+			new ResultPartitionManager(),
+			new TaskEventDispatcher(),
+			new KvStateRegistry(),
+			null,
+			IOManager.IOMode.SYNC,
+			0,
+			0,
+			BUFFERS_PER_CHANNEL,
+			FLOATING_BUFFERS_PER_GATE);
+	}
+
+	private static SingleInputGate createRemoteInputGate(int numberOfChannels) {
+		final SingleInputGate gate = new SingleInputGate(
+			"Test Task Name",
+			new JobID(),
+			new IntermediateDataSetID(),
+			0,
+			numberOfChannels,
+			mock(TaskActions.class),
+			new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+
+		for (int i = 0; i < numberOfChannels; i++) {
+			final ResultPartitionID partitionId = new ResultPartitionID();
+			final RemoteInputChannel channel = new RemoteInputChannel(
+				gate,
+				i,
+				partitionId,
+				new ConnectionID(new InetSocketAddress("localhost", 5000), i),
+				mock(ConnectionManager.class),
+				new UnregisteredTaskMetricsGroup.DummyTaskIOMetricGroup());
+			gate.setInputChannel(partitionId.getPartitionId(), channel);
+		}
+
+		return gate;
+	}
+
+	private static Task createTask(SingleInputGate... gates) {
+		final Task task = mock(Task.class);
+		when(task.getProducedPartitions()).thenReturn(new ResultPartition[0]);
+		when(task.getAllWriters()).thenReturn(new ResultPartitionWriter[0]);
+		when(task.getAllInputGates()).thenReturn(gates);
+		return task;
+	}
+}
@@ -47,6 +47,34 @@ public class EventSerializerTest {
 
 		CheckpointOptions savepoint = CheckpointOptions.forSavepoint("1289031838919123");
 		testCheckpointBarrierSerialization(id, timestamp, savepoint);
+
+		CheckpointOptions unaligned = CheckpointOptions.forUnalignedCheckpoint();
+		testCheckpointBarrierSerialization(id, timestamp, unaligned);
+	}
+
+	/**
+	 * Tests that the barriers of unaligned checkpoints keep their flag and can be recognized
+	 * without deserializing them.
+	 */
+	@Test
+	public void testUnalignedCheckpointBarrier() throws Exception {
+		CheckpointBarrier unaligned = new CheckpointBarrier(42L, 1337L, CheckpointOptions.forUnalignedCheckpoint());
+		CheckpointBarrier aligned = new CheckpointBarrier(42L, 1337L, CheckpointOptions.forFullCheckpoint());
+		CheckpointBarrier savepoint = new CheckpointBarrier(42L, 1337L, CheckpointOptions.forSavepoint("target"));
+
+		Buffer unalignedBuffer = EventSerializer.toBuffer(unaligned);
+		assertTrue(EventSerializer.isUnalignedCheckpointBarrier(unalignedBuffer));
+		assertFalse(EventSerializer.isUnalignedCheckpointBarrier(EventSerializer.toBuffer(aligned)));
+		assertFalse(EventSerializer.isUnalignedCheckpointBarrier(EventSerializer.toBuffer(savepoint)));
+		assertFalse(EventSerializer.isUnalignedCheckpointBarrier(EventSerializer.toBuffer(EndOfPartitionEvent.INSTANCE)));
+
+		CheckpointBarrier deserialized = (CheckpointBarrier) EventSerializer.fromBuffer(
+				unalignedBuffer, getClass().getClassLoader());
+		assertTrue(deserialized.getCheckpointOptions().isUnaligned());
+
+		deserialized = (CheckpointBarrier) EventSerializer.fromBuffer(
+				EventSerializer.toBuffer(aligned), getClass().getClassLoader());
+		assertFalse(deserialized.getCheckpointOptions().isUnaligned());
 	}
 
 	private void testCheckpointBarrierSerialization(long id, long timestamp, CheckpointOptions options) throws IOException {
@@ -61,6 +89,7 @@ public class EventSerializerTest {
 		assertEquals(timestamp, deserialized.getTimestamp());
 		assertEquals(options.getCheckpointType(), deserialized.getCheckpointOptions().getCheckpointType());
 		assertEquals(options.getTargetLocation(), deserialized.getCheckpointOptions().getTargetLocation());
+		assertEquals(options.isUnaligned(), deserialized.getCheckpointOptions().isUnaligned());
 	}
 
 	@Test
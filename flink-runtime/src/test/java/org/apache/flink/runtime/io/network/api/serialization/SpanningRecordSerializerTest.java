@@ -27,10 +27,12 @@ import org.apache.flink.runtime.io.network.api.serialization.types.Serialization
 import org.apache.flink.runtime.io.network.api.serialization.types.Util;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferRecycler;
+import org.apache.flink.runtime.util.DataOutputSerializer;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Random;
 
 import static org.mockito.Mockito.mock;
@@ -131,6 +133,47 @@ public class SpanningRecordSerializerTest {
 		}
 	}
 
+	/**
+	 * Tests that an already serialized record is written to the target buffers exactly like
+	 * the record itself, and that the shared bytes of the record are not modified.
+	 */
+	@Test
+	public void testSerializedRecordSpanningMultipleSegments() throws Exception {
+		final int SEGMENT_SIZE = 11;
+
+		final SerializationTestType record = Util.randomRecord(SerializationTestTypeFactory.STRING);
+
+		final DataOutputSerializer serializationBuffer = new DataOutputSerializer(128);
+		record.write(serializationBuffer);
+		final ByteBuffer serializedRecord = serializationBuffer.wrapAsByteBuffer();
+		final int serializedLength = serializedRecord.remaining();
+
+		final SpanningRecordSerializer<SerializationTestType> expectedSerializer = new SpanningRecordSerializer<>();
+		final SpanningRecordSerializer<SerializationTestType> actualSerializer = new SpanningRecordSerializer<>();
+
+		RecordSerializer.SerializationResult expectedResult = expectedSerializer.addRecord(record);
+		RecordSerializer.SerializationResult actualResult = actualSerializer.addSerializedRecord(serializedRecord);
+
+		Assert.assertEquals(expectedResult, actualResult);
+		Assert.assertEquals(0, serializedRecord.position());
+		Assert.assertEquals(serializedLength, serializedRecord.remaining());
+
+		do {
+			final Buffer expectedBuffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE), mock(BufferRecycler.class));
+			final Buffer actualBuffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE), mock(BufferRecycler.class));
+
+			expectedResult = expectedSerializer.setNextBuffer(expectedBuffer);
+			actualResult = actualSerializer.setNextBuffer(actualBuffer);
+
+			Assert.assertEquals(expectedResult, actualResult);
+			Assert.assertEquals(expectedSerializer.getCurrentBuffer().getNioBuffer(), actualSerializer.getCurrentBuffer().getNioBuffer());
+		}
+		while (!expectedResult.isFullRecord());
+
+		Assert.assertEquals(0, serializedRecord.position());
+		Assert.assertEquals(serializedLength, serializedRecord.remaining());
+	}
+
 	@Test
 	public void testIntRecordsSpanningMultipleSegments() {
 		final int SEGMENT_SIZE = 1;
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.api.writer;
+
+import org.apache.flink.core.io.IOReadableWritable;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.util.TestPooledBufferProvider;
+
+import java.io.IOException;
+
+/**
+ * Compares the throughput of {@link RecordWriter#broadcastEmit(IOReadableWritable)}, which serializes
+ * each record only once, with emitting each record separately to every channel, which serializes the
+ * record once per channel, for a growing number of channels.
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method. The written buffers
+ * are directly recycled, so that only the costs of the record writer are measured.
+ */
+public class BroadcastRecordWriterMiniBenchmark {
+
+	private static final int[] NUM_CHANNELS = {1, 10, 100, 400};
+
+	private static final int NUM_RECORD_COPIES = 20000000;
+
+	private static final int NUM_ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		final int numRecordCopies = args.length > 0 ? Integer.parseInt(args[0]) : NUM_RECORD_COPIES;
+
+		for (int round = 0; round < NUM_ROUNDS; ++round) {
+			System.out.println("Round " + round + " with " + numRecordCopies + " record copies per run:");
+
+			for (int numChannels : NUM_CHANNELS) {
+				final int numRecords = Math.max(1, numRecordCopies / numChannels);
+
+				final long perChannelNanos = runPerChannelEmit(numChannels, numRecords);
+				final long broadcastNanos = runBroadcastEmit(numChannels, numRecords);
+
+				System.out.println(String.format(
+						"  %4d channels: per-channel emit %8.2f records/ms, broadcast emit %8.2f records/ms",
+						numChannels,
+						numRecords / (perChannelNanos / 1000000.0),
+						numRecords / (broadcastNanos / 1000000.0)));
+			}
+		}
+	}
+
+	private static long runBroadcastEmit(int numChannels, int numRecords) throws Exception {
+		final RecordWriter<BenchmarkRecord> writer = new RecordWriter<>(
+				new RecyclingPartitionWriter(numChannels), new RoundRobinChannelSelector<BenchmarkRecord>());
+		final BenchmarkRecord record = new BenchmarkRecord();
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < numRecords; ++i) {
+			record.setValue(i);
+			writer.broadcastEmit(record);
+		}
+		writer.flush();
+
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Emits every record separately to each channel, so that it is serialized once per channel,
+	 * like broadcasting records did before the record writer serialized broadcast records once.
+	 */
+	private static long runPerChannelEmit(int numChannels, int numRecords) throws Exception {
+		final RecordWriter<BenchmarkRecord> writer = new RecordWriter<>(
+				new RecyclingPartitionWriter(numChannels), new SingleChannelSelector());
+		final BenchmarkRecord record = new BenchmarkRecord();
+
+		final long start = System.nanoTime();
+		for (int i = 0; i < numRecords; ++i) {
+			record.setValue(i);
+			for (int channel = 0; channel < numChannels; ++channel) {
+				record.setTargetChannel(channel);
+				writer.emit(record);
+			}
+		}
+		writer.flush();
+
+		return System.nanoTime() - start;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Partition writer, which directly recycles all written buffers.
+	 */
+	private static final class RecyclingPartitionWriter extends ResultPartitionWriter {
+
+		private final int numChannels;
+
+		private final BufferProvider bufferProvider = new TestPooledBufferProvider(16);
+
+		RecyclingPartitionWriter(int numChannels) {
+			super(null);
+			this.numChannels = numChannels;
+		}
+
+		@Override
+		public BufferProvider getBufferProvider() {
+			return bufferProvider;
+		}
+
+		@Override
+		public int getNumberOfOutputChannels() {
+			return numChannels;
+		}
+
+		@Override
+		public void writeBuffer(Buffer buffer, int targetChannel) throws IOException {
+			buffer.recycle();
+		}
+	}
+
+	/**
+	 * Selects the channel that is set at the record.
+	 */
+	private static final class SingleChannelSelector implements ChannelSelector<BenchmarkRecord> {
+
+		private final int[] channel = new int[1];
+
+		@Override
+		public int[] selectChannels(BenchmarkRecord record, int numberOfOutputChannels) {
+			channel[0] = record.targetChannel;
+			return channel;
+		}
+	}
+
+	/**
+	 * Record with a few fields of different types, similar to a small tuple.
+	 */
+	private static final class BenchmarkRecord implements IOReadableWritable {
+
+		private long value;
+
+		private int targetChannel;
+
+		void setValue(long value) {
+			this.value = value;
+		}
+
+		void setTargetChannel(int targetChannel) {
+			this.targetChannel = targetChannel;
+		}
+
+		@Override
+		public void write(DataOutputView out) throws IOException {
+			out.writeLong(value);
+			out.writeInt((int) value);
+			out.writeDouble(value * 0.5);
+			out.writeBoolean((value & 1) == 0);
+			out.writeUTF("broadcast-record");
+		}
+
+		@Override
+		public void read(DataInputView in) throws IOException {
+			value = in.readLong();
+			in.readInt();
+			in.readDouble();
+			in.readBoolean();
+			in.readUTF();
+		}
+	}
+}
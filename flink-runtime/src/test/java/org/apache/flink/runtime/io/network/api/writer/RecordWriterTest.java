@@ -52,6 +52,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.Random;
@@ -434,10 +435,111 @@ public class RecordWriterTest {
 		assertTrue(buffer.isRecycled());
 	}
 
+	/**
+	 * Tests that a broadcast record is serialized only once, but written completely
+	 * to all channels, also when it spans several buffers.
+	 */
+	@Test
+	public void testBroadcastEmitSerializesRecordOnce() throws Exception {
+		final int numChannels = 4;
+		final int bufferSize = 16;
+
+		@SuppressWarnings("unchecked")
+		Queue<BufferOrEvent>[] queues = new Queue[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+
+		ResultPartitionWriter partition =
+			createCollectingPartitionWriter(queues, createBufferProvider(bufferSize));
+		RecordWriter<CountingByteArrayIO> writer = new RecordWriter<>(partition);
+
+		byte[] bytes = new byte[2 * bufferSize + 3];
+		new Random(42).nextBytes(bytes);
+		CountingByteArrayIO record = new CountingByteArrayIO(bytes);
+
+		writer.broadcastEmit(record);
+		writer.flush();
+
+		assertEquals(1, record.numWrites);
+
+		for (int i = 0; i < numChannels; i++) {
+			assertSerializedRecord(bytes, queues[i]);
+		}
+	}
+
+	/**
+	 * Tests that a record, which is emitted to several channels selected by the
+	 * {@link ChannelSelector}, is serialized only once.
+	 */
+	@Test
+	public void testMultiTargetEmitSerializesRecordOnce() throws Exception {
+		final int numChannels = 4;
+		final int bufferSize = 16;
+
+		@SuppressWarnings("unchecked")
+		Queue<BufferOrEvent>[] queues = new Queue[numChannels];
+		for (int i = 0; i < numChannels; i++) {
+			queues[i] = new ArrayDeque<>();
+		}
+
+		ResultPartitionWriter partition =
+			createCollectingPartitionWriter(queues, createBufferProvider(bufferSize));
+		RecordWriter<CountingByteArrayIO> writer = new RecordWriter<>(
+			partition,
+			new ChannelSelector<CountingByteArrayIO>() {
+				private final int[] channels = new int[] { 1, 3 };
+
+				@Override
+				public int[] selectChannels(CountingByteArrayIO record, int numberOfOutputChannels) {
+					return channels;
+				}
+			});
+
+		byte[] bytes = new byte[bufferSize + 1];
+		new Random(42).nextBytes(bytes);
+		CountingByteArrayIO record = new CountingByteArrayIO(bytes);
+
+		writer.emit(record);
+		writer.flush();
+
+		assertEquals(1, record.numWrites);
+
+		assertEquals(0, queues[0].size());
+		assertSerializedRecord(bytes, queues[1]);
+		assertEquals(0, queues[2].size());
+		assertSerializedRecord(bytes, queues[3]);
+	}
+
 	// ---------------------------------------------------------------------------------------------
 	// Helpers
 	// ---------------------------------------------------------------------------------------------
 
+	/**
+	 * Asserts that the buffers in the queue contain exactly the length header and
+	 * the bytes of one serialized record.
+	 */
+	private static void assertSerializedRecord(byte[] expectedBytes, Queue<BufferOrEvent> queue) {
+		ByteBuffer expected = ByteBuffer.allocate(4 + expectedBytes.length);
+		expected.putInt(expectedBytes.length);
+		expected.put(expectedBytes);
+
+		ByteBuffer actual = ByteBuffer.allocate(expected.capacity());
+		for (BufferOrEvent bufferOrEvent : queue) {
+			assertTrue(bufferOrEvent.isBuffer());
+
+			Buffer buffer = bufferOrEvent.getBuffer();
+			ByteBuffer nioBuffer = buffer.getNioBuffer();
+			assertTrue(nioBuffer.remaining() <= actual.remaining());
+
+			actual.put(nioBuffer);
+			buffer.recycle();
+		}
+
+		Assert.assertArrayEquals(expected.array(), actual.array());
+	}
+
+
 	/**
 	 * Creates a mock partition writer that collects the added buffers/events.
 	 *
@@ -546,6 +648,24 @@ public class RecordWriterTest {
 		}
 	}
 
+	/**
+	 * Byte array record, which counts how often it has been serialized.
+	 */
+	private static class CountingByteArrayIO extends ByteArrayIO {
+
+		private int numWrites;
+
+		CountingByteArrayIO(byte[] bytes) {
+			super(bytes);
+		}
+
+		@Override
+		public void write(DataOutputView out) throws IOException {
+			numWrites++;
+			super.write(out);
+		}
+	}
+
 	/**
 	 * RoundRobin channel selector starting at 0 ({@link RoundRobinChannelSelector} starts at 1).
 	 */
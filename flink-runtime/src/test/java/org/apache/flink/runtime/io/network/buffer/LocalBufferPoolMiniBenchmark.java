@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.buffer;
+
+import org.apache.flink.core.memory.MemoryType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Measures the throughput of requesting and recycling buffers of a {@link LocalBufferPool} with a
+ * growing number of threads, for two access patterns:
+ * <ul>
+ *     <li>Each thread requests a buffer and directly recycles it, like a task thread that serializes
+ *     records into buffers which are consumed locally.</li>
+ *     <li>Requesting threads hand their buffers to the same number of recycling threads, like task
+ *     threads producing buffers that are recycled by the network I/O threads after sending them.</li>
+ * </ul>
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method.
+ */
+public class LocalBufferPoolMiniBenchmark {
+
+	private static final int[] NUM_THREADS = {1, 2, 4, 8};
+
+	private static final int NUM_BUFFERS_PER_THREAD = 5000000;
+
+	private static final int POOL_SIZE = 64;
+
+	private static final int NUM_ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		final int numBuffersPerThread = args.length > 0 ? Integer.parseInt(args[0]) : NUM_BUFFERS_PER_THREAD;
+
+		for (int round = 0; round < NUM_ROUNDS; ++round) {
+			System.out.println("Round " + round + " with " + numBuffersPerThread + " buffers per thread:");
+
+			for (int numThreads : NUM_THREADS) {
+				final long requestRecycleNanos = runRequestAndRecycle(numThreads, numBuffersPerThread);
+				final long handoverNanos = runHandover(numThreads, numBuffersPerThread);
+
+				final long numBuffers = (long) numThreads * numBuffersPerThread;
+
+				System.out.println(String.format(
+						"  %2d thread(s): request+recycle %8.2f buffers/ms, handover %8.2f buffers/ms",
+						numThreads,
+						numBuffers / (requestRecycleNanos / 1000000.0),
+						numBuffers / (handoverNanos / 1000000.0)));
+			}
+		}
+	}
+
+	private static long runRequestAndRecycle(int numThreads, final int numBuffersPerThread) throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(POOL_SIZE, 4096, MemoryType.HEAP);
+		final BufferPool bufferPool = networkBufferPool.createBufferPool(POOL_SIZE, true);
+
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < numThreads; ++i) {
+			threads.add(new BenchmarkThread() {
+				@Override
+				void runBenchmark() throws Exception {
+					for (int j = 0; j < numBuffersPerThread; ++j) {
+						bufferPool.requestBufferBlocking().recycle();
+					}
+				}
+			});
+		}
+
+		final long nanos = runThreads(threads);
+
+		bufferPool.lazyDestroy();
+		networkBufferPool.destroy();
+
+		return nanos;
+	}
+
+	private static long runHandover(int numThreads, final int numBuffersPerThread) throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(POOL_SIZE, 4096, MemoryType.HEAP);
+		final BufferPool bufferPool = networkBufferPool.createBufferPool(POOL_SIZE, true);
+
+		final List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < numThreads; ++i) {
+			final BlockingQueue<Buffer> handover = new ArrayBlockingQueue<>(POOL_SIZE);
+
+			threads.add(new BenchmarkThread() {
+				@Override
+				void runBenchmark() throws Exception {
+					for (int j = 0; j < numBuffersPerThread; ++j) {
+						handover.put(bufferPool.requestBufferBlocking());
+					}
+				}
+			});
+
+			threads.add(new BenchmarkThread() {
+				@Override
+				void runBenchmark() throws Exception {
+					for (int j = 0; j < numBuffersPerThread; ++j) {
+						handover.take().recycle();
+					}
+				}
+			});
+		}
+
+		final long nanos = runThreads(threads);
+
+		bufferPool.lazyDestroy();
+		networkBufferPool.destroy();
+
+		return nanos;
+	}
+
+	private static long runThreads(List<Thread> threads) throws InterruptedException {
+		final long start = System.nanoTime();
+
+		for (Thread thread : threads) {
+			thread.start();
+		}
+
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		return System.nanoTime() - start;
+	}
+
+	// ------------------------------------------------------------------------
+
+	private abstract static class BenchmarkThread extends Thread {
+
+		abstract void runBenchmark() throws Exception;
+
+		@Override
+		public void run() {
+			try {
+				runBenchmark();
+			}
+			catch (Throwable t) {
+				t.printStackTrace();
+				System.exit(1);
+			}
+		}
+	}
+}
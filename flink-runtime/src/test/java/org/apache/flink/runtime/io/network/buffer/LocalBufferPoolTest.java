@@ -31,12 +31,14 @@ import org.mockito.Mockito;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
@@ -273,6 +275,46 @@ public class LocalBufferPoolTest {
 		}
 	}
 
+	/**
+	 * Tests buffers, which are requested by one thread and recycled by another thread,
+	 * like buffers handed from the task thread to the network I/O thread. The small
+	 * pool size makes the requester block frequently, so that the lock-free recycling
+	 * has to wake up the blocked requester.
+	 */
+	@Test
+	public void testConcurrentRequestAndRecycleByDifferentThreads() throws Exception {
+		final int numBuffersToRequest = 100000;
+
+		localBufferPool.setNumBuffers(2);
+
+		final BlockingQueue<Buffer> handover = new LinkedBlockingQueue<Buffer>();
+
+		Future<Boolean> requester = executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				for (int i = 0; i < numBuffersToRequest; i++) {
+					handover.add(localBufferPool.requestBufferBlocking());
+				}
+				return true;
+			}
+		});
+
+		Future<Boolean> recycler = executor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() throws Exception {
+				for (int i = 0; i < numBuffersToRequest; i++) {
+					handover.take().recycle();
+				}
+				return true;
+			}
+		});
+
+		assertTrue(requester.get(60, TimeUnit.SECONDS));
+		assertTrue(recycler.get(60, TimeUnit.SECONDS));
+
+		assertEquals(0, localBufferPool.bestEffortGetNumOfUsedBuffers());
+	}
+
 	@Test
 	public void testDestroyDuringBlockingRequest() throws Exception {
 		// Config
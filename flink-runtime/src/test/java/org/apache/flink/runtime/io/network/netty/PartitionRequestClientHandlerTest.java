@@ -26,7 +26,6 @@ import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.flink.core.memory.HeapMemorySegment;
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
-import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.BufferResponse;
 import org.apache.flink.runtime.io.network.netty.NettyMessage.ErrorResponse;
 import org.apache.flink.runtime.io.network.partition.PartitionNotFoundException;
@@ -35,17 +34,15 @@ import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.apache.flink.runtime.io.network.partition.consumer.RemoteInputChannel;
 import org.apache.flink.runtime.io.network.util.TestBufferFactory;
 import org.apache.flink.runtime.testutils.DiscardingRecycler;
-import org.apache.flink.runtime.util.event.EventListener;
 import org.junit.Test;
-import org.mockito.invocation.InvocationOnMock;
-import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicReference;
 
-import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -66,25 +63,67 @@ public class PartitionRequestClientHandlerTest {
 	 * @see <a href="https://issues.apache.org/jira/browse/FLINK-1627">FLINK-1627</a>
 	 */
 	@Test(timeout = 60000)
-	@SuppressWarnings("unchecked")
 	public void testReleaseInputChannelDuringDecode() throws Exception {
 		// Mocks an input channel in a state as it was released during a decode.
-		final BufferProvider bufferProvider = mock(BufferProvider.class);
-		when(bufferProvider.requestBuffer()).thenReturn(null);
-		when(bufferProvider.isDestroyed()).thenReturn(true);
-		when(bufferProvider.addListener(any(EventListener.class))).thenReturn(false);
-
 		final RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
 		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
-		when(inputChannel.getBufferProvider()).thenReturn(bufferProvider);
+		when(inputChannel.requestBuffer()).thenReturn(null);
+		when(inputChannel.isReleased()).thenReturn(true);
 
 		final BufferResponse ReceivedBuffer = createBufferResponse(
-				TestBufferFactory.createBuffer(), 0, inputChannel.getInputChannelId());
+				TestBufferFactory.createBuffer(), 0, inputChannel.getInputChannelId(), 0);
 
 		final PartitionRequestClientHandler client = new PartitionRequestClientHandler();
 		client.addInputChannel(inputChannel);
 
 		client.channelRead(mock(ChannelHandlerContext.class), ReceivedBuffer);
+
+		verify(inputChannel, never()).onError(any(Throwable.class));
+	}
+
+	/**
+	 * Verifies that a buffer, which is received without an available buffer at the
+	 * input channel, is reported as an error, because the producer must only send
+	 * buffers for announced credit.
+	 */
+	@Test
+	public void testReceiveBufferWithoutCredit() throws Exception {
+		final RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
+		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
+		when(inputChannel.requestBuffer()).thenReturn(null);
+		when(inputChannel.isReleased()).thenReturn(false);
+
+		final BufferResponse receivedBuffer = createBufferResponse(
+				TestBufferFactory.createBuffer(), 0, inputChannel.getInputChannelId(), 0);
+
+		final PartitionRequestClientHandler client = new PartitionRequestClientHandler();
+		client.addInputChannel(inputChannel);
+
+		client.channelRead(mock(ChannelHandlerContext.class), receivedBuffer);
+
+		verify(inputChannel, times(1)).onError(any(IllegalStateException.class));
+	}
+
+	/**
+	 * Verifies that the backlog of a received buffer is forwarded to the input channel.
+	 */
+	@Test
+	public void testReceiveBufferWithBacklog() throws Exception {
+		final RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
+		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
+		when(inputChannel.requestBuffer()).thenReturn(TestBufferFactory.createBuffer());
+
+		final BufferResponse receivedBuffer = createBufferResponse(
+				createBuffer(true), 0, inputChannel.getInputChannelId(), 7);
+
+		final PartitionRequestClientHandler client = new PartitionRequestClientHandler();
+		client.addInputChannel(inputChannel);
+
+		client.channelRead(mock(ChannelHandlerContext.class), receivedBuffer);
+
+		verify(inputChannel, times(1)).onBuffer(any(Buffer.class), eq(0));
+		verify(inputChannel, times(1)).onSenderBacklog(7);
+		verify(inputChannel, never()).onError(any(Throwable.class));
 	}
 
 	/**
@@ -95,19 +134,16 @@ public class PartitionRequestClientHandlerTest {
 	@Test
 	public void testReceiveEmptyBuffer() throws Exception {
 		// Minimal mock of a remote input channel
-		final BufferProvider bufferProvider = mock(BufferProvider.class);
-		when(bufferProvider.requestBuffer()).thenReturn(TestBufferFactory.createBuffer());
-
 		final RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
 		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
-		when(inputChannel.getBufferProvider()).thenReturn(bufferProvider);
+		when(inputChannel.requestBuffer()).thenReturn(TestBufferFactory.createBuffer());
 
 		// An empty buffer of size 0
 		final Buffer emptyBuffer = TestBufferFactory.createBuffer();
 		emptyBuffer.setSize(0);
 
 		final BufferResponse receivedBuffer = createBufferResponse(
-				emptyBuffer, 0, inputChannel.getInputChannelId());
+				emptyBuffer, 0, inputChannel.getInputChannelId(), 0);
 
 		final PartitionRequestClientHandler client = new PartitionRequestClientHandler();
 		client.addInputChannel(inputChannel);
@@ -126,12 +162,9 @@ public class PartitionRequestClientHandlerTest {
 	@Test
 	public void testReceivePartitionNotFoundException() throws Exception {
 		// Minimal mock of a remote input channel
-		final BufferProvider bufferProvider = mock(BufferProvider.class);
-		when(bufferProvider.requestBuffer()).thenReturn(TestBufferFactory.createBuffer());
-
 		final RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
 		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
-		when(inputChannel.getBufferProvider()).thenReturn(bufferProvider);
+		when(inputChannel.requestBuffer()).thenReturn(TestBufferFactory.createBuffer());
 
 		final ErrorResponse partitionNotFound = new ErrorResponse(
 				new PartitionNotFoundException(new ResultPartitionID()),
@@ -168,70 +201,54 @@ public class PartitionRequestClientHandlerTest {
 	}
 
 	/**
-	 * Tests that an unsuccessful message decode call for a staged message
-	 * does not leave the channel with auto read set to false.
+	 * Tests that credit, which became available at an input channel, is announced to the
+	 * producer with an {@link NettyMessage.AddCredit} message, without touching auto read.
 	 */
 	@Test
-	@SuppressWarnings("unchecked")
-	public void testAutoReadAfterUnsuccessfulStagedMessage() throws Exception {
+	public void testNotifyCreditAvailable() throws Exception {
 		PartitionRequestClientHandler handler = new PartitionRequestClientHandler();
 		EmbeddedChannel channel = new EmbeddedChannel(handler);
 
-		final AtomicReference<EventListener<Buffer>> listener = new AtomicReference<>();
-
-		BufferProvider bufferProvider = mock(BufferProvider.class);
-		when(bufferProvider.addListener(any(EventListener.class))).thenAnswer(new Answer<Boolean>() {
-			@Override
-			@SuppressWarnings("unchecked")
-			public Boolean answer(InvocationOnMock invocation) throws Throwable {
-				listener.set((EventListener<Buffer>) invocation.getArguments()[0]);
-				return true;
-			}
-		});
-
-		when(bufferProvider.requestBuffer()).thenReturn(null);
-
 		InputChannelID channelId = new InputChannelID(0, 0);
 		RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
 		when(inputChannel.getInputChannelId()).thenReturn(channelId);
-
-		// The 3rd staged msg has a null buffer provider
-		when(inputChannel.getBufferProvider()).thenReturn(bufferProvider, bufferProvider, null);
+		when(inputChannel.getAndResetUnannouncedCredit()).thenReturn(3);
 
 		handler.addInputChannel(inputChannel);
 
-		BufferResponse msg = createBufferResponse(createBuffer(true), 0, channelId);
+		handler.notifyCreditAvailable(inputChannel);
 
-		// Write 1st buffer msg. No buffer is available, therefore the buffer
-		// should be staged and auto read should be set to false.
-		assertTrue(channel.config().isAutoRead());
-		channel.writeInbound(msg);
+		// Execute the announcement, which is scheduled in the event loop
+		channel.runPendingTasks();
 
-		// No buffer available, auto read false
-		assertFalse(channel.config().isAutoRead());
+		Object msg = channel.readOutbound();
+		assertTrue(msg instanceof NettyMessage.AddCredit);
+		assertEquals(3, ((NettyMessage.AddCredit) msg).credit);
+		assertEquals(channelId, ((NettyMessage.AddCredit) msg).receiverId);
 
-		// Write more buffers... all staged.
-		msg = createBufferResponse(createBuffer(true), 1, channelId);
-		channel.writeInbound(msg);
+		assertNull(channel.readOutbound());
+		assertTrue(channel.config().isAutoRead());
+	}
 
-		msg = createBufferResponse(createBuffer(true), 2, channelId);
-		channel.writeInbound(msg);
+	/**
+	 * Tests that no credit is announced for released input channels.
+	 */
+	@Test
+	public void testNoCreditAnnouncementForReleasedChannel() throws Exception {
+		PartitionRequestClientHandler handler = new PartitionRequestClientHandler();
+		EmbeddedChannel channel = new EmbeddedChannel(handler);
 
-		// Notify about buffer => handle 1st msg
-		Buffer availableBuffer = createBuffer(false);
-		listener.get().onEvent(availableBuffer);
+		RemoteInputChannel inputChannel = mock(RemoteInputChannel.class);
+		when(inputChannel.getInputChannelId()).thenReturn(new InputChannelID());
+		when(inputChannel.getAndResetUnannouncedCredit()).thenReturn(1);
+		when(inputChannel.isReleased()).thenReturn(true);
 
-		// Start processing of staged buffers (in run pending tasks). Make
-		// sure that the buffer provider acts like it's destroyed.
-		when(bufferProvider.addListener(any(EventListener.class))).thenReturn(false);
-		when(bufferProvider.isDestroyed()).thenReturn(true);
+		handler.addInputChannel(inputChannel);
 
-		// Execute all tasks that are scheduled in the event loop. Further
-		// eventLoop().execute() calls are directly executed, if they are
-		// called in the scope of this call.
+		handler.notifyCreditAvailable(inputChannel);
 		channel.runPendingTasks();
 
-		assertTrue(channel.config().isAutoRead());
+		assertNull(channel.readOutbound());
 	}
 
 	// ---------------------------------------------------------------------------------------------
@@ -252,10 +269,11 @@ public class PartitionRequestClientHandlerTest {
 	private BufferResponse createBufferResponse(
 			Buffer buffer,
 			int sequenceNumber,
-			InputChannelID receivingChannelId) throws IOException {
+			InputChannelID receivingChannelId,
+			int backlog) throws IOException {
 
 		// Mock buffer to serialize
-		BufferResponse resp = new BufferResponse(buffer, sequenceNumber, receivingChannelId);
+		BufferResponse resp = new BufferResponse(buffer, sequenceNumber, receivingChannelId, backlog);
 
 		ByteBuf serialized = resp.write(UnpooledByteBufAllocator.DEFAULT);
 
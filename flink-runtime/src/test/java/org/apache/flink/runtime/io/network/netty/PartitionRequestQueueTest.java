@@ -19,16 +19,22 @@
 package org.apache.flink.runtime.io.network.netty;
 
 import io.netty.channel.embedded.EmbeddedChannel;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.execution.CancelTaskException;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.BufferAvailabilityListener;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionProvider;
 import org.apache.flink.runtime.io.network.partition.ResultSubpartitionView;
 import org.apache.flink.runtime.io.network.partition.consumer.InputChannelID;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -57,7 +63,7 @@ public class PartitionRequestQueueTest {
 
 		EmbeddedChannel ch = new EmbeddedChannel(queue);
 
-		SequenceNumberingViewReader seqView = new SequenceNumberingViewReader(new InputChannelID(), queue);
+		SequenceNumberingViewReader seqView = new SequenceNumberingViewReader(new InputChannelID(), 0, queue);
 		seqView.requestSubpartitionView(partitionProvider, rpid, 0, bufferProvider);
 
 		// Enqueue the erroneous view
@@ -72,4 +78,67 @@ public class PartitionRequestQueueTest {
 		NettyMessage.ErrorResponse err = (NettyMessage.ErrorResponse) msg;
 		assertTrue(err.cause instanceof CancelTaskException);
 	}
+
+	/**
+	 * Tests that a reader with queued buffers is only written to the channel after the
+	 * receiver has announced credit for it.
+	 */
+	@Test
+	public void testBuffersAreOnlySentWithCredit() throws Exception {
+		PartitionRequestQueue queue = new PartitionRequestQueue();
+
+		ResultPartitionProvider partitionProvider = mock(ResultPartitionProvider.class);
+		ResultPartitionID rpid = new ResultPartitionID();
+		BufferProvider bufferProvider = mock(BufferProvider.class);
+
+		ResultSubpartitionView view = mock(ResultSubpartitionView.class);
+		when(view.getNextBuffer()).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) throws Throwable {
+				return new Buffer(MemorySegmentFactory.allocateUnpooledSegment(32), FreeingBufferRecycler.INSTANCE);
+			}
+		});
+
+		when(partitionProvider.createSubpartitionView(
+			eq(rpid),
+			eq(0),
+			eq(bufferProvider),
+			any(BufferAvailabilityListener.class))).thenReturn(view);
+
+		EmbeddedChannel ch = new EmbeddedChannel(queue);
+
+		InputChannelID receiverId = new InputChannelID();
+		SequenceNumberingViewReader reader = new SequenceNumberingViewReader(receiverId, 0, queue);
+		reader.requestSubpartitionView(partitionProvider, rpid, 0, bufferProvider);
+		queue.notifyReaderCreated(reader);
+
+		// Two buffers are available, but the receiver has no credit
+		reader.notifyBuffersAvailable(2);
+		ch.runPendingTasks();
+
+		assertNull(ch.readOutbound());
+
+		// One credit allows a single buffer to be sent
+		queue.addCredit(receiverId, 1);
+		ch.runPendingTasks();
+
+		Object msg = ch.readOutbound();
+		assertEquals(NettyMessage.BufferResponse.class, msg.getClass());
+		assertEquals(1, ((NettyMessage.BufferResponse) msg).backlog);
+		((NettyMessage.BufferResponse) msg).releaseBuffer();
+
+		assertNull(ch.readOutbound());
+		assertEquals(0, reader.getNumCreditsAvailable());
+
+		// The remaining buffer is sent after further credit has been announced
+		queue.addCredit(receiverId, 1);
+		ch.runPendingTasks();
+
+		msg = ch.readOutbound();
+		assertEquals(NettyMessage.BufferResponse.class, msg.getClass());
+		assertEquals(0, ((NettyMessage.BufferResponse) msg).backlog);
+		((NettyMessage.BufferResponse) msg).releaseBuffer();
+
+		assertNull(ch.readOutbound());
+	}
 }
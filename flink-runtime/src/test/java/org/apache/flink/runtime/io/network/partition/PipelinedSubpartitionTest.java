@@ -19,7 +19,11 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.event.AbstractEvent;
+import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -31,6 +35,7 @@ import org.apache.flink.runtime.io.network.util.TestSubpartitionProducer;
 import org.junit.AfterClass;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -40,6 +45,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.eq;
@@ -115,6 +121,61 @@ public class PipelinedSubpartitionTest extends SubpartitionTestBase {
 		verify(listener, times(2)).notifyBuffersAvailable(eq(1L));
 	}
 
+	/**
+	 * Tests that an overtaking event is queued in front of the data buffers behind the last
+	 * event, and that the overtaken buffers are returned to the caller.
+	 */
+	@Test
+	public void testOvertakingEvent() throws Exception {
+		final PipelinedSubpartition subpartition = createSubpartition();
+
+		ResultSubpartitionView view = subpartition.createReadView(null, mock(BufferAvailabilityListener.class));
+
+		Buffer first = createBuffer();
+		Buffer event = EventSerializer.toBuffer(new CancelCheckpointMarker(1L));
+		Buffer second = createBuffer();
+		Buffer third = createBuffer();
+
+		subpartition.add(first);
+		subpartition.add(event);
+		subpartition.add(second);
+		subpartition.add(third);
+
+		Buffer barrier = EventSerializer.toBuffer(
+				new CheckpointBarrier(2L, 1L, CheckpointOptions.forUnalignedCheckpoint()));
+		List<Buffer> overtaken = subpartition.addOvertakingEvent(barrier);
+
+		// the barrier does not overtake events
+		assertNotNull(overtaken);
+		assertEquals(2, overtaken.size());
+		assertSame(second, overtaken.get(0));
+		assertSame(third, overtaken.get(1));
+
+		assertSame(first, view.getNextBuffer());
+		assertSame(event, view.getNextBuffer());
+		assertSame(barrier, view.getNextBuffer());
+		assertSame(second, view.getNextBuffer());
+		assertSame(third, view.getNextBuffer());
+		assertNull(view.getNextBuffer());
+
+		// the caller and the queue hold a reference to the overtaken buffers
+		second.recycle();
+		third.recycle();
+		assertFalse(second.isRecycled());
+		second.recycle();
+		third.recycle();
+		assertTrue(second.isRecycled());
+		assertTrue(third.isRecycled());
+
+		// nothing to overtake
+		assertTrue(subpartition.addOvertakingEvent(
+				EventSerializer.toBuffer(new CheckpointBarrier(3L, 1L, CheckpointOptions.forUnalignedCheckpoint()))).isEmpty());
+
+		subpartition.finish();
+		assertNull(subpartition.addOvertakingEvent(
+				EventSerializer.toBuffer(new CheckpointBarrier(4L, 1L, CheckpointOptions.forUnalignedCheckpoint()))));
+	}
+
 	@Test
 	public void testConcurrentFastProduceAndFastConsume() throws Exception {
 		testProduceConsume(false, false);
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.io.network.partition;
+
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.util.TestInfiniteBufferProvider;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for the {@link SortMergeSubpartition} and its {@link SortMergePartitionFile}.
+ */
+public class SortMergeSubpartitionTest extends SubpartitionTestBase {
+
+	/** Asynchronous I/O manager */
+	private static final IOManager ioManager = new IOManagerAsync();
+
+	@AfterClass
+	public static void shutdown() {
+		ioManager.shutdown();
+	}
+
+	@Override
+	ResultSubpartition createSubpartition() {
+		return createSubpartitions(createPartitionFile(1))[0];
+	}
+
+	/**
+	 * Tests that the buffers of all subpartitions are written to a single data file, in multiple
+	 * regions, and that every subpartition reads back exactly its own buffers in order.
+	 */
+	@Test
+	public void testConsumeSubpartitionsOfMultipleRegions() throws Exception {
+		final int numberOfSubpartitions = 3;
+		final SortMergePartitionFile partitionFile = createPartitionFile(numberOfSubpartitions);
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(partitionFile);
+
+		int value = 0;
+		for (int region = 0; region < 3; region++) {
+			for (int i = 0; i < 4; i++) {
+				// the second subpartition has no buffers in the second region
+				for (int subpartition = 0; subpartition < numberOfSubpartitions; subpartition++) {
+					if (subpartition != 1 || region != 1) {
+						assertTrue(subpartitions[subpartition].add(createBuffer(value++ * numberOfSubpartitions + subpartition)));
+					}
+				}
+			}
+
+			if (region < 2) {
+				assertEquals(region == 0 ? 12 : 8, subpartitions[0].releaseMemory());
+				assertEquals(0, subpartitions[1].releaseMemory());
+			}
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.finish();
+		}
+
+		assertTrue(partitionFile.getDataFile().exists());
+		assertEquals(3 * numberOfSubpartitions * SortMergePartitionFile.INDEX_ENTRY_LENGTH, partitionFile.getIndexFile().length());
+
+		for (int subpartition = 0; subpartition < numberOfSubpartitions; subpartition++) {
+			final int expectedNumberOfBuffers = subpartition == 1 ? 8 : 12;
+
+			final BufferAvailabilityListener listener = mock(BufferAvailabilityListener.class);
+			final ResultSubpartitionView view = subpartitions[subpartition].createReadView(new TestInfiniteBufferProvider(), listener);
+
+			// the buffers and the end-of-partition event
+			verify(listener).notifyBuffersAvailable(eq((long) expectedNumberOfBuffers + 1));
+
+			int lastValue = -1;
+			for (int i = 0; i < expectedNumberOfBuffers; i++) {
+				Buffer read = view.getNextBuffer();
+				assertNotNull(read);
+				assertTrue(read.isBuffer());
+				assertEquals(4, read.getSize());
+
+				int readValue = read.getMemorySegment().getInt(0);
+				assertEquals(subpartition, readValue % numberOfSubpartitions);
+				assertTrue(readValue > lastValue);
+				lastValue = readValue;
+
+				read.recycle();
+			}
+
+			Buffer read = view.getNextBuffer();
+			assertNotNull(read);
+			assertEquals(EndOfPartitionEvent.class, EventSerializer.fromBuffer(read, ClassLoader.getSystemClassLoader()).getClass());
+			read.recycle();
+
+			assertNull(view.getNextBuffer());
+		}
+
+		for (SortMergeSubpartition subpartition : subpartitions) {
+			subpartition.release();
+		}
+	}
+
+	@Test
+	public void testFilesDeletedAfterAllSubpartitionsReleased() throws Exception {
+		final SortMergePartitionFile partitionFile = createPartitionFile(2);
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(partitionFile);
+
+		subpartitions[0].add(createBuffer(0));
+		subpartitions[1].add(createBuffer(1));
+		subpartitions[0].finish();
+		subpartitions[1].finish();
+
+		assertTrue(partitionFile.getDataFile().exists());
+		assertTrue(partitionFile.getIndexFile().exists());
+
+		subpartitions[0].release();
+		assertTrue(partitionFile.getDataFile().exists());
+		assertFalse(partitionFile.isReleased());
+
+		subpartitions[1].release();
+		assertFalse(partitionFile.getDataFile().exists());
+		assertFalse(partitionFile.getIndexFile().exists());
+		assertTrue(partitionFile.isReleased());
+	}
+
+	@Test
+	public void testBuffersInMemoryRecycledOnRelease() throws Exception {
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(createPartitionFile(2));
+
+		final Buffer buffer = createBuffer(0);
+		subpartitions[1].add(buffer);
+		assertEquals(1, subpartitions[0].getNumberOfQueuedBuffers());
+
+		subpartitions[0].release();
+
+		assertTrue(buffer.isRecycled());
+		assertEquals(0, subpartitions[0].getNumberOfQueuedBuffers());
+		assertFalse(subpartitions[1].add(createBuffer(1)));
+
+		subpartitions[1].release();
+	}
+
+	/**
+	 * Tests that a subpartition can only be consumed after all subpartitions of the partition have
+	 * been finished, since the data file is not complete before.
+	 */
+	@Test
+	public void testCreateReadViewBeforePartitionFinished() throws Exception {
+		final SortMergeSubpartition[] subpartitions = createSubpartitions(createPartitionFile(2));
+
+		try {
+			subpartitions[0].finish();
+
+			try {
+				subpartitions[0].createReadView(new TestInfiniteBufferProvider(), mock(BufferAvailabilityListener.class));
+				fail("Did not throw expected exception.");
+			} catch (IllegalStateException expected) {
+				// expected
+			}
+		} finally {
+			subpartitions[0].release();
+			subpartitions[1].release();
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static SortMergePartitionFile createPartitionFile(int numberOfSubpartitions) {
+		return new SortMergePartitionFile(mock(ResultPartition.class), numberOfSubpartitions, ioManager.createChannel());
+	}
+
+	private static SortMergeSubpartition[] createSubpartitions(SortMergePartitionFile partitionFile) {
+		final ResultPartition parent = mock(ResultPartition.class);
+
+		final SortMergeSubpartition[] subpartitions = new SortMergeSubpartition[partitionFile.getNumberOfSubpartitions()];
+		for (int i = 0; i < subpartitions.length; i++) {
+			subpartitions[i] = new SortMergeSubpartition(i, parent, partitionFile);
+		}
+		return subpartitions;
+	}
+
+	private static Buffer createBuffer(int value) {
+		final Buffer buffer = new Buffer(MemorySegmentFactory.allocateUnpooledSegment(4096), FreeingBufferRecycler.INSTANCE);
+		buffer.getMemorySegment().putInt(0, value);
+		buffer.setSize(4);
+		return buffer;
+	}
+}
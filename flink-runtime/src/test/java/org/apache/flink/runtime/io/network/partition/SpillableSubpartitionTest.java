@@ -19,6 +19,7 @@
 package org.apache.flink.runtime.io.network.partition;
 
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.io.compression.BlockCompressionFactory;
 import org.apache.flink.runtime.io.disk.iomanager.AsynchronousBufferFileWriter;
 import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
@@ -95,7 +96,7 @@ public class SpillableSubpartitionTest extends SubpartitionTestBase {
 
 		// Mock I/O manager returning the blocking spill writer
 		IOManager ioManager = mock(IOManager.class);
-		when(ioManager.createBufferFileWriter(any(FileIOChannel.ID.class)))
+		when(ioManager.createBufferFileWriter(any(FileIOChannel.ID.class), any(BlockCompressionFactory.class)))
 			.thenReturn(spillWriter);
 
 		// The partition
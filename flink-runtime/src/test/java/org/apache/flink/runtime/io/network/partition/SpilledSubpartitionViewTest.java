@@ -20,8 +20,10 @@ package org.apache.flink.runtime.io.network.partition;
 
 import com.google.common.collect.Lists;
 import org.apache.flink.runtime.io.disk.iomanager.BufferFileWriter;
+import org.apache.flink.runtime.io.disk.iomanager.FileIOChannel;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.io.disk.iomanager.MemoryMappedFile;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.BufferProvider;
@@ -39,7 +41,11 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
 public class SpilledSubpartitionViewTest {
@@ -82,6 +88,61 @@ public class SpilledSubpartitionViewTest {
 		consumer.call();
 	}
 
+	@Test
+	public void testWriteConsumeMemoryMapped() throws Exception {
+		// Config
+		final int numberOfBuffersToWrite = 512;
+
+		// Setup
+		final BufferFileWriter writer = createWriterAndWriteBuffers(IO_MANAGER, writerBufferPool, numberOfBuffersToWrite);
+
+		writer.close();
+
+		// maps the files independent of the memory segment type of this JVM
+		final AtomicReference<MemoryMappedFile> mappedFile = new AtomicReference<>();
+		final IOManager mappingIOManager = new IOManagerAsync() {
+			@Override
+			public MemoryMappedFile mapChannel(FileIOChannel.ID channelID, int alignment) {
+				try {
+					mappedFile.set(MemoryMappedFile.map(channelID, alignment));
+					return mappedFile.get();
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+
+		try {
+			TestConsumerCallback.RecyclingCallback callback = new TestConsumerCallback.RecyclingCallback();
+			TestSubpartitionConsumer consumer = new TestSubpartitionConsumer(false, callback);
+
+			SpilledSubpartitionView view = new SpilledSubpartitionView(
+				mock(ResultSubpartition.class),
+				32 * 1024,
+				writer,
+				numberOfBuffersToWrite + 1, // +1 for end-of-partition
+				consumer,
+				null,
+				mappingIOManager);
+
+			consumer.setSubpartitionView(view);
+
+			// Consume subpartition
+			consumer.call();
+
+			assertEquals(numberOfBuffersToWrite, callback.getNumberOfReadBuffers());
+			assertEquals(1, callback.getNumberOfReadEvents());
+
+			// all buffers are recycled, so releasing the view unmaps the file
+			assertNotNull(mappedFile.get());
+			view.releaseAllResources();
+			assertTrue(mappedFile.get().isClosed());
+			assertEquals(0, mappedFile.get().getReferenceCount());
+		} finally {
+			mappingIOManager.shutdown();
+		}
+	}
+
 	@Test
 	public void testConsumeWithFewBuffers() throws Exception {
 		// Config
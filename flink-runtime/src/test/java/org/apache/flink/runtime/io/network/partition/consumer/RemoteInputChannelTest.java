@@ -19,15 +19,26 @@
 package org.apache.flink.runtime.io.network.partition.consumer;
 
 import com.google.common.collect.Lists;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.io.network.ConnectionID;
 import org.apache.flink.runtime.io.network.ConnectionManager;
+import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.api.EndOfSuperstepEvent;
+import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.BufferPool;
+import org.apache.flink.runtime.io.network.buffer.NetworkBufferPool;
 import org.apache.flink.runtime.io.network.netty.PartitionRequestClient;
 import org.apache.flink.runtime.io.network.partition.ProducerFailedException;
 import org.apache.flink.runtime.io.network.partition.ResultPartitionID;
 import org.apache.flink.runtime.io.network.util.TestBufferFactory;
 import org.apache.flink.runtime.operators.testutils.UnregisteredTaskMetricsGroup;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import scala.Tuple2;
 
 import java.io.IOException;
@@ -38,9 +49,13 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -279,8 +294,179 @@ public class RemoteInputChannelTest {
 		ch.getNextBuffer();
 	}
 
+	/**
+	 * Tests that recycled exclusive buffers are announced to the producer as credit, and
+	 * that the exclusive buffers are returned to the network buffer pool on release.
+	 */
+	@Test
+	public void testRecycleExclusiveBufferAnnouncesCredit() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(10, 32, MemoryType.HEAP);
+		final SingleInputGate inputGate = createInputGate(networkBufferPool);
+		final PartitionRequestClient client = mock(PartitionRequestClient.class);
+
+		try {
+			final RemoteInputChannel inputChannel = createRemoteInputChannel(
+					inputGate, client, new Tuple2<Integer, Integer>(0, 0));
+			inputChannel.assignExclusiveSegments(networkBufferPool.requestMemorySegments(2));
+			inputChannel.requestSubpartition(0);
+
+			assertEquals(2, inputChannel.getInitialCredit());
+			assertEquals(2, inputChannel.getNumberOfAvailableBuffers());
+			assertEquals(8, networkBufferPool.getNumberOfAvailableMemorySegments());
+
+			final Buffer buffer1 = inputChannel.requestBuffer();
+			final Buffer buffer2 = inputChannel.requestBuffer();
+
+			assertNotNull(buffer1);
+			assertNotNull(buffer2);
+			assertNull(inputChannel.requestBuffer());
+
+			// The first recycled buffer triggers the credit announcement
+			buffer1.recycle();
+
+			assertEquals(1, inputChannel.getUnannouncedCredit());
+			verify(client, times(1)).notifyCreditAvailable(inputChannel);
+
+			// The credit accumulates until it is announced
+			buffer2.recycle();
+
+			assertEquals(2, inputChannel.getUnannouncedCredit());
+			assertEquals(2, inputChannel.getAndResetUnannouncedCredit());
+			verify(client, times(1)).notifyCreditAvailable(inputChannel);
+
+			inputChannel.releaseAllResources();
+
+			assertEquals(0, inputChannel.getNumberOfAvailableBuffers());
+			assertEquals(10, networkBufferPool.getNumberOfAvailableMemorySegments());
+		} finally {
+			networkBufferPool.destroy();
+		}
+	}
+
+	/**
+	 * Tests that the backlog of the producer makes the channel request floating buffers from
+	 * the buffer pool of the input gate, which are announced as credit.
+	 */
+	@Test
+	public void testSenderBacklogRequestsFloatingBuffers() throws Exception {
+		final NetworkBufferPool networkBufferPool = new NetworkBufferPool(10, 32, MemoryType.HEAP);
+		final SingleInputGate inputGate = createInputGate(networkBufferPool);
+		final PartitionRequestClient client = mock(PartitionRequestClient.class);
+
+		try {
+			final RemoteInputChannel inputChannel = createRemoteInputChannel(
+					inputGate, client, new Tuple2<Integer, Integer>(0, 0));
+			inputChannel.assignExclusiveSegments(networkBufferPool.requestMemorySegments(2));
+			inputChannel.requestSubpartition(0);
+
+			final BufferPool bufferPool = networkBufferPool.createBufferPool(1, false);
+			when(inputGate.getBufferProvider()).thenReturn(bufferPool);
+
+			// The exclusive buffers suffice for a backlog of 0
+			inputChannel.onSenderBacklog(0);
+
+			assertEquals(2, inputChannel.getNumberOfRequiredBuffers());
+			assertEquals(2, inputChannel.getNumberOfAvailableBuffers());
+			assertEquals(0, inputChannel.getUnannouncedCredit());
+
+			// A backlog of 3 requires 3 floating buffers in addition
+			inputChannel.onSenderBacklog(3);
+
+			assertEquals(5, inputChannel.getNumberOfRequiredBuffers());
+			assertEquals(5, inputChannel.getNumberOfAvailableBuffers());
+			assertEquals(3, inputChannel.getUnannouncedCredit());
+			assertEquals(3, bufferPool.bestEffortGetNumOfUsedBuffers());
+			verify(client, times(1)).notifyCreditAvailable(inputChannel);
+
+			// Releasing the channel returns the floating buffers to the buffer pool
+			inputChannel.releaseAllResources();
+
+			assertEquals(0, bufferPool.bestEffortGetNumOfUsedBuffers());
+
+			bufferPool.lazyDestroy();
+			assertEquals(10, networkBufferPool.getNumberOfAvailableMemorySegments());
+		} finally {
+			networkBufferPool.destroy();
+		}
+	}
+
+	/**
+	 * Tests that the barrier of an unaligned checkpoint overtakes the received data buffers up
+	 * to the last event, and reports the number of overtaken buffers when it is polled.
+	 */
+	@Test
+	public void testUnalignedBarrierOvertakesBuffers() throws Exception {
+		final RemoteInputChannel inputChannel = createRemoteInputChannel(mock(SingleInputGate.class));
+		inputChannel.requestSubpartition(0);
+
+		final Buffer data1 = TestBufferFactory.createBuffer();
+		final Buffer event = EventSerializer.toBuffer(EndOfSuperstepEvent.INSTANCE);
+		final Buffer data2 = TestBufferFactory.createBuffer();
+		final Buffer data3 = TestBufferFactory.createBuffer();
+		final Buffer barrier1 = EventSerializer.toBuffer(
+				new CheckpointBarrier(1L, 1L, CheckpointOptions.forUnalignedCheckpoint()));
+		final Buffer data4 = TestBufferFactory.createBuffer();
+		final Buffer barrier2 = EventSerializer.toBuffer(
+				new CheckpointBarrier(2L, 2L, CheckpointOptions.forUnalignedCheckpoint()));
+
+		inputChannel.onBuffer(data1, 0);
+		inputChannel.onBuffer(event, 1);
+		inputChannel.onBuffer(data2, 2);
+		inputChannel.onBuffer(data3, 3);
+		inputChannel.onBuffer(barrier1, 4);
+		inputChannel.onBuffer(data4, 5);
+
+		// only one barrier overtakes at a time, the next one is queued until the first was polled
+		inputChannel.onBuffer(barrier2, 6);
+
+		assertNextBuffer(inputChannel, data1, 0);
+		assertNextBuffer(inputChannel, event, 0);
+		assertNextBuffer(inputChannel, barrier1, 2);
+		assertNextBuffer(inputChannel, data2, 0);
+		assertNextBuffer(inputChannel, data3, 0);
+		assertNextBuffer(inputChannel, data4, 0);
+		assertNextBuffer(inputChannel, barrier2, 0);
+
+		// an aligned barrier does not overtake
+		final Buffer data5 = TestBufferFactory.createBuffer();
+		final Buffer alignedBarrier = EventSerializer.toBuffer(
+				new CheckpointBarrier(3L, 3L, CheckpointOptions.forFullCheckpoint()));
+
+		inputChannel.onBuffer(data5, 7);
+		inputChannel.onBuffer(alignedBarrier, 8);
+
+		assertNextBuffer(inputChannel, data5, 0);
+		assertNextBuffer(inputChannel, alignedBarrier, 0);
+
+		inputChannel.releaseAllResources();
+	}
+
+	private static void assertNextBuffer(RemoteInputChannel inputChannel, Buffer expected, int numOvertakenBuffers)
+			throws IOException {
+
+		InputChannel.BufferAndAvailability next = inputChannel.getNextBuffer();
+		assertNotNull(next);
+		assertSame(expected, next.buffer());
+		assertEquals(numOvertakenBuffers, next.numOvertakenBuffers());
+	}
+
 	// ---------------------------------------------------------------------------------------------
 
+	private static SingleInputGate createInputGate(final NetworkBufferPool networkBufferPool) {
+		final SingleInputGate inputGate = mock(SingleInputGate.class);
+
+		doAnswer(new Answer<Void>() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				networkBufferPool.recycleMemorySegments((List<MemorySegment>) invocation.getArguments()[0]);
+				return null;
+			}
+		}).when(inputGate).returnExclusiveSegments(any(List.class));
+
+		return inputGate;
+	}
+
 	private RemoteInputChannel createRemoteInputChannel(SingleInputGate inputGate)
 			throws IOException, InterruptedException {
 
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.memory;
+
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.operators.testutils.DummyInvokable;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the pages that consumers borrow from the memory manager beyond their quota.
+ */
+public class MemoryManagerBorrowingTest {
+
+	private static final int PAGE_SIZE = 1024 * 32;
+
+	private static final int NUM_PAGES = 64;
+
+	private MemoryManager memoryManager;
+
+	@Before
+	public void setUp() {
+		this.memoryManager = new MemoryManager(NUM_PAGES * PAGE_SIZE, 1, PAGE_SIZE, MemoryType.HEAP, true);
+	}
+
+	@After
+	public void tearDown() {
+		assertEquals(0, this.memoryManager.getNumBorrowedPages());
+		assertTrue("Memory manager is not complete empty and valid at the end of the test.",
+			this.memoryManager.verifyEmpty());
+		this.memoryManager.shutdown();
+	}
+
+	@Test
+	public void testBorrowFreePages() throws Exception {
+		final AbstractInvokable owner = new DummyInvokable();
+		final RecordingConsumer consumer = new RecordingConsumer();
+
+		final List<MemorySegment> quota = this.memoryManager.allocatePages(owner, 48);
+		final List<MemorySegment> borrowed = this.memoryManager.borrowPages(owner, 32, consumer);
+
+		// only the free pages are lent
+		assertEquals(16, borrowed.size());
+		assertEquals(16, this.memoryManager.getNumBorrowedPages());
+		assertTrue(this.memoryManager.borrowPages(owner, 1, consumer).isEmpty());
+
+		this.memoryManager.release(borrowed.get(0));
+		assertEquals(15, this.memoryManager.getNumBorrowedPages());
+
+		this.memoryManager.release(borrowed);
+		this.memoryManager.release(quota);
+		assertEquals(0, consumer.numRevokedPages);
+	}
+
+	@Test
+	public void testReleaseAllReturnsBorrowedPages() throws Exception {
+		final AbstractInvokable owner = new DummyInvokable();
+
+		this.memoryManager.allocatePages(owner, 8);
+		this.memoryManager.borrowPages(owner, 8, new RecordingConsumer());
+		assertEquals(8, this.memoryManager.getNumBorrowedPages());
+
+		this.memoryManager.releaseAll(owner);
+		assertEquals(0, this.memoryManager.getNumBorrowedPages());
+	}
+
+	@Test
+	public void testAllocationRevokesBorrowedPages() throws Exception {
+		final AbstractInvokable borrower = new DummyInvokable();
+		final AbstractInvokable owner = new DummyInvokable();
+
+		// the consumer gives the pages back from within the revocation
+		final List<MemorySegment> borrowed = new ArrayList<MemorySegment>();
+		final RecordingConsumer consumer = new RecordingConsumer() {
+			@Override
+			public void revokeBorrowedPages(int numPages) {
+				super.revokeBorrowedPages(numPages);
+				memoryManager.release(new ArrayList<MemorySegment>(borrowed.subList(0, numPages)));
+				borrowed.subList(0, numPages).clear();
+			}
+		};
+		borrowed.addAll(this.memoryManager.borrowPages(borrower, NUM_PAGES, consumer));
+		assertEquals(NUM_PAGES, borrowed.size());
+
+		final List<MemorySegment> quota = this.memoryManager.allocatePages(owner, 24);
+		assertEquals(24, quota.size());
+		assertEquals(24, consumer.numRevokedPages);
+		assertEquals(NUM_PAGES - 24, this.memoryManager.getNumBorrowedPages());
+
+		this.memoryManager.release(quota);
+		this.memoryManager.release(borrowed);
+	}
+
+	@Test
+	public void testAllocationWaitsForBorrowedPages() throws Exception {
+		final AbstractInvokable owner = new DummyInvokable();
+		final RecordingConsumer consumer = new RecordingConsumer();
+		final List<MemorySegment> borrowed = this.memoryManager.borrowPages(owner, NUM_PAGES, consumer);
+
+		// the consumer gives the pages back from another thread, once they are revoked
+		final Thread releaser = new Thread() {
+			@Override
+			public void run() {
+				try {
+					synchronized (consumer) {
+						while (consumer.numRevokedPages == 0) {
+							consumer.wait();
+						}
+					}
+					memoryManager.release(borrowed);
+				}
+				catch (InterruptedException e) {
+					// the test fails in the allocation
+				}
+			}
+		};
+		releaser.start();
+
+		final List<MemorySegment> quota = this.memoryManager.allocatePages(owner, NUM_PAGES);
+		assertEquals(NUM_PAGES, quota.size());
+		assertEquals(0, this.memoryManager.getNumBorrowedPages());
+
+		releaser.join();
+		this.memoryManager.release(quota);
+	}
+
+	@Test
+	public void testRevocationTimeout() throws Exception {
+		final AbstractInvokable owner = new DummyInvokable();
+		final RecordingConsumer consumer = new RecordingConsumer();
+		this.memoryManager.setRevocationTimeout(50);
+
+		final List<MemorySegment> borrowed = this.memoryManager.borrowPages(owner, 16, consumer);
+		try {
+			this.memoryManager.allocatePages(owner, NUM_PAGES);
+			fail("The allocation should fail, because the borrowed pages are not given back.");
+		}
+		catch (MemoryAllocationException e) {
+			// expected
+		}
+		assertEquals(16, consumer.numRevokedPages);
+
+		this.memoryManager.release(borrowed);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static class RecordingConsumer implements ElasticMemoryConsumer {
+
+		int numRevokedPages;
+
+		@Override
+		public synchronized void revokeBorrowedPages(int numPages) {
+			numRevokedPages += numPages;
+			notifyAll();
+		}
+	}
+}
@@ -113,6 +113,93 @@ public class CombineTaskTest
 		}
 	}
 
+	@Test
+	public void testHashCombineTask() {
+		try {
+			int keyCnt = 100;
+			int valCnt = 20;
+
+			setInput(new UniformIntTupleGenerator(keyCnt, valCnt, false), serializer);
+			addDriverComparator(this.comparator);
+			addDriverComparator(this.comparator);
+			setOutput(this.outList, serializer);
+
+			getTaskConfig().setDriverStrategy(DriverStrategy.HASHED_GROUP_COMBINE);
+			getTaskConfig().setRelativeMemoryDriver(combine_frac);
+			getTaskConfig().setFilehandlesDriver(2);
+
+			final GroupReduceCombineDriver<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>> testTask =
+					new GroupReduceCombineDriver<>();
+
+			testDriver(testTask, MockCombiningReduceStub.class);
+
+			int expSum = 0;
+			for (int i = 1;i < valCnt; i++) {
+				expSum += i;
+			}
+
+			assertEquals(keyCnt, this.outList.size());
+
+			for (Tuple2<Integer, Integer> record : this.outList) {
+				assertEquals(expSum, record.f1.intValue());
+			}
+
+			this.outList.clear();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
+	/**
+	 * Tests the hash-based combine with more records than fit into the memory, so that the table
+	 * is combined and emptied several times.
+	 */
+	@Test
+	public void testHashCombineTaskWithFullTable() {
+		try {
+			int keyCnt = 100000;
+			int valCnt = 5;
+
+			setInput(new UniformIntTupleGenerator(keyCnt, valCnt, false), serializer);
+			addDriverComparator(this.comparator);
+			addDriverComparator(this.comparator);
+			setOutput(this.outList, serializer);
+
+			getTaskConfig().setDriverStrategy(DriverStrategy.HASHED_GROUP_COMBINE);
+			getTaskConfig().setRelativeMemoryDriver(combine_frac);
+			getTaskConfig().setFilehandlesDriver(2);
+
+			final GroupReduceCombineDriver<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>> testTask =
+					new GroupReduceCombineDriver<>();
+
+			testDriver(testTask, MockCombiningReduceStub.class);
+
+			// the combine is partial, but no values may be lost
+			assertTrue(this.outList.size() > keyCnt);
+
+			final int[] sums = new int[keyCnt];
+			for (Tuple2<Integer, Integer> record : this.outList) {
+				sums[record.f0] += record.f1;
+			}
+
+			int expSum = 0;
+			for (int i = 0; i < valCnt; i++) {
+				expSum += i;
+			}
+			for (int sum : sums) {
+				assertEquals(expSum, sum);
+			}
+
+			this.outList.clear();
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+
 	@Test
 	public void testFailingCombineTask() {
 		try {
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.drivers;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.functions.RichReduceFunction;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.api.java.typeutils.TypeExtractor;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.operators.DriverStrategy;
+import org.apache.flink.runtime.operators.HashReduceDriver;
+import org.apache.flink.runtime.util.EmptyMutableObjectIterator;
+import org.apache.flink.runtime.util.RegularToMutableObjectIterator;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link HashReduceDriver}.
+ */
+@SuppressWarnings("serial")
+public class HashReduceDriverTest {
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	private IOManager ioManager;
+
+	@Before
+	public void startIOManager() {
+		ioManager = new IOManagerAsync();
+	}
+
+	@After
+	public void shutdownIOManager() throws Exception {
+		for (File dir : ioManager.getSpillingDirectories()) {
+			String[] files = dir.list();
+			assertTrue("Spilled partitions were not deleted.", files == null || files.length == 0);
+		}
+		ioManager.shutdown();
+	}
+
+	@Test
+	public void testEmptyInput() throws Exception {
+		MutableObjectIterator<Tuple2<Integer, Integer>> input = EmptyMutableObjectIterator.get();
+
+		assertEquals(0, runDriver(input, new SumFirstReducer(), 64, false).size());
+	}
+
+	@Test
+	public void testReduceInMemory() throws Exception {
+		List<Tuple2<Integer, Integer>> data = createData(1000, 20);
+
+		verifyResult(data, runDriver(iterate(data), new SumFirstReducer(), 64, false));
+		verifyResult(data, runDriver(iterate(data), new SumSecondReducer(), 64, true));
+	}
+
+	@Test
+	public void testSpillingReducerModifiesFirst() throws Exception {
+		List<Tuple2<Integer, Integer>> data = createData(20000, 10);
+
+		verifyResult(data, runDriver(iterate(data), new SumFirstReducer(), 10, false));
+		verifyResult(data, runDriver(iterate(data), new SumFirstReducer(), 10, true));
+	}
+
+	/**
+	 * The reducer returns its second argument, which is the input record, so the driver must not
+	 * reduce the input record again after the table ran out of memory in the middle of an update.
+	 */
+	@Test
+	public void testSpillingReducerModifiesSecond() throws Exception {
+		List<Tuple2<Integer, Integer>> data = createData(20000, 10);
+
+		verifyResult(data, runDriver(iterate(data), new SumSecondReducer(), 10, false));
+		verifyResult(data, runDriver(iterate(data), new SumSecondReducer(), 10, true));
+	}
+
+	@Test
+	public void testSpillingWithMorePartitions() throws Exception {
+		List<Tuple2<Integer, Integer>> data = createData(100000, 3);
+
+		verifyResult(data, runDriver(iterate(data), new SumFirstReducer(), 40, false));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private List<Tuple2<Integer, Integer>> runDriver(
+			MutableObjectIterator<Tuple2<Integer, Integer>> input,
+			ReduceFunction<Tuple2<Integer, Integer>> reducer,
+			int numPages,
+			boolean objectReuse) throws Exception {
+
+		TestTaskContext<ReduceFunction<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+				new TestTaskContext<>(numPages * PAGE_SIZE);
+		context.getTaskConfig().setRelativeMemoryDriver(1.0);
+		context.setIOManager(ioManager);
+		if (objectReuse) {
+			context.getExecutionConfig().enableObjectReuse();
+		} else {
+			context.getExecutionConfig().disableObjectReuse();
+		}
+
+		TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = createTypeInfo();
+		TypeComparator<Tuple2<Integer, Integer>> comparator =
+				typeInfo.createComparator(new int[]{0}, new boolean[] {true}, 0, new ExecutionConfig());
+
+		GatheringCollector<Tuple2<Integer, Integer>> result =
+				new GatheringCollector<>(typeInfo.createSerializer(new ExecutionConfig()));
+
+		context.setDriverStrategy(DriverStrategy.HASHED_REDUCE);
+		context.setInput1(input, typeInfo.createSerializer(new ExecutionConfig()));
+		context.setComparator1(comparator);
+		context.setCollector(result);
+		context.setUdf(reducer);
+
+		HashReduceDriver<Tuple2<Integer, Integer>> driver = new HashReduceDriver<>();
+		driver.setup(context);
+		driver.prepare();
+		try {
+			driver.run();
+		} finally {
+			driver.cleanup();
+		}
+
+		assertTrue("Not all memory was released.", context.getMemoryManager().verifyEmpty());
+		return result.getList();
+	}
+
+	private static void verifyResult(List<Tuple2<Integer, Integer>> data, List<Tuple2<Integer, Integer>> result) {
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (Tuple2<Integer, Integer> record : data) {
+			Integer sum = expected.get(record.f0);
+			expected.put(record.f0, sum == null ? record.f1 : sum + record.f1);
+		}
+
+		assertEquals(expected.size(), result.size());
+		for (Tuple2<Integer, Integer> record : result) {
+			assertEquals("Wrong sum for key " + record.f0, expected.remove(record.f0), record.f1);
+		}
+		assertTrue(expected.isEmpty());
+	}
+
+	private static List<Tuple2<Integer, Integer>> createData(int numKeys, int recordsPerKey) {
+		Random random = new Random(42L);
+		List<Tuple2<Integer, Integer>> data = new ArrayList<>(numKeys * recordsPerKey);
+		for (int i = 0; i < numKeys; i++) {
+			for (int j = 0; j < recordsPerKey; j++) {
+				data.add(new Tuple2<>(i, random.nextInt(1000)));
+			}
+		}
+		Collections.shuffle(data, random);
+		return data;
+	}
+
+	private static MutableObjectIterator<Tuple2<Integer, Integer>> iterate(List<Tuple2<Integer, Integer>> data) {
+		// the reducers modify the records, so the driver gets copies
+		TypeSerializer<Tuple2<Integer, Integer>> serializer = createTypeInfo().createSerializer(new ExecutionConfig());
+		List<Tuple2<Integer, Integer>> copies = new ArrayList<>(data.size());
+		for (Tuple2<Integer, Integer> record : data) {
+			copies.add(serializer.copy(record));
+		}
+		return new RegularToMutableObjectIterator<>(copies.iterator(), serializer);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static TupleTypeInfo<Tuple2<Integer, Integer>> createTypeInfo() {
+		return (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(new Tuple2<>(0, 0));
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Test UDFs
+	// --------------------------------------------------------------------------------------------
+
+	private static final class SumFirstReducer extends RichReduceFunction<Tuple2<Integer, Integer>> {
+
+		@Override
+		public Tuple2<Integer, Integer> reduce(Tuple2<Integer, Integer> value1, Tuple2<Integer, Integer> value2) {
+			value1.f1 = value1.f1 + value2.f1;
+			return value1;
+		}
+	}
+
+	private static final class SumSecondReducer extends RichReduceFunction<Tuple2<Integer, Integer>> {
+
+		@Override
+		public Tuple2<Integer, Integer> reduce(Tuple2<Integer, Integer> value1, Tuple2<Integer, Integer> value2) {
+			value2.f1 = value1.f1 + value2.f1;
+			return value2;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.api.java.typeutils.runtime.RuntimeSerializerFactory;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.memory.MemoryManager;
@@ -63,6 +64,8 @@ public class TestTaskContext<S, T> implements TaskContext<S, T> {
 	
 	private MemoryManager memoryManager;
 
+	private IOManager ioManager;
+
 	private ExecutionConfig executionConfig = new ExecutionConfig();
 
 	private TaskManagerRuntimeInfo taskManageInfo;
@@ -131,6 +134,10 @@ public class TestTaskContext<S, T> implements TaskContext<S, T> {
 	public void setMutableObjectMode(boolean mutableObjectMode) {
 		this.config.setMutableObjectMode(mutableObjectMode);
 	}
+
+	public void setIOManager(IOManager ioManager) {
+		this.ioManager = ioManager;
+	}
 	
 	// --------------------------------------------------------------------------------------------
 	//  Context Methods
@@ -158,7 +165,7 @@ public class TestTaskContext<S, T> implements TaskContext<S, T> {
 
 	@Override
 	public IOManager getIOManager() {
-		return null;
+		return this.ioManager;
 	}
 
 	@Override
@@ -229,4 +236,9 @@ public class TestTaskContext<S, T> implements TaskContext<S, T> {
 	public OperatorMetricGroup getMetricGroup() {
 		return new UnregisteredTaskMetricsGroup.DummyOperatorMetricGroup();
 	}
+
+	@Override
+	public void sendTaskEvent(int inputNum, TaskEvent event) {
+		// the test inputs have no producers that could receive events
+	}
 }
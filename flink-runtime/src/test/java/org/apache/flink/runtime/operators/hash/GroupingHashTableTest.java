@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.hash;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongComparator;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.runtime.TupleComparator;
+import org.apache.flink.api.java.typeutils.runtime.TupleSerializer;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.util.TraversableOnceException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the {@link GroupingHashTable}.
+ */
+public class GroupingHashTableTest {
+
+	private static final int PAGE_SIZE = 16 * 1024;
+
+	private final TypeSerializer<Tuple2<Long, String>> serializer;
+
+	private final TypeComparator<Tuple2<Long, String>> comparator;
+
+	public GroupingHashTableTest() {
+		TypeSerializer<?>[] fieldSerializers = { LongSerializer.INSTANCE, StringSerializer.INSTANCE };
+		@SuppressWarnings("unchecked")
+		Class<Tuple2<Long, String>> clazz = (Class<Tuple2<Long, String>>) (Class<?>) Tuple2.class;
+		this.serializer = new TupleSerializer<>(clazz, fieldSerializers);
+
+		TypeComparator<?>[] comparators = { new LongComparator(true) };
+		TypeSerializer<?>[] comparatorSerializers = { LongSerializer.INSTANCE };
+		this.comparator = new TupleComparator<>(new int[] {0}, comparators, comparatorSerializers);
+	}
+
+	@Test
+	public void testGroupValues() throws Exception {
+		final GroupingHashTable<Tuple2<Long, String>> table =
+			new GroupingHashTable<>(serializer, comparator, getMemory(64));
+		final Random rnd = new Random(42L);
+		final Map<Long, List<String>> expected = new HashMap<>();
+
+		for (int i = 0; i < 10000; i++) {
+			final Tuple2<Long, String> record = new Tuple2<>((long) rnd.nextInt(500), randomString(rnd));
+			assertTrue(table.write(record));
+			addExpected(expected, record);
+		}
+
+		assertEquals(10000, table.size());
+		assertEquals(expected.size(), table.getNumKeys());
+		assertGroups(expected, table, false);
+		assertGroups(expected, table, true);
+
+		table.dispose();
+	}
+
+	@Test
+	public void testFullTableAndReset() throws Exception {
+		final GroupingHashTable<Tuple2<Long, String>> table =
+			new GroupingHashTable<>(serializer, comparator, getMemory(16));
+		final Random rnd = new Random(17L);
+
+		for (int round = 0; round < 3; round++) {
+			final Map<Long, List<String>> expected = new HashMap<>();
+
+			Tuple2<Long, String> record;
+			while (true) {
+				record = new Tuple2<>((long) rnd.nextInt(100000), randomString(rnd));
+				if (!table.write(record)) {
+					break;
+				}
+				addExpected(expected, record);
+			}
+
+			// the rejected record is not in the table
+			assertTrue(table.size() > 0);
+			assertGroups(expected, table, false);
+
+			table.reset();
+			assertTrue(table.isEmpty());
+			assertEquals(0, table.getNumKeys());
+			assertFalse(table.getKeyGroupIterator(false).nextKey());
+
+			// the rejected record fits into the empty table
+			assertTrue(table.write(record));
+			table.reset();
+		}
+
+		table.dispose();
+	}
+
+	@Test
+	public void testCollidingHashCodes() throws Exception {
+		final GroupingHashTable<Tuple2<Long, String>> table =
+			new GroupingHashTable<>(serializer, comparator, getMemory(16));
+		final Map<Long, List<String>> expected = new HashMap<>();
+
+		for (int i = 0; i < 1000; i++) {
+			// the upper and lower half of these keys cancel out in the hash code of a long
+			final long key = ((long) (i % 50) << 32) | (i % 50);
+			final Tuple2<Long, String> record = new Tuple2<>(key, "value-" + i);
+			assertTrue(table.write(record));
+			addExpected(expected, record);
+		}
+
+		assertEquals(50, table.getNumKeys());
+		assertGroups(expected, table, true);
+
+		table.dispose();
+	}
+
+	@Test
+	public void testValuesTraversableOnce() throws Exception {
+		final GroupingHashTable<Tuple2<Long, String>> table =
+			new GroupingHashTable<>(serializer, comparator, getMemory(8));
+		table.write(new Tuple2<>(1L, "a"));
+		table.write(new Tuple2<>(1L, "b"));
+
+		final GroupingHashTable<Tuple2<Long, String>>.KeyGroupIterator groups = table.getKeyGroupIterator(false);
+		assertTrue(groups.nextKey());
+
+		final Iterable<Tuple2<Long, String>> values = groups.getValues();
+		values.iterator();
+		try {
+			values.iterator();
+			fail("Values should only be traversable once.");
+		} catch (TraversableOnceException e) {
+			// expected
+		}
+
+		assertFalse(groups.nextKey());
+		table.dispose();
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static void addExpected(Map<Long, List<String>> expected, Tuple2<Long, String> record) {
+		List<String> values = expected.get(record.f0);
+		if (values == null) {
+			values = new ArrayList<>();
+			expected.put(record.f0, values);
+		}
+		values.add(record.f1);
+	}
+
+	private static void assertGroups(
+			Map<Long, List<String>> expected,
+			GroupingHashTable<Tuple2<Long, String>> table,
+			boolean objectReuseEnabled) {
+
+		final Map<Long, List<String>> actual = new HashMap<>();
+		final GroupingHashTable<Tuple2<Long, String>>.KeyGroupIterator groups = table.getKeyGroupIterator(objectReuseEnabled);
+
+		while (groups.nextKey()) {
+			Long key = null;
+			final List<String> values = new ArrayList<>();
+			for (Tuple2<Long, String> value : groups.getValues()) {
+				if (key == null) {
+					key = value.f0;
+				} else {
+					assertEquals(key, value.f0);
+				}
+				values.add(value.f1);
+			}
+
+			assertFalse("Key " + key + " was returned twice.", actual.containsKey(key));
+			actual.put(key, values);
+		}
+
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Map.Entry<Long, List<String>> entry : expected.entrySet()) {
+			final List<String> expectedValues = new ArrayList<>(entry.getValue());
+			final List<String> actualValues = actual.get(entry.getKey());
+			Collections.sort(expectedValues);
+			Collections.sort(actualValues);
+			assertEquals(expectedValues, actualValues);
+		}
+	}
+
+	private static String randomString(Random rnd) {
+		final char[] chars = new char[rnd.nextInt(40)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + rnd.nextInt(26));
+		}
+		return new String(chars);
+	}
+
+	private static List<MemorySegment> getMemory(int numPages) {
+		final List<MemorySegment> memory = new ArrayList<>(numPages);
+		for (int i = 0; i < numPages; i++) {
+			memory.add(MemorySegmentFactory.allocateUnpooledSegment(PAGE_SIZE));
+		}
+		return memory;
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
+import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.testutils.DummyEnvironment;
+import org.apache.flink.runtime.operators.testutils.DummyInvokable;
+import org.apache.flink.runtime.operators.testutils.TestData;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.KeyMode;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.ValueMode;
+import org.apache.flink.runtime.taskmanager.TaskManagerRuntimeInfo;
+import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link UnilateralSortMerger} borrowing memory beyond its quota.
+ */
+public class ExternalSortBorrowedMemoryITCase {
+
+	private static final long SEED = 649180756312423613L;
+
+	private static final int KEY_MAX = Integer.MAX_VALUE;
+
+	private static final int VALUE_LENGTH = 114;
+
+	private static final String VAL = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+	private static final int PAGE_SIZE = 32 * 1024;
+
+	private static final int MEMORY_SIZE = 1024 * 1024 * 16;
+
+	/** The sorter gets a quarter of the memory. */
+	private static final double MEMORY_FRACTION = 0.25;
+
+	private IOManager ioManager;
+
+	private MemoryManager memoryManager;
+
+	private AbstractInvokable parentTask;
+
+	private TypeSerializerFactory<Tuple2<Integer, String>> serializer;
+
+	private TypeComparator<Tuple2<Integer, String>> comparator;
+
+	@Before
+	public void beforeTest() {
+		this.memoryManager = new MemoryManager(MEMORY_SIZE, 1, PAGE_SIZE, MemoryType.HEAP, true);
+		this.ioManager = new IOManagerAsync();
+
+		final Configuration config = new Configuration();
+		config.setBoolean(TaskManagerOptions.SORT_BORROW_MEMORY, true);
+		this.parentTask = new DummyInvokable();
+		this.parentTask.setEnvironment(new DummyEnvironment("sort", 1, 0) {
+			@Override
+			public TaskManagerRuntimeInfo getTaskManagerInfo() {
+				return new TestingTaskManagerRuntimeInfo(config);
+			}
+		});
+
+		this.serializer = TestData.getIntStringTupleSerializerFactory();
+		this.comparator = TestData.getIntStringTupleComparator();
+	}
+
+	@After
+	public void afterTest() {
+		this.ioManager.shutdown();
+		assertTrue("I/O Manager was not properly shut down.", this.ioManager.isProperlyShutDown());
+
+		assertEquals(0, this.memoryManager.getNumBorrowedPages());
+		assertTrue("Memory leak: not all segments have been returned to the memory manager.",
+			this.memoryManager.verifyEmpty());
+		this.memoryManager.shutdown();
+	}
+
+	@Test
+	public void testInMemorySortWithBorrowedMemory() throws Exception {
+		// twice the sort memory of the sorter
+		final int numRecords = 30000;
+		final TestData.TupleGenerator generator = new TestData.TupleGenerator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+
+		final Sorter<Tuple2<Integer, String>> sorter = new UnilateralSortMerger<>(this.memoryManager, this.ioManager,
+			new TestData.TupleGeneratorIterator(generator, numRecords), this.parentTask, this.serializer, this.comparator,
+			MEMORY_FRACTION, 2, 0.8f, false, false);
+
+		final MutableObjectIterator<Tuple2<Integer, String>> iterator = sorter.getIterator();
+
+		// the records stay in memory, partly in borrowed pages
+		assertTrue(this.memoryManager.getNumBorrowedPages() > 0);
+		assertEquals(numRecords, checkSortedAndCount(iterator));
+
+		sorter.close();
+	}
+
+	@Test
+	public void testAllocationRevokesBorrowedMemory() throws Exception {
+		// more records than the whole memory holds
+		final int numRecords = 200000;
+		final CountDownLatch borrowing = new CountDownLatch(1);
+		final TestData.TupleGenerator generator = new TestData.TupleGenerator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+		final MutableObjectIterator<Tuple2<Integer, String>> source =
+			new SignalingIterator(new TestData.TupleGeneratorIterator(generator, numRecords), numRecords / 10, borrowing);
+
+		final Sorter<Tuple2<Integer, String>> sorter = new UnilateralSortMerger<>(this.memoryManager, this.ioManager,
+			source, this.parentTask, this.serializer, this.comparator,
+			MEMORY_FRACTION, 2, 0.8f, false, false);
+
+		// once the sorter holds more records than its sort memory, another consumer claims the rest of the memory
+		borrowing.await();
+		assertTrue(this.memoryManager.getNumBorrowedPages() > 0);
+
+		final int numQuotaPages = this.memoryManager.computeNumberOfPages(MEMORY_FRACTION);
+		final List<MemorySegment> otherQuota = this.memoryManager.allocatePages(
+			new DummyInvokable(), this.memoryManager.getTotalNumPages() - numQuotaPages);
+		assertEquals(0, this.memoryManager.getNumBorrowedPages());
+
+		// the sorter continues with its own quota
+		assertEquals(numRecords, checkSortedAndCount(sorter.getIterator()));
+
+		sorter.close();
+		this.memoryManager.release(otherQuota);
+	}
+
+	@Test
+	public void testRevocationSpillsFullSortBuffers() throws Exception {
+		final int numRecords = 60000;
+		final CountDownLatch inputBlocked = new CountDownLatch(1);
+		final CountDownLatch inputAvailable = new CountDownLatch(1);
+		final TestData.TupleGenerator generator = new TestData.TupleGenerator(SEED, KEY_MAX, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.CONSTANT, VAL);
+
+		// the input stalls once the sorter filled several borrowed sort buffers
+		final MutableObjectIterator<Tuple2<Integer, String>> source = new SignalingIterator(
+			new TestData.TupleGeneratorIterator(generator, numRecords), 40000, inputBlocked, inputAvailable);
+
+		final Sorter<Tuple2<Integer, String>> sorter = new UnilateralSortMerger<>(this.memoryManager, this.ioManager,
+			source, this.parentTask, this.serializer, this.comparator,
+			MEMORY_FRACTION, 8, 2, 0.8f, false, false);
+
+		inputBlocked.await();
+		final int numBorrowedPages = this.memoryManager.getNumBorrowedPages();
+		assertTrue(numBorrowedPages > 0);
+
+		// the reading thread still fills one of the borrowed buffers, all others are given back
+		// right away, although no further input arrives that would make the sorter spill
+		final int numQuotaPages = this.memoryManager.computeNumberOfPages(MEMORY_FRACTION);
+		final int numFreePages = this.memoryManager.getTotalNumPages() - numQuotaPages - numBorrowedPages;
+		final List<MemorySegment> otherQuota = this.memoryManager.allocatePages(
+			new DummyInvokable(), numFreePages + numBorrowedPages / 2);
+		assertTrue(this.memoryManager.getNumBorrowedPages() <= numBorrowedPages / 2);
+
+		inputAvailable.countDown();
+		assertEquals(numRecords, checkSortedAndCount(sorter.getIterator()));
+
+		sorter.close();
+		this.memoryManager.release(otherQuota);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private int checkSortedAndCount(MutableObjectIterator<Tuple2<Integer, String>> iterator) throws IOException {
+		Tuple2<Integer, String> rec1 = new Tuple2<>();
+		Tuple2<Integer, String> rec2 = new Tuple2<>();
+
+		int count = 0;
+		if ((rec1 = iterator.next(rec1)) != null) {
+			count++;
+			while ((rec2 = iterator.next(rec2)) != null) {
+				count++;
+				assertTrue(rec1.f0 <= rec2.f0);
+
+				Tuple2<Integer, String> tmp = rec1;
+				rec1 = rec2;
+				rec2 = tmp;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * An iterator that signals when it returned a given number of records, and optionally waits
+	 * before it returns the next record.
+	 */
+	private static final class SignalingIterator implements MutableObjectIterator<Tuple2<Integer, String>> {
+
+		private final MutableObjectIterator<Tuple2<Integer, String>> input;
+
+		private final CountDownLatch latch;
+
+		private final CountDownLatch continueLatch;
+
+		private int numRecordsUntilSignal;
+
+		SignalingIterator(MutableObjectIterator<Tuple2<Integer, String>> input, int numRecordsUntilSignal, CountDownLatch latch) {
+			this(input, numRecordsUntilSignal, latch, null);
+		}
+
+		SignalingIterator(MutableObjectIterator<Tuple2<Integer, String>> input, int numRecordsUntilSignal,
+				CountDownLatch latch, CountDownLatch continueLatch) {
+			this.input = input;
+			this.numRecordsUntilSignal = numRecordsUntilSignal;
+			this.latch = latch;
+			this.continueLatch = continueLatch;
+		}
+
+		@Override
+		public Tuple2<Integer, String> next(Tuple2<Integer, String> reuse) throws IOException {
+			awaitContinue();
+			return count(this.input.next(reuse));
+		}
+
+		@Override
+		public Tuple2<Integer, String> next() throws IOException {
+			awaitContinue();
+			return count(this.input.next());
+		}
+
+		private void awaitContinue() throws IOException {
+			if (this.numRecordsUntilSignal == 0 && this.continueLatch != null) {
+				try {
+					this.continueLatch.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+		}
+
+		private Tuple2<Integer, String> count(Tuple2<Integer, String> record) {
+			if (--this.numRecordsUntilSignal == 0) {
+				this.latch.countDown();
+			}
+			return record;
+		}
+	}
+}
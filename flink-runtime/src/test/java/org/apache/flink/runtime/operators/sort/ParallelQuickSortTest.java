@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.testutils.DummyInvokable;
+import org.apache.flink.runtime.operators.testutils.TestData;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.KeyMode;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.ValueMode;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for the {@link ParallelQuickSort}.
+ */
+public class ParallelQuickSortTest {
+
+	private static final long SEED = 649180756312423613L;
+
+	private static final int VALUE_LENGTH = 118;
+
+	private static final int MEMORY_SIZE = 1024 * 1024 * 32;
+
+	private static final int MEMORY_PAGE_SIZE = 32 * 1024;
+
+	/** Small enough that the buffers of the tests are split into many ranges. */
+	private static final int MIN_PARALLEL_RANGE = 1024;
+
+	private MemoryManager memoryManager;
+
+	private ForkJoinPool pool;
+
+	@Before
+	public void beforeTest() {
+		this.memoryManager = new MemoryManager(MEMORY_SIZE, 1, MEMORY_PAGE_SIZE, MemoryType.HEAP, true);
+		this.pool = new ForkJoinPool(4);
+	}
+
+	@After
+	public void afterTest() {
+		this.pool.shutdownNow();
+
+		if (!this.memoryManager.verifyEmpty()) {
+			Assert.fail("Memory Leak: Some memory has not been returned to the memory manager.");
+		}
+
+		this.memoryManager.shutdown();
+		this.memoryManager = null;
+	}
+
+	@Test
+	public void testSortIntKeys() throws Exception {
+		// the normalized keys fully determine the order
+		sortAndCheck(TestData.getIntStringTupleComparator(), Integer.MAX_VALUE, VALUE_LENGTH, 0);
+	}
+
+	@Test
+	public void testSortFewDistinctKeys() throws Exception {
+		// many entries are equal to the pivots
+		sortAndCheck(TestData.getIntStringTupleComparator(), 7, VALUE_LENGTH, 0);
+	}
+
+	@Test
+	public void testSortLongStringKeys() throws Exception {
+		// the normalized keys are only a prefix, so the threads concurrently compare the serialized records
+		@SuppressWarnings("unchecked")
+		TypeComparator<Tuple2<Integer, String>> comparator =
+			TestData.getIntStringTupleTypeInfo().createComparator(new int[]{1}, new boolean[]{true}, 0, null);
+
+		sortAndCheck(comparator, Integer.MAX_VALUE, VALUE_LENGTH, 1);
+	}
+
+	@Test
+	public void testSortNonConcurrentSortable() {
+		final Random rnd = new Random(SEED);
+		final int[] values = new int[100000];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = rnd.nextInt();
+		}
+
+		final int[] expected = values.clone();
+		Arrays.sort(expected);
+
+		// a plain sortable is sorted by the calling thread
+		new ParallelQuickSort(this.pool, MIN_PARALLEL_RANGE).sort(new IndexedSortable() {
+			@Override
+			public int compare(int i, int j) {
+				return Integer.compare(values[i], values[j]);
+			}
+
+			@Override
+			public void swap(int i, int j) {
+				int tmp = values[i];
+				values[i] = values[j];
+				values[j] = tmp;
+			}
+
+			@Override
+			public int size() {
+				return values.length;
+			}
+		});
+
+		Assert.assertArrayEquals(expected, values);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private void sortAndCheck(
+			TypeComparator<Tuple2<Integer, String>> comparator,
+			int maxKey,
+			int valueLength,
+			int keyField) throws Exception {
+
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+
+		final NormalizedKeySorter<Tuple2<Integer, String>> sorter =
+			new NormalizedKeySorter<>(TestData.getIntStringTupleSerializer(), comparator, memory);
+
+		final TestData.TupleGenerator generator =
+			new TestData.TupleGenerator(SEED, maxKey, valueLength, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+
+		// write the records
+		Tuple2<Integer, String> record = new Tuple2<>();
+		int num = -1;
+		do {
+			generator.next(record);
+			num++;
+		}
+		while (sorter.write(record));
+
+		Assert.assertTrue(num > 4 * MIN_PARALLEL_RANGE);
+
+		new ParallelQuickSort(this.pool, MIN_PARALLEL_RANGE).sort(sorter);
+
+		final MutableObjectIterator<Tuple2<Integer, String>> iter = sorter.getIterator();
+		Tuple2<Integer, String> readTarget = new Tuple2<>();
+
+		readTarget = iter.next(readTarget);
+		Comparable<Object> last = key(readTarget, keyField);
+		int count = 1;
+
+		while ((readTarget = iter.next(readTarget)) != null) {
+			final Comparable<Object> current = key(readTarget, keyField);
+			if (last.compareTo(current) > 0) {
+				Assert.fail("Next key is not larger or equal to previous key.");
+			}
+
+			last = current;
+			count++;
+		}
+
+		Assert.assertEquals(num, count);
+
+		// release the memory occupied by the buffers
+		sorter.dispose();
+		this.memoryManager.release(memory);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Comparable<Object> key(Tuple2<Integer, String> record, int keyField) {
+		return (Comparable<Object>) record.getField(keyField);
+	}
+}
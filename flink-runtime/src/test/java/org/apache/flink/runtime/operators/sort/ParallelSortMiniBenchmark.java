@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.runtime.operators.testutils.TestData;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.KeyMode;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.ValueMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares sorting a filled {@link NormalizedKeySorter} with the sequential {@link QuickSort} and with
+ * the {@link ParallelQuickSort} at several thread counts, for sort buffers of several sizes. The
+ * records have random integer keys, so the normalized keys fully determine the order.
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method. The speedup depends
+ * on the number of cores of the machine.
+ */
+public class ParallelSortMiniBenchmark {
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int[] BUFFER_SIZES_MB = {8, 32, 128, 512};
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+	private static final int VALUE_LENGTH = 20;
+
+	private static final int NUM_ROUNDS = 5;
+
+	public static void main(String[] args) throws Exception {
+		for (int bufferSizeMb : BUFFER_SIZES_MB) {
+			final List<MemorySegment> memory = allocateSegments(bufferSizeMb * 1024 * 1024 / SEGMENT_SIZE);
+			final NormalizedKeySorter<Tuple2<Integer, String>> sorter = new NormalizedKeySorter<>(
+				TestData.getIntStringTupleSerializer(), TestData.getIntStringTupleComparator(), memory);
+
+			for (int threads : THREAD_COUNTS) {
+				final ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+				final IndexedSorter sortAlgorithm = pool != null ? new ParallelQuickSort(pool) : new QuickSort();
+
+				try {
+					long bestNanos = Long.MAX_VALUE;
+					for (int round = 0; round < NUM_ROUNDS; round++) {
+						fill(sorter);
+
+						final long start = System.nanoTime();
+						sortAlgorithm.sort(sorter);
+						bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+					}
+
+					System.out.println(String.format("%4d MB buffer, %,10d records, %d thread(s): %8.2f ms",
+						bufferSizeMb, sorter.size(), threads, bestNanos / 1000000.0));
+				}
+				finally {
+					if (pool != null) {
+						pool.shutdownNow();
+					}
+				}
+			}
+
+			sorter.dispose();
+		}
+	}
+
+	private static void fill(NormalizedKeySorter<Tuple2<Integer, String>> sorter) throws Exception {
+		final TestData.TupleGenerator generator = new TestData.TupleGenerator(
+			42L, Integer.MAX_VALUE, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.FIX_LENGTH);
+		final Tuple2<Integer, String> record = new Tuple2<>();
+
+		sorter.reset();
+		do {
+			generator.next(record);
+		}
+		while (sorter.write(record));
+	}
+
+	private static List<MemorySegment> allocateSegments(int numSegments) {
+		final List<MemorySegment> segments = new ArrayList<>(numSegments);
+		for (int i = 0; i < numSegments; i++) {
+			segments.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+		}
+		return segments;
+	}
+}
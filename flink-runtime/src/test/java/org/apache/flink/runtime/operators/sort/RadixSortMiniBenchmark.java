@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.java.tuple.Tuple3;
+import org.apache.flink.api.java.typeutils.TupleTypeInfo;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemorySegmentFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares sorting a filled {@link NormalizedKeySorter} with the {@link QuickSort} and with the
+ * {@link RadixSort}, for several key types: integer keys, long keys, composite integer and long keys,
+ * and string keys. The normalized keys of the string keys are only a prefix, so they are quick sorted
+ * by the radix sort as well.
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method.
+ */
+public class RadixSortMiniBenchmark {
+
+	private static final int SEGMENT_SIZE = 32 * 1024;
+
+	private static final int BUFFER_SIZE = 128 * 1024 * 1024;
+
+	private static final int NUM_ROUNDS = 5;
+
+	private static final TupleTypeInfo<Tuple3<Integer, Long, String>> TYPE_INFO = new TupleTypeInfo<>(
+		BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+
+	public static void main(String[] args) throws Exception {
+		final List<MemorySegment> memory = new ArrayList<>();
+		for (int i = 0; i < BUFFER_SIZE / SEGMENT_SIZE; i++) {
+			memory.add(MemorySegmentFactory.allocateUnpooledSegment(SEGMENT_SIZE));
+		}
+
+		run("int keys           ", new int[] {0}, memory);
+		run("long keys          ", new int[] {1}, memory);
+		run("int and long keys  ", new int[] {0, 1}, memory);
+		run("string keys        ", new int[] {2}, memory);
+	}
+
+	private static void run(String name, int[] keyFields, List<MemorySegment> memory) throws Exception {
+		final TypeSerializer<Tuple3<Integer, Long, String>> serializer = TYPE_INFO.createSerializer(new ExecutionConfig());
+		final TypeComparator<Tuple3<Integer, Long, String>> comparator =
+			TYPE_INFO.createComparator(keyFields, ascending(keyFields.length), 0, new ExecutionConfig());
+		final NormalizedKeySorter<Tuple3<Integer, Long, String>> sorter =
+			new NormalizedKeySorter<>(serializer, comparator, memory);
+
+		final long quickSortNanos = time(sorter, new QuickSort());
+		final long radixSortNanos = time(sorter, new RadixSort());
+
+		System.out.println(String.format("%s: %,10d records, quick sort %8.2f ms, radix sort %8.2f ms (%s)",
+			name, sorter.size(), quickSortNanos / 1000000.0, radixSortNanos / 1000000.0,
+			RadixSort.isRadixSortable(sorter) ? "radix sorted" : "quick sorted"));
+
+		sorter.dispose();
+	}
+
+	private static boolean[] ascending(int numKeys) {
+		final boolean[] orders = new boolean[numKeys];
+		for (int i = 0; i < numKeys; i++) {
+			orders[i] = true;
+		}
+		return orders;
+	}
+
+	private static long time(NormalizedKeySorter<Tuple3<Integer, Long, String>> sorter, IndexedSorter sortAlgorithm)
+			throws Exception {
+
+		long bestNanos = Long.MAX_VALUE;
+		for (int round = 0; round < NUM_ROUNDS; round++) {
+			fill(sorter);
+
+			final long start = System.nanoTime();
+			sortAlgorithm.sort(sorter);
+			bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+		}
+		return bestNanos;
+	}
+
+	private static void fill(NormalizedKeySorter<Tuple3<Integer, Long, String>> sorter) throws Exception {
+		final Random rnd = new Random(42L);
+		final char[] chars = new char[12];
+		final Tuple3<Integer, Long, String> record = new Tuple3<>();
+
+		sorter.reset();
+		do {
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = (char) ('a' + rnd.nextInt(26));
+			}
+			record.f0 = rnd.nextInt();
+			record.f1 = rnd.nextLong();
+			record.f2 = new String(chars);
+		}
+		while (sorter.write(record));
+	}
+}
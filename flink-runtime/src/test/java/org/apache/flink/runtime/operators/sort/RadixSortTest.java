@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.sort;
+
+import org.apache.flink.api.common.typeutils.TypeComparator;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.core.memory.MemoryType;
+import org.apache.flink.runtime.memory.MemoryManager;
+import org.apache.flink.runtime.operators.testutils.DummyInvokable;
+import org.apache.flink.runtime.operators.testutils.RandomIntPairGenerator;
+import org.apache.flink.runtime.operators.testutils.TestData;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.KeyMode;
+import org.apache.flink.runtime.operators.testutils.TestData.TupleGenerator.ValueMode;
+import org.apache.flink.runtime.operators.testutils.types.IntPair;
+import org.apache.flink.runtime.operators.testutils.types.IntPairComparator;
+import org.apache.flink.runtime.operators.testutils.types.IntPairSerializer;
+import org.apache.flink.util.MutableObjectIterator;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests for the {@link RadixSort}.
+ */
+public class RadixSortTest {
+
+	private static final long SEED = 649180756312423613L;
+
+	private static final int VALUE_LENGTH = 118;
+
+	private static final int MEMORY_SIZE = 1024 * 1024 * 32;
+
+	private static final int MEMORY_PAGE_SIZE = 32 * 1024;
+
+	private MemoryManager memoryManager;
+
+	@Before
+	public void beforeTest() {
+		this.memoryManager = new MemoryManager(MEMORY_SIZE, 1, MEMORY_PAGE_SIZE, MemoryType.HEAP, true);
+	}
+
+	@After
+	public void afterTest() {
+		if (!this.memoryManager.verifyEmpty()) {
+			Assert.fail("Memory Leak: Some memory has not been returned to the memory manager.");
+		}
+
+		this.memoryManager.shutdown();
+		this.memoryManager = null;
+	}
+
+	@Test
+	public void testSortIntKeys() throws Exception {
+		sortAndCheck(TestData.getIntStringTupleComparator(), Integer.MAX_VALUE, true, new RadixSort());
+	}
+
+	@Test
+	public void testSortIntKeysDescending() throws Exception {
+		// the normalized keys are inverted
+		@SuppressWarnings("unchecked")
+		TypeComparator<Tuple2<Integer, String>> comparator =
+			TestData.getIntStringTupleTypeInfo().createComparator(new int[]{0}, new boolean[]{false}, 0, null);
+
+		sortAndCheck(comparator, Integer.MAX_VALUE, true, new RadixSort());
+	}
+
+	@Test
+	public void testSortFewDistinctKeys() throws Exception {
+		// most key bytes are equal for all entries
+		sortAndCheck(TestData.getIntStringTupleComparator(), 7, true, new RadixSort());
+	}
+
+	@Test
+	public void testSortStringKeys() throws Exception {
+		// the normalized keys are only a prefix, so the entries are quick sorted
+		@SuppressWarnings("unchecked")
+		TypeComparator<Tuple2<Integer, String>> comparator =
+			TestData.getIntStringTupleTypeInfo().createComparator(new int[]{1}, new boolean[]{true}, 0, null);
+
+		sortAndCheck(comparator, Integer.MAX_VALUE, false, new RadixSort());
+	}
+
+	@Test
+	public void testParallelSortWithRadixSortedParts() throws Exception {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			sortAndCheck(TestData.getIntStringTupleComparator(), Integer.MAX_VALUE, true,
+				new ParallelQuickSort(pool, 1024, new RadixSort()));
+		}
+		finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSortFixedLengthRecords() throws Exception {
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+
+		final FixedLengthRecordSorter<IntPair> sorter =
+			new FixedLengthRecordSorter<>(new IntPairSerializer(), new IntPairComparator(), memory);
+		final RandomIntPairGenerator generator = new RandomIntPairGenerator(SEED);
+
+		// write the records
+		IntPair record = new IntPair();
+		int num = -1;
+		do {
+			generator.next(record);
+			num++;
+		}
+		while (sorter.write(record));
+
+		Assert.assertTrue(RadixSort.isRadixSortable(sorter));
+		new RadixSort().sort(sorter);
+
+		final MutableObjectIterator<IntPair> iter = sorter.getIterator();
+		IntPair readTarget = new IntPair();
+
+		readTarget = iter.next(readTarget);
+		int last = readTarget.getKey();
+		int count = 1;
+
+		while ((readTarget = iter.next(readTarget)) != null) {
+			final int current = readTarget.getKey();
+			if (last > current) {
+				Assert.fail("Next key is not larger or equal to previous key.");
+			}
+
+			last = current;
+			count++;
+		}
+
+		Assert.assertEquals(num, count);
+
+		// release the memory occupied by the buffers
+		sorter.dispose();
+		this.memoryManager.release(memory);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private void sortAndCheck(
+			TypeComparator<Tuple2<Integer, String>> comparator,
+			int maxKey,
+			boolean radixSortable,
+			IndexedSorter sortAlgorithm) throws Exception {
+
+		final int numSegments = MEMORY_SIZE / MEMORY_PAGE_SIZE;
+		final List<MemorySegment> memory = this.memoryManager.allocatePages(new DummyInvokable(), numSegments);
+
+		final NormalizedKeySorter<Tuple2<Integer, String>> sorter =
+			new NormalizedKeySorter<>(TestData.getIntStringTupleSerializer(), comparator, memory);
+
+		final TestData.TupleGenerator generator =
+			new TestData.TupleGenerator(SEED, maxKey, VALUE_LENGTH, KeyMode.RANDOM, ValueMode.RANDOM_LENGTH);
+
+		// write the records
+		Tuple2<Integer, String> record = new Tuple2<>();
+		int num = -1;
+		do {
+			generator.next(record);
+			num++;
+		}
+		while (sorter.write(record));
+
+		Assert.assertEquals(radixSortable, RadixSort.isRadixSortable(sorter));
+		sortAlgorithm.sort(sorter);
+
+		final MutableObjectIterator<Tuple2<Integer, String>> iter = sorter.getIterator();
+		Tuple2<Integer, String> last = iter.next(new Tuple2<Integer, String>());
+		Tuple2<Integer, String> current = new Tuple2<>();
+		int count = 1;
+
+		while ((current = iter.next(current)) != null) {
+			if (comparator.compare(last, current) > 0) {
+				Assert.fail("Next record is not larger or equal to previous record.");
+			}
+
+			final Tuple2<Integer, String> tmp = last;
+			last = current;
+			current = tmp;
+			count++;
+		}
+
+		Assert.assertEquals(num, count);
+
+		// release the memory occupied by the buffers
+		sorter.dispose();
+		this.memoryManager.release(memory);
+	}
+}
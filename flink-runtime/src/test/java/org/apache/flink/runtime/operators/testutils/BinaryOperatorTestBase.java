@@ -28,6 +28,7 @@ import org.apache.flink.api.java.typeutils.runtime.RuntimeSerializerFactory;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
@@ -376,6 +377,11 @@ public class BinaryOperatorTestBase<S extends Function, IN, OUT> extends TestLog
 		return new UnregisteredTaskMetricsGroup.DummyOperatorMetricGroup();
 	}
 
+	@Override
+	public void sendTaskEvent(int inputNum, TaskEvent event) {
+		// the test inputs have no producers that could receive events
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	@After
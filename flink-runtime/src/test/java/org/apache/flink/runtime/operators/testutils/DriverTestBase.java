@@ -24,6 +24,7 @@ import org.apache.flink.api.common.functions.util.FunctionUtils;
 import org.apache.flink.api.common.typeutils.TypeComparator;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
@@ -371,6 +372,11 @@ public class DriverTestBase<S extends Function> extends TestLogger implements Ta
 		return new UnregisteredTaskMetricsGroup.DummyOperatorMetricGroup();
 	}
 
+	@Override
+	public void sendTaskEvent(int inputNum, TaskEvent event) {
+		// the test inputs have no producers that could receive events
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	@After
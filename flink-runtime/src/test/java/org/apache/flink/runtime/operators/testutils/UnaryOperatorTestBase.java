@@ -26,6 +26,7 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.common.typeutils.TypeSerializerFactory;
 import org.apache.flink.api.java.typeutils.runtime.RuntimeSerializerFactory;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.event.TaskEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.disk.iomanager.IOManagerAsync;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
@@ -367,6 +368,11 @@ public class UnaryOperatorTestBase<S extends Function, IN, OUT> extends TestLogg
 		return new UnregisteredTaskMetricsGroup.DummyOperatorMetricGroup();
 	}
 
+	@Override
+	public void sendTaskEvent(int inputNum, TaskEvent event) {
+		// the test inputs have no producers that could receive events
+	}
+
 	// --------------------------------------------------------------------------------------------
 	
 	@After
@@ -39,6 +39,7 @@ import org.apache.flink.types.KeyFieldOutOfBoundsException;
 import org.apache.flink.types.NullKeyFieldException;
 import org.apache.flink.types.Record;
 import org.apache.flink.types.StringValue;
+import org.apache.flink.util.MathUtils;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -150,6 +151,55 @@ public class OutputEmitterTest {
 		assertTrue(chans[0] >= 0 && chans[0] <= numChans-1);
 	}
 
+	@Test
+	public void testPartitionHashWithRuntimeFilter() {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		final TypeComparator<Record> intComp = new RecordComparatorFactory(new int[] {0}, new Class[] {IntValue.class}).createComparator();
+		final OutputEmitter<Record> oe = new OutputEmitter<Record>(ShipStrategyType.PARTITION_HASH, intComp);
+		final SerializationDelegate<Record> delegate = new SerializationDelegate<Record>(new RecordSerializerFactory().getSerializer());
+
+		final int numChans = 4;
+		final int numRecs = 10000;
+
+		// the consumer of channel 0 only joins with the even keys, the other consumers sent no filter
+		final RuntimeFilter filter = new RuntimeFilter(8 * 1024);
+		for (int i = 0; i < numRecs; i += 2) {
+			filter.add(intComp.hash(new Record(new IntValue(i))));
+		}
+		oe.onEvent(new RuntimeFilterEvent(0, filter));
+
+		final int[] unfiltered = new int[numChans];
+		final int[] hit = new int[numChans];
+		int numEvenKeysOnChannel0 = 0;
+
+		for (int i = 0; i < numRecs; i++) {
+			Record rec = new Record(new IntValue(i));
+			delegate.setInstance(rec);
+
+			int channel = MathUtils.murmurHash(intComp.hash(rec)) % numChans;
+			unfiltered[channel]++;
+
+			int[] chans = oe.selectChannels(delegate, numChans);
+			if (channel == 0 && i % 2 == 0) {
+				// no false negatives
+				assertTrue(chans.length == 1);
+				numEvenKeysOnChannel0++;
+			}
+			for (int chan : chans) {
+				assertTrue(chan == channel);
+				hit[chan]++;
+			}
+		}
+
+		// only the records of the filtered channel are dropped
+		for (int i = 1; i < numChans; i++) {
+			assertTrue(hit[i] == unfiltered[i]);
+		}
+		assertTrue(hit[0] >= numEvenKeysOnChannel0);
+		assertTrue(hit[0] < unfiltered[0]);
+		assertTrue(oe.getNumFilteredRecords() == unfiltered[0] - hit[0]);
+	}
+
 	@Test
 	public void testForward() {
 		// Test for IntValue
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.operators.util;
+
+import org.apache.flink.runtime.util.DataInputDeserializer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link RuntimeFilter} and the {@link RuntimeFilterEvent}.
+ */
+public class RuntimeFilterTest {
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSizeNotPowerOfTwo() {
+		new RuntimeFilter(1000);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSizeTooSmall() {
+		new RuntimeFilter(4);
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		final RuntimeFilter filter = new RuntimeFilter(16 * 1024);
+		final Random rnd = new Random(42L);
+		final int[] hashes = new int[10000];
+
+		for (int i = 0; i < hashes.length; i++) {
+			hashes[i] = rnd.nextInt();
+			filter.add(hashes[i]);
+		}
+
+		assertEquals(hashes.length, filter.getNumAddedHashes());
+		for (int hash : hashes) {
+			assertTrue(filter.mightContain(hash));
+		}
+	}
+
+	@Test
+	public void testFalsePositiveProbability() {
+		final RuntimeFilter filter = new RuntimeFilter(8 * 1024);
+		for (int i = 0; i < 8192; i++) {
+			filter.add(i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 8192; i < 8192 + 100000; i++) {
+			if (filter.mightContain(i)) {
+				falsePositives++;
+			}
+		}
+
+		final double expected = filter.estimateFalsePositiveProbability();
+		assertTrue(expected < 0.05);
+		assertTrue("Too many false positives: " + falsePositives, falsePositives < 100000 * expected * 2);
+	}
+
+	@Test
+	public void testCompact() {
+		final RuntimeFilter filter = new RuntimeFilter(64 * 1024);
+		for (int i = 0; i < 1000; i++) {
+			filter.add(i * 31);
+		}
+
+		assertTrue(filter.compact(0.1));
+		assertTrue(filter.getSizeInBytes() < 64 * 1024);
+		assertTrue(filter.estimateFalsePositiveProbability() <= 0.1);
+
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.mightContain(i * 31));
+		}
+	}
+
+	@Test
+	public void testCompactOverloadedFilter() {
+		final RuntimeFilter filter = new RuntimeFilter(64);
+		for (int i = 0; i < 10000; i++) {
+			filter.add(i);
+		}
+
+		assertFalse(filter.compact(0.1));
+		assertEquals(64, filter.getSizeInBytes());
+	}
+
+	@Test
+	public void testEventSerialization() throws Exception {
+		final RuntimeFilter filter = new RuntimeFilter(1024);
+		for (int i = 0; i < 100; i++) {
+			filter.add(i);
+		}
+
+		final DataOutputSerializer out = new DataOutputSerializer(2048);
+		new RuntimeFilterEvent(7, filter).write(out);
+
+		final RuntimeFilterEvent copy = new RuntimeFilterEvent();
+		copy.read(new DataInputDeserializer(out.getCopyOfBuffer()));
+
+		assertEquals(7, copy.getChannel());
+		assertEquals(filter.getSizeInBytes(), copy.getFilter().getSizeInBytes());
+		assertEquals(filter.getNumAddedHashes(), copy.getFilter().getNumAddedHashes());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(filter.mightContain(i), copy.getFilter().mightContain(i));
+		}
+		assertTrue(copy.isOptional());
+	}
+}
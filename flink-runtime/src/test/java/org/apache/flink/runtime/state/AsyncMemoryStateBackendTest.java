@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.state.ValueState;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.state.heap.AbstractHeapState;
+import org.apache.flink.runtime.state.heap.NestedMapsStateTable;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RunnableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link MemoryStateBackend} with asynchronous snapshots of the keyed state.
+ */
+public class AsyncMemoryStateBackendTest extends StateBackendTestBase<MemoryStateBackend> {
+
+	@Override
+	protected MemoryStateBackend getStateBackend() throws Exception {
+		return new MemoryStateBackend(true);
+	}
+
+	// disable these because the verification does not work for this state backend
+	@Override
+	@Test
+	public void testValueStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testListStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testReducingStateRestoreWithWrongSerializers() {}
+
+	@Override
+	@Test
+	public void testMapStateRestoreWithWrongSerializers() {}
+
+	/**
+	 * Verifies that modifications which happen after the synchronous part of a snapshot do not
+	 * leak into the asynchronously written snapshot.
+	 */
+	@Test
+	public void testModificationsAfterSynchronousPartAreNotInSnapshot() throws Exception {
+		testModificationsAfterSynchronousPartAreNotInSnapshot(false);
+	}
+
+	/**
+	 * Verifies that modifications of queryable state, which is held in nested concurrent maps, do not
+	 * leak into the asynchronously written snapshot either.
+	 */
+	@Test
+	public void testModificationsOfQueryableStateAfterSynchronousPartAreNotInSnapshot() throws Exception {
+		testModificationsAfterSynchronousPartAreNotInSnapshot(true);
+	}
+
+	@Test
+	public void testConcurrentMapIfQueryable() throws Exception {
+		super.testConcurrentMapIfQueryable();
+	}
+
+	private void testModificationsAfterSynchronousPartAreNotInSnapshot(boolean queryable) throws Exception {
+		CheckpointStreamFactory streamFactory = createStreamFactory();
+		AbstractKeyedStateBackend<Integer> backend = createKeyedBackend(IntSerializer.INSTANCE);
+
+		ValueStateDescriptor<String> valueId = new ValueStateDescriptor<>("value", String.class);
+		valueId.initializeSerializerUnlessSet(new ExecutionConfig());
+		ListStateDescriptor<Integer> listId = new ListStateDescriptor<>("list", Integer.class);
+		listId.initializeSerializerUnlessSet(new ExecutionConfig());
+
+		if (queryable) {
+			valueId.setQueryable("value-query");
+			listId.setQueryable("list-query");
+		}
+
+		ValueState<String> valueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+		ListState<Integer> listState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+		if (queryable) {
+			assertTrue(((AbstractHeapState<?, ?, ?, ?, ?>) valueState).getStateTable() instanceof NestedMapsStateTable);
+		}
+
+		for (int key = 0; key < 100; ++key) {
+			backend.setCurrentKey(key);
+			valueState.update("v" + key);
+			listState.add(key);
+		}
+
+		RunnableFuture<KeyGroupsStateHandle> snapshotFuture =
+				backend.snapshot(682375462378L, 2, streamFactory, CheckpointOptions.forFullCheckpoint());
+
+		// the snapshot must not be written as part of the synchronous part
+		assertFalse(snapshotFuture.isDone());
+
+		// modify, add and remove state after the synchronous part, this also grows the tables
+		for (int key = 0; key < 100; ++key) {
+			backend.setCurrentKey(key);
+			valueState.update("u" + key);
+			listState.add(-key);
+		}
+		for (int key = 100; key < 1000; ++key) {
+			backend.setCurrentKey(key);
+			valueState.update("u" + key);
+			listState.add(key);
+		}
+		backend.setCurrentKey(42);
+		valueState.clear();
+		listState.clear();
+
+		KeyGroupsStateHandle snapshot = runSnapshot(snapshotFuture);
+
+		// the live state must reflect all modifications
+		backend.setCurrentKey(7);
+		assertEquals("u7", valueState.value());
+		assertEquals(Arrays.asList(7, -7), toList(listState.get()));
+
+		backend.dispose();
+		backend = restoreKeyedBackend(IntSerializer.INSTANCE, snapshot);
+		snapshot.discardState();
+
+		ValueState<String> restoredValueState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, valueId);
+		ListState<Integer> restoredListState = backend.getPartitionedState(VoidNamespace.INSTANCE, VoidNamespaceSerializer.INSTANCE, listId);
+
+		for (int key = 0; key < 100; ++key) {
+			backend.setCurrentKey(key);
+			assertEquals("v" + key, restoredValueState.value());
+			assertEquals(Arrays.asList(key), toList(restoredListState.get()));
+		}
+		for (int key = 100; key < 1000; ++key) {
+			backend.setCurrentKey(key);
+			assertNull(restoredValueState.value());
+			assertNull(restoredListState.get());
+		}
+
+		backend.dispose();
+	}
+
+	private static List<Integer> toList(Iterable<Integer> iterable) {
+		List<Integer> result = new ArrayList<>();
+		for (Integer value : iterable) {
+			result.add(value);
+		}
+		return result;
+	}
+}
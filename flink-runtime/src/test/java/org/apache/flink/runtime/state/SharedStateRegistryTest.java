@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SharedStateRegistryTest {
+
+	@Test
+	public void testReferenceCounting() throws Exception {
+		SharedStateRegistry registry = new SharedStateRegistry();
+
+		StreamStateHandle state = mock(StreamStateHandle.class);
+
+		assertEquals(1, registry.register(state));
+		assertEquals(2, registry.register(state));
+		assertEquals(1, registry.getNumberOfRegisteredStates());
+
+		assertEquals(1, registry.unregister(state));
+		verify(state, never()).discardState();
+
+		assertEquals(0, registry.unregister(state));
+		verify(state, times(1)).discardState();
+		assertEquals(0, registry.getNumberOfRegisteredStates());
+
+		// unregistering an unknown state is ignored
+		assertEquals(0, registry.unregister(state));
+		verify(state, times(1)).discardState();
+	}
+
+	@Test
+	public void testIncrementalHandleOwnership() throws Exception {
+		SharedStateRegistry registry = new SharedStateRegistry();
+
+		StreamStateHandle sharedFile = mock(StreamStateHandle.class);
+		StreamStateHandle newFile = mock(StreamStateHandle.class);
+
+		IncrementalKeyGroupsStateHandle first = createHandle(1L,
+				Collections.singletonMap("1.sst", sharedFile),
+				Collections.<String, StreamStateHandle>emptyMap());
+
+		Map<String, StreamStateHandle> secondNewFiles = new HashMap<>();
+		secondNewFiles.put("2.sst", newFile);
+
+		IncrementalKeyGroupsStateHandle second = createHandle(2L,
+				secondNewFiles,
+				Collections.singletonMap("1.sst", sharedFile));
+
+		first.registerSharedStates(registry);
+		second.registerSharedStates(registry);
+		assertEquals(2, registry.getReferenceCount(sharedFile));
+
+		// subsuming the first checkpoint keeps the file that the second one references
+		first.unregisterSharedStates(registry);
+		first.discardState();
+		verify(sharedFile, never()).discardState();
+
+		second.unregisterSharedStates(registry);
+		second.discardState();
+		verify(sharedFile, times(1)).discardState();
+		verify(newFile, times(1)).discardState();
+	}
+
+	@Test
+	public void testDiscardUnregisteredIncrementalHandle() throws Exception {
+		StreamStateHandle oldFile = mock(StreamStateHandle.class);
+		StreamStateHandle newFile = mock(StreamStateHandle.class);
+
+		IncrementalKeyGroupsStateHandle handle = createHandle(3L,
+				Collections.singletonMap("2.sst", newFile),
+				Collections.singletonMap("1.sst", oldFile));
+
+		// an aborted checkpoint discards the files it uploaded but not the referenced ones
+		handle.discardState();
+
+		verify(newFile, times(1)).discardState();
+		verify(oldFile, never()).discardState();
+		verify(handle.getMetaStateHandle(), times(1)).discardState();
+	}
+
+	private static IncrementalKeyGroupsStateHandle createHandle(
+			long checkpointId,
+			Map<String, StreamStateHandle> newSharedState,
+			Map<String, StreamStateHandle> oldSharedState) {
+
+		return new IncrementalKeyGroupsStateHandle(
+				"test-backend",
+				KeyGroupRange.of(0, 9),
+				checkpointId,
+				newSharedState,
+				oldSharedState,
+				Collections.<String, StreamStateHandle>emptyMap(),
+				mock(StreamStateHandle.class));
+	}
+}
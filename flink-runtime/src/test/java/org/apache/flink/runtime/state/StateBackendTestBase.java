@@ -50,7 +50,7 @@ import org.apache.flink.runtime.query.KvStateRegistry;
 import org.apache.flink.runtime.query.KvStateRegistryListener;
 import org.apache.flink.runtime.query.netty.message.KvStateRequestSerializer;
 import org.apache.flink.runtime.state.heap.AbstractHeapState;
-import org.apache.flink.runtime.state.heap.StateTable;
+import org.apache.flink.runtime.state.heap.NestedMapsStateTable;
 import org.apache.flink.runtime.state.internal.InternalKvState;
 import org.apache.flink.types.IntValue;
 import org.apache.flink.util.TestLogger;
@@ -1508,10 +1508,10 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 			state.update(121818273);
 
 			int keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(1, numberOfKeyGroups);
-			StateTable stateTable = ((AbstractHeapState) kvState).getStateTable();
-			assertNotNull("State not set", stateTable.get(keyGroupIndex));
-			assertTrue(stateTable.get(keyGroupIndex) instanceof ConcurrentHashMap);
-			assertTrue(stateTable.get(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
+			NestedMapsStateTable stateTable = (NestedMapsStateTable) ((AbstractHeapState) kvState).getStateTable();
+			assertNotNull("State not set", stateTable.getMapForKeyGroup(keyGroupIndex));
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex) instanceof ConcurrentHashMap);
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
 
 		}
 
@@ -1534,10 +1534,10 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 			state.add(121818273);
 
 			int keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(1, numberOfKeyGroups);
-			StateTable stateTable = ((AbstractHeapState) kvState).getStateTable();
-			assertNotNull("State not set", stateTable.get(keyGroupIndex));
-			assertTrue(stateTable.get(keyGroupIndex) instanceof ConcurrentHashMap);
-			assertTrue(stateTable.get(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
+			NestedMapsStateTable stateTable = (NestedMapsStateTable) ((AbstractHeapState) kvState).getStateTable();
+			assertNotNull("State not set", stateTable.getMapForKeyGroup(keyGroupIndex));
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex) instanceof ConcurrentHashMap);
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
 		}
 
 		{
@@ -1565,10 +1565,10 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 			state.add(121818273);
 
 			int keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(1, numberOfKeyGroups);
-			StateTable stateTable = ((AbstractHeapState) kvState).getStateTable();
-			assertNotNull("State not set", stateTable.get(keyGroupIndex));
-			assertTrue(stateTable.get(keyGroupIndex) instanceof ConcurrentHashMap);
-			assertTrue(stateTable.get(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
+			NestedMapsStateTable stateTable = (NestedMapsStateTable) ((AbstractHeapState) kvState).getStateTable();
+			assertNotNull("State not set", stateTable.getMapForKeyGroup(keyGroupIndex));
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex) instanceof ConcurrentHashMap);
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
 		}
 
 		{
@@ -1596,10 +1596,10 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 			state.add(121818273);
 
 			int keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(1, numberOfKeyGroups);
-			StateTable stateTable = ((AbstractHeapState) kvState).getStateTable();
-			assertNotNull("State not set", stateTable.get(keyGroupIndex));
-			assertTrue(stateTable.get(keyGroupIndex) instanceof ConcurrentHashMap);
-			assertTrue(stateTable.get(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
+			NestedMapsStateTable stateTable = (NestedMapsStateTable) ((AbstractHeapState) kvState).getStateTable();
+			assertNotNull("State not set", stateTable.getMapForKeyGroup(keyGroupIndex));
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex) instanceof ConcurrentHashMap);
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
 		}
 		
 		{
@@ -1621,10 +1621,10 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 			state.put(121818273, "121818273");
 
 			int keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(1, numberOfKeyGroups);
-			StateTable stateTable = ((AbstractHeapState) kvState).getStateTable();
-			assertNotNull("State not set", stateTable.get(keyGroupIndex));
-			assertTrue(stateTable.get(keyGroupIndex) instanceof ConcurrentHashMap);
-			assertTrue(stateTable.get(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
+			NestedMapsStateTable stateTable = (NestedMapsStateTable) ((AbstractHeapState) kvState).getStateTable();
+			assertNotNull("State not set", stateTable.getMapForKeyGroup(keyGroupIndex));
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex) instanceof ConcurrentHashMap);
+			assertTrue(stateTable.getMapForKeyGroup(keyGroupIndex).get(VoidNamespace.INSTANCE) instanceof ConcurrentHashMap);
 		}
 
 		backend.dispose();
@@ -1791,7 +1791,7 @@ public abstract class StateBackendTestBase<B extends AbstractStateBackend> exten
 		}
 	}
 
-	private KeyGroupsStateHandle runSnapshot(RunnableFuture<KeyGroupsStateHandle> snapshotRunnableFuture) throws Exception {
+	protected KeyGroupsStateHandle runSnapshot(RunnableFuture<KeyGroupsStateHandle> snapshotRunnableFuture) throws Exception {
 		if(!snapshotRunnableFuture.isDone()) {
 			Thread runner = new Thread(snapshotRunnableFuture);
 			runner.start();
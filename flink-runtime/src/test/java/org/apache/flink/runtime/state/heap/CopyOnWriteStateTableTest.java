@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.runtime.kryo.KryoSerializer;
+import org.apache.flink.runtime.state.ArrayListSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+import org.apache.flink.runtime.util.DataInputDeserializer;
+import org.apache.flink.runtime.util.DataOutputSerializer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link CopyOnWriteStateTable}.
+ */
+public class CopyOnWriteStateTableTest {
+
+	private static final int NUM_KEY_GROUPS = 128;
+
+	/**
+	 * Compares the results of random operations on the table to a {@link HashMap} as reference.
+	 */
+	@Test
+	public void testRandomOperationsAgainstReferenceMap() throws Exception {
+		final MockInternalKeyContext<Integer> keyContext = new MockInternalKeyContext<>(IntSerializer.INSTANCE, NUM_KEY_GROUPS);
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, createMetaInfo());
+
+		final Map<Tuple2<Integer, Integer>, ArrayList<Integer>> referenceMap = new HashMap<>();
+		final Random random = new Random(42);
+
+		final StateTransformationFunction<ArrayList<Integer>, Integer> transformation =
+				new StateTransformationFunction<ArrayList<Integer>, Integer>() {
+					@Override
+					public ArrayList<Integer> apply(ArrayList<Integer> previousState, Integer value) {
+						if (previousState == null) {
+							previousState = new ArrayList<>();
+						}
+						previousState.add(value);
+						return previousState;
+					}
+				};
+
+		for (int i = 0; i < 100000; ++i) {
+			final int key = random.nextInt(1000);
+			final int namespace = random.nextInt(10);
+			final Tuple2<Integer, Integer> compositeKey = new Tuple2<>(key, namespace);
+			keyContext.setCurrentKey(key);
+
+			final int operation = random.nextInt(6);
+			switch (operation) {
+				case 0: {
+					ArrayList<Integer> state = new ArrayList<>();
+					state.add(i);
+					stateTable.put(namespace, state);
+					referenceMap.put(compositeKey, new ArrayList<>(state));
+					break;
+				}
+				case 1: {
+					ArrayList<Integer> state = new ArrayList<>();
+					state.add(i);
+					assertEquals(referenceMap.put(compositeKey, new ArrayList<>(state)),
+							stateTable.putAndGetOld(namespace, state));
+					break;
+				}
+				case 2: {
+					stateTable.remove(namespace);
+					referenceMap.remove(compositeKey);
+					break;
+				}
+				case 3: {
+					assertEquals(referenceMap.remove(compositeKey), stateTable.removeAndGetOld(namespace));
+					break;
+				}
+				case 4: {
+					stateTable.transform(namespace, i, transformation);
+					referenceMap.put(compositeKey, transformation.apply(referenceMap.get(compositeKey), i));
+					break;
+				}
+				default: {
+					assertEquals(referenceMap.containsKey(compositeKey), stateTable.containsKey(namespace));
+					assertEquals(referenceMap.get(compositeKey), stateTable.get(namespace));
+					assertEquals(referenceMap.get(compositeKey), stateTable.get(key, namespace));
+				}
+			}
+
+			assertEquals(referenceMap.size(), stateTable.size());
+		}
+
+		for (Map.Entry<Tuple2<Integer, Integer>, ArrayList<Integer>> entry : referenceMap.entrySet()) {
+			assertEquals(entry.getValue(), stateTable.get(entry.getKey().f0, entry.getKey().f1));
+		}
+	}
+
+	/**
+	 * Tests that a snapshot is isolated from all modifications of the table that happen after its creation,
+	 * including in-place modifications of mutable states and a resize of the table.
+	 */
+	@Test
+	public void testSnapshotIsolation() throws Exception {
+		final MockInternalKeyContext<Integer> keyContext = new MockInternalKeyContext<>(IntSerializer.INSTANCE, NUM_KEY_GROUPS);
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, createMetaInfo());
+
+		final Map<Tuple2<Integer, Integer>, ArrayList<Integer>> expected = new HashMap<>();
+
+		for (int key = 0; key < 50; ++key) {
+			keyContext.setCurrentKey(key);
+			for (int namespace = 0; namespace < 2; ++namespace) {
+				ArrayList<Integer> state = new ArrayList<>();
+				state.add(key * namespace);
+				stateTable.put(namespace, state);
+				expected.put(new Tuple2<>(key, namespace), new ArrayList<>(state));
+			}
+		}
+
+		final CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> snapshot = stateTable.createSnapshot();
+
+		// modify states in-place, remove some, and add enough new entries to trigger a resize
+		for (int key = 0; key < 50; ++key) {
+			keyContext.setCurrentKey(key);
+			ArrayList<Integer> state = stateTable.get(0);
+			state.add(-1);
+			stateTable.remove(1);
+		}
+		for (int key = 50; key < 1000; ++key) {
+			keyContext.setCurrentKey(key);
+			ArrayList<Integer> state = new ArrayList<>();
+			state.add(key);
+			stateTable.put(0, state);
+		}
+
+		assertEquals(expected, readSnapshot(snapshot, keyContext));
+
+		// the live table sees all modifications
+		keyContext.setCurrentKey(3);
+		ArrayList<Integer> state = stateTable.get(0);
+		assertEquals(2, state.size());
+		assertFalse(stateTable.containsKey(1));
+		assertEquals(1000, stateTable.size());
+
+		snapshot.release();
+	}
+
+	/**
+	 * Tests that states are no longer copied once all snapshots that share them are released.
+	 */
+	@Test
+	public void testNoCopyAfterSnapshotRelease() throws Exception {
+		final MockInternalKeyContext<Integer> keyContext = new MockInternalKeyContext<>(IntSerializer.INSTANCE, NUM_KEY_GROUPS);
+		final CopyOnWriteStateTable<Integer, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, createMetaInfo());
+
+		keyContext.setCurrentKey(1);
+		ArrayList<Integer> originalState = new ArrayList<>();
+		originalState.add(1);
+		stateTable.put(0, originalState);
+
+		final CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> snapshot1 = stateTable.createSnapshot();
+		final CopyOnWriteStateTableSnapshot<Integer, Integer, ArrayList<Integer>> snapshot2 = stateTable.createSnapshot();
+
+		// shared with both snapshots, must be copied once
+		ArrayList<Integer> copiedState = stateTable.get(0);
+		assertNotSame(originalState, copiedState);
+		assertTrue(copiedState == stateTable.get(0));
+
+		snapshot1.release();
+		snapshot2.release();
+
+		// releasing twice has no effect
+		snapshot2.release();
+
+		keyContext.setCurrentKey(2);
+		ArrayList<Integer> newState = new ArrayList<>();
+		stateTable.put(0, newState);
+		assertTrue(newState == stateTable.get(0));
+
+		keyContext.setCurrentKey(3);
+		assertNull(stateTable.get(0));
+	}
+
+	/**
+	 * Tests removals from clusters of colliding mappings that wrap around the end of the slot arrays.
+	 */
+	@Test
+	public void testRemoveFromWrappingCollisionClusters() throws Exception {
+		final MockInternalKeyContext<CollidingKey> keyContext =
+				new MockInternalKeyContext<>(new KryoSerializer<>(CollidingKey.class, new ExecutionConfig()), NUM_KEY_GROUPS);
+
+		final CopyOnWriteStateTable<CollidingKey, Integer, ArrayList<Integer>> stateTable =
+				new CopyOnWriteStateTable<>(keyContext, createMetaInfo(), 8);
+
+		final Map<CollidingKey, ArrayList<Integer>> referenceMap = new HashMap<>();
+		final Random random = new Random(42);
+
+		for (int i = 0; i < 10000; ++i) {
+			final CollidingKey key = new CollidingKey(random.nextInt(5), random.nextInt(10));
+			keyContext.setCurrentKey(key);
+
+			if (random.nextBoolean()) {
+				ArrayList<Integer> state = new ArrayList<>();
+				state.add(i);
+				stateTable.put(0, state);
+				referenceMap.put(key, state);
+			} else {
+				assertEquals(referenceMap.remove(key), stateTable.removeAndGetOld(0));
+			}
+
+			assertEquals(referenceMap.size(), stateTable.size());
+			for (Map.Entry<CollidingKey, ArrayList<Integer>> entry : referenceMap.entrySet()) {
+				assertEquals(entry.getValue(), stateTable.get(entry.getKey(), 0));
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Key with a configurable hash code, to provoke collisions.
+	 */
+	private static class CollidingKey {
+
+		private final int hashCode;
+		private final int id;
+
+		CollidingKey(int hashCode, int id) {
+			this.hashCode = hashCode;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+
+			CollidingKey that = (CollidingKey) o;
+			return hashCode == that.hashCode && id == that.id;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	private static RegisteredBackendStateMetaInfo<Integer, ArrayList<Integer>> createMetaInfo() {
+		return new RegisteredBackendStateMetaInfo<>(
+				StateDescriptor.Type.UNKNOWN,
+				"test",
+				IntSerializer.INSTANCE,
+				new ArrayListSerializer<>(IntSerializer.INSTANCE));
+	}
+
+	/**
+	 * Writes all key-groups of the snapshot and reads them back into a map.
+	 */
+	private static <K> Map<Tuple2<K, Integer>, ArrayList<Integer>> readSnapshot(
+			StateTableSnapshot snapshot,
+			InternalKeyContext<K> keyContext) throws Exception {
+
+		final TypeSerializer<ArrayList<Integer>> stateSerializer = new ArrayListSerializer<>(IntSerializer.INSTANCE);
+		final Map<Tuple2<K, Integer>, ArrayList<Integer>> result = new HashMap<>();
+
+		final KeyGroupRange keyGroupRange = keyContext.getKeyGroupRange();
+		for (int keyGroup = keyGroupRange.getStartKeyGroup(); keyGroup <= keyGroupRange.getEndKeyGroup(); ++keyGroup) {
+			DataOutputSerializer out = new DataOutputSerializer(64);
+			snapshot.writeMappingsInKeyGroup(out, keyGroup);
+
+			DataInputDeserializer in = new DataInputDeserializer(out.getByteArray(), 0, out.length());
+			if (in.readByte() == 0) {
+				continue;
+			}
+
+			int numNamespaces = in.readInt();
+			for (int i = 0; i < numNamespaces; ++i) {
+				int namespace = IntSerializer.INSTANCE.deserialize(in);
+				int numEntries = in.readInt();
+				for (int j = 0; j < numEntries; ++j) {
+					K key = keyContext.getKeySerializer().deserialize(in);
+					result.put(new Tuple2<>(key, namespace), stateSerializer.deserialize(in));
+				}
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+
+/**
+ * Simple {@link InternalKeyContext} that holds the current key, with a key-group range that covers all key-groups.
+ *
+ * @param <K> The type of the key.
+ */
+class MockInternalKeyContext<K> implements InternalKeyContext<K> {
+
+	private final TypeSerializer<K> keySerializer;
+	private final int numberOfKeyGroups;
+	private final KeyGroupRange keyGroupRange;
+
+	private K key;
+	private int keyGroupIndex;
+
+	MockInternalKeyContext(TypeSerializer<K> keySerializer, int numberOfKeyGroups) {
+		this.keySerializer = keySerializer;
+		this.numberOfKeyGroups = numberOfKeyGroups;
+		this.keyGroupRange = new KeyGroupRange(0, numberOfKeyGroups - 1);
+	}
+
+	void setCurrentKey(K key) {
+		this.key = key;
+		this.keyGroupIndex = KeyGroupRangeAssignment.assignToKeyGroup(key, numberOfKeyGroups);
+	}
+
+	@Override
+	public K getCurrentKey() {
+		return key;
+	}
+
+	@Override
+	public int getCurrentKeyGroupIndex() {
+		return keyGroupIndex;
+	}
+
+	@Override
+	public int getNumberOfKeyGroups() {
+		return numberOfKeyGroups;
+	}
+
+	@Override
+	public KeyGroupRange getKeyGroupRange() {
+		return keyGroupRange;
+	}
+
+	@Override
+	public TypeSerializer<K> getKeySerializer() {
+		return keySerializer;
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.runtime.state.heap;
+
+import org.apache.flink.api.common.state.StateDescriptor;
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.RegisteredBackendStateMetaInfo;
+
+import java.util.Random;
+
+/**
+ * Compares the memory footprint per mapping and the get/put throughput of the {@link CopyOnWriteStateTable}
+ * with the {@link NestedMapsStateTable}, for state with one namespace per key (e.g. value state of a keyed function)
+ * and for state with several namespaces per key (e.g. window contents).
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method, preferably with a large heap
+ * and a fixed heap size, e.g. {@code -Xms4g -Xmx4g}. The memory footprint is measured as the difference of the
+ * used heap (after garbage collection) before and after populating a table. Keys, namespaces, and states are created
+ * up front, so the footprint only covers the structure of the table.
+ */
+public class StateTableMiniBenchmark {
+
+	private static final int NUM_KEY_GROUPS = 128;
+
+	private static final int NUM_MAPPINGS = 10000000;
+
+	private static final int NUM_ROUNDS = 3;
+
+	private static final long SEED = 561349061987311L;
+
+	public static void main(String[] args) throws Exception {
+		final int numMappings = args.length > 0 ? Integer.parseInt(args[0]) : NUM_MAPPINGS;
+
+		for (int round = 0; round < NUM_ROUNDS; ++round) {
+			for (int namespacesPerKey : new int[] {1, 10}) {
+				System.out.println("Round " + round + " with " + numMappings + " mappings, " +
+						namespacesPerKey + " namespace(s) per key:");
+
+				runBenchmark("NestedMapsStateTable", new NestedMapsFactory(), numMappings, namespacesPerKey);
+				runBenchmark("CopyOnWriteStateTable", new CopyOnWriteFactory(), numMappings, namespacesPerKey);
+			}
+		}
+	}
+
+	private static void runBenchmark(
+			String name,
+			StateTableFactory factory,
+			int numMappings,
+			int namespacesPerKey) {
+
+		final int numKeys = numMappings / namespacesPerKey;
+
+		final Integer[] keys = new Integer[numKeys];
+		for (int i = 0; i < numKeys; ++i) {
+			keys[i] = i;
+		}
+
+		final Integer[] namespaces = new Integer[namespacesPerKey];
+		for (int i = 0; i < namespacesPerKey; ++i) {
+			namespaces[i] = i;
+		}
+
+		final Long[] states = new Long[numMappings];
+		for (int i = 0; i < numMappings; ++i) {
+			states[i] = (long) i;
+		}
+
+		// random access order
+		final int[] accessOrder = new int[numMappings];
+		final Random random = new Random(SEED);
+		for (int i = 0; i < numMappings; ++i) {
+			accessOrder[i] = random.nextInt(numMappings);
+		}
+
+		final MockInternalKeyContext<Integer> keyContext =
+				new MockInternalKeyContext<>(IntSerializer.INSTANCE, NUM_KEY_GROUPS);
+
+		final long usedMemoryBefore = usedMemoryAfterGc();
+
+		final StateTable<Integer, Integer, Long> stateTable = factory.create(keyContext);
+
+		// insert all mappings
+		long start = System.nanoTime();
+		for (int i = 0; i < numMappings; ++i) {
+			keyContext.setCurrentKey(keys[i / namespacesPerKey]);
+			stateTable.put(namespaces[i % namespacesPerKey], states[i]);
+		}
+		final long insertNanos = System.nanoTime() - start;
+
+		final long usedMemoryAfter = usedMemoryAfterGc();
+
+		// update existing mappings in random order
+		start = System.nanoTime();
+		for (int index : accessOrder) {
+			keyContext.setCurrentKey(keys[index / namespacesPerKey]);
+			stateTable.put(namespaces[index % namespacesPerKey], states[index]);
+		}
+		final long updateNanos = System.nanoTime() - start;
+
+		// read mappings in random order
+		long checksum = 0L;
+		start = System.nanoTime();
+		for (int index : accessOrder) {
+			keyContext.setCurrentKey(keys[index / namespacesPerKey]);
+			checksum += stateTable.get(namespaces[index % namespacesPerKey]);
+		}
+		final long getNanos = System.nanoTime() - start;
+
+		System.out.println(String.format(
+				"  %-22s %6.1f bytes/mapping, insert %6.2f Mops/s, put %6.2f Mops/s, get %6.2f Mops/s (checksum %d)",
+				name,
+				(usedMemoryAfter - usedMemoryBefore) / (double) stateTable.size(),
+				opsPerMicro(numMappings, insertNanos),
+				opsPerMicro(accessOrder.length, updateNanos),
+				opsPerMicro(accessOrder.length, getNanos),
+				checksum));
+	}
+
+	private static double opsPerMicro(int ops, long nanos) {
+		return ops / (nanos / 1000.0);
+	}
+
+	private static long usedMemoryAfterGc() {
+		final Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+
+		// the used memory does not always settle after the first collection
+		for (int i = 0; i < 5; ++i) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+
+	private static RegisteredBackendStateMetaInfo<Integer, Long> createMetaInfo() {
+		return new RegisteredBackendStateMetaInfo<>(
+				StateDescriptor.Type.VALUE,
+				"benchmark",
+				IntSerializer.INSTANCE,
+				LongSerializer.INSTANCE);
+	}
+
+	// ------------------------------------------------------------------------
+
+	private interface StateTableFactory {
+		StateTable<Integer, Integer, Long> create(InternalKeyContext<Integer> keyContext);
+	}
+
+	private static final class NestedMapsFactory implements StateTableFactory {
+		@Override
+		public StateTable<Integer, Integer, Long> create(InternalKeyContext<Integer> keyContext) {
+			return new NestedMapsStateTable<>(keyContext, createMetaInfo());
+		}
+	}
+
+	private static final class CopyOnWriteFactory implements StateTableFactory {
+		@Override
+		public StateTable<Integer, Integer, Long> create(InternalKeyContext<Integer> keyContext) {
+			return new CopyOnWriteStateTable<>(keyContext, createMetaInfo());
+		}
+	}
+}
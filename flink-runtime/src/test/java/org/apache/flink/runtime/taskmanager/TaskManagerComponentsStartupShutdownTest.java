@@ -113,7 +113,7 @@ public class TaskManagerComponentsStartupShutdownTest {
 				false); // exit-jvm-on-fatal-error
 
 			final NetworkEnvironmentConfiguration netConf = new NetworkEnvironmentConfiguration(
-					32, BUFFER_SIZE, MemoryType.HEAP, IOManager.IOMode.SYNC, 0, 0, null);
+					32, BUFFER_SIZE, MemoryType.HEAP, IOManager.IOMode.SYNC, 0, 0, 2, 8, null);
 
 			ResourceID taskManagerId = ResourceID.generate();
 			
@@ -130,7 +130,9 @@ public class TaskManagerComponentsStartupShutdownTest {
 				null,
 				netConf.ioMode(),
 				netConf.partitionRequestInitialBackoff(),
-				netConf.partitionRequestMaxBackoff());
+				netConf.partitionRequestMaxBackoff(),
+				netConf.networkBuffersPerChannel(),
+				netConf.floatingNetworkBuffersPerGate());
 
 			network.start();
 
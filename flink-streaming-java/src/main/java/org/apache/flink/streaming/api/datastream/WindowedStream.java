@@ -50,6 +50,7 @@ import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
 import org.apache.flink.streaming.api.windowing.assigners.BaseAlignedWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingAlignedProcessingTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.SlidingProcessingTimeWindows;
 import org.apache.flink.streaming.api.windowing.assigners.TumblingAlignedProcessingTimeWindows;
@@ -57,6 +58,7 @@ import org.apache.flink.streaming.api.windowing.assigners.TumblingProcessingTime
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.ProcessingTimeTrigger;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
 import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
@@ -64,6 +66,7 @@ import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.AccumulatingProcessingTimeWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.AggregatingProcessingTimeWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.EvictingWindowOperator;
+import org.apache.flink.streaming.runtime.operators.windowing.PanedSlidingEventTimeWindowOperator;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalAggregateProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableProcessWindowFunction;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalIterableWindowFunction;
@@ -346,6 +349,19 @@ public class WindowedStream<T, K, W extends Window> {
 					evictor,
 					allowedLateness);
 
+		} else if (isPanedSlidingWindow()) {
+			SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+
+			opName = "PanedWindow(" + windowAssigner + ", " + trigger + ", " + udfName + ")";
+
+			operator = new PanedSlidingEventTimeWindowOperator<>(slidingWindows.getSize(),
+				slidingWindows.getSlide(),
+				slidingWindows.getOffset(),
+				new PanedSlidingEventTimeWindowOperator.ReducePaneFunction<>(reduceFunction),
+				input.getType().createSerializer(getExecutionEnvironment().getConfig()),
+				toTimeWindowFunction(new InternalSingleValueWindowFunction<>(function)),
+				allowedLateness);
+
 		} else {
 			ReducingStateDescriptor<T> stateDesc = new ReducingStateDescriptor<>("window-contents",
 				reduceFunction,
@@ -439,6 +455,19 @@ public class WindowedStream<T, K, W extends Window> {
 							evictor,
 							allowedLateness);
 
+		} else if (isPanedSlidingWindow()) {
+			SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+
+			opName = "PanedWindow(" + windowAssigner + ", " + trigger + ", " + udfName + ")";
+
+			operator = new PanedSlidingEventTimeWindowOperator<>(slidingWindows.getSize(),
+					slidingWindows.getSlide(),
+					slidingWindows.getOffset(),
+					new PanedSlidingEventTimeWindowOperator.ReducePaneFunction<>(reduceFunction),
+					input.getType().createSerializer(getExecutionEnvironment().getConfig()),
+					toTimeWindowFunction(new InternalSingleValueProcessWindowFunction<>(function)),
+					allowedLateness);
+
 		} else {
 			ReducingStateDescriptor<T> stateDesc = new ReducingStateDescriptor<>("window-contents",
 					reduceFunction,
@@ -892,6 +921,19 @@ public class WindowedStream<T, K, W extends Window> {
 					evictor,
 					allowedLateness);
 
+		} else if (isPanedSlidingWindow()) {
+			SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+
+			opName = "PanedWindow(" + windowAssigner + ", " + trigger + ", " + udfName + ")";
+
+			operator = new PanedSlidingEventTimeWindowOperator<>(slidingWindows.getSize(),
+					slidingWindows.getSlide(),
+					slidingWindows.getOffset(),
+					new PanedSlidingEventTimeWindowOperator.AggregatePaneFunction<>(aggregateFunction),
+					accumulatorType.createSerializer(getExecutionEnvironment().getConfig()),
+					toTimeWindowFunction(new InternalSingleValueWindowFunction<>(windowFunction)),
+					allowedLateness);
+
 		} else {
 			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
 					aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
@@ -1019,6 +1061,19 @@ public class WindowedStream<T, K, W extends Window> {
 					evictor,
 					allowedLateness);
 
+		} else if (isPanedSlidingWindow()) {
+			SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+
+			opName = "PanedWindow(" + windowAssigner + ", " + trigger + ", " + udfName + ")";
+
+			operator = new PanedSlidingEventTimeWindowOperator<>(slidingWindows.getSize(),
+					slidingWindows.getSlide(),
+					slidingWindows.getOffset(),
+					new PanedSlidingEventTimeWindowOperator.AggregatePaneFunction<>(aggregateFunction),
+					accumulatorType.createSerializer(getExecutionEnvironment().getConfig()),
+					toTimeWindowFunction(new InternalSingleValueProcessWindowFunction<>(windowFunction)),
+					allowedLateness);
+
 		} else {
 			AggregatingStateDescriptor<T, ACC, V> stateDesc = new AggregatingStateDescriptor<>("window-contents",
 					aggregateFunction, accumulatorType.createSerializer(getExecutionEnvironment().getConfig()));
@@ -1577,6 +1632,30 @@ public class WindowedStream<T, K, W extends Window> {
 	//  Utilities
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Checks whether the windows are computed by a {@link PanedSlidingEventTimeWindowOperator}.
+	 * This is the case for {@link SlidingEventTimeWindows} that overlap, with the default trigger
+	 * and no evictor, if pane-based sliding windows are enabled in the {@code ExecutionConfig}.
+	 */
+	private boolean isPanedSlidingWindow() {
+		if (windowAssigner.getClass() != SlidingEventTimeWindows.class ||
+				!(trigger instanceof EventTimeTrigger) ||
+				evictor != null ||
+				!getExecutionEnvironment().getConfig().isPanedSlidingWindowsEnabled()) {
+			return false;
+		}
+
+		SlidingEventTimeWindows slidingWindows = (SlidingEventTimeWindows) windowAssigner;
+		return slidingWindows.getSize() > slidingWindows.getSlide();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <IN, OUT, KEY> InternalWindowFunction<IN, OUT, KEY, TimeWindow> toTimeWindowFunction(
+			InternalWindowFunction<IN, OUT, KEY, ?> function) {
+		// the window type of sliding event-time windows is the TimeWindow
+		return (InternalWindowFunction<IN, OUT, KEY, TimeWindow>) function;
+	}
+
 	private LegacyWindowOperatorType getLegacyWindowType(Function function) {
 		if (windowAssigner instanceof SlidingProcessingTimeWindows && trigger instanceof ProcessingTimeTrigger && evictor == null) {
 			if (function instanceof ReduceFunction) {
@@ -70,6 +70,9 @@ public class CheckpointConfig implements java.io.Serializable {
 	/** Cleanup behaviour for persistent checkpoints. */
 	private ExternalizedCheckpointCleanup externalizedCheckpointCleanup;
 
+	/** Flag to persist in-flight data instead of aligning the checkpoint barriers */
+	private boolean unalignedCheckpointsEnabled;
+
 	// ------------------------------------------------------------------------
 
 	/**
@@ -230,6 +233,34 @@ public class CheckpointConfig implements java.io.Serializable {
 		this.forceCheckpointing = forceCheckpointing;
 	}
 
+	/**
+	 * Enables unaligned checkpoints.
+	 *
+	 * <p>With unaligned checkpoints, the checkpoint barriers overtake the buffered data in the
+	 * input and output queues of the tasks, and tasks do not block their input channels while
+	 * waiting for the barriers of the other channels. Instead, the data that the barriers
+	 * overtook is persisted as part of the checkpoint and replayed upon recovery. This keeps
+	 * the checkpoint duration independent of back pressure, at the cost of larger checkpoints.
+	 *
+	 * <p>Unaligned checkpoints only take effect in {@link CheckpointingMode#EXACTLY_ONCE} mode.
+	 * Savepoints are always aligned. A job cannot be rescaled when restoring from an unaligned
+	 * checkpoint that contains in-flight data.
+	 */
+	@PublicEvolving
+	public void enableUnalignedCheckpoints() {
+		this.unalignedCheckpointsEnabled = true;
+	}
+
+	/**
+	 * Returns whether unaligned checkpoints are enabled.
+	 *
+	 * @return <code>true</code> if the barriers may overtake in-flight data.
+	 */
+	@PublicEvolving
+	public boolean isUnalignedCheckpointsEnabled() {
+		return unalignedCheckpointsEnabled;
+	}
+
 	/**
 	 * Enables checkpoints to be persisted externally.
 	 *
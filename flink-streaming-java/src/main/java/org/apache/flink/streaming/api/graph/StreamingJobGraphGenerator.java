@@ -359,6 +359,8 @@ public class StreamingJobGraphGenerator {
 		config.setCheckpointingEnabled(ceckpointCfg.isCheckpointingEnabled());
 		if (ceckpointCfg.isCheckpointingEnabled()) {
 			config.setCheckpointMode(ceckpointCfg.getCheckpointingMode());
+			config.setUnalignedCheckpointsEnabled(ceckpointCfg.isUnalignedCheckpointsEnabled()
+					&& ceckpointCfg.getCheckpointingMode() == CheckpointingMode.EXACTLY_ONCE);
 		}
 		else {
 			// the "at-least-once" input handler is slightly cheaper (in the absence of checkpoints),
@@ -195,6 +195,7 @@ public abstract class AbstractStreamOperator<OUT>
 	}
 
 	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
 	public final void initializeState(OperatorStateHandles stateHandles) throws Exception {
 
 		Collection<KeyGroupsStateHandle> keyedStateHandlesRaw = null;
@@ -206,11 +207,16 @@ public abstract class AbstractStreamOperator<OUT>
 		initKeyedState(); //TODO we should move the actual initialization of this from StreamTask to this class
 
 		if (getKeyedStateBackend() != null && timeServiceManager == null) {
-			timeServiceManager = new InternalTimeServiceManager<>(
+			// backends that can store timers themselves provide the timer queues
+			InternalTimerQueueFactory<?> timerQueueFactory = keyedStateBackend instanceof InternalTimerQueueFactory ?
+				(InternalTimerQueueFactory<?>) keyedStateBackend : null;
+
+			timeServiceManager = new InternalTimeServiceManager(
 				getKeyedStateBackend().getNumberOfKeyGroups(),
 				getKeyedStateBackend().getKeyGroupRange(),
 				this,
-				getRuntimeContext().getProcessingTimeService());
+				getRuntimeContext().getProcessingTimeService(),
+				timerQueueFactory);
 		}
 
 		if (restoring) {
@@ -476,7 +482,11 @@ public abstract class AbstractStreamOperator<OUT>
 	}
 
 	@Override
-	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {}
+	public void notifyOfCompletedCheckpoint(long checkpointId) throws Exception {
+		if (keyedStateBackend != null) {
+			keyedStateBackend.notifyCheckpointComplete(checkpointId);
+		}
+	}
 
 	/**
 	 * Returns a checkpoint stream factory for the provided options.
@@ -21,7 +21,6 @@ import org.apache.flink.annotation.VisibleForTesting;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.core.memory.DataInputViewStreamWrapper;
 import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
-import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
 import org.apache.flink.runtime.state.KeyGroupsList;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
@@ -29,8 +28,6 @@ import org.apache.flink.util.InstantiationUtil;
 import org.apache.flink.util.Preconditions;
 
 import java.io.IOException;
-import java.util.HashSet;
-import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
@@ -39,6 +36,11 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
 
 /**
  * {@link InternalTimerService} that stores timers on the Java heap.
+ *
+ * <p>The timers are kept in {@link InternalTimerHeap}s, which support removing arbitrary timers in
+ * O(log n) and keep track of the timers of each key-group for snapshots. If the service is given an
+ * {@link InternalTimerQueueFactory}, e.g. by a keyed state backend that stores timers on disk, the
+ * timers are kept in the queues of that factory instead.
  */
 public class HeapInternalTimerService<K, N> implements InternalTimerService<N>, ProcessingTimeCallback {
 
@@ -47,16 +49,30 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 	private final KeyContext keyContext;
 
 	/**
-	 * Processing time timers that are currently in-flight.
+	 * The initial capacity of the timer heaps.
+	 */
+	private static final int INITIAL_TIMER_QUEUE_CAPACITY = 128;
+
+	/**
+	 * The name of the service, under which the timer queues of the factory are created.
 	 */
-	private final Set<InternalTimer<K, N>>[] processingTimeTimersByKeyGroup;
-	private final PriorityQueue<InternalTimer<K, N>> processingTimeTimersQueue;
+	private final String name;
+
+	/**
+	 * The factory for the timer queues, or null if the timers are kept in heap queues.
+	 */
+	private final InternalTimerQueueFactory<K> timerQueueFactory;
+
+	/**
+	 * Processing time timers that are currently in-flight. Queues of a factory are created as
+	 * soon as the namespace serializer is known.
+	 */
+	private InternalTimerQueue<K, N> processingTimeTimersQueue;
 
 	/**
 	 * Event time timers that are currently in-flight.
 	 */
-	private final Set<InternalTimer<K, N>>[] eventTimeTimersByKeyGroup;
-	private final PriorityQueue<InternalTimer<K, N>> eventTimeTimersQueue;
+	private InternalTimerQueue<K, N> eventTimeTimersQueue;
 
 	/**
 	 * Information concerning the local key-group range
@@ -99,6 +115,27 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 		KeyContext keyContext,
 		ProcessingTimeService processingTimeService) {
 
+		this(null, null, totalKeyGroups, localKeyGroupRange, keyContext, processingTimeService);
+	}
+
+	/**
+	 * Creates a timer service whose timers are kept in the queues of the given factory.
+	 *
+	 * @param name The name of the timer service, unique for the operator.
+	 * @param timerQueueFactory The factory for the timer queues, or null to keep the timers on the heap.
+	 */
+	public HeapInternalTimerService(
+		String name,
+		InternalTimerQueueFactory<K> timerQueueFactory,
+		int totalKeyGroups,
+		KeyGroupsList localKeyGroupRange,
+		KeyContext keyContext,
+		ProcessingTimeService processingTimeService) {
+
+		checkArgument(timerQueueFactory == null || name != null, "A timer service with a queue factory needs a name.");
+
+		this.name = name;
+		this.timerQueueFactory = timerQueueFactory;
 		this.keyContext = checkNotNull(keyContext);
 		this.processingTimeService = checkNotNull(processingTimeService);
 
@@ -112,14 +149,34 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 		}
 		this.localKeyGroupRangeStartIdx = startIdx;
 
-		// the list of ids of the key-groups this task is responsible for
-		int localKeyGroups = this.localKeyGroupRange.getNumberOfKeyGroups();
+		if (timerQueueFactory == null) {
+			this.eventTimeTimersQueue = createHeapTimerQueue();
+			this.processingTimeTimersQueue = createHeapTimerQueue();
+		}
+	}
 
-		this.eventTimeTimersQueue = new PriorityQueue<>(100);
-		this.eventTimeTimersByKeyGroup = new HashSet[localKeyGroups];
+	/**
+	 * Creates the timer queues of the factory, if they do not exist yet. Factories which do not
+	 * store timers fall back to heap queues.
+	 */
+	private void createTimerQueues(TypeSerializer<N> namespaceSerializer) {
+		if (eventTimeTimersQueue == null) {
+			eventTimeTimersQueue = timerQueueFactory.createTimerQueue(name + "/event", namespaceSerializer);
+			processingTimeTimersQueue = timerQueueFactory.createTimerQueue(name + "/processing", namespaceSerializer);
+
+			if (eventTimeTimersQueue == null || processingTimeTimersQueue == null) {
+				eventTimeTimersQueue = createHeapTimerQueue();
+				processingTimeTimersQueue = createHeapTimerQueue();
+			}
+		}
+	}
 
-		this.processingTimeTimersQueue = new PriorityQueue<>(100);
-		this.processingTimeTimersByKeyGroup = new HashSet[localKeyGroups];
+	private InternalTimerQueue<K, N> createHeapTimerQueue() {
+		return new InternalTimerHeap<>(
+			INITIAL_TIMER_QUEUE_CAPACITY,
+			localKeyGroupRangeStartIdx,
+			localKeyGroupRange.getNumberOfKeyGroups(),
+			totalKeyGroups);
 	}
 
 	/**
@@ -162,9 +219,12 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 
 			this.timerSerializer = new InternalTimer.TimerSerializer<>(this.keySerializer, this.namespaceSerializer);
 
+			createTimerQueues(namespaceSerializer);
+
 			// re-register the restored timers (if any)
-			if (processingTimeTimersQueue.size() > 0) {
-				nextTimer = processingTimeService.registerTimer(processingTimeTimersQueue.peek().getTimestamp(), this);
+			InternalTimer<K, N> headTimer = processingTimeTimersQueue.peek();
+			if (headTimer != null) {
+				nextTimer = processingTimeService.registerTimer(headTimer.getTimestamp(), this);
 			}
 			this.isInitialized = true;
 		} else {
@@ -189,50 +249,38 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 	public void registerProcessingTimeTimer(N namespace, long time) {
 		InternalTimer<K, N> timer = new InternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
 
-		// make sure we only put one timer per key into the queue
-		Set<InternalTimer<K, N>> timerSet = getProcessingTimeTimerSetForTimer(timer);
-		if (timerSet.add(timer)) {
+		InternalTimer<K, N> oldHead = processingTimeTimersQueue.peek();
+		long nextTriggerTime = oldHead != null ? oldHead.getTimestamp() : Long.MAX_VALUE;
 
-			InternalTimer<K, N> oldHead = processingTimeTimersQueue.peek();
-			long nextTriggerTime = oldHead != null ? oldHead.getTimestamp() : Long.MAX_VALUE;
+		// the queue holds each timer only once, a timer that is already
+		// registered is not earlier than the head of the queue
+		processingTimeTimersQueue.add(timer);
 
-			processingTimeTimersQueue.add(timer);
-
-			// check if we need to re-schedule our timer to earlier
-			if (time < nextTriggerTime) {
-				if (nextTimer != null) {
-					nextTimer.cancel(false);
-				}
-				nextTimer = processingTimeService.registerTimer(time, this);
+		// check if we need to re-schedule our timer to earlier
+		if (time < nextTriggerTime) {
+			if (nextTimer != null) {
+				nextTimer.cancel(false);
 			}
+			nextTimer = processingTimeService.registerTimer(time, this);
 		}
 	}
 
 	@Override
 	public void registerEventTimeTimer(N namespace, long time) {
 		InternalTimer<K, N> timer = new InternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
-		Set<InternalTimer<K, N>> timerSet = getEventTimeTimerSetForTimer(timer);
-		if (timerSet.add(timer)) {
-			eventTimeTimersQueue.add(timer);
-		}
+		eventTimeTimersQueue.add(timer);
 	}
 
 	@Override
 	public void deleteProcessingTimeTimer(N namespace, long time) {
 		InternalTimer<K, N> timer = new InternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
-		Set<InternalTimer<K, N>> timerSet = getProcessingTimeTimerSetForTimer(timer);
-		if (timerSet.remove(timer)) {
-			processingTimeTimersQueue.remove(timer);
-		}
+		processingTimeTimersQueue.remove(timer);
 	}
 
 	@Override
 	public void deleteEventTimeTimer(N namespace, long time) {
 		InternalTimer<K, N> timer = new InternalTimer<>(time, (K) keyContext.getCurrentKey(), namespace);
-		Set<InternalTimer<K, N>> timerSet = getEventTimeTimerSetForTimer(timer);
-		if (timerSet.remove(timer)) {
-			eventTimeTimersQueue.remove(timer);
-		}
+		eventTimeTimersQueue.remove(timer);
 	}
 
 	@Override
@@ -245,10 +293,7 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 
 		while ((timer = processingTimeTimersQueue.peek()) != null && timer.getTimestamp() <= time) {
 
-			Set<InternalTimer<K, N>> timerSet = getProcessingTimeTimerSetForTimer(timer);
-
-			timerSet.remove(timer);
-			processingTimeTimersQueue.remove();
+			processingTimeTimersQueue.poll();
 
 			keyContext.setCurrentKey(timer.getKey());
 			triggerTarget.onProcessingTime(timer);
@@ -268,9 +313,7 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 
 		while ((timer = eventTimeTimersQueue.peek()) != null && timer.getTimestamp() <= time) {
 
-			Set<InternalTimer<K, N>> timerSet = getEventTimeTimerSetForTimer(timer);
-			timerSet.remove(timer);
-			eventTimeTimersQueue.remove();
+			eventTimeTimersQueue.poll();
 
 			keyContext.setCurrentKey(timer.getKey());
 			triggerTarget.onEventTime(timer);
@@ -287,26 +330,10 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 		InstantiationUtil.serializeObject(stream, namespaceSerializer);
 
 		// write the event time timers
-		Set<InternalTimer<K, N>> eventTimers = getEventTimeTimerSetForKeyGroup(keyGroupIdx);
-		if (eventTimers != null) {
-			stream.writeInt(eventTimers.size());
-			for (InternalTimer<K, N> timer : eventTimers) {
-				this.timerSerializer.serialize(timer, stream);
-			}
-		} else {
-			stream.writeInt(0);
-		}
+		eventTimeTimersQueue.writeTimersInKeyGroup(keyGroupIdx, timerSerializer, stream);
 
 		// write the processing time timers
-		Set<InternalTimer<K, N>> processingTimers = getProcessingTimeTimerSetForKeyGroup(keyGroupIdx);
-		if (processingTimers != null) {
-			stream.writeInt(processingTimers.size());
-			for (InternalTimer<K, N> timer : processingTimers) {
-				this.timerSerializer.serialize(timer, stream);
-			}
-		} else {
-			stream.writeInt(0);
-		}
+		processingTimeTimersQueue.writeTimersInKeyGroup(keyGroupIdx, timerSerializer, stream);
 	}
 
 	/**
@@ -338,109 +365,36 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 		checkArgument(localKeyGroupRange.contains(keyGroupIdx),
 			"Key Group " + keyGroupIdx + " does not belong to the local range.");
 
+		createTimerQueues(this.namespaceDeserializer);
+
 		// read the event time timers
 		int sizeOfEventTimeTimers = stream.readInt();
-		if (sizeOfEventTimeTimers > 0) {
-			Set<InternalTimer<K, N>> eventTimers = getEventTimeTimerSetForKeyGroup(keyGroupIdx);
-			for (int i = 0; i < sizeOfEventTimeTimers; i++) {
-				InternalTimer<K, N> timer = timerSerializer.deserialize(stream);
-				eventTimers.add(timer);
-				eventTimeTimersQueue.add(timer);
-			}
+		for (int i = 0; i < sizeOfEventTimeTimers; i++) {
+			InternalTimer<K, N> timer = timerSerializer.deserialize(stream);
+			eventTimeTimersQueue.add(timer);
 		}
 
 		// read the processing time timers
 		int sizeOfProcessingTimeTimers = stream.readInt();
-		if (sizeOfProcessingTimeTimers > 0) {
-			Set<InternalTimer<K, N>> processingTimers = getProcessingTimeTimerSetForKeyGroup(keyGroupIdx);
-			for (int i = 0; i < sizeOfProcessingTimeTimers; i++) {
-				InternalTimer<K, N> timer = timerSerializer.deserialize(stream);
-				processingTimers.add(timer);
-				processingTimeTimersQueue.add(timer);
-			}
-		}
-	}
-
-	/**
-	 * Retrieve the set of event time timers for the key-group this timer belongs to.
-	 *
-	 * @param timer the timer whose key-group we are searching.
-	 * @return the set of registered timers for the key-group.
-	 */
-	private Set<InternalTimer<K, N>> getEventTimeTimerSetForTimer(InternalTimer<K, N> timer) {
-		checkArgument(localKeyGroupRange != null, "The operator has not been initialized.");
-		int keyGroupIdx = KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), this.totalKeyGroups);
-		return getEventTimeTimerSetForKeyGroup(keyGroupIdx);
-	}
-
-	/**
-	 * Retrieve the set of event time timers for the requested key-group.
-	 *
-	 * @param keyGroupIdx the index of the key group we are interested in.
-	 * @return the set of registered timers for the key-group.
-	 */
-	private Set<InternalTimer<K, N>> getEventTimeTimerSetForKeyGroup(int keyGroupIdx) {
-		int localIdx = getIndexForKeyGroup(keyGroupIdx);
-		Set<InternalTimer<K, N>> timers = eventTimeTimersByKeyGroup[localIdx];
-		if (timers == null) {
-			timers = new HashSet<>();
-			eventTimeTimersByKeyGroup[localIdx] = timers;
-		}
-		return timers;
-	}
-
-	/**
-	 * Retrieve the set of processing time timers for the key-group this timer belongs to.
-	 *
-	 * @param timer the timer whose key-group we are searching.
-	 * @return the set of registered timers for the key-group.
-	 */
-	private Set<InternalTimer<K, N>> getProcessingTimeTimerSetForTimer(InternalTimer<K, N> timer) {
-		checkArgument(localKeyGroupRange != null, "The operator has not been initialized.");
-		int keyGroupIdx = KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), this.totalKeyGroups);
-		return getProcessingTimeTimerSetForKeyGroup(keyGroupIdx);
-	}
-
-	/**
-	 * Retrieve the set of processing time timers for the requested key-group.
-	 *
-	 * @param keyGroupIdx the index of the key group we are interested in.
-	 * @return the set of registered timers for the key-group.
-	 */
-	private Set<InternalTimer<K, N>> getProcessingTimeTimerSetForKeyGroup(int keyGroupIdx) {
-		int localIdx = getIndexForKeyGroup(keyGroupIdx);
-		Set<InternalTimer<K, N>> timers = processingTimeTimersByKeyGroup[localIdx];
-		if (timers == null) {
-			timers = new HashSet<>();
-			processingTimeTimersByKeyGroup[localIdx] = timers;
+		for (int i = 0; i < sizeOfProcessingTimeTimers; i++) {
+			InternalTimer<K, N> timer = timerSerializer.deserialize(stream);
+			processingTimeTimersQueue.add(timer);
 		}
-		return timers;
-	}
-
-	/**
-	 * Computes the index of the requested key-group in the local datastructures.
-	 * <li/>
-	 * Currently we assume that each task is assigned a continuous range of key-groups,
-	 * e.g. 1,2,3,4, and not 1,3,5. We leverage this to keep the different states by
-	 * key-grouped in arrays instead of maps, where the offset for each key-group is
-	 * the key-group id (an int) minus the id of the first key-group in the local range.
-	 * This is for performance reasons.
-	 */
-	private int getIndexForKeyGroup(int keyGroupIdx) {
-		checkArgument(localKeyGroupRange.contains(keyGroupIdx),
-			"Key Group " + keyGroupIdx + " does not belong to the local range.");
-		return keyGroupIdx - this.localKeyGroupRangeStartIdx;
 	}
 
 	public int numProcessingTimeTimers() {
-		return this.processingTimeTimersQueue.size();
+		return processingTimeTimersQueue == null ? 0 : processingTimeTimersQueue.size();
 	}
 
 	public int numEventTimeTimers() {
-		return this.eventTimeTimersQueue.size();
+		return eventTimeTimersQueue == null ? 0 : eventTimeTimersQueue.size();
 	}
 
 	public int numProcessingTimeTimers(N namespace) {
+		if (processingTimeTimersQueue == null) {
+			return 0;
+		}
+
 		int count = 0;
 		for (InternalTimer<K, N> timer : processingTimeTimersQueue) {
 			if (timer.getNamespace().equals(namespace)) {
@@ -451,6 +405,10 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 	}
 
 	public int numEventTimeTimers(N namespace) {
+		if (eventTimeTimersQueue == null) {
+			return 0;
+		}
+
 		int count = 0;
 		for (InternalTimer<K, N> timer : eventTimeTimersQueue) {
 			if (timer.getNamespace().equals(namespace)) {
@@ -467,11 +425,24 @@ public class HeapInternalTimerService<K, N> implements InternalTimerService<N>,
 
 	@VisibleForTesting
 	public Set<InternalTimer<K, N>>[] getEventTimeTimersPerKeyGroup() {
-		return this.eventTimeTimersByKeyGroup;
+		return getTimersPerKeyGroup(eventTimeTimersQueue);
 	}
 
 	@VisibleForTesting
 	public Set<InternalTimer<K, N>>[] getProcessingTimeTimersPerKeyGroup() {
-		return this.processingTimeTimersByKeyGroup;
+		return getTimersPerKeyGroup(processingTimeTimersQueue);
+	}
+
+	/**
+	 * Returns copies of the timers of each local key-group, indexed by the offset of the key-group
+	 * in the local key-group range. Key-groups that never had a timer are null.
+	 */
+	@SuppressWarnings("unchecked")
+	private Set<InternalTimer<K, N>>[] getTimersPerKeyGroup(InternalTimerQueue<K, N> timers) {
+		Set<InternalTimer<K, N>>[] timersPerKeyGroup = new Set[localKeyGroupRange.getNumberOfKeyGroups()];
+		for (int i = 0; i < timersPerKeyGroup.length; i++) {
+			timersPerKeyGroup[i] = timers.getTimersForKeyGroup(localKeyGroupRangeStartIdx + i);
+		}
+		return timersPerKeyGroup;
 	}
 }
@@ -52,6 +52,9 @@ class InternalTimeServiceManager<K, N> {
 
 	private final ProcessingTimeService processingTimeService;
 
+	/** The factory for the timer queues, or null if the timers are kept on the heap. */
+	private final InternalTimerQueueFactory<K> timerQueueFactory;
+
 	private final Map<String, HeapInternalTimerService<K, N>> timerServices;
 	private final InternalWatermarkCallbackService<K> watermarkCallbackService;
 
@@ -61,12 +64,23 @@ class InternalTimeServiceManager<K, N> {
 			KeyContext keyContext,
 			ProcessingTimeService processingTimeService) {
 
+		this(totalKeyGroups, localKeyGroupRange, keyContext, processingTimeService, null);
+	}
+
+	InternalTimeServiceManager(
+			int totalKeyGroups,
+			KeyGroupsList localKeyGroupRange,
+			KeyContext keyContext,
+			ProcessingTimeService processingTimeService,
+			InternalTimerQueueFactory<K> timerQueueFactory) {
+
 		Preconditions.checkArgument(totalKeyGroups > 0);
 		this.totalKeyGroups = totalKeyGroups;
 		this.localKeyGroupRange = Preconditions.checkNotNull(localKeyGroupRange);
 
 		this.keyContext = Preconditions.checkNotNull(keyContext);
 		this.processingTimeService = Preconditions.checkNotNull(processingTimeService);
+		this.timerQueueFactory = timerQueueFactory;
 
 		this.timerServices = new HashMap<>();
 		this.watermarkCallbackService = new InternalWatermarkCallbackService<>(totalKeyGroups, localKeyGroupRange, keyContext);
@@ -106,7 +120,7 @@ class InternalTimeServiceManager<K, N> {
 
 		HeapInternalTimerService<K, N> timerService = timerServices.get(name);
 		if (timerService == null) {
-			timerService = new HeapInternalTimerService<>(totalKeyGroups,
+			timerService = new HeapInternalTimerService<>(name, timerQueueFactory, totalKeyGroups,
 				localKeyGroupRange, keyContext, processingTimeService);
 			timerServices.put(name, timerService);
 		}
@@ -154,6 +168,8 @@ class InternalTimeServiceManager<K, N> {
 			HeapInternalTimerService<K, N> timerService = timerServices.get(serviceName);
 			if (timerService == null) {
 				timerService = new HeapInternalTimerService<>(
+					serviceName,
+					timerQueueFactory,
 					totalKeyGroups,
 					localKeyGroupRange,
 					keyContext,
@@ -33,10 +33,20 @@ import java.io.IOException;
  */
 @Internal
 public class InternalTimer<K, N> implements Comparable<InternalTimer<K, N>> {
+
+	/** The heap index of a timer that is not contained in an {@link InternalTimerHeap}. */
+	static final int NOT_CONTAINED = -1;
+
 	private final long timestamp;
 	private final K key;
 	private final N namespace;
 
+	/**
+	 * The position of this timer in the {@link InternalTimerHeap} that contains it. This is not part of
+	 * the timer's identity and is neither compared nor serialized.
+	 */
+	private int timerHeapIndex = NOT_CONTAINED;
+
 	public InternalTimer(long timestamp, K key, N namespace) {
 		this.timestamp = timestamp;
 		this.key = key;
@@ -55,6 +65,14 @@ public class InternalTimer<K, N> implements Comparable<InternalTimer<K, N>> {
 		return namespace;
 	}
 
+	int getTimerHeapIndex() {
+		return timerHeapIndex;
+	}
+
+	void setTimerHeapIndex(int timerHeapIndex) {
+		this.timerHeapIndex = timerHeapIndex;
+	}
+
 	@Override
 	public int compareTo(InternalTimer<K, N> o) {
 		return Long.compare(this.timestamp, o.timestamp);
@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+import org.apache.flink.util.MathUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+
+/**
+ * A priority queue of {@link InternalTimer}s, ordered by timestamp, which holds each timer at most once.
+ *
+ * <p>The timers are kept in an array-based binary heap. Every timer knows its position in the heap, so that
+ * arbitrary timers can be removed in O(log n) instead of the O(n) search of a {@link java.util.PriorityQueue}.
+ *
+ * <p>Duplicate timers are detected through one open-addressing hash index per local key-group, which holds
+ * references to the timers in the heap. Besides deduplication, the indexes are used to find the heap position
+ * of a removed timer and to write the timers of a key-group into a snapshot without scanning the whole heap.
+ * Unlike a {@link java.util.HashSet}, the indexes do not allocate an entry object per timer.
+ *
+ * <p>This class is not thread-safe.
+ *
+ * @param <K> Type of the keys to which timers are scoped.
+ * @param <N> Type of the namespace to which timers are scoped.
+ */
+final class InternalTimerHeap<K, N> implements InternalTimerQueue<K, N> {
+
+	/**
+	 * The capacity of a key-group index when the first timer of the key-group is added. Must be a power of two.
+	 */
+	private static final int MINIMUM_INDEX_CAPACITY = 4;
+
+	/**
+	 * The binary heap of timers. The children of the timer at position i are at positions 2i + 1 and 2i + 2.
+	 */
+	private InternalTimer<K, N>[] queue;
+
+	/**
+	 * The number of timers in the heap.
+	 */
+	private int size;
+
+	/**
+	 * The hash indexes of the timers, one per local key-group. An index is created with the first timer of its
+	 * key-group. Empty slots are null, collisions are resolved by linear probing.
+	 */
+	private final InternalTimer<K, N>[][] indexesByKeyGroup;
+
+	/**
+	 * The number of timers in each key-group.
+	 */
+	private final int[] sizesByKeyGroup;
+
+	/**
+	 * The first key-group of the local key-group range.
+	 */
+	private final int localKeyGroupRangeStartIdx;
+
+	/**
+	 * The total number of key-groups of the job, needed to assign timers to key-groups.
+	 */
+	private final int totalKeyGroups;
+
+	@SuppressWarnings("unchecked")
+	InternalTimerHeap(int initialCapacity, int localKeyGroupRangeStartIdx, int numLocalKeyGroups, int totalKeyGroups) {
+		checkArgument(initialCapacity > 0, "The initial capacity must be positive.");
+		checkArgument(numLocalKeyGroups >= 0, "The number of local key-groups must not be negative.");
+
+		this.queue = new InternalTimer[initialCapacity];
+		this.indexesByKeyGroup = new InternalTimer[numLocalKeyGroups][];
+		this.sizesByKeyGroup = new int[numLocalKeyGroups];
+		this.localKeyGroupRangeStartIdx = localKeyGroupRangeStartIdx;
+		this.totalKeyGroups = totalKeyGroups;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Queue operations
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void add(InternalTimer<K, N> timer) {
+		if (addToIndex(getLocalIndexForTimer(timer), timer)) {
+			if (size == queue.length) {
+				queue = Arrays.copyOf(queue, size * 2);
+			}
+
+			siftUp(size++, timer);
+		}
+	}
+
+	@Override
+	public void remove(InternalTimer<K, N> timer) {
+		InternalTimer<K, N> removed = removeFromIndex(getLocalIndexForTimer(timer), timer);
+		if (removed != null) {
+			removeFromHeap(removed.getTimerHeapIndex());
+		}
+	}
+
+	@Override
+	public InternalTimer<K, N> peek() {
+		return queue[0];
+	}
+
+	@Override
+	public InternalTimer<K, N> poll() {
+		InternalTimer<K, N> head = queue[0];
+		if (head != null) {
+			removeFromIndex(getLocalIndexForTimer(head), head);
+			removeFromHeap(0);
+		}
+		return head;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns an iterator over all timers, in no particular order. The iterator does not support removal.
+	 */
+	@Override
+	public Iterator<InternalTimer<K, N>> iterator() {
+		return new Iterator<InternalTimer<K, N>>() {
+
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				return next < size;
+			}
+
+			@Override
+			public InternalTimer<K, N> next() {
+				if (next >= size) {
+					throw new NoSuchElementException();
+				}
+				return queue[next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("The timers cannot be removed through the iterator.");
+			}
+		};
+	}
+
+	// ------------------------------------------------------------------------
+	//  Key-group access
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Returns the number of timers in the given key-group.
+	 */
+	int numberOfTimersInKeyGroup(int keyGroupIdx) {
+		return sizesByKeyGroup[getLocalIndexForKeyGroup(keyGroupIdx)];
+	}
+
+	@Override
+	public void writeTimersInKeyGroup(
+			int keyGroupIdx,
+			TypeSerializer<InternalTimer<K, N>> timerSerializer,
+			DataOutputView out) throws IOException {
+
+		final int localIdx = getLocalIndexForKeyGroup(keyGroupIdx);
+		final InternalTimer<K, N>[] index = indexesByKeyGroup[localIdx];
+
+		out.writeInt(sizesByKeyGroup[localIdx]);
+
+		if (index != null) {
+			for (InternalTimer<K, N> timer : index) {
+				if (timer != null) {
+					timerSerializer.serialize(timer, out);
+				}
+			}
+		}
+	}
+
+	@Override
+	public Set<InternalTimer<K, N>> getTimersForKeyGroup(int keyGroupIdx) {
+		final InternalTimer<K, N>[] index = indexesByKeyGroup[getLocalIndexForKeyGroup(keyGroupIdx)];
+		if (index == null) {
+			return null;
+		}
+
+		Set<InternalTimer<K, N>> timers = new HashSet<>();
+		for (InternalTimer<K, N> timer : index) {
+			if (timer != null) {
+				timers.add(timer);
+			}
+		}
+		return timers;
+	}
+
+	// ------------------------------------------------------------------------
+	//  Binary heap
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Removes the timer at the given position of the heap. The last timer of the heap takes its place and is moved
+	 * up or down to restore the heap order.
+	 */
+	private void removeFromHeap(int heapIdx) {
+		final InternalTimer<K, N> removed = queue[heapIdx];
+		final int lastIdx = --size;
+		final InternalTimer<K, N> last = queue[lastIdx];
+
+		queue[lastIdx] = null;
+		removed.setTimerHeapIndex(InternalTimer.NOT_CONTAINED);
+
+		if (heapIdx != lastIdx) {
+			siftDown(heapIdx, last);
+			if (queue[heapIdx] == last) {
+				siftUp(heapIdx, last);
+			}
+		}
+	}
+
+	/**
+	 * Moves the given timer from the given position towards the root, until its parent is not later than it.
+	 */
+	private void siftUp(int heapIdx, InternalTimer<K, N> timer) {
+		final long timestamp = timer.getTimestamp();
+
+		while (heapIdx > 0) {
+			final int parentIdx = (heapIdx - 1) >>> 1;
+			final InternalTimer<K, N> parent = queue[parentIdx];
+
+			if (parent.getTimestamp() <= timestamp) {
+				break;
+			}
+
+			moveToPosition(parent, heapIdx);
+			heapIdx = parentIdx;
+		}
+
+		moveToPosition(timer, heapIdx);
+	}
+
+	/**
+	 * Moves the given timer from the given position towards the leaves, until none of its children is earlier
+	 * than it.
+	 */
+	private void siftDown(int heapIdx, InternalTimer<K, N> timer) {
+		final long timestamp = timer.getTimestamp();
+		final int firstLeafIdx = size >>> 1;
+
+		while (heapIdx < firstLeafIdx) {
+			int childIdx = 2 * heapIdx + 1;
+			InternalTimer<K, N> child = queue[childIdx];
+
+			final int rightIdx = childIdx + 1;
+			if (rightIdx < size && queue[rightIdx].getTimestamp() < child.getTimestamp()) {
+				childIdx = rightIdx;
+				child = queue[rightIdx];
+			}
+
+			if (timestamp <= child.getTimestamp()) {
+				break;
+			}
+
+			moveToPosition(child, heapIdx);
+			heapIdx = childIdx;
+		}
+
+		moveToPosition(timer, heapIdx);
+	}
+
+	private void moveToPosition(InternalTimer<K, N> timer, int heapIdx) {
+		queue[heapIdx] = timer;
+		timer.setTimerHeapIndex(heapIdx);
+	}
+
+	// ------------------------------------------------------------------------
+	//  Key-group indexes
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds the timer to the index of its key-group, unless an equal timer is already contained.
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean addToIndex(int localIdx, InternalTimer<K, N> timer) {
+		InternalTimer<K, N>[] index = indexesByKeyGroup[localIdx];
+		if (index == null) {
+			index = new InternalTimer[MINIMUM_INDEX_CAPACITY];
+			indexesByKeyGroup[localIdx] = index;
+		}
+
+		final int mask = index.length - 1;
+		int slot = homeSlot(timer, mask);
+
+		InternalTimer<K, N> current;
+		while ((current = index[slot]) != null) {
+			if (current.equals(timer)) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		index[slot] = timer;
+
+		// keep the load factor below 3/4
+		if (++sizesByKeyGroup[localIdx] * 4 > index.length * 3) {
+			indexesByKeyGroup[localIdx] = doubleCapacity(index);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Removes the timer that is equal to the given timer from the index of its key-group. Following timers of the
+	 * same cluster are shifted back into the free slot if their probe sequence passes it, so that no tombstones
+	 * are required.
+	 *
+	 * @return The removed timer, or null if no equal timer is contained.
+	 */
+	private InternalTimer<K, N> removeFromIndex(int localIdx, InternalTimer<K, N> timer) {
+		final InternalTimer<K, N>[] index = indexesByKeyGroup[localIdx];
+		if (index == null) {
+			return null;
+		}
+
+		final int mask = index.length - 1;
+		int free = homeSlot(timer, mask);
+
+		InternalTimer<K, N> removed;
+		while ((removed = index[free]) != null && !removed.equals(timer)) {
+			free = (free + 1) & mask;
+		}
+
+		if (removed == null) {
+			return null;
+		}
+
+		int current = (free + 1) & mask;
+		InternalTimer<K, N> moved;
+
+		while ((moved = index[current]) != null) {
+			final int home = homeSlot(moved, mask);
+
+			// the timer can be moved if the free slot lies between its home slot and its current slot
+			if (((current - home) & mask) >= ((current - free) & mask)) {
+				index[free] = moved;
+				free = current;
+			}
+
+			current = (current + 1) & mask;
+		}
+
+		index[free] = null;
+		--sizesByKeyGroup[localIdx];
+
+		return removed;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, N> InternalTimer<K, N>[] doubleCapacity(InternalTimer<K, N>[] index) {
+		final InternalTimer<K, N>[] newIndex = new InternalTimer[index.length * 2];
+		final int mask = newIndex.length - 1;
+
+		for (InternalTimer<K, N> timer : index) {
+			if (timer != null) {
+				int slot = homeSlot(timer, mask);
+				while (newIndex[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				newIndex[slot] = timer;
+			}
+		}
+
+		return newIndex;
+	}
+
+	private static int homeSlot(InternalTimer<?, ?> timer, int mask) {
+		return MathUtils.murmurHash(timer.hashCode()) & mask;
+	}
+
+	private int getLocalIndexForTimer(InternalTimer<K, N> timer) {
+		return getLocalIndexForKeyGroup(KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), totalKeyGroups));
+	}
+
+	/**
+	 * Computes the index of the requested key-group in the local datastructures. Each task is assigned a
+	 * continuous range of key-groups, so the index is the key-group id minus the first key-group of the range.
+	 */
+	private int getLocalIndexForKeyGroup(int keyGroupIdx) {
+		final int localIdx = keyGroupIdx - localKeyGroupRangeStartIdx;
+		if (localIdx < 0 || localIdx >= sizesByKeyGroup.length) {
+			throw new IllegalArgumentException("Key Group " + keyGroupIdx + " does not belong to the local range.");
+		}
+		return localIdx;
+	}
+}
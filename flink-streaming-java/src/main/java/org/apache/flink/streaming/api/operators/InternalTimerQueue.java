@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.core.memory.DataOutputView;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A queue of {@link InternalTimer}s, ordered by timestamp, which holds each timer at most once.
+ * The {@link HeapInternalTimerService} keeps its event time and processing time timers in such queues.
+ *
+ * <p>The timers are partitioned by the key-group of their key, so that the timers of each key-group
+ * can be written to and restored from checkpoints separately.
+ *
+ * @param <K> Type of the keys to which timers are scoped.
+ * @param <N> Type of the namespace to which timers are scoped.
+ */
+@Internal
+public interface InternalTimerQueue<K, N> extends Iterable<InternalTimer<K, N>> {
+
+	/**
+	 * Adds the given timer, unless an equal timer is already contained.
+	 */
+	void add(InternalTimer<K, N> timer);
+
+	/**
+	 * Removes the timer that is equal to the given timer, if there is one.
+	 */
+	void remove(InternalTimer<K, N> timer);
+
+	/**
+	 * Returns the timer with the smallest timestamp without removing it, or null if the queue is empty.
+	 */
+	InternalTimer<K, N> peek();
+
+	/**
+	 * Removes and returns the timer with the smallest timestamp, or null if the queue is empty.
+	 */
+	InternalTimer<K, N> poll();
+
+	/**
+	 * Returns the number of timers in the queue. Depending on the implementation, this may require
+	 * a scan over all timers.
+	 */
+	int size();
+
+	/**
+	 * Writes the timers of the given key-group into a checkpoint: the number of written timers,
+	 * followed by the timers. Queues whose timers are already part of the keyed state backend's
+	 * snapshot write no timers.
+	 *
+	 * @param keyGroupIdx the id of the key-group to write.
+	 * @param timerSerializer the serializer for the timers.
+	 * @param out the output to write to.
+	 */
+	void writeTimersInKeyGroup(
+			int keyGroupIdx,
+			TypeSerializer<InternalTimer<K, N>> timerSerializer,
+			DataOutputView out) throws IOException;
+
+	/**
+	 * Returns a copy of the timers of the given key-group. If the key-group has no timers, this is
+	 * either an empty set or null. This is only meant for tests.
+	 */
+	Set<InternalTimer<K, N>> getTimersForKeyGroup(int keyGroupIdx);
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+
+/**
+ * Creates the {@link InternalTimerQueue}s of the timer services of an operator. Keyed state backends
+ * which can store timers implement this interface, e.g. to keep the timers on disk together with the
+ * keyed state. Timers of backends which do not implement it are kept in {@link InternalTimerHeap}s.
+ *
+ * @param <K> Type of the keys to which timers are scoped.
+ */
+@Internal
+public interface InternalTimerQueueFactory<K> {
+
+	/**
+	 * Creates a queue which stores its timers under the given name. A queue created with the name of a
+	 * restored queue contains the restored timers.
+	 *
+	 * @param name The name of the queue, unique for the operator.
+	 * @param namespaceSerializer The serializer for the namespaces of the timers.
+	 * @param <N> Type of the namespace to which timers are scoped.
+	 * @return The queue, or null if this factory is not configured to store timers, in which case the
+	 *         timers are kept on the heap.
+	 */
+	<N> InternalTimerQueue<K, N> createTimerQueue(String name, TypeSerializer<N> namespaceSerializer);
+}
@@ -46,6 +46,7 @@ import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
 import org.apache.flink.streaming.runtime.tasks.StreamTask;
+import org.apache.flink.streaming.runtime.tasks.TaskMailbox;
 import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.Preconditions;
 
@@ -94,6 +95,9 @@ public class AsyncWaitOperator<IN, OUT>
 
 	protected transient Object checkpointingLock;
 
+	/** The mailbox of the containing task, or null if the task does not run in the mailbox execution model */
+	private transient TaskMailbox mailbox;
+
 	/** {@link TypeSerializer} for inputs while making snapshots. */
 	private transient StreamElementSerializer<IN> inStreamElementSerializer;
 
@@ -136,6 +140,7 @@ public class AsyncWaitOperator<IN, OUT>
 		super.setup(containingTask, config, output);
 
 		this.checkpointingLock = getContainingTask().getCheckpointLock();
+		this.mailbox = getContainingTask().getMailbox();
 
 		this.inStreamElementSerializer = new StreamElementSerializer<>(
 			getOperatorConfig().<IN>getTypeSerializerIn1(getUserCodeClassloader()));
@@ -189,7 +194,7 @@ public class AsyncWaitOperator<IN, OUT>
 		}
 
 		// create the emitter
-		this.emitter = new Emitter<>(checkpointingLock, output, queue, this);
+		this.emitter = new Emitter<>(checkpointingLock, mailbox, output, queue, this);
 
 		// start the emitter thread
 		this.emitterThread = new Thread(emitter, "AsyncIO-Emitter-Thread (" + getOperatorName() + ')');
@@ -281,7 +286,7 @@ public class AsyncWaitOperator<IN, OUT>
 			while (!queue.isEmpty()) {
 				// wait for the emitter thread to output the remaining elements
 				// for that he needs the checkpointing lock and thus we have to free it
-				checkpointingLock.wait();
+				waitForEmitter();
 			}
 		}
 		finally {
@@ -404,12 +409,25 @@ public class AsyncWaitOperator<IN, OUT>
 
 		while (!queue.tryPut(streamElementQueueEntry)) {
 			// we wait for the emitter to notify us if the queue has space left again
-			checkpointingLock.wait();
+			waitForEmitter();
 		}
 
 		pendingStreamElementQueueEntry = null;
 	}
 
+	/**
+	 * Waits for the {@link Emitter} to output elements. The emitter either notifies us on the
+	 * checkpointing lock after outputting an element, or it puts the outputting into the mailbox
+	 * of the containing task, in which case we execute it.
+	 */
+	private void waitForEmitter() throws InterruptedException {
+		if (mailbox != null) {
+			getContainingTask().yieldToMailbox();
+		} else {
+			checkpointingLock.wait();
+		}
+	}
+
 	@Override
 	public void failOperator(Throwable throwable) {
 		getContainingTask().getEnvironment().failExternally(throwable);
@@ -26,16 +26,23 @@ import org.apache.flink.streaming.api.operators.async.queue.StreamElementQueue;
 import org.apache.flink.streaming.api.operators.async.queue.AsyncResult;
 import org.apache.flink.streaming.api.operators.async.queue.AsyncWatermarkResult;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.TaskMailbox;
+import org.apache.flink.util.ExceptionUtils;
 import org.apache.flink.util.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Runnable responsible for consuming elements from the given queue and outputting them to the
  * given output/timestampedCollector.
  *
+ * <p>The results are output under the checkpoint lock. If the emitter is given the mailbox of a
+ * task that runs in the mailbox execution model, the task thread outputs the results instead.
+ *
  * @param <OUT> Type of the output elements
  */
 @Internal
@@ -46,6 +53,9 @@ public class Emitter<OUT> implements Runnable {
 	/** Lock to hold before outputting */
 	private final Object checkpointLock;
 
+	/** Mailbox into which the outputting of the results is put, or null to output them under the lock */
+	private final TaskMailbox mailbox;
+
 	/** Output for the watermark elements */
 	private final Output<StreamRecord<OUT>> output;
 
@@ -64,8 +74,18 @@ public class Emitter<OUT> implements Runnable {
 			final Output<StreamRecord<OUT>> output,
 			final StreamElementQueue streamElementQueue,
 			final OperatorActions operatorActions) {
+		this(checkpointLock, null, output, streamElementQueue, operatorActions);
+	}
+
+	public Emitter(
+			final Object checkpointLock,
+			final TaskMailbox mailbox,
+			final Output<StreamRecord<OUT>> output,
+			final StreamElementQueue streamElementQueue,
+			final OperatorActions operatorActions) {
 
 		this.checkpointLock = Preconditions.checkNotNull(checkpointLock, "checkpointLock");
+		this.mailbox = mailbox;
 		this.output = Preconditions.checkNotNull(output, "output");
 		this.streamElementQueue = Preconditions.checkNotNull(streamElementQueue, "asyncCollectorBuffer");
 		this.operatorActions = Preconditions.checkNotNull(operatorActions, "operatorActions");
@@ -97,22 +117,63 @@ public class Emitter<OUT> implements Runnable {
 		}
 	}
 
-	private void output(AsyncResult asyncResult) throws InterruptedException {
-		if (asyncResult.isWatermark()) {
-			synchronized (checkpointLock) {
-				AsyncWatermarkResult asyncWatermarkResult = asyncResult.asWatermark();
+	private void output(final AsyncResult asyncResult) throws InterruptedException {
+		if (mailbox != null) {
+			// the task thread outputs the result between the records it processes
+			final CountDownLatch outputCompleted = new CountDownLatch(1);
+			final AtomicReference<Throwable> outputFailure = new AtomicReference<>();
+
+			final boolean accepted = mailbox.put(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						outputResult(asyncResult);
+					} catch (InterruptedException e) {
+						// the task thread is interrupted because the task is canceled
+						Thread.currentThread().interrupt();
+						outputFailure.set(e);
+					} catch (Throwable t) {
+						// fails the task thread and, through the emitter, the operator
+						outputFailure.set(t);
+						ExceptionUtils.rethrow(t);
+					} finally {
+						// the emitter must not wait for an output that will never complete
+						outputCompleted.countDown();
+					}
+				}
+			});
 
-				LOG.debug("Output async watermark.");
-				output.emitWatermark(asyncWatermarkResult.getWatermark());
+			if (accepted) {
+				// the result stays at the head of the queue until it has been output
+				outputCompleted.await();
 
-				// remove the peeked element from the async collector buffer so that it is no longer
-				// checkpointed
-				streamElementQueue.poll();
+				final Throwable failure = outputFailure.get();
+				if (failure instanceof InterruptedException) {
+					throw (InterruptedException) failure;
+				} else if (failure != null) {
+					ExceptionUtils.rethrow(failure);
+				}
+			} else {
+				// the task does not process any further actions
+				running = false;
+			}
+		} else {
+			synchronized (checkpointLock) {
+				outputResult(asyncResult);
 
 				// notify the main thread that there is again space left in the async collector
 				// buffer
 				checkpointLock.notifyAll();
 			}
+		}
+	}
+
+	private void outputResult(AsyncResult asyncResult) throws InterruptedException {
+		if (asyncResult.isWatermark()) {
+			AsyncWatermarkResult asyncWatermarkResult = asyncResult.asWatermark();
+
+			LOG.debug("Output async watermark.");
+			output.emitWatermark(asyncWatermarkResult.getWatermark());
 		} else {
 			AsyncCollectionResult<OUT> streamRecordResult = asyncResult.asResultCollection();
 
@@ -122,32 +183,26 @@ public class Emitter<OUT> implements Runnable {
 				timestampedCollector.eraseTimestamp();
 			}
 
-			synchronized (checkpointLock) {
-				LOG.debug("Output async stream element collection result.");
+			LOG.debug("Output async stream element collection result.");
 
-				try {
-					Collection<OUT> resultCollection = streamRecordResult.get();
+			try {
+				Collection<OUT> resultCollection = streamRecordResult.get();
 
-					if (resultCollection != null) {
-						for (OUT result : resultCollection) {
-							timestampedCollector.collect(result);
-						}
+				if (resultCollection != null) {
+					for (OUT result : resultCollection) {
+						timestampedCollector.collect(result);
 					}
-				} catch (Exception e) {
-					operatorActions.failOperator(
-						new Exception("An async function call terminated with an exception. " +
-							"Failing the AsyncWaitOperator.", e));
 				}
-
-				// remove the peeked element from the async collector buffer so that it is no longer
-				// checkpointed
-				streamElementQueue.poll();
-
-				// notify the main thread that there is again space left in the async collector
-				// buffer
-				checkpointLock.notifyAll();
+			} catch (Exception e) {
+				operatorActions.failOperator(
+					new Exception("An async function call terminated with an exception. " +
+						"Failing the AsyncWaitOperator.", e));
 			}
 		}
+
+		// remove the peeked element from the async collector buffer so that it is no longer
+		// checkpointed
+		streamElementQueue.poll();
 	}
 
 	public void stop() {
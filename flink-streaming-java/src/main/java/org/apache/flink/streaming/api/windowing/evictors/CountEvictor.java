@@ -77,6 +77,20 @@ public class CountEvictor<W extends Window> implements Evictor<Object, W> {
 		}
 	}
 
+	/**
+	 * Returns the number of elements that this evictor keeps.
+	 */
+	public long getMaxCount() {
+		return maxCount;
+	}
+
+	/**
+	 * Returns whether eviction is done after the window function.
+	 */
+	public boolean isEvictAfter() {
+		return doEvictAfter;
+	}
+
 	/**
 	 * Creates a {@code CountEvictor} that keeps the given number of elements.
 	 * Eviction is done before the window function.
@@ -18,12 +18,16 @@
 package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.memory.MemorySegment;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.decline.AlignmentLimitExceededException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineSubsumedException;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.checkpoint.decline.InputEndOfStreamException;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
@@ -32,12 +36,15 @@ import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
+import org.apache.flink.runtime.memory.MemoryManager;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkArgument;
 
@@ -47,7 +54,13 @@ import static org.apache.flink.util.Preconditions.checkArgument;
  * 
  * <p>To avoid back-pressuring the input streams (which may cause distributed deadlocks), the
  * BarrierBuffer continues receiving buffers from the blocked channels and stores them internally until 
- * the blocks are released.
+ * the blocks are released. The buffered data is held in managed memory, and only spilled to disk
+ * once that memory is full.
+ * 
+ * <p>Barriers of unaligned checkpoints do not block any channel. The checkpoint is triggered on the
+ * first barrier, and the buffers that precede the barriers of the other channels (and the buffers
+ * that a barrier overtook in its own channel) are recorded as the in-flight data of the checkpoint
+ * while they are passed on to the operator.
  */
 @Internal
 public class BarrierBuffer implements CheckpointBarrierHandler {
@@ -63,9 +76,21 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	/** The total number of channels that this buffer handles data from */
 	private final int totalNumberOfInputChannels;
 
-	/** To utility to write blocked data to a file channel */
+	/** To utility to write blocked data to memory and a file channel */
 	private final BufferSpiller bufferSpiller;
 
+	/** The memory manager that the memory for the blocked data is allocated from, null if there is none */
+	private final MemoryManager memoryManager;
+
+	/** The number of bytes of managed memory that should hold blocked data before it is spilled */
+	private final long alignmentMemorySize;
+
+	/** The managed memory that holds blocked data before it is spilled, allocated on the first alignment */
+	private List<MemorySegment> alignmentMemory;
+
+	/** Flag to indicate whether the managed memory for the blocked data has been requested */
+	private boolean alignmentMemoryRequested;
+
 	/** The pending blocked buffer/event sequences. Must be consumed before requesting
 	 * further data from the input gate. */
 	private final ArrayDeque<BufferSpiller.SpilledBufferOrEventSequence> queuedBuffered;
@@ -102,6 +127,34 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	/** Flag to indicate whether we have drawn all available input */
 	private boolean endOfStream;
 
+	/** Flag to indicate whether we have returned all input and all buffered data */
+	private boolean finished;
+
+	/** The writer that records the in-flight data of the current unaligned checkpoint, null if none is in progress */
+	private ChannelStateWriter channelStateWriter;
+
+	/** Flags that indicate whether the barrier of the current unaligned checkpoint was received from a channel */
+	private final boolean[] unalignedBarrierChannels;
+
+	/** Per channel, the number of buffers that the barrier of the current unaligned checkpoint overtook
+	 * and that still have to be recorded */
+	private final int[] numOvertakenBuffers;
+
+	/** The number of channels whose in-flight data of the current unaligned checkpoint is not yet fully recorded */
+	private int numPendingUnalignedChannels;
+
+	/** Per channel, the number of bytes that the current or latest alignment buffered */
+	private final long[] channelBytesBuffered;
+
+	/** Per channel, the number of bytes that the current or latest alignment spilled to disk */
+	private final long[] channelBytesSpilled;
+
+	/** Per channel, the timestamp as in {@link System#nanoTime()} at which the channel was blocked, 0 if it is not blocked */
+	private final long[] channelBlockedTimestamps;
+
+	/** Per channel, the time (in nanoseconds) that the channel was blocked in the latest alignment */
+	private final long[] channelAlignmentDurationNanos;
+
 	/**
 	 * Creates a new checkpoint stream aligner.
 	 * 
@@ -130,12 +183,52 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	 * @throws IOException Thrown, when the spilling to temp files cannot be initialized.
 	 */
 	public BarrierBuffer(InputGate inputGate, IOManager ioManager, long maxBufferedBytes) throws IOException {
+		this (inputGate, ioManager, maxBufferedBytes, null, 0L);
+	}
+
+	/**
+	 * Creates a new checkpoint stream aligner.
+	 * 
+	 * <p>The aligner will allow only alignments that buffer up to the given number of bytes.
+	 * When that number is exceeded, it will stop the alignment and notify the task that the
+	 * checkpoint has been cancelled.
+	 * 
+	 * <p>The aligner holds up to the given amount of buffered data in memory from the memory
+	 * manager, and spills the rest. The memory is allocated on the first alignment. If the memory
+	 * manager cannot provide the memory right away, all buffered data is spilled.
+	 * 
+	 * @param inputGate The input gate to draw the buffers and events from.
+	 * @param ioManager The I/O manager that gives access to the temp directories.
+	 * @param maxBufferedBytes The maximum bytes to be buffered before the checkpoint aborts.
+	 * @param memoryManager The memory manager to allocate the memory for buffered data from, or null.
+	 * @param memorySize The number of bytes of memory to hold buffered data in.
+	 * 
+	 * @throws IOException Thrown, when the spilling to temp files cannot be initialized.
+	 */
+	public BarrierBuffer(
+			InputGate inputGate,
+			IOManager ioManager,
+			long maxBufferedBytes,
+			MemoryManager memoryManager,
+			long memorySize) throws IOException {
+
 		checkArgument(maxBufferedBytes == -1 || maxBufferedBytes > 0);
+		checkArgument(memorySize >= 0);
 
 		this.inputGate = inputGate;
 		this.maxBufferedBytes = maxBufferedBytes;
 		this.totalNumberOfInputChannels = inputGate.getNumberOfInputChannels();
 		this.blockedChannels = new boolean[this.totalNumberOfInputChannels];
+		this.unalignedBarrierChannels = new boolean[this.totalNumberOfInputChannels];
+		this.numOvertakenBuffers = new int[this.totalNumberOfInputChannels];
+		this.channelBytesBuffered = new long[this.totalNumberOfInputChannels];
+		this.channelBytesSpilled = new long[this.totalNumberOfInputChannels];
+		this.channelBlockedTimestamps = new long[this.totalNumberOfInputChannels];
+		this.channelAlignmentDurationNanos = new long[this.totalNumberOfInputChannels];
+
+		this.memoryManager = memoryManager;
+		this.alignmentMemorySize = memorySize;
+		this.alignmentMemory = Collections.emptyList();
 
 		this.bufferSpiller = new BufferSpiller(ioManager, inputGate.getPageSize());
 		this.queuedBuffered = new ArrayDeque<BufferSpiller.SpilledBufferOrEventSequence>();
@@ -147,33 +240,54 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws Exception {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws Exception {
+		return getNext(false);
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws Exception {
 		while (true) {
 			// process buffered BufferOrEvents before grabbing new ones
 			BufferOrEvent next;
 			if (currentBuffered == null) {
-				next = inputGate.getNextBufferOrEvent();
+				if (blocking) {
+					next = inputGate.getNextBufferOrEvent();
+				}
+				else {
+					next = inputGate.pollNextBufferOrEvent();
+					if (next == null && !inputGate.isFinished()) {
+						// no data available right now
+						return null;
+					}
+				}
 			}
 			else {
 				next = currentBuffered.getNext();
 				if (next == null) {
 					completeBufferedSequence();
-					return getNextNonBlocked();
+					return getNext(blocking);
 				}
 			}
 
 			if (next != null) {
 				if (isBlocked(next.getChannelIndex())) {
 					// if the channel is blocked we, we just store the BufferOrEvent
-					bufferSpiller.add(next);
+					addBlocked(next);
 					checkSizeLimit();
 				}
 				else if (next.isBuffer()) {
+					if (channelStateWriter != null) {
+						recordInFlightBuffer(next);
+					}
 					return next;
 				}
 				else if (next.getEvent().getClass() == CheckpointBarrier.class) {
 					if (!endOfStream) {
 						// process barriers only if there is a chance of the checkpoint completing
-						processBarrier((CheckpointBarrier) next.getEvent(), next.getChannelIndex());
+						processBarrier((CheckpointBarrier) next.getEvent(), next.getChannelIndex(), next.getNumOvertakenBuffers());
 					}
 				}
 				else if (next.getEvent().getClass() == CancelCheckpointMarker.class) {
@@ -181,7 +295,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 				}
 				else {
 					if (next.getEvent().getClass() == EndOfPartitionEvent.class) {
-						processEndOfPartition();
+						processEndOfPartition(next.getChannelIndex());
 					}
 					return next;
 				}
@@ -190,15 +304,27 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 				// end of input stream. stream continues with the buffered data
 				endOfStream = true;
 				releaseBlocksAndResetBarriers();
-				return getNextNonBlocked();
+				return getNext(blocking);
 			}
 			else {
 				// final end of both input and buffered data
+				finished = true;
 				return null;
 			}
 		}
 	}
 
+	private void addBlocked(BufferOrEvent bufferOrEvent) throws IOException {
+		final int channelIndex = bufferOrEvent.getChannelIndex();
+		final long bytesWrittenBefore = bufferSpiller.getBytesWritten();
+		final long bytesSpilledBefore = bufferSpiller.getBytesSpilled();
+
+		bufferSpiller.add(bufferOrEvent);
+
+		channelBytesBuffered[channelIndex] += bufferSpiller.getBytesWritten() - bytesWrittenBefore;
+		channelBytesSpilled[channelIndex] += bufferSpiller.getBytesSpilled() - bytesSpilledBefore;
+	}
+
 	private void completeBufferedSequence() throws IOException {
 		LOG.debug("Finished feeding back buffered data");
 
@@ -210,9 +336,14 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
-	private void processBarrier(CheckpointBarrier receivedBarrier, int channelIndex) throws Exception {
+	private void processBarrier(CheckpointBarrier receivedBarrier, int channelIndex, int numOvertakenBuffers) throws Exception {
 		final long barrierId = receivedBarrier.getId();
 
+		if (receivedBarrier.getCheckpointOptions().isUnaligned()) {
+			processUnalignedBarrier(receivedBarrier, channelIndex, numOvertakenBuffers);
+			return;
+		}
+
 		// fast path for single channel cases
 		if (totalNumberOfInputChannels == 1) {
 			if (barrierId > currentCheckpointId) {
@@ -275,6 +406,58 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
+	private void processUnalignedBarrier(CheckpointBarrier receivedBarrier, int channelIndex, int numOvertakenBuffers) throws Exception {
+		final long barrierId = receivedBarrier.getId();
+
+		if (numBarriersReceived > 0) {
+			// this is only true if some checkpoint is in progress and was not canceled
+
+			if (barrierId == currentCheckpointId) {
+				// regular case
+				onUnalignedBarrier(channelIndex, numOvertakenBuffers);
+				return;
+			}
+			else if (barrierId > currentCheckpointId) {
+				// we did not complete the current checkpoint, another started before
+				LOG.warn("Received checkpoint barrier for checkpoint {} before completing current checkpoint {}. " +
+						"Skipping current checkpoint.", barrierId, currentCheckpointId);
+
+				// let the task know we are not completing this
+				notifyAbort(currentCheckpointId, new CheckpointDeclineSubsumedException(barrierId));
+
+				// abort the current checkpoint
+				releaseBlocksAndResetBarriers();
+			}
+			else {
+				// ignore trailing barrier from an earlier checkpoint (obsolete now)
+				return;
+			}
+		}
+		else if (barrierId <= currentCheckpointId) {
+			// either the current checkpoint was canceled (numBarriers == 0) or
+			// this barrier is from an old subsumed checkpoint
+			return;
+		}
+
+		// first barrier of a new checkpoint: there is nothing to align, the task takes its snapshot
+		// right away and hands us the writer for the in-flight data via startChannelStateSnapshot()
+		currentCheckpointId = barrierId;
+		startOfAlignmentTimestamp = 0L;
+		latestAlignmentDurationNanos = 0L;
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Received first barrier of unaligned checkpoint {}, triggering checkpoint", barrierId);
+		}
+
+		notifyCheckpoint(receivedBarrier);
+
+		if (channelStateWriter != null) {
+			numPendingUnalignedChannels = totalNumberOfInputChannels - numClosedChannels;
+			onUnalignedBarrier(channelIndex, numOvertakenBuffers);
+		}
+		// else: the task did not take the checkpoint, so the following barriers are ignored
+	}
+
 	private void processCancellationBarrier(CancelCheckpointMarker cancelBarrier) throws Exception {
 		final long barrierId = cancelBarrier.getCheckpointId();
 
@@ -345,10 +528,10 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		//   - the current checkpoint if it was already canceled
 	}
 
-	private void processEndOfPartition() throws Exception {
+	private void processEndOfPartition(int channelIndex) throws Exception {
 		numClosedChannels++;
 
-		if (numBarriersReceived > 0) {
+		if (numBarriersReceived > 0 && !unalignedBarrierChannels[channelIndex]) {
 			// let the task know we skip a checkpoint
 			notifyAbort(currentCheckpointId, new InputEndOfStreamException());
 
@@ -362,7 +545,9 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 			CheckpointMetaData checkpointMetaData =
 					new CheckpointMetaData(checkpointBarrier.getId(), checkpointBarrier.getTimestamp());
 
-			long bytesBuffered = currentBuffered != null ? currentBuffered.size() : 0L;
+			// unaligned checkpoints do not buffer anything, the in-flight data becomes part of the state
+			long bytesBuffered = currentBuffered != null && !checkpointBarrier.getCheckpointOptions().isUnaligned() ?
+					currentBuffered.size() : 0L;
 
 			CheckpointMetrics checkpointMetrics = new CheckpointMetrics()
 					.setBytesBufferedInAlignment(bytesBuffered)
@@ -380,6 +565,11 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	}
 
 	private void notifyAbort(long checkpointId, CheckpointDeclineException cause) throws Exception {
+		if (channelStateWriter != null && channelStateWriter.getCheckpointId() == checkpointId) {
+			channelStateWriter.abort(cause);
+			channelStateWriter = null;
+		}
+
 		if (toNotifyOnCheckpoint != null) {
 			toNotifyOnCheckpoint.abortCheckpointOnBarrier(checkpointId, cause);
 		}
@@ -406,26 +596,100 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
+	@Override
+	public void startChannelStateSnapshot(ChannelStateWriter channelStateWriter) {
+		if (channelStateWriter.getCheckpointId() == currentCheckpointId && numBarriersReceived == 0) {
+			this.channelStateWriter = channelStateWriter;
+		}
+		else {
+			// not triggered by a barrier of this handler, e.g. a source-less task that is triggered directly
+			channelStateWriter.finishInput();
+		}
+	}
+
+	@Override
+	public void registerChannelMetrics(MetricGroup metrics) {
+		final MetricGroup alignmentGroup = metrics.addGroup("alignment");
+
+		for (int i = 0; i < totalNumberOfInputChannels; i++) {
+			final int channelIndex = i;
+			final MetricGroup channelGroup = alignmentGroup.addGroup(channelIndex);
+
+			channelGroup.gauge("alignmentTime", new Gauge<Long>() {
+				@Override
+				public Long getValue() {
+					return getAlignmentDurationNanos(channelIndex);
+				}
+			});
+
+			channelGroup.gauge("bufferedBytes", new Gauge<Long>() {
+				@Override
+				public Long getValue() {
+					return channelBytesBuffered[channelIndex];
+				}
+			});
+
+			channelGroup.gauge("spilledBytes", new Gauge<Long>() {
+				@Override
+				public Long getValue() {
+					return channelBytesSpilled[channelIndex];
+				}
+			});
+		}
+	}
+
 	@Override
 	public boolean isEmpty() {
 		return currentBuffered == null;
 	}
 
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
 	@Override
 	public void cleanup() throws IOException {
-		bufferSpiller.close();
-		if (currentBuffered != null) {
-			currentBuffered.cleanup();
+		if (channelStateWriter != null) {
+			channelStateWriter.abort(new CheckpointDeclineException("The input of the task was closed."));
+			channelStateWriter = null;
 		}
-		for (BufferSpiller.SpilledBufferOrEventSequence seq : queuedBuffered) {
-			seq.cleanup();
+
+		try {
+			bufferSpiller.close();
+			if (currentBuffered != null) {
+				currentBuffered.cleanup();
+			}
+			for (BufferSpiller.SpilledBufferOrEventSequence seq : queuedBuffered) {
+				seq.cleanup();
+			}
+			queuedBuffered.clear();
+			numQueuedBytes = 0L;
+		}
+		finally {
+			// the memory must be given back even if the spill files could not be removed
+			if (!alignmentMemory.isEmpty() && !memoryManager.isShutdown()) {
+				memoryManager.release(alignmentMemory);
+			}
+			alignmentMemory = Collections.emptyList();
 		}
-		queuedBuffered.clear();
-		numQueuedBytes = 0L;
 	}
 
 	private void beginNewAlignment(long checkpointId, int channelIndex) throws IOException {
 		currentCheckpointId = checkpointId;
+
+		if (!alignmentMemoryRequested) {
+			alignmentMemoryRequested = true;
+			alignmentMemory = allocateAlignmentMemory();
+			bufferSpiller.addMemory(alignmentMemory);
+		}
+
+		for (int i = 0; i < totalNumberOfInputChannels; i++) {
+			channelBytesBuffered[i] = 0L;
+			channelBytesSpilled[i] = 0L;
+			channelAlignmentDurationNanos[i] = 0L;
+		}
+
 		onBarrier(channelIndex);
 
 		startOfAlignmentTimestamp = System.nanoTime();
@@ -453,6 +717,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	private void onBarrier(int channelIndex) throws IOException {
 		if (!blockedChannels[channelIndex]) {
 			blockedChannels[channelIndex] = true;
+			channelBlockedTimestamps[channelIndex] = System.nanoTime();
 
 			numBarriersReceived++;
 
@@ -465,6 +730,73 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
+	/**
+	 * Records the barrier of the current unaligned checkpoint from the given channel. The data of
+	 * the channel is recorded completely once the buffers that the barrier overtook were recorded.
+	 * 
+	 * @param channelIndex The channel index that the barrier was received from.
+	 * @param numOvertaken The number of buffers that the barrier overtook in the channel.
+	 */
+	private void onUnalignedBarrier(int channelIndex, int numOvertaken) throws IOException {
+		if (!unalignedBarrierChannels[channelIndex]) {
+			unalignedBarrierChannels[channelIndex] = true;
+			numOvertakenBuffers[channelIndex] = numOvertaken;
+
+			numBarriersReceived++;
+
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Received unaligned barrier from channel {}, overtaking {} buffers", channelIndex, numOvertaken);
+			}
+
+			if (numOvertaken == 0) {
+				onChannelStateRecorded();
+			}
+		}
+		else {
+			throw new IOException("Stream corrupt: Repeated barrier for same checkpoint on input " + channelIndex);
+		}
+	}
+
+	/**
+	 * Adds the given buffer to the in-flight data of the current unaligned checkpoint, if it
+	 * precedes the barrier of its channel.
+	 */
+	private void recordInFlightBuffer(BufferOrEvent bufferOrEvent) throws IOException {
+		final int channelIndex = bufferOrEvent.getChannelIndex();
+
+		if (!unalignedBarrierChannels[channelIndex]) {
+			channelStateWriter.addInputData(channelIndex, bufferOrEvent.getBuffer());
+		}
+		else if (numOvertakenBuffers[channelIndex] > 0) {
+			channelStateWriter.addInputData(channelIndex, bufferOrEvent.getBuffer());
+
+			if (--numOvertakenBuffers[channelIndex] == 0) {
+				onChannelStateRecorded();
+			}
+		}
+	}
+
+	private void onChannelStateRecorded() {
+		if (--numPendingUnalignedChannels == 0) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Recorded all in-flight data of checkpoint {}: {}", currentCheckpointId, channelStateWriter);
+			}
+
+			channelStateWriter.finishInput();
+			channelStateWriter = null;
+			resetUnalignedBarriers();
+		}
+	}
+
+	private void resetUnalignedBarriers() {
+		for (int i = 0; i < unalignedBarrierChannels.length; i++) {
+			unalignedBarrierChannels[i] = false;
+			numOvertakenBuffers[i] = 0;
+		}
+		numPendingUnalignedChannels = 0;
+		numBarriersReceived = 0;
+	}
+
 	/**
 	 * Releases the blocks on all channels and resets the barrier count.
 	 * Makes sure the just written data is the next to be consumed.
@@ -472,8 +804,14 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 	private void releaseBlocksAndResetBarriers() throws IOException {
 		LOG.debug("End of stream alignment, feeding buffered data back");
 
+		final long now = System.nanoTime();
 		for (int i = 0; i < blockedChannels.length; i++) {
 			blockedChannels[i] = false;
+
+			if (channelBlockedTimestamps[i] > 0) {
+				channelAlignmentDurationNanos[i] = now - channelBlockedTimestamps[i];
+				channelBlockedTimestamps[i] = 0L;
+			}
 		}
 
 		if (currentBuffered == null) {
@@ -489,8 +827,7 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 			LOG.debug("Checkpoint skipped via buffered data:" +
 					"Pushing back current alignment buffers and feeding back new alignment data first.");
 
-			// since we did not fully drain the previous sequence, we need to allocate a new buffer for this one
-			BufferSpiller.SpilledBufferOrEventSequence bufferedNow = bufferSpiller.rollOverWithNewBuffer();
+			BufferSpiller.SpilledBufferOrEventSequence bufferedNow = bufferSpiller.rollOver();
 			if (bufferedNow != null) {
 				bufferedNow.open();
 				queuedBuffered.addFirst(currentBuffered);
@@ -504,8 +841,15 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 					currentBuffered == null ? 0L : currentBuffered.size());
 		}
 
+		// an unaligned checkpoint whose in-flight data is not complete cannot succeed anymore
+		if (channelStateWriter != null) {
+			channelStateWriter.abort(new CheckpointDeclineException(
+					"Checkpoint " + channelStateWriter.getCheckpointId() + " was released before all barriers arrived."));
+			channelStateWriter = null;
+		}
+
 		// the next barrier that comes must assume it is the first
-		numBarriersReceived = 0;
+		resetUnalignedBarriers();
 
 		if (startOfAlignmentTimestamp > 0) {
 			latestAlignmentDurationNanos = System.nanoTime() - startOfAlignmentTimestamp;
@@ -536,9 +880,59 @@ public class BarrierBuffer implements CheckpointBarrierHandler {
 		}
 	}
 
+	/**
+	 * Gets the time that the given channel was blocked in the latest alignment, in nanoseconds.
+	 * If the channel is currently blocked, it will return the time that it is blocked so far.
+	 * 
+	 * @param channelIndex The index of the channel.
+	 * @return The duration in nanoseconds
+	 */
+	public long getAlignmentDurationNanos(int channelIndex) {
+		long start = this.channelBlockedTimestamps[channelIndex];
+		if (start <= 0) {
+			return channelAlignmentDurationNanos[channelIndex];
+		} else {
+			return System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes that the current or latest alignment buffered for the given channel,
+	 * in memory and on disk.
+	 */
+	public long getBytesBuffered(int channelIndex) {
+		return channelBytesBuffered[channelIndex];
+	}
+
+	/**
+	 * Gets the number of bytes that the current or latest alignment spilled to disk for the given channel.
+	 */
+	public long getBytesSpilled(int channelIndex) {
+		return channelBytesSpilled[channelIndex];
+	}
+
 	// ------------------------------------------------------------------------
 	// Utilities 
 	// ------------------------------------------------------------------------
+
+	/**
+	 * Allocates the memory for the data of blocked channels. The memory is allocated on the first
+	 * alignment, because many tasks never align, and the allocation does not wait for memory, because
+	 * it would block the processing of the input.
+	 */
+	private List<MemorySegment> allocateAlignmentMemory() {
+		final int numPages = memoryManager == null ? 0 : (int) (alignmentMemorySize / memoryManager.getPageSize());
+		if (numPages == 0 || memoryManager.isShutdown()) {
+			return Collections.emptyList();
+		}
+
+		final List<MemorySegment> memory = memoryManager.tryAllocatePages(this, numPages);
+		if (memory.isEmpty()) {
+			LOG.info("Could not allocate {} bytes of managed memory for checkpoint alignments, " +
+					"the data of blocked channels is spilled to disk.", alignmentMemorySize);
+		}
+		return memory;
+	}
 	
 	@Override
 	public String toString() {
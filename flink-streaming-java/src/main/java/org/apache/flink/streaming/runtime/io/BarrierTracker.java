@@ -19,10 +19,12 @@
 package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
@@ -73,6 +75,9 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 	/** The highest checkpoint ID encountered so far */
 	private long latestPendingCheckpointID = -1;
 
+	/** Flag to indicate whether we have drawn all input */
+	private boolean finished;
+
 	// ------------------------------------------------------------------------
 	
 	public BarrierTracker(InputGate inputGate) {
@@ -83,10 +88,23 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 
 	@Override
 	public BufferOrEvent getNextNonBlocked() throws Exception {
+		return getNext(true);
+	}
+
+	@Override
+	public BufferOrEvent pollNext() throws Exception {
+		return getNext(false);
+	}
+
+	private BufferOrEvent getNext(boolean blocking) throws Exception {
 		while (true) {
-			BufferOrEvent next = inputGate.getNextBufferOrEvent();
-			if (next == null || next.isBuffer()) {
-				// buffer or input exhausted
+			BufferOrEvent next = blocking ? inputGate.getNextBufferOrEvent() : inputGate.pollNextBufferOrEvent();
+			if (next == null) {
+				// input exhausted, or no data available right now
+				finished = blocking || inputGate.isFinished();
+				return null;
+			}
+			else if (next.isBuffer()) {
 				return next;
 			}
 			else if (next.getEvent().getClass() == CheckpointBarrier.class) {
@@ -122,12 +140,28 @@ public class BarrierTracker implements CheckpointBarrierHandler {
 		return pendingCheckpoints.isEmpty();
 	}
 
+	@Override
+	public boolean isFinished() {
+		return finished;
+	}
+
 	@Override
 	public long getAlignmentDurationNanos() {
 		// this one does not do alignment at all
 		return 0L;
 	}
 
+	@Override
+	public void registerChannelMetrics(MetricGroup metrics) {
+		// no channel is ever blocked, there is nothing to report
+	}
+
+	@Override
+	public void startChannelStateSnapshot(ChannelStateWriter channelStateWriter) {
+		// unaligned checkpoints are only used in exactly once mode, there is no in-flight data to record
+		channelStateWriter.finishInput();
+	}
+
 	private void processBarrier(CheckpointBarrier receivedBarrier, int channelIndex) throws Exception {
 		final long barrierId = receivedBarrier.getId();
 
@@ -22,7 +22,12 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -31,6 +36,7 @@ import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.io.disk.iomanager.MemoryMappedFile;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
@@ -42,12 +48,17 @@ import org.apache.flink.util.StringUtils;
  * After a number of elements have been spilled, the spiller can "roll over": It presents the spilled
  * elements as a readable sequence, and opens a new spill file.
  * 
- * <p>This implementation buffers data effectively in the OS cache, which gracefully extends to the
- * disk. Most data is written and re-read milliseconds later. The file is deleted after the read.
- * Consequently, in most cases, the data will never actually hit the physical disks.</p>
+ * <p>The spiller may be given a bounded amount of memory. Elements are then first copied into that
+ * memory, and only spilled to the file once it is full. From then on, all further elements of the
+ * sequence are spilled as well, so that the sequence is read back in order: first the part in memory,
+ * then the part in the file. The memory is handed back to the spiller while a sequence is read.
  * 
- * <p>IMPORTANT: The SpilledBufferOrEventSequences created by this spiller all reuse the same
- * reading memory (to reduce overhead) and can consequently not be read concurrently.</p>
+ * <p>Spilled data is buffered effectively in the OS cache, which gracefully extends to the disk. Most
+ * data is written and re-read milliseconds later. The file is mapped into memory for reading, unmapped and
+ * deleted after the read. Consequently, in most cases, the data will never actually hit the physical disks.</p>
+ * 
+ * <p>IMPORTANT: The spiller and the SpilledBufferOrEventSequences created by it share the memory and
+ * must be used by the same thread.</p>
  */
 @Internal
 public class BufferSpiller {
@@ -55,26 +66,41 @@ public class BufferSpiller {
 	/** Size of header in bytes (see add method). */
 	static final int HEADER_SIZE = 9;
 
+	/** Header type of a spilled buffer */
+	private static final byte TYPE_BUFFER = 0;
+
+	/** Header type of a spilled event */
+	private static final byte TYPE_EVENT = 1;
+
+	/** Header type of a spilled event that overtook buffers, its contents start with the number of buffers */
+	private static final byte TYPE_OVERTAKING_EVENT = 2;
+
 	/** The counter that selects the next directory to spill into */
 	private static final AtomicInteger DIRECTORY_INDEX = new AtomicInteger(0);
 	
-	/** The size of the buffer with which data is read back in */
-	private static final int READ_BUFFER_SIZE = 1024 * 1024;
-	
 	/** The directories to spill to */
 	private final File tempDir;
 	
 	/** The name prefix for spill files */
 	private final String spillFilePrefix;
 	
-	/** The buffer used for bulk reading data (used in the SpilledBufferOrEventSequence) */
-	private final ByteBuffer readBuffer;
-	
 	/** The buffer that encodes the spilled header */
 	private final ByteBuffer headBuffer;
 	
 	/** The reusable array that holds header and contents buffers */
 	private final ByteBuffer[] sources;
+
+	/** The memory segments that are not used by the current or a not yet read sequence */
+	private final ArrayDeque<MemorySegment> freeMemory;
+
+	/** The size of the memory segments, 0 if the spiller has no memory */
+	private int memorySegmentSize;
+
+	/** The memory segments that hold the beginning of the current sequence */
+	private ArrayList<MemorySegment> currentMemory;
+
+	/** The write position in the last of the current memory segments */
+	private int positionInCurrentSegment;
 	
 	/** The file that we currently spill to */
 	private File currentSpillFile;
@@ -88,8 +114,11 @@ public class BufferSpiller {
 	/** A counter, to created numbered spill files */
 	private int fileCounter;
 	
-	/** The number of bytes written since the last roll over */
+	/** The number of bytes written (to memory and file) since the last roll over */
 	private long bytesWritten;
+
+	/** The number of bytes written to the file since the last roll over */
+	private long bytesSpilled;
 	
 	/**
 	 * Creates a new buffer spiller, spilling to one of the I/O manager's temp directories.
@@ -99,15 +128,30 @@ public class BufferSpiller {
 	 * @throws IOException Thrown if the temp files for spilling cannot be initialized.
 	 */
 	public BufferSpiller(IOManager ioManager, int pageSize) throws IOException {
+		this(ioManager, pageSize, Collections.<MemorySegment>emptyList());
+	}
+
+	/**
+	 * Creates a new buffer spiller that holds elements in the given memory, and spills to one of
+	 * the I/O manager's temp directories once the memory is full. The memory segments must all
+	 * have the same size. The spiller does not release them.
+	 *
+	 * @param ioManager The I/O manager for access to the temp directories.
+	 * @param pageSize The page size used to re-create spilled buffers.
+	 * @param memory The memory to hold elements in before they are spilled.
+	 * @throws IOException Thrown if the temp files for spilling cannot be initialized.
+	 */
+	public BufferSpiller(IOManager ioManager, int pageSize, List<MemorySegment> memory) throws IOException {
 		this.pageSize = pageSize;
 		
-		this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
-		this.readBuffer.order(ByteOrder.LITTLE_ENDIAN);
-		
 		this.headBuffer = ByteBuffer.allocateDirect(16);
 		this.headBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		
 		this.sources = new ByteBuffer[] { this.headBuffer, null };
+
+		this.freeMemory = new ArrayDeque<>(memory);
+		this.memorySegmentSize = memory.isEmpty() ? 0 : memory.get(0).size();
+		this.currentMemory = new ArrayList<>();
 		
 		File[] tempDirs = ioManager.getSpillingDirectories();
 		this.tempDir = tempDirs[DIRECTORY_INDEX.getAndIncrement() % tempDirs.length];
@@ -121,7 +165,27 @@ public class BufferSpiller {
 	}
 
 	/**
-	 * Adds a buffer or event to the sequence of spilled buffers and events.
+	 * Gives the spiller more memory to hold elements in. The memory segments must have the same size
+	 * as the memory segments that the spiller has already. The spiller does not release them.
+	 *
+	 * @param memory The memory to hold elements in before they are spilled.
+	 */
+	public void addMemory(List<MemorySegment> memory) {
+		if (memory.isEmpty()) {
+			return;
+		}
+		if (memorySegmentSize == 0) {
+			memorySegmentSize = memory.get(0).size();
+		}
+		else if (memory.get(0).size() != memorySegmentSize) {
+			throw new IllegalArgumentException("The memory segments must have a size of " + memorySegmentSize + " bytes.");
+		}
+		freeMemory.addAll(memory);
+	}
+
+	/**
+	 * Adds a buffer or event to the sequence of spilled buffers and events. The element is kept in
+	 * memory if it fits, and spilled otherwise.
 	 * 
 	 * @param boe The buffer or event to add and spill.
 	 * @throws IOException Thrown, if the buffer of event could not be spilled.
@@ -129,24 +193,46 @@ public class BufferSpiller {
 	public void add(BufferOrEvent boe) throws IOException {
 		try {
 			ByteBuffer contents;
+			byte type;
 			if (boe.isBuffer()) {
 				Buffer buf = boe.getBuffer();
 				contents = buf.getMemorySegment().wrap(0, buf.getSize());
+				type = TYPE_BUFFER;
+			}
+			else if (boe.getNumOvertakenBuffers() > 0) {
+				// the barrier of an unaligned checkpoint must keep the number of buffers it overtook
+				ByteBuffer event = EventSerializer.toSerializedEvent(boe.getEvent());
+				contents = ByteBuffer.allocate(4 + event.remaining()).order(ByteOrder.LITTLE_ENDIAN);
+				contents.putInt(boe.getNumOvertakenBuffers());
+				contents.put(event);
+				contents.flip();
+				type = TYPE_OVERTAKING_EVENT;
 			}
 			else {
 				contents = EventSerializer.toSerializedEvent(boe.getEvent());
+				type = TYPE_EVENT;
 			}
 
 			headBuffer.clear();
 			headBuffer.putInt(boe.getChannelIndex());
 			headBuffer.putInt(contents.remaining());
-			headBuffer.put((byte) (boe.isBuffer() ? 0 : 1));
+			headBuffer.put(type);
 			headBuffer.flip();
 
-			bytesWritten += (headBuffer.remaining() + contents.remaining());
+			final int size = headBuffer.remaining() + contents.remaining();
+			bytesWritten += size;
+
+			// once something was spilled, the rest of the sequence must be spilled as well to keep the order
+			if (bytesSpilled == 0 && size <= getAvailableMemory()) {
+				copyToMemory(headBuffer);
+				copyToMemory(contents);
+			}
+			else {
+				bytesSpilled += size;
 
-			sources[1] = contents;
-			currentChannel.write(sources);
+				sources[1] = contents;
+				currentChannel.write(sources);
+			}
 		}
 		finally {
 			if (boe.isBuffer()) {
@@ -160,57 +246,36 @@ public class BufferSpiller {
 	 * for reading. This method returns {@code null}, if nothing was added since the creation of the spiller, or the
 	 * last call to this method.
 	 * 
-	 * <p>NOTE: The SpilledBufferOrEventSequences created by this method all reuse the same
-	 * reading memory (to reduce overhead) and can consequently not be read concurrently with each other.
-	 * To create a sequence that can be read concurrently with the previous SpilledBufferOrEventSequence, use the
-	 * {@link #rollOverWithNewBuffer()} method.</p>
-	 * 
 	 * @return The readable sequence of spilled buffers and events, or 'null', if nothing was added.
 	 * @throws IOException Thrown, if the readable sequence could not be created, or no new spill
 	 *                     file could be created.
 	 */
 	public SpilledBufferOrEventSequence rollOver() throws IOException {
-		return rollOverInternal(false);
-	}
-
-	/**
-	 * Starts a new sequence of spilled buffers and event and returns the current sequence of spilled buffers
-	 * for reading. This method returns {@code null}, if nothing was added since the creation of the spiller, or the
-	 * last call to this method.
-	 * 
-	 * <p>The SpilledBufferOrEventSequence returned by this method is safe for concurrent consumption with
-	 * any previously returned sequence.</p>
-	 *
-	 * @return The readable sequence of spilled buffers and events, or 'null', if nothing was added.
-	 * @throws IOException Thrown, if the readable sequence could not be created, or no new spill
-	 *                     file could be created.
-	 */
-	public SpilledBufferOrEventSequence rollOverWithNewBuffer() throws IOException {
-		return rollOverInternal(true);
-	}
-	
-	private SpilledBufferOrEventSequence rollOverInternal(boolean newBuffer) throws IOException {
 		if (bytesWritten == 0) {
 			return null;
 		}
 
-		ByteBuffer buf;
-		if (newBuffer) {
-			buf = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
-			buf.order(ByteOrder.LITTLE_ENDIAN);
-		} else {
-			buf = readBuffer;
-		}
+		final long bytesInMemory = bytesWritten - bytesSpilled;
 
-		// create a reader for the spilled data
-		currentChannel.position(0L);
-		SpilledBufferOrEventSequence seq = 
-				new SpilledBufferOrEventSequence(currentSpillFile, currentChannel, buf, pageSize);
+		// create a reader for the data in memory and the spilled data
+		SpilledBufferOrEventSequence seq;
+		if (bytesSpilled > 0) {
+			currentChannel.position(0L);
+			seq = new SpilledBufferOrEventSequence(
+					currentMemory, bytesInMemory, freeMemory, currentSpillFile, currentChannel, pageSize);
 
-		// create ourselves a new spill file
-		createSpillingChannel();
+			// create ourselves a new spill file
+			createSpillingChannel();
+		}
+		else {
+			// nothing was spilled, the spill file stays with the spiller
+			seq = new SpilledBufferOrEventSequence(currentMemory, bytesInMemory, freeMemory, null, null, pageSize);
+		}
 
+		currentMemory = new ArrayList<>();
+		positionInCurrentSegment = 0;
 		bytesWritten = 0L;
+		bytesSpilled = 0L;
 		return seq;
 	}
 
@@ -230,13 +295,21 @@ public class BufferSpiller {
 	}
 
 	/**
-	 * Gets the number of bytes written in the current spill file.
-	 * @return the number of bytes written in the current spill file
+	 * Gets the number of bytes written in the current sequence, in memory and in the spill file.
+	 * @return the number of bytes written in the current sequence
 	 */
 	public long getBytesWritten() {
 		return bytesWritten;
 	}
 
+	/**
+	 * Gets the number of bytes written in the current spill file.
+	 * @return the number of bytes written in the current spill file
+	 */
+	public long getBytesSpilled() {
+		return bytesSpilled;
+	}
+
 	// ------------------------------------------------------------------------
 	//  For testing
 	// ------------------------------------------------------------------------
@@ -248,6 +321,10 @@ public class BufferSpiller {
 	FileChannel getCurrentChannel() {
 		return currentChannel;
 	}
+
+	int getNumFreeMemorySegments() {
+		return freeMemory.size();
+	}
 	
 	// ------------------------------------------------------------------------
 	//  Utilities
@@ -259,26 +336,72 @@ public class BufferSpiller {
 		currentChannel = new RandomAccessFile(currentSpillFile, "rw").getChannel();
 	}
 
+	private long getAvailableMemory() {
+		long available = (long) freeMemory.size() * memorySegmentSize;
+		if (!currentMemory.isEmpty()) {
+			available += memorySegmentSize - positionInCurrentSegment;
+		}
+		return available;
+	}
+
+	private void copyToMemory(ByteBuffer source) {
+		while (source.hasRemaining()) {
+			if (currentMemory.isEmpty() || positionInCurrentSegment == memorySegmentSize) {
+				currentMemory.add(freeMemory.poll());
+				positionInCurrentSegment = 0;
+			}
+
+			final int toCopy = Math.min(source.remaining(), memorySegmentSize - positionInCurrentSegment);
+			currentMemory.get(currentMemory.size() - 1).put(positionInCurrentSegment, source, toCopy);
+			positionInCurrentSegment += toCopy;
+		}
+	}
+
 	// ------------------------------------------------------------------------
 
 	/**
 	 * This class represents a sequence of spilled buffers and events, created by the
 	 * {@link BufferSpiller}. The sequence of buffers and events can be read back using the
 	 * method {@link #getNext()}.
+	 * 
+	 * <p>The sequence starts with the elements held in memory, followed by the elements in the
+	 * spill file. The memory segments are given back to the spiller as soon as they are read.
+	 * The spill file is mapped into memory, so the elements are read without going through a
+	 * read buffer. The elements are copied out of the mapping, so the mapped regions are unmapped
+	 * explicitly when the next region is mapped and when the sequence is cleaned up, rather than
+	 * being left to the garbage collector.
 	 */
 	public static class SpilledBufferOrEventSequence {
 
 		/** Header is "channel index" (4 bytes) + length (4 bytes) + buffer/event (1 byte) */
 		private static final int HEADER_LENGTH = 9;
 
-		/** The file containing the data */
+		/** The largest part of the file that is mapped at once */
+		private static final long MAX_MAPPED_REGION_SIZE = Integer.MAX_VALUE;
+
+		/** The memory segments with the beginning of the sequence, read segments are set to null */
+		private final List<MemorySegment> memory;
+
+		/** The number of bytes of the sequence in memory */
+		private final long memorySize;
+
+		/** The size of the memory segments */
+		private final int memorySegmentSize;
+
+		/** The collection to give the read memory segments back to */
+		private final ArrayDeque<MemorySegment> memoryTarget;
+
+		/** The file containing the data, or null, if all data is in memory */
 		private final File file;
 
-		/** The file channel to draw the data from */
+		/** The file channel to draw the data from, or null, if all data is in memory */
 		private final FileChannel fileChannel;
 
-		/** The byte buffer for bulk reading */
-		private final ByteBuffer buffer;
+		/** The size of the file */
+		private final long fileSize;
+
+		/** The buffer to decode the headers */
+		private final ByteBuffer headerBuffer;
 
 		/** We store this size as a constant because it is crucial it never changes */
 		private final long size;
@@ -286,24 +409,60 @@ public class BufferSpiller {
 		/** The page size to instantiate properly sized memory segments */
 		private final int pageSize;
 
+		/** The read position in the memory */
+		private long memoryReadPosition;
+
+		/** The currently mapped region of the file */
+		private MappedByteBuffer mappedRegion;
+
+		/** The position of the mapped region in the file */
+		private long mappedRegionOffset;
+
 		/** Flag to track whether the sequence has been opened already */
 		private boolean opened = false;
 
 		/**
-		 * Create a reader that reads a sequence of spilled buffers and events.
+		 * Create a reader that reads a sequence of spilled buffers and events from a file.
 		 * 
 		 * @param file The file with the data.
 		 * @param fileChannel The file channel to read the data from.
-		 * @param buffer The buffer used for bulk reading.
 		 * @param pageSize The page size to use for the created memory segments.
 		 */
-		SpilledBufferOrEventSequence(File file, FileChannel fileChannel, ByteBuffer buffer, int pageSize)
-				throws IOException {
+		SpilledBufferOrEventSequence(File file, FileChannel fileChannel, int pageSize) throws IOException {
+			this(Collections.<MemorySegment>emptyList(), 0L, null, file, fileChannel, pageSize);
+		}
+
+		/**
+		 * Create a reader that reads a sequence of buffers and events from memory, followed by the
+		 * spilled buffers and events in a file.
+		 * 
+		 * @param memory The memory segments with the first part of the data.
+		 * @param memorySize The number of bytes in the memory segments.
+		 * @param memoryTarget The collection to give the memory segments back to once they are read.
+		 * @param file The file with the rest of the data, or null, if all data is in memory.
+		 * @param fileChannel The file channel to read the data from, or null, if all data is in memory.
+		 * @param pageSize The page size to use for the created memory segments.
+		 */
+		SpilledBufferOrEventSequence(
+				List<MemorySegment> memory,
+				long memorySize,
+				ArrayDeque<MemorySegment> memoryTarget,
+				File file,
+				FileChannel fileChannel,
+				int pageSize) throws IOException {
+
+			this.memory = memory;
+			this.memorySize = memorySize;
+			this.memorySegmentSize = memory.isEmpty() ? 0 : memory.get(0).size();
+			this.memoryTarget = memoryTarget;
 			this.file = file;
 			this.fileChannel = fileChannel;
-			this.buffer = buffer;
+			this.fileSize = fileChannel == null ? 0L : fileChannel.size();
 			this.pageSize = pageSize;
-			this.size = fileChannel.size();
+			this.size = memorySize + fileSize;
+
+			this.headerBuffer = ByteBuffer.allocate(HEADER_LENGTH);
+			this.headerBuffer.order(ByteOrder.LITTLE_ENDIAN);
 		}
 
 		/**
@@ -314,8 +473,9 @@ public class BufferSpiller {
 		public void open() {
 			if (!opened) {
 				opened = true;
-				buffer.position(0);
-				buffer.limit(0);
+				memoryReadPosition = 0L;
+				mappedRegion = null;
+				mappedRegionOffset = 0L;
 			}
 		}
 
@@ -327,29 +487,30 @@ public class BufferSpiller {
 		 * @throws IOException Thrown, if the reads failed, of if the byte stream is corrupt.
 		 */
 		public BufferOrEvent getNext() throws IOException {
-			if (buffer.remaining() < HEADER_LENGTH) {
-				buffer.compact();
-				
-				while (buffer.position() < HEADER_LENGTH) {
-					if (fileChannel.read(buffer) == -1) {
-						if (buffer.position() == 0) {
-							// no trailing data
-							return null;
-						} else {
-							throw new IOException("Found trailing incomplete buffer or event");
-						}
-					}
-				}
-				
-				buffer.flip();
+			final long remaining = size - getReadPosition();
+			if (remaining == 0) {
+				return null;
+			}
+			else if (remaining < HEADER_LENGTH) {
+				throw new IOException("Found trailing incomplete buffer or event");
+			}
+
+			// an element is either completely in memory or completely in the file
+			final boolean inMemory = memoryReadPosition < memorySize;
+
+			headerBuffer.clear();
+			read(headerBuffer, inMemory);
+			headerBuffer.flip();
+
+			final int channel = headerBuffer.getInt();
+			final int length = headerBuffer.getInt();
+			final byte type = headerBuffer.get();
+
+			if (length < 0 || length > size - getReadPosition()) {
+				throw new IOException("Found trailing incomplete " + (type == TYPE_BUFFER ? "buffer" : "event"));
 			}
 			
-			final int channel = buffer.getInt();
-			final int length = buffer.getInt();
-			final boolean isBuffer = buffer.get() == 0;
-			
-			
-			if (isBuffer) {
+			if (type == TYPE_BUFFER) {
 				// deserialize buffer
 				if (length > pageSize) {
 					throw new IOException(String.format(
@@ -357,30 +518,7 @@ public class BufferSpiller {
 				}
 
 				MemorySegment seg = MemorySegmentFactory.allocateUnpooledSegment(pageSize);
-				
-				int segPos = 0;
-				int bytesRemaining = length;
-				
-				while (true) {
-					int toCopy = Math.min(buffer.remaining(), bytesRemaining);
-					if (toCopy > 0) {
-						seg.put(segPos, buffer, toCopy);
-						segPos += toCopy;
-						bytesRemaining -= toCopy;
-					}
-					
-					if (bytesRemaining == 0) {
-						break;
-					}
-					else {
-						buffer.clear();
-						if (fileChannel.read(buffer) == -1) {
-							throw new IOException("Found trailing incomplete buffer");
-						}
-						buffer.flip();
-					}
-				}
-				
+				read(seg.wrap(0, length), inMemory);
 				
 				Buffer buf = new Buffer(seg, FreeingBufferRecycler.INSTANCE);
 				buf.setSize(length);
@@ -389,48 +527,119 @@ public class BufferSpiller {
 			}
 			else {
 				// deserialize event
-				if (length > buffer.capacity() - HEADER_LENGTH) {
-					throw new IOException("Event is too large");
-				}
-
-				if (buffer.remaining() < length) {
-					buffer.compact();
-
-					while (buffer.position() < length) {
-						if (fileChannel.read(buffer) == -1) {
-							throw new IOException("Found trailing incomplete event");
-						}
-					}
-
-					buffer.flip();
-				}
+				ByteBuffer serializedEvent = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+				read(serializedEvent, inMemory);
+				serializedEvent.flip();
 
-				int oldLimit = buffer.limit();
-				buffer.limit(buffer.position() + length);
-				AbstractEvent evt = EventSerializer.fromSerializedEvent(buffer, getClass().getClassLoader());
-				buffer.limit(oldLimit);
+				final int numOvertakenBuffers = type == TYPE_OVERTAKING_EVENT ? serializedEvent.getInt() : 0;
+				AbstractEvent evt = EventSerializer.fromSerializedEvent(serializedEvent, getClass().getClassLoader());
 				
-				return new BufferOrEvent(evt, channel);
+				return new BufferOrEvent(evt, channel, numOvertakenBuffers);
 			}
 		}
 
 		/**
-		 * Cleans up all file resources held by this spilled sequence.
+		 * Cleans up all file resources held by this spilled sequence, and gives back the memory
+		 * segments that were not read.
 		 * 
 		 * @throws IOException Thrown, if file channel closing or file deletion fail. 
 		 */
 		public void cleanup() throws IOException {
-			fileChannel.close();
-			if (!file.delete()) {
-				throw new IOException("Cannot remove temp file for stream alignment writer");
+			for (int i = 0; i < memory.size(); i++) {
+				releaseMemorySegment(i);
+			}
+
+			if (fileChannel != null) {
+				// unmap before deleting the file, no element read from the sequence references the mapping
+				unmapRegion();
+
+				fileChannel.close();
+				if (!file.delete()) {
+					throw new IOException("Cannot remove temp file for stream alignment writer");
+				}
 			}
 		}
 
 		/**
-		 * Gets the size of this spilled sequence.
+		 * Gets the size of this spilled sequence, in memory and in the file.
 		 */
 		public long size() throws IOException {
 			return size;
 		}
+
+		/**
+		 * Gets the number of bytes of this sequence that are held in memory.
+		 */
+		public long getMemorySize() {
+			return memorySize;
+		}
+
+		// --------------------------------------------------------------------
+
+		private long getReadPosition() {
+			return mappedRegion == null ?
+					memoryReadPosition :
+					memorySize + mappedRegionOffset + mappedRegion.position();
+		}
+
+		private void read(ByteBuffer target, boolean inMemory) throws IOException {
+			if (inMemory) {
+				readFromMemory(target);
+			}
+			else {
+				readFromFile(target);
+			}
+		}
+
+		private void readFromMemory(ByteBuffer target) {
+			while (target.hasRemaining()) {
+				final int segmentIndex = (int) (memoryReadPosition / memorySegmentSize);
+				final int positionInSegment = (int) (memoryReadPosition % memorySegmentSize);
+				final int toCopy = Math.min(target.remaining(), memorySegmentSize - positionInSegment);
+
+				memory.get(segmentIndex).get(positionInSegment, target, toCopy);
+				memoryReadPosition += toCopy;
+
+				if (positionInSegment + toCopy == memorySegmentSize || memoryReadPosition == memorySize) {
+					// the segment is read, the spiller can use it for the next sequence
+					releaseMemorySegment(segmentIndex);
+				}
+			}
+		}
+
+		private void readFromFile(ByteBuffer target) throws IOException {
+			final int length = target.remaining();
+
+			if (mappedRegion == null || mappedRegion.remaining() < length) {
+				// map the next region, starting at the current position, so that no read crosses two regions
+				final long position = mappedRegion == null ? 0L : mappedRegionOffset + mappedRegion.position();
+				unmapRegion();
+
+				mappedRegion = fileChannel.map(
+						FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPED_REGION_SIZE, fileSize - position));
+				mappedRegion.order(ByteOrder.LITTLE_ENDIAN);
+				mappedRegionOffset = position;
+			}
+
+			final int oldLimit = mappedRegion.limit();
+			mappedRegion.limit(mappedRegion.position() + length);
+			target.put(mappedRegion);
+			mappedRegion.limit(oldLimit);
+		}
+
+		private void unmapRegion() {
+			if (mappedRegion != null) {
+				MemoryMappedFile.unmap(mappedRegion);
+				mappedRegion = null;
+			}
+		}
+
+		private void releaseMemorySegment(int index) {
+			final MemorySegment segment = memory.get(index);
+			if (segment != null) {
+				memory.set(index, null);
+				memoryTarget.add(segment);
+			}
+		}
 	}
 }
@@ -19,6 +19,8 @@
 package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.annotation.Internal;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 
@@ -48,6 +50,19 @@ public interface CheckpointBarrierHandler {
 	 */
 	BufferOrEvent getNextNonBlocked() throws Exception;
 
+	/**
+	 * Returns the next {@link BufferOrEvent} that the operator may consume, if one is available.
+	 * Unlike {@link #getNextNonBlocked()}, this call never blocks on the input.
+	 *
+	 * @return The next BufferOrEvent, or {@code null}, if none is currently available or the
+	 *         stream is finished, see {@link #isFinished()}.
+	 *
+	 * @throws Exception Thrown in case that the network or local disk I/O fails, or that a
+	 *                   checkpoint fails that is started as the result of receiving the last
+	 *                   checkpoint barrier
+	 */
+	BufferOrEvent pollNext() throws Exception;
+
 	/**
 	 * Registers the task be notified once all checkpoint barriers have been received for a checkpoint.
 	 * 
@@ -55,6 +70,19 @@ public interface CheckpointBarrierHandler {
 	 */
 	void registerCheckpointEventHandler(StatefulTask task);
 
+	/**
+	 * Starts recording the in-flight input data of the unaligned checkpoint that is currently
+	 * being triggered. The task calls this method while it takes the snapshot that the
+	 * handler requested, i.e., from within the call that notified the task of the checkpoint.
+	 * 
+	 * <p>The handler adds the buffers that precede the barriers of the checkpoint to the writer
+	 * and finishes the writer's input once the barriers of all channels were received, or aborts
+	 * it if the checkpoint cannot complete.
+	 * 
+	 * @param channelStateWriter The writer for the in-flight data of the checkpoint
+	 */
+	void startChannelStateSnapshot(ChannelStateWriter channelStateWriter);
+
 	/**
 	 * Cleans up all internally held resources.
 	 * 
@@ -68,6 +96,13 @@ public interface CheckpointBarrierHandler {
 	 */
 	boolean isEmpty();
 
+	/**
+	 * Checks if the stream is finished, i.e., all input and all internally buffered data
+	 * has been consumed.
+	 * @return {@code True}, if the stream is finished, {@code false} otherwise.
+	 */
+	boolean isFinished();
+
 	/**
 	 * Gets the time that the latest alignment took, in nanoseconds.
 	 * If there is currently an alignment in progress, it will return the time spent in the
@@ -76,4 +111,12 @@ public interface CheckpointBarrierHandler {
 	 * @return The duration in nanoseconds
 	 */
 	long getAlignmentDurationNanos();
+
+	/**
+	 * Registers the metrics of the individual input channels, for example how much data the
+	 * alignments buffered for a channel, in the given metric group.
+	 * 
+	 * @param metrics The metric group of the task's I/O.
+	 */
+	void registerChannelMetrics(MetricGroup metrics);
 }
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.io;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.runtime.util.ExecutorThreadFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+import static org.apache.flink.util.Preconditions.checkState;
+
+/**
+ * Schedules the periodic output flushes of all {@link StreamRecordWriter}s of this JVM, i.e. of
+ * all streaming tasks of a TaskManager, on a small pool of shared daemon threads. This replaces a
+ * dedicated flusher thread per record writer.
+ *
+ * <p>The threads are started when the first flush task is scheduled and stopped after the last
+ * flush task has been cancelled.
+ */
+@Internal
+final class OutputFlushScheduler {
+
+	/** The number of threads flushing the outputs of all record writers. */
+	private static final int NUM_FLUSH_THREADS =
+			Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 4));
+
+	private static final String FLUSH_THREAD_POOL_NAME = "OutputFlusher";
+
+	private static final Object lock = new Object();
+
+	/** The shared executor, only set while flush tasks are scheduled. Guarded by the lock. */
+	private static ScheduledThreadPoolExecutor executor;
+
+	/** The number of currently scheduled flush tasks. Guarded by the lock. */
+	private static int numScheduledTasks;
+
+	/**
+	 * Schedules the given flush task with the given fixed delay between the end of one execution
+	 * and the start of the next.
+	 *
+	 * @param flushTask The task to execute periodically.
+	 * @param delayMillis The delay between two executions in milliseconds.
+	 * @return The future of the scheduled task, which needs to be passed to {@link #cancel(ScheduledFuture)}.
+	 */
+	static ScheduledFuture<?> schedule(Runnable flushTask, long delayMillis) {
+		checkNotNull(flushTask);
+		checkArgument(delayMillis > 0, "The flush delay must be positive.");
+
+		synchronized (lock) {
+			if (executor == null) {
+				executor = new ScheduledThreadPoolExecutor(
+						NUM_FLUSH_THREADS, new ExecutorThreadFactory(FLUSH_THREAD_POOL_NAME));
+				executor.setRemoveOnCancelPolicy(true);
+			}
+
+			ScheduledFuture<?> future = executor.scheduleWithFixedDelay(
+					flushTask, delayMillis, delayMillis, TimeUnit.MILLISECONDS);
+
+			numScheduledTasks++;
+			return future;
+		}
+	}
+
+	/**
+	 * Cancels a flush task, which has been scheduled with {@link #schedule(Runnable, long)}.
+	 * A concurrently running execution of the task is not interrupted.
+	 */
+	static void cancel(ScheduledFuture<?> future) {
+		synchronized (lock) {
+			checkState(numScheduledTasks > 0, "No flush task is scheduled.");
+
+			future.cancel(false);
+
+			if (--numScheduledTasks == 0) {
+				executor.shutdown();
+				executor = null;
+			}
+		}
+	}
+
+	@VisibleForTesting
+	static int getNumberOfScheduledTasks() {
+		synchronized (lock) {
+			return numScheduledTasks;
+		}
+	}
+
+	/** Not intended to be instantiated */
+	private OutputFlushScheduler() {}
+}
@@ -21,6 +21,7 @@ import java.io.IOException;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.network.api.writer.RecordWriter;
 import org.apache.flink.runtime.plugable.SerializationDelegate;
@@ -121,6 +122,17 @@ public class RecordWriterOutput<OUT> implements Output<StreamRecord<OUT>> {
 	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
 		recordWriter.broadcastEvent(event);
 	}
+
+	/**
+	 * Broadcasts the event ahead of the data that is still queued in the subpartitions, and adds
+	 * the overtaken data to the channel state of the checkpoint.
+	 */
+	public void broadcastOvertakingEvent(
+			AbstractEvent event,
+			int partitionIndex,
+			ChannelStateWriter channelStateWriter) throws IOException, InterruptedException {
+		recordWriter.broadcastOvertakingEvent(event, partitionIndex, channelStateWriter);
+	}
 	
 	
 	public void flush() throws IOException {
@@ -19,6 +19,8 @@
 package org.apache.flink.streaming.runtime.io;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
@@ -26,19 +28,25 @@ import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.metrics.Counter;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateEntry;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 import org.apache.flink.runtime.metrics.groups.OperatorMetricGroup;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
 import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGateListener;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
 import org.apache.flink.streaming.api.CheckpointingMode;
@@ -64,7 +72,8 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * <p>
  * Forwarding elements, watermarks, or status status elements must be protected by synchronizing on the given lock
  * object. This ensures that we don't call methods on a {@link OneInputStreamOperator} concurrently
- * with the timer callback or other things.
+ * with the timer callback or other things. Tasks in the mailbox execution model instead call {@link #pollInput()}
+ * while they hold the lock, so that the elements are forwarded without synchronizing on the lock for each element.
  * 
  * @param <IN> The type of the record that can be read with this record reader.
  */
@@ -79,8 +88,16 @@ public class StreamInputProcessor<IN> {
 
 	private final CheckpointBarrierHandler barrierHandler;
 
+	/** The in-flight input data of a restored unaligned checkpoint that has not been consumed yet */
+	private final ArrayDeque<ChannelStateEntry> recoveredInput = new ArrayDeque<>();
+
+	private final InputGate inputGate;
+
 	private final Object lock;
 
+	/** Whether the elements are forwarded under the lock, false while the caller of {@link #pollInput()} holds it. */
+	private boolean forwardUnderLock = true;
+
 	// ---------------- Status and Watermark Valve ------------------
 
 	/** Valve that controls how watermarks and stream statuses are forwarded. */
@@ -114,11 +131,12 @@ public class StreamInputProcessor<IN> {
 			CheckpointingMode checkpointMode,
 			Object lock,
 			IOManager ioManager,
+			MemoryManager memoryManager,
 			Configuration taskManagerConfig,
 			StreamStatusMaintainer streamStatusMaintainer,
 			OneInputStreamOperator<IN, ?> streamOperator) throws IOException {
 
-		InputGate inputGate = InputGateUtil.createInputGate(inputGates);
+		this.inputGate = InputGateUtil.createInputGate(inputGates);
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
 			long maxAlign = taskManagerConfig.getLong(TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_BYTES_LIMIT);
@@ -127,7 +145,13 @@ public class StreamInputProcessor<IN> {
 						TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_BYTES_LIMIT.key()
 						+ " must be positive or -1 (infinite)");
 			}
-			this.barrierHandler = new BarrierBuffer(inputGate, ioManager, maxAlign);
+			long alignMemory = taskManagerConfig.getLong(TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_MEMORY);
+			if (alignMemory < 0) {
+				throw new IllegalConfigurationException(
+						TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_MEMORY.key()
+						+ " must not be negative");
+			}
+			this.barrierHandler = new BarrierBuffer(inputGate, ioManager, maxAlign, memoryManager, alignMemory);
 		}
 		else if (checkpointMode == CheckpointingMode.AT_LEAST_ONCE) {
 			this.barrierHandler = new BarrierTracker(inputGate);
@@ -165,9 +189,41 @@ public class StreamInputProcessor<IN> {
 				new ForwardingValveOutputHandler(streamOperator, lock));
 	}
 
+	/**
+	 * Processes the next element of the input, blocking until one is available.
+	 *
+	 * @return False, if all input has been consumed, true otherwise.
+	 */
 	public boolean processInput() throws Exception {
+		forwardUnderLock = true;
+		return processInput(true) != InputStatus.END_OF_INPUT;
+	}
+
+	/**
+	 * Processes the next element of the input, if one is available. The caller must hold the lock,
+	 * the elements are forwarded to the operator without synchronizing on it again.
+	 *
+	 * <p>If no input is available, the listener registered via {@link #registerInputListener(InputGateListener)}
+	 * is notified once there is.
+	 *
+	 * @return The status of the input after this call.
+	 */
+	public InputStatus pollInput() throws Exception {
+		forwardUnderLock = false;
+		return processInput(false);
+	}
+
+	/**
+	 * Registers a listener that is notified when input becomes available after {@link #pollInput()}
+	 * found none.
+	 */
+	public void registerInputListener(InputGateListener listener) {
+		inputGate.registerListener(listener);
+	}
+
+	private InputStatus processInput(boolean blocking) throws Exception {
 		if (isFinished) {
-			return false;
+			return InputStatus.END_OF_INPUT;
 		}
 		if (numRecordsIn == null) {
 			numRecordsIn = ((OperatorMetricGroup) streamOperator.getMetricGroup()).getIOMetricGroup().getNumRecordsInCounter();
@@ -195,24 +251,40 @@ public class StreamInputProcessor<IN> {
 						continue;
 					} else if (recordOrMark.isLatencyMarker()) {
 						// handle latency marker
-						synchronized (lock) {
+						if (forwardUnderLock) {
+							synchronized (lock) {
+								streamOperator.processLatencyMarker(recordOrMark.asLatencyMarker());
+							}
+						} else {
 							streamOperator.processLatencyMarker(recordOrMark.asLatencyMarker());
 						}
 						continue;
 					} else {
 						// now we can do the actual processing
 						StreamRecord<IN> record = recordOrMark.asRecord();
-						synchronized (lock) {
-							numRecordsIn.inc();
-							streamOperator.setKeyContextElement1(record);
-							streamOperator.processElement(record);
+						if (forwardUnderLock) {
+							synchronized (lock) {
+								processRecord(record);
+							}
+						} else {
+							processRecord(record);
 						}
-						return true;
+						return InputStatus.MORE_AVAILABLE;
 					}
 				}
 			}
 
-			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
+			if (!recoveredInput.isEmpty()) {
+				// the restored in-flight data precedes all data of the input gates
+				ChannelStateEntry entry = recoveredInput.poll();
+				currentChannel = entry.getChannelIndex();
+				currentRecordDeserializer = recordDeserializers[currentChannel];
+				currentRecordDeserializer.setNextBuffer(
+						new Buffer(MemorySegmentFactory.wrap(entry.getData()), FreeingBufferRecycler.INSTANCE));
+				continue;
+			}
+
+			final BufferOrEvent bufferOrEvent = blocking ? barrierHandler.getNextNonBlocked() : barrierHandler.pollNext();
 			if (bufferOrEvent != null) {
 				if (bufferOrEvent.isBuffer()) {
 					currentChannel = bufferOrEvent.getChannelIndex();
@@ -227,16 +299,58 @@ public class StreamInputProcessor<IN> {
 					}
 				}
 			}
+			else if (!blocking && !barrierHandler.isFinished()) {
+				return InputStatus.NOTHING_AVAILABLE;
+			}
 			else {
 				isFinished = true;
 				if (!barrierHandler.isEmpty()) {
 					throw new IllegalStateException("Trailing data in checkpoint barrier handler.");
 				}
-				return false;
+				return InputStatus.END_OF_INPUT;
 			}
 		}
 	}
 
+	/**
+	 * Sets the in-flight input data of the unaligned checkpoint that the task is restored from.
+	 * The data is consumed before any data of the input gates.
+	 */
+	public void setRecoveredInputState(List<ChannelStateEntry> entries) {
+		for (ChannelStateEntry entry : entries) {
+			if (entry.getChannelIndex() >= recordDeserializers.length) {
+				throw new IllegalStateException("Cannot restore the in-flight input " + entry +
+						" because the task has only " + recordDeserializers.length + " input channels.");
+			}
+			recoveredInput.add(entry);
+		}
+	}
+
+	/**
+	 * Adds the input that was received but not yet turned into records to the in-flight data of
+	 * an unaligned checkpoint, and lets the barrier handler record the remaining in-flight data.
+	 * This is called while the checkpoint is triggered by the barrier handler, i.e., in between
+	 * two buffers, so the deserializers hold at most the beginning of a record.
+	 */
+	public void prepareInputSnapshot(ChannelStateWriter channelStateWriter) throws IOException {
+		for (int i = 0; i < recordDeserializers.length; i++) {
+			channelStateWriter.addInputData(i, recordDeserializers[i].getUnconsumedBytes());
+		}
+
+		// restored in-flight data that was not replayed yet is still in flight
+		for (ChannelStateEntry entry : recoveredInput) {
+			channelStateWriter.addInputData(entry.getChannelIndex(), entry.getData());
+		}
+
+		barrierHandler.startChannelStateSnapshot(channelStateWriter);
+	}
+
+	private void processRecord(StreamRecord<IN> record) throws Exception {
+		numRecordsIn.inc();
+		streamOperator.setKeyContextElement1(record);
+		streamOperator.processElement(record);
+	}
+
 	/**
 	 * Sets the metric group for this StreamInputProcessor.
 	 * 
@@ -256,6 +370,8 @@ public class StreamInputProcessor<IN> {
 				return barrierHandler.getAlignmentDurationNanos();
 			}
 		});
+
+		barrierHandler.registerChannelMetrics(metrics);
 	}
 	
 	public void cleanup() throws IOException {
@@ -283,7 +399,12 @@ public class StreamInputProcessor<IN> {
 		@Override
 		public void handleWatermark(Watermark watermark) {
 			try {
-				synchronized (lock) {
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						lastEmittedWatermark = watermark.getTimestamp();
+						operator.processWatermark(watermark);
+					}
+				} else {
 					lastEmittedWatermark = watermark.getTimestamp();
 					operator.processWatermark(watermark);
 				}
@@ -296,7 +417,11 @@ public class StreamInputProcessor<IN> {
 		@Override
 		public void handleStreamStatus(StreamStatus streamStatus) {
 			try {
-				synchronized (lock) {
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						streamStatusMaintainer.toggleStreamStatus(streamStatus);
+					}
+				} else {
 					streamStatusMaintainer.toggleStreamStatus(streamStatus);
 				}
 			} catch (Exception e) {
@@ -18,6 +18,8 @@
 package org.apache.flink.streaming.runtime.io;
 
 import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.core.io.IOReadableWritable;
@@ -28,35 +30,41 @@ import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import static org.apache.flink.util.Preconditions.checkArgument;
 
 /**
- * This record writer keeps data in buffers at most for a certain timeout. It spawns a separate thread
- * that flushes the outputs in a defined interval, to make sure data does not linger in the buffers for too long.
+ * This record writer keeps data in buffers at most for a certain timeout. The outputs are flushed
+ * periodically by the {@link OutputFlushScheduler}, which is shared by all record writers of the
+ * TaskManager, to make sure data does not linger in the buffers for too long. Periodic flushes only
+ * flush the channels that records have been written to since their last flush. They never block:
+ * channels that are in use by the emitting thread (for example while it waits for a buffer) are
+ * skipped and flushed by a later period.
+ *
+ * <p>In adaptive mode, the writer checks several times per timeout whether its consumers are idle,
+ * i.e. whether all previously flushed buffers have been consumed. In that case, the output is
+ * flushed before the timeout expires, which lowers the latency at low load. At high load, buffers
+ * are queued for the consumers and the output is only flushed after the timeout, as usual.
  * 
  * @param <T> The type of elements written.
  */
 @Internal
 public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWriter<T> {
 
-	/** Default name for teh output flush thread, if no name with a task reference is given */
-	private static final String DEFAULT_OUTPUT_FLUSH_THREAD_NAME = "OutputFlusher";
-	
-	
-	/** The thread that periodically flushes the output, to give an upper latency bound */
-	private final OutputFlusher outputFlusher;
-	
+	/** The number of checks for idle consumers per timeout in adaptive mode */
+	private static final int ADAPTIVE_CHECKS_PER_TIMEOUT = 10;
+
+	/** The scheduled periodic flush of the output, or null if not flushed periodically */
+	private final ScheduledFuture<?> scheduledFlush;
+
 	/** Flag indicating whether the output should be flushed after every element */
 	private final boolean flushAlways;
 
-	/** The exception encountered in the flushing thread */
-	private Throwable flusherException;
-	
-	
-	
+	/** The exception encountered in the periodic flush */
+	private volatile Throwable flusherException;
+
 	public StreamRecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector, long timeout) {
-		this(writer, channelSelector, timeout, null);
+		this(writer, channelSelector, timeout, false);
 	}
-	
+
 	public StreamRecordWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector,
-								long timeout, String taskName) {
+								long timeout, boolean adaptiveFlush) {
 		
 		super(writer, channelSelector);
 		
@@ -64,19 +72,21 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 		
 		if (timeout == -1) {
 			flushAlways = false;
-			outputFlusher = null;
+			scheduledFlush = null;
 		}
 		else if (timeout == 0) {
 			flushAlways = true;
-			outputFlusher = null;
+			scheduledFlush = null;
 		}
 		else {
 			flushAlways = false;
-			String threadName = taskName == null ?
-								DEFAULT_OUTPUT_FLUSH_THREAD_NAME : "Output Timeout Flusher - " + taskName;
-			
-			outputFlusher = new OutputFlusher(threadName, timeout);
-			outputFlusher.start();
+
+			if (adaptiveFlush) {
+				long checkInterval = Math.max(1L, timeout / ADAPTIVE_CHECKS_PER_TIMEOUT);
+				scheduledFlush = OutputFlushScheduler.schedule(new AdaptiveFlushTask(timeout), checkInterval);
+			} else {
+				scheduledFlush = OutputFlushScheduler.schedule(new PeriodicFlushTask(), timeout);
+			}
 		}
 	}
 	
@@ -108,23 +118,16 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 	}
 
 	/**
-	 * Closes the writer. This stops the flushing thread (if there is one).
+	 * Closes the writer. This cancels the periodic flush (if there is one).
 	 */
 	public void close() {
-		// make sure we terminate the thread in any case
-		if (outputFlusher != null) {
-			outputFlusher.terminate();
-			try {
-				outputFlusher.join();
-			}
-			catch (InterruptedException e) {
-				// ignore on close
-			}
+		if (scheduledFlush != null && !scheduledFlush.isCancelled()) {
+			OutputFlushScheduler.cancel(scheduledFlush);
 		}
 	}
 
 	/**
-	 * Notifies the writer that the output flusher thread encountered an exception.
+	 * Notifies the writer that the periodic flush encountered an exception.
 	 * 
 	 * @param t The exception to report.
 	 */
@@ -143,51 +146,53 @@ public class StreamRecordWriter<T extends IOReadableWritable> extends RecordWrit
 	// ------------------------------------------------------------------------
 	
 	/**
-	 * A dedicated thread that periodically flushes the output buffers, to set upper latency bounds.
-	 * 
-	 * The thread is daemonic, because it is only a utility thread.
+	 * Flushes the channels that records have been written to since their last flush after each
+	 * timeout, without blocking. Any error stops the periodic flushes and is recognized by the writer.
 	 */
-	private class OutputFlusher extends Thread {
-		
-		private final long timeout;
-		
-		private volatile boolean running = true;
-
-		
-		OutputFlusher(String name, long timeout) {
-			super(name);
-			setDaemon(true);
-			this.timeout = timeout;
-		}
-		
-		public void terminate() {
-			running = false;
-			interrupt();
-		}
+	private class PeriodicFlushTask implements Runnable {
 
 		@Override
 		public void run() {
+			if (flusherException != null || !hasUnflushedData()) {
+				return;
+			}
+
 			try {
-				while (running) {
-					try {
-						Thread.sleep(timeout);
-					}
-					catch (InterruptedException e) {
-						// propagate this if we are still running, because it should not happen
-						// in that case
-						if (running) {
-							throw new Exception(e);
-						}
-					}
-					
-					// any errors here should let the thread come to a halt and be
-					// recognized by the writer 
-					flush();
-				}
+				tryFlush();
 			}
 			catch (Throwable t) {
 				notifyFlusherException(t);
 			}
 		}
 	}
+
+	/**
+	 * Flushes the output after the timeout or as soon as the consumers are idle, if records have
+	 * been written since the last flush.
+	 */
+	private class AdaptiveFlushTask extends PeriodicFlushTask {
+
+		private final long timeoutNanos;
+
+		/** The time of the last flush, only accessed by the flushing threads */
+		private long lastFlushNanos = System.nanoTime();
+
+		AdaptiveFlushTask(long timeoutMillis) {
+			this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		}
+
+		@Override
+		public void run() {
+			if (flusherException != null || !hasUnflushedData()) {
+				return;
+			}
+
+			final long now = System.nanoTime();
+
+			if (now - lastFlushNanos >= timeoutNanos || targetPartition.getNumberOfQueuedBuffers() == 0) {
+				lastFlushNanos = now;
+				super.run();
+			}
+		}
+	}
 }
@@ -23,18 +23,24 @@ import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.IllegalConfigurationException;
 import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.metrics.Gauge;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateEntry;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 import org.apache.flink.runtime.metrics.groups.TaskIOMetricGroup;
 import org.apache.flink.runtime.event.AbstractEvent;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
+import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.io.network.api.EndOfPartitionEvent;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer;
 import org.apache.flink.runtime.io.network.api.serialization.RecordDeserializer.DeserializationResult;
 import org.apache.flink.runtime.io.network.api.serialization.SpillingAdaptiveSpanningRecordDeserializer;
 import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGateListener;
 import org.apache.flink.runtime.plugable.DeserializationDelegate;
 import org.apache.flink.runtime.plugable.NonReusingDeserializationDelegate;
 import org.apache.flink.streaming.api.CheckpointingMode;
@@ -48,7 +54,9 @@ import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -63,7 +71,8 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * <p>
  * Forwarding elements, watermarks, or status status elements must be protected by synchronizing on the given lock
  * object. This ensures that we don't call methods on a {@link TwoInputStreamOperator} concurrently
- * with the timer callback or other things.
+ * with the timer callback or other things. Tasks in the mailbox execution model instead call {@link #pollInput()}
+ * while they hold the lock, so that the elements are forwarded without synchronizing on the lock for each element.
  *
  * @param <IN1> The type of the records that arrive on the first input
  * @param <IN2> The type of the records that arrive on the second input
@@ -80,8 +89,16 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 	private final CheckpointBarrierHandler barrierHandler;
 
+	/** The in-flight input data of a restored unaligned checkpoint that has not been consumed yet */
+	private final ArrayDeque<ChannelStateEntry> recoveredInput = new ArrayDeque<>();
+
+	private final InputGate inputGate;
+
 	private final Object lock;
 
+	/** Whether the elements are forwarded under the lock, false while the caller of {@link #pollInput()} holds it. */
+	private boolean forwardUnderLock = true;
+
 	// ---------------- Status and Watermark Valves ------------------
 
 	/**
@@ -128,11 +145,12 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 			CheckpointingMode checkpointMode,
 			Object lock,
 			IOManager ioManager,
+			MemoryManager memoryManager,
 			Configuration taskManagerConfig,
 			StreamStatusMaintainer streamStatusMaintainer,
 			TwoInputStreamOperator<IN1, IN2, ?> streamOperator) throws IOException {
 
-		final InputGate inputGate = InputGateUtil.createInputGate(inputGates1, inputGates2);
+		this.inputGate = InputGateUtil.createInputGate(inputGates1, inputGates2);
 
 		if (checkpointMode == CheckpointingMode.EXACTLY_ONCE) {
 			long maxAlign = taskManagerConfig.getLong(TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_BYTES_LIMIT);
@@ -141,7 +159,13 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 						TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_BYTES_LIMIT.key()
 								+ " must be positive or -1 (infinite)");
 			}
-			this.barrierHandler = new BarrierBuffer(inputGate, ioManager, maxAlign);
+			long alignMemory = taskManagerConfig.getLong(TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_MEMORY);
+			if (alignMemory < 0) {
+				throw new IllegalConfigurationException(
+						TaskManagerOptions.TASK_CHECKPOINT_ALIGNMENT_MEMORY.key()
+								+ " must not be negative");
+			}
+			this.barrierHandler = new BarrierBuffer(inputGate, ioManager, maxAlign, memoryManager, alignMemory);
 		}
 		else if (checkpointMode == CheckpointingMode.AT_LEAST_ONCE) {
 			this.barrierHandler = new BarrierTracker(inputGate);
@@ -193,9 +217,41 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 
 	}
 
+	/**
+	 * Processes the next element of the inputs, blocking until one is available.
+	 *
+	 * @return False, if all input has been consumed, true otherwise.
+	 */
 	public boolean processInput() throws Exception {
+		forwardUnderLock = true;
+		return processInput(true) != InputStatus.END_OF_INPUT;
+	}
+
+	/**
+	 * Processes the next element of the inputs, if one is available. The caller must hold the lock,
+	 * the elements are forwarded to the operator without synchronizing on it again.
+	 *
+	 * <p>If no input is available, the listener registered via {@link #registerInputListener(InputGateListener)}
+	 * is notified once there is.
+	 *
+	 * @return The status of the inputs after this call.
+	 */
+	public InputStatus pollInput() throws Exception {
+		forwardUnderLock = false;
+		return processInput(false);
+	}
+
+	/**
+	 * Registers a listener that is notified when input becomes available after {@link #pollInput()}
+	 * found none.
+	 */
+	public void registerInputListener(InputGateListener listener) {
+		inputGate.registerListener(listener);
+	}
+
+	private InputStatus processInput(boolean blocking) throws Exception {
 		if (isFinished) {
-			return false;
+			return InputStatus.END_OF_INPUT;
 		}
 
 		while (true) {
@@ -224,18 +280,25 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 							continue;
 						}
 						else if (recordOrWatermark.isLatencyMarker()) {
-							synchronized (lock) {
+							if (forwardUnderLock) {
+								synchronized (lock) {
+									streamOperator.processLatencyMarker1(recordOrWatermark.asLatencyMarker());
+								}
+							} else {
 								streamOperator.processLatencyMarker1(recordOrWatermark.asLatencyMarker());
 							}
 							continue;
 						}
 						else {
 							StreamRecord<IN1> record = recordOrWatermark.asRecord();
-							synchronized (lock) {
-								streamOperator.setKeyContextElement1(record);
-								streamOperator.processElement1(record);
+							if (forwardUnderLock) {
+								synchronized (lock) {
+									processRecord1(record);
+								}
+							} else {
+								processRecord1(record);
 							}
-							return true;
+							return InputStatus.MORE_AVAILABLE;
 
 						}
 					}
@@ -250,24 +313,41 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 							continue;
 						}
 						else if (recordOrWatermark.isLatencyMarker()) {
-							synchronized (lock) {
+							if (forwardUnderLock) {
+								synchronized (lock) {
+									streamOperator.processLatencyMarker2(recordOrWatermark.asLatencyMarker());
+								}
+							} else {
 								streamOperator.processLatencyMarker2(recordOrWatermark.asLatencyMarker());
 							}
 							continue;
 						}
 						else {
 							StreamRecord<IN2> record = recordOrWatermark.asRecord();
-							synchronized (lock) {
-								streamOperator.setKeyContextElement2(record);
-								streamOperator.processElement2(record);
+							if (forwardUnderLock) {
+								synchronized (lock) {
+									processRecord2(record);
+								}
+							} else {
+								processRecord2(record);
 							}
-							return true;
+							return InputStatus.MORE_AVAILABLE;
 						}
 					}
 				}
 			}
 
-			final BufferOrEvent bufferOrEvent = barrierHandler.getNextNonBlocked();
+			if (!recoveredInput.isEmpty()) {
+				// the restored in-flight data precedes all data of the input gates
+				ChannelStateEntry entry = recoveredInput.poll();
+				currentChannel = entry.getChannelIndex();
+				currentRecordDeserializer = recordDeserializers[currentChannel];
+				currentRecordDeserializer.setNextBuffer(
+						new Buffer(MemorySegmentFactory.wrap(entry.getData()), FreeingBufferRecycler.INSTANCE));
+				continue;
+			}
+
+			final BufferOrEvent bufferOrEvent = blocking ? barrierHandler.getNextNonBlocked() : barrierHandler.pollNext();
 			if (bufferOrEvent != null) {
 
 				if (bufferOrEvent.isBuffer()) {
@@ -283,16 +363,62 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 					}
 				}
 			}
+			else if (!blocking && !barrierHandler.isFinished()) {
+				return InputStatus.NOTHING_AVAILABLE;
+			}
 			else {
 				isFinished = true;
 				if (!barrierHandler.isEmpty()) {
 					throw new IllegalStateException("Trailing data in checkpoint barrier handler.");
 				}
-				return false;
+				return InputStatus.END_OF_INPUT;
+			}
+		}
+	}
+
+	/**
+	 * Sets the in-flight input data of the unaligned checkpoint that the task is restored from.
+	 * The data is consumed before any data of the input gates.
+	 */
+	public void setRecoveredInputState(List<ChannelStateEntry> entries) {
+		for (ChannelStateEntry entry : entries) {
+			if (entry.getChannelIndex() >= recordDeserializers.length) {
+				throw new IllegalStateException("Cannot restore the in-flight input " + entry +
+						" because the task has only " + recordDeserializers.length + " input channels.");
 			}
+			recoveredInput.add(entry);
 		}
 	}
 
+	/**
+	 * Adds the input that was received but not yet turned into records to the in-flight data of
+	 * an unaligned checkpoint, and lets the barrier handler record the remaining in-flight data.
+	 * This is called while the checkpoint is triggered by the barrier handler, i.e., in between
+	 * two buffers, so the deserializers hold at most the beginning of a record.
+	 */
+	public void prepareInputSnapshot(ChannelStateWriter channelStateWriter) throws IOException {
+		for (int i = 0; i < recordDeserializers.length; i++) {
+			channelStateWriter.addInputData(i, recordDeserializers[i].getUnconsumedBytes());
+		}
+
+		// restored in-flight data that was not replayed yet is still in flight
+		for (ChannelStateEntry entry : recoveredInput) {
+			channelStateWriter.addInputData(entry.getChannelIndex(), entry.getData());
+		}
+
+		barrierHandler.startChannelStateSnapshot(channelStateWriter);
+	}
+
+	private void processRecord1(StreamRecord<IN1> record) throws Exception {
+		streamOperator.setKeyContextElement1(record);
+		streamOperator.processElement1(record);
+	}
+
+	private void processRecord2(StreamRecord<IN2> record) throws Exception {
+		streamOperator.setKeyContextElement2(record);
+		streamOperator.processElement2(record);
+	}
+
 	/**
 	 * Sets the metric group for this StreamTwoInputProcessor.
 	 *
@@ -312,6 +438,8 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 				return barrierHandler.getAlignmentDurationNanos();
 			}
 		});
+
+		barrierHandler.registerChannelMetrics(metrics);
 	}
 	
 	public void cleanup() throws IOException {
@@ -339,9 +467,12 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		@Override
 		public void handleWatermark(Watermark watermark) {
 			try {
-				synchronized (lock) {
-					lastEmittedWatermark1 = watermark.getTimestamp();
-					operator.processWatermark1(watermark);
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						forwardWatermark(watermark);
+					}
+				} else {
+					forwardWatermark(watermark);
 				}
 			} catch (Exception e) {
 				throw new RuntimeException("Exception occurred while processing valve output watermark: ", e);
@@ -351,24 +482,37 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		@Override
 		public void handleStreamStatus(StreamStatus streamStatus) {
 			try {
-				synchronized (lock) {
-					firstStatus = streamStatus;
-
-					// check if we need to toggle the task's stream status
-					if (!streamStatus.equals(streamStatusMaintainer.getStreamStatus())) {
-						if (streamStatus.isActive()) {
-							// we're no longer idle if at least one input has become active
-							streamStatusMaintainer.toggleStreamStatus(StreamStatus.ACTIVE);
-						} else if (secondStatus.isIdle()) {
-							// we're idle once both inputs are idle
-							streamStatusMaintainer.toggleStreamStatus(StreamStatus.IDLE);
-						}
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						forwardStreamStatus(streamStatus);
 					}
+				} else {
+					forwardStreamStatus(streamStatus);
 				}
 			} catch (Exception e) {
 				throw new RuntimeException("Exception occurred while processing valve output stream status: ", e);
 			}
 		}
+
+		private void forwardWatermark(Watermark watermark) throws Exception {
+			lastEmittedWatermark1 = watermark.getTimestamp();
+			operator.processWatermark1(watermark);
+		}
+
+		private void forwardStreamStatus(StreamStatus streamStatus) {
+			firstStatus = streamStatus;
+
+			// check if we need to toggle the task's stream status
+			if (!streamStatus.equals(streamStatusMaintainer.getStreamStatus())) {
+				if (streamStatus.isActive()) {
+					// we're no longer idle if at least one input has become active
+					streamStatusMaintainer.toggleStreamStatus(StreamStatus.ACTIVE);
+				} else if (secondStatus.isIdle()) {
+					// we're idle once both inputs are idle
+					streamStatusMaintainer.toggleStreamStatus(StreamStatus.IDLE);
+				}
+			}
+		}
 	}
 
 	private class ForwardingValveOutputHandler2 implements StatusWatermarkValve.ValveOutputHandler {
@@ -383,9 +527,12 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		@Override
 		public void handleWatermark(Watermark watermark) {
 			try {
-				synchronized (lock) {
-					lastEmittedWatermark2 = watermark.getTimestamp();
-					operator.processWatermark2(watermark);
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						forwardWatermark(watermark);
+					}
+				} else {
+					forwardWatermark(watermark);
 				}
 			} catch (Exception e) {
 				throw new RuntimeException("Exception occurred while processing valve output watermark: ", e);
@@ -395,23 +542,36 @@ public class StreamTwoInputProcessor<IN1, IN2> {
 		@Override
 		public void handleStreamStatus(StreamStatus streamStatus) {
 			try {
-				synchronized (lock) {
-					secondStatus = streamStatus;
-
-					// check if we need to toggle the task's stream status
-					if (!streamStatus.equals(streamStatusMaintainer.getStreamStatus())) {
-						if (streamStatus.isActive()) {
-							// we're no longer idle if at least one input has become active
-							streamStatusMaintainer.toggleStreamStatus(StreamStatus.ACTIVE);
-						} else if (firstStatus.isIdle()) {
-							// we're idle once both inputs are idle
-							streamStatusMaintainer.toggleStreamStatus(StreamStatus.IDLE);
-						}
+				if (forwardUnderLock) {
+					synchronized (lock) {
+						forwardStreamStatus(streamStatus);
 					}
+				} else {
+					forwardStreamStatus(streamStatus);
 				}
 			} catch (Exception e) {
 				throw new RuntimeException("Exception occurred while processing valve output stream status: ", e);
 			}
 		}
+
+		private void forwardWatermark(Watermark watermark) throws Exception {
+			lastEmittedWatermark2 = watermark.getTimestamp();
+			operator.processWatermark2(watermark);
+		}
+
+		private void forwardStreamStatus(StreamStatus streamStatus) {
+			secondStatus = streamStatus;
+
+			// check if we need to toggle the task's stream status
+			if (!streamStatus.equals(streamStatusMaintainer.getStreamStatus())) {
+				if (streamStatus.isActive()) {
+					// we're no longer idle if at least one input has become active
+					streamStatusMaintainer.toggleStreamStatus(StreamStatus.ACTIVE);
+				} else if (firstStatus.isIdle()) {
+					// we're idle once both inputs are idle
+					streamStatusMaintainer.toggleStreamStatus(StreamStatus.IDLE);
+				}
+			}
+		}
 	}
 }
@@ -20,19 +20,25 @@ package org.apache.flink.streaming.runtime.operators.windowing;
 import com.google.common.base.Function;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.functions.ReduceFunction;
 import org.apache.flink.api.common.state.ListState;
 import org.apache.flink.api.common.state.AppendingState;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
 import org.apache.flink.api.common.state.StateDescriptor;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.metrics.MetricGroup;
 import org.apache.flink.runtime.state.internal.InternalListState;
+import org.apache.flink.runtime.state.internal.InternalReducingState;
 import org.apache.flink.streaming.api.operators.InternalTimer;
 import org.apache.flink.streaming.api.windowing.assigners.MergingWindowAssigner;
 import org.apache.flink.streaming.api.windowing.assigners.WindowAssigner;
+import org.apache.flink.streaming.api.windowing.evictors.CountEvictor;
 import org.apache.flink.streaming.api.windowing.evictors.Evictor;
 import org.apache.flink.streaming.api.windowing.triggers.Trigger;
 import org.apache.flink.streaming.api.windowing.triggers.TriggerResult;
@@ -40,7 +46,9 @@ import org.apache.flink.streaming.api.windowing.windows.Window;
 import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.List;
 
 import static org.apache.flink.util.Preconditions.checkNotNull;
 
@@ -51,6 +59,10 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
  * The {@code Evictor} is used to remove elements from a pane before/after the evaluation of WindowFunction and
  * after the window evaluation gets triggered by a {@link org.apache.flink.streaming.api.windowing.triggers.Trigger}.
  *
+ * <p>If the evictor is a {@link CountEvictor} that evicts before the window function, the
+ * window contents are trimmed while elements are added, so that the state of a window stays
+ * bounded by the evictor's count instead of growing until the window fires.
+ *
  * @param <K> The type of key returned by the {@code KeySelector}.
  * @param <IN> The type of the incoming elements.
  * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
@@ -62,6 +74,9 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 
 	private static final long serialVersionUID = 1L;
 
+	/** The largest evictor count up to which the window contents are trimmed eagerly. */
+	private static final long MAX_EAGER_EVICTION_COUNT = Integer.MAX_VALUE / 2;
+
 	// ------------------------------------------------------------------------
 	// these fields are set by the API stream graph builder to configure the operator
 
@@ -76,6 +91,19 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 
 	private transient InternalListState<W, StreamRecord<IN>> evictingWindowState;
 
+	/**
+	 * The number of elements in the contents of each window, only kept if the evictor allows
+	 * the contents to be trimmed eagerly. The count is a hint for when to trim the contents,
+	 * the contents themselves are authoritative.
+	 */
+	private transient InternalReducingState<W, Long> windowContentsCount;
+
+	/** The number of elements that eager eviction keeps. */
+	private transient int eagerEvictionMaxCount;
+
+	/** The number of elements at which the window contents are trimmed eagerly. */
+	private transient long eagerEvictionThreshold;
+
 	// ------------------------------------------------------------------------
 
 	public EvictingWindowOperator(WindowAssigner<? super IN, W> windowAssigner,
@@ -133,6 +161,9 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 
 								// merge the merged state windows into the newly resulting state window
 								evictingWindowState.mergeNamespaces(stateWindowResult, mergedStateWindows);
+								if (windowContentsCount != null) {
+									windowContentsCount.mergeNamespaces(stateWindowResult, mergedStateWindows);
+								}
 							}
 						});
 
@@ -147,8 +178,8 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 					throw new IllegalStateException("Window " + window + " is not in in-flight window set.");
 				}
 
-				evictingWindowState.setCurrentNamespace(stateWindow);
-				evictingWindowState.add(element);
+				setCurrentStateWindow(stateWindow);
+				addToWindowContents(element);
 
 				context.key = key;
 				context.window = actualWindow;
@@ -167,7 +198,7 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				}
 
 				if (triggerResult.isPurge()) {
-					evictingWindowState.clear();
+					clearWindowContents();
 				}
 				registerCleanupTimer(actualWindow);
 			}
@@ -181,8 +212,8 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 					continue;
 				}
 
-				evictingWindowState.setCurrentNamespace(window);
-				evictingWindowState.add(element);
+				setCurrentStateWindow(window);
+				addToWindowContents(element);
 
 				context.key = key;
 				context.window = window;
@@ -201,7 +232,7 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				}
 
 				if (triggerResult.isPurge()) {
-					evictingWindowState.clear();
+					clearWindowContents();
 				}
 				registerCleanupTimer(window);
 			}
@@ -227,10 +258,10 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				// window and therefore the Trigger state, however, so nothing to do.
 				return;
 			} else {
-				evictingWindowState.setCurrentNamespace(stateWindow);
+				setCurrentStateWindow(stateWindow);
 			}
 		} else {
-			evictingWindowState.setCurrentNamespace(context.window);
+			setCurrentStateWindow(context.window);
 		}
 
 		Iterable<StreamRecord<IN>> contents = evictingWindowState.get();
@@ -241,7 +272,7 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				emitWindowContents(context.window, contents, evictingWindowState);
 			}
 			if (triggerResult.isPurge()) {
-				evictingWindowState.clear();
+				clearWindowContents();
 			}
 		}
 
@@ -273,10 +304,10 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				// window and therefore the Trigger state, however, so nothing to do.
 				return;
 			} else {
-				evictingWindowState.setCurrentNamespace(stateWindow);
+				setCurrentStateWindow(stateWindow);
 			}
 		} else {
-			evictingWindowState.setCurrentNamespace(context.window);
+			setCurrentStateWindow(context.window);
 		}
 
 		Iterable<StreamRecord<IN>> contents = evictingWindowState.get();
@@ -287,7 +318,7 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 				emitWindowContents(context.window, contents, evictingWindowState);
 			}
 			if (triggerResult.isPurge()) {
-				evictingWindowState.clear();
+				clearWindowContents();
 			}
 		}
 
@@ -304,9 +335,15 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 	private void emitWindowContents(W window, Iterable<StreamRecord<IN>> contents, ListState<StreamRecord<IN>> windowState) throws Exception {
 		timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
 
+		// the evictors remove elements through the iterator, so we need a modifiable copy of
+		// the contents. State backends may return read-only or lazily deserialized lists, so the
+		// copy is built from the iterator: copying a collection would first compute its size,
+		// which deserializes all elements of a lazily deserialized list an additional time.
+		List<StreamRecord<IN>> elements = Lists.newArrayList(contents.iterator());
+
 		// Work around type system restrictions...
 		FluentIterable<TimestampedValue<IN>> recordsWithTimestamp = FluentIterable
-			.from(contents)
+			.from(elements)
 			.transform(new Function<StreamRecord<IN>, TimestampedValue<IN>>() {
 				@Override
 				public TimestampedValue<IN> apply(StreamRecord<IN> input) {
@@ -330,8 +367,74 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 		//work around to fix FLINK-4369, remove the evicted elements from the windowState.
 		//this is inefficient, but there is no other way to remove elements from ListState, which is an AppendingState.
 		windowState.clear();
+		long numRetained = 0;
 		for(TimestampedValue<IN> record : recordsWithTimestamp) {
 			windowState.add(record.getStreamRecord());
+			numRetained++;
+		}
+
+		if (windowContentsCount != null) {
+			windowContentsCount.clear();
+			if (numRetained > 0) {
+				windowContentsCount.add(numRetained);
+			}
+		}
+	}
+
+	private void setCurrentStateWindow(W stateWindow) {
+		evictingWindowState.setCurrentNamespace(stateWindow);
+		if (windowContentsCount != null) {
+			windowContentsCount.setCurrentNamespace(stateWindow);
+		}
+	}
+
+	/**
+	 * Adds the element to the contents of the current state window. If the evictor only keeps
+	 * the last {@code n} elements before the window function is evaluated, the contents are
+	 * trimmed to the last {@code n} elements once they have grown to {@code 2n}. This keeps the
+	 * window state bounded while the cost of trimming stays amortized constant per element.
+	 * Because evicted elements are also removed from the state when the window fires, the
+	 * window function sees the same elements as without eager eviction.
+	 */
+	private void addToWindowContents(StreamRecord<IN> element) throws Exception {
+		evictingWindowState.add(element);
+
+		if (windowContentsCount != null) {
+			windowContentsCount.add(1L);
+
+			Long count = windowContentsCount.get();
+			if (count != null && count >= eagerEvictionThreshold) {
+				Iterable<StreamRecord<IN>> contents = evictingWindowState.get();
+				if (contents == null) {
+					windowContentsCount.clear();
+					return;
+				}
+
+				ArrayDeque<StreamRecord<IN>> retained = new ArrayDeque<>();
+				for (StreamRecord<IN> record : contents) {
+					retained.addLast(record);
+					if (retained.size() > eagerEvictionMaxCount) {
+						retained.removeFirst();
+					}
+				}
+
+				evictingWindowState.clear();
+				for (StreamRecord<IN> record : retained) {
+					evictingWindowState.add(record);
+				}
+
+				windowContentsCount.clear();
+				if (!retained.isEmpty()) {
+					windowContentsCount.add((long) retained.size());
+				}
+			}
+		}
+	}
+
+	private void clearWindowContents() {
+		evictingWindowState.clear();
+		if (windowContentsCount != null) {
+			windowContentsCount.clear();
 		}
 	}
 
@@ -341,6 +444,9 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 			MergingWindowSet<W> mergingWindows) throws Exception {
 
 		windowState.clear();
+		if (windowContentsCount != null) {
+			windowContentsCount.clear();
+		}
 		context.clear();
 		if (mergingWindows != null) {
 			mergingWindows.retireWindow(window);
@@ -400,6 +506,19 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 		evictorContext = new EvictorContext(null,null);
 		evictingWindowState = (InternalListState<W, StreamRecord<IN>>)
 				getOrCreateKeyedState(windowSerializer, evictingWindowStateDescriptor);
+
+		if (evictor instanceof CountEvictor
+				&& !((CountEvictor<?>) evictor).isEvictAfter()
+				&& ((CountEvictor<?>) evictor).getMaxCount() <= MAX_EAGER_EVICTION_COUNT) {
+
+			eagerEvictionMaxCount = (int) ((CountEvictor<?>) evictor).getMaxCount();
+			eagerEvictionThreshold = eagerEvictionMaxCount + Math.max(eagerEvictionMaxCount, 1);
+
+			ReducingStateDescriptor<Long> countDescriptor = new ReducingStateDescriptor<>(
+					"window-contents-count", new Sum(), LongSerializer.INSTANCE);
+			windowContentsCount = (InternalReducingState<W, Long>)
+					getOrCreateKeyedState(windowSerializer, countDescriptor);
+		}
 	}
 
 	@Override
@@ -414,6 +533,18 @@ public class EvictingWindowOperator<K, IN, OUT, W extends Window>
 		evictorContext = null;
 	}
 
+	/**
+	 * Sums up the element counts of the window contents.
+	 */
+	private static class Sum implements ReduceFunction<Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long reduce(Long value1, Long value2) throws Exception {
+			return value1 + value2;
+		}
+	}
+
 	// ------------------------------------------------------------------------
 	// Getters for testing
 	// ------------------------------------------------------------------------
@@ -0,0 +1,425 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.commons.math3.util.ArithmeticUtils;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.annotation.VisibleForTesting;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.Function;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ValueStateDescriptor;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.state.internal.InternalValueState;
+import org.apache.flink.streaming.api.operators.AbstractUdfStreamOperator;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.InternalTimer;
+import org.apache.flink.streaming.api.operators.InternalTimerService;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.api.operators.Triggerable;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+
+import static org.apache.flink.util.Preconditions.checkArgument;
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * An operator for {@link SlidingEventTimeWindows} with the {@link EventTimeTrigger} that
+ * incrementally aggregates the elements in panes instead of windows.
+ *
+ * <p>The time is divided into panes whose length is the greatest common divisor of the window
+ * size and the window slide, so that every window consists of a fixed number of consecutive
+ * panes. An element is added only to the partial aggregate of its pane, which is kept in keyed
+ * state with the pane as namespace. When a window fires, the partial aggregates of its panes are
+ * merged and the result is given to the {@link InternalWindowFunction}. Compared to the
+ * {@link WindowOperator}, which updates the aggregate of every window that an element belongs to,
+ * this reduces the state accesses per element from {@code size / slide} to one, and the state
+ * size by the same factor.
+ *
+ * <p>Only the earliest window of a pane gets a timer when an element is added. When a window
+ * fires, it registers the timer of the next window if that window contains any panes of the
+ * current key. A pane is dropped with the cleanup of the last window that contains it.
+ *
+ * <p>The operator behaves like a {@link WindowOperator} with the {@link EventTimeTrigger}:
+ * elements that arrive after a window fired, but within the allowed lateness, make the window
+ * fire again, and elements are dropped for windows whose cleanup time has passed.
+ *
+ * @param <K> The type of key returned by the {@code KeySelector}.
+ * @param <IN> The type of the incoming elements.
+ * @param <ACC> The type of the partial aggregates of the panes.
+ * @param <V> The type of the aggregation result that is given to the window function.
+ * @param <OUT> The type of elements emitted by the {@code InternalWindowFunction}.
+ */
+@Internal
+public class PanedSlidingEventTimeWindowOperator<K, IN, ACC, V, OUT>
+	extends AbstractUdfStreamOperator<OUT, InternalWindowFunction<V, OUT, K, TimeWindow>>
+	implements OneInputStreamOperator<IN, OUT>, Triggerable<K, TimeWindow> {
+
+	private static final long serialVersionUID = 1L;
+
+	// ------------------------------------------------------------------------
+	// Configuration values and user functions
+	// ------------------------------------------------------------------------
+
+	private final long windowSize;
+
+	private final long windowSlide;
+
+	private final long windowOffset;
+
+	/** The length of a pane, the greatest common divisor of window size and slide. */
+	private final long paneSize;
+
+	private final PaneFunction<IN, ACC, V> paneFunction;
+
+	private final TypeSerializer<ACC> accumulatorSerializer;
+
+	/** The allowed lateness for elements, like for the {@link WindowOperator}. */
+	private final long allowedLateness;
+
+	// ------------------------------------------------------------------------
+	// State that is not checkpointed
+	// ------------------------------------------------------------------------
+
+	/** The state that holds the partial aggregates. Each pane is a namespace. */
+	private transient InternalValueState<TimeWindow, ACC> paneState;
+
+	/** This is given to the {@code InternalWindowFunction} for emitting elements with a given timestamp. */
+	private transient TimestampedCollector<OUT> timestampedCollector;
+
+	// ------------------------------------------------------------------------
+	// State that needs to be checkpointed
+	// ------------------------------------------------------------------------
+
+	/** The timers of the windows. Each window is a namespace. */
+	private transient InternalTimerService<TimeWindow> internalTimerService;
+
+	/**
+	 * Creates a new {@code PanedSlidingEventTimeWindowOperator}.
+	 *
+	 * @param windowSize The size of the windows, which must be greater than the slide.
+	 * @param windowSlide The slide of the windows.
+	 * @param windowOffset The offset of the window starts, see {@link SlidingEventTimeWindows}.
+	 * @param paneFunction The function that aggregates the elements of a pane and merges panes.
+	 * @param accumulatorSerializer The serializer for the partial aggregates.
+	 * @param windowFunction The function that is called with the aggregate of a window.
+	 * @param allowedLateness The allowed lateness for elements.
+	 */
+	public PanedSlidingEventTimeWindowOperator(
+			long windowSize,
+			long windowSlide,
+			long windowOffset,
+			PaneFunction<IN, ACC, V> paneFunction,
+			TypeSerializer<ACC> accumulatorSerializer,
+			InternalWindowFunction<V, OUT, K, TimeWindow> windowFunction,
+			long allowedLateness) {
+
+		super(windowFunction);
+
+		checkArgument(windowSlide > 0, "The window slide must be positive.");
+		checkArgument(windowSize > windowSlide, "The window size must be greater than the slide.");
+		checkArgument(windowOffset >= 0 && windowOffset < windowSlide, "The window offset must be within the slide.");
+		checkArgument(allowedLateness >= 0);
+
+		this.windowSize = windowSize;
+		this.windowSlide = windowSlide;
+		this.windowOffset = windowOffset;
+		this.paneSize = ArithmeticUtils.gcd(windowSize, windowSlide);
+		this.paneFunction = checkNotNull(paneFunction);
+		this.accumulatorSerializer = checkNotNull(accumulatorSerializer);
+		this.allowedLateness = allowedLateness;
+
+		setChainingStrategy(ChainingStrategy.ALWAYS);
+	}
+
+	@Override
+	public void open() throws Exception {
+		super.open();
+
+		timestampedCollector = new TimestampedCollector<>(output);
+
+		final TimeWindow.Serializer windowSerializer = new TimeWindow.Serializer();
+
+		internalTimerService = getInternalTimerService("window-timers", windowSerializer, this);
+
+		@SuppressWarnings("unchecked")
+		final InternalValueState<TimeWindow, ACC> state = (InternalValueState<TimeWindow, ACC>)
+			getOrCreateKeyedState(windowSerializer, new ValueStateDescriptor<>("window-panes", accumulatorSerializer));
+		paneState = state;
+	}
+
+	@Override
+	public void close() throws Exception {
+		super.close();
+		timestampedCollector = null;
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		super.dispose();
+		timestampedCollector = null;
+	}
+
+	@Override
+	public void processElement(StreamRecord<IN> element) throws Exception {
+		final long timestamp = element.getTimestamp();
+		if (timestamp == Long.MIN_VALUE) {
+			throw new RuntimeException("Record has Long.MIN_VALUE timestamp (= no timestamp marker). " +
+				"Is the time characteristic set to 'ProcessingTime', or did you forget to call " +
+				"'DataStream.assignTimestampsAndWatermarks(...)'?");
+		}
+
+		final long paneStart = TimeWindow.getWindowStartWithOffset(timestamp, windowOffset, paneSize);
+
+		// the windows of the pane are the windows that start after (paneStart - windowSize)
+		final long lastWindowStart = TimeWindow.getWindowStartWithOffset(timestamp, windowOffset, windowSlide);
+		final long firstWindowStart = lastWindowStart - (lastWindowStart - paneStart + windowSize - 1) / windowSlide * windowSlide;
+
+		// drop the element if all windows of its pane are late
+		if (isLate(new TimeWindow(lastWindowStart, lastWindowStart + windowSize))) {
+			return;
+		}
+
+		paneState.setCurrentNamespace(new TimeWindow(paneStart, paneStart + paneSize));
+		paneState.update(paneFunction.add(element.getValue(), paneState.value()));
+
+		final long watermark = internalTimerService.currentWatermark();
+		@SuppressWarnings("unchecked")
+		final K key = (K) getKeyedStateBackend().getCurrentKey();
+
+		for (long start = firstWindowStart; start <= lastWindowStart; start += windowSlide) {
+			final TimeWindow window = new TimeWindow(start, start + windowSize);
+
+			if (isLate(window)) {
+				continue;
+			}
+
+			if (window.maxTimestamp() <= watermark) {
+				// the window fired already, the EventTimeTrigger fires it again for late elements
+				emitWindowContents(key, window);
+				registerCleanupTimer(window);
+			} else {
+				// the later windows of the pane are registered when this window fires
+				registerTimers(window);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void onEventTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		final TimeWindow window = timer.getNamespace();
+
+		if (timer.getTimestamp() == window.maxTimestamp()) {
+			if (emitWindowContents(timer.getKey(), window)) {
+				final long nextStart = window.getStart() + windowSlide;
+				registerTimers(new TimeWindow(nextStart, nextStart + windowSize));
+			}
+		}
+
+		if (timer.getTimestamp() == cleanupTime(window)) {
+			// the panes at the start of the window are in no later window
+			for (long paneStart = window.getStart(); paneStart < window.getStart() + windowSlide; paneStart += paneSize) {
+				paneState.setCurrentNamespace(new TimeWindow(paneStart, paneStart + paneSize));
+				paneState.clear();
+			}
+		}
+	}
+
+	@Override
+	public void onProcessingTime(InternalTimer<K, TimeWindow> timer) throws Exception {
+		// the operator registers only event-time timers
+	}
+
+	/**
+	 * Merges the panes of the given window and emits the result using the
+	 * {@link InternalWindowFunction}. The caller must ensure that the key of the window is set
+	 * in the state backend.
+	 *
+	 * @return True, if the next window contains any panes of the current key.
+	 */
+	private boolean emitWindowContents(K key, TimeWindow window) throws Exception {
+		final long nextWindowStart = window.getStart() + windowSlide;
+
+		ACC result = null;
+		boolean nextWindowHasPanes = false;
+
+		for (long paneStart = window.getStart(); paneStart < window.getEnd(); paneStart += paneSize) {
+			paneState.setCurrentNamespace(new TimeWindow(paneStart, paneStart + paneSize));
+			final ACC pane = paneState.value();
+
+			if (pane != null) {
+				// the heap state backends return the stored objects, which the functions may modify
+				final ACC copy = accumulatorSerializer.copy(pane);
+				result = result == null ? copy : paneFunction.merge(result, copy);
+				nextWindowHasPanes |= paneStart >= nextWindowStart;
+			}
+		}
+
+		if (result != null) {
+			timestampedCollector.setAbsoluteTimestamp(window.maxTimestamp());
+			userFunction.apply(key, window, paneFunction.getResult(result), timestampedCollector);
+		}
+
+		return nextWindowHasPanes;
+	}
+
+	/**
+	 * Returns {@code true} if the watermark is after the end timestamp plus the allowed lateness
+	 * of the given window.
+	 */
+	private boolean isLate(TimeWindow window) {
+		return cleanupTime(window) <= internalTimerService.currentWatermark();
+	}
+
+	private void registerTimers(TimeWindow window) {
+		internalTimerService.registerEventTimeTimer(window, window.maxTimestamp());
+		registerCleanupTimer(window);
+	}
+
+	private void registerCleanupTimer(TimeWindow window) {
+		final long cleanupTime = cleanupTime(window);
+		if (cleanupTime != Long.MAX_VALUE) {
+			internalTimerService.registerEventTimeTimer(window, cleanupTime);
+		}
+	}
+
+	/**
+	 * Returns the cleanup time for a window, which is {@code window.maxTimestamp + allowedLateness},
+	 * or {@link Long#MAX_VALUE} if that overflows.
+	 */
+	private long cleanupTime(TimeWindow window) {
+		final long cleanupTime = window.maxTimestamp() + allowedLateness;
+		return cleanupTime >= window.maxTimestamp() ? cleanupTime : Long.MAX_VALUE;
+	}
+
+	// ------------------------------------------------------------------------
+	// Getters for testing
+	// ------------------------------------------------------------------------
+
+	@VisibleForTesting
+	public long getPaneSize() {
+		return paneSize;
+	}
+
+	@VisibleForTesting
+	public PaneFunction<IN, ACC, V> getPaneFunction() {
+		return paneFunction;
+	}
+
+	// ------------------------------------------------------------------------
+	// Pane functions
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Aggregates the elements of a pane and merges the partial aggregates of panes.
+	 *
+	 * @param <IN> The type of the aggregated elements.
+	 * @param <ACC> The type of the partial aggregates.
+	 * @param <V> The type of the aggregation result.
+	 */
+	public interface PaneFunction<IN, ACC, V> extends Function {
+
+		/**
+		 * Adds an element to a partial aggregate.
+		 *
+		 * @param value The element to add.
+		 * @param accumulator The partial aggregate of the pane, or null if the pane is empty.
+		 * @return The new partial aggregate of the pane.
+		 */
+		ACC add(IN value, ACC accumulator) throws Exception;
+
+		/**
+		 * Merges two partial aggregates. The function may modify and return either of them.
+		 */
+		ACC merge(ACC a, ACC b) throws Exception;
+
+		/**
+		 * Gets the aggregation result from the merged partial aggregates of a window.
+		 */
+		V getResult(ACC accumulator) throws Exception;
+	}
+
+	/**
+	 * A {@link PaneFunction} for a {@link ReduceFunction}, whose partial aggregates are
+	 * the reduced elements.
+	 */
+	public static final class ReducePaneFunction<T> implements PaneFunction<T, T, T> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ReduceFunction<T> reduceFunction;
+
+		public ReducePaneFunction(ReduceFunction<T> reduceFunction) {
+			this.reduceFunction = checkNotNull(reduceFunction);
+		}
+
+		@Override
+		public T add(T value, T accumulator) throws Exception {
+			return accumulator == null ? value : reduceFunction.reduce(accumulator, value);
+		}
+
+		@Override
+		public T merge(T a, T b) throws Exception {
+			return reduceFunction.reduce(a, b);
+		}
+
+		@Override
+		public T getResult(T accumulator) {
+			return accumulator;
+		}
+	}
+
+	/**
+	 * A {@link PaneFunction} for an {@link AggregateFunction}, whose partial aggregates are
+	 * the accumulators of the function.
+	 */
+	public static final class AggregatePaneFunction<IN, ACC, V> implements PaneFunction<IN, ACC, V> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final AggregateFunction<IN, ACC, V> aggregateFunction;
+
+		public AggregatePaneFunction(AggregateFunction<IN, ACC, V> aggregateFunction) {
+			this.aggregateFunction = checkNotNull(aggregateFunction);
+		}
+
+		@Override
+		public ACC add(IN value, ACC accumulator) {
+			final ACC acc = accumulator == null ? aggregateFunction.createAccumulator() : accumulator;
+			aggregateFunction.add(value, acc);
+			return acc;
+		}
+
+		@Override
+		public ACC merge(ACC a, ACC b) {
+			return aggregateFunction.merge(a, b);
+		}
+
+		@Override
+		public V getResult(ACC accumulator) {
+			return aggregateFunction.getResult(accumulator);
+		}
+	}
+}
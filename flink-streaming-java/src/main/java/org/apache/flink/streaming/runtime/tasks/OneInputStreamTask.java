@@ -20,9 +20,11 @@ package org.apache.flink.streaming.runtime.tasks;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.runtime.io.InputStatus;
 import org.apache.flink.streaming.runtime.io.StreamInputProcessor;
 
 @Internal
@@ -49,17 +51,29 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 					configuration.getCheckpointMode(),
 					getCheckpointLock(),
 					getEnvironment().getIOManager(),
+					getEnvironment().getMemoryManager(),
 					getEnvironment().getTaskManagerInfo().getConfiguration(),
 					getStreamStatusMaintainer(),
 					this.headOperator);
 
 			// make sure that stream tasks report their I/O statistics
 			inputProcessor.setMetricGroup(getEnvironment().getMetricGroup().getIOMetricGroup());
+
+			inputProcessor.setRecoveredInputState(readRecoveredInputState());
+
+			if (isMailboxExecution()) {
+				inputProcessor.registerInputListener(createMailboxInputListener());
+			}
 		}
 	}
 
 	@Override
 	protected void run() throws Exception {
+		if (isMailboxExecution()) {
+			runMailboxLoop();
+			return;
+		}
+
 		// cache processor reference on the stack, to make the code more JIT friendly
 		final StreamInputProcessor<IN> inputProcessor = this.inputProcessor;
 
@@ -68,6 +82,25 @@ public class OneInputStreamTask<IN, OUT> extends StreamTask<OUT, OneInputStreamO
 		}
 	}
 
+	@Override
+	protected boolean supportsMailboxExecution() {
+		return true;
+	}
+
+	@Override
+	protected InputStatus pollInput() throws Exception {
+		return inputProcessor.pollInput();
+	}
+
+	@Override
+	protected void prepareInputSnapshot(ChannelStateWriter channelStateWriter) throws Exception {
+		if (inputProcessor != null) {
+			inputProcessor.prepareInputSnapshot(channelStateWriter);
+		} else {
+			super.prepareInputSnapshot(channelStateWriter);
+		}
+	}
+
 	@Override
 	protected void cleanup() throws Exception {
 		if (inputProcessor != null) {
@@ -20,8 +20,10 @@ package org.apache.flink.streaming.runtime.tasks;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
 import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.metrics.Counter;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
@@ -177,6 +179,27 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>> implements Strea
 		}
 	}
 
+	/**
+	 * Broadcasts the barrier of an unaligned checkpoint. The barrier overtakes the data that is
+	 * queued in the result subpartitions, which is added to the channel state of the checkpoint.
+	 * The index of a stream output is the index of its result partition in the environment.
+	 */
+	public void broadcastOvertakingCheckpointBarrier(
+			long id,
+			long timestamp,
+			CheckpointOptions checkpointOptions,
+			ChannelStateWriter channelStateWriter) throws IOException {
+		try {
+			CheckpointBarrier barrier = new CheckpointBarrier(id, timestamp, checkpointOptions);
+			for (int i = 0; i < streamOutputs.length; i++) {
+				streamOutputs[i].broadcastOvertakingEvent(barrier, i, channelStateWriter);
+			}
+		}
+		catch (InterruptedException e) {
+			throw new IOException("Interrupted while broadcasting checkpoint barrier");
+		}
+	}
+
 	public void broadcastCheckpointCancelMarker(long id) throws IOException {
 		try {
 			CancelCheckpointMarker barrier = new CancelCheckpointMarker(id);
@@ -369,8 +392,11 @@ public class OperatorChain<OUT, OP extends StreamOperator<OUT>> implements Strea
 			}
 		}
 
+		boolean adaptiveFlush = taskEnvironment.getTaskManagerInfo().getConfiguration()
+				.getBoolean(TaskManagerOptions.NETWORK_ADAPTIVE_FLUSH);
+
 		StreamRecordWriter<SerializationDelegate<StreamRecord<T>>> output = 
-				new StreamRecordWriter<>(bufferWriter, outputPartitioner, upStreamConfig.getBufferTimeout());
+				new StreamRecordWriter<>(bufferWriter, outputPartitioner, upStreamConfig.getBufferTimeout(), adaptiveFlush);
 		output.setMetricGroup(taskEnvironment.getMetricGroup().getIOMetricGroup());
 		
 		return new RecordWriterOutput<>(output, outSerializer, this);
@@ -21,6 +21,8 @@ package org.apache.flink.streaming.runtime.tasks;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.streaming.api.functions.source.SourceFunction;
 import org.apache.flink.streaming.api.operators.StreamSource;
+import org.apache.flink.streaming.runtime.io.InputStatus;
+import org.apache.flink.util.ExceptionUtils;
 
 /**
  * Task for executing streaming sources.
@@ -32,6 +34,11 @@ import org.apache.flink.streaming.api.operators.StreamSource;
  * and the emission of elements must happen in the same block of code that is protected by the
  * synchronized block.
  *
+ * <p>In the mailbox execution model, the source function runs in a separate thread, so that the
+ * task thread can execute the timers and checkpoints from the mailbox. The source function keeps
+ * emitting its elements and modifying its state under the lock, and the task thread acquires the
+ * lock to execute the mails.
+ *
  * @param <OUT> Type of the output elements of this source.
  * @param <SRC> Type of the source function for the stream source operator
  * @param <OP> Type of the stream source operator
@@ -40,6 +47,9 @@ import org.apache.flink.streaming.api.operators.StreamSource;
 public class SourceStreamTask<OUT, SRC extends SourceFunction<OUT>, OP extends StreamSource<OUT, SRC>>
 	extends StreamTask<OUT, OP> {
 
+	/** The thread that runs the source function in the mailbox execution model */
+	private volatile SourceThread sourceThread;
+
 	@Override
 	protected void init() {
 		// does not hold any resources, so no initialization needed
@@ -53,11 +63,94 @@ public class SourceStreamTask<OUT, SRC extends SourceFunction<OUT>, OP extends S
 
 	@Override
 	protected void run() throws Exception {
-		headOperator.run(getCheckpointLock(), getStreamStatusMaintainer());
+		if (isMailboxExecution()) {
+			runInSourceThread();
+		} else {
+			headOperator.run(getCheckpointLock(), getStreamStatusMaintainer());
+		}
 	}
 	
 	@Override
 	protected void cancelTask() throws Exception {
 		headOperator.cancel();
+
+		final SourceThread sourceThread = this.sourceThread;
+		if (sourceThread != null) {
+			sourceThread.interrupt();
+		}
+	}
+
+	@Override
+	protected boolean supportsMailboxExecution() {
+		return true;
+	}
+
+	@Override
+	protected InputStatus pollInput() {
+		return sourceThread.isFinished() ? InputStatus.END_OF_INPUT : InputStatus.NOTHING_AVAILABLE;
+	}
+
+	private void runInSourceThread() throws Exception {
+		final SourceThread sourceThread = new SourceThread(getName());
+		this.sourceThread = sourceThread;
+		sourceThread.start();
+
+		try {
+			// executes the mails until the source function returns or the task is canceled
+			runMailboxLoop();
+		}
+		catch (Throwable t) {
+			headOperator.cancel();
+			sourceThread.interrupt();
+			throw t;
+		}
+
+		// wait for the source function to return after the task was canceled
+		sourceThread.join();
+
+		if (sourceThread.getFailure() != null) {
+			ExceptionUtils.rethrowException(sourceThread.getFailure(), "Source function failed.");
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * The thread that runs the source function in the mailbox execution model. It wakes up the
+	 * task thread once the source function returned.
+	 */
+	private class SourceThread extends Thread {
+
+		private volatile Throwable failure;
+
+		private volatile boolean finished;
+
+		SourceThread(String taskName) {
+			super("Source Thread - " + taskName);
+			setContextClassLoader(getUserCodeClassLoader());
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				headOperator.run(getCheckpointLock(), getStreamStatusMaintainer());
+			}
+			catch (Throwable t) {
+				failure = t;
+			}
+			finally {
+				finished = true;
+				getMailbox().wakeUp();
+			}
+		}
+
+		boolean isFinished() {
+			return finished;
+		}
+
+		Throwable getFailure() {
+			return failure;
+		}
 	}
 }
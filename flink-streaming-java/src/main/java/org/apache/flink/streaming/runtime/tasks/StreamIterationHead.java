@@ -99,6 +99,12 @@ public class StreamIterationHead<OUT> extends OneInputStreamTask<OUT, OUT> {
 		running = false;
 	}
 
+	@Override
+	protected boolean supportsMailboxExecution() {
+		// the feedback loop of the head runs in its own loop under the checkpoint lock
+		return false;
+	}
+
 	// ------------------------------------------------------------------------
 
 	@Override
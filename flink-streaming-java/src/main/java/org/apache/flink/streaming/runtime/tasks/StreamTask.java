@@ -20,16 +20,27 @@ package org.apache.flink.streaming.runtime.tasks;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.accumulators.Accumulator;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.CloseableRegistry;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.SubtaskState;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateEntry;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateReader;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
+import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineTaskNotReadyException;
 import org.apache.flink.runtime.execution.CancelTaskException;
 import org.apache.flink.runtime.execution.Environment;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.serialization.EventSerializer;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
+import org.apache.flink.runtime.io.network.partition.consumer.InputGateListener;
 import org.apache.flink.runtime.jobgraph.tasks.AbstractInvokable;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
 import org.apache.flink.runtime.state.AbstractKeyedStateBackend;
@@ -50,6 +61,7 @@ import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.operators.OperatorSnapshotResult;
 import org.apache.flink.streaming.api.operators.Output;
 import org.apache.flink.streaming.api.operators.StreamOperator;
+import org.apache.flink.streaming.runtime.io.InputStatus;
 import org.apache.flink.streaming.runtime.io.RecordWriterOutput;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatusMaintainer;
@@ -62,9 +74,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -110,6 +125,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * {@code StreamOperator} must be synchronized on this lock object to ensure that no methods
  * are called concurrently.
  *
+ * <p> In the mailbox execution model (see {@link TaskManagerOptions#TASK_MAILBOX_EXECUTION}), the
+ * timers, checkpoint triggers and checkpoint notifications are not executed by other threads under
+ * the lock. They are put into the {@link TaskMailbox} of the task instead, and the task thread
+ * executes them between the records. The task thread holds the lock while it processes records and
+ * mails, and releases it only while it waits for input or mails, so that threads which still
+ * synchronize on the lock do not run concurrently with the operators.
+ *
  * @param <OUT>
  * @param <OP>
  */
@@ -172,6 +194,12 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	/** Thread pool for async snapshot workers */
 	private ExecutorService asyncOperationsThreadPool;
 
+	/** The mailbox from which the task thread executes actions in the mailbox execution model */
+	private final TaskMailbox mailbox = new TaskMailbox();
+
+	/** Flag whether this task runs in the mailbox execution model */
+	private volatile boolean mailboxExecution;
+
 	// ------------------------------------------------------------------------
 	//  Life cycle methods for specific implementations
 	// ------------------------------------------------------------------------
@@ -218,17 +246,23 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 			accumulatorMap = getEnvironment().getAccumulatorRegistry().getUserMap();
 
+			mailboxExecution = supportsMailboxExecution() && getEnvironment().getTaskManagerInfo()
+				.getConfiguration().getBoolean(TaskManagerOptions.TASK_MAILBOX_EXECUTION);
+
 			// if the clock is not already set, then assign a default TimeServiceProvider
 			if (timerService == null) {
 				ThreadFactory timerThreadFactory =
 					new DispatcherThreadFactory(TRIGGER_THREAD_GROUP, "Time Trigger for " + getName());
 
-				timerService = new SystemProcessingTimeService(this, getCheckpointLock(), timerThreadFactory);
+				timerService = new SystemProcessingTimeService(this, getCheckpointLock(), timerThreadFactory, getMailbox());
 			}
 
 			operatorChain = new OperatorChain<>(this);
 			headOperator = operatorChain.getHeadOperator();
 
+			// the data that was in flight in the outputs during an unaligned checkpoint goes out first
+			restoreResultSubpartitionState();
+
 			// task specific initialization
 			init();
 
@@ -278,10 +312,22 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			// we also need to make sure that no triggers fire concurrently with the close logic
 			// at the same time, this makes sure that during any "regular" exit where still
 			synchronized (lock) {
+				// in the mailbox execution model, the timers that fired before the timer service
+				// was quiesced may still wait in the mailbox
+				if (mailboxExecution) {
+					runMails();
+				}
+
 				isRunning = false;
 
 				// this is part of the main logic, so if this fails, the task is considered failed
 				closeAllOperators();
+
+				// the checkpoint actions that are still in the mailbox find the task not running
+				if (mailboxExecution) {
+					mailbox.close();
+					runMails();
+				}
 			}
 
 			LOG.debug("Closed operators for task {}", getName());
@@ -298,6 +344,9 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			// clean up everything we initialized
 			isRunning = false;
 
+			// accept no further actions
+			mailbox.close();
+
 			// stop all timers and threads
 			if (timerService != null) {
 				try {
@@ -351,6 +400,8 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			cancelTask();
 		}
 		finally {
+			// wake up the task thread if it waits in the mailbox loop
+			mailbox.wakeUp();
 			cancelables.close();
 		}
 	}
@@ -363,6 +414,113 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		return canceled;
 	}
 
+	// ------------------------------------------------------------------------
+	//  Mailbox execution model
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Checks whether this type of task can run in the mailbox execution model, i.e., whether its
+	 * {@link #run()} method calls {@link #runMailboxLoop()} in that model.
+	 */
+	protected boolean supportsMailboxExecution() {
+		return false;
+	}
+
+	/**
+	 * Checks whether this task runs in the mailbox execution model.
+	 */
+	protected final boolean isMailboxExecution() {
+		return mailboxExecution;
+	}
+
+	/**
+	 * Gets the mailbox from which the task thread executes actions.
+	 *
+	 * @return The mailbox, or null, if the task does not run in the mailbox execution model.
+	 */
+	public TaskMailbox getMailbox() {
+		return mailboxExecution ? mailbox : null;
+	}
+
+	/**
+	 * Processes the next element of the input of the task, if one is available, in the mailbox
+	 * execution model. The task thread holds the checkpoint lock while it calls this method.
+	 *
+	 * @return The status of the input after this call.
+	 */
+	protected InputStatus pollInput() throws Exception {
+		throw new UnsupportedOperationException(
+			getClass().getSimpleName() + " does not support the mailbox execution model.");
+	}
+
+	/**
+	 * Runs the loop of the task thread in the mailbox execution model. Before each element that it
+	 * processes via {@link #pollInput()}, the loop executes the mails in the mailbox. If no input is
+	 * available, it releases the checkpoint lock and waits for new mails or input. The loop returns
+	 * once the input is consumed or the task is canceled.
+	 */
+	protected final void runMailboxLoop() throws Exception {
+		final TaskMailbox mailbox = this.mailbox;
+
+		while (true) {
+			synchronized (lock) {
+				InputStatus status = InputStatus.MORE_AVAILABLE;
+
+				while (status == InputStatus.MORE_AVAILABLE) {
+					if (mailbox.hasMail()) {
+						runMails();
+					}
+					if (!isRunning) {
+						return;
+					}
+
+					status = pollInput();
+				}
+
+				if (status == InputStatus.END_OF_INPUT) {
+					return;
+				}
+			}
+
+			// threads that still synchronize on the lock may acquire it while we wait
+			mailbox.await();
+		}
+	}
+
+	/**
+	 * Executes the mails in the mailbox, or waits for a mail if there is none. In the mailbox
+	 * execution model, operators call this method in the task thread when they wait for another
+	 * thread that puts its actions into the mailbox.
+	 */
+	public void yieldToMailbox() throws InterruptedException {
+		if (!mailbox.hasMail()) {
+			mailbox.await();
+		}
+		runMails();
+	}
+
+	/**
+	 * Creates a listener for the input gates of the task that wakes up the task thread when it
+	 * waits for input in the mailbox loop.
+	 */
+	protected final InputGateListener createMailboxInputListener() {
+		final TaskMailbox mailbox = this.mailbox;
+
+		return new InputGateListener() {
+			@Override
+			public void notifyInputGateNonEmpty(InputGate inputGate) {
+				mailbox.wakeUp();
+			}
+		};
+	}
+
+	private void runMails() {
+		Runnable mail;
+		while ((mail = mailbox.tryTake()) != null) {
+			mail.run();
+		}
+	}
+
 	/**
 	 * Execute the operator-specific {@link StreamOperator#open()} method in each
 	 * of the operators in the chain of this {@link StreamTask}. </b> Opening happens
@@ -515,13 +673,49 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	}
 
 	@Override
-	public boolean triggerCheckpoint(CheckpointMetaData checkpointMetaData, CheckpointOptions checkpointOptions) throws Exception {
+	public boolean triggerCheckpoint(
+			final CheckpointMetaData checkpointMetaData,
+			final CheckpointOptions checkpointOptions) throws Exception {
+
+		if (mailboxExecution) {
+			// the task thread performs the checkpoint between two records
+			return mailbox.put(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (!doTriggerCheckpoint(checkpointMetaData, checkpointOptions)) {
+							getEnvironment().declineCheckpoint(checkpointMetaData.getCheckpointId(),
+								new CheckpointDeclineTaskNotReadyException(getName()));
+						}
+					}
+					catch (Exception e) {
+						handleAsyncException("Could not trigger checkpoint " + checkpointMetaData.getCheckpointId() +
+							" for operator " + getName() + '.', e);
+					}
+				}
+			});
+		}
+		else {
+			return doTriggerCheckpoint(checkpointMetaData, checkpointOptions);
+		}
+	}
+
+	private boolean doTriggerCheckpoint(
+			CheckpointMetaData checkpointMetaData,
+			CheckpointOptions checkpointOptions) throws Exception {
+
 		try {
 			// No alignment if we inject a checkpoint
 			CheckpointMetrics checkpointMetrics = new CheckpointMetrics()
 					.setBytesBufferedInAlignment(0L)
 					.setAlignmentDurationNanos(0L);
 
+			// the sources decide whether a checkpoint is unaligned, all other tasks follow the barriers
+			if (configuration.isUnalignedCheckpointsEnabled() &&
+					checkpointOptions.getCheckpointType() == CheckpointOptions.CheckpointType.FULL_CHECKPOINT) {
+				checkpointOptions = CheckpointOptions.forUnalignedCheckpoint();
+			}
+
 			return performCheckpoint(checkpointMetaData, checkpointOptions, checkpointMetrics);
 		}
 		catch (Exception e) {
@@ -585,12 +779,28 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				// lock scope, they are an atomic operation regardless of the order in which they occur.
 				// Given this, we immediately emit the checkpoint barriers, so the downstream operators
 				// can start their checkpoint work as soon as possible
-				operatorChain.broadcastCheckpointBarrier(
-						checkpointMetaData.getCheckpointId(),
-						checkpointMetaData.getTimestamp(),
-						checkpointOptions);
+				if (checkpointOptions.isUnaligned()) {
+					ChannelStateWriter channelStateWriter = createChannelStateWriter(checkpointMetaData);
+
+					// the barriers overtake the queued output, which becomes part of the checkpoint
+					operatorChain.broadcastOvertakingCheckpointBarrier(
+							checkpointMetaData.getCheckpointId(),
+							checkpointMetaData.getTimestamp(),
+							checkpointOptions,
+							channelStateWriter);
+
+					prepareInputSnapshot(channelStateWriter);
+
+					checkpointState(checkpointMetaData, checkpointOptions, checkpointMetrics, channelStateWriter);
+				}
+				else {
+					operatorChain.broadcastCheckpointBarrier(
+							checkpointMetaData.getCheckpointId(),
+							checkpointMetaData.getTimestamp(),
+							checkpointOptions);
 
-				checkpointState(checkpointMetaData, checkpointOptions, checkpointMetrics);
+					checkpointState(checkpointMetaData, checkpointOptions, checkpointMetrics, null);
+				}
 				return true;
 			}
 			else {
@@ -626,7 +836,27 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 	}
 
 	@Override
-	public void notifyCheckpointComplete(long checkpointId) throws Exception {
+	public void notifyCheckpointComplete(final long checkpointId) throws Exception {
+		if (mailboxExecution) {
+			mailbox.put(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						doNotifyCheckpointComplete(checkpointId);
+					}
+					catch (Exception e) {
+						handleAsyncException("Could not notify operator " + getName() +
+							" of the completed checkpoint " + checkpointId + '.', e);
+					}
+				}
+			});
+		}
+		else {
+			doNotifyCheckpointComplete(checkpointId);
+		}
+	}
+
+	private void doNotifyCheckpointComplete(long checkpointId) throws Exception {
 		synchronized (lock) {
 			if (isRunning) {
 				LOG.debug("Notification of complete checkpoint for task {}", getName());
@@ -643,20 +873,87 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		}
 	}
 
+	private ChannelStateWriter createChannelStateWriter(CheckpointMetaData checkpointMetaData) {
+		long maxInMemoryBytes = getEnvironment().getTaskManagerInfo().getConfiguration()
+			.getLong(TaskManagerOptions.TASK_CHECKPOINT_UNALIGNED_MEMORY);
+
+		File[] spillDirectories = getEnvironment().getIOManager().getSpillingDirectories();
+		File spillDirectory = spillDirectories[(int) (checkpointMetaData.getCheckpointId() % spillDirectories.length)];
+
+		return new ChannelStateWriter(
+			checkpointMetaData.getCheckpointId(),
+			checkpointMetaData.getTimestamp(),
+			Math.max(0L, maxInMemoryBytes),
+			spillDirectory);
+	}
+
+	/**
+	 * Starts the recording of the in-flight input data for an unaligned checkpoint. The task has
+	 * to add the data that its input already consumed but did not yet turn into records, and to
+	 * hand the writer to its barrier handler, which finishes the input data once the barriers of
+	 * all input channels arrived.
+	 *
+	 * <p>Tasks without network input, such as sources, have no in-flight input data.
+	 *
+	 * @param channelStateWriter The writer for the in-flight data of the checkpoint
+	 */
+	protected void prepareInputSnapshot(ChannelStateWriter channelStateWriter) throws Exception {
+		channelStateWriter.finishInput();
+	}
+
 	private void checkpointState(
 			CheckpointMetaData checkpointMetaData,
 			CheckpointOptions checkpointOptions,
-			CheckpointMetrics checkpointMetrics) throws Exception {
+			CheckpointMetrics checkpointMetrics,
+			ChannelStateWriter channelStateWriter) throws Exception {
 
 		CheckpointingOperation checkpointingOperation = new CheckpointingOperation(
 			this,
 			checkpointMetaData,
 			checkpointOptions,
-			checkpointMetrics);
+			checkpointMetrics,
+			channelStateWriter);
 
 		checkpointingOperation.executeCheckpointing();
 	}
 
+	/**
+	 * Reads the in-flight input data that an unaligned checkpoint persisted for this task. The
+	 * data has to be replayed to the input before any new data. This must be called from
+	 * {@link #init()}, before the state is handed to the operators.
+	 *
+	 * @return The in-flight input data, in the order in which it was received
+	 */
+	protected List<ChannelStateEntry> readRecoveredInputState() throws IOException {
+		if (restoreStateHandles == null) {
+			return Collections.emptyList();
+		}
+
+		return ChannelStateReader.read(restoreStateHandles.getInputChannelState());
+	}
+
+	private void restoreResultSubpartitionState() throws IOException {
+		if (restoreStateHandles == null || restoreStateHandles.getResultSubpartitionState() == null) {
+			return;
+		}
+
+		ResultPartitionWriter[] writers = getEnvironment().getAllWriters();
+		List<ChannelStateEntry> entries = ChannelStateReader.read(restoreStateHandles.getResultSubpartitionState());
+
+		LOG.debug("Restoring {} in-flight output buffers of task {}.", entries.size(), getName());
+
+		for (ChannelStateEntry entry : entries) {
+			if (entry.getIndex() >= writers.length ||
+					entry.getChannelIndex() >= writers[entry.getIndex()].getNumberOfOutputChannels()) {
+				throw new IllegalStateException("Cannot restore the in-flight output " + entry + " of task " +
+						getName() + " because the outputs of the task changed.");
+			}
+
+			Buffer buffer = new Buffer(MemorySegmentFactory.wrap(entry.getData()), FreeingBufferRecycler.INSTANCE);
+			writers[entry.getIndex()].writeBuffer(buffer, entry.getChannelIndex());
+		}
+	}
+
 	private void initializeState() throws Exception {
 
 		boolean restored = null != restoreStateHandles;
@@ -858,6 +1155,12 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		private final CheckpointMetaData checkpointMetaData;
 		private final CheckpointMetrics checkpointMetrics;
 
+		/** The writer for the in-flight data of an unaligned checkpoint, null if the checkpoint is aligned */
+		private final ChannelStateWriter channelStateWriter;
+
+		private StreamStateHandle inputChannelStateHandle;
+		private StreamStateHandle resultSubpartitionStateHandle;
+
 		private final long asyncStartNanos;
 
 		private final AtomicReference<CheckpointingOperation.AsynCheckpointState> asyncCheckpointState = new AtomicReference<>(
@@ -869,6 +1172,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				List<OperatorSnapshotResult> snapshotInProgressList,
 				CheckpointMetaData checkpointMetaData,
 				CheckpointMetrics checkpointMetrics,
+				ChannelStateWriter channelStateWriter,
 				long asyncStartNanos) {
 
 			this.owner = Preconditions.checkNotNull(owner);
@@ -876,6 +1180,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 			this.checkpointMetaData = Preconditions.checkNotNull(checkpointMetaData);
 			this.checkpointMetrics = Preconditions.checkNotNull(checkpointMetrics);
 			this.nonPartitionedStateHandles = nonPartitionedStateHandles;
+			this.channelStateWriter = channelStateWriter;
 			this.asyncStartNanos = asyncStartNanos;
 
 			if (!snapshotInProgressList.isEmpty()) {
@@ -911,6 +1216,21 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 					}
 				}
 
+				if (channelStateWriter != null) {
+					// the input data is complete once the barriers of all input channels arrived
+					if (!channelStateWriter.awaitInput()) {
+						// the checkpoint has been declined before all barriers arrived
+						LOG.debug("{} - unaligned checkpoint {} was aborted before all in-flight data was recorded.",
+							owner.getName(), checkpointMetaData.getCheckpointId());
+						cleanup();
+						return;
+					}
+
+					CheckpointStreamFactory streamFactory = owner.createCheckpointStreamFactory(owner.headOperator);
+					inputChannelStateHandle = channelStateWriter.writeInputState(streamFactory);
+					resultSubpartitionStateHandle = channelStateWriter.writeOutputState(streamFactory);
+				}
+
 				final long asyncEndNanos = System.nanoTime();
 				final long asyncDurationMillis = (asyncEndNanos - asyncStartNanos) / 1_000_000;
 
@@ -925,12 +1245,19 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				ChainedStateHandle<OperatorStateHandle> chainedOperatorStateStream =
 						new ChainedStateHandle<>(operatorStatesStream);
 
+				// the channel state is only valid for the channels it was recorded for
+				ChannelStateLayout channelStateLayout = channelStateWriter != null ?
+						ChannelStateLayout.fromEnvironment(owner.getEnvironment()) : null;
+
 				SubtaskState subtaskState = new SubtaskState(
 						chainedNonPartitionedOperatorsState,
 						chainedOperatorStateBackend,
 						chainedOperatorStateStream,
 						keyedStateHandleBackend,
-						keyedStateHandleStream);
+						keyedStateHandleStream,
+						inputChannelStateHandle,
+						resultSubpartitionStateHandle,
+						channelStateLayout);
 
 				if (asyncCheckpointState.compareAndSet(CheckpointingOperation.AsynCheckpointState.RUNNING, CheckpointingOperation.AsynCheckpointState.COMPLETED)) {
 					owner.getEnvironment().acknowledgeCheckpoint(
@@ -975,6 +1302,11 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 
 		@Override
 		public void close() {
+			if (channelStateWriter != null) {
+				// releases a thread that waits for the in-flight input data
+				channelStateWriter.abort(new CancelTaskException("The checkpoint was closed."));
+			}
+
 			try {
 				cleanup();
 			} catch (Exception cleanupException) {
@@ -1005,6 +1337,18 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 					exception = ExceptionUtils.firstOrSuppressed(discardException, exception);
 				}
 
+				// discard the in-flight data of an unaligned checkpoint
+				if (channelStateWriter != null) {
+					channelStateWriter.abort(new CancelTaskException("The checkpoint was discarded."));
+
+					try {
+						StateUtil.bestEffortDiscardAllStateObjects(
+							Arrays.asList(inputChannelStateHandle, resultSubpartitionStateHandle));
+					} catch (Exception discardException) {
+						exception = ExceptionUtils.firstOrSuppressed(discardException, exception);
+					}
+				}
+
 				if (null != exception) {
 					throw exception;
 				}
@@ -1031,6 +1375,9 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 		private final CheckpointOptions checkpointOptions;
 		private final CheckpointMetrics checkpointMetrics;
 
+		/** The writer for the in-flight data, null if the checkpoint is aligned */
+		private final ChannelStateWriter channelStateWriter;
+
 		private final StreamOperator<?>[] allOperators;
 
 		private long startSyncPartNano;
@@ -1045,12 +1392,14 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 				StreamTask<?, ?> owner,
 				CheckpointMetaData checkpointMetaData,
 				CheckpointOptions checkpointOptions,
-				CheckpointMetrics checkpointMetrics) {
+				CheckpointMetrics checkpointMetrics,
+				ChannelStateWriter channelStateWriter) {
 
 			this.owner = Preconditions.checkNotNull(owner);
 			this.checkpointMetaData = Preconditions.checkNotNull(checkpointMetaData);
 			this.checkpointOptions = Preconditions.checkNotNull(checkpointOptions);
 			this.checkpointMetrics = Preconditions.checkNotNull(checkpointMetrics);
+			this.channelStateWriter = channelStateWriter;
 			this.allOperators = owner.operatorChain.getAllOperators();
 			this.nonPartitionedStates = new ArrayList<>(allOperators.length);
 			this.snapshotInProgressList = new ArrayList<>(allOperators.length);
@@ -1151,6 +1500,7 @@ public abstract class StreamTask<OUT, OP extends StreamOperator<OUT>>
 					snapshotInProgressList,
 					checkpointMetaData,
 					checkpointMetrics,
+					channelStateWriter,
 					startAsyncPartNano);
 
 			owner.cancelables.registerClosable(asyncCheckpointRunnable);
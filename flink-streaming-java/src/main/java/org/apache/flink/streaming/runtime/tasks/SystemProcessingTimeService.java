@@ -37,6 +37,10 @@ import static org.apache.flink.util.Preconditions.checkNotNull;
 /**
  * A {@link ProcessingTimeService} which assigns as current processing time the result of calling
  * {@link System#currentTimeMillis()} and registers timers using a {@link ScheduledThreadPoolExecutor}.
+ *
+ * <p>The timers fire in the thread of the executor under the checkpoint lock. If the service is
+ * given the {@link TaskMailbox} of a task, the timers are instead put into the mailbox when they
+ * fire, and the task thread executes them.
  */
 public class SystemProcessingTimeService extends ProcessingTimeService {
 
@@ -52,6 +56,10 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 	/** The lock that timers acquire upon triggering */
 	private final Object checkpointLock;
 
+	/** The mailbox into which the timers are put upon triggering, or null to trigger them
+	 * under the checkpoint lock. */
+	private final TaskMailbox mailbox;
+
 	/** The executor service that schedules and calls the triggers of this task*/
 	private final ScheduledThreadPoolExecutor timerService;
 
@@ -66,9 +74,18 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 			AsyncExceptionHandler task,
 			Object checkpointLock,
 			ThreadFactory threadFactory) {
+		this(task, checkpointLock, threadFactory, null);
+	}
+
+	public SystemProcessingTimeService(
+			AsyncExceptionHandler task,
+			Object checkpointLock,
+			ThreadFactory threadFactory,
+			TaskMailbox mailbox) {
 
 		this.task = checkNotNull(task);
 		this.checkpointLock = checkNotNull(checkpointLock);
+		this.mailbox = mailbox;
 
 		this.status = new AtomicInteger(STATUS_ALIVE);
 
@@ -107,7 +124,7 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		// that way we save unnecessary volatile accesses for each timer
 		try {
 			return timerService.schedule(
-					new TriggerTask(task, checkpointLock, target, timestamp), delay, TimeUnit.MILLISECONDS);
+					new TriggerTask(task, checkpointLock, mailbox, target, timestamp), delay, TimeUnit.MILLISECONDS);
 		}
 		catch (RejectedExecutionException e) {
 			final int status = this.status.get();
@@ -132,7 +149,7 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		// that way we save unnecessary volatile accesses for each timer
 		try {
 			return timerService.scheduleAtFixedRate(
-				new RepeatedTriggerTask(task, checkpointLock, callback, nextTimestamp, period),
+				new RepeatedTriggerTask(task, checkpointLock, mailbox, callback, nextTimestamp, period),
 				initialDelay,
 				period,
 				TimeUnit.MILLISECONDS);
@@ -200,28 +217,49 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 	private static final class TriggerTask implements Runnable {
 
 		private final Object lock;
+		private final TaskMailbox mailbox;
 		private final ProcessingTimeCallback target;
 		private final long timestamp;
 		private final AsyncExceptionHandler exceptionHandler;
 
-		TriggerTask(AsyncExceptionHandler exceptionHandler, final Object lock, ProcessingTimeCallback target, long timestamp) {
+		TriggerTask(
+				AsyncExceptionHandler exceptionHandler,
+				final Object lock,
+				TaskMailbox mailbox,
+				ProcessingTimeCallback target,
+				long timestamp) {
 			this.exceptionHandler = exceptionHandler;
 			this.lock = lock;
+			this.mailbox = mailbox;
 			this.target = target;
 			this.timestamp = timestamp;
 		}
 
 		@Override
 		public void run() {
-			synchronized (lock) {
-				try {
-					target.onProcessingTime(timestamp);
-				} catch (Throwable t) {
-					TimerException asyncException = new TimerException(t);
-					exceptionHandler.handleAsyncException("Caught exception while processing timer.", asyncException);
+			if (mailbox != null) {
+				mailbox.put(new Runnable() {
+					@Override
+					public void run() {
+						trigger();
+					}
+				});
+			}
+			else {
+				synchronized (lock) {
+					trigger();
 				}
 			}
 		}
+
+		private void trigger() {
+			try {
+				target.onProcessingTime(timestamp);
+			} catch (Throwable t) {
+				TimerException asyncException = new TimerException(t);
+				exceptionHandler.handleAsyncException("Caught exception while processing timer.", asyncException);
+			}
+		}
 	}
 
 	/**
@@ -229,6 +267,7 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 	 */
 	private static final class RepeatedTriggerTask implements Runnable {
 		private final Object lock;
+		private final TaskMailbox mailbox;
 		private final ProcessingTimeCallback target;
 		private final long period;
 		private final AsyncExceptionHandler exceptionHandler;
@@ -238,10 +277,12 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 		private RepeatedTriggerTask(
 				AsyncExceptionHandler exceptionHandler,
 				Object lock,
+				TaskMailbox mailbox,
 				ProcessingTimeCallback target,
 				long nextTimestamp,
 				long period) {
 			this.lock = Preconditions.checkNotNull(lock);
+			this.mailbox = mailbox;
 			this.target = Preconditions.checkNotNull(target);
 			this.period = period;
 			this.exceptionHandler = Preconditions.checkNotNull(exceptionHandler);
@@ -251,12 +292,27 @@ public class SystemProcessingTimeService extends ProcessingTimeService {
 
 		@Override
 		public void run() {
-			try {
+			if (mailbox != null) {
+				final long timestamp = nextTimestamp;
+				mailbox.put(new Runnable() {
+					@Override
+					public void run() {
+						trigger(timestamp);
+					}
+				});
+			}
+			else {
 				synchronized (lock) {
-					target.onProcessingTime(nextTimestamp);
+					trigger(nextTimestamp);
 				}
+			}
 
-				nextTimestamp += period;
+			nextTimestamp += period;
+		}
+
+		private void trigger(long timestamp) {
+			try {
+				target.onProcessingTime(timestamp);
 			} catch (Throwable t) {
 				TimerException asyncException = new TimerException(t);
 				exceptionHandler.handleAsyncException("Caught exception while processing repeated timer task.", asyncException);
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.apache.flink.annotation.Internal;
+
+import java.util.ArrayDeque;
+
+import static org.apache.flink.util.Preconditions.checkNotNull;
+
+/**
+ * The mailbox of a {@link StreamTask} that runs in the mailbox execution model. Other threads,
+ * like the timer thread or the thread that triggers checkpoints, put actions (mails) into the
+ * mailbox instead of acquiring the checkpoint lock, and the task thread executes the mails
+ * between the records it processes.
+ *
+ * <p>The task thread checks for mails with {@link #hasMail()}, which does not acquire a lock.
+ * When it runs out of input, it waits in {@link #await()} until a mail arrives or until it is
+ * woken up, for example because new input is available.
+ */
+@Internal
+public final class TaskMailbox {
+
+	/** The lock that guards the mails and the flags. */
+	private final Object lock = new Object();
+
+	/** The mails, in the order in which they were put into the mailbox. */
+	private final ArrayDeque<Runnable> mails = new ArrayDeque<>();
+
+	/** Flag that lets the task thread check for mails without acquiring the lock. */
+	private volatile boolean hasMail;
+
+	/** Flag whether the task thread was woken up since it last waited. */
+	private boolean wokenUp;
+
+	/** Flag whether the mailbox accepts no further mails. */
+	private boolean closed;
+
+	/**
+	 * Puts a mail into the mailbox, to be executed by the task thread.
+	 *
+	 * @param mail The action to execute.
+	 * @return True, if the mail was put into the mailbox, false if the mailbox is closed.
+	 */
+	public boolean put(Runnable mail) {
+		checkNotNull(mail);
+
+		synchronized (lock) {
+			if (closed) {
+				return false;
+			}
+
+			mails.addLast(mail);
+			hasMail = true;
+			lock.notifyAll();
+			return true;
+		}
+	}
+
+	/**
+	 * Checks whether the mailbox contains mails. This method does not acquire a lock.
+	 */
+	public boolean hasMail() {
+		return hasMail;
+	}
+
+	/**
+	 * Takes the oldest mail out of the mailbox.
+	 *
+	 * @return The oldest mail, or null, if the mailbox is empty.
+	 */
+	public Runnable tryTake() {
+		synchronized (lock) {
+			final Runnable mail = mails.pollFirst();
+			hasMail = !mails.isEmpty();
+			return mail;
+		}
+	}
+
+	/**
+	 * Wakes up the task thread if it waits in {@link #await()}, or lets its next call to
+	 * {@link #await()} return immediately.
+	 */
+	public void wakeUp() {
+		synchronized (lock) {
+			wokenUp = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until the mailbox contains a mail, or the task thread was woken up, or the mailbox
+	 * is closed.
+	 *
+	 * @throws InterruptedException Thrown, if the thread is interrupted while waiting.
+	 */
+	public void await() throws InterruptedException {
+		synchronized (lock) {
+			while (mails.isEmpty() && !wokenUp && !closed) {
+				lock.wait();
+			}
+			wokenUp = false;
+		}
+	}
+
+	/**
+	 * Closes the mailbox, so that it accepts no further mails. Mails that are already in the
+	 * mailbox can still be taken.
+	 */
+	public void close() {
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks whether the mailbox is closed.
+	 */
+	public boolean isClosed() {
+		synchronized (lock) {
+			return closed;
+		}
+	}
+}
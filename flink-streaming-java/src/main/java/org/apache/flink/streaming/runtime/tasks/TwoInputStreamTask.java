@@ -22,10 +22,12 @@ import java.util.List;
 
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.partition.consumer.InputGate;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.graph.StreamEdge;
 import org.apache.flink.streaming.api.operators.TwoInputStreamOperator;
+import org.apache.flink.streaming.runtime.io.InputStatus;
 import org.apache.flink.streaming.runtime.io.StreamTwoInputProcessor;
 
 @Internal
@@ -72,16 +74,28 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 				configuration.getCheckpointMode(),
 				getCheckpointLock(),
 				getEnvironment().getIOManager(),
+				getEnvironment().getMemoryManager(),
 				getEnvironment().getTaskManagerInfo().getConfiguration(),
 				getStreamStatusMaintainer(),
 				this.headOperator);
 
 		// make sure that stream tasks report their I/O statistics
 		inputProcessor.setMetricGroup(getEnvironment().getMetricGroup().getIOMetricGroup());
+
+		inputProcessor.setRecoveredInputState(readRecoveredInputState());
+
+		if (isMailboxExecution()) {
+			inputProcessor.registerInputListener(createMailboxInputListener());
+		}
 	}
 
 	@Override
 	protected void run() throws Exception {
+		if (isMailboxExecution()) {
+			runMailboxLoop();
+			return;
+		}
+
 		// cache processor reference on the stack, to make the code more JIT friendly
 		final StreamTwoInputProcessor<IN1, IN2> inputProcessor = this.inputProcessor;
 
@@ -90,6 +104,21 @@ public class TwoInputStreamTask<IN1, IN2, OUT> extends StreamTask<OUT, TwoInputS
 		}
 	}
 
+	@Override
+	protected boolean supportsMailboxExecution() {
+		return true;
+	}
+
+	@Override
+	protected InputStatus pollInput() throws Exception {
+		return inputProcessor.pollInput();
+	}
+
+	@Override
+	protected void prepareInputSnapshot(ChannelStateWriter channelStateWriter) throws Exception {
+		inputProcessor.prepareInputSnapshot(channelStateWriter);
+	}
+
 	@Override
 	protected void cleanup() throws Exception {
 		if (inputProcessor != null) {
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.LongSerializer;
+import org.apache.flink.runtime.state.KeyGroupRange;
+import org.apache.flink.streaming.runtime.tasks.TestProcessingTimeService;
+
+/**
+ * Measures the throughput of registering, deleting and firing event time timers of the
+ * {@link HeapInternalTimerService}, for a growing number of timers. Each key registers one
+ * timer per window, like a window operator with tumbling windows.
+ *
+ * <p>This is not a unit test, it is meant to be run manually via its main method.
+ */
+public class HeapInternalTimerServiceMiniBenchmark {
+
+	private static final int[] NUM_TIMERS = {10000, 100000, 1000000, 4000000};
+
+	private static final int NUM_KEYS = 100000;
+
+	private static final int MAX_PARALLELISM = 128;
+
+	private static final int NUM_ROUNDS = 3;
+
+	public static void main(String[] args) throws Exception {
+		for (int round = 0; round < NUM_ROUNDS; ++round) {
+			System.out.println("Round " + round + ":");
+
+			for (int numTimers : NUM_TIMERS) {
+				final BenchmarkKeyContext keyContext = new BenchmarkKeyContext();
+				final HeapInternalTimerService<Integer, Long> service = new HeapInternalTimerService<>(
+					MAX_PARALLELISM, new KeyGroupRange(0, MAX_PARALLELISM - 1), keyContext, new TestProcessingTimeService());
+
+				final CountingTriggerable triggerable = new CountingTriggerable();
+				service.startTimerService(IntSerializer.INSTANCE, LongSerializer.INSTANCE, triggerable);
+
+				// register all timers
+				long start = System.nanoTime();
+				for (int i = 0; i < numTimers; i++) {
+					keyContext.setCurrentKey(i % NUM_KEYS);
+					long window = i / NUM_KEYS;
+					service.registerEventTimeTimer(window, window * 1000 + 999);
+				}
+				final long registerNanos = System.nanoTime() - start;
+
+				// delete every other timer, e.g. for purged windows
+				start = System.nanoTime();
+				for (int i = 0; i < numTimers; i += 2) {
+					keyContext.setCurrentKey(i % NUM_KEYS);
+					long window = i / NUM_KEYS;
+					service.deleteEventTimeTimer(window, window * 1000 + 999);
+				}
+				final long deleteNanos = System.nanoTime() - start;
+
+				// fire the remaining timers
+				start = System.nanoTime();
+				service.advanceWatermark(Long.MAX_VALUE);
+				final long fireNanos = System.nanoTime() - start;
+
+				if (triggerable.count != numTimers / 2 || service.numEventTimeTimers() != 0) {
+					throw new IllegalStateException("Fired " + triggerable.count + " timers, expected " + numTimers / 2);
+				}
+
+				System.out.println(String.format(
+					"  %8d timers: register %8.2f timers/ms, delete %8.2f timers/ms, fire %8.2f timers/ms",
+					numTimers,
+					numTimers / (registerNanos / 1000000.0),
+					(numTimers + 1) / 2 / (deleteNanos / 1000000.0),
+					numTimers / 2 / (fireNanos / 1000000.0)));
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static final class BenchmarkKeyContext implements KeyContext {
+
+		private Object key;
+
+		@Override
+		public void setCurrentKey(Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public Object getCurrentKey() {
+			return key;
+		}
+	}
+
+	private static final class CountingTriggerable implements Triggerable<Integer, Long> {
+
+		private long count;
+
+		@Override
+		public void onEventTime(InternalTimer<Integer, Long> timer) {
+			count++;
+		}
+
+		@Override
+		public void onProcessingTime(InternalTimer<Integer, Long> timer) {
+			count++;
+		}
+	}
+}
@@ -141,8 +141,8 @@ public class HeapInternalTimerServiceTest {
 				Assert.assertNull(actualEvent);
 				Assert.assertNull(actualProcessing);
 			} else {
-				Assert.assertArrayEquals(expected.toArray(), actualEvent.toArray());
-				Assert.assertArrayEquals(expected.toArray(), actualProcessing.toArray());
+				Assert.assertEquals(expected, actualEvent);
+				Assert.assertEquals(expected, actualProcessing);
 			}
 		}
 	}
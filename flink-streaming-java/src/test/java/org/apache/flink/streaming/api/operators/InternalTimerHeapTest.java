@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.api.operators;
+
+import org.apache.flink.api.common.typeutils.base.IntSerializer;
+import org.apache.flink.api.common.typeutils.base.StringSerializer;
+import org.apache.flink.core.memory.DataInputViewStreamWrapper;
+import org.apache.flink.core.memory.DataOutputViewStreamWrapper;
+import org.apache.flink.runtime.state.KeyGroupRangeAssignment;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link InternalTimerHeap}.
+ */
+public class InternalTimerHeapTest {
+
+	private static final int TOTAL_KEY_GROUPS = 16;
+
+	@Test
+	public void testPollInTimestampOrder() {
+		InternalTimerHeap<Integer, String> heap = createHeap();
+		Random random = new Random(42L);
+
+		for (int i = 0; i < 1000; i++) {
+			heap.add(new InternalTimer<>(random.nextInt(100000), random.nextInt(100), "window"));
+		}
+
+		long lastTimestamp = Long.MIN_VALUE;
+		InternalTimer<Integer, String> timer;
+		while ((timer = heap.poll()) != null) {
+			assertTrue(timer.getTimestamp() >= lastTimestamp);
+			assertEquals(InternalTimer.NOT_CONTAINED, timer.getTimerHeapIndex());
+			lastTimestamp = timer.getTimestamp();
+		}
+
+		assertTrue(heap.isEmpty());
+		assertNull(heap.peek());
+	}
+
+	@Test
+	public void testDeduplication() {
+		InternalTimerHeap<Integer, String> heap = createHeap();
+
+		heap.add(new InternalTimer<>(10L, 1, "a"));
+		heap.add(new InternalTimer<>(10L, 1, "a"));
+		assertEquals(1, heap.size());
+
+		heap.add(new InternalTimer<>(10L, 1, "b"));
+		heap.add(new InternalTimer<>(10L, 2, "a"));
+		heap.add(new InternalTimer<>(11L, 1, "a"));
+		assertEquals(4, heap.size());
+
+		heap.remove(new InternalTimer<>(10L, 1, "a"));
+		assertEquals(3, heap.size());
+		heap.remove(new InternalTimer<>(10L, 1, "a"));
+		assertEquals(3, heap.size());
+
+		heap.add(new InternalTimer<>(10L, 1, "a"));
+		assertEquals(4, heap.size());
+	}
+
+	/**
+	 * Applies random additions, removals and polls to the heap and to a set of expected timers,
+	 * and checks that both contain the same timers and that the heap order holds.
+	 */
+	@Test
+	public void testRandomOperations() {
+		InternalTimerHeap<Integer, String> heap = createHeap();
+		Set<InternalTimer<Integer, String>> expected = new HashSet<>();
+		Random random = new Random(17L);
+
+		for (int i = 0; i < 50000; i++) {
+			InternalTimer<Integer, String> timer =
+				new InternalTimer<>(random.nextInt(1000), random.nextInt(50), random.nextBoolean() ? "a" : "b");
+
+			switch (random.nextInt(4)) {
+				case 0:
+				case 1:
+					expected.add(timer);
+					heap.add(timer);
+					break;
+				case 2:
+					expected.remove(timer);
+					heap.remove(timer);
+					break;
+				default:
+					InternalTimer<Integer, String> head = heap.poll();
+					if (head == null) {
+						assertTrue(expected.isEmpty());
+					} else {
+						for (InternalTimer<Integer, String> other : expected) {
+							assertTrue(head.getTimestamp() <= other.getTimestamp());
+						}
+						assertTrue(expected.remove(head));
+					}
+			}
+
+			assertEquals(expected.size(), heap.size());
+		}
+
+		Set<InternalTimer<Integer, String>> actual = new HashSet<>();
+		for (InternalTimer<Integer, String> timer : heap) {
+			assertTrue(actual.add(timer));
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testTimersPerKeyGroup() throws Exception {
+		InternalTimerHeap<Integer, String> heap = createHeap();
+
+		List<Set<InternalTimer<Integer, String>>> expected = new ArrayList<>();
+		for (int i = 0; i < TOTAL_KEY_GROUPS; i++) {
+			expected.add(new HashSet<InternalTimer<Integer, String>>());
+		}
+
+		for (int i = 0; i < 500; i++) {
+			InternalTimer<Integer, String> timer = new InternalTimer<>(i, i % 100, "window");
+			heap.add(timer);
+			expected.get(KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), TOTAL_KEY_GROUPS)).add(timer);
+		}
+
+		for (int i = 0; i < 500; i += 3) {
+			InternalTimer<Integer, String> timer = new InternalTimer<>(i, i % 100, "window");
+			heap.remove(timer);
+			expected.get(KeyGroupRangeAssignment.assignToKeyGroup(timer.getKey(), TOTAL_KEY_GROUPS)).remove(timer);
+		}
+
+		InternalTimer.TimerSerializer<Integer, String> serializer =
+			new InternalTimer.TimerSerializer<>(IntSerializer.INSTANCE, StringSerializer.INSTANCE);
+
+		for (int keyGroup = 0; keyGroup < TOTAL_KEY_GROUPS; keyGroup++) {
+			assertEquals(expected.get(keyGroup).size(), heap.numberOfTimersInKeyGroup(keyGroup));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			heap.writeTimersInKeyGroup(keyGroup, serializer, new DataOutputViewStreamWrapper(out));
+
+			DataInputViewStreamWrapper in =
+				new DataInputViewStreamWrapper(new ByteArrayInputStream(out.toByteArray()));
+
+			Set<InternalTimer<Integer, String>> written = new HashSet<>();
+			int numTimers = in.readInt();
+			for (int i = 0; i < numTimers; i++) {
+				written.add(serializer.deserialize(in));
+			}
+
+			assertEquals(expected.get(keyGroup), written);
+		}
+	}
+
+	@Test
+	public void testKeyGroupOutsideLocalRange() {
+		InternalTimerHeap<Integer, String> heap =
+			new InternalTimerHeap<>(4, 0, TOTAL_KEY_GROUPS / 2, TOTAL_KEY_GROUPS);
+
+		try {
+			heap.numberOfTimersInKeyGroup(TOTAL_KEY_GROUPS / 2);
+			fail("Expected an exception for a key-group outside of the local range.");
+		} catch (IllegalArgumentException expected) {
+			// expected
+		}
+	}
+
+	private static InternalTimerHeap<Integer, String> createHeap() {
+		// a small initial capacity, so that the heap has to grow
+		return new InternalTimerHeap<>(4, 0, TOTAL_KEY_GROUPS, TOTAL_KEY_GROUPS);
+	}
+}
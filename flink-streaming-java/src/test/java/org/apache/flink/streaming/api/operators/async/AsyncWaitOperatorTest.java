@@ -25,6 +25,7 @@ import org.apache.flink.api.common.functions.RichMapFunction;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
@@ -370,6 +371,19 @@ public class AsyncWaitOperatorTest extends TestLogger {
 	 */
 	@Test
 	public void testOperatorChainWithProcessingTime() throws Exception {
+		testOperatorChainWithProcessingTime(false);
+	}
+
+	/**
+	 * Tests that the AsyncWaitOperator works together with chaining in the mailbox execution model,
+	 * where the task thread outputs the results and waits in the mailbox while the queues are full.
+	 */
+	@Test
+	public void testOperatorChainWithProcessingTimeInMailboxExecution() throws Exception {
+		testOperatorChainWithProcessingTime(true);
+	}
+
+	private void testOperatorChainWithProcessingTime(boolean mailboxExecution) throws Exception {
 
 		JobVertex chainedVertex = createChainedVertex(false);
 
@@ -386,9 +400,16 @@ public class AsyncWaitOperatorTest extends TestLogger {
 				operatorChainStreamConfig.getStreamOperator(AsyncWaitOperatorTest.class.getClassLoader());
 		streamConfig.setStreamOperator(headOperator);
 
-		testHarness.invoke();
+		final StreamMockEnvironment environment = testHarness.createEnvironment();
+		Configuration taskManagerConfig = new Configuration();
+		taskManagerConfig.setBoolean(TaskManagerOptions.TASK_MAILBOX_EXECUTION, mailboxExecution);
+		environment.setTaskManagerConfiguration(taskManagerConfig);
+
+		testHarness.invoke(environment);
 		testHarness.waitForTaskRunning();
 
+		assertEquals(mailboxExecution, task.getMailbox() != null);
+
 		long initialTimestamp = 0L;
 
 		testHarness.processElement(new StreamRecord<>(5, initialTimestamp));
@@ -27,6 +27,7 @@ import org.apache.flink.streaming.api.operators.async.queue.WatermarkQueueEntry;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.streamrecord.StreamElement;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.TaskMailbox;
 import org.apache.flink.streaming.util.CollectorOutput;
 import org.apache.flink.util.TestLogger;
 import org.junit.AfterClass;
@@ -43,6 +44,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -190,4 +193,59 @@ public class EmitterTest extends TestLogger {
 			emitterThread.interrupt();
 		}
 	}
+
+	/**
+	 * Tests that in the mailbox execution model, a failure of the output in the task thread fails
+	 * the task thread as well as the operator, and that the emitter does not wait for the output
+	 * any longer.
+	 */
+	@Test
+	public void testEmitterWithMailboxAndFailingOutput() throws Exception {
+		Object lock = new Object();
+		TaskMailbox mailbox = new TaskMailbox();
+
+		final RuntimeException testException = new RuntimeException("Test exception");
+
+		@SuppressWarnings("unchecked")
+		Output<StreamRecord<Integer>> output = mock(Output.class);
+		doThrow(testException).when(output).emitWatermark(any(Watermark.class));
+
+		OperatorActions operatorActions = mock(OperatorActions.class);
+
+		StreamElementQueue queue = new OrderedStreamElementQueue(3, executor, operatorActions);
+
+		final Emitter<Integer> emitter = new Emitter<>(lock, mailbox, output, queue, operatorActions);
+
+		final Thread emitterThread = new Thread(emitter);
+		emitterThread.start();
+
+		try {
+			queue.put(new WatermarkQueueEntry(new Watermark(3L)));
+
+			// the test thread acts as the task thread which executes the mails
+			Runnable mail;
+			while ((mail = mailbox.tryTake()) == null) {
+				mailbox.await();
+			}
+
+			try {
+				mail.run();
+				Assert.fail("The output should have failed in the task thread.");
+			} catch (RuntimeException e) {
+				Assert.assertEquals(testException, e);
+			}
+
+			emitterThread.join(timeout);
+			Assert.assertFalse("The emitter should terminate once the output failed.", emitterThread.isAlive());
+
+			ArgumentCaptor<Throwable> argumentCaptor = ArgumentCaptor.forClass(Throwable.class);
+
+			verify(operatorActions).failOperator(argumentCaptor.capture());
+
+			Assert.assertEquals(testException, argumentCaptor.getValue().getCause());
+		} finally {
+			emitter.stop();
+			emitterThread.interrupt();
+		}
+	}
 }
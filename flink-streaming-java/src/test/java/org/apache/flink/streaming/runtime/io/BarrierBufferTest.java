@@ -20,9 +20,11 @@ package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.core.memory.MemorySegment;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.core.memory.MemoryType;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineOnCancellationBarrierException;
 import org.apache.flink.runtime.checkpoint.decline.CheckpointDeclineSubsumedException;
 import org.apache.flink.runtime.io.disk.iomanager.IOManager;
@@ -34,15 +36,21 @@ import org.apache.flink.runtime.io.network.buffer.Buffer;
 import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.io.network.partition.consumer.BufferOrEvent;
 import org.apache.flink.runtime.jobgraph.tasks.StatefulTask;
+import org.apache.flink.runtime.memory.MemoryManager;
 import org.apache.flink.runtime.state.TaskStateHandles;
 import org.hamcrest.BaseMatcher;
 import org.hamcrest.Description;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
@@ -54,9 +62,11 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for the behavior of the {@link BarrierBuffer}.
@@ -1385,6 +1395,253 @@ public class BarrierBufferTest {
 		verify(toNotify, times(1)).abortCheckpointOnBarrier(anyLong(), any(Throwable.class));
 	}
 
+	/**
+	 * Tests that the barriers of an unaligned checkpoint block no channel, and that the buffers
+	 * in front of the barriers, including the ones the barriers overtook, are recorded.
+	 */
+	@Test
+	public void testUnalignedCheckpoint() throws Exception {
+		BufferOrEvent[] sequence = {
+				/*  0 */ createBuffer(0), createBuffer(1),
+
+				// first barrier overtook one buffer of channel 0
+				/*  2 */ createUnalignedBarrier(1, 0, 1),
+				/*  3 */ createBuffer(0), createBuffer(1), createBuffer(2),
+
+				/*  6 */ createUnalignedBarrier(1, 1, 0),
+				/*  7 */ createBuffer(0), createBuffer(1),
+
+				/*  9 */ createUnalignedBarrier(1, 2, 0),
+				/* 10 */ createBuffer(2)
+		};
+
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 3, Arrays.asList(sequence));
+		final BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER);
+
+		final ChannelStateWriter[] writer = new ChannelStateWriter[1];
+		StatefulTask toNotify = mock(StatefulTask.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				CheckpointMetaData metaData = (CheckpointMetaData) invocation.getArguments()[0];
+				writer[0] = new ChannelStateWriter(metaData.getCheckpointId(), metaData.getTimestamp());
+				buffer.startChannelStateSnapshot(writer[0]);
+				return null;
+			}
+		}).when(toNotify).triggerCheckpointOnBarrier(any(CheckpointMetaData.class), any(CheckpointOptions.class), any(CheckpointMetrics.class));
+		buffer.registerCheckpointEventHandler(toNotify);
+
+		// nothing is blocked or reordered
+		check(sequence[0], buffer.getNextNonBlocked());
+		check(sequence[1], buffer.getNextNonBlocked());
+		assertNull(writer[0]);
+
+		check(sequence[3], buffer.getNextNonBlocked());
+		verify(toNotify, times(1)).triggerCheckpointOnBarrier(argThat(new CheckpointMatcher(1L)), any(CheckpointOptions.class), any(CheckpointMetrics.class));
+		assertNotNull(writer[0]);
+		check(sequence[4], buffer.getNextNonBlocked());
+		check(sequence[5], buffer.getNextNonBlocked());
+
+		check(sequence[7], buffer.getNextNonBlocked());
+		check(sequence[8], buffer.getNextNonBlocked());
+
+		check(sequence[10], buffer.getNextNonBlocked());
+		assertTrue(writer[0].awaitInput());
+		assertEquals(0L, buffer.getAlignmentDurationNanos());
+
+		// buffer 3 was overtaken by the barrier of channel 0, buffers 4 and 5 arrived before the
+		// barriers of their channels, buffer 8 followed the barrier of channel 1
+		long expectedBytes = sequence[3].getBuffer().getSize() + sequence[4].getBuffer().getSize() +
+				sequence[5].getBuffer().getSize();
+		assertEquals(expectedBytes, writer[0].getNumInputBytes());
+
+		assertNull(buffer.getNextNonBlocked());
+		assertNull(buffer.getNextNonBlocked());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+	}
+
+	/**
+	 * Tests that the data of blocked channels is held in the managed memory while it fits, and
+	 * that the alignment is reported per channel.
+	 */
+	@Test
+	public void testAlignmentInMemoryWithChannelMetrics() throws Exception {
+		BufferOrEvent[] sequence = {
+				/* 0 */ createBarrier(1, 0),
+				/* 1 */ createBuffer(0), createBuffer(0), createBuffer(1),
+				/* 4 */ createBarrier(1, 1),
+				/* 5 */ createBuffer(0), createBuffer(1)
+		};
+
+		MemoryManager memoryManager = new MemoryManager(4 * MemoryManager.DEFAULT_PAGE_SIZE, 1);
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER, -1, memoryManager, 2 * MemoryManager.DEFAULT_PAGE_SIZE);
+
+		ValidatingCheckpointHandler handler = new ValidatingCheckpointHandler();
+		handler.setNextExpectedCheckpointId(1L);
+		buffer.registerCheckpointEventHandler(handler);
+
+		// channel 0 is blocked
+		check(sequence[3], buffer.getNextNonBlocked());
+		assertEquals(0L, buffer.getAlignmentDurationNanos(1));
+
+		// alignment done, the blocked buffers come from memory
+		check(sequence[1], buffer.getNextNonBlocked());
+		assertEquals(2L, handler.getNextExpectedCheckpointId());
+		validateAlignmentBuffered(handler.getLastReportedBytesBufferedInAlignment(), sequence[1], sequence[2]);
+
+		assertEquals(handler.getLastReportedBytesBufferedInAlignment(), buffer.getBytesBuffered(0));
+		assertEquals(0L, buffer.getBytesSpilled(0));
+		assertEquals(0L, buffer.getBytesBuffered(1));
+		assertEquals(0L, buffer.getBytesSpilled(1));
+		// channel 0 was blocked for the whole alignment, channel 1 only when its barrier arrived
+		assertTrue(buffer.getAlignmentDurationNanos(1) <= buffer.getAlignmentDurationNanos(0));
+
+		check(sequence[2], buffer.getNextNonBlocked());
+		check(sequence[5], buffer.getNextNonBlocked());
+		check(sequence[6], buffer.getNextNonBlocked());
+
+		// all done
+		assertNull(buffer.getNextNonBlocked());
+		assertNull(buffer.getNextNonBlocked());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+
+		assertTrue(memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
+	/**
+	 * Tests that the data of blocked channels is spilled once the managed memory is full, and
+	 * that the buffered data keeps its order across memory and spill file.
+	 */
+	@Test
+	public void testAlignmentSpillsWhenMemoryIsFull() throws Exception {
+		// the memory holds fewer than 8 full buffers
+		final int memorySize = MemoryManager.MIN_PAGE_SIZE;
+		final int numBlockedBuffers = 2 * memorySize / PAGE_SIZE;
+
+		List<BufferOrEvent> sequence = new ArrayList<>();
+		sequence.add(createBarrier(1, 1));
+		for (int i = 0; i < numBlockedBuffers; i++) {
+			sequence.add(createFullBuffer(1));
+		}
+		sequence.add(createBuffer(0));
+		sequence.add(createBarrier(1, 0));
+		sequence.add(createBuffer(0));
+
+		MemoryManager memoryManager = new MemoryManager(memorySize, 1, memorySize, MemoryType.HEAP, true);
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, sequence);
+		BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER, -1, memoryManager, memorySize);
+
+		ValidatingCheckpointHandler handler = new ValidatingCheckpointHandler();
+		handler.setNextExpectedCheckpointId(1L);
+		buffer.registerCheckpointEventHandler(handler);
+
+		check(sequence.get(numBlockedBuffers + 1), buffer.getNextNonBlocked());
+
+		// alignment done, the blocked buffers come from memory and the spill file
+		for (int i = 1; i <= numBlockedBuffers; i++) {
+			check(sequence.get(i), buffer.getNextNonBlocked());
+		}
+		assertEquals(2L, handler.getNextExpectedCheckpointId());
+		validateAlignmentBuffered(handler.getLastReportedBytesBufferedInAlignment(),
+				sequence.subList(1, numBlockedBuffers + 1).toArray(new BufferOrEvent[numBlockedBuffers]));
+
+		assertEquals(handler.getLastReportedBytesBufferedInAlignment(), buffer.getBytesBuffered(1));
+		assertTrue(buffer.getBytesSpilled(1) > 0);
+		assertTrue(buffer.getBytesSpilled(1) < buffer.getBytesBuffered(1));
+		assertEquals(0L, buffer.getBytesBuffered(0));
+
+		check(sequence.get(numBlockedBuffers + 3), buffer.getNextNonBlocked());
+
+		// all done
+		assertNull(buffer.getNextNonBlocked());
+		assertNull(buffer.getNextNonBlocked());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+
+		assertTrue(memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
+	/**
+	 * Tests that the managed memory is only allocated on the first alignment, and that the blocked
+	 * data is spilled instead of waiting for the memory, if the memory manager has no free memory.
+	 */
+	@Test
+	public void testAlignmentMemoryAllocatedLazilyWithoutBlocking() throws Exception {
+		BufferOrEvent[] sequence = {
+				/* 0 */ createBuffer(0),
+				/* 1 */ createBarrier(1, 0),
+				/* 2 */ createBuffer(0), createBuffer(1),
+				/* 4 */ createBarrier(1, 1),
+				/* 5 */ createBuffer(1)
+		};
+
+		MemoryManager memoryManager = new MemoryManager(2 * MemoryManager.DEFAULT_PAGE_SIZE, 1);
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.asList(sequence));
+		BarrierBuffer buffer = new BarrierBuffer(gate, IO_MANAGER, -1, memoryManager, 2 * MemoryManager.DEFAULT_PAGE_SIZE);
+
+		ValidatingCheckpointHandler handler = new ValidatingCheckpointHandler();
+		handler.setNextExpectedCheckpointId(1L);
+		buffer.registerCheckpointEventHandler(handler);
+
+		// no memory is taken before the first alignment
+		assertTrue(memoryManager.verifyEmpty());
+		check(sequence[0], buffer.getNextNonBlocked());
+		assertTrue(memoryManager.verifyEmpty());
+
+		// another consumer takes all memory before the alignment starts
+		List<MemorySegment> otherMemory = memoryManager.allocatePages(new Object(), 2);
+
+		check(sequence[3], buffer.getNextNonBlocked());
+		check(sequence[2], buffer.getNextNonBlocked());
+		assertEquals(2L, handler.getNextExpectedCheckpointId());
+
+		// all blocked data went to the spill file
+		assertTrue(buffer.getBytesBuffered(0) > 0);
+		assertEquals(buffer.getBytesBuffered(0), buffer.getBytesSpilled(0));
+
+		check(sequence[5], buffer.getNextNonBlocked());
+		assertNull(buffer.getNextNonBlocked());
+
+		buffer.cleanup();
+		checkNoTempFilesRemain();
+
+		memoryManager.release(otherMemory);
+		assertTrue(memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
+	/**
+	 * Tests that no managed memory is held by a barrier buffer whose spill file cannot be created,
+	 * because nobody could release the memory of a barrier buffer that was never constructed.
+	 */
+	@Test
+	public void testNoAlignmentMemoryLeakedIfSpillerCannotBeCreated() throws Exception {
+		MemoryManager memoryManager = new MemoryManager(2 * MemoryManager.DEFAULT_PAGE_SIZE, 1);
+		MockInputGate gate = new MockInputGate(PAGE_SIZE, 2, Arrays.<BufferOrEvent>asList());
+
+		IOManager ioManager = mock(IOManager.class);
+		when(ioManager.getSpillingDirectories()).thenReturn(
+				new File[] { new File(IO_MANAGER.getSpillingDirectories()[0], "does-not-exist") });
+
+		try {
+			new BarrierBuffer(gate, ioManager, -1, memoryManager, 2 * MemoryManager.DEFAULT_PAGE_SIZE);
+			fail("The spill file should not be creatable.");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertTrue(memoryManager.verifyEmpty());
+		memoryManager.shutdown();
+	}
+
 	// ------------------------------------------------------------------------
 	//  Utils
 	// ------------------------------------------------------------------------
@@ -1393,6 +1650,13 @@ public class BarrierBufferTest {
 		return new BufferOrEvent(new CheckpointBarrier(checkpointId, System.currentTimeMillis(), CheckpointOptions.forFullCheckpoint()), channel);
 	}
 
+	private static BufferOrEvent createUnalignedBarrier(long checkpointId, int channel, int numOvertakenBuffers) {
+		return new BufferOrEvent(
+				new CheckpointBarrier(checkpointId, System.currentTimeMillis(), CheckpointOptions.forUnalignedCheckpoint()),
+				channel,
+				numOvertakenBuffers);
+	}
+
 	private static BufferOrEvent createCancellationBarrier(long checkpointId, int channel) {
 		return new BufferOrEvent(new CancelCheckpointMarker(checkpointId), channel);
 	}
@@ -1414,6 +1678,22 @@ public class BarrierBufferTest {
 		return new BufferOrEvent(buf, channel);
 	}
 
+	private static BufferOrEvent createFullBuffer(int channel) {
+		byte[] bytes = new byte[PAGE_SIZE];
+		RND.nextBytes(bytes);
+
+		MemorySegment memory = MemorySegmentFactory.allocateUnpooledSegment(PAGE_SIZE);
+		memory.put(0, bytes);
+
+		Buffer buf = new Buffer(memory, FreeingBufferRecycler.INSTANCE);
+		buf.setSize(PAGE_SIZE);
+
+		// retain an additional time so it does not get disposed after being read by the input gate
+		buf.retain();
+
+		return new BufferOrEvent(buf, channel);
+	}
+
 	private static BufferOrEvent createEndOfPartition(int channel) {
 		return new BufferOrEvent(EndOfPartitionEvent.INSTANCE, channel);
 	}
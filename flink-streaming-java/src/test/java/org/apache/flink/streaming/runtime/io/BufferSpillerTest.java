@@ -332,6 +332,78 @@ public class BufferSpillerTest {
 		}
 	}
 
+	/**
+	 * Tests that elements are held in memory while it has space, that the rest of the sequence is
+	 * spilled, and that the memory is given back once the sequence is read.
+	 */
+	@Test
+	public void testSpillWithMemory() throws Exception {
+		final int numSegments = 8;
+		final ArrayList<MemorySegment> memory = new ArrayList<>();
+		for (int i = 0; i < numSegments; i++) {
+			memory.add(MemorySegmentFactory.allocateUnpooledSegment(1024));
+		}
+
+		spiller.close();
+		spiller = new BufferSpiller(IO_MANAGER, PAGE_SIZE, memory);
+
+		// a small sequence stays in memory completely
+		spiller.add(generateRandomBuffer(1500, 3));
+		spiller.add(generateRandomBuffer(17, 1));
+		assertEquals(0L, spiller.getBytesSpilled());
+		assertEquals(2 * BufferSpiller.HEADER_SIZE + 1517, spiller.getBytesWritten());
+
+		BufferSpiller.SpilledBufferOrEventSequence seq = spiller.rollOver();
+		assertEquals(2 * BufferSpiller.HEADER_SIZE + 1517, seq.getMemorySize());
+		assertEquals(seq.getMemorySize(), seq.size());
+		assertEquals(numSegments - 2, spiller.getNumFreeMemorySegments());
+
+		seq.open();
+		validateBuffer(seq.getNext(), 1500, 3);
+		validateBuffer(seq.getNext(), 17, 1);
+		assertNull(seq.getNext());
+		assertEquals(numSegments, spiller.getNumFreeMemorySegments());
+		seq.cleanup();
+
+		// a large sequence is continued in the spill file once the memory is full
+		final Random rnd = new Random();
+		final ArrayList<BufferOrEvent> events = new ArrayList<>();
+		final int numEventsAndBuffers = 50;
+		for (int i = 0; i < numEventsAndBuffers; i++) {
+			if (i % 10 == 5) {
+				BufferOrEvent evt = generateRandomEvent(rnd, 7);
+				events.add(evt);
+				spiller.add(evt);
+			}
+			else {
+				spiller.add(generateRandomBuffer(i * 50 + 1, i % 7));
+			}
+		}
+
+		assertTrue(spiller.getBytesSpilled() > 0);
+		seq = spiller.rollOver();
+		assertTrue(seq.getMemorySize() > 0);
+		assertTrue(seq.getMemorySize() < seq.size());
+
+		seq.open();
+		int numEvent = 0;
+		for (int i = 0; i < numEventsAndBuffers; i++) {
+			BufferOrEvent next = seq.getNext();
+			assertNotNull(next);
+			if (i % 10 == 5) {
+				BufferOrEvent expected = events.get(numEvent++);
+				assertEquals(expected.getEvent(), next.getEvent());
+				assertEquals(expected.getChannelIndex(), next.getChannelIndex());
+			}
+			else {
+				validateBuffer(next, i * 50 + 1, i % 7);
+			}
+		}
+		assertNull(seq.getNext());
+		assertEquals(numSegments, spiller.getNumFreeMemorySegments());
+		seq.cleanup();
+	}
+
 	/**
 	 * Tests that the static HEADER_SIZE field has valid header size.
 	 */
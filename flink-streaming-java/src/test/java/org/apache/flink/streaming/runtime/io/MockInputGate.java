@@ -81,6 +81,11 @@ public class MockInputGate implements InputGate {
 		return next;
 	}
 
+	@Override
+	public BufferOrEvent pollNextBufferOrEvent() {
+		return getNextBufferOrEvent();
+	}
+
 	@Override
 	public void requestPartitions() {
 	}
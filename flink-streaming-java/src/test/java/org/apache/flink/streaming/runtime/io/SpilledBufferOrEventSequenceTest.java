@@ -45,7 +45,6 @@ import static org.junit.Assert.*;
  */
 public class SpilledBufferOrEventSequenceTest {
 	
-	private final ByteBuffer buffer = ByteBuffer.allocateDirect(128 * 1024).order(ByteOrder.LITTLE_ENDIAN);
 	private final int pageSize = 32*1024;
 	
 	private File tempFile;
@@ -87,7 +86,7 @@ public class SpilledBufferOrEventSequenceTest {
 	@Test
 	public void testEmptyChannel() {
 		try {
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			assertNull(seq.getNext());
@@ -107,7 +106,7 @@ public class SpilledBufferOrEventSequenceTest {
 			fileChannel.write(buf);
 			fileChannel.position(0);
 			
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			try {
@@ -142,7 +141,7 @@ public class SpilledBufferOrEventSequenceTest {
 			fileChannel.position(0L);
 			rnd.setSeed(seed);
 
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			for (int i = 0; i < numBuffers; i++) {
@@ -175,7 +174,7 @@ public class SpilledBufferOrEventSequenceTest {
 			fileChannel.write(data);
 			fileChannel.position(0L);
 
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			// first one is valid
@@ -210,7 +209,7 @@ public class SpilledBufferOrEventSequenceTest {
 			}
 
 			fileChannel.position(0L);
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			int i = 0;
@@ -261,7 +260,7 @@ public class SpilledBufferOrEventSequenceTest {
 			
 			fileChannel.position(0L);
 			bufferRnd.setSeed(bufferSeed);
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			
 			// read and validate the sequence
@@ -346,8 +345,8 @@ public class SpilledBufferOrEventSequenceTest {
 			
 			bufferRnd.setSeed(bufferSeed);
 			
-			SpilledBufferOrEventSequence seq1 = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
-			SpilledBufferOrEventSequence seq2 = new SpilledBufferOrEventSequence(secondFile, secondChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq1 = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
+			SpilledBufferOrEventSequence seq2 = new SpilledBufferOrEventSequence(secondFile, secondChannel, pageSize);
 
 			// read and validate the sequence 1
 			seq1.open();
@@ -414,7 +413,7 @@ public class SpilledBufferOrEventSequenceTest {
 			fileChannel.write(data);
 			fileChannel.position(54);
 			
-			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, buffer, pageSize);
+			SpilledBufferOrEventSequence seq = new SpilledBufferOrEventSequence(tempFile, fileChannel, pageSize);
 			seq.open();
 			seq.cleanup();
 			
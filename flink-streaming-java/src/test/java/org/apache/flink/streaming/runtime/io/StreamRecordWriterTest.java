@@ -20,6 +20,7 @@ package org.apache.flink.streaming.runtime.io;
 
 import org.apache.flink.core.io.IOReadableWritable;
 import org.apache.flink.core.memory.MemorySegmentFactory;
+import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.io.network.api.writer.ChannelSelector;
 import org.apache.flink.runtime.io.network.api.writer.ResultPartitionWriter;
 import org.apache.flink.runtime.io.network.api.writer.RoundRobinChannelSelector;
@@ -37,6 +38,7 @@ import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
 import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -89,6 +91,137 @@ public class StreamRecordWriterTest {
 		}
 	}
 	
+	/**
+	 * Verifies that the periodic flush only flushes the output if records have been written
+	 * since the last flush, and that closing the writer cancels the periodic flush.
+	 */
+	@Test
+	public void testPeriodicFlushSkippedWithoutData() throws Exception {
+		final int numScheduledTasks = OutputFlushScheduler.getNumberOfScheduledTasks();
+
+		CountingWriter<LongValue> testWriter = new CountingWriter<>(getMockWriter(5),
+				new RoundRobinChannelSelector<LongValue>(), 1, false);
+
+		try {
+			assertEquals(numScheduledTasks + 1, OutputFlushScheduler.getNumberOfScheduledTasks());
+
+			// many periods without any written record
+			Thread.sleep(50);
+			assertEquals(0, testWriter.getNumberOfFlushes());
+
+			testWriter.emit(new LongValue(42L));
+
+			long deadline = System.currentTimeMillis() + 20000; // conservative
+			while (testWriter.getNumberOfFlushes() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(1, testWriter.getNumberOfFlushes());
+
+			// no further flushes without new records
+			Thread.sleep(50);
+			assertEquals(1, testWriter.getNumberOfFlushes());
+		}
+		finally {
+			testWriter.close();
+		}
+
+		assertEquals(numScheduledTasks, OutputFlushScheduler.getNumberOfScheduledTasks());
+	}
+
+	/**
+	 * Verifies that the adaptive flush flushes the output before the timeout expires,
+	 * if no buffers are queued for the consumers.
+	 */
+	@Test
+	public void testAdaptiveFlushWithIdleConsumers() throws Exception {
+		ResultPartitionWriter mockResultPartitionWriter = getMockWriter(5);
+		when(mockResultPartitionWriter.getNumberOfQueuedBuffers()).thenReturn(0);
+
+		// the idle consumers are checked every second, far more often than the timeout
+		CountingWriter<LongValue> testWriter = new CountingWriter<>(mockResultPartitionWriter,
+				new RoundRobinChannelSelector<LongValue>(), 10000, true);
+
+		try {
+			testWriter.emit(new LongValue(42L));
+
+			long deadline = System.currentTimeMillis() + 9000;
+			while (testWriter.getNumberOfFlushes() == 0 && System.currentTimeMillis() < deadline) {
+				Thread.sleep(1);
+			}
+			assertEquals(1, testWriter.getNumberOfFlushes());
+		}
+		finally {
+			testWriter.close();
+		}
+	}
+
+	/**
+	 * Verifies that the periodic flush does not block on a channel whose serializer is held by
+	 * the emitting thread while it waits for a buffer, and still flushes the other channels.
+	 */
+	@Test
+	public void testPeriodicFlushDoesNotBlockOnBusyChannel() throws Exception {
+		final OneShotLatch bufferRequested = new OneShotLatch();
+		final OneShotLatch releaseBuffer = new OneShotLatch();
+		final AtomicInteger numBufferRequests = new AtomicInteger();
+
+		BufferProvider mockProvider = mock(BufferProvider.class);
+		when(mockProvider.requestBufferBlocking()).thenAnswer(new Answer<Buffer>() {
+			@Override
+			public Buffer answer(InvocationOnMock invocation) throws Exception {
+				// the buffer for the second channel is only available once the test releases it
+				if (numBufferRequests.incrementAndGet() == 2) {
+					bufferRequested.trigger();
+					releaseBuffer.await();
+				}
+				return new Buffer(
+						MemorySegmentFactory.allocateUnpooledSegment(4096),
+						FreeingBufferRecycler.INSTANCE);
+			}
+		});
+
+		final ResultPartitionWriter mockResultPartitionWriter = mock(ResultPartitionWriter.class);
+		when(mockResultPartitionWriter.getBufferProvider()).thenReturn(mockProvider);
+		when(mockResultPartitionWriter.getNumberOfOutputChannels()).thenReturn(2);
+
+		final StreamRecordWriter<LongValue> testWriter = new StreamRecordWriter<>(
+				mockResultPartitionWriter, new RoundRobinChannelSelector<LongValue>(), 1);
+
+		Thread emitter = null;
+		try {
+			// the first record goes to a channel that gets its buffer right away
+			testWriter.emit(new LongValue(1L));
+
+			// the second record goes to the other channel and blocks while holding its serializer
+			emitter = new Thread() {
+				@Override
+				public void run() {
+					try {
+						testWriter.emit(new LongValue(2L));
+					} catch (Exception ignored) {}
+				}
+			};
+			emitter.start();
+			bufferRequested.await();
+
+			// the periodic flush flushes the idle channel although the other one is busy
+			verify(mockResultPartitionWriter, timeout(20000)).writeBuffer(any(Buffer.class), anyInt());
+
+			releaseBuffer.trigger();
+			emitter.join();
+
+			// the skipped channel is flushed by a later period
+			verify(mockResultPartitionWriter, timeout(20000).times(2)).writeBuffer(any(Buffer.class), anyInt());
+		}
+		finally {
+			releaseBuffer.trigger();
+			if (emitter != null) {
+				emitter.join();
+			}
+			testWriter.close();
+		}
+	}
+
 	private static ResultPartitionWriter getMockWriter(int numPartitions) throws Exception {
 		BufferProvider mockProvider = mock(BufferProvider.class);
 		when(mockProvider.requestBufferBlocking()).thenAnswer(new Answer<Buffer>() {
@@ -121,11 +254,31 @@ public class StreamRecordWriterTest {
 		}
 
 		@Override
-		public void flush() throws IOException {
+		public boolean tryFlush() throws IOException {
 			if (flushesBeforeException-- <= 0) {
 				throw new IOException("Test Exception");
 			}
-			super.flush();
+			return super.tryFlush();
+		}
+	}
+
+	private static class CountingWriter<T extends IOReadableWritable> extends StreamRecordWriter<T> {
+
+		private final AtomicInteger numberOfFlushes = new AtomicInteger();
+
+		private CountingWriter(ResultPartitionWriter writer, ChannelSelector<T> channelSelector,
+								long timeout, boolean adaptiveFlush) {
+			super(writer, channelSelector, timeout, adaptiveFlush);
+		}
+
+		@Override
+		public boolean tryFlush() throws IOException {
+			numberOfFlushes.incrementAndGet();
+			return super.tryFlush();
+		}
+
+		int getNumberOfFlushes() {
+			return numberOfFlushes.get();
 		}
 	}
 }
@@ -17,8 +17,11 @@
  */
 package org.apache.flink.streaming.runtime.operators.windowing;
 
+import com.google.common.collect.Iterables;
+
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ListState;
 import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
@@ -27,6 +30,7 @@ import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.java.typeutils.TypeInfoParser;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.streaming.api.functions.windowing.ReduceIterableWindowFunction;
 import org.apache.flink.streaming.api.functions.windowing.RichWindowFunction;
 import org.apache.flink.streaming.api.functions.windowing.delta.DeltaFunction;
@@ -587,6 +591,61 @@ public class EvictingWindowOperatorTest {
 		testHarness.close();
 	}
 
+	/**
+	 * Tests that a CountEvictor which evicts before the window function keeps the window
+	 * contents bounded while elements are added and does not change the window results.
+	 */
+	@Test
+	public void testCountEvictorEvictBeforeBoundsWindowContents() throws Exception {
+		final int WINDOW_SIZE = 3;
+		final int TRIGGER_COUNT = 10;
+
+		TypeInformation<Tuple2<String, Integer>> inputType = TypeInfoParser.parse("Tuple2<String, Integer>");
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		TypeSerializer<StreamRecord<Tuple2<String, Integer>>> streamRecordSerializer =
+			(TypeSerializer<StreamRecord<Tuple2<String, Integer>>>) new StreamElementSerializer(inputType.createSerializer(new ExecutionConfig()));
+
+		ListStateDescriptor<StreamRecord<Tuple2<String, Integer>>> stateDesc =
+			new ListStateDescriptor<>("window-contents", streamRecordSerializer);
+
+		EvictingWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, GlobalWindow> operator = new EvictingWindowOperator<>(
+			GlobalWindows.create(),
+			new GlobalWindow.Serializer(),
+			new TupleKeySelector(),
+			BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+			stateDesc,
+			new InternalIterableWindowFunction<>(new ReduceIterableWindowFunction<String, GlobalWindow, Tuple2<String, Integer>>(new SumReducer())),
+			CountTrigger.of(TRIGGER_COUNT),
+			CountEvictor.of(WINDOW_SIZE),
+			0);
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+			new KeyedOneInputStreamOperatorTestHarness<>(operator, new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		testHarness.open();
+
+		for (int i = 1; i <= 25; i++) {
+			testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", i), i));
+
+			KeyedStateBackend<String> stateBackend = operator.getKeyedStateBackend();
+			stateBackend.setCurrentKey("key1");
+			ListState<StreamRecord<Tuple2<String, Integer>>> contents =
+				stateBackend.getPartitionedState(GlobalWindow.get(), new GlobalWindow.Serializer(), stateDesc);
+			Assert.assertTrue("Window contents were not trimmed.", Iterables.size(contents.get()) <= 2 * WINDOW_SIZE);
+		}
+
+		// only the last three elements before each firing are summed up
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key1", 8 + 9 + 10), Long.MAX_VALUE));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key1", 18 + 19 + 20), Long.MAX_VALUE));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expectedOutput, testHarness.getOutput(), new ResultSortComparator());
+
+		testHarness.close();
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void testCountTriggerWithApply() throws Exception {
@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.operators.windowing;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.AggregateFunction;
+import org.apache.flink.api.common.functions.ReduceFunction;
+import org.apache.flink.api.common.state.ReducingStateDescriptor;
+import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.base.array.LongPrimitiveArraySerializer;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.api.java.tuple.Tuple2;
+import org.apache.flink.api.java.typeutils.TypeInfoParser;
+import org.apache.flink.runtime.state.AbstractStateBackend;
+import org.apache.flink.runtime.state.filesystem.FsStateBackend;
+import org.apache.flink.runtime.state.memory.MemoryStateBackend;
+import org.apache.flink.streaming.api.functions.windowing.PassThroughWindowFunction;
+import org.apache.flink.streaming.api.functions.windowing.WindowFunction;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.watermark.Watermark;
+import org.apache.flink.streaming.api.windowing.assigners.SlidingEventTimeWindows;
+import org.apache.flink.streaming.api.windowing.time.Time;
+import org.apache.flink.streaming.api.windowing.triggers.EventTimeTrigger;
+import org.apache.flink.streaming.api.windowing.windows.TimeWindow;
+import org.apache.flink.streaming.runtime.operators.windowing.functions.InternalSingleValueWindowFunction;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.OperatorStateHandles;
+import org.apache.flink.streaming.util.KeyedOneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.OneInputStreamOperatorTestHarness;
+import org.apache.flink.streaming.util.TestHarnessUtil;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.TestLogger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the {@link PanedSlidingEventTimeWindowOperator}, run against the heap state backends.
+ * The RocksDB state backend is covered by a subclass in the RocksDB module, which overrides the
+ * parameters and {@link #createStateBackend(String)}.
+ */
+@RunWith(Parameterized.class)
+@SuppressWarnings("serial")
+public class PanedSlidingEventTimeWindowOperatorTest extends TestLogger {
+
+	private static final TypeInformation<Tuple2<String, Integer>> INPUT_TYPE = TypeInfoParser.parse("Tuple2<String, Integer>");
+
+	@Parameterized.Parameters(name = "backend = {0}")
+	public static Collection<Object[]> stateBackends() {
+		return Arrays.asList(new Object[][] {{"memory"}, {"filesystem"}});
+	}
+
+	@Parameterized.Parameter
+	public String backendType;
+
+	@Rule
+	public final TemporaryFolder tempFolder = new TemporaryFolder();
+
+	protected AbstractStateBackend createStateBackend(String backendType) throws Exception {
+		switch (backendType) {
+			case "memory":
+				return new MemoryStateBackend();
+			case "filesystem":
+				return new FsStateBackend(tempFolder.newFolder().toURI());
+			default:
+				throw new IllegalArgumentException("Unknown state backend: " + backendType);
+		}
+	}
+
+	@Test
+	public void testPaneSize() {
+		assertEquals(1000L, createReduceOperator(3000, 1000, 0).getPaneSize());
+		assertEquals(1000L, createReduceOperator(5000, 2000, 0).getPaneSize());
+		assertEquals(60000L, createReduceOperator(3600000, 60000, 0).getPaneSize());
+	}
+
+	@Test
+	public void testReduceWithSnapshotAndRestore() throws Exception {
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+			createTestHarness(createReduceOperator(3000, 1000, 0));
+
+		testHarness.setup();
+		testHarness.open();
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<>();
+
+		// add elements out-of-order
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 3999));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 3000));
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 20));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 0));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 999));
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 1998));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 1999));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 1000));
+
+		testHarness.processWatermark(new Watermark(999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key1", 3), 999));
+		expectedOutput.add(new Watermark(999));
+
+		testHarness.processWatermark(new Watermark(1999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key1", 3), 1999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key2", 3), 1999));
+		expectedOutput.add(new Watermark(1999));
+
+		testHarness.processWatermark(new Watermark(2999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key1", 3), 2999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key2", 3), 2999));
+		expectedOutput.add(new Watermark(2999));
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expectedOutput, testHarness.getOutput(), new Tuple2ResultSortComparator());
+
+		// do a snapshot, close and restore again
+		OperatorStateHandles snapshot = testHarness.snapshot(0L, 0L);
+		testHarness.close();
+
+		testHarness = createTestHarness(createReduceOperator(3000, 1000, 0));
+		testHarness.setup();
+		testHarness.initializeState(snapshot);
+		testHarness.open();
+
+		expectedOutput.clear();
+
+		testHarness.processWatermark(new Watermark(3999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key2", 5), 3999));
+		expectedOutput.add(new Watermark(3999));
+
+		testHarness.processWatermark(new Watermark(4999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key2", 2), 4999));
+		expectedOutput.add(new Watermark(4999));
+
+		testHarness.processWatermark(new Watermark(5999));
+		expectedOutput.add(new StreamRecord<>(new Tuple2<>("key2", 2), 5999));
+		expectedOutput.add(new Watermark(5999));
+
+		// those don't have any effect...
+		testHarness.processWatermark(new Watermark(6999));
+		testHarness.processWatermark(new Watermark(7999));
+		expectedOutput.add(new Watermark(6999));
+		expectedOutput.add(new Watermark(7999));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expectedOutput, testHarness.getOutput(), new Tuple2ResultSortComparator());
+		assertEquals(0, testHarness.numEventTimeTimers());
+		testHarness.close();
+	}
+
+	@Test
+	public void testDropDueToLateness() throws Exception {
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+			createTestHarness(createReduceOperator(3000, 1000, 0));
+
+		testHarness.open();
+
+		ConcurrentLinkedQueue<Object> expected = new ConcurrentLinkedQueue<>();
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 1000));
+		testHarness.processWatermark(new Watermark(1999));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 1999));
+		expected.add(new Watermark(1999));
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 2000));
+		testHarness.processWatermark(new Watermark(3000));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 2), 2999));
+		expected.add(new Watermark(3000));
+
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 3001));
+
+		// the window ending at 2999 is late for these elements, but the other windows of their pane are not
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 2400));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 2400));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 3001));
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key2", 1), 3900));
+		testHarness.processWatermark(new Watermark(6000));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 5), 3999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 2), 3999));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 4), 4999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 2), 4999));
+
+		expected.add(new StreamRecord<>(new Tuple2<>("key2", 1), 5999));
+		expected.add(new StreamRecord<>(new Tuple2<>("key1", 2), 5999));
+
+		expected.add(new Watermark(6000));
+
+		// dropped due to lateness
+		testHarness.processElement(new StreamRecord<>(new Tuple2<>("key1", 1), 3001));
+
+		testHarness.processWatermark(new Watermark(25000));
+
+		expected.add(new Watermark(25000));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.", expected, testHarness.getOutput(), new Tuple2ResultSortComparator());
+		testHarness.close();
+	}
+
+	/**
+	 * Feeds the same random out-of-order input into a {@link WindowOperator} and into a
+	 * {@link PanedSlidingEventTimeWindowOperator}, with an aggregate function and with a window
+	 * size that is not a multiple of the slide, and checks that both produce the same output.
+	 */
+	@Test
+	public void testSameResultsAsWindowOperator() throws Exception {
+		final long size = 5000;
+		final long slide = 2000;
+		final long offset = 500;
+		final long lateness = 1500;
+
+		final SlidingEventTimeWindows assigner = SlidingEventTimeWindows.of(
+			Time.milliseconds(size), Time.milliseconds(slide), Time.milliseconds(offset));
+
+		WindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>, TimeWindow> windowOperator =
+			new WindowOperator<>(
+				assigner,
+				new TimeWindow.Serializer(),
+				new TupleKeySelector(),
+				BasicTypeInfo.STRING_TYPE_INFO.createSerializer(new ExecutionConfig()),
+				new ReducingStateDescriptor<>("window-contents", new WindowOperatorTest.SumReducer(), INPUT_TYPE.createSerializer(new ExecutionConfig())),
+				new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+				EventTimeTrigger.create(),
+				lateness);
+
+		PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, long[], Long, Tuple2<String, Integer>> panedOperator =
+			new PanedSlidingEventTimeWindowOperator<>(
+				size,
+				slide,
+				offset,
+				new PanedSlidingEventTimeWindowOperator.AggregatePaneFunction<>(new SumAggregator()),
+				LongPrimitiveArraySerializer.INSTANCE,
+				new InternalSingleValueWindowFunction<>(new ToTupleWindowFunction()),
+				lateness);
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> windowHarness = createTestHarness(windowOperator);
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> panedHarness = createTestHarness(panedOperator);
+
+		windowHarness.open();
+		panedHarness.open();
+
+		final Random rnd = new Random(42L);
+		long watermark = 0;
+
+		for (int i = 0; i < 5000; i++) {
+			if (rnd.nextInt(20) == 0) {
+				watermark += rnd.nextInt(1000);
+				windowHarness.processWatermark(new Watermark(watermark));
+				panedHarness.processWatermark(new Watermark(watermark));
+			} else {
+				// some elements are late, some are beyond the allowed lateness
+				final long timestamp = Math.max(0, watermark - 2500 + rnd.nextInt(6000));
+				final Tuple2<String, Integer> value = new Tuple2<>("key" + rnd.nextInt(5), rnd.nextInt(100));
+
+				windowHarness.processElement(new StreamRecord<>(value, timestamp));
+				panedHarness.processElement(new StreamRecord<>(new Tuple2<>(value.f0, value.f1), timestamp));
+			}
+		}
+
+		windowHarness.processWatermark(new Watermark(Long.MAX_VALUE));
+		panedHarness.processWatermark(new Watermark(Long.MAX_VALUE));
+
+		TestHarnessUtil.assertOutputEqualsSorted("Output was not correct.",
+			windowHarness.getOutput(), panedHarness.getOutput(), new Tuple2ResultSortComparator());
+		assertEquals(0, panedHarness.numEventTimeTimers());
+
+		windowHarness.close();
+		panedHarness.close();
+	}
+
+	// ------------------------------------------------------------------------
+
+	private static PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>, Tuple2<String, Integer>>
+			createReduceOperator(long size, long slide, long lateness) {
+
+		return new PanedSlidingEventTimeWindowOperator<>(
+			size,
+			slide,
+			0,
+			new PanedSlidingEventTimeWindowOperator.ReducePaneFunction<>(new SumReducer()),
+			INPUT_TYPE.createSerializer(new ExecutionConfig()),
+			new InternalSingleValueWindowFunction<>(new PassThroughWindowFunction<String, TimeWindow, Tuple2<String, Integer>>()),
+			lateness);
+	}
+
+	private OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> createTestHarness(
+			OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator) throws Exception {
+
+		OneInputStreamOperatorTestHarness<Tuple2<String, Integer>, Tuple2<String, Integer>> testHarness =
+			new KeyedOneInputStreamOperatorTestHarness<>(operator, new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setStateBackend(createStateBackend(backendType));
+		return testHarness;
+	}
+
+	private static class SumReducer implements ReduceFunction<Tuple2<String, Integer>> {
+		@Override
+		public Tuple2<String, Integer> reduce(Tuple2<String, Integer> value1, Tuple2<String, Integer> value2) {
+			// modifies its input, which must not change the stored panes
+			value1.f1 += value2.f1;
+			return value1;
+		}
+	}
+
+	private static class SumAggregator implements AggregateFunction<Tuple2<String, Integer>, long[], Long> {
+		@Override
+		public long[] createAccumulator() {
+			return new long[1];
+		}
+
+		@Override
+		public void add(Tuple2<String, Integer> value, long[] accumulator) {
+			accumulator[0] += value.f1;
+		}
+
+		@Override
+		public Long getResult(long[] accumulator) {
+			return accumulator[0];
+		}
+
+		@Override
+		public long[] merge(long[] a, long[] b) {
+			// modifies its input, which must not change the stored panes
+			b[0] += a[0];
+			return b;
+		}
+	}
+
+	private static class ToTupleWindowFunction implements WindowFunction<Long, Tuple2<String, Integer>, String, TimeWindow> {
+		@Override
+		public void apply(String key, TimeWindow window, Iterable<Long> input, Collector<Tuple2<String, Integer>> out) {
+			for (Long sum : input) {
+				out.collect(new Tuple2<>(key, sum.intValue()));
+			}
+		}
+	}
+
+	private static class TupleKeySelector implements KeySelector<Tuple2<String, Integer>, String> {
+		@Override
+		public String getKey(Tuple2<String, Integer> value) {
+			return value.f0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static class Tuple2ResultSortComparator implements Comparator<Object>, Serializable {
+		@Override
+		public int compare(Object o1, Object o2) {
+			if (o1 instanceof Watermark || o2 instanceof Watermark) {
+				return 0;
+			} else {
+				StreamRecord<Tuple2<String, Integer>> sr0 = (StreamRecord<Tuple2<String, Integer>>) o1;
+				StreamRecord<Tuple2<String, Integer>> sr1 = (StreamRecord<Tuple2<String, Integer>>) o2;
+				if (sr0.getTimestamp() != sr1.getTimestamp()) {
+					return Long.compare(sr0.getTimestamp(), sr1.getTimestamp());
+				}
+				int comparison = sr0.getValue().f0.compareTo(sr1.getValue().f0);
+				if (comparison != 0) {
+					return comparison;
+				} else {
+					return sr0.getValue().f1 - sr1.getValue().f1;
+				}
+			}
+		}
+	}
+}
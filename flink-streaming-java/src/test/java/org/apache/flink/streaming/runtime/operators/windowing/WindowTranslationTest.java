@@ -282,6 +282,29 @@ public class WindowTranslationTest {
 		processElementAndEnsureOutput(winOperator, winOperator.getKeySelector(), BasicTypeInfo.STRING_TYPE_INFO, new Tuple2<>("hello", 1));
 	}
 
+	@Test
+	public void testReducePanedEventTime() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setStreamTimeCharacteristic(TimeCharacteristic.IngestionTime);
+		env.getConfig().enablePanedSlidingWindows();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		DataStream<Tuple2<String, Integer>> window1 = source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(300, TimeUnit.MILLISECONDS)))
+				.reduce(new DummyReducer());
+
+		OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>> transform = (OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>>) window1.getTransformation();
+		OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator = transform.getOperator();
+		Assert.assertTrue(operator instanceof PanedSlidingEventTimeWindowOperator);
+		PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, ?, ?, ?> winOperator = (PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, ?, ?, ?>) operator;
+		Assert.assertEquals(100L, winOperator.getPaneSize());
+		Assert.assertTrue(winOperator.getPaneFunction() instanceof PanedSlidingEventTimeWindowOperator.ReducePaneFunction);
+
+		processElementAndEnsureOutput(winOperator, new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO, new Tuple2<>("hello", 1));
+	}
+
 	@Test
 	@SuppressWarnings("rawtypes")
 	public void testReduceProcessingTime() throws Exception {
@@ -603,6 +626,35 @@ public class WindowTranslationTest {
 				winOperator, winOperator.getKeySelector(), BasicTypeInfo.STRING_TYPE_INFO, new Tuple2<>("hello", 1));
 	}
 
+	@Test
+	public void testAggregatePanedEventTime() throws Exception {
+		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
+		env.setStreamTimeCharacteristic(TimeCharacteristic.IngestionTime);
+		env.getConfig().enablePanedSlidingWindows();
+
+		DataStream<Tuple2<String, Integer>> source = env.fromElements(Tuple2.of("hello", 1), Tuple2.of("hello", 2));
+
+		DataStream<Tuple2<String, Integer>> window1 = source
+				.keyBy(new TupleKeySelector())
+				.window(SlidingEventTimeWindows.of(Time.of(1, TimeUnit.SECONDS), Time.of(100, TimeUnit.MILLISECONDS)))
+				.aggregate(new DummyAggregationFunction());
+
+		OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>> transform =
+				(OneInputTransformation<Tuple2<String, Integer>, Tuple2<String, Integer>>) window1.getTransformation();
+
+		OneInputStreamOperator<Tuple2<String, Integer>, Tuple2<String, Integer>> operator = transform.getOperator();
+
+		Assert.assertTrue(operator instanceof PanedSlidingEventTimeWindowOperator);
+		PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, ?, ?, ?> winOperator =
+				(PanedSlidingEventTimeWindowOperator<String, Tuple2<String, Integer>, ?, ?, ?>) operator;
+
+		Assert.assertEquals(100L, winOperator.getPaneSize());
+		Assert.assertTrue(winOperator.getPaneFunction() instanceof PanedSlidingEventTimeWindowOperator.AggregatePaneFunction);
+
+		processElementAndEnsureOutput(
+				winOperator, new TupleKeySelector(), BasicTypeInfo.STRING_TYPE_INFO, new Tuple2<>("hello", 1));
+	}
+
 	@Test
 	public void testAggregateProcessingTime() throws Exception {
 		StreamExecutionEnvironment env = StreamExecutionEnvironment.getExecutionEnvironment();
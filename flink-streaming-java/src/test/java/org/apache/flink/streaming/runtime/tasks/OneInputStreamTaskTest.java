@@ -28,19 +28,28 @@ import org.apache.flink.api.common.typeutils.base.IntSerializer;
 import org.apache.flink.api.common.typeutils.base.StringSerializer;
 import org.apache.flink.api.java.functions.KeySelector;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
 import org.apache.flink.core.fs.FSDataInputStream;
 import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.core.memory.MemorySegmentFactory;
 import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointMetrics;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.runtime.checkpoint.SubtaskState;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateLayout;
+import org.apache.flink.runtime.checkpoint.channel.ChannelStateWriter;
 import org.apache.flink.runtime.io.network.api.CancelCheckpointMarker;
 import org.apache.flink.runtime.io.network.api.CheckpointBarrier;
+import org.apache.flink.runtime.io.network.buffer.Buffer;
+import org.apache.flink.runtime.io.network.buffer.FreeingBufferRecycler;
 import org.apache.flink.runtime.operators.testutils.MockInputSplitProvider;
 import org.apache.flink.runtime.state.StateInitializationContext;
 import org.apache.flink.runtime.state.StateSnapshotContext;
+import org.apache.flink.runtime.state.StreamStateHandle;
 import org.apache.flink.runtime.state.TaskStateHandles;
+import org.apache.flink.runtime.state.memory.MemCheckpointStreamFactory;
+import org.apache.flink.runtime.util.DataOutputSerializer;
 import org.apache.flink.streaming.api.collector.selector.OutputSelector;
 import org.apache.flink.streaming.api.graph.StreamConfig;
 import org.apache.flink.streaming.api.graph.StreamEdge;
@@ -51,6 +60,7 @@ import org.apache.flink.streaming.api.operators.StreamMap;
 import org.apache.flink.streaming.api.operators.StreamCheckpointedOperator;
 import org.apache.flink.streaming.api.watermark.Watermark;
 import org.apache.flink.streaming.runtime.partitioner.BroadcastPartitioner;
+import org.apache.flink.streaming.runtime.streamrecord.StreamElementSerializer;
 import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
 import org.apache.flink.streaming.runtime.streamstatus.StreamStatus;
 import org.apache.flink.streaming.util.TestHarnessUtil;
@@ -64,6 +74,7 @@ import org.junit.Test;
 import scala.concurrent.duration.Deadline;
 import scala.concurrent.duration.FiniteDuration;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -592,8 +603,188 @@ public class OneInputStreamTaskTest extends TestLogger {
 		TestingStreamOperator.numberRestoreCalls = 0;
 	}
 
+	/**
+	 * Tests that a task restored from an unaligned checkpoint first emits the in-flight output
+	 * data and replays the in-flight input data, before it processes any new input.
+	 */
+	@Test
+	public void testRestoreInFlightDataOfUnalignedCheckpoint() throws Exception {
+		ChannelStateWriter channelStateWriter = new ChannelStateWriter(1L, 1L);
+		channelStateWriter.addOutputData(0, 0, new Buffer(
+				MemorySegmentFactory.wrap(serializeRecords(new StreamRecord<>("x", 1L))),
+				FreeingBufferRecycler.INSTANCE));
+		channelStateWriter.addInputData(0, serializeRecords(
+				new StreamRecord<>("a", 2L),
+				new StreamRecord<>("b", 3L)));
+		channelStateWriter.finishInput();
+
+		MemCheckpointStreamFactory streamFactory = new MemCheckpointStreamFactory(1024 * 1024);
+		StreamStateHandle inputChannelState = channelStateWriter.writeInputState(streamFactory);
+		StreamStateHandle resultSubpartitionState = channelStateWriter.writeOutputState(streamFactory);
+
+		final OneInputStreamTask<String, String> restoredTask = new OneInputStreamTask<String, String>();
+		restoredTask.setInitialState(new TaskStateHandles(
+				null, null, null, null, null, inputChannelState, resultSubpartitionState));
+
+		final OneInputStreamTaskTestHarness<String, String> testHarness = new OneInputStreamTaskTestHarness<String, String>(restoredTask, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setupOutputForSingletonOperatorChain();
+		testHarness.getStreamConfig().setStreamOperator(new StreamMap<String, String>(new IdentityMap()));
+
+		testHarness.invoke();
+		testHarness.waitForTaskRunning();
+
+		testHarness.processElement(new StreamRecord<>("c", 4L));
+		testHarness.endInput();
+		testHarness.waitForTaskCompletion();
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<Object>();
+		expectedOutput.add(new StreamRecord<>("x", 1L));
+		expectedOutput.add(new StreamRecord<>("a", 2L));
+		expectedOutput.add(new StreamRecord<>("b", 3L));
+		expectedOutput.add(new StreamRecord<>("c", 4L));
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, testHarness.getOutput());
+	}
+
+	/**
+	 * Tests that an unaligned checkpoint persists the input that arrives on a channel before its
+	 * barrier, together with the channels of the task, and that the restored task replays it.
+	 */
+	@Test
+	public void testUnalignedCheckpointSnapshottingAndRestoring() throws Exception {
+		final Deadline deadline = new FiniteDuration(2, TimeUnit.MINUTES).fromNow();
+		final OneInputStreamTask<String, String> streamTask = new OneInputStreamTask<String, String>();
+		final OneInputStreamTaskTestHarness<String, String> testHarness = new OneInputStreamTaskTestHarness<String, String>(streamTask, 1, 2, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setupOutputForSingletonOperatorChain();
+		testHarness.getStreamConfig().setStreamOperator(new StreamMap<String, String>(new IdentityMap()));
+
+		AcknowledgeStreamMockEnvironment env = new AcknowledgeStreamMockEnvironment(
+			testHarness.jobConfig,
+			testHarness.taskConfig,
+			testHarness.executionConfig,
+			testHarness.memorySize,
+			new MockInputSplitProvider(),
+			testHarness.bufferSize);
+
+		testHarness.invoke(env);
+		testHarness.waitForTaskRunning(deadline.timeLeft().toMillis());
+
+		testHarness.processElement(new StreamRecord<>("a", 1L), 0, 0);
+		testHarness.processElement(new StreamRecord<>("b", 2L), 0, 1);
+		testHarness.waitForInputProcessing();
+
+		// the first barrier triggers the checkpoint right away
+		testHarness.processEvent(new CheckpointBarrier(1L, 1L, CheckpointOptions.forUnalignedCheckpoint()), 0, 0);
+		testHarness.waitForInputProcessing();
+
+		// the record is processed and in flight with respect to the checkpoint
+		testHarness.processElement(new StreamRecord<>("c", 3L), 0, 1);
+		testHarness.waitForInputProcessing();
+
+		testHarness.processEvent(new CheckpointBarrier(1L, 1L, CheckpointOptions.forUnalignedCheckpoint()), 0, 1);
+
+		env.getCheckpointLatch().await();
+		assertEquals(1L, env.getCheckpointId());
+
+		testHarness.endInput();
+		testHarness.waitForTaskCompletion(deadline.timeLeft().toMillis());
+
+		SubtaskState subtaskState = env.getCheckpointStateHandles();
+		assertNotNull(subtaskState.getInputChannelState());
+		assertEquals(new ChannelStateLayout(new int[] {2}, new int[] {1}), subtaskState.getChannelStateLayout());
+
+		final OneInputStreamTask<String, String> restoredTask = new OneInputStreamTask<String, String>();
+		restoredTask.setInitialState(new TaskStateHandles(subtaskState));
+
+		final OneInputStreamTaskTestHarness<String, String> restoredTaskHarness = new OneInputStreamTaskTestHarness<String, String>(restoredTask, 1, 2, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		restoredTaskHarness.setupOutputForSingletonOperatorChain();
+		restoredTaskHarness.getStreamConfig().setStreamOperator(new StreamMap<String, String>(new IdentityMap()));
+
+		restoredTaskHarness.invoke();
+		restoredTaskHarness.waitForTaskRunning(deadline.timeLeft().toMillis());
+
+		restoredTaskHarness.processElement(new StreamRecord<>("d", 4L), 0, 1);
+		restoredTaskHarness.endInput();
+		restoredTaskHarness.waitForTaskCompletion(deadline.timeLeft().toMillis());
+
+		ConcurrentLinkedQueue<Object> expectedOutput = new ConcurrentLinkedQueue<Object>();
+		expectedOutput.add(new StreamRecord<>("c", 3L));
+		expectedOutput.add(new StreamRecord<>("d", 4L));
+
+		TestHarnessUtil.assertOutputEquals("Output was not correct.", expectedOutput, restoredTaskHarness.getOutput());
+	}
+
+	/**
+	 * Tests that in the mailbox execution model, the timers and the checkpoints of the task are
+	 * executed as mails by the task thread, between the records that it processes.
+	 */
+	@Test
+	public void testTimersAndCheckpointsRunAsMailsInTaskThread() throws Exception {
+		final Deadline deadline = new FiniteDuration(2, TimeUnit.MINUTES).fromNow();
+		final OneInputStreamTask<String, String> streamTask = new OneInputStreamTask<String, String>();
+		final OneInputStreamTaskTestHarness<String, String> testHarness = new OneInputStreamTaskTestHarness<String, String>(streamTask, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setupOutputForSingletonOperatorChain();
+		testHarness.getStreamConfig().setStreamOperator(new ThreadRecordingOperator());
+
+		AcknowledgeStreamMockEnvironment env = new AcknowledgeStreamMockEnvironment(
+			testHarness.jobConfig,
+			testHarness.taskConfig,
+			testHarness.executionConfig,
+			testHarness.memorySize,
+			new MockInputSplitProvider(),
+			testHarness.bufferSize);
+
+		Configuration taskManagerConfig = new Configuration();
+		taskManagerConfig.setBoolean(TaskManagerOptions.TASK_MAILBOX_EXECUTION, true);
+		env.setTaskManagerConfiguration(taskManagerConfig);
+
+		ThreadRecordingOperator.reset();
+
+		testHarness.invoke(env);
+		testHarness.waitForTaskRunning(deadline.timeLeft().toMillis());
+
+		// the element registers a timer which fires right away
+		testHarness.processElement(new StreamRecord<>("Hello"));
+		ThreadRecordingOperator.timerFired.await();
+
+		assertTrue(streamTask.triggerCheckpoint(
+			new CheckpointMetaData(1L, 1L), CheckpointOptions.forFullCheckpoint()));
+		env.getCheckpointLatch().await();
+		assertEquals(1L, env.getCheckpointId());
+
+		testHarness.endInput();
+		testHarness.waitForTaskCompletion(deadline.timeLeft().toMillis());
+
+		assertNotNull(ThreadRecordingOperator.processingThread);
+		assertEquals(ThreadRecordingOperator.processingThread, ThreadRecordingOperator.timerThread);
+		assertEquals(ThreadRecordingOperator.processingThread, ThreadRecordingOperator.snapshotThread);
+
+		assertEquals(Arrays.asList("Hello", "timer:Hello"),
+			TestHarnessUtil.getRawElementsFromOutput(testHarness.getOutput()));
+	}
+
 	//==============================================================================================
 	// Utility functions and classes
+
+	/**
+	 * Serializes the given records the way the record writers write them to the network buffers.
+	 */
+	@SafeVarargs
+	private static byte[] serializeRecords(StreamRecord<String>... records) throws IOException {
+		StreamElementSerializer<String> serializer = new StreamElementSerializer<>(StringSerializer.INSTANCE);
+		DataOutputSerializer record = new DataOutputSerializer(64);
+		DataOutputSerializer output = new DataOutputSerializer(64);
+
+		for (StreamRecord<String> streamRecord : records) {
+			record.clear();
+			serializer.serialize(streamRecord, record);
+
+			output.writeInt(record.length());
+			output.write(record.getByteArray(), 0, record.length());
+		}
+
+		return output.getCopyOfBuffer();
+	}
 	//==============================================================================================
 
 	private void configureChainedTestingStreamOperator(
@@ -806,6 +997,51 @@ public class OneInputStreamTaskTest extends TestLogger {
 	}
 
 
+	/**
+	 * Operator that records the threads which process its elements, fire its timers, and take its
+	 * snapshots. Every element registers a processing time timer which emits the element again.
+	 */
+	private static class ThreadRecordingOperator
+			extends AbstractStreamOperator<String>
+			implements OneInputStreamOperator<String, String> {
+
+		private static final long serialVersionUID = 1L;
+
+		static volatile Thread processingThread;
+		static volatile Thread timerThread;
+		static volatile Thread snapshotThread;
+
+		static OneShotLatch timerFired;
+
+		static void reset() {
+			processingThread = null;
+			timerThread = null;
+			snapshotThread = null;
+			timerFired = new OneShotLatch();
+		}
+
+		@Override
+		public void processElement(final StreamRecord<String> element) throws Exception {
+			processingThread = Thread.currentThread();
+			output.collect(element);
+
+			final ProcessingTimeService timerService = getProcessingTimeService();
+			timerService.registerTimer(timerService.getCurrentProcessingTime(), new ProcessingTimeCallback() {
+				@Override
+				public void onProcessingTime(long timestamp) throws Exception {
+					timerThread = Thread.currentThread();
+					output.collect(new StreamRecord<>("timer:" + element.getValue()));
+					timerFired.trigger();
+				}
+			});
+		}
+
+		@Override
+		public void snapshotState(StateSnapshotContext context) throws Exception {
+			snapshotThread = Thread.currentThread();
+		}
+	}
+
 	// This must only be used in one test, otherwise the static fields will be changed
 	// by several tests concurrently
 	private static class TestOpenCloseMapFunction extends RichMapFunction<String, String> {
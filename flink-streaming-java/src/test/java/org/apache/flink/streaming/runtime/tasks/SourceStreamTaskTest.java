@@ -22,6 +22,8 @@ import org.apache.flink.api.common.typeinfo.BasicTypeInfo;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.api.java.typeutils.TupleTypeInfo;
 import org.apache.flink.configuration.Configuration;
+import org.apache.flink.configuration.TaskManagerOptions;
+import org.apache.flink.core.testutils.OneShotLatch;
 import org.apache.flink.runtime.checkpoint.CheckpointMetaData;
 import org.apache.flink.runtime.checkpoint.CheckpointOptions;
 import org.apache.flink.streaming.api.checkpoint.ListCheckpointed;
@@ -139,6 +141,48 @@ public class SourceStreamTaskTest {
 		}
 	}
 
+	/**
+	 * Tests that in the mailbox execution model, the source function runs in the source thread,
+	 * while the task thread takes the checkpoints, and that the task finishes once the source
+	 * function returned.
+	 */
+	@Test
+	public void testMailboxExecutionRunsSourceFunctionInSourceThread() throws Exception {
+		final SourceStreamTask<String, SourceFunction<String>, StreamSource<String, SourceFunction<String>>> sourceTask = new SourceStreamTask<>();
+		final StreamTaskTestHarness<String> testHarness = new StreamTaskTestHarness<String>(sourceTask, BasicTypeInfo.STRING_TYPE_INFO);
+		testHarness.setupOutputForSingletonOperatorChain();
+
+		StreamConfig streamConfig = testHarness.getStreamConfig();
+		StreamSource<String, ?> sourceOperator = new StreamSource<>(new ThreadRecordingSource());
+		streamConfig.setStreamOperator(sourceOperator);
+
+		StreamMockEnvironment env = testHarness.createEnvironment();
+		Configuration taskManagerConfig = new Configuration();
+		taskManagerConfig.setBoolean(TaskManagerOptions.TASK_MAILBOX_EXECUTION, true);
+		env.setTaskManagerConfiguration(taskManagerConfig);
+
+		ThreadRecordingSource.reset();
+
+		testHarness.invoke(env);
+		ThreadRecordingSource.emitted.await();
+
+		Assert.assertTrue(sourceTask.triggerCheckpoint(
+			new CheckpointMetaData(1L, 1L), CheckpointOptions.forFullCheckpoint()));
+		ThreadRecordingSource.snapshotTaken.await();
+
+		// the task finishes once the source function returns
+		ThreadRecordingSource.finish.trigger();
+		testHarness.waitForTaskCompletion();
+
+		Assert.assertNotNull(ThreadRecordingSource.sourceThread);
+		Assert.assertTrue(ThreadRecordingSource.sourceThread.getName().startsWith("Source Thread"));
+		Assert.assertNotEquals(ThreadRecordingSource.taskThread, ThreadRecordingSource.sourceThread);
+		Assert.assertEquals(ThreadRecordingSource.taskThread, ThreadRecordingSource.snapshotThread);
+
+		List<String> resultElements = TestHarnessUtil.getRawElementsFromOutput(testHarness.getOutput());
+		Assert.assertEquals(10, resultElements.size());
+	}
+
 	private static class MockSource implements SourceFunction<Tuple2<Long, Integer>>, ListCheckpointed<Serializable> {
 		private static final long serialVersionUID = 1;
 
@@ -239,6 +283,64 @@ public class SourceStreamTaskTest {
 		}
 	}
 
+	/**
+	 * Source that records the threads which open it, run it, and take its snapshots. It emits its
+	 * elements and then waits until the test lets it finish.
+	 */
+	private static class ThreadRecordingSource extends RichSourceFunction<String> implements ListCheckpointed<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		static volatile Thread taskThread;
+		static volatile Thread sourceThread;
+		static volatile Thread snapshotThread;
+
+		static OneShotLatch emitted;
+		static OneShotLatch snapshotTaken;
+		static OneShotLatch finish;
+
+		static void reset() {
+			taskThread = null;
+			sourceThread = null;
+			snapshotThread = null;
+			emitted = new OneShotLatch();
+			snapshotTaken = new OneShotLatch();
+			finish = new OneShotLatch();
+		}
+
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			super.open(parameters);
+			taskThread = Thread.currentThread();
+		}
+
+		@Override
+		public void run(SourceContext<String> ctx) throws Exception {
+			sourceThread = Thread.currentThread();
+
+			for (int i = 0; i < 10; i++) {
+				synchronized (ctx.getCheckpointLock()) {
+					ctx.collect("Hello" + i);
+				}
+			}
+
+			emitted.trigger();
+			finish.await();
+		}
+
+		@Override
+		public void cancel() {}
+
+		@Override
+		public List<Integer> snapshotState(long checkpointId, long timestamp) throws Exception {
+			snapshotThread = Thread.currentThread();
+			snapshotTaken.trigger();
+			return Collections.emptyList();
+		}
+
+		@Override
+		public void restoreState(List<Integer> state) throws Exception {}
+	}
+
 	public static class OpenCloseTestSource extends RichSourceFunction<String> {
 		private static final long serialVersionUID = 1L;
 
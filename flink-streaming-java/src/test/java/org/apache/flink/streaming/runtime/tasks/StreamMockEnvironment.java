@@ -59,6 +59,7 @@ import org.apache.flink.runtime.util.TestingTaskManagerRuntimeInfo;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -105,6 +106,8 @@ public class StreamMockEnvironment implements Environment {
 
 	private volatile boolean wasFailedExternally = false;
 
+	private Configuration taskManagerConfiguration = new Configuration();
+
 	public StreamMockEnvironment(Configuration jobConfig, Configuration taskConfig, ExecutionConfig executionConfig,
 								 long memorySize, MockInputSplitProvider inputSplitProvider, int bufferSize) {
 		this.taskInfo = new TaskInfo(
@@ -347,9 +350,15 @@ public class StreamMockEnvironment implements Environment {
 		return wasFailedExternally;
 	}
 
+	public void setTaskManagerConfiguration(Configuration taskManagerConfiguration) {
+		this.taskManagerConfiguration = taskManagerConfiguration;
+	}
+
 	@Override
 	public TaskManagerRuntimeInfo getTaskManagerInfo() {
-		return new TestingTaskManagerRuntimeInfo();
+		return new TestingTaskManagerRuntimeInfo(
+			taskManagerConfiguration,
+			System.getProperty("java.io.tmpdir").split(",|" + File.pathSeparator));
 	}
 
 	@Override
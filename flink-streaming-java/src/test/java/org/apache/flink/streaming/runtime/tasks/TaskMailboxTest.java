@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.flink.streaming.runtime.tasks;
+
+import org.apache.flink.core.testutils.OneShotLatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the {@link TaskMailbox}.
+ */
+public class TaskMailboxTest {
+
+	@Test
+	public void testMailsAreTakenInOrder() {
+		final TaskMailbox mailbox = new TaskMailbox();
+		final List<Integer> executed = new ArrayList<>();
+
+		for (int i = 0; i < 10; i++) {
+			final int value = i;
+			assertTrue(mailbox.put(new Runnable() {
+				@Override
+				public void run() {
+					executed.add(value);
+				}
+			}));
+		}
+
+		assertTrue(mailbox.hasMail());
+
+		Runnable mail;
+		while ((mail = mailbox.tryTake()) != null) {
+			mail.run();
+		}
+
+		assertFalse(mailbox.hasMail());
+		assertEquals(10, executed.size());
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, (int) executed.get(i));
+		}
+	}
+
+	@Test
+	public void testClosedMailboxRejectsMails() {
+		final TaskMailbox mailbox = new TaskMailbox();
+		assertTrue(mailbox.put(new NoOpMail()));
+
+		mailbox.close();
+		assertTrue(mailbox.isClosed());
+		assertFalse(mailbox.put(new NoOpMail()));
+
+		// mails that were put before closing can still be taken
+		assertTrue(mailbox.tryTake() != null);
+		assertNull(mailbox.tryTake());
+	}
+
+	@Test
+	public void testAwaitReturnsOnMail() throws Exception {
+		final TaskMailbox mailbox = new TaskMailbox();
+		final OneShotLatch returned = new OneShotLatch();
+
+		final Thread waiter = new Thread() {
+			@Override
+			public void run() {
+				try {
+					mailbox.await();
+					returned.trigger();
+				} catch (InterruptedException ignored) {}
+			}
+		};
+		waiter.start();
+
+		mailbox.put(new NoOpMail());
+		returned.await();
+		waiter.join();
+	}
+
+	@Test
+	public void testWakeUpBeforeAwait() throws Exception {
+		final TaskMailbox mailbox = new TaskMailbox();
+
+		// a wake up that happens while the task thread does not wait is not lost
+		mailbox.wakeUp();
+		mailbox.await();
+
+		// close lets every call return
+		mailbox.close();
+		mailbox.await();
+		mailbox.await();
+	}
+
+	private static final class NoOpMail implements Runnable {
+		@Override
+		public void run() {}
+	}
+}